@@ -44,6 +44,7 @@ import java.util.concurrent.TimeUnit;
 public class LineTcpParserBenchmark {
 
     private static final long BUFFER_SIZE = 32768;
+    private static final boolean[] CONTROL_CHARS = new boolean[128];
     private final long bufHi;
     private final long bufLo;
     private final LineTcpParser parser;
@@ -127,4 +128,34 @@ public class LineTcpParserBenchmark {
             bufPos = parser.getBufferAddress();
         }
     }
+
+    @Benchmark
+    public long testScanBytewise() {
+        // baseline: byte-at-a-time scan the parser used to do between control characters
+        long controlBytes = 0;
+        for (long p = bufLo; p < bufHi; p++) {
+            byte b = Unsafe.getUnsafe().getByte(p);
+            if (b < 0 || CONTROL_CHARS[b]) {
+                controlBytes++;
+            }
+        }
+        return controlBytes;
+    }
+
+    @Benchmark
+    public long testScanWordwise() {
+        long controlBytes = 0;
+        long p = LineTcpParser.skipRegularBytes(bufLo, bufHi);
+        while (p < bufHi) {
+            controlBytes++;
+            p = LineTcpParser.skipRegularBytes(p + 1, bufHi);
+        }
+        return controlBytes;
+    }
+
+    static {
+        for (char ch : new char[]{'\n', '\r', '=', ',', ' ', '\\', '"', '\0', '/'}) {
+            CONTROL_CHARS[ch] = true;
+        }
+    }
 }
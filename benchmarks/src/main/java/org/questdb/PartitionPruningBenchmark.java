@@ -0,0 +1,133 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.questdb;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures filtered scans with and without partition pruning. Min/max stats are computed
+ * lazily by the table reader, so "cold" releases all pooled readers before each query to
+ * include the stats scan, while "warm" reuses the reader and its cached stats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PartitionPruningBenchmark {
+    private static final int PARTITION_COUNT = 100;
+    private static final int ROWS_PER_PARTITION = 100_000;
+    private CairoEngine engine;
+    private RecordCursorFactory factory;
+    private SqlExecutionContext sqlExecutionContext;
+    @Param({"true", "false"})
+    public boolean pruningEnabled;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(PartitionPruningBenchmark.class.getSimpleName())
+                .warmupIterations(2)
+                .measurementIterations(3)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws SqlException {
+        final boolean pruning = pruningEnabled;
+        final CairoConfiguration configuration = new DefaultCairoConfiguration(System.getProperty("java.io.tmpdir")) {
+            @Override
+            public boolean isSqlPartitionPruningEnabled() {
+                return pruning;
+            }
+        };
+        engine = new CairoEngine(configuration);
+        sqlExecutionContext = new SqlExecutionContextImpl(engine, 1)
+                .with(
+                        configuration.getFactoryProvider().getSecurityContextFactory().getRootContext(),
+                        null,
+                        null,
+                        -1,
+                        null
+                );
+        try (SqlCompiler compiler = engine.getSqlCompiler()) {
+            compiler.compile("drop table if exists pruning_bench", sqlExecutionContext);
+            // price grows with time, so each partition covers its own price range
+            compiler.compile(
+                    "create table pruning_bench as (" +
+                            "select x price, rnd_double() d, timestamp_sequence(0, " + (86_400_000_000L / ROWS_PER_PARTITION) + ") ts" +
+                            " from long_sequence(" + (long) PARTITION_COUNT * ROWS_PER_PARTITION + ")" +
+                            ") timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+            factory = compiler.compile(
+                    "select count(), sum(d) from pruning_bench where price > " + (long) (PARTITION_COUNT - 2) * ROWS_PER_PARTITION,
+                    sqlExecutionContext
+            ).getRecordCursorFactory();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SqlException {
+        factory.close();
+        try (SqlCompiler compiler = engine.getSqlCompiler()) {
+            compiler.compile("drop table pruning_bench", sqlExecutionContext);
+        }
+        engine.close();
+    }
+
+    @Benchmark
+    public double testFilterColdStats() throws SqlException {
+        engine.releaseAllReaders();
+        return runQuery();
+    }
+
+    @Benchmark
+    public double testFilterWarmStats() throws SqlException {
+        return runQuery();
+    }
+
+    private double runQuery() throws SqlException {
+        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+            cursor.hasNext();
+            return cursor.getRecord().getDouble(1);
+        }
+    }
+}
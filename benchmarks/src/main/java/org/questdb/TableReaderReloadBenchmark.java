@@ -95,6 +95,7 @@ public class TableReaderReloadBenchmark {
                 DefaultLifecycleManager.INSTANCE,
                 configuration.getRoot(),
                 DefaultDdlListener.INSTANCE,
+                new SharedSymbolCacheRegistry(),
                 () -> false,
                 Metrics.disabled()
         );
@@ -91,6 +91,7 @@ public class TableWriterBenchmark {
                 DefaultLifecycleManager.INSTANCE,
                 configuration.getRoot(),
                 DefaultDdlListener.INSTANCE,
+                new SharedSymbolCacheRegistry(),
                 () -> false,
                 Metrics.disabled()
         );
@@ -103,6 +104,7 @@ public class TableWriterBenchmark {
                 DefaultLifecycleManager.INSTANCE,
                 configuration.getRoot(),
                 DefaultDdlListener.INSTANCE,
+                new SharedSymbolCacheRegistry(),
                 () -> false,
                 Metrics.disabled()
         );
@@ -115,6 +117,7 @@ public class TableWriterBenchmark {
                 DefaultLifecycleManager.INSTANCE,
                 configuration.getRoot(),
                 DefaultDdlListener.INSTANCE,
+                new SharedSymbolCacheRegistry(),
                 () -> false,
                 Metrics.disabled()
         );
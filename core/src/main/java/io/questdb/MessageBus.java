@@ -26,6 +26,8 @@ package io.questdb;
 
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cutlass.text.CopyExportRequestTask;
+import io.questdb.cutlass.text.CopyExportTask;
 import io.questdb.cutlass.text.CopyRequestTask;
 import io.questdb.cutlass.text.CopyTask;
 import io.questdb.mp.*;
@@ -43,6 +45,12 @@ public interface MessageBus extends Closeable {
 
     CairoConfiguration getConfiguration();
 
+    MPSequence getCopyExportRequestPubSeq();
+
+    RingQueue<CopyExportRequestTask> getCopyExportRequestQueue();
+
+    SCSequence getCopyExportRequestSubSeq();
+
     MPSequence getCopyRequestPubSeq();
 
     MPSequence getGroupByMergeShardPubSeq();
@@ -109,6 +117,14 @@ public interface MessageBus extends Closeable {
 
     RingQueue<TableWriterTask> getTableWriterEventQueue();
 
+    SCSequence getTextExportColSeq();
+
+    SPSequence getTextExportPubSeq();
+
+    RingQueue<CopyExportTask> getTextExportQueue();
+
+    MCSequence getTextExportSubSeq();
+
     SCSequence getTextImportColSeq();
 
     SPSequence getTextImportPubSeq();
@@ -132,4 +148,10 @@ public interface MessageBus extends Closeable {
     RingQueue<WalTxnNotificationTask> getWalTxnNotificationQueue();
 
     MCSequence getWalTxnNotificationSubSequence();
+
+    MPSequence getWindowShardPubSeq();
+
+    RingQueue<WindowShardTask> getWindowShardQueue();
+
+    MCSequence getWindowShardSubSeq();
 }
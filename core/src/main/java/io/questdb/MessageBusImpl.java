@@ -26,6 +26,8 @@ package io.questdb;
 
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cutlass.text.CopyExportRequestTask;
+import io.questdb.cutlass.text.CopyExportTask;
 import io.questdb.cutlass.text.CopyRequestTask;
 import io.questdb.cutlass.text.CopyTask;
 import io.questdb.mp.*;
@@ -72,6 +74,13 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence tableWriterEventPubSeq;
     private final RingQueue<TableWriterTask> tableWriterEventQueue;
     private final FanOut tableWriterEventSubSeq;
+    private final SCSequence textExportColSeq;
+    private final SPSequence textExportPubSeq;
+    private final RingQueue<CopyExportTask> textExportQueue;
+    private final MPSequence textExportRequestPubSeq;
+    private final RingQueue<CopyExportRequestTask> textExportRequestQueue;
+    private final SCSequence textExportRequestSubSeq;
+    private final MCSequence textExportSubSeq;
     private final SCSequence textImportColSeq;
     private final SPSequence textImportPubSeq;
     private final RingQueue<CopyTask> textImportQueue;
@@ -85,6 +94,9 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence walTxnNotificationPubSequence;
     private final RingQueue<WalTxnNotificationTask> walTxnNotificationQueue;
     private final MCSequence walTxnNotificationSubSequence;
+    private final MPSequence windowShardPubSeq;
+    private final RingQueue<WindowShardTask> windowShardQueue;
+    private final MCSequence windowShardSubSeq;
 
     public MessageBusImpl(@NotNull CairoConfiguration configuration) {
         this.configuration = configuration;
@@ -181,6 +193,18 @@ public class MessageBusImpl implements MessageBus {
         this.textImportRequestSubSeq = new SCSequence();
         textImportRequestPubSeq.then(textImportRequestSubSeq).then(textImportRequestPubSeq);
 
+        this.textExportQueue = new RingQueue<>(CopyExportTask::new, configuration.getSqlCopyQueueCapacity());
+        this.textExportPubSeq = new SPSequence(textExportQueue.getCycle());
+        this.textExportSubSeq = new MCSequence(textExportQueue.getCycle());
+        this.textExportColSeq = new SCSequence();
+        textExportPubSeq.then(textExportSubSeq).then(textExportColSeq).then(textExportPubSeq);
+
+        // Same as import, only a single export is allowed to be in-flight.
+        this.textExportRequestQueue = new RingQueue<>(CopyExportRequestTask::new, 1);
+        this.textExportRequestPubSeq = new MPSequence(textExportRequestQueue.getCycle());
+        this.textExportRequestSubSeq = new SCSequence();
+        textExportRequestPubSeq.then(textExportRequestSubSeq).then(textExportRequestPubSeq);
+
         this.walTxnNotificationQueue = new RingQueue<>(WalTxnNotificationTask::new, configuration.getWalTxnNotificationQueueCapacity());
         this.walTxnNotificationPubSequence = new MPSequence(walTxnNotificationQueue.getCycle());
         this.walTxnNotificationSubSequence = new MCSequence(walTxnNotificationQueue.getCycle());
@@ -190,6 +214,11 @@ public class MessageBusImpl implements MessageBus {
         this.groupByMergeShardPubSeq = new MPSequence(groupByMergeShardQueue.getCycle());
         this.groupByMergeShardSubSeq = new MCSequence(groupByMergeShardQueue.getCycle());
         groupByMergeShardPubSeq.then(groupByMergeShardSubSeq).then(groupByMergeShardPubSeq);
+
+        this.windowShardQueue = new RingQueue<>(WindowShardTask::new, configuration.getWindowShardQueueCapacity());
+        this.windowShardPubSeq = new MPSequence(windowShardQueue.getCycle());
+        this.windowShardSubSeq = new MCSequence(windowShardQueue.getCycle());
+        windowShardPubSeq.then(windowShardSubSeq).then(windowShardPubSeq);
     }
 
     @Override
@@ -219,6 +248,21 @@ public class MessageBusImpl implements MessageBus {
         return configuration;
     }
 
+    @Override
+    public MPSequence getCopyExportRequestPubSeq() {
+        return textExportRequestPubSeq;
+    }
+
+    @Override
+    public RingQueue<CopyExportRequestTask> getCopyExportRequestQueue() {
+        return textExportRequestQueue;
+    }
+
+    @Override
+    public SCSequence getCopyExportRequestSubSeq() {
+        return textExportRequestSubSeq;
+    }
+
     @Override
     public MPSequence getCopyRequestPubSeq() {
         return textImportRequestPubSeq;
@@ -384,6 +428,26 @@ public class MessageBusImpl implements MessageBus {
         return tableWriterEventQueue;
     }
 
+    @Override
+    public SCSequence getTextExportColSeq() {
+        return textExportColSeq;
+    }
+
+    @Override
+    public SPSequence getTextExportPubSeq() {
+        return textExportPubSeq;
+    }
+
+    @Override
+    public RingQueue<CopyExportTask> getTextExportQueue() {
+        return textExportQueue;
+    }
+
+    @Override
+    public MCSequence getTextExportSubSeq() {
+        return textExportSubSeq;
+    }
+
     @Override
     public SCSequence getTextImportColSeq() {
         return textImportColSeq;
@@ -444,6 +508,21 @@ public class MessageBusImpl implements MessageBus {
         return walTxnNotificationSubSequence;
     }
 
+    @Override
+    public MPSequence getWindowShardPubSeq() {
+        return windowShardPubSeq;
+    }
+
+    @Override
+    public RingQueue<WindowShardTask> getWindowShardQueue() {
+        return windowShardQueue;
+    }
+
+    @Override
+    public MCSequence getWindowShardSubSeq() {
+        return windowShardSubSeq;
+    }
+
     @TestOnly
     public void reset() {
         clearQueue(walTxnNotificationSubSequence);
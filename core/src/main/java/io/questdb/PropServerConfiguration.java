@@ -94,6 +94,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int cairoSQLCopyIdSupplier;
     private final int cairoSqlCopyLogRetentionDays;
     private final int cairoSqlCopyQueueCapacity;
+    private final String cairoSqlCopyExportRoot;
     private final String cairoSqlCopyRoot;
     private final String cairoSqlCopyWorkRoot;
     private final long cairoTableRegistryAutoReloadFrequency;
@@ -234,6 +235,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int rollBufferLimit;
     private final int rollBufferSize;
     private final String root;
+    private final boolean sharedSymbolCacheEnabled;
     private final int[] sharedWorkerAffinity;
     private final int sharedWorkerCount;
     private final boolean sharedWorkerHaltOnError;
@@ -295,13 +297,25 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlModelPoolCapacity;
     private final int sqlPageFrameMaxRows;
     private final int sqlPageFrameMinRows;
+    private final boolean sqlParallelAsOfJoinEnabled;
     private final boolean sqlParallelFilterEnabled;
     private final boolean sqlParallelFilterPreTouchEnabled;
     private final boolean sqlParallelGroupByEnabled;
+    private final boolean sqlParallelHashJoinEnabled;
+    private final boolean sqlParallelSortEnabled;
+    private final boolean sqlParallelWindowEnabled;
+    private final int sqlParallelWindowShardQueueCapacity;
+    private final boolean sqlPartitionPruningEnabled;
     private final int sqlQueryRegistryPoolSize;
     private final int sqlRenameTableModelPoolCapacity;
+    private final boolean sqlResultCacheEnabled;
+    private final long sqlResultCacheMaxBytes;
+    private final long sqlResultCachePageSize;
     private final boolean sqlSampleByDefaultAlignment;
     private final int sqlSampleByIndexSearchPageSize;
+    private final int sqlSharedQueryCacheBlockCount;
+    private final boolean sqlSharedQueryCacheEnabled;
+    private final int sqlSharedQueryCacheRowCount;
     private final int sqlSmallMapKeyCapacity;
     private final int sqlSmallMapPageSize;
     private final int sqlSortKeyMaxPages;
@@ -310,6 +324,9 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final long sqlSortLightValuePageSize;
     private final int sqlSortValueMaxPages;
     private final int sqlSortValuePageSize;
+    private final boolean sqlSpillEnabled;
+    private final String sqlSpillRoot;
+    private final long sqlSpillThreshold;
     private final int sqlStrFunctionBufferMaxSize;
     private final int sqlTxnScoreboardEntryCount;
     private final int sqlUnorderedMapMaxEntrySize;
@@ -345,6 +362,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final VolumeDefinitions volumeDefinitions = new VolumeDefinitions();
     private final boolean walApplyEnabled;
     private final int walApplyLookAheadTransactionCount;
+    private final boolean walApplyParallelPartitionsEnabled;
     private final WorkerPoolConfiguration walApplyPoolConfiguration = new PropWalApplyPoolConfiguration();
     private final long walApplySleepTimeout;
     private final long walApplyTableTimeQuota;
@@ -353,6 +371,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final boolean walApplyWorkerHaltOnError;
     private final long walApplyWorkerSleepThreshold;
     private final long walApplyWorkerYieldThreshold;
+    private final boolean walDedupTailProbeEnabled;
     private final boolean walEnabledDefault;
     private final long walMaxLagSize;
     private final int walMaxLagTxnCount;
@@ -366,6 +385,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int walTxnNotificationQueueCapacity;
     private final long walWriterDataAppendPageSize;
     private final long walWriterEventAppendPageSize;
+    private final boolean walWriterSortTxnEnabled;
     private final int walWriterPoolMaxSegments;
     private final long workStealTimeoutNanos;
     private final long writerAsyncCommandBusyWaitTimeout;
@@ -416,8 +436,11 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int jsonQueryConnectionCheckFrequency;
     private int jsonQueryDoubleScale;
     private int jsonQueryFloatScale;
+    private boolean lineBinaryFormatEnabled;
     private long lineTcpCommitIntervalDefault;
     private double lineTcpCommitIntervalFraction;
+    private long lineTcpConnectionCreditBytes;
+    private int lineTcpConnectionCreditRows;
     private int lineTcpConnectionPoolInitialCapacity;
     private int lineTcpDefaultPartitionBy;
     private boolean lineTcpDisconnectOnError;
@@ -439,6 +462,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private long lineTcpNetConnectionTimeout;
     private LineTcpTimestampAdapter lineTcpTimestampAdapter;
     private int lineTcpWriterQueueCapacity;
+    private long lineTcpWriterRebalanceInterval;
     private int[] lineTcpWriterWorkerAffinity;
     private int lineTcpWriterWorkerCount;
     private boolean lineTcpWriterWorkerPoolHaltOnError;
@@ -576,6 +600,9 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.walRecreateDistressedSequencerAttempts = getInt(properties, env, PropertyKey.CAIRO_WAL_RECREATE_DISTRESSED_SEQUENCER_ATTEMPTS, 3);
         this.walSupported = getBoolean(properties, env, PropertyKey.CAIRO_WAL_SUPPORTED, true);
         walApplyEnabled = getBoolean(properties, env, PropertyKey.CAIRO_WAL_APPLY_ENABLED, true);
+        walApplyParallelPartitionsEnabled = getBoolean(properties, env, PropertyKey.CAIRO_WAL_APPLY_PARALLEL_PARTITIONS_ENABLED, true);
+        walWriterSortTxnEnabled = getBoolean(properties, env, PropertyKey.CAIRO_WAL_WRITER_SORT_TXN_ENABLED, true);
+        walDedupTailProbeEnabled = getBoolean(properties, env, PropertyKey.CAIRO_WAL_DEDUP_TAIL_PROBE_ENABLED, true);
         this.walSegmentRolloverRowCount = getLong(properties, env, PropertyKey.CAIRO_WAL_SEGMENT_ROLLOVER_ROW_COUNT, 200_000);
         this.walSegmentRolloverSize = getLong(properties, env, PropertyKey.CAIRO_WAL_SEGMENT_ROLLOVER_SIZE, 0);  // disabled by default.
         if ((this.walSegmentRolloverSize != 0) && (this.walSegmentRolloverSize < 1024)) {  // 1KiB segments minimum
@@ -899,6 +926,7 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.defaultSymbolCacheFlag = getBoolean(properties, env, PropertyKey.CAIRO_DEFAULT_SYMBOL_CACHE_FLAG, true);
             this.defaultSymbolCapacity = getInt(properties, env, PropertyKey.CAIRO_DEFAULT_SYMBOL_CAPACITY, 256);
             this.fileOperationRetryCount = getInt(properties, env, PropertyKey.CAIRO_FILE_OPERATION_RETRY_COUNT, 30);
+            this.sharedSymbolCacheEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SHARED_SYMBOL_CACHE_ENABLED, true);
             this.idleCheckInterval = getLong(properties, env, PropertyKey.CAIRO_IDLE_CHECK_INTERVAL, 5 * 60 * 1000L);
             this.inactiveReaderMaxOpenPartitions = getInt(properties, env, PropertyKey.CAIRO_INACTIVE_READER_MAX_OPEN_PARTITIONS, 128);
             this.inactiveReaderTTL = getLong(properties, env, PropertyKey.CAIRO_INACTIVE_READER_TTL, 120_000);
@@ -940,6 +968,9 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlAsOfJoinLookahead = getInt(properties, env, PropertyKey.CAIRO_SQL_ASOF_JOIN_LOOKAHEAD, 100);
             this.sqlSortValuePageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_SORT_VALUE_PAGE_SIZE, 16777216);
             this.sqlSortValueMaxPages = getIntSize(properties, env, PropertyKey.CAIRO_SQL_SORT_VALUE_MAX_PAGES, Integer.MAX_VALUE);
+            this.sqlSpillEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_SPILL_ENABLED, false);
+            this.sqlSpillRoot = getString(properties, env, PropertyKey.CAIRO_SQL_SPILL_ROOT, tmpRoot);
+            this.sqlSpillThreshold = getLongSize(properties, env, PropertyKey.CAIRO_SQL_SPILL_THRESHOLD, 512L * Numbers.SIZE_1MB);
             this.workStealTimeoutNanos = getLong(properties, env, PropertyKey.CAIRO_WORK_STEAL_TIMEOUT_NANOS, 10_000);
             this.parallelIndexingEnabled = getBoolean(properties, env, PropertyKey.CAIRO_PARALLEL_INDEXING_ENABLED, true);
             this.sqlJoinMetadataPageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_JOIN_METADATA_PAGE_SIZE, 16384);
@@ -969,6 +1000,12 @@ public class PropServerConfiguration implements ServerConfiguration {
 
             this.sqlSampleByIndexSearchPageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_SAMPLEBY_PAGE_SIZE, 0);
             this.sqlSampleByDefaultAlignment = getBoolean(properties, env, PropertyKey.CAIRO_SQL_SAMPLEBY_DEFAULT_ALIGNMENT_CALENDAR, true);
+            this.sqlResultCacheEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_RESULT_CACHE_ENABLED, false);
+            this.sqlResultCacheMaxBytes = getLongSize(properties, env, PropertyKey.CAIRO_SQL_RESULT_CACHE_MAX_BYTES, 64 * Numbers.SIZE_1MB);
+            this.sqlResultCachePageSize = Numbers.ceilPow2(getLongSize(properties, env, PropertyKey.CAIRO_SQL_RESULT_CACHE_PAGE_SIZE, 16 * 1024));
+            this.sqlSharedQueryCacheEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_SHARED_QUERY_CACHE_ENABLED, false);
+            this.sqlSharedQueryCacheBlockCount = getInt(properties, env, PropertyKey.CAIRO_SQL_SHARED_QUERY_CACHE_BLOCK_COUNT, 8);
+            this.sqlSharedQueryCacheRowCount = getInt(properties, env, PropertyKey.CAIRO_SQL_SHARED_QUERY_CACHE_ROW_COUNT, 128);
 
             this.sqlDoubleToStrCastScale = getInt(properties, env, PropertyKey.CAIRO_SQL_DOUBLE_CAST_SCALE, 12);
             this.sqlFloatToStrCastScale = getInt(properties, env, PropertyKey.CAIRO_SQL_FLOAT_CAST_SCALE, 4);
@@ -1040,6 +1077,21 @@ public class PropServerConfiguration implements ServerConfiguration {
                 throw new ServerConfigurationException("Configuration value for " + PropertyKey.CAIRO_SQL_COPY_WORK_ROOT.getPropertyPath() + " can't point to root, data, conf or snapshot dirs. ");
             }
 
+            // exported files land next to the import input files unless configured otherwise
+            String cairoSqlCopyExportRoot = getString(properties, env, PropertyKey.CAIRO_SQL_COPY_EXPORT_ROOT, cairoSqlCopyRoot);
+            if (cairoSqlCopyExportRoot != null) {
+                this.cairoSqlCopyExportRoot = getCanonicalPath(cairoSqlCopyExportRoot);
+            } else {
+                this.cairoSqlCopyExportRoot = null;
+            }
+
+            if (pathEquals(root, this.cairoSqlCopyExportRoot)
+                    || pathEquals(this.root, this.cairoSqlCopyExportRoot)
+                    || pathEquals(this.confRoot, this.cairoSqlCopyExportRoot)
+                    || pathEquals(this.snapshotRoot, this.cairoSqlCopyExportRoot)) {
+                throw new ServerConfigurationException("Configuration value for " + PropertyKey.CAIRO_SQL_COPY_EXPORT_ROOT.getPropertyPath() + " can't point to root, data, conf or snapshot dirs. ");
+            }
+
             String cairoSQLCopyIdSupplier = getString(properties, env, PropertyKey.CAIRO_SQL_COPY_ID_SUPPLIER, "random");
             this.cairoSQLCopyIdSupplier = Chars.equalsLowerCaseAscii(cairoSQLCopyIdSupplier, "sequential") ? 1 : 0;
 
@@ -1164,6 +1216,8 @@ public class PropServerConfiguration implements ServerConfiguration {
                     lineTcpMsgBufferSize = lineTcpMaxMeasurementSize;
                 }
                 this.lineTcpWriterQueueCapacity = getQueueCapacity(properties, env, PropertyKey.LINE_TCP_WRITER_QUEUE_CAPACITY, 128);
+                this.lineTcpConnectionCreditBytes = getLongSize(properties, env, PropertyKey.LINE_TCP_CONNECTION_CREDIT_BYTES, Numbers.SIZE_1MB);
+                this.lineTcpConnectionCreditRows = getInt(properties, env, PropertyKey.LINE_TCP_CONNECTION_CREDIT_ROWS, lineTcpWriterQueueCapacity / 2);
                 this.lineTcpWriterWorkerCount = getInt(properties, env, PropertyKey.LINE_TCP_WRITER_WORKER_COUNT, 0);
                 cpuUsed += this.lineTcpWriterWorkerCount;
                 this.lineTcpWriterWorkerAffinity = getAffinity(properties, env, PropertyKey.LINE_TCP_WRITER_WORKER_AFFINITY, lineTcpWriterWorkerCount);
@@ -1177,6 +1231,7 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.lineTcpIOWorkerYieldThreshold = getLong(properties, env, PropertyKey.LINE_TCP_IO_WORKER_YIELD_THRESHOLD, 10);
                 this.lineTcpIOWorkerSleepThreshold = getLong(properties, env, PropertyKey.LINE_TCP_IO_WORKER_SLEEP_THRESHOLD, 10_000);
                 this.lineTcpMaintenanceInterval = getLong(properties, env, PropertyKey.LINE_TCP_MAINTENANCE_JOB_INTERVAL, 1000);
+                this.lineTcpWriterRebalanceInterval = getLong(properties, env, PropertyKey.LINE_TCP_WRITER_REBALANCE_INTERVAL, 10_000);
                 this.lineTcpCommitIntervalFraction = getDouble(properties, env, PropertyKey.LINE_TCP_COMMIT_INTERVAL_FRACTION, "0.5");
                 this.lineTcpCommitIntervalDefault = getLong(properties, env, PropertyKey.LINE_TCP_COMMIT_INTERVAL_DEFAULT, COMMIT_INTERVAL_DEFAULT);
                 if (this.lineTcpCommitIntervalDefault < 1L) {
@@ -1223,6 +1278,7 @@ public class PropServerConfiguration implements ServerConfiguration {
                     this.integerDefaultColumnType = ColumnType.LONG;
                 }
                 this.useLegacyStringDefault = getBoolean(properties, env, PropertyKey.LINE_USE_LEGACY_STRING_DEFAULT, true);
+                this.lineBinaryFormatEnabled = getBoolean(properties, env, PropertyKey.LINE_BINARY_FORMAT_ENABLED, true);
             }
 
             this.ilpAutoCreateNewColumns = getBoolean(properties, env, PropertyKey.LINE_AUTO_CREATE_NEW_COLUMNS, true);
@@ -1239,17 +1295,23 @@ public class PropServerConfiguration implements ServerConfiguration {
             final int defaultReduceQueueCapacity = Math.min(2 * sharedWorkerCount, 64);
             this.cairoPageFrameReduceQueueCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_REDUCE_QUEUE_CAPACITY, defaultReduceQueueCapacity));
             this.cairoGroupByMergeShardQueueCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_MERGE_QUEUE_CAPACITY, defaultReduceQueueCapacity));
+            this.sqlParallelWindowShardQueueCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_WINDOW_SHARD_QUEUE_CAPACITY, defaultReduceQueueCapacity));
             this.cairoGroupByShardingThreshold = getInt(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_SHARDING_THRESHOLD, 100_000);
             this.cairoPageFrameReduceRowIdListCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_ROWID_LIST_CAPACITY, 256));
             this.cairoPageFrameReduceColumnListCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_COLUMN_LIST_CAPACITY, 16));
             final int defaultReduceShardCount = Math.min(sharedWorkerCount, 4);
             this.cairoPageFrameReduceShardCount = getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_SHARD_COUNT, defaultReduceShardCount);
             this.sqlParallelFilterPreTouchEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_FILTER_PRETOUCH_ENABLED, true);
+            this.sqlPartitionPruningEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARTITION_PRUNING_ENABLED, true);
             this.sqlCopyModelPoolCapacity = getInt(properties, env, PropertyKey.CAIRO_SQL_COPY_MODEL_POOL_CAPACITY, 32);
 
             boolean defaultParallelSqlEnabled = sharedWorkerCount >= 4;
+            this.sqlParallelAsOfJoinEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_ASOF_JOIN_ENABLED, defaultParallelSqlEnabled);
             this.sqlParallelFilterEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_FILTER_ENABLED, defaultParallelSqlEnabled);
             this.sqlParallelGroupByEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_ENABLED, defaultParallelSqlEnabled);
+            this.sqlParallelHashJoinEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_HASH_JOIN_ENABLED, defaultParallelSqlEnabled);
+            this.sqlParallelSortEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_SORT_ENABLED, defaultParallelSqlEnabled);
+            this.sqlParallelWindowEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_WINDOW_ENABLED, defaultParallelSqlEnabled);
             this.metricsEnabled = getBoolean(properties, env, PropertyKey.METRICS_ENABLED, false);
             this.writerAsyncCommandBusyWaitTimeout = getLong(properties, env, PropertyKey.CAIRO_WRITER_ALTER_BUSY_WAIT_TIMEOUT, 500);
             this.writerAsyncCommandMaxWaitTimeout = getLong(properties, env, PropertyKey.CAIRO_WRITER_ALTER_MAX_WAIT_TIMEOUT, 30_000);
@@ -2430,6 +2492,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlCopyBufferSize;
         }
 
+        @Override
+        public CharSequence getSqlCopyExportRoot() {
+            return cairoSqlCopyExportRoot;
+        }
+
         @Override
         public CharSequence getSqlCopyInputRoot() {
             return cairoSqlCopyRoot;
@@ -2580,6 +2647,26 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlPageFrameMinRows;
         }
 
+        @Override
+        public long getSqlResultCacheMaxBytes() {
+            return sqlResultCacheMaxBytes;
+        }
+
+        @Override
+        public long getSqlResultCachePageSize() {
+            return sqlResultCachePageSize;
+        }
+
+        @Override
+        public int getSqlSharedQueryCacheBlockCount() {
+            return sqlSharedQueryCacheBlockCount;
+        }
+
+        @Override
+        public int getSqlSharedQueryCacheRowCount() {
+            return sqlSharedQueryCacheRowCount;
+        }
+
         @Override
         public int getSqlSmallMapKeyCapacity() {
             return sqlSmallMapKeyCapacity;
@@ -2620,6 +2707,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlSortValuePageSize;
         }
 
+        @Override
+        public @NotNull CharSequence getSqlSpillRoot() {
+            return sqlSpillRoot;
+        }
+
+        @Override
+        public long getSqlSpillThreshold() {
+            return sqlSpillThreshold;
+        }
+
         @Override
         public int getSqlUnorderedMapMaxEntrySize() {
             return sqlUnorderedMapMaxEntrySize;
@@ -2819,6 +2916,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlWindowColumnPoolCapacity;
         }
 
+        @Override
+        public int getWindowShardQueueCapacity() {
+            return sqlParallelWindowShardQueueCapacity;
+        }
+
         @Override
         public int getWithClauseModelPoolCapacity() {
             return sqlWithClauseModelPoolCapacity;
@@ -2889,6 +2991,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return isReadOnlyInstance;
         }
 
+        @Override
+        public boolean isSharedSymbolCacheEnabled() {
+            return sharedSymbolCacheEnabled;
+        }
+
         @Override
         public boolean isSnapshotRecoveryEnabled() {
             return snapshotRecoveryEnabled;
@@ -2899,6 +3006,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlJitDebugEnabled;
         }
 
+        @Override
+        public boolean isSqlParallelAsOfJoinEnabled() {
+            return sqlParallelAsOfJoinEnabled;
+        }
+
         @Override
         public boolean isSqlParallelFilterEnabled() {
             return sqlParallelFilterEnabled;
@@ -2914,6 +3026,41 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlParallelGroupByEnabled;
         }
 
+        @Override
+        public boolean isSqlParallelHashJoinEnabled() {
+            return sqlParallelHashJoinEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelSortEnabled() {
+            return sqlParallelSortEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelWindowEnabled() {
+            return sqlParallelWindowEnabled;
+        }
+
+        @Override
+        public boolean isSqlPartitionPruningEnabled() {
+            return sqlPartitionPruningEnabled;
+        }
+
+        @Override
+        public boolean isSqlResultCacheEnabled() {
+            return sqlResultCacheEnabled;
+        }
+
+        @Override
+        public boolean isSqlSharedQueryCacheEnabled() {
+            return sqlSharedQueryCacheEnabled;
+        }
+
+        @Override
+        public boolean isSqlSpillEnabled() {
+            return sqlSpillEnabled;
+        }
+
         @Override
         public boolean isTableTypeConversionEnabled() {
             return tableTypeConversionEnabled;
@@ -2924,10 +3071,25 @@ public class PropServerConfiguration implements ServerConfiguration {
             return walApplyEnabled;
         }
 
+        @Override
+        public boolean isWalApplyParallelPartitionsEnabled() {
+            return walApplyParallelPartitionsEnabled;
+        }
+
+        @Override
+        public boolean isWalDedupTailProbeEnabled() {
+            return walDedupTailProbeEnabled;
+        }
+
         public boolean isWalSupported() {
             return walSupported;
         }
 
+        @Override
+        public boolean isWalWriterSortTxnEnabled() {
+            return walWriterSortTxnEnabled;
+        }
+
         @Override
         public boolean isWriterMixedIOEnabled() {
             return writerMixedIOEnabled;
@@ -3471,6 +3633,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return lineTcpTimestampAdapter;
         }
 
+        @Override
+        public boolean isBinaryFormatEnabled() {
+            return lineBinaryFormatEnabled;
+        }
+
         @Override
         public boolean isEnabled() {
             return lineHttpEnabled;
@@ -3563,6 +3730,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return lineTcpCommitIntervalFraction;
         }
 
+        @Override
+        public long getConnectionCreditBytes() {
+            return lineTcpConnectionCreditBytes;
+        }
+
+        @Override
+        public int getConnectionCreditRows() {
+            return lineTcpConnectionCreditRows;
+        }
+
         @Override
         public int getConnectionPoolInitialCapacity() {
             return lineTcpConnectionPoolInitialCapacity;
@@ -3663,11 +3840,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return lineTcpWriterQueueCapacity;
         }
 
+        @Override
+        public long getWriterRebalanceInterval() {
+            return lineTcpWriterRebalanceInterval;
+        }
+
         @Override
         public WorkerPoolConfiguration getWriterWorkerPoolConfiguration() {
             return lineTcpWriterWorkerPoolConfiguration;
         }
 
+        @Override
+        public boolean isBinaryFormatEnabled() {
+            return lineBinaryFormatEnabled;
+        }
+
         @Override
         public boolean isEnabled() {
             return lineTcpEnabled;
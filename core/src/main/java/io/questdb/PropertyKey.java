@@ -48,6 +48,7 @@ public enum PropertyKey implements ConfigPropertyKey {
     CAIRO_DEFAULT_SYMBOL_CACHE_FLAG("cairo.default.symbol.cache.flag"),
     CAIRO_DEFAULT_SYMBOL_CAPACITY("cairo.default.symbol.capacity"),
     CAIRO_FILE_OPERATION_RETRY_COUNT("cairo.file.operation.retry.count"),
+    CAIRO_SHARED_SYMBOL_CACHE_ENABLED("cairo.shared.symbol.cache.enabled"),
     CAIRO_IDLE_CHECK_INTERVAL("cairo.idle.check.interval"),
     CAIRO_INACTIVE_READER_MAX_OPEN_PARTITIONS("cairo.inactive.reader.max.open.partitions"),
     CAIRO_INACTIVE_READER_TTL("cairo.inactive.reader.ttl"),
@@ -66,6 +67,12 @@ public enum PropertyKey implements ConfigPropertyKey {
     CAIRO_SQL_JOIN_CONTEXT_POOL_CAPACITY("cairo.sql.join.context.pool.capacity"),
     CAIRO_LEXER_POOL_CAPACITY("cairo.lexer.pool.capacity"),
     CAIRO_SQL_MAP_KEY_CAPACITY("cairo.sql.map.key.capacity"),
+    CAIRO_SQL_RESULT_CACHE_ENABLED("cairo.sql.result.cache.enabled"),
+    CAIRO_SQL_RESULT_CACHE_MAX_BYTES("cairo.sql.result.cache.max.bytes"),
+    CAIRO_SQL_RESULT_CACHE_PAGE_SIZE("cairo.sql.result.cache.page.size"),
+    CAIRO_SQL_SHARED_QUERY_CACHE_ENABLED("cairo.sql.shared.query.cache.enabled"),
+    CAIRO_SQL_SHARED_QUERY_CACHE_BLOCK_COUNT("cairo.sql.shared.query.cache.block.count"),
+    CAIRO_SQL_SHARED_QUERY_CACHE_ROW_COUNT("cairo.sql.shared.query.cache.row.count"),
     CAIRO_SQL_SMALL_MAP_KEY_CAPACITY("cairo.sql.small.map.key.capacity"),
     CAIRO_SQL_SMALL_MAP_PAGE_SIZE("cairo.sql.small.map.page.size"),
     CAIRO_SQL_MAP_PAGE_SIZE("cairo.sql.map.page.size"),
@@ -86,16 +93,25 @@ public enum PropertyKey implements ConfigPropertyKey {
     CAIRO_SQL_ASOF_JOIN_LOOKAHEAD("cairo.sql.asof.join.lookahead"),
     CAIRO_SQL_SORT_VALUE_PAGE_SIZE("cairo.sql.sort.value.page.size"),
     CAIRO_SQL_SORT_VALUE_MAX_PAGES("cairo.sql.sort.value.max.pages"),
+    CAIRO_SQL_SPILL_ENABLED("cairo.sql.spill.enabled"),
+    CAIRO_SQL_SPILL_ROOT("cairo.sql.spill.root"),
+    CAIRO_SQL_SPILL_THRESHOLD("cairo.sql.spill.threshold"),
     CAIRO_WORK_STEAL_TIMEOUT_NANOS("cairo.work.steal.timeout.nanos"),
     CAIRO_PARALLEL_INDEXING_ENABLED("cairo.parallel.indexing.enabled"),
     CAIRO_PAGE_FRAME_REDUCE_QUEUE_CAPACITY("cairo.page.frame.reduce.queue.capacity"),
     CAIRO_PAGE_FRAME_ROWID_LIST_CAPACITY("cairo.page.frame.rowid.list.capacity"),
     CAIRO_PAGE_FRAME_COLUMN_LIST_CAPACITY("cairo.page.frame.column.list.capacity"),
+    CAIRO_SQL_PARALLEL_ASOF_JOIN_ENABLED("cairo.sql.parallel.asof.join.enabled"),
     CAIRO_SQL_PARALLEL_FILTER_ENABLED("cairo.sql.parallel.filter.enabled"),
     CAIRO_SQL_PARALLEL_FILTER_PRETOUCH_ENABLED("cairo.sql.parallel.filter.pretouch.enabled"),
     CAIRO_SQL_PARALLEL_GROUPBY_ENABLED("cairo.sql.parallel.groupby.enabled"),
     CAIRO_SQL_PARALLEL_GROUPBY_MERGE_QUEUE_CAPACITY("cairo.sql.parallel.groupby.merge.shard.queue.capacity"),
     CAIRO_SQL_PARALLEL_GROUPBY_SHARDING_THRESHOLD("cairo.sql.parallel.groupby.sharding.threshold"),
+    CAIRO_SQL_PARALLEL_HASH_JOIN_ENABLED("cairo.sql.parallel.hash.join.enabled"),
+    CAIRO_SQL_PARALLEL_SORT_ENABLED("cairo.sql.parallel.sort.enabled"),
+    CAIRO_SQL_PARALLEL_WINDOW_ENABLED("cairo.sql.parallel.window.enabled"),
+    CAIRO_SQL_PARALLEL_WINDOW_SHARD_QUEUE_CAPACITY("cairo.sql.parallel.window.shard.queue.capacity"),
+    CAIRO_SQL_PARTITION_PRUNING_ENABLED("cairo.sql.partition.pruning.enabled"),
     CAIRO_PAGE_FRAME_SHARD_COUNT("cairo.page.frame.shard.count"),
     CAIRO_PAGE_FRAME_TASK_POOL_CAPACITY("cairo.page.frame.task.pool.capacity"),
     CAIRO_SQL_JOIN_METADATA_PAGE_SIZE("cairo.sql.join.metadata.page.size"),
@@ -148,6 +164,7 @@ public enum PropertyKey implements ConfigPropertyKey {
     CAIRO_SQL_COPY_BUFFER_SIZE("cairo.sql.copy.buffer.size"),
     CAIRO_SQL_COPY_ROOT("cairo.sql.copy.root"),
     CAIRO_SQL_COPY_WORK_ROOT("cairo.sql.copy.work.root"),
+    CAIRO_SQL_COPY_EXPORT_ROOT("cairo.sql.copy.export.root"),
     CAIRO_SQL_COPY_MAX_INDEX_CHUNK_SIZE("cairo.sql.copy.max.index.chunk.size"),
     CAIRO_SQL_COPY_QUEUE_CAPACITY("cairo.sql.copy.queue.capacity"),
     CAIRO_SQL_COPY_LOG_RETENTION_DAYS("cairo.sql.copy.log.retention.days"),
@@ -313,10 +330,13 @@ public enum PropertyKey implements ConfigPropertyKey {
     LINE_TCP_NET_RECV_BUF_SIZE("line.tcp.net.recv.buf.size"),
     LINE_TCP_NET_CONNECTION_RCVBUF("line.tcp.net.connection.rcvbuf"),
     LINE_TCP_CONNECTION_POOL_CAPACITY("line.tcp.connection.pool.capacity"),
+    LINE_TCP_CONNECTION_CREDIT_BYTES("line.tcp.connection.credit.bytes"),
+    LINE_TCP_CONNECTION_CREDIT_ROWS("line.tcp.connection.credit.rows"),
     LINE_TCP_TIMESTAMP("line.tcp.timestamp"),
     LINE_TCP_MSG_BUFFER_SIZE("line.tcp.msg.buffer.size"),
     LINE_TCP_MAX_MEASUREMENT_SIZE("line.tcp.max.measurement.size"),
     LINE_TCP_WRITER_QUEUE_CAPACITY("line.tcp.writer.queue.capacity"),
+    LINE_TCP_WRITER_REBALANCE_INTERVAL("line.tcp.writer.rebalance.interval"),
     LINE_TCP_WRITER_WORKER_COUNT("line.tcp.writer.worker.count"),
     LINE_TCP_WRITER_WORKER_AFFINITY("line.tcp.writer.worker.affinity"),
     LINE_TCP_WRITER_HALT_ON_ERROR("line.tcp.writer.halt.on.error"),
@@ -342,6 +362,7 @@ public enum PropertyKey implements ConfigPropertyKey {
     LINE_FLOAT_DEFAULT_COLUMN_TYPE("line.float.default.column.type"),
     LINE_INTEGER_DEFAULT_COLUMN_TYPE("line.integer.default.column.type"),
     LINE_USE_LEGACY_STRING_DEFAULT("line.use.legacy.string.default"),
+    LINE_BINARY_FORMAT_ENABLED("line.binary.format.enabled"),
     LINE_TCP_NET_IO_QUEUE_CAPACITY("line.tcp.net.io.queue.capacity"),
     LINE_TCP_IO_AGGRESSIVE_RECV("line.tcp.io.aggressive.recv"),
     LINE_HTTP_HEADER_MAX_SIZE("line.http.header.max.size"),
@@ -441,6 +462,9 @@ public enum PropertyKey implements ConfigPropertyKey {
     CAIRO_WAL_MAX_SEGMENT_FILE_DESCRIPTORS_CACHE("cairo.wal.max.segment.file.descriptors.cache"),
     CAIRO_WAL_APPLY_TABLE_TIME_QUOTA("cairo.wal.apply.table.time.quota"),
     CAIRO_WAL_APPLY_LOOK_AHEAD_TXN_COUNT("cairo.wal.apply.look.ahead.txn.count"),
+    CAIRO_WAL_APPLY_PARALLEL_PARTITIONS_ENABLED("cairo.wal.apply.parallel.partitions.enabled"),
+    CAIRO_WAL_WRITER_SORT_TXN_ENABLED("cairo.wal.writer.sort.txn.enabled"),
+    CAIRO_WAL_DEDUP_TAIL_PROBE_ENABLED("cairo.wal.dedup.tail.probe.enabled"),
     CAIRO_WAL_TEMP_PENDING_RENAME_TABLE_PREFIX("cairo.wal.temp.pending.rename.table.prefix"),
     CAIRO_WAL_WRITER_POOL_MAX_SEGMENTS("cairo.wal.writer.pool.max.segments"),
     READ_ONLY_INSTANCE("readonly"),
@@ -25,6 +25,7 @@
 package io.questdb;
 
 import io.questdb.cairo.*;
+import io.questdb.cairo.mv.MatViewRefreshJob;
 import io.questdb.cairo.security.ReadOnlySecurityContextFactory;
 import io.questdb.cairo.security.SecurityContextFactory;
 import io.questdb.cairo.wal.ApplyWal2TableJob;
@@ -38,12 +39,15 @@ import io.questdb.cutlass.http.HttpContextConfiguration;
 import io.questdb.cutlass.http.HttpServer;
 import io.questdb.cutlass.line.tcp.StaticChallengeResponseMatcher;
 import io.questdb.cutlass.pgwire.*;
+import io.questdb.cutlass.text.CopyExportJob;
+import io.questdb.cutlass.text.CopyExportRequestJob;
 import io.questdb.cutlass.text.CopyJob;
 import io.questdb.cutlass.text.CopyRequestJob;
 import io.questdb.griffin.engine.groupby.GroupByMergeShardJob;
 import io.questdb.griffin.engine.groupby.vect.GroupByVectorAggregateJob;
 import io.questdb.griffin.engine.table.AsyncFilterAtom;
 import io.questdb.griffin.engine.table.LatestByAllIndexedJob;
+import io.questdb.griffin.engine.window.WindowShardJob;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.WorkerPool;
@@ -318,6 +322,7 @@ public class ServerMain implements Closeable {
                     sharedPool.assign(new GroupByVectorAggregateJob(messageBus));
                     sharedPool.assign(new GroupByMergeShardJob(messageBus));
                     sharedPool.assign(new LatestByAllIndexedJob(messageBus));
+                    sharedPool.assign(new WindowShardJob(messageBus));
 
                     if (!isReadOnly) {
                         O3Utils.setupWorkerPool(
@@ -333,6 +338,9 @@ public class ServerMain implements Closeable {
                             walPurgeJob.delayByHalfInterval();
                             sharedPool.assign(walPurgeJob);
                             sharedPool.freeOnExit(walPurgeJob);
+                            final MatViewRefreshJob matViewRefreshJob = new MatViewRefreshJob(engine);
+                            sharedPool.assign(matViewRefreshJob);
+                            sharedPool.freeOnExit(matViewRefreshJob);
 
                             // wal apply job in the shared pool when there is no dedicated pool
                             if (walApplyEnabled && !config.getWalApplyPoolConfiguration().isEnabled()) {
@@ -351,6 +359,14 @@ public class ServerMain implements Closeable {
                             sharedPool.assign(copyRequestJob);
                             sharedPool.freeOnExit(copyRequestJob);
                         }
+
+                        // text export
+                        if (cairoConfig.getSqlCopyExportRoot() != null) {
+                            CopyExportJob.assignToPool(engine, sharedPool);
+                            final CopyExportRequestJob copyExportRequestJob = new CopyExportRequestJob(engine);
+                            sharedPool.assign(copyExportRequestJob);
+                            sharedPool.freeOnExit(copyExportRequestJob);
+                        }
                     }
 
                     // telemetry
@@ -374,6 +390,10 @@ public class ServerMain implements Closeable {
                     WorkerPoolManager.Requester.WAL_APPLY
             );
             setupWalApplyJob(walApplyWorkerPool, engine, workerPoolManager.getSharedWorkerCount());
+            if (cairoConfig.isWalApplyParallelPartitionsEnabled()) {
+                // apply workers with no table to apply help writing partitions of the busy ones
+                O3Utils.setupO3Jobs(walApplyWorkerPool, engine.getMessageBus());
+            }
         }
 
         // http
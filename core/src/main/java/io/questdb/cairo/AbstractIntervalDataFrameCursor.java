@@ -98,6 +98,10 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
         this.intervals = this.intervalsModel.calculateIntervals(sqlContext);
         calculateRanges(reader, intervals);
         this.reader = reader;
+        final TableReadSet readSet = sqlContext.getTableReadSet();
+        if (readSet != null) {
+            readSet.onIntervalScan(reader, intervals);
+        }
         return this;
     }
 
@@ -366,6 +366,9 @@ public interface CairoConfiguration {
 
     int getSqlCopyBufferSize();
 
+    // null export root disables "copy ... to" sql
+    CharSequence getSqlCopyExportRoot();
+
     // null input root disables "copy" sql
     CharSequence getSqlCopyInputRoot();
 
@@ -432,6 +435,18 @@ public interface CairoConfiguration {
 
     int getSqlPageFrameMinRows();
 
+    /**
+     * Limit of off-heap memory held by {@link ResultCache}, the least recently used results are
+     * evicted to stay within the limit.
+     */
+    long getSqlResultCacheMaxBytes();
+
+    long getSqlResultCachePageSize();
+
+    int getSqlSharedQueryCacheBlockCount();
+
+    int getSqlSharedQueryCacheRowCount();
+
     int getSqlSmallMapKeyCapacity();
 
     int getSqlSmallMapPageSize();
@@ -448,6 +463,19 @@ public interface CairoConfiguration {
 
     int getSqlSortValuePageSize();
 
+    /**
+     * Directory for temporary files written by SQL operators that exceed {@link #getSqlSpillThreshold()}.
+     */
+    @NotNull
+    CharSequence getSqlSpillRoot();
+
+    /**
+     * Memory budget in bytes of a single sort or group by operator, once exceeded the operator
+     * spills to disk. Only used when {@link #isSqlSpillEnabled()} is true. The budget is not
+     * shared between operators, so a query may use a multiple of it.
+     */
+    long getSqlSpillThreshold();
+
     int getSqlUnorderedMapMaxEntrySize();
 
     int getSqlWindowInitialRangeBufferSize();
@@ -546,6 +574,8 @@ public interface CairoConfiguration {
 
     int getWindowColumnPoolCapacity();
 
+    int getWindowShardQueueCapacity();
+
     int getWithClauseModelPoolCapacity();
 
     long getWorkStealTimeoutNanos();
@@ -579,22 +609,79 @@ public interface CairoConfiguration {
      *
      * @return enable/disable snapshot recovery flag
      */
+    /**
+     * When enabled, ILP connections share one engine-wide symbol value to key cache per symbol column,
+     * see {@link SharedSymbolCacheRegistry}.
+     */
+    boolean isSharedSymbolCacheEnabled();
+
     boolean isSnapshotRecoveryEnabled();
 
     boolean isSqlJitDebugEnabled();
 
+    boolean isSqlParallelAsOfJoinEnabled();
+
     boolean isSqlParallelFilterEnabled();
 
     boolean isSqlParallelFilterPreTouchEnabled();
 
     boolean isSqlParallelGroupByEnabled();
 
+    boolean isSqlParallelHashJoinEnabled();
+
+    boolean isSqlParallelSortEnabled();
+
+    boolean isSqlParallelWindowEnabled();
+
+    boolean isSqlPartitionPruningEnabled();
+
+    /**
+     * When enabled, HTTP and PostgreSQL wire connections serve repeated SELECT queries from
+     * the engine-wide {@link ResultCache} for as long as the tables they read stay unchanged.
+     */
+    boolean isSqlResultCacheEnabled();
+
+    /**
+     * When enabled, HTTP and PostgreSQL wire connections cache compiled SELECT factories in
+     * the engine-wide {@link QueryCache} instead of their own per-connection caches, so that
+     * a query compiled by one connection can be reused by the others.
+     */
+    boolean isSqlSharedQueryCacheEnabled();
+
+    /**
+     * Enables spilling of sort and single-threaded group by data to disk. Parallel group by
+     * doesn't spill. Sorts spill record data only, their tree nodes stay in memory. Group by
+     * spills a single level of hash partitions, so each partition must fit in memory.
+     */
+    boolean isSqlSpillEnabled();
+
     boolean isTableTypeConversionEnabled();
 
     boolean isWalApplyEnabled();
 
+    /**
+     * When enabled, workers of the dedicated WAL apply pool also run O3 partition, column and copy
+     * tasks, so that partitions touched by a WAL commit of one table are written concurrently
+     * by the apply workers that have no table of their own to apply.
+     */
+    boolean isWalApplyParallelPartitionsEnabled();
+
+    /**
+     * When enabled, WAL apply drops incoming rows of a deduplicated table that are exact copies
+     * of rows already stored in the last partition, e.g. rows replayed by a reconnecting client.
+     * A commit that consists only of such rows then does not rewrite the partition.
+     */
+    boolean isWalDedupTailProbeEnabled();
+
     boolean isWalSupported();
 
+    /**
+     * When enabled, WAL writer sorts rows of an out-of-order transaction by designated timestamp
+     * on commit. WAL apply then merges the ordered transaction with the lag instead of sorting
+     * the combined rows.
+     */
+    boolean isWalWriterSortTxnEnabled();
+
     boolean isWriterMixedIOEnabled();
 
     /**
@@ -595,6 +595,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getSqlCopyBufferSize();
     }
 
+    @Override
+    public CharSequence getSqlCopyExportRoot() {
+        return getDelegate().getSqlCopyExportRoot();
+    }
+
     @Override
     public CharSequence getSqlCopyInputRoot() {
         return getDelegate().getSqlCopyInputRoot();
@@ -745,6 +750,26 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getSqlPageFrameMinRows();
     }
 
+    @Override
+    public long getSqlResultCacheMaxBytes() {
+        return getDelegate().getSqlResultCacheMaxBytes();
+    }
+
+    @Override
+    public long getSqlResultCachePageSize() {
+        return getDelegate().getSqlResultCachePageSize();
+    }
+
+    @Override
+    public int getSqlSharedQueryCacheBlockCount() {
+        return getDelegate().getSqlSharedQueryCacheBlockCount();
+    }
+
+    @Override
+    public int getSqlSharedQueryCacheRowCount() {
+        return getDelegate().getSqlSharedQueryCacheRowCount();
+    }
+
     @Override
     public int getSqlSmallMapKeyCapacity() {
         return getDelegate().getSqlSmallMapKeyCapacity();
@@ -785,6 +810,16 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getSqlSortValuePageSize();
     }
 
+    @Override
+    public @NotNull CharSequence getSqlSpillRoot() {
+        return getDelegate().getSqlSpillRoot();
+    }
+
+    @Override
+    public long getSqlSpillThreshold() {
+        return getDelegate().getSqlSpillThreshold();
+    }
+
     @Override
     public int getSqlUnorderedMapMaxEntrySize() {
         return getDelegate().getSqlUnorderedMapMaxEntrySize();
@@ -985,6 +1020,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getWindowColumnPoolCapacity();
     }
 
+    @Override
+    public int getWindowShardQueueCapacity() {
+        return getDelegate().getWindowShardQueueCapacity();
+    }
+
     @Override
     public int getWithClauseModelPoolCapacity() {
         return getDelegate().getWithClauseModelPoolCapacity();
@@ -1055,6 +1095,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().isReadOnlyInstance();
     }
 
+    @Override
+    public boolean isSharedSymbolCacheEnabled() {
+        return getDelegate().isSharedSymbolCacheEnabled();
+    }
+
     @Override
     public boolean isSnapshotRecoveryEnabled() {
         return getDelegate().isSnapshotRecoveryEnabled();
@@ -1065,6 +1110,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().isSqlJitDebugEnabled();
     }
 
+    @Override
+    public boolean isSqlParallelAsOfJoinEnabled() {
+        return getDelegate().isSqlParallelAsOfJoinEnabled();
+    }
+
     @Override
     public boolean isSqlParallelFilterEnabled() {
         return getDelegate().isSqlParallelFilterEnabled();
@@ -1080,6 +1130,41 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().isSqlParallelGroupByEnabled();
     }
 
+    @Override
+    public boolean isSqlParallelHashJoinEnabled() {
+        return getDelegate().isSqlParallelHashJoinEnabled();
+    }
+
+    @Override
+    public boolean isSqlParallelSortEnabled() {
+        return getDelegate().isSqlParallelSortEnabled();
+    }
+
+    @Override
+    public boolean isSqlParallelWindowEnabled() {
+        return getDelegate().isSqlParallelWindowEnabled();
+    }
+
+    @Override
+    public boolean isSqlPartitionPruningEnabled() {
+        return getDelegate().isSqlPartitionPruningEnabled();
+    }
+
+    @Override
+    public boolean isSqlResultCacheEnabled() {
+        return getDelegate().isSqlResultCacheEnabled();
+    }
+
+    @Override
+    public boolean isSqlSharedQueryCacheEnabled() {
+        return getDelegate().isSqlSharedQueryCacheEnabled();
+    }
+
+    @Override
+    public boolean isSqlSpillEnabled() {
+        return getDelegate().isSqlSpillEnabled();
+    }
+
     @Override
     public boolean isTableTypeConversionEnabled() {
         return getDelegate().isTableTypeConversionEnabled();
@@ -1090,10 +1175,25 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().isWalApplyEnabled();
     }
 
+    @Override
+    public boolean isWalApplyParallelPartitionsEnabled() {
+        return getDelegate().isWalApplyParallelPartitionsEnabled();
+    }
+
+    @Override
+    public boolean isWalDedupTailProbeEnabled() {
+        return getDelegate().isWalDedupTailProbeEnabled();
+    }
+
     public boolean isWalSupported() {
         return getDelegate().isWalSupported();
     }
 
+    @Override
+    public boolean isWalWriterSortTxnEnabled() {
+        return getDelegate().isWalWriterSortTxnEnabled();
+    }
+
     @Override
     public boolean isWriterMixedIOEnabled() {
         return getDelegate().isWriterMixedIOEnabled();
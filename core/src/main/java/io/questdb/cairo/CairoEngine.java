@@ -29,6 +29,7 @@ import io.questdb.MessageBusImpl;
 import io.questdb.Metrics;
 import io.questdb.Telemetry;
 import io.questdb.cairo.mig.EngineMigration;
+import io.questdb.cairo.mv.MatViewGraph;
 import io.questdb.cairo.pool.*;
 import io.questdb.cairo.security.AllowAllSecurityContext;
 import io.questdb.cairo.sql.*;
@@ -73,15 +74,20 @@ public class CairoEngine implements Closeable, WriterSource {
     protected final CairoConfiguration configuration;
     private final AtomicLong asyncCommandCorrelationId = new AtomicLong();
     private final CopyContext copyContext;
+    private final CopyContext copyExportContext;
     private final EngineMaintenanceJob engineMaintenanceJob;
     private final FunctionFactoryCache ffCache;
+    private final MatViewGraph matViewGraph = new MatViewGraph();
     private final MessageBusImpl messageBus;
     private final Metrics metrics;
     private final Predicate<CharSequence> protectedTableResolver;
+    private final QueryCache queryCache;
     private final QueryRegistry queryRegistry;
     private final ReaderPool readerPool;
+    private final ResultCache resultCache;
     private final SqlExecutionContext rootExecutionContext;
     private final SequencerMetadataPool sequencerMetadataPool;
+    private final SharedSymbolCacheRegistry sharedSymbolCacheRegistry = new SharedSymbolCacheRegistry();
     private final DatabaseSnapshotAgentImpl snapshotAgent;
     private final SqlCompilerPool sqlCompilerPool;
     private final IDGenerator tableIdGenerator;
@@ -112,6 +118,7 @@ public class CairoEngine implements Closeable, WriterSource {
         this.protectedTableResolver = newProtectedTableResolver(configuration);
         this.configuration = configuration;
         this.copyContext = new CopyContext(configuration);
+        this.copyExportContext = new CopyContext(configuration);
         this.tableSequencerAPI = new TableSequencerAPI(this, configuration);
         this.messageBus = new MessageBusImpl(configuration);
         this.metrics = metrics;
@@ -127,6 +134,10 @@ public class CairoEngine implements Closeable, WriterSource {
         this.tableIdGenerator = new IDGenerator(configuration, TableUtils.TAB_INDEX_FILE_NAME);
         this.snapshotAgent = new DatabaseSnapshotAgentImpl(this);
         this.queryRegistry = new QueryRegistry(configuration);
+        this.queryCache = configuration.isSqlSharedQueryCacheEnabled()
+                ? new QueryCache(configuration.getSqlSharedQueryCacheBlockCount(), configuration.getSqlSharedQueryCacheRowCount())
+                : null;
+        this.resultCache = configuration.isSqlResultCacheEnabled() ? new ResultCache(this) : null;
         this.rootExecutionContext = new SqlExecutionContextImpl(this, 1)
                 .with(AllowAllSecurityContext.INSTANCE, null);
 
@@ -163,6 +174,12 @@ public class CairoEngine implements Closeable, WriterSource {
             throw e;
         }
 
+        if (configuration.isWalSupported()) {
+            final ObjHashSet<TableToken> tableTokens = new ObjHashSet<>();
+            tableNameRegistry.getTableTokens(tableTokens, false);
+            matViewGraph.load(configuration, tableTokens);
+        }
+
         this.sqlCompilerPool = new SqlCompilerPool(this);
     }
 
@@ -298,6 +315,12 @@ public class CairoEngine implements Closeable, WriterSource {
         boolean b4 = sequencerMetadataPool.releaseAll();
         boolean b5 = walWriterPool.releaseAll();
         boolean b6 = tableMetadataPool.releaseAll();
+        if (queryCache != null) {
+            queryCache.clear();
+        }
+        if (resultCache != null) {
+            resultCache.clear();
+        }
         return b1 & b2 & b3 & b4 & b5 & b6;
     }
 
@@ -316,6 +339,9 @@ public class CairoEngine implements Closeable, WriterSource {
         Misc.free(telemetryWal);
         Misc.free(tableNameRegistry);
         Misc.free(snapshotAgent);
+        Misc.free(queryCache);
+        Misc.free(resultCache);
+        sharedSymbolCacheRegistry.clear();
     }
 
     @TestOnly
@@ -373,6 +399,8 @@ public class CairoEngine implements Closeable, WriterSource {
 
     public void drop(Path path, TableToken tableToken) {
         verifyTableToken(tableToken);
+        matViewGraph.dropTable(tableToken);
+        sharedSymbolCacheRegistry.remove(tableToken);
         if (tableToken.isWal()) {
             if (tableNameRegistry.dropTable(tableToken)) {
                 tableSequencerAPI.dropTable(tableToken, false);
@@ -441,6 +469,7 @@ public class CairoEngine implements Closeable, WriterSource {
                 DefaultLifecycleManager.INSTANCE,
                 backupDirName,
                 getDdlListener(tableToken),
+                getSharedSymbolCacheRegistry(),
                 snapshotAgent,
                 Metrics.disabled()
         );
@@ -468,6 +497,10 @@ public class CairoEngine implements Closeable, WriterSource {
         return copyContext;
     }
 
+    public CopyContext getCopyExportContext() {
+        return copyExportContext;
+    }
+
     public @NotNull DdlListener getDdlListener(TableToken tableToken) {
         return isSysTable(tableToken) ? DefaultDdlListener.INSTANCE : ddlListener;
     }
@@ -499,6 +532,10 @@ public class CairoEngine implements Closeable, WriterSource {
         return getSequencerMetadata(tableToken, desiredVersion);
     }
 
+    public MatViewGraph getMatViewGraph() {
+        return matViewGraph;
+    }
+
     public MessageBus getMessageBus() {
         return messageBus;
     }
@@ -516,6 +553,15 @@ public class CairoEngine implements Closeable, WriterSource {
         return protectedTableResolver;
     }
 
+    /**
+     * Returns the engine-wide cache of compiled SELECT factories or null when
+     * the cache is disabled, see {@link CairoConfiguration#isSqlSharedQueryCacheEnabled()}.
+     */
+    @Nullable
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
     public QueryRegistry getQueryRegistry() {
         return queryRegistry;
     }
@@ -577,6 +623,15 @@ public class CairoEngine implements Closeable, WriterSource {
         }
     }
 
+    /**
+     * Returns the engine-wide cache of SELECT results or null when the cache is disabled,
+     * see {@link CairoConfiguration#isSqlResultCacheEnabled()}.
+     */
+    @Nullable
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
     public TableMetadata getSequencerMetadata(TableToken tableToken) {
         return getSequencerMetadata(tableToken, TableUtils.ANY_TABLE_VERSION);
     }
@@ -604,6 +659,10 @@ public class CairoEngine implements Closeable, WriterSource {
         );
     }
 
+    public SharedSymbolCacheRegistry getSharedSymbolCacheRegistry() {
+        return sharedSymbolCacheRegistry;
+    }
+
     public DatabaseSnapshotAgent getSnapshotAgent() {
         return snapshotAgent;
     }
@@ -904,6 +963,7 @@ public class CairoEngine implements Closeable, WriterSource {
 
     public void notifyDropped(TableToken tableToken) {
         tableNameRegistry.dropTable(tableToken);
+        sharedSymbolCacheRegistry.remove(tableToken);
     }
 
     public void notifyWalTxnCommitted(@NotNull TableToken tableToken) {
@@ -1102,6 +1162,7 @@ public class CairoEngine implements Closeable, WriterSource {
                 }
             }
 
+            sharedSymbolCacheRegistry.remove(fromTableToken);
             getDdlListener(fromTableToken).onTableRenamed(securityContext, fromTableToken, toTableToken);
 
             return toTableToken;
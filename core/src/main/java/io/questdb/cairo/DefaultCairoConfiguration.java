@@ -47,6 +47,7 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
     private final LongSupplier importIDSupplier = () -> getRandom().nextPositiveLong();
     private final String root;
     private final CharSequence snapshotRoot;
+    private final CharSequence spillRoot;
     private final DefaultTelemetryConfiguration telemetryConfiguration = new DefaultTelemetryConfiguration();
     private final TextConfiguration textConfiguration;
     private final VolumeDefinitions volumeDefinitions = new VolumeDefinitions();
@@ -57,6 +58,7 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         this.confRoot = PropServerConfiguration.rootSubdir(root, PropServerConfiguration.CONFIG_DIRECTORY);
         this.textConfiguration = new DefaultTextConfiguration(Chars.toString(confRoot));
         this.snapshotRoot = PropServerConfiguration.rootSubdir(root, PropServerConfiguration.SNAPSHOT_DIRECTORY);
+        this.spillRoot = PropServerConfiguration.rootSubdir(root, PropServerConfiguration.TMP_DIRECTORY);
         Rnd rnd = new Rnd(NanosecondClockImpl.INSTANCE.getTicks(), MicrosecondClockImpl.INSTANCE.getTicks());
         this.databaseIdLo = rnd.nextLong();
         this.databaseIdHi = rnd.nextLong();
@@ -596,6 +598,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024 * 1024;
     }
 
+    @Override
+    public CharSequence getSqlCopyExportRoot() {
+        return getSqlCopyInputRoot();
+    }
+
     @Override
     public CharSequence getSqlCopyInputRoot() {
         return null;
@@ -746,6 +753,26 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1_000;
     }
 
+    @Override
+    public long getSqlResultCacheMaxBytes() {
+        return 64 * Numbers.SIZE_1MB;
+    }
+
+    @Override
+    public long getSqlResultCachePageSize() {
+        return 16 * 1024;
+    }
+
+    @Override
+    public int getSqlSharedQueryCacheBlockCount() {
+        return 8;
+    }
+
+    @Override
+    public int getSqlSharedQueryCacheRowCount() {
+        return 128;
+    }
+
     @Override
     public int getSqlSmallMapKeyCapacity() {
         return 64;
@@ -786,6 +813,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return Numbers.SIZE_1MB * 16;
     }
 
+    @Override
+    public @NotNull CharSequence getSqlSpillRoot() {
+        return spillRoot;
+    }
+
+    @Override
+    public long getSqlSpillThreshold() {
+        return 512L * Numbers.SIZE_1MB;
+    }
+
     @Override
     public int getSqlUnorderedMapMaxEntrySize() {
         return 16;
@@ -981,6 +1018,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 64;
     }
 
+    @Override
+    public int getWindowShardQueueCapacity() {
+        return 32;
+    }
+
     @Override
     public int getWithClauseModelPoolCapacity() {
         return 128;
@@ -1055,6 +1097,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return false;
     }
 
+    @Override
+    public boolean isSharedSymbolCacheEnabled() {
+        return true;
+    }
+
     @Override
     public boolean isSnapshotRecoveryEnabled() {
         return true;
@@ -1065,6 +1112,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return false;
     }
 
+    @Override
+    public boolean isSqlParallelAsOfJoinEnabled() {
+        return true;
+    }
+
     @Override
     public boolean isSqlParallelFilterEnabled() {
         return true;
@@ -1080,6 +1132,41 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isSqlParallelHashJoinEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelSortEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelWindowEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlPartitionPruningEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlResultCacheEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isSqlSharedQueryCacheEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isSqlSpillEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isTableTypeConversionEnabled() {
         return true;
@@ -1090,11 +1177,26 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isWalApplyParallelPartitionsEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isWalDedupTailProbeEnabled() {
+        return true;
+    }
+
     @Override
     public boolean isWalSupported() {
         return true;
     }
 
+    @Override
+    public boolean isWalWriterSortTxnEnabled() {
+        return true;
+    }
+
     @Override
     public boolean isWriterMixedIOEnabled() {
         return writerMixedIOEnabled;
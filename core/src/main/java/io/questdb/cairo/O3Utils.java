@@ -51,6 +51,18 @@ public class O3Utils {
         }
     }
 
+    /**
+     * Assigns jobs that write O3 partitions and columns of table writer commits. Besides
+     * the shared pool, they run in the WAL apply pool, see
+     * {@link CairoConfiguration#isWalApplyParallelPartitionsEnabled()}.
+     */
+    public static void setupO3Jobs(WorkerPool workerPool, MessageBus messageBus) {
+        workerPool.assign(new O3PartitionJob(messageBus));
+        workerPool.assign(new O3OpenColumnJob(messageBus));
+        workerPool.assign(new O3CopyJob(messageBus));
+        workerPool.assign(new ColumnTaskJob(messageBus));
+    }
+
     public static void setupWorkerPool(
             WorkerPool workerPool,
             CairoEngine cairoEngine,
@@ -72,10 +84,7 @@ public class O3Utils {
             workerPool.assign(columnPurgeJob);
         }
 
-        workerPool.assign(new O3PartitionJob(messageBus));
-        workerPool.assign(new O3OpenColumnJob(messageBus));
-        workerPool.assign(new O3CopyJob(messageBus));
-        workerPool.assign(new ColumnTaskJob(messageBus));
+        setupO3Jobs(workerPool, messageBus);
         workerPool.freeOnExit(purgeDiscoveryJob);
 
         final MicrosecondClock microsecondClock = messageBus.getConfiguration().getMicrosecondClock();
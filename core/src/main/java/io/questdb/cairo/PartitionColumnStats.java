@@ -0,0 +1,207 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.NullMemoryMR;
+import io.questdb.cairo.vm.api.MemoryR;
+import io.questdb.std.LongList;
+import io.questdb.std.Numbers;
+import io.questdb.std.Vect;
+
+/**
+ * Min/max statistics of fixed-size numeric columns, computed lazily per partition
+ * and cached by the owning {@link TableReader}. Null values are not accounted for
+ * in min/max, a column with no non-null values in the partition is reported via
+ * {@link #isAllNull()}.
+ * <p>
+ * Cached values are validated against partition name txn, row count, column name txn,
+ * column top and metadata version, so any write that affects the partition makes
+ * the stats recompute on the next access.
+ * <p>
+ * Stats are not maintained by the writer or the O3 path and are not persisted. Each
+ * pooled reader pays for one vectorised min/max scan per partition and column on the
+ * first filtered query, and stats are kept per partition only, not per page frame.
+ * The min/max scan is considerably cheaper than the filter it lets us skip, see
+ * PartitionPruningBenchmark.
+ */
+public class PartitionColumnStats {
+    private static final int SLOT_COLUMN_NAME_TXN = 3;
+    private static final int SLOT_COLUMN_TOP = 4;
+    private static final int SLOT_MAX = 7;
+    private static final int SLOT_METADATA_VERSION = 5;
+    private static final int SLOT_MIN = 6;
+    private static final int SLOT_PARTITION_NAME_TXN = 1;
+    private static final int SLOT_PARTITION_TIMESTAMP = 0;
+    private static final int SLOT_ROW_COUNT = 2;
+    private static final int SLOT_SIZE = 8;
+    private final LongList slots = new LongList();
+    private int columnType;
+    private long max;
+    private long min;
+
+    public static boolean isSupported(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public void clear() {
+        slots.clear();
+    }
+
+    public double getMaxDouble() {
+        return Double.longBitsToDouble(max);
+    }
+
+    public long getMaxLong() {
+        return max;
+    }
+
+    public double getMinDouble() {
+        return Double.longBitsToDouble(min);
+    }
+
+    public long getMinLong() {
+        return min;
+    }
+
+    /**
+     * @return true when the column has no non-null values in the partition
+     */
+    public boolean isAllNull() {
+        if (ColumnType.tagOf(columnType) == ColumnType.DOUBLE) {
+            return Double.isNaN(getMinDouble()) && Double.isNaN(getMaxDouble());
+        }
+        return min == Numbers.LONG_NaN;
+    }
+
+    /**
+     * Loads stats of the column in the given partition. The partition must be open.
+     * Integer column stats are widened to long, double stats are accessible via
+     * {@link #getMinDouble()} and {@link #getMaxDouble()}.
+     *
+     * @param reader         table reader, the partition must be already open
+     * @param partitionIndex partition index
+     * @param columnIndex    reader column index
+     * @return false when stats are not supported for the column type
+     */
+    public boolean of(TableReader reader, int partitionIndex, int columnIndex) {
+        final TableReaderMetadata metadata = reader.getMetadata();
+        columnType = metadata.getColumnType(columnIndex);
+        if (!isSupported(columnType)) {
+            return false;
+        }
+
+        final long partitionTimestamp = reader.getPartitionTimestampByIndex(partitionIndex);
+        final long partitionNameTxn = reader.getTxFile().getPartitionNameTxn(partitionIndex);
+        final long rowCount = reader.getPartitionRowCount(partitionIndex);
+        final long columnNameTxn = reader.getColumnVersionReader().getColumnNameTxn(partitionTimestamp, metadata.getWriterIndex(columnIndex));
+        final int columnBase = reader.getColumnBase(partitionIndex);
+        final long columnTop = reader.getColumnTop(columnBase, columnIndex);
+        final long metadataVersion = reader.getMetadataVersion();
+
+        final int offset = (partitionIndex * reader.getColumnCount() + columnIndex) * SLOT_SIZE;
+        final int size = slots.size();
+        if (offset + SLOT_SIZE > size) {
+            slots.extendAndSet(offset + SLOT_SIZE - 1, Long.MIN_VALUE);
+            slots.fill(size, offset + SLOT_SIZE, Long.MIN_VALUE);
+        } else if (
+                slots.getQuick(offset + SLOT_PARTITION_TIMESTAMP) == partitionTimestamp
+                        && slots.getQuick(offset + SLOT_PARTITION_NAME_TXN) == partitionNameTxn
+                        && slots.getQuick(offset + SLOT_ROW_COUNT) == rowCount
+                        && slots.getQuick(offset + SLOT_COLUMN_NAME_TXN) == columnNameTxn
+                        && slots.getQuick(offset + SLOT_COLUMN_TOP) == columnTop
+                        && slots.getQuick(offset + SLOT_METADATA_VERSION) == metadataVersion
+        ) {
+            min = slots.getQuick(offset + SLOT_MIN);
+            max = slots.getQuick(offset + SLOT_MAX);
+            return true;
+        }
+
+        final MemoryR columnMem = reader.getColumn(TableReader.getPrimaryColumnIndex(columnBase, columnIndex));
+        final long count = columnMem instanceof NullMemoryMR ? 0 : Math.max(rowCount - columnTop, 0);
+        final long address = count > 0 ? columnMem.getPageAddress(0) : 0;
+        computeMinMax(address, count, count < rowCount);
+
+        slots.setQuick(offset + SLOT_PARTITION_TIMESTAMP, partitionTimestamp);
+        slots.setQuick(offset + SLOT_PARTITION_NAME_TXN, partitionNameTxn);
+        slots.setQuick(offset + SLOT_ROW_COUNT, rowCount);
+        slots.setQuick(offset + SLOT_COLUMN_NAME_TXN, columnNameTxn);
+        slots.setQuick(offset + SLOT_COLUMN_TOP, columnTop);
+        slots.setQuick(offset + SLOT_METADATA_VERSION, metadataVersion);
+        slots.setQuick(offset + SLOT_MIN, min);
+        slots.setQuick(offset + SLOT_MAX, max);
+        return true;
+    }
+
+    private static long intToLong(int value) {
+        return value != Numbers.INT_NaN ? value : Numbers.LONG_NaN;
+    }
+
+    private void computeMinMax(long address, long count, boolean hasColumnTop) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.SHORT:
+                min = intToLong(Vect.minShort(address, count));
+                max = intToLong(Vect.maxShort(address, count));
+                // short has no null, rows above column top read as zero
+                if (hasColumnTop) {
+                    min = min == Numbers.LONG_NaN ? 0 : Math.min(min, 0);
+                    max = max == Numbers.LONG_NaN ? 0 : Math.max(max, 0);
+                }
+                break;
+            case ColumnType.INT:
+                min = intToLong(Vect.minInt(address, count));
+                max = intToLong(Vect.maxInt(address, count));
+                break;
+            case ColumnType.DOUBLE:
+                double minDouble = Vect.minDouble(address, count);
+                double maxDouble = Vect.maxDouble(address, count);
+                // min/max functions start from +/-infinity and return NaN when no value beats it,
+                // NaN on one side only is not "all null" but an infinite bound
+                if (Double.isNaN(minDouble) != Double.isNaN(maxDouble)) {
+                    if (Double.isNaN(minDouble)) {
+                        minDouble = Double.NEGATIVE_INFINITY;
+                    } else {
+                        maxDouble = Double.POSITIVE_INFINITY;
+                    }
+                }
+                min = Double.doubleToRawLongBits(minDouble);
+                max = Double.doubleToRawLongBits(maxDouble);
+                break;
+            default:
+                min = Vect.minLong(address, count);
+                max = Vect.maxLong(address, count);
+                break;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.str.CharSink;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
+
+/**
+ * Skips data frames of partitions where min/max column stats prove that none of the rows
+ * can satisfy the filter. Predicates are conjuncts of the filter in "column op constant"
+ * form. The filter itself must still be applied to the frames this factory returns.
+ * <p>
+ * The last partition is never pruned as it is the one that keeps changing, computing
+ * stats for it would most likely be wasted.
+ */
+public class PartitionPruningDataFrameCursorFactory implements DataFrameCursorFactory {
+    public static final int OP_EQ = 0;
+    public static final int OP_GE = 2;
+    public static final int OP_GT = 1;
+    public static final int OP_LE = 4;
+    public static final int OP_LT = 3;
+    private final DataFrameCursorFactory base;
+    private final IntList columnIndexes;
+    private final PartitionPruningDataFrameCursor cursor = new PartitionPruningDataFrameCursor();
+    private final IntList ops;
+    // long constants or raw bits of double constants, depending on the column type
+    private final LongList values;
+
+    public PartitionPruningDataFrameCursorFactory(
+            DataFrameCursorFactory base,
+            IntList columnIndexes,
+            IntList ops,
+            LongList values
+    ) {
+        assert columnIndexes.size() == ops.size() && ops.size() == values.size();
+        this.base = base;
+        this.columnIndexes = columnIndexes;
+        this.ops = ops;
+        this.values = values;
+    }
+
+    public static boolean canSkip(int op, double value, double min, double max) {
+        switch (op) {
+            case OP_GT:
+                return max <= value;
+            case OP_GE:
+                return max < value;
+            case OP_LT:
+                return min >= value;
+            case OP_LE:
+                return min > value;
+            default:
+                // double equality is approximate, leave it to the filter
+                return false;
+        }
+    }
+
+    public static boolean canSkip(int op, long value, long min, long max) {
+        switch (op) {
+            case OP_GT:
+                return max <= value;
+            case OP_GE:
+                return max < value;
+            case OP_LT:
+                return min >= value;
+            case OP_LE:
+                return min > value;
+            default:
+                return value < min || value > max;
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.free(base);
+    }
+
+    @Override
+    public DataFrameCursor getCursor(SqlExecutionContext executionContext, int order) throws SqlException {
+        return cursor.of(base.getCursor(executionContext, order));
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return base.getMetadata();
+    }
+
+    @Override
+    public int getOrder() {
+        return base.getOrder();
+    }
+
+    @TestOnly
+    public long getPrunedFrameCount() {
+        return cursor.prunedFrameCount;
+    }
+
+    @Override
+    public TableToken getTableToken() {
+        return base.getTableToken();
+    }
+
+    @Override
+    public boolean hasInterval() {
+        return base.hasInterval();
+    }
+
+    @Override
+    public boolean supportTableRowId(TableToken tableToken) {
+        return base.supportTableRowId(tableToken);
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        base.toPlan(sink);
+    }
+
+    @Override
+    public void toSink(@NotNull CharSink<?> sink) {
+        base.toSink(sink);
+    }
+
+    private class PartitionPruningDataFrameCursor implements DataFrameCursor {
+        private DataFrameCursor baseCursor;
+        private long prunedFrameCount;
+
+        @Override
+        public void calculateSize(RecordCursor.Counter counter) {
+            DataFrame frame;
+            while ((frame = next()) != null) {
+                counter.add(frame.getRowHi() - frame.getRowLo());
+            }
+        }
+
+        @Override
+        public void close() {
+            baseCursor = Misc.free(baseCursor);
+        }
+
+        @Override
+        public StaticSymbolTable getSymbolTable(int columnIndex) {
+            return baseCursor.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public TableReader getTableReader() {
+            return baseCursor.getTableReader();
+        }
+
+        @Override
+        public StaticSymbolTable newSymbolTable(int columnIndex) {
+            return baseCursor.newSymbolTable(columnIndex);
+        }
+
+        @Override
+        public @Nullable DataFrame next() {
+            DataFrame frame;
+            while ((frame = baseCursor.next()) != null) {
+                if (!canSkip(frame.getPartitionIndex())) {
+                    return frame;
+                }
+                prunedFrameCount++;
+            }
+            return null;
+        }
+
+        public PartitionPruningDataFrameCursor of(DataFrameCursor baseCursor) {
+            this.baseCursor = baseCursor;
+            prunedFrameCount = 0;
+            return this;
+        }
+
+        @TestOnly
+        @Override
+        public boolean reload() {
+            return baseCursor.reload();
+        }
+
+        @Override
+        public long size() {
+            // pruned frames are not known upfront
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            baseCursor.toTop();
+        }
+
+        private boolean canSkip(int partitionIndex) {
+            final TableReader reader = baseCursor.getTableReader();
+            if (partitionIndex >= reader.getPartitionCount() - 1) {
+                return false;
+            }
+
+            final PartitionColumnStats stats = reader.getPartitionColumnStats();
+            for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+                final int columnIndex = columnIndexes.getQuick(i);
+                if (!stats.of(reader, partitionIndex, columnIndex)) {
+                    continue;
+                }
+                if (stats.isAllNull()) {
+                    // comparison with null is always false
+                    return true;
+                }
+                final int op = ops.getQuick(i);
+                final long value = values.getQuick(i);
+                if (ColumnType.tagOf(reader.getMetadata().getColumnType(columnIndex)) == ColumnType.DOUBLE) {
+                    if (PartitionPruningDataFrameCursorFactory.canSkip(op, Double.longBitsToDouble(value), stats.getMinDouble(), stats.getMaxDouble())) {
+                        return true;
+                    }
+                } else if (PartitionPruningDataFrameCursorFactory.canSkip(op, value, stats.getMinLong(), stats.getMaxLong())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
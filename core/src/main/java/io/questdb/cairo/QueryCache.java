@@ -0,0 +1,232 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Engine-wide cache of compiled SELECT factories, shared by HTTP and PostgreSQL wire connections.
+ * <p>
+ * The cache is set-associative in the same way as {@link AssociativeCache}: the key hash selects a row,
+ * and the row holds up to "blocks" entries ordered from the most to the least recently returned one.
+ * Each row is guarded by its own lock, so that connections looking up different queries do not contend.
+ * <p>
+ * Factories are not thread-safe, hence they are lent out exclusively: {@link #poll} removes the factory
+ * from its entry and {@link #put} returns it once the query is done. Connections that run the same query
+ * concurrently compile their own factories. Entries are keyed by the SQL text without surrounding
+ * whitespace and semicolons, the principal and the class of the security context. Bind variable types,
+ * as defined when the factory was compiled, are kept with the entry. Factories compiled against older
+ * table metadata are not evicted eagerly, they fail with {@link io.questdb.cairo.sql.TableReferenceOutOfDateException}
+ * when a cursor is opened and the caller recompiles the query.
+ */
+public class QueryCache implements Closeable, Mutable {
+    private final IntList[] bindVariableTypes;
+    private final int blocks;
+    private final int bshift;
+    private final RecordCursorFactory[] factories;
+    private final Object[] locks;
+    private final String[] principals;
+    private final int rmask;
+    private final Class<?>[] securityContextClasses;
+    private final String[] sqlTexts;
+
+    public QueryCache(int blocks, int rows) {
+        this.blocks = Math.max(1, Numbers.ceilPow2(blocks));
+        rows = Math.max(1, Numbers.ceilPow2(rows));
+        final int size = rows * this.blocks;
+        this.bindVariableTypes = new IntList[size];
+        this.factories = new RecordCursorFactory[size];
+        this.principals = new String[size];
+        this.securityContextClasses = new Class<?>[size];
+        this.sqlTexts = new String[size];
+        for (int i = 0; i < size; i++) {
+            bindVariableTypes[i] = new IntList();
+        }
+        this.locks = new Object[rows];
+        for (int i = 0; i < rows; i++) {
+            locks[i] = new Object();
+        }
+        this.rmask = rows - 1;
+        this.bshift = Numbers.msb(this.blocks);
+    }
+
+    @Override
+    public void clear() {
+        for (int row = 0, n = locks.length; row < n; row++) {
+            synchronized (locks[row]) {
+                for (int i = row << bshift, hi = i + blocks; i < hi; i++) {
+                    sqlTexts[i] = null;
+                    principals[i] = null;
+                    securityContextClasses[i] = null;
+                    bindVariableTypes[i].clear();
+                    factories[i] = Misc.free(factories[i]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    /**
+     * Takes the factory of the given query out of the cache. The factory has to be returned
+     * via {@link #put} or freed by the caller.
+     *
+     * @param securityContext   security context of the caller
+     * @param sqlText           query text
+     * @param bindVariableTypes populated with bind variable types of the factory on a hit, may be null
+     * @return cached factory or null
+     */
+    @Nullable
+    public RecordCursorFactory poll(
+            @NotNull SecurityContext securityContext,
+            @NotNull CharSequence sqlText,
+            @Nullable IntList bindVariableTypes
+    ) {
+        final int sqlLo = sqlLo(sqlText);
+        final int sqlHi = sqlHi(sqlText, sqlLo);
+        final CharSequence principal = securityContext.getPrincipal();
+        final int row = row(principal, sqlText, sqlLo, sqlHi);
+        synchronized (locks[row]) {
+            final int index = getIndex(row, securityContext, principal, sqlText, sqlLo, sqlHi);
+            if (index < 0) {
+                return null;
+            }
+            final RecordCursorFactory factory = factories[index];
+            if (factory != null) {
+                factories[index] = null;
+                if (bindVariableTypes != null) {
+                    bindVariableTypes.clear();
+                    bindVariableTypes.addAll(this.bindVariableTypes[index]);
+                }
+            }
+            return factory;
+        }
+    }
+
+    /**
+     * Returns the factory of the given query to the cache. When the cache already holds a factory
+     * of the query, the returned one is freed. The least recently returned entry of the row is
+     * evicted to make room for a new query.
+     *
+     * @param securityContext   security context the factory was compiled with
+     * @param sqlText           query text
+     * @param factory           factory to cache
+     * @param bindVariableTypes bind variable types defined when the factory was compiled, may be null
+     */
+    public void put(
+            @NotNull SecurityContext securityContext,
+            @NotNull CharSequence sqlText,
+            @NotNull RecordCursorFactory factory,
+            @Nullable IntList bindVariableTypes
+    ) {
+        final int sqlLo = sqlLo(sqlText);
+        final int sqlHi = sqlHi(sqlText, sqlLo);
+        final CharSequence principal = securityContext.getPrincipal();
+        final int row = row(principal, sqlText, sqlLo, sqlHi);
+        RecordCursorFactory outgoing;
+        synchronized (locks[row]) {
+            final int index = getIndex(row, securityContext, principal, sqlText, sqlLo, sqlHi);
+            if (index > -1 && factories[index] != null) {
+                // another connection returned the same query first
+                outgoing = factory;
+            } else {
+                final int lo = row << bshift;
+                final int last = lo + blocks - 1;
+                final int target = index > -1 ? index : last;
+                outgoing = factories[target];
+                // move the entry to the head of the row, shifting the newer entries down
+                final String entrySqlText = index > -1 ? sqlTexts[index] : Chars.toString(sqlText, sqlLo, sqlHi);
+                final String entryPrincipal = index > -1 ? principals[index] : Chars.toString(principal);
+                final IntList entryTypes = this.bindVariableTypes[target];
+                System.arraycopy(sqlTexts, lo, sqlTexts, lo + 1, target - lo);
+                System.arraycopy(principals, lo, principals, lo + 1, target - lo);
+                System.arraycopy(securityContextClasses, lo, securityContextClasses, lo + 1, target - lo);
+                System.arraycopy(factories, lo, factories, lo + 1, target - lo);
+                System.arraycopy(this.bindVariableTypes, lo, this.bindVariableTypes, lo + 1, target - lo);
+                sqlTexts[lo] = entrySqlText;
+                principals[lo] = entryPrincipal;
+                securityContextClasses[lo] = securityContext.getClass();
+                factories[lo] = factory;
+                entryTypes.clear();
+                if (bindVariableTypes != null) {
+                    entryTypes.addAll(bindVariableTypes);
+                }
+                this.bindVariableTypes[lo] = entryTypes;
+            }
+        }
+        Misc.free(outgoing);
+    }
+
+    private static int sqlHi(CharSequence sqlText, int sqlLo) {
+        int hi = sqlText.length();
+        while (hi > sqlLo) {
+            final char c = sqlText.charAt(hi - 1);
+            if (c != ';' && !Character.isWhitespace(c)) {
+                break;
+            }
+            hi--;
+        }
+        return hi;
+    }
+
+    private static int sqlLo(CharSequence sqlText) {
+        int lo = 0;
+        final int n = sqlText.length();
+        while (lo < n && Character.isWhitespace(sqlText.charAt(lo))) {
+            lo++;
+        }
+        return lo;
+    }
+
+    private int getIndex(int row, SecurityContext securityContext, CharSequence principal, CharSequence sqlText, int sqlLo, int sqlHi) {
+        for (int i = row << bshift, hi = i + blocks; i < hi; i++) {
+            final String entrySqlText = sqlTexts[i];
+            if (entrySqlText == null) {
+                return -1;
+            }
+            if (
+                    securityContextClasses[i] == securityContext.getClass()
+                            && Chars.equals(entrySqlText, sqlText, sqlLo, sqlHi)
+                            && (principal == null ? principals[i] == null : Chars.equalsNc(principal, principals[i]))
+            ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int row(CharSequence principal, CharSequence sqlText, int sqlLo, int sqlHi) {
+        final int hash = 31 * Chars.hashCode(sqlText, sqlLo, sqlHi) + (principal != null ? Chars.hashCode(principal) : 0);
+        return Hash.spread(hash) & rmask;
+    }
+}
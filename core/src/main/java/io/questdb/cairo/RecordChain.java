@@ -39,14 +39,16 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
 
     private final long[] columnOffsets;
     private final long fixOffset;
-    private final MemoryARW mem;
+    private final MemoryARW nativeMem;
     private final RecordChainRecord recordA = new RecordChainRecord();
     private final RecordChainRecord recordB = new RecordChainRecord();
     private final RecordSink recordSink;
     private final long varOffset;
+    private MemoryARW mem;
     private long nextRecordOffset = -1L;
     private RecordChainRecord recordC;
     private long recordOffset;
+    private SpillFile spillFile;
     private SymbolTableSource symbolTableResolver;
     private long varAppendOffset = 0L;
 
@@ -56,7 +58,8 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
             long pageSize,
             int maxPages
     ) {
-        this.mem = Vm.getARWInstance(pageSize, maxPages, MemoryTag.NATIVE_RECORD_CHAIN);
+        this.nativeMem = Vm.getARWInstance(pageSize, maxPages, MemoryTag.NATIVE_RECORD_CHAIN);
+        this.mem = nativeMem;
         this.recordSink = recordSink;
         int count = columnTypes.getColumnCount();
         long varOffset = 0L;
@@ -106,7 +109,12 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
 
     @Override
     public void clear() {
-        mem.close();
+        if (spillFile != null) {
+            spillFile.close();
+            spillFile = null;
+            mem = nativeMem;
+        }
+        nativeMem.close();
         nextRecordOffset = -1L;
         varAppendOffset = 0L;
     }
@@ -122,6 +130,13 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
         return addressOf(getOffsetOfColumn(recordOffset, columnIndex));
     }
 
+    /**
+     * Returns size of the chain data held in native memory, zero once the chain is spilled.
+     */
+    public long getNativeDataSize() {
+        return mem == nativeMem ? Math.max(varAppendOffset, mem.getAppendOffset()) : 0;
+    }
+
     public long getOffsetOfColumn(long recordOffset, int columnIndex) {
         return rowToDataOffset(recordOffset) + varOffset + columnOffsets[columnIndex];
     }
@@ -156,6 +171,10 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
         return false;
     }
 
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
     public void of(long nextRecordOffset) {
         this.nextRecordOffset = nextRecordOffset;
     }
@@ -316,6 +335,27 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
         mem.skip(bytes);
     }
 
+    /**
+     * Moves chain data to the spill file and continues appending there. Native memory is released,
+     * record offsets stay the same, so that the chain remains fully readable after the spill.
+     */
+    public void spill(SpillFile spillFile) {
+        if (this.spillFile != null) {
+            return;
+        }
+        final MemoryARW fileMem = spillFile.open();
+        final long size = Math.max(varAppendOffset, nativeMem.getAppendOffset());
+        final long pageSize = nativeMem.getPageSize();
+        for (long offset = 0; offset < size; offset += pageSize) {
+            final long len = Math.min(pageSize, size - offset);
+            Vect.memcpy(fileMem.appendAddressFor(offset, len), nativeMem.getPageAddress((int) (offset / pageSize)), len);
+        }
+        fileMem.jumpTo(nativeMem.getAppendOffset());
+        nativeMem.close();
+        this.spillFile = spillFile;
+        this.mem = fileMem;
+    }
+
     @Override
     public void toTop() {
         if (mem.getAppendOffset() == 0) {
@@ -0,0 +1,556 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.BindVariableService;
+import io.questdb.cairo.sql.DelegatingRecord;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.ThreadLocal;
+import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8Sequence;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
+
+import java.io.Closeable;
+
+/**
+ * Engine-wide cache of SELECT results, shared by HTTP and PostgreSQL wire connections.
+ * <p>
+ * On a miss, the rows of the query are copied into off-heap {@link RecordChain} while tables read
+ * by the query are recorded in a {@link TableReadSet}. The caller is served from the copy, which
+ * enters the cache once the cursor is closed. On a hit, the read set is checked against the current
+ * state of the tables and the cached rows are replayed, the query itself is not executed. Results
+ * of queries that read tables via interval scans survive commits that do not touch partitions
+ * overlapping the intervals, e.g. ingestion of recent rows does not invalidate historical ranges.
+ * <p>
+ * Entries are keyed by the SQL text without surrounding whitespace and semicolons, bind variable
+ * values, the principal and the class of the security context. The cache is bounded by the size
+ * of off-heap memory held by the results, the least recently used results are evicted first.
+ * A single result may take up to a quarter of the cache, larger results and results that turn out
+ * to depend on the current time or random values are remembered as not cacheable. Results are lent
+ * out exclusively, connections that run the same query concurrently execute it.
+ */
+public class ResultCache implements Closeable, Mutable {
+    private static final Log LOG = LogFactory.getLog(ResultCache.class);
+    private final CairoEngine engine;
+    private final CharSequenceObjHashMap<CachedResult> entries = new CharSequenceObjHashMap<>();
+    private final long maxBytes;
+    private final long maxResultBytes;
+    private final long pageSize;
+    private final ThreadLocal<BytecodeAssembler> tlAsm = new ThreadLocal<>(BytecodeAssembler::new);
+    private final ThreadLocal<EntityColumnFilter> tlColumnFilter = new ThreadLocal<>(EntityColumnFilter::new);
+    private final ThreadLocal<StringSink> tlKeySink = new ThreadLocal<>(StringSink::new);
+    private final CachedResult unavailable = new CachedResult(null, null, null);
+    private long bytes;
+    private boolean closed;
+    // the most recently used result
+    private CachedResult head;
+    private CachedResult tail;
+
+    public ResultCache(CairoEngine engine) {
+        this.engine = engine;
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.maxBytes = configuration.getSqlResultCacheMaxBytes();
+        this.maxResultBytes = maxBytes / 4;
+        this.pageSize = configuration.getSqlResultCachePageSize();
+    }
+
+    @Override
+    public synchronized void clear() {
+        CachedResult result = head;
+        while (result != null) {
+            final CachedResult next = result.next;
+            result.prev = result.next = null;
+            result.cached = false;
+            // lent results are cached again or freed when their cursors are closed
+            if (!result.lent) {
+                result.free();
+            }
+            result = next;
+        }
+        entries.clear();
+        head = tail = null;
+        bytes = 0;
+    }
+
+    @Override
+    public synchronized void close() {
+        clear();
+        closed = true;
+    }
+
+    /**
+     * Opens cursor of the query. The cursor replays the cached result of the query, when the cache
+     * holds an up-to-date one. Otherwise, the query is executed and its result is copied, if possible.
+     *
+     * @param sqlText          query text
+     * @param factory          compiled query
+     * @param executionContext execution context with the bind variables of the query
+     * @return cursor to be closed by the caller
+     * @throws SqlException when the query fails to execute
+     */
+    public RecordCursor getCursor(
+            @NotNull CharSequence sqlText,
+            @NotNull RecordCursorFactory factory,
+            @NotNull SqlExecutionContextImpl executionContext
+    ) throws SqlException {
+        final StringSink key = tlKeySink.get();
+        if (!putKey(executionContext.getSecurityContext(), sqlText, executionContext.getBindVariableService(), key)) {
+            return factory.getCursor(executionContext);
+        }
+        final CachedResult cachedResult = lend(key);
+        if (cachedResult == unavailable) {
+            return factory.getCursor(executionContext);
+        }
+        if (cachedResult != null) {
+            if (cachedResult.readSet.isValid(engine)) {
+                cachedResult.toTop();
+                return cachedResult;
+            }
+            remove(cachedResult);
+        }
+
+        // the sink is thread-local, nested queries could overwrite it
+        final String entryKey = Chars.toString(key);
+        final TableReadSet readSet = new TableReadSet();
+        final RecordMetadata metadata = factory.getMetadata();
+        RecordCursor cursor = null;
+        executionContext.setTableReadSet(readSet);
+        try {
+            cursor = factory.getCursor(executionContext);
+            if (readSet.isCacheable() && isSupported(metadata)) {
+                final CachedResult result = copy(entryKey, metadata, cursor, readSet, executionContext.getCircuitBreaker());
+                if (result != null) {
+                    Misc.free(cursor);
+                    return result;
+                }
+            }
+            return cursor;
+        } catch (Throwable th) {
+            Misc.free(cursor);
+            throw th;
+        } finally {
+            executionContext.setTableReadSet(null);
+        }
+    }
+
+    @TestOnly
+    public synchronized long getMemoryUsed() {
+        return bytes;
+    }
+
+    @TestOnly
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static boolean isSupported(RecordMetadata metadata) {
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            switch (ColumnType.tagOf(metadata.getColumnType(i))) {
+                case ColumnType.BOOLEAN:
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.CHAR:
+                case ColumnType.INT:
+                case ColumnType.IPv4:
+                case ColumnType.LONG:
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                case ColumnType.FLOAT:
+                case ColumnType.DOUBLE:
+                case ColumnType.STRING:
+                case ColumnType.SYMBOL:
+                case ColumnType.VARCHAR:
+                case ColumnType.BINARY:
+                case ColumnType.LONG256:
+                case ColumnType.UUID:
+                case ColumnType.LONG128:
+                case ColumnType.GEOBYTE:
+                case ColumnType.GEOSHORT:
+                case ColumnType.GEOINT:
+                case ColumnType.GEOLONG:
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean putBindVariable(Function function, StringSink sink) {
+        final short tag = ColumnType.tagOf(function.getType());
+        sink.put(tag).put(':');
+        switch (tag) {
+            case ColumnType.BOOLEAN:
+                sink.put(function.getBool(null));
+                return true;
+            case ColumnType.BYTE:
+                sink.put(function.getByte(null));
+                return true;
+            case ColumnType.SHORT:
+                sink.put(function.getShort(null));
+                return true;
+            case ColumnType.CHAR:
+                sink.put((int) function.getChar(null));
+                return true;
+            case ColumnType.INT:
+                sink.put(function.getInt(null));
+                return true;
+            case ColumnType.IPv4:
+                sink.put(function.getIPv4(null));
+                return true;
+            case ColumnType.LONG:
+                sink.put(function.getLong(null));
+                return true;
+            case ColumnType.DATE:
+                sink.put(function.getDate(null));
+                return true;
+            case ColumnType.TIMESTAMP:
+                sink.put(function.getTimestamp(null));
+                return true;
+            case ColumnType.FLOAT:
+                sink.put(Float.floatToRawIntBits(function.getFloat(null)));
+                return true;
+            case ColumnType.DOUBLE:
+                sink.put(Double.doubleToRawLongBits(function.getDouble(null)));
+                return true;
+            case ColumnType.STRING: {
+                final CharSequence value = function.getStrA(null);
+                if (value == null) {
+                    sink.put(-1);
+                } else {
+                    sink.put(value.length()).put(':').put(value);
+                }
+                return true;
+            }
+            case ColumnType.VARCHAR: {
+                final Utf8Sequence value = function.getVarcharA(null);
+                if (value == null) {
+                    sink.put(-1);
+                } else {
+                    sink.put(value.size()).put(':').put(value);
+                }
+                return true;
+            }
+            case ColumnType.UUID:
+            case ColumnType.LONG128:
+                sink.put(function.getLong128Lo(null)).put(':').put(function.getLong128Hi(null));
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean putKey(
+            SecurityContext securityContext,
+            CharSequence sqlText,
+            @Nullable BindVariableService bindVariableService,
+            StringSink sink
+    ) {
+        sink.clear();
+        sink.put(securityContext.getClass().getName()).put('\0');
+        final CharSequence principal = securityContext.getPrincipal();
+        if (principal != null) {
+            sink.put(principal);
+        }
+        sink.put('\0');
+        int lo = 0;
+        int hi = sqlText.length();
+        while (lo < hi && Character.isWhitespace(sqlText.charAt(lo))) {
+            lo++;
+        }
+        while (hi > lo && (sqlText.charAt(hi - 1) == ';' || Character.isWhitespace(sqlText.charAt(hi - 1)))) {
+            hi--;
+        }
+        sink.put(sqlText, lo, hi);
+        if (bindVariableService != null) {
+            if (bindVariableService.getNamedVariables().size() > 0) {
+                return false;
+            }
+            for (int i = 0, n = bindVariableService.getIndexedVariableCount(); i < n; i++) {
+                final Function function = bindVariableService.getFunction(i);
+                sink.put('\0');
+                if (function != null && !putBindVariable(function, sink)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private @Nullable CachedResult copy(
+            String key,
+            RecordMetadata metadata,
+            RecordCursor cursor,
+            TableReadSet readSet,
+            SqlExecutionCircuitBreaker circuitBreaker
+    ) {
+        final CachedResult result = new CachedResult(key, metadata, readSet);
+        try {
+            final Record record = cursor.getRecord();
+            final RecordChain chain = result.chain;
+            long offset = -1;
+            while (cursor.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                offset = chain.put(record, offset);
+                result.rowCount++;
+                if (chain.getNativeDataSize() > maxResultBytes) {
+                    LOG.info().$("result is too large to cache [maxBytes=").$(maxResultBytes).I$();
+                    result.free();
+                    putUncacheable(key);
+                    cursor.toTop();
+                    return null;
+                }
+            }
+        } catch (DataUnavailableException e) {
+            result.free();
+            cursor.toTop();
+            return null;
+        } catch (Throwable th) {
+            result.free();
+            throw th;
+        }
+        if (!readSet.isCacheable()) {
+            // e.g. the query reads the current time for every row
+            result.free();
+            putUncacheable(key);
+            cursor.toTop();
+            return null;
+        }
+        final long size = result.chain.getNativeDataSize();
+        result.bytes = (size + pageSize - 1) / pageSize * pageSize + (long) key.length() * Character.BYTES;
+        result.lent = true;
+        result.toTop();
+        return result;
+    }
+
+    private void evict() {
+        CachedResult result = tail;
+        while (bytes > maxBytes && result != null) {
+            final CachedResult prev = result.prev;
+            if (!result.lent) {
+                unlink(result);
+                result.free();
+            }
+            result = prev;
+        }
+    }
+
+    private synchronized CachedResult lend(CharSequence key) {
+        final int index = entries.keyIndex(key);
+        if (index > -1) {
+            return null;
+        }
+        final CachedResult result = entries.valueAtQuick(index);
+        if (result.lent || result.chain == null) {
+            return unavailable;
+        }
+        result.lent = true;
+        return result;
+    }
+
+    private void link(CachedResult result) {
+        result.prev = null;
+        result.next = head;
+        if (head != null) {
+            head.prev = result;
+        } else {
+            tail = result;
+        }
+        head = result;
+    }
+
+    private synchronized void put(CachedResult result) {
+        result.lent = false;
+        if (closed) {
+            result.free();
+            return;
+        }
+        if (result.cached) {
+            // move to the head
+            unlinkFromList(result);
+            link(result);
+            return;
+        }
+        final int index = entries.keyIndex(result.key);
+        if (index < 0) {
+            // another connection returned the same query first
+            result.free();
+            return;
+        }
+        entries.putAt(index, result.key, result);
+        result.cached = true;
+        link(result);
+        bytes += result.bytes;
+        evict();
+    }
+
+    private synchronized void putUncacheable(String key) {
+        final int index = entries.keyIndex(key);
+        if (closed || index < 0) {
+            return;
+        }
+        final CachedResult result = new CachedResult(key, null, null);
+        result.bytes = (long) key.length() * Character.BYTES;
+        entries.putAt(index, key, result);
+        result.cached = true;
+        link(result);
+        bytes += result.bytes;
+        evict();
+    }
+
+    private synchronized void remove(CachedResult result) {
+        if (result.cached) {
+            unlink(result);
+        }
+        result.free();
+    }
+
+    private void unlink(CachedResult result) {
+        entries.removeAt(entries.keyIndex(result.key));
+        unlinkFromList(result);
+        result.cached = false;
+        bytes -= result.bytes;
+    }
+
+    private void unlinkFromList(CachedResult result) {
+        if (result.prev != null) {
+            result.prev.next = result.next;
+        } else {
+            head = result.next;
+        }
+        if (result.next != null) {
+            result.next.prev = result.prev;
+        } else {
+            tail = result.prev;
+        }
+        result.prev = result.next = null;
+    }
+
+    private static class SymbolAsStrRecord extends DelegatingRecord {
+
+        @Override
+        public CharSequence getSymA(int col) {
+            return base.getStrA(col);
+        }
+
+        @Override
+        public CharSequence getSymB(int col) {
+            return base.getStrB(col);
+        }
+
+        private Record getBase() {
+            return base;
+        }
+    }
+
+    private class CachedResult implements RecordCursor {
+        private final RecordChain chain;
+        private final String key;
+        private final TableReadSet readSet;
+        private final SymbolAsStrRecord recordA = new SymbolAsStrRecord();
+        private final SymbolAsStrRecord recordB = new SymbolAsStrRecord();
+        private long bytes;
+        private boolean cached;
+        private boolean lent;
+        private CachedResult next;
+        private CachedResult prev;
+        private long rowCount;
+
+        private CachedResult(String key, @Nullable RecordMetadata metadata, TableReadSet readSet) {
+            this.key = key;
+            this.readSet = readSet;
+            if (metadata != null) {
+                final ArrayColumnTypes columnTypes = new ArrayColumnTypes();
+                for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                    final int type = metadata.getColumnType(i);
+                    columnTypes.add(ColumnType.isSymbol(type) ? ColumnType.STRING : type);
+                }
+                final EntityColumnFilter columnFilter = tlColumnFilter.get();
+                columnFilter.of(metadata.getColumnCount());
+                // symbol keys are meaningless without the table, the values are stored as strings
+                final RecordSink sink = RecordSinkFactory.getInstance(tlAsm.get(), metadata, columnFilter, true);
+                this.chain = new RecordChain(columnTypes, sink, pageSize, Integer.MAX_VALUE);
+                recordA.of(chain.getRecord());
+                recordB.of(chain.getRecordB());
+            } else {
+                this.chain = null;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (lent) {
+                put(this);
+            }
+        }
+
+        @Override
+        public Record getRecord() {
+            return recordA;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return recordB;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return chain.hasNext();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            chain.recordAt(((SymbolAsStrRecord) record).getBase(), atRowId);
+        }
+
+        @Override
+        public long size() {
+            return rowCount;
+        }
+
+        @Override
+        public void toTop() {
+            chain.toTop();
+        }
+
+        private void free() {
+            Misc.free(chain);
+        }
+    }
+}
@@ -70,6 +70,9 @@ public interface SecurityContext extends Mutable {
 
     void authorizeCopyCancel(SecurityContext cancellingSecurityContext);
 
+    // COPY ... TO writes files on the server
+    void authorizeCopyExport();
+
     void authorizeDatabaseSnapshot();
 
     void authorizeHttp();
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.Hash;
+import io.questdb.std.Numbers;
+import io.questdb.std.str.DirectUtf8Sequence;
+import io.questdb.std.str.Utf8String;
+import io.questdb.std.str.Utf8s;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Symbol value to key cache of a single symbol column, which is shared between threads and connections.
+ * <p>
+ * Lookups are lock-free. Values are added with a CAS into an open addressing table and are never
+ * removed: a symbol key does not change once assigned, so the symbol map growing does not invalidate
+ * the cached keys. The cache is tied to a column instance and a truncate version of the table, it is
+ * replaced by {@link SharedSymbolCacheRegistry} when either of them changes.
+ * <p>
+ * The table grows by doubling under a lock, a value added concurrently with the resize may be lost,
+ * which only costs a cache miss later on.
+ */
+public class SharedSymbolCache {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_CAPACITY = 1 << 20;
+    private final long columnNameTxn;
+    private final AtomicInteger size = new AtomicInteger();
+    private final long truncateVersion;
+    private volatile AtomicReferenceArray<Entry> entries = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+
+    public SharedSymbolCache(long columnNameTxn, long truncateVersion) {
+        this.columnNameTxn = columnNameTxn;
+        this.truncateVersion = truncateVersion;
+    }
+
+    public long getColumnNameTxn() {
+        return columnNameTxn;
+    }
+
+    public long getTruncateVersion() {
+        return truncateVersion;
+    }
+
+    public int keyOf(DirectUtf8Sequence value) {
+        final AtomicReferenceArray<Entry> entries = this.entries;
+        final int mask = entries.length() - 1;
+        final int hashCode = Hash.hashUtf8(value);
+        int index = Hash.spread(hashCode) & mask;
+        while (true) {
+            final Entry entry = entries.get(index);
+            if (entry == null) {
+                return SymbolTable.VALUE_NOT_FOUND;
+            }
+            if (entry.hashCode == hashCode && Utf8s.equals(value, entry.value)) {
+                return entry.key;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public void put(Utf8String value, int key) {
+        final AtomicReferenceArray<Entry> entries = this.entries;
+        final int capacity = entries.length();
+        if (capacity == MAX_CAPACITY && size.get() >= MAX_CAPACITY >> 1) {
+            // the cache is full, further values are looked up in the symbol map
+            return;
+        }
+        if (insert(entries, new Entry(value, Hash.hashUtf8(value), key)) && size.incrementAndGet() > capacity >> 1) {
+            resize(entries);
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    private static boolean insert(AtomicReferenceArray<Entry> entries, Entry entry) {
+        final int mask = entries.length() - 1;
+        int index = Hash.spread(entry.hashCode) & mask;
+        while (true) {
+            final Entry existing = entries.get(index);
+            if (existing == null) {
+                if (entries.compareAndSet(index, null, entry)) {
+                    return true;
+                }
+                // lost the race, re-check the same slot
+                continue;
+            }
+            if (existing.hashCode == entry.hashCode && Utf8s.equals(existing.value, entry.value)) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private synchronized void resize(AtomicReferenceArray<Entry> current) {
+        if (entries != current || current.length() == MAX_CAPACITY) {
+            return;
+        }
+        final AtomicReferenceArray<Entry> resized = new AtomicReferenceArray<>(Math.min(MAX_CAPACITY, Numbers.ceilPow2(current.length() * 2)));
+        int count = 0;
+        for (int i = 0, n = current.length(); i < n; i++) {
+            final Entry entry = current.get(i);
+            if (entry != null && insert(resized, entry)) {
+                count++;
+            }
+        }
+        size.set(count);
+        entries = resized;
+    }
+
+    private static class Entry {
+        private final int hashCode;
+        private final int key;
+        private final Utf8String value;
+
+        private Entry(Utf8String value, int hashCode, int key) {
+            this.value = value;
+            this.hashCode = hashCode;
+            this.key = key;
+        }
+    }
+}
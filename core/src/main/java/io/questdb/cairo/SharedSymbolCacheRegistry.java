@@ -0,0 +1,114 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.Chars;
+import io.questdb.std.ConcurrentHashMap;
+import io.questdb.std.ThreadLocal;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Engine-wide registry of {@link SharedSymbolCache} instances, one per table and symbol column.
+ * The caches are shared by all ILP connections, so that connections writing the same symbol values
+ * do not each have to warm up their own cache.
+ */
+public class SharedSymbolCacheRegistry {
+    private static final ThreadLocal<StringSink> tlSink = new ThreadLocal<>(StringSink::new);
+    private final ConcurrentHashMap<SharedSymbolCache> caches = new ConcurrentHashMap<>();
+
+    public void clear() {
+        caches.clear();
+    }
+
+    /**
+     * Returns the cache of the given symbol column. The caller passes the column name txn and the table
+     * truncate version it observed. A cache created for an older column instance or truncate version is
+     * replaced. When the caller's view is behind the cached one, null is returned and the caller should
+     * not use a shared cache.
+     *
+     * @param tableToken      table token
+     * @param columnIndex     writer index of the symbol column
+     * @param columnNameTxn   column name txn of the symbol column
+     * @param truncateVersion table truncate version
+     * @return shared cache or null
+     */
+    @Nullable
+    public SharedSymbolCache getCache(TableToken tableToken, int columnIndex, long columnNameTxn, long truncateVersion) {
+        final StringSink key = key(tableToken, columnIndex);
+        while (true) {
+            final SharedSymbolCache cache = caches.get(key);
+            if (cache == null) {
+                final SharedSymbolCache newCache = new SharedSymbolCache(columnNameTxn, truncateVersion);
+                final SharedSymbolCache existing = caches.putIfAbsent(Chars.toString(key), newCache);
+                if (existing == null) {
+                    return newCache;
+                }
+                continue;
+            }
+            if (cache.getColumnNameTxn() == columnNameTxn && cache.getTruncateVersion() == truncateVersion) {
+                return cache;
+            }
+            if (cache.getColumnNameTxn() > columnNameTxn || cache.getTruncateVersion() > truncateVersion) {
+                // the caller has a stale view of the table
+                return null;
+            }
+            // the column was re-created or the table truncated, replace the cache and look it up again
+            caches.replace(key, cache, new SharedSymbolCache(columnNameTxn, truncateVersion));
+        }
+    }
+
+    /**
+     * Drops the caches of the given table, called when the table is dropped or renamed.
+     *
+     * @param tableToken table token
+     */
+    public void remove(TableToken tableToken) {
+        final String prefix = tableToken.getDirName() + '/' + tableToken.getTableId() + '/';
+        caches.keySet().removeIf(key -> Chars.startsWith(key, prefix));
+    }
+
+    /**
+     * Drops the cache of a symbol column, called when the column is dropped.
+     *
+     * @param tableToken  table token
+     * @param columnIndex writer index of the symbol column
+     */
+    public void remove(TableToken tableToken, int columnIndex) {
+        caches.remove(key(tableToken, columnIndex));
+    }
+
+    public int size() {
+        return caches.size();
+    }
+
+    private static StringSink key(TableToken tableToken, int columnIndex) {
+        final StringSink key = tlSink.get();
+        key.clear();
+        key.put(tableToken.getDirName()).put('/').put(tableToken.getTableId()).put('/').put(columnIndex);
+        return key;
+    }
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Os;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Temporary memory-mapped file used by SQL operators once they exceed the in-memory
+ * budget set by {@link CairoConfiguration#getSqlSpillThreshold()}. The file is created
+ * in {@link CairoConfiguration#getSqlSpillRoot()} on {@link #open()} and removed on
+ * {@link #close()}. The instance can be opened again after it was closed. The path is
+ * allocated on {@link #open()}, so operators that never reach the threshold hold no native
+ * memory for their spill files.
+ */
+public class SpillFile implements Closeable {
+    private static final Log LOG = LogFactory.getLog(SpillFile.class);
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    private final CairoConfiguration configuration;
+    private final MemoryCMARW mem = Vm.getCMARWInstance();
+    private boolean isOpen;
+    private Path path;
+
+    public SpillFile(CairoConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            isOpen = false;
+            final FilesFacade ff = configuration.getFilesFacade();
+            mem.close(false);
+            if (!ff.removeQuiet(path.$())) {
+                LOG.error().$("could not remove spill file [path=").$(path).$(", errno=").$(ff.errno()).I$();
+            }
+        }
+        path = Misc.free(path);
+    }
+
+    public boolean isOpen() {
+        return isOpen;
+    }
+
+    /**
+     * Creates an empty spill file and maps it for appending.
+     *
+     * @return memory backed by the file, valid until {@link #close()}
+     */
+    public MemoryCMARW open() {
+        close();
+        final FilesFacade ff = configuration.getFilesFacade();
+        path = new Path();
+        path.of(configuration.getSqlSpillRoot()).slash();
+        TableUtils.createDirsOrFail(ff, path.$(), configuration.getMkDirMode());
+        path.put("spill-").put(Os.getPid()).put('-').put(SEQUENCE.incrementAndGet()).put(".d");
+        mem.of(ff, path.$(), ff.getMapPageSize(), 0, MemoryTag.MMAP_DEFAULT, CairoConfiguration.O_NONE, -1);
+        isOpen = true;
+        LOG.info().$("spilling to disk [path=").$(path).I$();
+        return mem;
+    }
+}
@@ -0,0 +1,216 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.TableReferenceOutOfDateException;
+import io.questdb.std.*;
+
+/**
+ * Tables read by a query, recorded while its cursor is opened and iterated. {@link ResultCache} uses
+ * the set to tell whether a cached result is still up-to-date.
+ * <p>
+ * For every table the set keeps the txn and the versions of the reader that served the query. A table
+ * that was read via interval scans only also keeps the scanned intervals and the partitions that overlap
+ * them: when such a table moves on to a newer txn, the result is still valid as long as none of these
+ * partitions changed, e.g. when rows were appended to the partitions outside the queried interval.
+ * <p>
+ * Queries that depend on the current time or on random values are not repeatable, such queries mark
+ * the set as volatile.
+ */
+public class TableReadSet implements Mutable {
+    private static final int PARTITION_STRIDE = 3;
+    private static final int VERSION_STRIDE = 5;
+    private final IntList intervalScanCounts = new IntList();
+    private final ObjList<LongList> intervals = new ObjList<>();
+    private final ObjList<LongList> partitions = new ObjList<>();
+    private final IntList readerCounts = new IntList();
+    private final ObjList<TableToken> tableTokens = new ObjList<>();
+    // txn, metadata version, column version, truncate version, data version
+    private final LongList versions = new LongList();
+    private boolean volatileResult;
+
+    @Override
+    public void clear() {
+        tableTokens.clear();
+        versions.clear();
+        readerCounts.clear();
+        intervalScanCounts.clear();
+        intervals.clear();
+        partitions.clear();
+        volatileResult = false;
+    }
+
+    /**
+     * Returns true when the query read at least one table, all of its tables at a single txn,
+     * and does not depend on the current time or random values.
+     */
+    public boolean isCacheable() {
+        return !volatileResult && tableTokens.size() > 0;
+    }
+
+    /**
+     * Checks that tables of the set did not change in the way that could change the query result.
+     *
+     * @param engine engine to open table readers from
+     * @return true when the recorded result is still valid
+     */
+    public boolean isValid(CairoEngine engine) {
+        for (int i = 0, n = tableTokens.size(); i < n; i++) {
+            final int base = i * VERSION_STRIDE;
+            try (TableReader reader = engine.getReader(tableTokens.getQuick(i), versions.getQuick(base + 1))) {
+                if (reader.getTxn() == versions.getQuick(base)) {
+                    continue;
+                }
+                final TxReader txFile = reader.getTxFile();
+                if (
+                        intervalScanCounts.getQuick(i) < readerCounts.getQuick(i)
+                                || txFile.getColumnVersion() != versions.getQuick(base + 2)
+                                || txFile.getTruncateVersion() != versions.getQuick(base + 3)
+                                || txFile.getDataVersion() != versions.getQuick(base + 4)
+                                || !isSamePartitions(txFile, intervals.getQuick(i), partitions.getQuick(i))
+                ) {
+                    return false;
+                }
+            } catch (CairoException | TableReferenceOutOfDateException e) {
+                // the table was dropped, renamed or altered
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records an interval scan of the table. Called after the reader of the scan was recorded
+     * via {@link #onReader(TableReader)}.
+     *
+     * @param reader    reader the table is scanned with
+     * @param intervals scanned intervals as pairs of inclusive timestamps
+     */
+    public void onIntervalScan(TableReader reader, LongList intervals) {
+        final int index = indexOf(reader.getTableToken());
+        if (index < 0 || !PartitionBy.isPartitioned(reader.getPartitionedBy())) {
+            // tables without partitions are validated by txn only
+            return;
+        }
+        intervalScanCounts.increment(index);
+        final LongList tableIntervals = this.intervals.getQuick(index);
+        tableIntervals.add(intervals);
+        final LongList tablePartitions = partitions.getQuick(index);
+        tablePartitions.clear();
+        collectPartitions(reader.getTxFile(), tableIntervals, tablePartitions);
+    }
+
+    /**
+     * Records the table reader opened for the query.
+     *
+     * @param reader the reader
+     */
+    public void onReader(TableReader reader) {
+        final TableToken tableToken = reader.getTableToken();
+        final int index = indexOf(tableToken);
+        if (index > -1) {
+            readerCounts.increment(index);
+            if (versions.getQuick(index * VERSION_STRIDE) != reader.getTxn()) {
+                // the table moved on while the query was opening its readers
+                volatileResult = true;
+            }
+            return;
+        }
+        final TxReader txFile = reader.getTxFile();
+        tableTokens.add(tableToken);
+        versions.add(reader.getTxn());
+        versions.add(reader.getMetadataVersion());
+        versions.add(txFile.getColumnVersion());
+        versions.add(txFile.getTruncateVersion());
+        versions.add(txFile.getDataVersion());
+        readerCounts.add(1);
+        intervalScanCounts.add(0);
+        intervals.add(new LongList());
+        partitions.add(new LongList());
+    }
+
+    /**
+     * Marks the result as not repeatable, e.g. when the query reads the current time.
+     */
+    public void onVolatileValue() {
+        volatileResult = true;
+    }
+
+    private static void collectPartitions(TxReader txFile, LongList intervals, LongList sink) {
+        // partition i holds rows in [ts(i), ts(i+1)) regardless of its nominal boundaries
+        for (int i = 0, n = txFile.getPartitionCount(); i < n; i++) {
+            final long lo = txFile.getPartitionTimestampByIndex(i);
+            final long hi = i < n - 1 ? txFile.getPartitionTimestampByIndex(i + 1) : Long.MAX_VALUE;
+            if (overlaps(intervals, lo, hi)) {
+                sink.add(lo);
+                sink.add(txFile.getPartitionNameTxn(i));
+                sink.add(getPartitionSize(txFile, i, n));
+            }
+        }
+    }
+
+    private static long getPartitionSize(TxReader txFile, int partitionIndex, int partitionCount) {
+        return partitionIndex < partitionCount - 1 ? txFile.getPartitionSize(partitionIndex) : txFile.getTransientRowCount();
+    }
+
+    private static boolean isSamePartitions(TxReader txFile, LongList intervals, LongList expected) {
+        int index = 0;
+        for (int i = 0, n = txFile.getPartitionCount(); i < n; i++) {
+            final long lo = txFile.getPartitionTimestampByIndex(i);
+            final long hi = i < n - 1 ? txFile.getPartitionTimestampByIndex(i + 1) : Long.MAX_VALUE;
+            if (overlaps(intervals, lo, hi)) {
+                if (
+                        index + PARTITION_STRIDE > expected.size()
+                                || expected.getQuick(index) != lo
+                                || expected.getQuick(index + 1) != txFile.getPartitionNameTxn(i)
+                                || expected.getQuick(index + 2) != getPartitionSize(txFile, i, n)
+                ) {
+                    return false;
+                }
+                index += PARTITION_STRIDE;
+            }
+        }
+        return index == expected.size();
+    }
+
+    private static boolean overlaps(LongList intervals, long lo, long hi) {
+        for (int i = 0, n = intervals.size(); i < n; i += 2) {
+            if (intervals.getQuick(i) < hi && intervals.getQuick(i + 1) >= lo) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int indexOf(TableToken tableToken) {
+        for (int i = 0, n = tableTokens.size(); i < n; i++) {
+            if (tableTokens.getQuick(i).equals(tableToken)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -74,6 +74,7 @@ public class TableReader implements Closeable, SymbolTableSource {
     private LongList columnTops;
     private ObjList<MemoryMR> columns;
     private int openPartitionCount;
+    private PartitionColumnStats partitionColumnStats;
     private int partitionCount;
     private long rowCount;
     private TableToken tableToken;
@@ -272,6 +273,13 @@ public class TableReader implements Closeable, SymbolTableSource {
         return openPartitionCount;
     }
 
+    public PartitionColumnStats getPartitionColumnStats() {
+        if (partitionColumnStats == null) {
+            partitionColumnStats = new PartitionColumnStats();
+        }
+        return partitionColumnStats;
+    }
+
     public int getPartitionCount() {
         return partitionCount;
     }
@@ -162,10 +162,12 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private final FragileCode RECOVER_FROM_META_RENAME_FAILURE = this::recoverFromMetaRenameFailure;
     private final Row row = new RowImpl();
     private final LongList rowValueIsNotNull = new LongList();
+    private final SharedSymbolCacheRegistry sharedSymbolCacheRegistry;
     private final TxReader slaveTxReader;
     private final DatabaseSnapshotAgent snapshotAgent;
     private final ObjList<MapWriter> symbolMapWriters;
     private final IntList symbolRewriteMap = new IntList();
+    private final LongList tailProbeColumns = new LongList();
     private final MemoryMARW todoMem = Vm.getMARWInstance();
     private final TxWriter txWriter;
     private final TxnScoreboard txnScoreboard;
@@ -252,12 +254,14 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             LifecycleManager lifecycleManager,
             CharSequence root,
             DdlListener ddlListener,
+            SharedSymbolCacheRegistry sharedSymbolCacheRegistry,
             DatabaseSnapshotAgent snapshotAgent,
             Metrics metrics
     ) {
         LOG.info().$("open '").utf8(tableToken.getTableName()).$('\'').$();
         this.configuration = configuration;
         this.ddlListener = ddlListener;
+        this.sharedSymbolCacheRegistry = sharedSymbolCacheRegistry;
         this.snapshotAgent = snapshotAgent;
         this.partitionFrameFactory = new PartitionFrameFactory(configuration);
         this.mixedIOFlag = configuration.isWriterMixedIOEnabled();
@@ -1771,14 +1775,27 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
 
                         final long tsLagBufferAddr = mapAppendColumnBuffer(timestampColumn, tsLagOffset, tsLagSize, false);
                         try {
-                            Vect.radixSortABLongIndexAsc(
-                                    Math.abs(tsLagBufferAddr),
-                                    walLagRowCount,
-                                    mappedTimestampIndexAddr,
-                                    commitRowCount,
-                                    timestampAddr,
-                                    o3TimestampMemCpy.addressOf(0)
-                            );
+                            if (ordered && txWriter.isLagOrdered()) {
+                                // both lag and the transaction are sorted, e.g. when WAL writer
+                                // sorted the transaction on commit, merge them in one pass
+                                Vect.mergeTwoLongIndexesAsc(
+                                        Math.abs(tsLagBufferAddr),
+                                        0,
+                                        walLagRowCount,
+                                        mappedTimestampIndexAddr,
+                                        commitRowCount,
+                                        timestampAddr
+                                );
+                            } else {
+                                Vect.radixSortABLongIndexAsc(
+                                        Math.abs(tsLagBufferAddr),
+                                        walLagRowCount,
+                                        mappedTimestampIndexAddr,
+                                        commitRowCount,
+                                        timestampAddr,
+                                        o3TimestampMemCpy.addressOf(0)
+                                );
+                            }
                         } finally {
                             mapAppendColumnBufferRelease(tsLagBufferAddr, tsLagOffset, tsLagSize);
                         }
@@ -1804,10 +1821,35 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                             timestampAddr = dedupTimestampAddr;
                             totalUncommitted = deduplicatedRowCount;
                         }
+
+                        if (configuration.isWalDedupTailProbeEnabled()) {
+                            final long survivedRowCount = dropTailDuplicates(timestampAddr, totalUncommitted, walLagRowCount, rowLo);
+                            if (survivedRowCount > -1) {
+                                // Some rows are copies of the partition tail, commit the rest only
+                                needsOrdering = true;
+                                timestampAddr = o3TimestampMem.getAddress();
+                                totalUncommitted = survivedRowCount;
+                                if (survivedRowCount > 0) {
+                                    txWriter.setLagMinTimestamp(Unsafe.getUnsafe().getLong(timestampAddr));
+                                    txWriter.setLagMaxTimestamp(Unsafe.getUnsafe().getLong(timestampAddr + ((survivedRowCount - 1) << 4)));
+                                } else {
+                                    txWriter.setLagMinTimestamp(Long.MAX_VALUE);
+                                    txWriter.setLagMaxTimestamp(Long.MIN_VALUE);
+                                }
+                            }
+                        }
                     }
                 }
 
-                if (needsOrdering) {
+                if (needsOrdering && totalUncommitted == 0) {
+                    // All rows, including the lag, are already in the table. Lag rows
+                    // sit past the transient row count, move append position back over them.
+                    setAppendPosition(txWriter.getTransientRowCount(), false);
+                    o3Hi = 0L;
+                    o3Lo = 0L;
+                    walLagRowCount = 0L;
+                    copiedToMemory = true;
+                } else if (needsOrdering) {
                     dispatchColumnTasks(timestampAddr, totalUncommitted, walLagRowCount, rowLo, rowHi, cthMergeWalColumnWithLag);
                     swapO3ColumnsExcept(timestampIndex);
 
@@ -1984,6 +2026,9 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
 
         // remove symbol map writer or entry for such
         removeSymbolMapWriter(index);
+        if (ColumnType.isSymbol(type)) {
+            sharedSymbolCacheRegistry.remove(tableToken, index);
+        }
 
         // reset timestamp limits
         if (timestamp) {
@@ -4370,6 +4415,109 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         return true;
     }
 
+    /**
+     * Drops entries of the sorted and deduplicated commit index that are exact copies of rows stored in the
+     * last partition, e.g. rows replayed by a reconnecting client. Only the entries with timestamps up to the
+     * table max timestamp can be copies, they form a prefix of the index. Both the prefix and the partition
+     * tail are sorted, so they are merge-walked, and every column value is compared for equal timestamps.
+     * Surviving entries are written to o3TimestampMem, which may also be the source index.
+     *
+     * @return number of surviving index entries or -1 when nothing is dropped and the index is left as is
+     */
+    private long dropTailDuplicates(long indexAddr, long indexRowCount, long lagRowCount, long walRowLo) {
+        final long transientRowCount = txWriter.getTransientRowCount();
+        final long maxTimestamp = txWriter.getMaxTimestamp();
+        final long firstTimestamp = Unsafe.getUnsafe().getLong(indexAddr);
+        if (transientRowCount == 0 || firstTimestamp > maxTimestamp || firstTimestamp < lastPartitionTimestamp || isLastPartitionClosed()) {
+            return -1;
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (columnType > 0 && (ColumnType.isVarSize(columnType) || getColumnTop(i) > 0)) {
+                // Var-size columns and column tops need offset lookups, leave such tables to the O3 merge
+                return -1;
+            }
+        }
+
+        final long probeRowCount = Vect.boundedBinarySearchIndexT(indexAddr, maxTimestamp, 0, indexRowCount - 1, BinarySearch.SCAN_DOWN) + 1;
+        final int timestampIndex = metadata.getTimestampIndex();
+        final long mappedRowCount = transientRowCount + lagRowCount;
+        final long tsMapSize = mappedRowCount << 3;
+        final long tsAddr = mapAppendColumnBuffer(columns.get(getPrimaryColumnIndex(timestampIndex)), 0, tsMapSize, false);
+        try {
+            final long tsBase = Math.abs(tsAddr);
+            long tailRowLo = Vect.binarySearch64Bit(tsBase, firstTimestamp, 0, transientRowCount - 1, BinarySearch.SCAN_UP);
+            if (tailRowLo < 0) {
+                tailRowLo = -tailRowLo - 1;
+            }
+            if (tailRowLo == transientRowCount) {
+                return -1;
+            }
+
+            for (int i = 0; i < columnCount; i++) {
+                final int columnType = metadata.getColumnType(i);
+                if (columnType > 0 && i != timestampIndex) {
+                    final int primaryIndex = getPrimaryColumnIndex(i);
+                    final int shl = ColumnType.pow2SizeOf(columnType);
+                    final long mapOffset = tailRowLo << shl;
+                    final MemoryCR walColumn = o3Columns.get(primaryIndex);
+                    tailProbeColumns.add(
+                            shl,
+                            mapOffset,
+                            mapAppendColumnBuffer(columns.get(primaryIndex), mapOffset, (mappedRowCount - tailRowLo) << shl, false),
+                            walColumn.addressOf(walRowLo << shl) - (walRowLo << shl)
+                    );
+                }
+            }
+
+            final long dstAddr = o3TimestampMem.getAddress();
+            long tailRow = tailRowLo;
+            long survivedRowCount = 0;
+            for (long i = 0; i < probeRowCount; i++) {
+                final long entryAddr = indexAddr + (i << 4);
+                final long timestamp = Unsafe.getUnsafe().getLong(entryAddr);
+                final long row = Unsafe.getUnsafe().getLong(entryAddr + Long.BYTES);
+                while (tailRow < transientRowCount && Unsafe.getUnsafe().getLong(tsBase + (tailRow << 3)) < timestamp) {
+                    tailRow++;
+                }
+
+                boolean duplicate = false;
+                for (long r = tailRow; r < transientRowCount && Unsafe.getUnsafe().getLong(tsBase + (r << 3)) == timestamp; r++) {
+                    if (isTailRowEqual(r - tailRowLo, row, transientRowCount - tailRowLo)) {
+                        duplicate = true;
+                        break;
+                    }
+                }
+
+                if (!duplicate) {
+                    final long survivorAddr = dstAddr + (survivedRowCount++ << 4);
+                    Unsafe.getUnsafe().putLong(survivorAddr, timestamp);
+                    Unsafe.getUnsafe().putLong(survivorAddr + Long.BYTES, row);
+                }
+            }
+
+            final long droppedRowCount = probeRowCount - survivedRowCount;
+            if (droppedRowCount == 0) {
+                return -1;
+            }
+            Vect.memmove(dstAddr + (survivedRowCount << 4), indexAddr + (probeRowCount << 4), (indexRowCount - probeRowCount) << 4);
+            LOG.info().$("dropped rows already in partition tail [table=").$(tableToken)
+                    .$(", rows=").$(droppedRowCount)
+                    .$(", of=").$(indexRowCount)
+                    .I$();
+            return indexRowCount - droppedRowCount;
+        } finally {
+            for (int i = 0, n = tailProbeColumns.size(); i < n; i += 4) {
+                final long mapOffset = tailProbeColumns.getQuick(i + 1);
+                final long mapSize = (mappedRowCount << tailProbeColumns.getQuick(i)) - mapOffset;
+                mapAppendColumnBufferRelease(tailProbeColumns.getQuick(i + 2), mapOffset, mapSize);
+            }
+            tailProbeColumns.clear();
+            mapAppendColumnBufferRelease(tsAddr, 0, tsMapSize);
+        }
+    }
+
     private long findMinSplitPartitionTimestamp() {
         for (int i = 0, n = txWriter.getPartitionCount(); i < n; i++) {
             long partitionTimestamp = txWriter.getPartitionTimestampByIndex(i);
@@ -4746,6 +4894,21 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         return false;
     }
 
+    private boolean isTailRowEqual(long tailRow, long indexRow, long lagRowLo) {
+        for (int i = 0, n = tailProbeColumns.size(); i < n; i += 4) {
+            final int shl = (int) tailProbeColumns.getQuick(i);
+            final long tailAddr = Math.abs(tailProbeColumns.getQuick(i + 2));
+            final long rowAddr = indexRow < 0
+                    // lag row, stored in the partition past the transient row count
+                    ? tailAddr + ((lagRowLo + (indexRow & ~(1L << 63))) << shl)
+                    : tailProbeColumns.getQuick(i + 3) + (indexRow << shl);
+            if (!Vect.memeq(tailAddr + (tailRow << shl), rowAddr, 1L << shl)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void lock() {
         try {
             path.trimTo(rootLen);
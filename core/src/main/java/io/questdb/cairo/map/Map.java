@@ -48,6 +48,11 @@ public interface Map extends Mutable, Closeable, Reopenable {
     @TestOnly
     int getKeyCapacity();
 
+    /**
+     * Returns the amount of native memory allocated by the map in bytes.
+     */
+    long getMemoryUsed();
+
     MapRecord getRecord();
 
     /**
@@ -250,6 +250,38 @@ public class OrderedMap implements Map, Reopenable {
         }
     }
 
+    /**
+     * Looks up a committed key written by another map with the same key types, e.g. a per-thread
+     * scratch map. Unlike {@link MapKey#findValue()}, this method doesn't touch the key and value
+     * flyweights of this map, so multiple threads may call it concurrently as long as the map
+     * is no longer modified.
+     *
+     * @param srcKey   committed key of an ordered map with the same key types
+     * @param hashCode hash code of the key
+     * @return address of the value block or 0 when the key is not found
+     */
+    public long findValueAddress(MapKey srcKey, long hashCode) {
+        final long srcAddress = ((Key) srcKey).startAddress;
+        final int hashCodeLo = Numbers.decodeLowInt(hashCode);
+        int index = hashCodeLo & mask;
+        long offset;
+        while ((offset = getOffset(offsets, index)) > -1) {
+            if (hashCodeLo == getHashCodeLo(offsets, index)) {
+                final long startAddress = heapStart + offset;
+                if (keySize == -1) {
+                    final int len = Unsafe.getUnsafe().getInt(startAddress);
+                    if (len == Unsafe.getUnsafe().getInt(srcAddress) && Vect.memeq(startAddress + keyOffset, srcAddress + keyOffset, len)) {
+                        return startAddress + keyOffset + len;
+                    }
+                } else if (Vect.memeq(startAddress, srcAddress, keySize)) {
+                    return startAddress + keyOffset + keySize;
+                }
+            }
+            index = (index + 1) & mask;
+        }
+        return 0;
+    }
+
     public long getAppendOffset() {
         return kPos;
     }
@@ -269,6 +301,11 @@ public class OrderedMap implements Map, Reopenable {
         return keyCapacity;
     }
 
+    @Override
+    public long getMemoryUsed() {
+        return (heapLimit - heapStart) + offsets.getCapacity() * Integer.BYTES;
+    }
+
     @Override
     public MapRecord getRecord() {
         return record;
@@ -214,6 +214,11 @@ public class Unordered16Map implements Map, Reopenable {
         return keyCapacity;
     }
 
+    @Override
+    public long getMemoryUsed() {
+        return memLimit - memStart;
+    }
+
     @Override
     public MapRecord getRecord() {
         return record;
@@ -159,6 +159,11 @@ public class Unordered2Map implements Map, Reopenable {
         return TABLE_SIZE;
     }
 
+    @Override
+    public long getMemoryUsed() {
+        return memLimit - memStart;
+    }
+
     @Override
     public MapRecord getRecord() {
         return record;
@@ -212,6 +212,11 @@ public class Unordered4Map implements Map, Reopenable {
         return keyCapacity;
     }
 
+    @Override
+    public long getMemoryUsed() {
+        return memLimit - memStart;
+    }
+
     @Override
     public MapRecord getRecord() {
         return record;
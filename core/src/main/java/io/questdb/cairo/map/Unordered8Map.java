@@ -213,6 +213,11 @@ public class Unordered8Map implements Map, Reopenable {
         return keyCapacity;
     }
 
+    @Override
+    public long getMemoryUsed() {
+        return memLimit - memStart;
+    }
+
     @Override
     public MapRecord getRecord() {
         return record;
@@ -0,0 +1,280 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.mv;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.cairo.vm.api.MemoryMA;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.groupby.TimestampSampler;
+import io.questdb.griffin.engine.groupby.TimestampSamplerFactory;
+import io.questdb.std.Chars;
+import io.questdb.std.Numbers;
+import io.questdb.std.NumericException;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.str.CharSink;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Definition of a materialized view over a single WAL table, the view query being
+ * a SAMPLE BY aligned to calendar. Besides the persisted definition it tracks the
+ * timestamp range of base table commits that the view is yet to catch up with.
+ * <p>
+ * Incremental refresh re-runs the view query with the base table reference replaced
+ * by a timestamp-filtered sub-query. The range is widened to whole sample buckets,
+ * so that recomputed buckets replace the old ones via the view's dedup keys.
+ */
+public class MatViewDefinition {
+    public static final String MAT_VIEW_FILE_NAME = "_mv";
+    private final String baseTableName;
+    private final boolean baseTableAliased;
+    private final String query;
+    private final TimestampSampler sampler;
+    private final String samplingInterval;
+    private final char samplingUnit;
+    private final int stride;
+    private final int tableHi;
+    private final int tableLo;
+    private volatile boolean invalid;
+    private long pendingHi = Long.MIN_VALUE;
+    private long pendingLo = Long.MAX_VALUE;
+    private long pendingSeqTxn = -1;
+    private long polledHi;
+    private long polledLo;
+    private long refreshRetryDelay;
+    private long refreshRetryTime;
+    private volatile TableToken viewToken;
+
+    public MatViewDefinition(
+            @NotNull String baseTableName,
+            boolean baseTableAliased,
+            @NotNull String samplingInterval,
+            @NotNull String query,
+            int tableLo,
+            int tableHi
+    ) throws SqlException {
+        this.baseTableName = baseTableName;
+        this.baseTableAliased = baseTableAliased;
+        this.samplingInterval = samplingInterval;
+        this.query = query;
+        this.tableLo = tableLo;
+        this.tableHi = tableHi;
+        this.sampler = TimestampSamplerFactory.getInstance(samplingInterval, 0);
+        final int len = samplingInterval.length();
+        this.samplingUnit = samplingInterval.charAt(len - 1);
+        int stride = 1;
+        if (len > 1) {
+            try {
+                stride = Numbers.parseInt(samplingInterval, 0, len - 1);
+            } catch (NumericException e) {
+                throw SqlException.$(0, "invalid sampling interval [interval=").put(samplingInterval).put(']');
+            }
+        }
+        this.stride = stride;
+    }
+
+    /**
+     * Reads the definition from memory mapped {@link #MAT_VIEW_FILE_NAME} file of the view.
+     */
+    public static MatViewDefinition read(MemoryCMR mem) throws SqlException {
+        long offset = 0;
+        final String baseTableName = Chars.toString(mem.getStrA(offset));
+        offset += Vm.getStorageLength(baseTableName);
+        final String samplingInterval = Chars.toString(mem.getStrA(offset));
+        offset += Vm.getStorageLength(samplingInterval);
+        final String query = Chars.toString(mem.getStrA(offset));
+        offset += Vm.getStorageLength(query);
+        final int tableLo = mem.getInt(offset);
+        offset += Integer.BYTES;
+        final int tableHi = mem.getInt(offset);
+        offset += Integer.BYTES;
+        final boolean baseTableAliased = mem.getBool(offset);
+        if (baseTableName == null || samplingInterval == null || query == null || tableLo < 0 || tableHi > query.length() || tableLo >= tableHi) {
+            throw CairoException.critical(0).put("corrupt materialized view definition");
+        }
+        return new MatViewDefinition(baseTableName, baseTableAliased, samplingInterval, query, tableLo, tableHi);
+    }
+
+    /**
+     * Appends the view query restricted to base table rows in the given timestamp range.
+     * Range bounds must be bucket aligned, see {@link #floor(long)}.
+     */
+    public void appendRefreshQuery(CharSink<?> sink, CharSequence timestampColumn, long lo, long hi) {
+        sink.put(query, 0, tableLo);
+        sink.put("(select * from \"").put(baseTableName).put("\" where \"").put(timestampColumn)
+                .put("\" >= '").putISODate(lo).put("' and \"").put(timestampColumn)
+                .put("\" < '").putISODate(hi).put("')");
+        if (!baseTableAliased) {
+            sink.put(" \"").put(baseTableName).put('"');
+        }
+        sink.put(query, tableHi, query.length());
+    }
+
+    /**
+     * Returns start of the calendar aligned bucket the timestamp belongs to. This matches
+     * timestamp_floor() used by the SAMPLE BY ... ALIGN TO CALENDAR execution.
+     */
+    public long floor(long timestamp) {
+        switch (samplingUnit) {
+            case 'M':
+                return Timestamps.floorMM(timestamp, stride);
+            case 'y':
+                return Timestamps.floorYYYY(timestamp, stride);
+            case 'w':
+                return Timestamps.floorWW(timestamp, stride);
+            case 'd':
+                return Timestamps.floorDD(timestamp, stride);
+            case 'h':
+                return Timestamps.floorHH(timestamp, stride);
+            case 'm':
+                return Timestamps.floorMI(timestamp, stride);
+            case 's':
+                return Timestamps.floorSS(timestamp, stride);
+            case 'T':
+                return Timestamps.floorMS(timestamp, stride);
+            default:
+                return Timestamps.floorMC(timestamp, stride);
+        }
+    }
+
+    public String getBaseTableName() {
+        return baseTableName;
+    }
+
+    public long getPolledHi() {
+        return polledHi;
+    }
+
+    public long getPolledLo() {
+        return polledLo;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * @return time before which the failed refresh must not be retried, 0 when the last refresh succeeded
+     */
+    public long getRefreshRetryTime() {
+        return refreshRetryTime;
+    }
+
+    public String getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    public @Nullable TableToken getViewToken() {
+        return viewToken;
+    }
+
+    public synchronized boolean hasPendingRefresh() {
+        return pendingLo <= pendingHi;
+    }
+
+    public void invalidate() {
+        invalid = true;
+    }
+
+    public boolean isInvalid() {
+        return invalid;
+    }
+
+    /**
+     * Returns end of the bucket that contains the given timestamp, exclusive.
+     */
+    public long nextBucket(long timestamp) {
+        return sampler.nextTimestamp(floor(timestamp));
+    }
+
+    /**
+     * Accumulates the range of base table timestamps touched by a transaction.
+     *
+     * @param lo     min timestamp, inclusive
+     * @param hi     max timestamp, inclusive
+     * @param seqTxn base table transaction, refresh waits for it to become readable
+     */
+    public synchronized void notifyRefresh(long lo, long hi, long seqTxn) {
+        pendingLo = Math.min(pendingLo, lo);
+        pendingHi = Math.max(pendingHi, hi);
+        pendingSeqTxn = Math.max(pendingSeqTxn, seqTxn);
+    }
+
+    /**
+     * Moves the pending range to polled range, provided base table readers can see all
+     * transactions the range was accumulated from.
+     *
+     * @param readableSeqTxn last transaction of the base table visible to readers
+     * @return true when there is a range to refresh, see {@link #getPolledLo()} and {@link #getPolledHi()}
+     */
+    public synchronized boolean pollRefresh(long readableSeqTxn) {
+        if (pendingLo > pendingHi || readableSeqTxn < pendingSeqTxn) {
+            return false;
+        }
+        polledLo = pendingLo;
+        polledHi = pendingHi;
+        pendingLo = Long.MAX_VALUE;
+        pendingHi = Long.MIN_VALUE;
+        pendingSeqTxn = -1;
+        return true;
+    }
+
+    public void refreshSucceeded() {
+        refreshRetryDelay = 0;
+        refreshRetryTime = 0;
+    }
+
+    /**
+     * Puts the polled range back to pending after a failed refresh, so that it is refreshed
+     * together with base table commits notified in the meantime. The retry delay doubles
+     * on every consecutive failure.
+     *
+     * @param now      current time, micros
+     * @param minDelay delay after the first failure, micros
+     * @param maxDelay upper bound of the delay, micros
+     */
+    public synchronized void retryRefresh(long now, long minDelay, long maxDelay) {
+        pendingLo = Math.min(pendingLo, polledLo);
+        pendingHi = Math.max(pendingHi, polledHi);
+        refreshRetryDelay = refreshRetryDelay == 0 ? minDelay : Math.min(refreshRetryDelay * 2, maxDelay);
+        refreshRetryTime = now + refreshRetryDelay;
+    }
+
+    public void setViewToken(TableToken viewToken) {
+        this.viewToken = viewToken;
+    }
+
+    public void write(MemoryMA mem) {
+        mem.putStr(baseTableName);
+        mem.putStr(samplingInterval);
+        mem.putStr(query);
+        mem.putInt(tableLo);
+        mem.putInt(tableHi);
+        mem.putBool(baseTableAliased);
+    }
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.mv;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+import org.jetbrains.annotations.TestOnly;
+
+/**
+ * Registry of materialized views keyed by base table name. WAL apply reports base table
+ * commits here, the refresh job picks up views with pending ranges.
+ */
+public class MatViewGraph {
+    private static final Log LOG = LogFactory.getLog(MatViewGraph.class);
+    private final LowerCaseCharSequenceObjHashMap<ObjList<MatViewDefinition>> viewsByBaseTable = new LowerCaseCharSequenceObjHashMap<>();
+    private final ObjList<MatViewDefinition> views = new ObjList<>();
+    private volatile int viewCount;
+
+    public synchronized void addView(MatViewDefinition viewDefinition) {
+        ObjList<MatViewDefinition> list = viewsByBaseTable.get(viewDefinition.getBaseTableName());
+        if (list == null) {
+            list = new ObjList<>();
+            viewsByBaseTable.put(viewDefinition.getBaseTableName(), list);
+        }
+        list.add(viewDefinition);
+        views.add(viewDefinition);
+        viewCount = views.size();
+    }
+
+    @TestOnly
+    public synchronized void clear() {
+        viewsByBaseTable.clear();
+        views.clear();
+        viewCount = 0;
+    }
+
+    /**
+     * Removes the view when the dropped table is a view, views of a dropped base table
+     * become invalid.
+     */
+    public synchronized void dropTable(TableToken tableToken) {
+        for (int i = views.size() - 1; i > -1; i--) {
+            final MatViewDefinition viewDefinition = views.getQuick(i);
+            if (tableToken.equals(viewDefinition.getViewToken())) {
+                removeView(viewDefinition);
+            } else if (Chars.equalsIgnoreCase(viewDefinition.getBaseTableName(), tableToken.getTableName())) {
+                viewDefinition.invalidate();
+            }
+        }
+    }
+
+    public synchronized void getViews(ObjList<MatViewDefinition> sink) {
+        sink.addAll(views);
+    }
+
+    /**
+     * Picks up views persisted in table directories, they are fully refreshed on the first
+     * refresh job run.
+     */
+    public void load(CairoConfiguration configuration, ObjHashSet<TableToken> tableTokens) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        try (MemoryCMR mem = Vm.getCMRInstance()) {
+            final Path path = Path.getThreadLocal(configuration.getRoot());
+            final int rootLen = path.size();
+            for (int i = 0, n = tableTokens.size(); i < n; i++) {
+                final TableToken tableToken = tableTokens.get(i);
+                if (!tableToken.isWal()) {
+                    continue;
+                }
+                path.trimTo(rootLen).concat(tableToken).concat(MatViewDefinition.MAT_VIEW_FILE_NAME).$();
+                if (!ff.exists(path)) {
+                    continue;
+                }
+                try {
+                    final long len = ff.length(path);
+                    mem.of(ff, path, len, len, MemoryTag.MMAP_DEFAULT);
+                    final MatViewDefinition viewDefinition = MatViewDefinition.read(mem);
+                    viewDefinition.setViewToken(tableToken);
+                    viewDefinition.notifyRefresh(Long.MIN_VALUE, Long.MAX_VALUE, -1);
+                    addView(viewDefinition);
+                } catch (Throwable th) {
+                    LOG.error().$("could not load materialized view [view=").$(tableToken).$(", error=").$(th).I$();
+                }
+            }
+        }
+    }
+
+    /**
+     * Called by WAL apply for every base table transaction.
+     *
+     * @param lo min timestamp of the transaction, Long.MIN_VALUE to refresh views fully
+     * @param hi max timestamp of the transaction, Long.MAX_VALUE to refresh views fully
+     */
+    public void notifyBaseTableCommit(TableToken baseTableToken, long lo, long hi, long seqTxn) {
+        if (viewCount == 0) {
+            return;
+        }
+        synchronized (this) {
+            final ObjList<MatViewDefinition> list = viewsByBaseTable.get(baseTableToken.getTableName());
+            if (list != null) {
+                for (int i = 0, n = list.size(); i < n; i++) {
+                    list.getQuick(i).notifyRefresh(lo, hi, seqTxn);
+                }
+            }
+        }
+    }
+
+    public synchronized void removeView(MatViewDefinition viewDefinition) {
+        final ObjList<MatViewDefinition> list = viewsByBaseTable.get(viewDefinition.getBaseTableName());
+        if (list != null) {
+            list.remove(viewDefinition);
+            if (list.size() == 0) {
+                viewsByBaseTable.remove(viewDefinition.getBaseTableName());
+            }
+        }
+        views.remove(viewDefinition);
+        viewCount = views.size();
+    }
+}
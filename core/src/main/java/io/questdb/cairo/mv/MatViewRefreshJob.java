@@ -0,0 +1,204 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.mv;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.wal.WalWriter;
+import io.questdb.griffin.RecordToRowCopier;
+import io.questdb.griffin.RecordToRowCopierUtils;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Brings materialized views up to date with their base tables. For every view with
+ * pending base table commits the view query is re-run over the affected buckets and
+ * the result is written to the view through WAL, dedup keys replace the old buckets.
+ * <p>
+ * A view becomes invalid only when its query no longer compiles against the base table,
+ * or when the base table is gone. Any other refresh failure, e.g. an I/O error or
+ * a timeout, puts the range back and retries it with exponential back-off.
+ */
+public class MatViewRefreshJob extends SynchronizedJob implements Closeable {
+    private static final long RETRY_DELAY_MAX = 60_000_000L;
+    private static final long RETRY_DELAY_MIN = 1_000_000L;
+    private static final Log LOG = LogFactory.getLog(MatViewRefreshJob.class);
+    private final BytecodeAssembler asm = new BytecodeAssembler();
+    private final MicrosecondClock clock;
+    private final EntityColumnFilter columnFilter = new EntityColumnFilter();
+    private final CairoEngine engine;
+    private final StringSink sql = new StringSink();
+    private final ObjList<MatViewDefinition> views = new ObjList<>();
+    private SqlExecutionContextImpl executionContext;
+
+    public MatViewRefreshJob(CairoEngine engine) {
+        this.engine = engine;
+        this.clock = engine.getConfiguration().getMicrosecondClock();
+        this.executionContext = new SqlExecutionContextImpl(engine, 1);
+        this.executionContext.with(
+                engine.getConfiguration().getFactoryProvider().getSecurityContextFactory().getRootContext(),
+                null,
+                null
+        );
+    }
+
+    @Override
+    public void close() {
+        executionContext = Misc.free(executionContext);
+    }
+
+    @Override
+    protected boolean runSerially() {
+        views.clear();
+        engine.getMatViewGraph().getViews(views);
+        boolean useful = false;
+        for (int i = 0, n = views.size(); i < n; i++) {
+            useful |= refreshView(views.getQuick(i));
+        }
+        return useful;
+    }
+
+    private void invalidate(MatViewDefinition viewDefinition, TableToken viewToken, Throwable th) {
+        LOG.error().$("could not refresh materialized view, view is invalid [view=").$(viewToken)
+                .$(", error=").$(th).I$();
+        viewDefinition.invalidate();
+    }
+
+    private boolean refreshView(MatViewDefinition viewDefinition) {
+        final TableToken viewToken = viewDefinition.getViewToken();
+        if (viewToken == null || viewDefinition.isInvalid() || !viewDefinition.hasPendingRefresh()) {
+            return false;
+        }
+
+        final long now = clock.getTicks();
+        if (now < viewDefinition.getRefreshRetryTime()) {
+            return false;
+        }
+
+        final TableToken baseTableToken = engine.getTableTokenIfExists(viewDefinition.getBaseTableName());
+        if (baseTableToken == null) {
+            LOG.error().$("base table does not exist, materialized view is invalid [view=").$(viewToken)
+                    .$(", baseTable=").$(viewDefinition.getBaseTableName()).I$();
+            viewDefinition.invalidate();
+            return false;
+        }
+
+        final String timestampColumn;
+        try (TableReader reader = engine.getReader(baseTableToken)) {
+            // incomplete refresh ranges are refreshed on the next run
+            if (!viewDefinition.pollRefresh(reader.getTxFile().getSeqTxn())) {
+                return false;
+            }
+            final TableReaderMetadata metadata = reader.getMetadata();
+            timestampColumn = metadata.getColumnName(metadata.getTimestampIndex());
+        } catch (CairoException e) {
+            LOG.error().$("could not read base table [view=").$(viewToken).$(", error=").$(e.getFlyweightMessage()).I$();
+            return false;
+        }
+
+        final long lo = viewDefinition.getPolledLo();
+        final long hi = viewDefinition.getPolledHi();
+        final boolean fullRefresh = lo == Long.MIN_VALUE || hi == Long.MAX_VALUE;
+        sql.clear();
+        if (fullRefresh) {
+            sql.put(viewDefinition.getQuery());
+        } else {
+            viewDefinition.appendRefreshQuery(sql, timestampColumn, viewDefinition.floor(lo), viewDefinition.nextBucket(hi));
+        }
+
+        try (
+                SqlCompiler compiler = engine.getSqlCompiler();
+                WalWriter walWriter = engine.getWalWriter(viewToken)
+        ) {
+            long rowCount = 0;
+            try (
+                    RecordCursorFactory factory = compiler.compile(sql, executionContext).getRecordCursorFactory();
+                    RecordCursor cursor = factory.getCursor(executionContext)
+            ) {
+                final RecordMetadata writerMetadata = walWriter.getMetadata();
+                final int timestampIndex = writerMetadata.getTimestampIndex();
+                columnFilter.of(writerMetadata.getColumnCount());
+                final RecordToRowCopier copier = RecordToRowCopierUtils.generateCopier(
+                        asm,
+                        factory.getMetadata(),
+                        writerMetadata,
+                        columnFilter
+                );
+                final Record record = cursor.getRecord();
+                while (cursor.hasNext()) {
+                    final TableWriter.Row row = walWriter.newRow(record.getTimestamp(timestampIndex));
+                    copier.copy(record, row);
+                    row.append();
+                    rowCount++;
+                }
+            }
+            if (fullRefresh) {
+                // the new result is written, but not committed yet, so that a failed query
+                // rolls it back and leaves the old view data in place
+                walWriter.truncateSoft();
+            }
+            walWriter.commit();
+            viewDefinition.refreshSucceeded();
+            LOG.info().$("refreshed materialized view [view=").$(viewToken)
+                    .$(", from=").$ts(fullRefresh ? Long.MIN_VALUE : lo)
+                    .$(", to=").$ts(fullRefresh ? Long.MAX_VALUE : hi)
+                    .$(", rows=").$(rowCount)
+                    .I$();
+        } catch (SqlException e) {
+            // the query does not compile against the current base table schema
+            invalidate(viewDefinition, viewToken, e);
+        } catch (CairoException e) {
+            if (e.isTableDropped()) {
+                invalidate(viewDefinition, viewToken, e);
+            } else {
+                retry(viewDefinition, viewToken, now, e);
+            }
+        } catch (Throwable th) {
+            retry(viewDefinition, viewToken, now, th);
+        }
+        return true;
+    }
+
+    private void retry(MatViewDefinition viewDefinition, TableToken viewToken, long now, Throwable th) {
+        viewDefinition.retryRefresh(now, RETRY_DELAY_MIN, RETRY_DELAY_MAX);
+        LOG.error().$("could not refresh materialized view, will retry [view=").$(viewToken)
+                .$(", retryAt=").$ts(viewDefinition.getRefreshRetryTime())
+                .$(", error=").$(th).I$();
+    }
+}
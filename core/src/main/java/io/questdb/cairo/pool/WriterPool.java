@@ -277,6 +277,7 @@ public class WriterPool extends AbstractPool {
                         e,
                         root,
                         engine.getDdlListener(tableToken),
+                        engine.getSharedSymbolCacheRegistry(),
                         engine.getSnapshotAgent(),
                         engine.getMetrics()
                 );
@@ -397,6 +398,7 @@ public class WriterPool extends AbstractPool {
                     e,
                     root,
                     engine.getDdlListener(tableToken),
+                    engine.getSharedSymbolCacheRegistry(),
                     engine.getSnapshotAgent(),
                     engine.getMetrics()
             );
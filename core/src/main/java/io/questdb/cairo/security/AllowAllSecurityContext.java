@@ -93,6 +93,10 @@ public class AllowAllSecurityContext implements SecurityContext {
     public void authorizeCopyCancel(SecurityContext cancellingSecurityContext) {
     }
 
+    @Override
+    public void authorizeCopyExport() {
+    }
+
     @Override
     public void authorizeDatabaseSnapshot() {
     }
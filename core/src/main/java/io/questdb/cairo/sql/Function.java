@@ -25,6 +25,7 @@
 package io.questdb.cairo.sql;
 
 import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableReadSet;
 import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.Plannable;
 import io.questdb.griffin.SqlException;
@@ -168,6 +169,16 @@ public interface Function extends Closeable, StatefulAtom, Plannable {
 
     int getType();
 
+    @Override
+    default void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        if (isVolatile()) {
+            final TableReadSet readSet = executionContext.getTableReadSet();
+            if (readSet != null) {
+                readSet.onVolatileValue();
+            }
+        }
+    }
+
     default boolean isConstant() {
         return false;
     }
@@ -205,6 +216,19 @@ public interface Function extends Closeable, StatefulAtom, Plannable {
         return getType() == ColumnType.UNDEFINED;
     }
 
+    /**
+     * Returns true if the function may return different values each time the query runs, even
+     * though the tables read by the query do not change, e.g. the current time. The flag is checked
+     * when the function is initialized, so that results of such queries are not cached, see
+     * {@link io.questdb.cairo.ResultCache}. Functions that override {@link #init(SymbolTableSource, SqlExecutionContext)}
+     * have to call the default implementation.
+     *
+     * @return true if the function is volatile
+     */
+    default boolean isVolatile() {
+        return false;
+    }
+
     /**
      * Returns true if the function supports parallel execution, e.g. parallel filter
      * or GROUP BY. If the method returns false, single-threaded execution plan
@@ -402,6 +402,12 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
                                 dataInfo,
                                 seqTxn
                         );
+                        engine.getMatViewGraph().notifyBaseTableCommit(
+                                writer.getTableToken(),
+                                dataInfo.getMinTimestamp(),
+                                dataInfo.getMaxTimestamp(),
+                                seqTxn
+                        );
                         final long latency = microClock.getTicks() - start;
                         long physicalRowCount = writer.getPhysicallyWrittenRowsSinceLastCommit();
                         metrics.addApplyRowsWritten(rowCount, physicalRowCount, latency);
@@ -417,6 +423,8 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
                     final long start = microClock.getTicks();
                     walTelemetryFacade.store(WAL_TXN_APPLY_START, writer.getTableToken(), walId, seqTxn, -1L, -1L, start - commitTimestamp);
                     final long rowsAffected = processWalSql(writer, sqlInfo, operationExecutor, seqTxn);
+                    // updates and partition level changes can touch any bucket of materialized views
+                    engine.getMatViewGraph().notifyBaseTableCommit(writer.getTableToken(), Long.MIN_VALUE, Long.MAX_VALUE, seqTxn);
                     walTelemetryFacade.store(WAL_TXN_SQL_APPLIED, writer.getTableToken(), walId, seqTxn, -1L, -1L, microClock.getTicks() - start);
                     return rowsAffected;
                 case TRUNCATE:
@@ -427,6 +435,7 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
                         // force mark the transaction as applied
                         writer.markSeqTxnCommitted(seqTxn);
                     }
+                    engine.getMatViewGraph().notifyBaseTableCommit(writer.getTableToken(), Long.MIN_VALUE, Long.MAX_VALUE, seqTxn);
                     return -1L;
                 default:
                     throw new UnsupportedOperationException("Unsupported WAL txn type: " + walTxnType);
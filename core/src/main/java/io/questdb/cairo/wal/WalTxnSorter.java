@@ -0,0 +1,199 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ColumnTypeDriver;
+import io.questdb.cairo.CommitMode;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.cairo.vm.api.MemoryMA;
+import io.questdb.std.*;
+
+/**
+ * Physically sorts rows of an out-of-order WAL transaction by designated timestamp. This
+ * runs on the ingesting thread at commit time, so that WAL apply finds the transaction
+ * ordered and merges it with the lag instead of re-sorting the combined data.
+ * <p>
+ * Column files are mapped directly, rows of the transaction are reshuffled into scratch
+ * memory and copied back in place. Row ids of the designated timestamp index are rewritten
+ * to match the new physical order.
+ */
+public class WalTxnSorter implements QuietCloseable {
+    private static final int MEM_TAG = MemoryTag.MMAP_TABLE_WAL_WRITER;
+    private final MemoryCARW auxMem;
+    private final MemoryCARW dataMem;
+    private final FilesFacade ff;
+    private final MemoryCARW indexMem;
+    private final MemoryCARW indexMemCpy;
+    private int commitMode;
+    private long rowHi;
+    private long rowLo;
+
+    public WalTxnSorter(FilesFacade ff, long pageSize) {
+        this.ff = ff;
+        this.auxMem = Vm.getCARWInstance(pageSize, Integer.MAX_VALUE, MemoryTag.NATIVE_TABLE_WAL_WRITER);
+        this.dataMem = Vm.getCARWInstance(pageSize, Integer.MAX_VALUE, MemoryTag.NATIVE_TABLE_WAL_WRITER);
+        this.indexMem = Vm.getCARWInstance(pageSize, Integer.MAX_VALUE, MemoryTag.NATIVE_TABLE_WAL_WRITER);
+        this.indexMemCpy = Vm.getCARWInstance(pageSize, Integer.MAX_VALUE, MemoryTag.NATIVE_TABLE_WAL_WRITER);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(auxMem);
+        Misc.free(dataMem);
+        Misc.free(indexMem);
+        Misc.free(indexMemCpy);
+    }
+
+    public void of(long rowLo, long rowHi, int commitMode) {
+        this.rowLo = rowLo;
+        this.rowHi = rowHi;
+        this.commitMode = commitMode;
+    }
+
+    /**
+     * Moves rows of a non-timestamp column to the order of the index built by {@link #sortTimestampColumn(MemoryMA)}.
+     */
+    public void reshuffleColumn(int columnType, MemoryMA columnDataMem, MemoryMA columnAuxMem) {
+        if (ColumnType.isVarSize(columnType)) {
+            reshuffleVarColumn(columnType, columnDataMem, columnAuxMem);
+        } else {
+            reshuffleFixColumn(columnType, columnDataMem);
+        }
+    }
+
+    /**
+     * Sorts the designated timestamp index of the transaction in place and keeps the sorted
+     * index to reshuffle the rest of the columns.
+     */
+    public void sortTimestampColumn(MemoryMA timestampMem) {
+        final long rowCount = rowHi - rowLo;
+        final long indexSize = rowCount << 4;
+        final long indexAddr = indexMem.resize(indexSize);
+        final long fileSize = rowHi << 4;
+        final long mapAddr = TableUtils.mapRW(ff, timestampMem.getFd(), fileSize, MEM_TAG);
+        try {
+            final long txnAddr = mapAddr + (rowLo << 4);
+            for (long i = 0; i < rowCount; i++) {
+                Unsafe.getUnsafe().putLong(indexAddr + (i << 4), Unsafe.getUnsafe().getLong(txnAddr + (i << 4)));
+                Unsafe.getUnsafe().putLong(indexAddr + (i << 4) + Long.BYTES, rowLo + i);
+            }
+            Vect.radixSortLongIndexAscInPlace(indexAddr, rowCount, indexMemCpy.resize(indexSize));
+            for (long i = 0; i < rowCount; i++) {
+                Unsafe.getUnsafe().putLong(txnAddr + (i << 4), Unsafe.getUnsafe().getLong(indexAddr + (i << 4)));
+                Unsafe.getUnsafe().putLong(txnAddr + (i << 4) + Long.BYTES, rowLo + i);
+            }
+            sync(mapAddr, fileSize);
+        } finally {
+            ff.munmap(mapAddr, fileSize, MEM_TAG);
+        }
+    }
+
+    private void reshuffleFixColumn(int columnType, MemoryMA columnDataMem) {
+        final int shl = ColumnType.pow2SizeOf(columnType);
+        final long rowCount = rowHi - rowLo;
+        final long fileSize = rowHi << shl;
+        final long txnSize = rowCount << shl;
+        final long mapAddr = TableUtils.mapRW(ff, columnDataMem.getFd(), fileSize, MEM_TAG);
+        try {
+            final long dstAddr = dataMem.resize(txnSize);
+            final long indexAddr = indexMem.addressOf(0);
+            switch (shl) {
+                case 0:
+                    Vect.indexReshuffle8Bit(mapAddr, dstAddr, indexAddr, rowCount);
+                    break;
+                case 1:
+                    Vect.indexReshuffle16Bit(mapAddr, dstAddr, indexAddr, rowCount);
+                    break;
+                case 2:
+                    Vect.indexReshuffle32Bit(mapAddr, dstAddr, indexAddr, rowCount);
+                    break;
+                case 3:
+                    Vect.indexReshuffle64Bit(mapAddr, dstAddr, indexAddr, rowCount);
+                    break;
+                case 4:
+                    Vect.indexReshuffle128Bit(mapAddr, dstAddr, indexAddr, rowCount);
+                    break;
+                case 5:
+                    Vect.indexReshuffle256Bit(mapAddr, dstAddr, indexAddr, rowCount);
+                    break;
+                default:
+                    assert false : "col type is unsupported";
+                    break;
+            }
+            Vect.memcpy(mapAddr + (rowLo << shl), dstAddr, txnSize);
+            sync(mapAddr, fileSize);
+        } finally {
+            ff.munmap(mapAddr, fileSize, MEM_TAG);
+        }
+    }
+
+    private void reshuffleVarColumn(int columnType, MemoryMA columnDataMem, MemoryMA columnAuxMem) {
+        final ColumnTypeDriver driver = ColumnType.getDriver(columnType);
+        final long rowCount = rowHi - rowLo;
+        final long auxFileSize = driver.getAuxVectorSize(rowHi);
+        final long auxMapAddr = TableUtils.mapRW(ff, columnAuxMem.getFd(), auxFileSize, MEM_TAG);
+        try {
+            final long dataLo = driver.getDataVectorOffset(auxMapAddr, rowLo);
+            final long dataFileSize = columnDataMem.getAppendOffset();
+            final long dataMapAddr = dataFileSize > 0 ? TableUtils.mapRW(ff, columnDataMem.getFd(), dataFileSize, MEM_TAG) : 0;
+            try {
+                final long dstAuxAddr = auxMem.resize(driver.getAuxVectorSize(rowCount));
+                final long dstDataAddr = dataMem.resize(Math.max(dataFileSize - dataLo, 1));
+                final long indexAddr = indexMem.addressOf(0);
+                final long dataSize;
+                if (ColumnType.isVarchar(columnType)) {
+                    dataSize = Vect.sortVarcharColumn(indexAddr, rowCount, dataMapAddr, auxMapAddr, dstDataAddr, dstAuxAddr);
+                } else {
+                    dataSize = Vect.sortVarColumn(indexAddr, rowCount, dataMapAddr, auxMapAddr, dstDataAddr, dstAuxAddr);
+                    // N+1 aux vector, trailing offset is the end of data
+                    Unsafe.getUnsafe().putLong(dstAuxAddr + driver.getAuxVectorOffset(rowCount), dataSize);
+                }
+                assert dataSize == dataFileSize - dataLo;
+                if (dataSize > 0) {
+                    Vect.memcpy(dataMapAddr + dataLo, dstDataAddr, dataSize);
+                    sync(dataMapAddr, dataFileSize);
+                }
+                final long auxLo = driver.getAuxVectorOffset(rowLo);
+                driver.shiftCopyAuxVector(-dataLo, dstAuxAddr, 0, rowCount - 1, auxMapAddr + auxLo, auxFileSize - auxLo);
+                sync(auxMapAddr, auxFileSize);
+            } finally {
+                if (dataMapAddr != 0) {
+                    ff.munmap(dataMapAddr, dataFileSize, MEM_TAG);
+                }
+            }
+        } finally {
+            ff.munmap(auxMapAddr, auxFileSize, MEM_TAG);
+        }
+    }
+
+    private void sync(long addr, long size) {
+        if (commitMode != CommitMode.NOSYNC) {
+            ff.msync(addr, size, commitMode == CommitMode.ASYNC);
+        }
+    }
+}
@@ -106,6 +106,7 @@ public class WalWriter implements TableWriterAPI {
     private long txnMaxTimestamp = -1;
     private long txnMinTimestamp = Long.MAX_VALUE;
     private boolean txnOutOfOrder = false;
+    private WalTxnSorter txnSorter;
     private int walLockFd = -1;
 
     public WalWriter(
@@ -197,6 +198,56 @@ public class WalWriter implements TableWriterAPI {
         );
     }
 
+    /**
+     * Completes a columnar block of rows, which was started with {@link #beginColumnarBlock()}
+     * and filled with {@link #putColumnarBytes(int, long, long)} and {@link #putColumnarTimestamps(long, long)}.
+     * Columns that were not supplied are padded with nulls. Every supplied column must hold
+     * exactly the given number of rows, otherwise the block is rejected and the caller is
+     * expected to roll back the transaction. A block without rows is a no-op.
+     *
+     * @param rowCount number of rows in the block
+     */
+    public void appendColumnarBlock(long rowCount) {
+        checkDistressed();
+        if (rowCount == 0) {
+            // no column holds a value, there is nothing to validate
+            return;
+        }
+        final long rowHi = segmentRowCount + rowCount;
+        if (timestampIndex != -1 && rowValueIsNotNull.getQuick(timestampIndex) < segmentRowCount) {
+            throw CairoException.nonCritical().put("designated timestamp column is missing [table=")
+                    .put(tableToken.getTableName()).put(']');
+        }
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (columnType > 0 && rowValueIsNotNull.getQuick(i) >= segmentRowCount) {
+                final long expectedSize = rowHi << ColumnType.getWalDataColumnShl(columnType, i == timestampIndex);
+                if (getDataColumn(i).getAppendOffset() != expectedSize) {
+                    throw CairoException.nonCritical().put("column row count mismatch [table=")
+                            .put(tableToken.getTableName())
+                            .put(", column=").put(metadata.getColumnName(i))
+                            .put(", expectedRows=").put(rowCount)
+                            .put(']');
+                }
+            }
+        }
+
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                if (rowValueIsNotNull.getQuick(i) < segmentRowCount) {
+                    final Runnable nullSetter = nullSetters.getQuick(i);
+                    for (long r = 0; r < rowCount; r++) {
+                        nullSetter.run();
+                    }
+                }
+            }
+            segmentRowCount = rowHi;
+        } catch (Throwable e) {
+            distressed = true;
+            throw e;
+        }
+    }
+
     @Override
     public long apply(AlterOperation alterOp, boolean contextAllowsAnyStructureChanges) throws AlterTableContextException {
         try {
@@ -237,6 +288,24 @@ public class WalWriter implements TableWriterAPI {
         //   versions of each table involved in the join when running the SQL.
     }
 
+    /**
+     * Starts a columnar block of rows. Column values for the block are copied as-is into
+     * the WAL column files, bypassing {@link TableWriter.Row}. The block is completed with
+     * {@link #appendColumnarBlock(long)}.
+     */
+    public void beginColumnarBlock() {
+        checkDistressed();
+        try {
+            if (rollSegmentOnNextRow) {
+                rollSegment();
+                rollSegmentOnNextRow = false;
+            }
+        } catch (Throwable e) {
+            distressed = true;
+            throw e;
+        }
+    }
+
     @Override
     public void close() {
         if (isOpen()) {
@@ -259,6 +328,9 @@ public class WalWriter implements TableWriterAPI {
             if (inTransaction()) {
                 isCommittingData = true;
                 final long rowsToCommit = getUncommittedRowCount();
+                if (txnOutOfOrder && configuration.isWalWriterSortTxnEnabled()) {
+                    sortTxnRows();
+                }
                 lastSegmentTxn = events.appendData(currentTxnStartRowNum, segmentRowCount, txnMinTimestamp, txnMaxTimestamp, txnOutOfOrder);
                 // flush disk before getting next txn
                 final int commitMode = configuration.getCommitMode();
@@ -306,6 +378,7 @@ public class WalWriter implements TableWriterAPI {
             }
 
             freeColumns(truncate);
+            txnSorter = Misc.free(txnSorter);
 
             releaseSegmentLock(segmentId, segmentLockFd, segmentRowCount);
 
@@ -445,6 +518,55 @@ public class WalWriter implements TableWriterAPI {
         }
     }
 
+    /**
+     * Copies values of a fixed-size, non-designated timestamp column into the current columnar block.
+     * The memory must have the same layout as the column's data file. May be called several times
+     * per column to supply the values in parts.
+     *
+     * @param columnIndex index of the column
+     * @param lo          address of the first value byte
+     * @param hi          address past the last value byte
+     */
+    public void putColumnarBytes(int columnIndex, long lo, long hi) {
+        assert columnIndex != timestampIndex;
+        assert !ColumnType.isVarSize(metadata.getColumnType(columnIndex));
+        getDataColumn(columnIndex).putBlockOfBytes(lo, hi - lo);
+        rowValueIsNotNull.setQuick(columnIndex, segmentRowCount);
+    }
+
+    /**
+     * Copies designated timestamp values into the current columnar block. May be called several
+     * times to supply the values in parts.
+     *
+     * @param lo address of the first timestamp, the timestamps are 64-bit longs
+     * @param hi address past the last timestamp
+     */
+    public void putColumnarTimestamps(long lo, long hi) {
+        // mark the column dirty upfront, so that rollback truncates it, should the append fail midway
+        rowValueIsNotNull.setQuick(timestampIndex, segmentRowCount);
+        // validate the whole part before appending anything
+        for (long p = lo; p < hi; p += Long.BYTES) {
+            if (Unsafe.getUnsafe().getLong(p) < Timestamps.O3_MIN_TS) {
+                throw CairoException.nonCritical().put("timestamp before 1970-01-01 is not allowed");
+            }
+        }
+
+        final MemoryMA dataMem = getDataColumn(timestampIndex);
+        long rowId = dataMem.getAppendOffset() >> 4;
+        for (long p = lo; p < hi; p += Long.BYTES) {
+            final long timestamp = Unsafe.getUnsafe().getLong(p);
+            dataMem.putLong128(timestamp, rowId++);
+            if (timestamp > txnMaxTimestamp) {
+                txnMaxTimestamp = timestamp;
+            } else {
+                txnOutOfOrder |= (txnMaxTimestamp != timestamp);
+            }
+            if (timestamp < txnMinTimestamp) {
+                txnMinTimestamp = timestamp;
+            }
+        }
+    }
+
     public long renameTable(@NotNull CharSequence oldName, String newTableName) {
         if (!Chars.equalsIgnoreCaseNc(oldName, tableToken.getTableName())) {
             throw CairoException.tableDoesNotExist(oldName);
@@ -1510,6 +1632,25 @@ public class WalWriter implements TableWriterAPI {
         }
     }
 
+    private void sortTxnRows() {
+        if (txnSorter == null) {
+            txnSorter = new WalTxnSorter(ff, getDataAppendPageSize());
+        }
+        final long rowLo = currentTxnStartRowNum;
+        final long rowHi = segmentRowCount;
+        txnSorter.of(rowLo, rowHi, configuration.getCommitMode());
+        txnSorter.sortTimestampColumn(getDataColumn(timestampIndex));
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (columnType > 0 && i != timestampIndex) {
+                txnSorter.reshuffleColumn(columnType, getDataColumn(i), getAuxColumn(i));
+            }
+        }
+        txnOutOfOrder = false;
+        LOG.debug().$("sorted WAL transaction [wal=").$(path).$(Files.SEPARATOR).$(segmentId)
+                .$(", rowLo=").$(rowLo).$(", rowHi=").$(rowHi).I$();
+    }
+
     private void switchColumnsToNewSegment(LongList newColumnFiles) {
         for (int i = 0; i < columnCount; i++) {
             int newPrimaryFd = (int) newColumnFiles.get(i * NEW_COL_RECORD_SIZE);
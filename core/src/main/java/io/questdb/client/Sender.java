@@ -32,6 +32,7 @@ import io.questdb.cutlass.auth.AuthUtils;
 import io.questdb.cutlass.line.LineChannel;
 import io.questdb.cutlass.line.LineSenderException;
 import io.questdb.cutlass.line.LineTcpSender;
+import io.questdb.cutlass.line.http.AsyncLineHttpSender;
 import io.questdb.cutlass.line.http.LineHttpSender;
 import io.questdb.cutlass.line.tcp.DelegatingTlsChannel;
 import io.questdb.cutlass.line.tcp.PlainTcpLineChannel;
@@ -408,6 +409,7 @@ public interface Sender extends Closeable {
         private static final int PROTOCOL_TCP = 0;
         private int autoFlushIntervalMillis = PARAMETER_NOT_SET_EXPLICITLY;
         private int autoFlushRows = PARAMETER_NOT_SET_EXPLICITLY;
+        private boolean binaryFormat;
         private int bufferCapacity = PARAMETER_NOT_SET_EXPLICITLY;
         private String host;
         private int httpTimeout = PARAMETER_NOT_SET_EXPLICITLY;
@@ -430,6 +432,7 @@ public interface Sender extends Closeable {
                 return httpTimeout == PARAMETER_NOT_SET_EXPLICITLY ? DEFAULT_HTTP_TIMEOUT : httpTimeout;
             }
         };
+        private int maxInFlightRequests = PARAMETER_NOT_SET_EXPLICITLY;
         private long minRequestThroughput = PARAMETER_NOT_SET_EXPLICITLY;
         private String password;
         private int port = PARAMETER_NOT_SET_EXPLICITLY;
@@ -637,7 +640,18 @@ public interface Sender extends Closeable {
                     assert (trustStorePath == null) == (trustStorePassword == null); //either both null or both non-null
                     tlsConfig = new ClientTlsConfiguration(trustStorePath, trustStorePassword, tlsValidationMode == TlsValidationMode.DEFAULT ? ClientTlsConfiguration.TLS_VALIDATION_MODE_FULL : ClientTlsConfiguration.TLS_VALIDATION_MODE_NONE);
                 }
-                return new LineHttpSender(host, port, httpClientConfiguration, tlsConfig, actualAutoFlushRows, httpToken, username, password, actualMaxRetriesNanos, actualMinRequestThroughput, actualAutoFlushIntervalMillis);
+                if (maxInFlightRequests > 1) {
+                    AsyncLineHttpSender sender = new AsyncLineHttpSender(host, port, httpClientConfiguration, tlsConfig, actualAutoFlushRows, httpToken, username, password, actualMaxRetriesNanos, actualMinRequestThroughput, actualAutoFlushIntervalMillis, maxInFlightRequests);
+                    if (binaryFormat) {
+                        sender.enableBinaryFormat();
+                    }
+                    return sender;
+                }
+                LineHttpSender sender = new LineHttpSender(host, port, httpClientConfiguration, tlsConfig, actualAutoFlushRows, httpToken, username, password, actualMaxRetriesNanos, actualMinRequestThroughput, actualAutoFlushIntervalMillis);
+                if (binaryFormat) {
+                    sender.enableBinaryFormat();
+                }
+                return sender;
             }
             assert protocol == PROTOCOL_TCP;
             LineChannel channel = new PlainTcpLineChannel(nf, host, port, bufferCapacity * 2);
@@ -658,6 +672,9 @@ public interface Sender extends Closeable {
                 channel.close();
                 throw rethrow(t);
             }
+            if (binaryFormat) {
+                sender.enableBinaryFormat();
+            }
             if (privateKey != null) {
                 try {
                     sender.authenticate(keyId, privateKey);
@@ -729,6 +746,23 @@ public interface Sender extends Closeable {
             return new LineSenderBuilder.AuthBuilder();
         }
 
+        /**
+         * Send longs, doubles, timestamps and symbol values in binary form rather than as text. The server
+         * copies binary values as they are, which saves it from parsing numbers and scanning for escaped characters.
+         * <br>
+         * The server must support binary ILP values, which is the case unless it was started with
+         * <code>line.binary.format.enabled=false</code>. Both TCP and HTTP transports support binary values.
+         *
+         * @return this instance for method chaining.
+         */
+        public LineSenderBuilder enableBinaryFormat() {
+            if (binaryFormat) {
+                throw new LineSenderException("binary format was already enabled");
+            }
+            binaryFormat = true;
+            return this;
+        }
+
         /**
          * Instruct a client to use TLS when connecting to a QuestDB server
          *
@@ -900,6 +934,17 @@ public interface Sender extends Closeable {
                     } else if (!Chars.equalsIgnoreCase("on", sink)) {
                         throw new LineSenderException("invalid auto_flush [value=").put(sink).put(", allowed-values=[on, off]]");
                     }
+                } else if (Chars.equals("binary_format", sink)) {
+                    pos = getValue(configurationString, pos, sink, "binary_format");
+                    if (Chars.equalsIgnoreCase("on", sink)) {
+                        enableBinaryFormat();
+                    } else if (!Chars.equalsIgnoreCase("off", sink)) {
+                        throw new LineSenderException("invalid binary_format [value=").put(sink).put(", allowed-values=[on, off]]");
+                    }
+                } else if (Chars.equals("max_in_flight", sink)) {
+                    pos = getValue(configurationString, pos, sink, "max_in_flight");
+                    int maxInFlight = parseIntValue(sink, "max_in_flight");
+                    maxInFlightRequests(maxInFlight);
                 } else if (Chars.equals("request_timeout", sink)) {
                     pos = getValue(configurationString, pos, sink, "request_timeout");
                     int requestTimeout = parseIntValue(sink, "request_timeout");
@@ -1060,6 +1105,36 @@ public interface Sender extends Closeable {
             return this;
         }
 
+        /**
+         * Set the maximum number of HTTP requests in flight.
+         * <br>
+         * With more than one request in flight, {@link Sender#flush()} hands the buffered rows over to a background
+         * flush thread and returns, the rows that follow are buffered while earlier batches are being sent. This
+         * hides the network round trip when the server is far away. Each request in flight uses its own buffer and
+         * connection. A failed batch is reported by the next call to {@link Sender#table(CharSequence)},
+         * {@link Sender#flush()} or {@link Sender#close()}, and batches in flight at the same time can be applied
+         * in any order.
+         * <br>
+         * This is only used when communicating over HTTP transport.
+         * <br>
+         * Default value: 1, each flush waits for the server's response
+         *
+         * @param maxInFlightRequests maximum number of requests in flight
+         * @return this instance for method chaining
+         */
+        public LineSenderBuilder maxInFlightRequests(int maxInFlightRequests) {
+            if (this.maxInFlightRequests != PARAMETER_NOT_SET_EXPLICITLY) {
+                throw new LineSenderException("max in-flight requests was already configured ")
+                        .put("[maxInFlightRequests=").put(this.maxInFlightRequests).put("]");
+            }
+            if (maxInFlightRequests < 1) {
+                throw new LineSenderException("max in-flight requests must be positive ")
+                        .put("[maxInFlightRequests=").put(maxInFlightRequests).put("]");
+            }
+            this.maxInFlightRequests = maxInFlightRequests;
+            return this;
+        }
+
         /**
          * Minimum expected throughput in bytes per second for HTTP requests.
          * <br>
@@ -1243,6 +1318,9 @@ public interface Sender extends Closeable {
                 if (minRequestThroughput != PARAMETER_NOT_SET_EXPLICITLY) {
                     throw new LineSenderException("minimum request throughput is not supported for TCP protocol");
                 }
+                if (maxInFlightRequests != PARAMETER_NOT_SET_EXPLICITLY) {
+                    throw new LineSenderException("max in-flight requests is not supported for TCP protocol");
+                }
                 if (maximumBufferCapacity != bufferCapacity) {
                     throw new LineSenderException("maximum buffer capacity must be the same as initial buffer capacity for TCP protocol")
                             .put("[maximumBufferCapacity=").put(maximumBufferCapacity)
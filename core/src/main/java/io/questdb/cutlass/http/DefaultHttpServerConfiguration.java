@@ -293,6 +293,11 @@ public class DefaultHttpServerConfiguration implements HttpServerConfiguration {
             return lineHttpProcessorConfiguration.getTimestampAdapter();
         }
 
+        @Override
+        public boolean isBinaryFormatEnabled() {
+            return true;
+        }
+
         @Override
         public boolean isEnabled() {
             return true;
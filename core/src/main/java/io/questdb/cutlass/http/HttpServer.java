@@ -136,6 +136,21 @@ public class HttpServer implements Closeable {
                 }
             });
 
+            server.bind(new HttpRequestProcessorFactory() {
+                @Override
+                public String getUrl() {
+                    return "/write/columnar";
+                }
+
+                @Override
+                public HttpRequestProcessor newInstance() {
+                    return new ColumnarHttpProcessor(
+                            cairoEngine,
+                            configuration.getHttpContextConfiguration().getSendBufferSize()
+                    );
+                }
+            });
+
             LineHttpPingProcessor pingProcessor = new LineHttpPingProcessor(
                     configuration.getLineHttpProcessorConfiguration().getInfluxPingVersion()
             );
@@ -0,0 +1,772 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.cutlass.http.HttpChunkedResponse;
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.std.*;
+import io.questdb.std.str.DirectUtf8Sink;
+import io.questdb.std.str.Utf8Sequence;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Encodes query results as an Apache Arrow IPC stream: schema message, one record batch
+ * per page frame (or per block of records when the factory does not support page frames)
+ * and the end-of-stream marker.
+ * <p>
+ * Every message is kept as a list of memory segments rather than as a single buffer. This
+ * allows fixed-width columns of a page frame to be sent straight from column memory, only
+ * the validity bitmaps of such columns are built on the side.
+ */
+public class ArrowStreamWriter implements Closeable, Mutable {
+    private static final int CONTINUATION_MARKER = -1;
+    private static final short DATE_UNIT_MILLISECOND = 1;
+    private static final short FLOAT_PRECISION_DOUBLE = 2;
+    private static final short FLOAT_PRECISION_SINGLE = 1;
+    private static final byte HEADER_RECORD_BATCH = 3;
+    private static final byte HEADER_SCHEMA = 1;
+    private static final short METADATA_VERSION_V5 = 4;
+    private static final int PAGE_SIZE = 64 * 1024;
+    private static final short TIME_UNIT_MICROSECOND = 2;
+    private static final byte TYPE_BINARY = 4;
+    private static final byte TYPE_BOOL = 6;
+    private static final byte TYPE_DATE = 8;
+    private static final byte TYPE_FIXED_SIZE_BINARY = 15;
+    private static final byte TYPE_FLOATING_POINT = 3;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_NULL = 1;
+    private static final byte TYPE_TIMESTAMP = 10;
+    private static final byte TYPE_UTF8 = 5;
+    // offset, length pairs of the record batch body buffers
+    private final LongList bodyBuffers = new LongList();
+    private final ObjList<ColumnBuffers> columnBuffers = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final PageAddressCacheRecord frameRecord = new PageAddressCacheRecord();
+    private final MemoryCARW meta = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_HTTP_CONN);
+    private final DirectUtf8Sink nameSink = new DirectUtf8Sink(64);
+    private final PageAddressCache pageAddressCache;
+    // address, length pairs of the message that is being sent
+    private final LongList segments = new LongList();
+    private long batchRowCount;
+    private long bodyLength;
+    private int frameIndex;
+    private RecordMetadata metadata;
+    private int segmentIndex;
+    private long segmentOffset;
+    private long zeroPad;
+
+    public ArrowStreamWriter(CairoConfiguration configuration) {
+        pageAddressCache = new PageAddressCache(configuration);
+        zeroPad = Unsafe.calloc(Long.BYTES, MemoryTag.NATIVE_HTTP_CONN);
+    }
+
+    /**
+     * Appends current record to the batch. The batch is sent once
+     * {@link #prepareRecordBatch()} is called.
+     */
+    public void appendRecord(Record record) {
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            appendValue(record, i, columnBuffers.getQuick(i), batchRowCount);
+        }
+        batchRowCount++;
+    }
+
+    @Override
+    public void clear() {
+        metadata = null;
+        columnTypes.clear();
+        pageAddressCache.clear();
+        frameRecord.of(null, null);
+        clearBatch();
+    }
+
+    /**
+     * Resets column buffers after the batch has been sent.
+     */
+    public void clearBatch() {
+        batchRowCount = 0;
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            columnBuffers.getQuick(i).of(columnTypes.getQuick(i));
+        }
+        segments.clear();
+        segmentIndex = 0;
+        segmentOffset = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.freeObjListAndClear(columnBuffers);
+        meta.close();
+        nameSink.close();
+        if (zeroPad != 0) {
+            Unsafe.free(zeroPad, Long.BYTES, MemoryTag.NATIVE_HTTP_CONN);
+            zeroPad = 0;
+        }
+    }
+
+    public long getBatchRowCount() {
+        return batchRowCount;
+    }
+
+    /**
+     * Prepares the schema message, which is the first message to be sent.
+     *
+     * @param metadata          result set metadata
+     * @param symbolTableSource page frame cursor when the result is streamed as page frames, null otherwise
+     */
+    public void of(RecordMetadata metadata, @Nullable SymbolTableSource symbolTableSource) {
+        clear();
+        this.metadata = metadata;
+        final int columnCount = metadata.getColumnCount();
+        for (int i = 0; i < columnCount; i++) {
+            columnTypes.add(metadata.getColumnType(i));
+            if (columnBuffers.size() == i) {
+                columnBuffers.add(new ColumnBuffers());
+            }
+            columnBuffers.getQuick(i).of(columnTypes.getQuick(i));
+        }
+        if (symbolTableSource != null) {
+            pageAddressCache.of(metadata);
+            frameRecord.of(symbolTableSource, pageAddressCache);
+            frameIndex = 0;
+        }
+        prepareSchema();
+    }
+
+    /**
+     * Prepares the end-of-stream marker, which is the last message to be sent.
+     */
+    public void prepareEndOfStream() {
+        meta.jumpTo(0);
+        meta.putInt(CONTINUATION_MARKER);
+        meta.putInt(0);
+        segments.clear();
+        segments.add(meta.addressOf(0), meta.getAppendOffset());
+        segmentIndex = 0;
+        segmentOffset = 0;
+    }
+
+    /**
+     * Prepares the record batch that maps onto the given page frame. Values of
+     * fixed-width columns are not copied, the batch refers to the frame memory
+     * directly, so the frame must not be released until the batch is sent.
+     */
+    public void prepareFrameBatch(PageFrame frame) {
+        pageAddressCache.add(frameIndex, frame);
+        frameRecord.setFrameIndex(frameIndex++);
+        batchRowCount = frame.getPartitionHi() - frame.getPartitionLo();
+
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            final int columnType = columnTypes.getQuick(i);
+            final ColumnBuffers buffers = columnBuffers.getQuick(i);
+            if (isDirectCopy(columnType)) {
+                final long address = frame.getPageAddress(i);
+                final long size = batchRowCount << ColumnType.pow2SizeOf(columnType);
+                if (address != 0) {
+                    buffers.valuesAddress = address;
+                    buffers.valuesSize = size;
+                    buffers.nullCount = scanNulls(columnType, address, batchRowCount, buffers.validity);
+                } else {
+                    // column top, the whole frame is null
+                    Vect.memset(buffers.validity.appendAddressFor(bitmapSize(batchRowCount)), bitmapSize(batchRowCount), 0);
+                    Vect.memset(buffers.values.appendAddressFor(size), size, 0);
+                    buffers.nullCount = batchRowCount;
+                }
+            } else {
+                for (long r = 0; r < batchRowCount; r++) {
+                    frameRecord.setRowIndex(r);
+                    appendValue(frameRecord, i, buffers, r);
+                }
+            }
+        }
+        prepareBatch();
+    }
+
+    /**
+     * Prepares the record batch out of the records appended since the last {@link #clearBatch()}.
+     */
+    public void prepareRecordBatch() {
+        prepareBatch();
+    }
+
+    /**
+     * Sends the prepared message. The call can be repeated after {@link PeerIsSlowToReadException}
+     * to continue from where the previous call stopped.
+     */
+    public void send(HttpChunkedResponse response) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        while (segmentIndex < segments.size()) {
+            final long pending = segments.getQuick(segmentIndex + 1) - segmentOffset;
+            if (pending > 0) {
+                final int wrote = response.writeBytes(segments.getQuick(segmentIndex) + segmentOffset, (int) Math.min(pending, Integer.MAX_VALUE));
+                segmentOffset += wrote;
+                if (wrote < pending) {
+                    // response buffer is full
+                    response.sendChunk(false);
+                    continue;
+                }
+            }
+            segmentIndex += 2;
+            segmentOffset = 0;
+        }
+    }
+
+    private static long bitmapSize(long rowCount) {
+        return (rowCount + 7) >>> 3;
+    }
+
+    private static byte getArrowType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                return TYPE_BOOL;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.IPv4:
+            case ColumnType.LONG:
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+                return TYPE_INT;
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return TYPE_FLOATING_POINT;
+            case ColumnType.DATE:
+                return TYPE_DATE;
+            case ColumnType.TIMESTAMP:
+                return TYPE_TIMESTAMP;
+            case ColumnType.UUID:
+            case ColumnType.LONG256:
+                return TYPE_FIXED_SIZE_BINARY;
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.VARCHAR:
+                return TYPE_UTF8;
+            case ColumnType.BINARY:
+                return TYPE_BINARY;
+            default:
+                return TYPE_NULL;
+        }
+    }
+
+    private static boolean isDirectCopy(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.IPv4:
+            case ColumnType.LONG:
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isNull(int columnType, long address, long row) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.CHAR:
+                return Unsafe.getUnsafe().getChar(address + (row << 1)) == 0;
+            case ColumnType.INT:
+                return Unsafe.getUnsafe().getInt(address + (row << 2)) == Integer.MIN_VALUE;
+            case ColumnType.IPv4:
+                return Unsafe.getUnsafe().getInt(address + (row << 2)) == Numbers.IPv4_NULL;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return Unsafe.getUnsafe().getLong(address + (row << 3)) == Long.MIN_VALUE;
+            case ColumnType.GEOBYTE:
+                return Unsafe.getUnsafe().getByte(address + row) == GeoHashes.BYTE_NULL;
+            case ColumnType.GEOSHORT:
+                return Unsafe.getUnsafe().getShort(address + (row << 1)) == GeoHashes.SHORT_NULL;
+            case ColumnType.GEOINT:
+                return Unsafe.getUnsafe().getInt(address + (row << 2)) == GeoHashes.INT_NULL;
+            case ColumnType.GEOLONG:
+                return Unsafe.getUnsafe().getLong(address + (row << 3)) == GeoHashes.NULL;
+            case ColumnType.FLOAT:
+                return Float.isNaN(Unsafe.getUnsafe().getFloat(address + (row << 2)));
+            case ColumnType.DOUBLE:
+                return Double.isNaN(Unsafe.getUnsafe().getDouble(address + (row << 3)));
+            default:
+                // byte and short values are never null
+                return false;
+        }
+    }
+
+    private static void setBit(MemoryCARW bitmap, long row, boolean value) {
+        if ((row & 7) == 0) {
+            bitmap.putByte((byte) 0);
+        }
+        if (value) {
+            final long address = bitmap.addressOf(row >>> 3);
+            Unsafe.getUnsafe().putByte(address, (byte) (Unsafe.getUnsafe().getByte(address) | (1 << (row & 7))));
+        }
+    }
+
+    private void addBodyBuffer(long address, long size) {
+        bodyBuffers.add(bodyLength, size);
+        if (size > 0) {
+            segments.add(address, size);
+            final long pad = -size & 7;
+            if (pad > 0) {
+                segments.add(zeroPad, pad);
+            }
+            bodyLength += size + pad;
+        }
+    }
+
+    private void align(int alignment) {
+        while ((meta.getAppendOffset() & (alignment - 1)) != 0) {
+            meta.putByte((byte) 0);
+        }
+    }
+
+    private void appendValue(Record record, int columnIndex, ColumnBuffers buffers, long row) {
+        final int columnType = columnTypes.getQuick(columnIndex);
+        final MemoryCARW values = buffers.values;
+        boolean valid = true;
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                setBit(values, row, record.getBool(columnIndex));
+                break;
+            case ColumnType.BYTE:
+                values.putByte(record.getByte(columnIndex));
+                break;
+            case ColumnType.SHORT:
+                values.putShort(record.getShort(columnIndex));
+                break;
+            case ColumnType.CHAR:
+                final char c = record.getChar(columnIndex);
+                values.putChar(c);
+                valid = c != 0;
+                break;
+            case ColumnType.INT:
+                final int i = record.getInt(columnIndex);
+                values.putInt(i);
+                valid = i != Integer.MIN_VALUE;
+                break;
+            case ColumnType.IPv4:
+                final int ip = record.getIPv4(columnIndex);
+                values.putInt(ip);
+                valid = ip != Numbers.IPv4_NULL;
+                break;
+            case ColumnType.LONG:
+                final long l = record.getLong(columnIndex);
+                values.putLong(l);
+                valid = l != Long.MIN_VALUE;
+                break;
+            case ColumnType.DATE:
+                final long date = record.getDate(columnIndex);
+                values.putLong(date);
+                valid = date != Long.MIN_VALUE;
+                break;
+            case ColumnType.TIMESTAMP:
+                final long ts = record.getTimestamp(columnIndex);
+                values.putLong(ts);
+                valid = ts != Long.MIN_VALUE;
+                break;
+            case ColumnType.FLOAT:
+                final float f = record.getFloat(columnIndex);
+                values.putFloat(f);
+                valid = f == f;
+                break;
+            case ColumnType.DOUBLE:
+                final double d = record.getDouble(columnIndex);
+                values.putDouble(d);
+                valid = d == d;
+                break;
+            case ColumnType.GEOBYTE:
+                final byte gb = record.getGeoByte(columnIndex);
+                values.putByte(gb);
+                valid = gb != GeoHashes.BYTE_NULL;
+                break;
+            case ColumnType.GEOSHORT:
+                final short gs = record.getGeoShort(columnIndex);
+                values.putShort(gs);
+                valid = gs != GeoHashes.SHORT_NULL;
+                break;
+            case ColumnType.GEOINT:
+                final int gi = record.getGeoInt(columnIndex);
+                values.putInt(gi);
+                valid = gi != GeoHashes.INT_NULL;
+                break;
+            case ColumnType.GEOLONG:
+                final long gl = record.getGeoLong(columnIndex);
+                values.putLong(gl);
+                valid = gl != GeoHashes.NULL;
+                break;
+            case ColumnType.UUID:
+                final long lo = record.getLong128Lo(columnIndex);
+                final long hi = record.getLong128Hi(columnIndex);
+                // canonical UUID byte order
+                values.putLong(Long.reverseBytes(hi));
+                values.putLong(Long.reverseBytes(lo));
+                valid = !Uuid.isNull(lo, hi);
+                break;
+            case ColumnType.LONG256:
+                final Long256 long256 = record.getLong256A(columnIndex);
+                values.putLong256(long256);
+                valid = !Long256Impl.isNull(long256);
+                break;
+            case ColumnType.STRING:
+                final CharSequence str = record.getStrA(columnIndex);
+                if (str != null) {
+                    buffers.data.put(str);
+                } else {
+                    valid = false;
+                }
+                buffers.offsets.putInt(buffers.data.size());
+                break;
+            case ColumnType.SYMBOL:
+                final CharSequence sym = record.getSymA(columnIndex);
+                if (sym != null) {
+                    buffers.data.put(sym);
+                } else {
+                    valid = false;
+                }
+                buffers.offsets.putInt(buffers.data.size());
+                break;
+            case ColumnType.VARCHAR:
+                final Utf8Sequence varchar = record.getVarcharA(columnIndex);
+                if (varchar != null) {
+                    buffers.data.put(varchar);
+                } else {
+                    valid = false;
+                }
+                buffers.offsets.putInt(buffers.data.size());
+                break;
+            case ColumnType.BINARY:
+                final BinarySequence bin = record.getBin(columnIndex);
+                if (bin != null) {
+                    for (long b = 0, n = bin.length(); b < n; b++) {
+                        buffers.data.put(bin.byteAt(b));
+                    }
+                } else {
+                    valid = false;
+                }
+                buffers.offsets.putInt(buffers.data.size());
+                break;
+            default:
+                // Arrow null type has no buffers
+                buffers.nullCount++;
+                return;
+        }
+        setBit(buffers.validity, row, valid);
+        if (!valid) {
+            buffers.nullCount++;
+        }
+    }
+
+    private long beginMessage(byte headerType, long bodyLength) {
+        meta.jumpTo(0);
+        meta.putInt(CONTINUATION_MARKER);
+        // metadata length, set by finishMessage()
+        meta.putInt(0);
+        // flatbuffer starts at offset 8, its root table is Message
+        final long root = meta.getAppendOffset();
+        meta.putInt(0);
+        final long vtable = putVTable(24, 4, 6, 8, 16);
+        align(8);
+        final long table = startTable(vtable);
+        putOffset(root, table);
+        meta.putShort(METADATA_VERSION_V5);
+        meta.putByte(headerType);
+        meta.putByte((byte) 0);
+        final long header = meta.getAppendOffset();
+        meta.putInt(0);
+        meta.putInt(0);
+        meta.putLong(bodyLength);
+        return header;
+    }
+
+    private void finishMessage() {
+        align(8);
+        meta.putInt(4, (int) (meta.getAppendOffset() - 8));
+        segments.setQuick(0, meta.addressOf(0));
+        segments.setQuick(1, meta.getAppendOffset());
+        segmentIndex = 0;
+        segmentOffset = 0;
+    }
+
+    private void prepareBatch() {
+        segments.clear();
+        // placeholder for the metadata segment
+        segments.add(0L, 0L);
+        bodyBuffers.clear();
+        bodyLength = 0;
+
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            final ColumnBuffers buffers = columnBuffers.getQuick(i);
+            switch (buffers.arrowType) {
+                case TYPE_NULL:
+                    break;
+                case TYPE_UTF8:
+                case TYPE_BINARY:
+                    addBodyBuffer(buffers.validity.addressOf(0), buffers.nullCount > 0 ? buffers.validity.getAppendOffset() : 0);
+                    addBodyBuffer(buffers.offsets.addressOf(0), buffers.offsets.getAppendOffset());
+                    addBodyBuffer(buffers.data.ptr(), buffers.data.size());
+                    break;
+                default:
+                    addBodyBuffer(buffers.validity.addressOf(0), buffers.nullCount > 0 ? buffers.validity.getAppendOffset() : 0);
+                    if (buffers.valuesAddress != 0) {
+                        addBodyBuffer(buffers.valuesAddress, buffers.valuesSize);
+                    } else {
+                        addBodyBuffer(buffers.values.addressOf(0), buffers.values.getAppendOffset());
+                    }
+                    break;
+            }
+        }
+
+        // RecordBatch table: length, nodes, buffers
+        final long header = beginMessage(HEADER_RECORD_BATCH, bodyLength);
+        final long vtable = putVTable(24, 8, 4, 16);
+        align(8);
+        final long table = startTable(vtable);
+        putOffset(header, table);
+        final long nodes = meta.getAppendOffset();
+        meta.putInt(0);
+        meta.putLong(batchRowCount);
+        final long buffers = meta.getAppendOffset();
+        meta.putInt(0);
+        meta.putInt(0);
+
+        // vector of FieldNode structs, elements are 8-byte aligned
+        startStructVector(nodes, columnTypes.size());
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            meta.putLong(batchRowCount);
+            meta.putLong(columnBuffers.getQuick(i).nullCount);
+        }
+
+        // vector of Buffer structs
+        startStructVector(buffers, bodyBuffers.size() / 2);
+        for (int i = 0, n = bodyBuffers.size(); i < n; i++) {
+            meta.putLong(bodyBuffers.getQuick(i));
+        }
+        finishMessage();
+    }
+
+    private void prepareSchema() {
+        segments.clear();
+        segments.add(0L, 0L);
+
+        // Schema table: endianness, fields
+        final long header = beginMessage(HEADER_SCHEMA, 0);
+        final long vtable = putVTable(12, 4, 8);
+        final long table = startTable(vtable);
+        putOffset(header, table);
+        meta.putShort((short) 0);
+        meta.putShort((short) 0);
+        final long fields = meta.getAppendOffset();
+        meta.putInt(0);
+
+        final int columnCount = columnTypes.size();
+        align(4);
+        putOffset(fields, meta.getAppendOffset());
+        meta.putInt(columnCount);
+        final long fieldOffsets = meta.getAppendOffset();
+        for (int i = 0; i < columnCount; i++) {
+            meta.putInt(0);
+        }
+        for (int i = 0; i < columnCount; i++) {
+            putOffset(fieldOffsets + 4L * i, putField(i));
+        }
+        finishMessage();
+    }
+
+    private long putField(int columnIndex) {
+        final byte arrowType = columnBuffers.getQuick(columnIndex).arrowType;
+        // Field table: name, nullable, type_type, type, dictionary (absent), children
+        final long vtable = putVTable(20, 4, 16, 17, 8, 0, 12);
+        final long table = startTable(vtable);
+        final long name = meta.getAppendOffset();
+        meta.putInt(0);
+        final long type = meta.getAppendOffset();
+        meta.putInt(0);
+        final long children = meta.getAppendOffset();
+        meta.putInt(0);
+        meta.putByte((byte) 1);
+        meta.putByte(arrowType);
+        meta.putShort((short) 0);
+
+        nameSink.clear();
+        nameSink.put(metadata.getColumnName(columnIndex));
+        align(4);
+        putOffset(name, meta.getAppendOffset());
+        meta.putInt(nameSink.size());
+        meta.putBlockOfBytes(nameSink.ptr(), nameSink.size());
+        meta.putByte((byte) 0);
+
+        putOffset(type, putType(columnTypes.getQuick(columnIndex), arrowType));
+
+        align(4);
+        putOffset(children, meta.getAppendOffset());
+        meta.putInt(0);
+        return table;
+    }
+
+    private void putOffset(long field, long target) {
+        meta.putInt(field, (int) (target - field));
+    }
+
+    private long putType(int columnType, byte arrowType) {
+        final long vtable;
+        final long table;
+        switch (arrowType) {
+            case TYPE_INT:
+                // bitWidth, is_signed
+                vtable = putVTable(12, 4, 8);
+                table = startTable(vtable);
+                meta.putInt(8 << ColumnType.pow2SizeOf(columnType));
+                final short tag = ColumnType.tagOf(columnType);
+                meta.putByte((byte) (tag == ColumnType.CHAR || tag == ColumnType.IPv4 ? 0 : 1));
+                meta.putByte((byte) 0);
+                meta.putShort((short) 0);
+                break;
+            case TYPE_FLOATING_POINT:
+            case TYPE_DATE:
+            case TYPE_TIMESTAMP:
+                // precision or unit, timestamp timezone is absent
+                vtable = putVTable(8, 4);
+                table = startTable(vtable);
+                if (arrowType == TYPE_DATE) {
+                    meta.putShort(DATE_UNIT_MILLISECOND);
+                } else if (arrowType == TYPE_TIMESTAMP) {
+                    meta.putShort(TIME_UNIT_MICROSECOND);
+                } else {
+                    meta.putShort(ColumnType.tagOf(columnType) == ColumnType.FLOAT ? FLOAT_PRECISION_SINGLE : FLOAT_PRECISION_DOUBLE);
+                }
+                meta.putShort((short) 0);
+                break;
+            case TYPE_FIXED_SIZE_BINARY:
+                // byteWidth
+                vtable = putVTable(8, 4);
+                table = startTable(vtable);
+                meta.putInt(ColumnType.tagOf(columnType) == ColumnType.UUID ? 16 : 32);
+                break;
+            default:
+                vtable = putVTable(4);
+                table = startTable(vtable);
+                break;
+        }
+        return table;
+    }
+
+    private long putVTable(int tableSize, int... fieldOffsets) {
+        align(4);
+        final long vtable = meta.getAppendOffset();
+        meta.putShort((short) (4 + 2 * fieldOffsets.length));
+        meta.putShort((short) tableSize);
+        for (int i = 0; i < fieldOffsets.length; i++) {
+            meta.putShort((short) fieldOffsets[i]);
+        }
+        return vtable;
+    }
+
+    private long scanNulls(int columnType, long address, long rowCount, MemoryCARW validity) {
+        long nullCount = 0;
+        for (long r = 0; r < rowCount; r++) {
+            final boolean isNull = isNull(columnType, address, r);
+            setBit(validity, r, !isNull);
+            if (isNull) {
+                nullCount++;
+            }
+        }
+        return nullCount;
+    }
+
+    private void startStructVector(long field, int count) {
+        align(4);
+        if ((meta.getAppendOffset() & 7) == 0) {
+            meta.putInt(0);
+        }
+        putOffset(field, meta.getAppendOffset());
+        meta.putInt(count);
+    }
+
+    private long startTable(long vtable) {
+        align(4);
+        final long table = meta.getAppendOffset();
+        meta.putInt((int) (table - vtable));
+        return table;
+    }
+
+    private static class ColumnBuffers implements Closeable {
+        private final MemoryCARW validity = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_HTTP_CONN);
+        private final MemoryCARW values = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_HTTP_CONN);
+        private byte arrowType;
+        private DirectUtf8Sink data;
+        private long nullCount;
+        private MemoryCARW offsets;
+        private long valuesAddress;
+        private long valuesSize;
+
+        @Override
+        public void close() {
+            validity.close();
+            values.close();
+            offsets = Misc.free(offsets);
+            data = Misc.free(data);
+        }
+
+        void of(int columnType) {
+            arrowType = getArrowType(columnType);
+            validity.jumpTo(0);
+            values.jumpTo(0);
+            valuesAddress = 0;
+            valuesSize = 0;
+            nullCount = 0;
+            if (arrowType == TYPE_UTF8 || arrowType == TYPE_BINARY) {
+                if (offsets == null) {
+                    offsets = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_HTTP_CONN);
+                    data = new DirectUtf8Sink(PAGE_SIZE);
+                }
+                offsets.jumpTo(0);
+                offsets.putInt(0);
+                data.clear();
+            }
+        }
+    }
+}
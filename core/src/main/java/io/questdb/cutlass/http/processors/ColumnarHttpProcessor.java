@@ -0,0 +1,169 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cutlass.http.*;
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.network.QueryPausedException;
+import io.questdb.network.ServerDisconnectException;
+import io.questdb.std.str.DirectUtf8Sequence;
+import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8Sequence;
+import io.questdb.std.str.Utf8String;
+import io.questdb.std.str.Utf8s;
+
+import static io.questdb.cutlass.http.HttpConstants.CONTENT_TYPE_JSON;
+import static io.questdb.cutlass.http.processors.LineHttpProcessorState.Status.*;
+
+/**
+ * Bulk ingestion endpoint, which accepts column-oriented batches instead of ILP lines.
+ * The target table is given by the <code>table</code> URL parameter, see
+ * {@link ColumnarHttpProcessorState} for the batch layout.
+ */
+public class ColumnarHttpProcessor implements HttpRequestProcessor, HttpMultipartContentListener {
+    private static final Utf8String CONTENT_ENCODING = new Utf8String("Content-Encoding");
+    private static final LocalValue<ColumnarHttpProcessorState> LV = new LocalValue<>();
+    private static final Utf8String URL_PARAM_TABLE = new Utf8String("table");
+    private final CairoEngine engine;
+    private final int maxResponseContentLength;
+    private final StringSink tableName = new StringSink();
+    private ColumnarHttpProcessorState state;
+
+    public ColumnarHttpProcessor(CairoEngine engine, int maxResponseContentLength) {
+        this.engine = engine;
+        this.maxResponseContentLength = maxResponseContentLength;
+    }
+
+    @Override
+    public void onChunk(long lo, long hi) {
+        state.parse(lo, hi);
+    }
+
+    @Override
+    public void onConnectionClosed(HttpConnectionContext context) {
+        state = LV.get(context);
+        if (state != null) {
+            state.onDisconnected();
+        }
+    }
+
+    @Override
+    public void onHeadersReady(HttpConnectionContext context) {
+        state = LV.get(context);
+        if (state == null) {
+            state = new ColumnarHttpProcessorState(engine, maxResponseContentLength);
+            LV.set(context, state);
+        } else {
+            state.clear();
+        }
+
+        HttpRequestHeader requestHeader = context.getRequestHeader();
+        if (!Utf8s.equalsNcAscii("POST", requestHeader.getMethod())) {
+            state.reject(METHOD_NOT_SUPPORTED, "Not Found", context.getFd());
+            return;
+        }
+
+        Utf8Sequence encoding = requestHeader.getHeader(CONTENT_ENCODING);
+        if (encoding != null && Utf8s.endsWithAscii(encoding, "gzip")) {
+            state.reject(ENCODING_NOT_SUPPORTED, "gzip encoding is not supported", context.getFd());
+            return;
+        }
+
+        DirectUtf8Sequence table = requestHeader.getUrlParam(URL_PARAM_TABLE);
+        tableName.clear();
+        if (table == null || table.size() == 0 || !Utf8s.utf8ToUtf16(table, tableName)) {
+            state.reject(PARSE_ERROR, "table name is missing or invalid", context.getFd());
+            return;
+        }
+
+        state.of(context.getFd(), tableName, context.getSecurityContext());
+    }
+
+    @Override
+    public void onPartBegin(HttpRequestHeader partHeader) {
+    }
+
+    @Override
+    public void onPartEnd() {
+    }
+
+    @Override
+    public void onRequestComplete(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        state.onMessageComplete();
+        state.setSendStatus(SendStatus.HEADER);
+        if (state.isOk()) {
+            context.simpleResponse().sendStatusNoContent(204);
+        } else {
+            sendErrorHeader(context);
+            state.setSendStatus(SendStatus.CONTENT);
+            sendErrorContent(context);
+        }
+    }
+
+    @Override
+    public void resumeRecv(HttpConnectionContext context) {
+        state = LV.get(context);
+    }
+
+    @Override
+    public void resumeSend(
+            HttpConnectionContext context
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException, QueryPausedException {
+        state = LV.get(context);
+        assert state != null;
+
+        switch (state.getSendStatus()) {
+            case HEADER:
+                context.resumeResponseSend();
+                if (!state.isOk()) {
+                    state.setSendStatus(SendStatus.CONTENT);
+                    sendErrorContent(context);
+                }
+                break;
+
+            case CONTENT:
+                context.resumeResponseSend();
+                break;
+
+            default:
+                throw HttpException.instance("unexpected send status: " + state.getSendStatus());
+        }
+    }
+
+    private void sendErrorContent(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        HttpChunkedResponse response = context.getChunkedResponse();
+        state.formatError(response);
+        response.sendChunk(true);
+    }
+
+    private void sendErrorHeader(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        HttpChunkedResponse response = context.getChunkedResponse();
+        response.status(state.getHttpResponseCode(), CONTENT_TYPE_JSON);
+        response.sendHeader();
+    }
+}
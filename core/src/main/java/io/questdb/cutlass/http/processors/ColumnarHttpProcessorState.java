@@ -0,0 +1,415 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.SecurityContext;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.sql.TableRecordMetadata;
+import io.questdb.cairo.wal.WalWriter;
+import io.questdb.cutlass.http.ConnectionAware;
+import io.questdb.cutlass.http.processors.LineHttpProcessorState.Status;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8Sink;
+import io.questdb.std.str.Utf8StringSink;
+import io.questdb.std.str.Utf8s;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decodes column-oriented batches streamed in the body of a <code>/write/columnar</code> request
+ * and copies the column values into the table's WAL without going through rows.
+ * <p>
+ * The body is a sequence of batches, all numbers are little-endian:
+ * <pre>
+ * batch:  long rowCount, int columnCount, column[columnCount]
+ * column: int nameSize, byte[nameSize] UTF-8 name, int columnType, byte[rowCount * valueSize] values
+ * </pre>
+ * Column values use the layout of the column's <code>.d</code> file. The designated timestamp
+ * column is mandatory, other table columns may be omitted and are then set to null. Only fixed-size,
+ * non-symbol column types are supported. All batches of a request are committed as a single transaction.
+ */
+public class ColumnarHttpProcessorState implements QuietCloseable, ConnectionAware {
+    private static final AtomicLong ERROR_COUNT = new AtomicLong();
+    private static final String ERROR_ID = UUID.randomUUID().toString().substring(24, 36);
+    private static final Log LOG = LogFactory.getLog(ColumnarHttpProcessorState.class);
+    // keeps the byte size of a column within a long, the widest fixed-size value is 32 bytes
+    private static final long MAX_ROW_COUNT = Long.MAX_VALUE >> 5;
+    private static final int STATE_COLUMN_COUNT = 1;
+    private static final int STATE_COLUMN_DATA = 5;
+    private static final int STATE_COLUMN_NAME = 3;
+    private static final int STATE_COLUMN_NAME_SIZE = 2;
+    private static final int STATE_COLUMN_TYPE = 4;
+    private static final int STATE_ROW_COUNT = 0;
+    private final IntHashSet batchColumns = new IntHashSet();
+    private final Utf8StringSink columnName = new Utf8StringSink();
+    private final StringSink columnNameUtf16 = new StringSink();
+    private final CairoEngine engine;
+    private final StringSink error = new StringSink();
+    private final int maxColumnNameSize;
+    private final int maxResponseErrorMessageLength;
+    private final StringSink tableName = new StringSink();
+    private long bytesRemaining;
+    private int columnIndex;
+    private long columnsRemaining;
+    private long errorId;
+    private int fd = -1;
+    private long rowCount;
+    private long scratch;
+    private int scratchSize;
+    private SendStatus sendStatus = SendStatus.NONE;
+    private int state = STATE_ROW_COUNT;
+    private Status status = Status.OK;
+    private boolean timestampColumn;
+    private long totalRowCount;
+    private WalWriter writer;
+
+    public ColumnarHttpProcessorState(CairoEngine engine, int maxResponseContentLength) {
+        this.engine = engine;
+        // column names are limited in characters, a character takes up to 4 bytes in UTF-8
+        this.maxColumnNameSize = engine.getConfiguration().getMaxFileNameLength() * 4;
+        // approximate 1.5 bytes per character in the error message
+        this.maxResponseErrorMessageLength = (int) ((maxResponseContentLength - 100) / 1.5);
+        this.scratch = Unsafe.malloc(Long.BYTES, MemoryTag.NATIVE_HTTP_CONN);
+    }
+
+    public void clear() {
+        writer = Misc.free(writer);
+        batchColumns.clear();
+        error.clear();
+        tableName.clear();
+        scratchSize = 0;
+        sendStatus = SendStatus.NONE;
+        state = STATE_ROW_COUNT;
+        status = Status.OK;
+        totalRowCount = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        scratch = Unsafe.free(scratch, Long.BYTES, MemoryTag.NATIVE_HTTP_CONN);
+    }
+
+    public void formatError(Utf8Sink sink) {
+        sink.putAscii("{\"code\":\"").putAscii(status.getCodeStr());
+        sink.putAscii("\",\"message\":\"");
+        sink.escapeJsonStr(error, 0, Math.min(error.length(), maxResponseErrorMessageLength));
+        sink.putAscii("\",\"errorId\":\"").putAscii(ERROR_ID).put('-').put(errorId).putAscii("\"}");
+    }
+
+    public int getHttpResponseCode() {
+        return status.getResponseCode();
+    }
+
+    public SendStatus getSendStatus() {
+        return sendStatus;
+    }
+
+    public boolean isOk() {
+        return status == Status.OK;
+    }
+
+    public void of(int fd, CharSequence tableName, SecurityContext securityContext) {
+        this.fd = fd;
+        this.tableName.put(tableName);
+        final TableToken tableToken = engine.getTableTokenIfExists(tableName);
+        if (tableToken == null) {
+            reject(Status.PARSE_ERROR, "table does not exist: " + tableName, fd);
+            return;
+        }
+        if (!engine.isWalTable(tableToken)) {
+            reject(Status.PARSE_ERROR, "table is not a WAL table: " + tableName, fd);
+            return;
+        }
+        try {
+            securityContext.authorizeInsert(tableToken);
+            writer = engine.getWalWriter(tableToken);
+        } catch (CairoException e) {
+            onError(e);
+        }
+    }
+
+    public void onDisconnected() {
+        clear();
+    }
+
+    public void onMessageComplete() {
+        if (status != Status.OK) {
+            return;
+        }
+        if (state != STATE_ROW_COUNT || scratchSize > 0) {
+            reject(Status.PARSE_ERROR, "incomplete columnar batch", fd);
+            return;
+        }
+        try {
+            writer.commit();
+            LOG.info().$("committed columnar batches [table=").$(tableName)
+                    .$(", rows=").$(totalRowCount)
+                    .$(", fd=").$(fd)
+                    .I$();
+        } catch (CairoException e) {
+            onError(e);
+        } finally {
+            writer = Misc.free(writer);
+        }
+    }
+
+    public void parse(long lo, long hi) {
+        if (status != Status.OK) {
+            return;
+        }
+        try {
+            long pos = lo;
+            while (pos < hi && status == Status.OK) {
+                switch (state) {
+                    case STATE_ROW_COUNT:
+                        pos = readScratch(pos, hi, Long.BYTES);
+                        if (scratchSize == Long.BYTES) {
+                            scratchSize = 0;
+                            onRowCount(Unsafe.getUnsafe().getLong(scratch));
+                        }
+                        break;
+                    case STATE_COLUMN_COUNT:
+                        pos = readScratch(pos, hi, Integer.BYTES);
+                        if (scratchSize == Integer.BYTES) {
+                            scratchSize = 0;
+                            onColumnCount(Unsafe.getUnsafe().getInt(scratch));
+                        }
+                        break;
+                    case STATE_COLUMN_NAME_SIZE:
+                        pos = readScratch(pos, hi, Integer.BYTES);
+                        if (scratchSize == Integer.BYTES) {
+                            scratchSize = 0;
+                            onColumnNameSize(Unsafe.getUnsafe().getInt(scratch));
+                        }
+                        break;
+                    case STATE_COLUMN_NAME: {
+                        final long n = Math.min(bytesRemaining, hi - pos);
+                        columnName.putUtf8(pos, pos + n);
+                        pos += n;
+                        bytesRemaining -= n;
+                        if (bytesRemaining == 0) {
+                            onColumnName();
+                        }
+                        break;
+                    }
+                    case STATE_COLUMN_TYPE:
+                        pos = readScratch(pos, hi, Integer.BYTES);
+                        if (scratchSize == Integer.BYTES) {
+                            scratchSize = 0;
+                            onColumnType(Unsafe.getUnsafe().getInt(scratch));
+                        }
+                        break;
+                    case STATE_COLUMN_DATA:
+                        pos = copyColumnData(pos, hi);
+                        break;
+                    default:
+                        throw new AssertionError("unexpected state: " + state);
+                }
+            }
+        } catch (CairoException e) {
+            onError(e);
+        } catch (Throwable th) {
+            errorId = ERROR_COUNT.incrementAndGet();
+            LOG.critical().$("could not write columnar batch [table=").$(tableName)
+                    .$(", errorId=").$(ERROR_ID).$('-').$(errorId)
+                    .$(", fd=").$(fd)
+                    .$(", ex=").$(th)
+                    .I$();
+            error.put("write error: ").put(tableName).put(", error: ").put(th.getClass().getCanonicalName());
+            status = Status.INTERNAL_ERROR;
+            writer = Misc.free(writer);
+        }
+    }
+
+    public void reject(Status status, CharSequence errorText, int fd) {
+        this.status = status;
+        this.fd = fd;
+        error.put(errorText);
+        errorId = ERROR_COUNT.incrementAndGet();
+        LOG.info().$("columnar batch rejected [errorId=").$(ERROR_ID).$('-').$(errorId)
+                .$(", table=").$(tableName)
+                .$(", error=").$(error)
+                .$(", fd=").$(fd)
+                .I$();
+        writer = Misc.free(writer);
+    }
+
+    public void setSendStatus(SendStatus sendStatus) {
+        this.sendStatus = sendStatus;
+    }
+
+    private long copyColumnData(long pos, long hi) {
+        if (!timestampColumn) {
+            final long n = Math.min(bytesRemaining, hi - pos);
+            writer.putColumnarBytes(columnIndex, pos, pos + n);
+            pos += n;
+            bytesRemaining -= n;
+        } else if (scratchSize > 0) {
+            // complete a timestamp split across chunks
+            pos = readScratch(pos, hi, Long.BYTES);
+            if (scratchSize == Long.BYTES) {
+                scratchSize = 0;
+                writer.putColumnarTimestamps(scratch, scratch + Long.BYTES);
+                bytesRemaining -= Long.BYTES;
+            }
+        } else {
+            final long n = Math.min(bytesRemaining, hi - pos) & ~(Long.BYTES - 1);
+            if (n > 0) {
+                writer.putColumnarTimestamps(pos, pos + n);
+                pos += n;
+                bytesRemaining -= n;
+            } else {
+                pos = readScratch(pos, hi, Long.BYTES);
+            }
+        }
+        if (bytesRemaining == 0) {
+            onColumnComplete();
+        }
+        return pos;
+    }
+
+    private void onColumnComplete() {
+        if (--columnsRemaining == 0) {
+            writer.appendColumnarBlock(rowCount);
+            totalRowCount += rowCount;
+            state = STATE_ROW_COUNT;
+        } else {
+            state = STATE_COLUMN_NAME_SIZE;
+        }
+    }
+
+    private void onColumnCount(int columnCount) {
+        if (columnCount < 1) {
+            reject(Status.PARSE_ERROR, "invalid column count: " + columnCount, fd);
+            return;
+        }
+        columnsRemaining = columnCount;
+        batchColumns.clear();
+        writer.beginColumnarBlock();
+        state = STATE_COLUMN_NAME_SIZE;
+    }
+
+    private void onColumnName() {
+        columnNameUtf16.clear();
+        if (!Utf8s.utf8ToUtf16(columnName, columnNameUtf16)) {
+            reject(Status.PARSE_ERROR, "invalid UTF-8 in column name", fd);
+            return;
+        }
+        final TableRecordMetadata metadata = writer.getMetadata();
+        columnIndex = metadata.getColumnIndexQuiet(columnNameUtf16);
+        if (columnIndex < 0 || metadata.getColumnType(columnIndex) < 0) {
+            reject(Status.PARSE_ERROR, "column does not exist: " + columnNameUtf16, fd);
+            return;
+        }
+        if (!batchColumns.add(columnIndex)) {
+            reject(Status.PARSE_ERROR, "duplicate column in batch: " + columnNameUtf16, fd);
+            return;
+        }
+        state = STATE_COLUMN_TYPE;
+    }
+
+    private void onColumnNameSize(int nameSize) {
+        if (nameSize < 1 || nameSize > maxColumnNameSize) {
+            reject(Status.PARSE_ERROR, "invalid column name size: " + nameSize, fd);
+            return;
+        }
+        columnName.clear();
+        bytesRemaining = nameSize;
+        state = STATE_COLUMN_NAME;
+    }
+
+    private void onColumnType(int columnType) {
+        final TableRecordMetadata metadata = writer.getMetadata();
+        final int tableColumnType = metadata.getColumnType(columnIndex);
+        if (columnType != tableColumnType) {
+            reject(
+                    Status.PARSE_ERROR,
+                    "column type mismatch [column=" + columnNameUtf16
+                            + ", expected=" + ColumnType.nameOf(tableColumnType)
+                            + ", actual=" + ColumnType.nameOf(columnType) + ']',
+                    fd
+            );
+            return;
+        }
+        if (ColumnType.isVarSize(columnType) || ColumnType.isSymbol(columnType)) {
+            reject(Status.PARSE_ERROR, "unsupported column type: " + ColumnType.nameOf(columnType), fd);
+            return;
+        }
+        timestampColumn = columnIndex == metadata.getTimestampIndex();
+        bytesRemaining = rowCount * (timestampColumn ? Long.BYTES : ColumnType.sizeOf(columnType));
+        state = STATE_COLUMN_DATA;
+        if (bytesRemaining == 0) {
+            onColumnComplete();
+        }
+    }
+
+    private void onError(CairoException e) {
+        final Status status;
+        if (e.isAuthorizationError()) {
+            status = Status.SECURITY_ERROR;
+        } else if (e.isCritical()) {
+            status = Status.INTERNAL_ERROR;
+        } else {
+            status = Status.APPEND_ERROR;
+        }
+        error.put("write error: ").put(tableName)
+                .put(", errno: ").put(e.getErrno())
+                .put(", error: ").put(e.getFlyweightMessage());
+        this.status = status;
+        errorId = ERROR_COUNT.incrementAndGet();
+        LOG.error().$("could not write columnar batch [table=").$(tableName)
+                .$(", errorId=").$(ERROR_ID).$('-').$(errorId)
+                .$(", errno=").$(e.getErrno())
+                .$(", fd=").$(fd)
+                .$(", ex=").$(e.getFlyweightMessage())
+                .I$();
+        writer = Misc.free(writer);
+    }
+
+    private void onRowCount(long rowCount) {
+        if (rowCount < 0 || rowCount > MAX_ROW_COUNT) {
+            reject(Status.PARSE_ERROR, "invalid row count: " + rowCount, fd);
+            return;
+        }
+        this.rowCount = rowCount;
+        state = STATE_COLUMN_COUNT;
+    }
+
+    private long readScratch(long pos, long hi, int size) {
+        final int n = (int) Math.min(size - scratchSize, hi - pos);
+        Vect.memcpy(scratch + scratchSize, pos, n);
+        scratchSize += n;
+        return pos + n;
+    }
+}
@@ -172,7 +172,10 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
                 return;
             }
 
-            final RecordCursorFactory factory = context.getSelectCache().poll(state.getQuery());
+            final QueryCache queryCache = engine.getQueryCache();
+            final RecordCursorFactory factory = queryCache != null
+                    ? queryCache.poll(context.getSecurityContext(), state.getQuery(), null)
+                    : context.getSelectCache().poll(state.getQuery());
             if (factory != null) {
                 // queries with sensitive info are not cached, doLog = true
                 queryLogger.logExecQuery(LOG, true, context.getFd(), state.getQuery(), context.getSecurityContext());
@@ -251,7 +254,8 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
                     nanosecondClock,
                     configuration.getFloatScale(),
                     configuration.getDoubleScale(),
-                    configuration.getKeepAliveHeader()
+                    configuration.getKeepAliveHeader(),
+                    engine.getQueryCache()
             ));
         }
 
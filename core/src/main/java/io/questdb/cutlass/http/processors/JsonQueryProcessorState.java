@@ -27,6 +27,9 @@ package io.questdb.cutlass.http.processors;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.DataUnavailableException;
 import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.QueryCache;
+import io.questdb.cairo.ResultCache;
+import io.questdb.cairo.SecurityContext;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
 import io.questdb.cutlass.http.HttpChunkedResponse;
@@ -46,6 +49,7 @@ import io.questdb.std.str.DirectUtf8Sequence;
 import io.questdb.std.str.StringSink;
 import io.questdb.std.str.Utf8Sequence;
 import io.questdb.std.str.Utf8s;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 
@@ -76,6 +80,7 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     private final CharSequence keepAliveHeader;
     private final NanosecondClock nanosecondClock;
     private final StringSink query = new StringSink();
+    private final QueryCache queryCache;
     private final ObjList<StateResumeAction> resumeActions = new ObjList<>();
     private final long statementTimeout;
     private SqlExecutionCircuitBreaker circuitBreaker;
@@ -102,6 +107,7 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     private long recordCountNanos;
     private RecordCursorFactory recordCursorFactory;
     private Rnd rnd;
+    private SecurityContext securityContext;
     private long skip;
     private long stop;
     private boolean timings = false;
@@ -111,9 +117,11 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
             NanosecondClock nanosecondClock,
             int floatScale,
             int doubleScale,
-            CharSequence keepAliveHeader
+            CharSequence keepAliveHeader,
+            @Nullable QueryCache queryCache
     ) {
         this.httpConnectionContext = httpConnectionContext;
+        this.queryCache = queryCache;
         resumeActions.extendAndSet(QUERY_SETUP_FIRST_RECORD, this::onSetupFirstRecord);
         resumeActions.extendAndSet(QUERY_PREFIX, this::onQueryPrefix);
         resumeActions.extendAndSet(QUERY_METADATA, this::onQueryMetadata);
@@ -142,13 +150,16 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         circuitBreaker = null;
         record = null;
         if (recordCursorFactory != null) {
-            if (queryCacheable) {
-                httpConnectionContext.getSelectCache().put(query, recordCursorFactory);
-            } else {
+            if (!queryCacheable) {
                 recordCursorFactory.close();
+            } else if (queryCache != null) {
+                queryCache.put(securityContext, query, recordCursorFactory, null);
+            } else {
+                httpConnectionContext.getSelectCache().put(query, recordCursorFactory);
             }
             recordCursorFactory = null;
         }
+        securityContext = null;
         query.clear();
         columnsQueryParameter.clear();
         queryState = QUERY_SETUP_FIRST_RECORD;
@@ -888,11 +899,15 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     ) throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
         this.recordCursorFactory = factory;
         this.queryCacheable = queryCacheable;
+        this.securityContext = sqlExecutionContext.getSecurityContext();
         this.queryJitCompiled = factory.usesCompiledFilter();
         // Enable column pre-touch in REST API only when LIMIT K,N is not specified since when limit is defined
         // we do a no-op loop over the cursor to calculate the total row count and pre-touch only slows things down.
         sqlExecutionContext.setColumnPreTouchEnabled(stop == Long.MAX_VALUE);
-        this.cursor = factory.getCursor(sqlExecutionContext);
+        final ResultCache resultCache = sqlExecutionContext.getCairoEngine().getResultCache();
+        this.cursor = queryCacheable && resultCache != null
+                ? resultCache.getCursor(query, factory, sqlExecutionContext)
+                : factory.getCursor(sqlExecutionContext);
         this.circuitBreaker = sqlExecutionContext.getCircuitBreaker();
         final RecordMetadata metadata = factory.getMetadata();
         this.queryTimestampIndex = metadata.getTimestampIndex();
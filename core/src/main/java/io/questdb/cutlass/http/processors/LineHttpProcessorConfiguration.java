@@ -46,6 +46,8 @@ public interface LineHttpProcessorConfiguration {
 
     LineTcpTimestampAdapter getTimestampAdapter();
 
+    boolean isBinaryFormatEnabled();
+
     boolean isEnabled();
 
     boolean isStringAsTagSupported();
@@ -72,7 +72,11 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
         this.maxResponseErrorMessageLength = (int) ((maxResponseContentLength - 100) / 1.5);
         this.recvBufPos = this.buffer = Unsafe.malloc(recvBufSize, MemoryTag.NATIVE_HTTP_CONN);
         this.recvBufEnd = this.recvBufPos + recvBufSize;
-        this.parser = new LineTcpParser(configuration.isStringAsTagSupported(), configuration.isSymbolAsFieldSupported());
+        this.parser = new LineTcpParser(
+                configuration.isStringAsTagSupported(),
+                configuration.isSymbolAsFieldSupported(),
+                configuration.isBinaryFormatEnabled()
+        );
         this.parser.of(buffer);
         this.appender = new LineWalAppender(
                 configuration.autoCreateNewColumns(),
@@ -460,5 +464,13 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
             this.codeStr = codeStr;
             this.responseCode = responseCode;
         }
+
+        public String getCodeStr() {
+            return codeStr;
+        }
+
+        public int getResponseCode() {
+            return responseCode;
+        }
     }
 }
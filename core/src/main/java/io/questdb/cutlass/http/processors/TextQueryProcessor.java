@@ -28,8 +28,11 @@ import io.questdb.Metrics;
 import io.questdb.QueryLogger;
 import io.questdb.TelemetryOrigin;
 import io.questdb.cairo.*;
+import io.questdb.cairo.sql.DataFrameCursorFactory;
 import io.questdb.cairo.sql.NetworkSqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.PageFrame;
 import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.TableReferenceOutOfDateException;
 import io.questdb.cutlass.http.*;
 import io.questdb.griffin.CompiledQuery;
@@ -44,6 +47,7 @@ import io.questdb.std.*;
 import io.questdb.std.datetime.millitime.MillisecondClock;
 import io.questdb.std.str.DirectUtf8Sequence;
 import io.questdb.std.str.Utf8Sequence;
+import io.questdb.std.str.Utf8Sink;
 import io.questdb.std.str.Utf8s;
 import org.jetbrains.annotations.TestOnly;
 
@@ -66,6 +70,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
     private final int doubleScale;
     private final CairoEngine engine;
     private final int floatScale;
+    private final long maxArrowBatchRowCount;
     private final int maxSqlRecompileAttempts;
     private final Metrics metrics;
     private final QueryLogger queryLogger;
@@ -97,9 +102,108 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         this.engine = engine;
         queryLogger = engine.getConfiguration().getQueryLogger();
         maxSqlRecompileAttempts = engine.getConfiguration().getMaxSqlRecompileAttempts();
+        maxArrowBatchRowCount = engine.getConfiguration().getSqlPageFrameMaxRows();
         requiredAuthType = configuration.getRequiredAuthType();
     }
 
+    /**
+     * Writes CSV representation of a value as sent by /exp. COPY ... TO uses the same format.
+     */
+    public static void putValue(Utf8Sink response, int type, Record rec, int col, int doubleScale, int floatScale) {
+        long l;
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.BOOLEAN:
+                response.put(rec.getBool(col));
+                break;
+            case ColumnType.BYTE:
+                response.put((int) rec.getByte(col));
+                break;
+            case ColumnType.DOUBLE:
+                double d = rec.getDouble(col);
+                if (d == d) {
+                    response.put(d, doubleScale);
+                }
+                break;
+            case ColumnType.FLOAT:
+                float f = rec.getFloat(col);
+                if (f == f) {
+                    response.put(f, floatScale);
+                }
+                break;
+            case ColumnType.INT:
+                final int i = rec.getInt(col);
+                if (i > Integer.MIN_VALUE) {
+                    response.put(i);
+                }
+                break;
+            case ColumnType.LONG:
+                l = rec.getLong(col);
+                if (l > Long.MIN_VALUE) {
+                    response.put(l);
+                }
+                break;
+            case ColumnType.DATE:
+                l = rec.getDate(col);
+                if (l > Long.MIN_VALUE) {
+                    response.putAscii('"').putISODateMillis(l).putAscii('"');
+                }
+                break;
+            case ColumnType.TIMESTAMP:
+                l = rec.getTimestamp(col);
+                if (l > Long.MIN_VALUE) {
+                    response.putAscii('"').putISODate(l).putAscii('"');
+                }
+                break;
+            case ColumnType.SHORT:
+                response.put(rec.getShort(col));
+                break;
+            case ColumnType.CHAR:
+                char c = rec.getChar(col);
+                if (c > 0) {
+                    response.put(c);
+                }
+                break;
+            case ColumnType.NULL:
+            case ColumnType.BINARY:
+            case ColumnType.RECORD:
+                break;
+            case ColumnType.STRING:
+                putStringOrNull(response, rec.getStrA(col));
+                break;
+            case ColumnType.SYMBOL:
+                putStringOrNull(response, rec.getSymA(col));
+                break;
+            case ColumnType.LONG256:
+                rec.getLong256(col, response);
+                break;
+            case ColumnType.GEOBYTE:
+                putGeoHashStringValue(response, rec.getGeoByte(col), type);
+                break;
+            case ColumnType.GEOSHORT:
+                putGeoHashStringValue(response, rec.getGeoShort(col), type);
+                break;
+            case ColumnType.GEOINT:
+                putGeoHashStringValue(response, rec.getGeoInt(col), type);
+                break;
+            case ColumnType.GEOLONG:
+                putGeoHashStringValue(response, rec.getGeoLong(col), type);
+                break;
+            case ColumnType.UUID:
+                putUuidOrNull(response, rec.getLong128Lo(col), rec.getLong128Hi(col));
+                break;
+            case ColumnType.LONG128:
+                throw new UnsupportedOperationException();
+            case ColumnType.IPv4:
+                putIPv4Value(response, rec, col);
+                break;
+            case ColumnType.VARCHAR:
+                rec.getVarchar(col, response);
+                break;
+            default:
+                assert false;
+        }
+    }
+
     @Override
     public void close() {
         Misc.free(circuitBreaker);
@@ -113,7 +217,11 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
             boolean isExpRequest = isExpUrl(context.getRequestHeader().getUrl());
 
             circuitBreaker.resetTimer();
-            state.recordCursorFactory = context.getSelectCache().poll(state.query);
+            final QueryCache queryCache = engine.getQueryCache();
+            state.recordCursorFactory = queryCache != null
+                    ? queryCache.poll(context.getSecurityContext(), state.query, null)
+                    : context.getSelectCache().poll(state.query);
+            state.securityContext = context.getSecurityContext();
             state.setQueryCacheable(true);
             sqlExecutionContext.with(
                     context.getSecurityContext(),
@@ -149,7 +257,11 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                     boolean runQuery = true;
                     for (int retries = 0; runQuery; retries++) {
                         try {
-                            state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+                            if (state.arrow && canStreamPageFrames(state)) {
+                                state.pageFrameCursor = state.recordCursorFactory.getPageFrameCursor(sqlExecutionContext, DataFrameCursorFactory.ORDER_ASC);
+                            } else {
+                                state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+                            }
                             runQuery = false;
                         } catch (TableReferenceOutOfDateException e) {
                             if (retries == maxSqlRecompileAttempts) {
@@ -199,7 +311,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
     ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException, QueryPausedException {
         TextQueryProcessorState state = LV.get(context);
         if (state == null) {
-            LV.set(context, state = new TextQueryProcessorState(context));
+            LV.set(context, state = new TextQueryProcessorState(context, engine.getQueryCache()));
         }
         // new request clears random
         state.rnd = null;
@@ -238,6 +350,14 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         }
     }
 
+    private static boolean canStreamPageFrames(TextQueryProcessorState state) {
+        // page frames carry every row of the table, in the table order
+        return state.skip == 0
+                && state.stop == Long.MAX_VALUE
+                && state.recordCursorFactory.supportsPageFrameCursor()
+                && state.recordCursorFactory.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD;
+    }
+
     private static boolean isExpUrl(Utf8Sequence tok) {
         if (tok.size() != 4) {
             return false;
@@ -250,7 +370,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                 && (tok.byteAt(i) | 32) == 'p';
     }
 
-    private static void putGeoHashStringValue(HttpChunkedResponse response, long value, int type) {
+    private static void putGeoHashStringValue(Utf8Sink response, long value, int type) {
         if (value == GeoHashes.NULL) {
             response.putAscii("null");
         } else {
@@ -265,20 +385,20 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         }
     }
 
-    private static void putIPv4Value(HttpChunkedResponse response, Record rec, int col) {
+    private static void putIPv4Value(Utf8Sink response, Record rec, int col) {
         final int ip = rec.getIPv4(col);
         if (ip != Numbers.IPv4_NULL) {
             Numbers.intToIPv4Sink(response, ip);
         }
     }
 
-    private static void putStringOrNull(HttpChunkedResponse r, CharSequence str) {
+    private static void putStringOrNull(Utf8Sink r, CharSequence str) {
         if (str != null) {
             r.putQuote().escapeJsonStr(str).putQuote();
         }
     }
 
-    private static void putUuidOrNull(HttpChunkedResponse response, long lo, long hi) {
+    private static void putUuidOrNull(Utf8Sink response, long lo, long hi) {
         if (Uuid.isNull(lo, hi)) {
             return;
         }
@@ -315,6 +435,11 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         }
 
         final HttpChunkedResponse response = context.getChunkedResponse();
+        if (state.arrow) {
+            doResumeSendArrow(response, state);
+            readyForNextRequest(context);
+            return;
+        }
         final int columnCount = state.metadata.getColumnCount();
 
         OUT:
@@ -379,7 +504,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                             if (state.columnIndex > 0) {
                                 response.putAscii(state.delimiter);
                             }
-                            putValue(response, state.metadata.getColumnType(state.columnIndex), state.record, state.columnIndex);
+                            putValue(response, state.metadata.getColumnType(state.columnIndex), state.record, state.columnIndex, doubleScale, floatScale);
                             state.columnIndex++;
                             response.bookmark();
                         }
@@ -421,6 +546,63 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         readyForNextRequest(context);
     }
 
+    private void doResumeSendArrow(
+            HttpChunkedResponse response,
+            TextQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException {
+        if (state.arrowWriter == null) {
+            state.arrowWriter = new ArrowStreamWriter(engine.getConfiguration());
+        }
+        final ArrowStreamWriter writer = state.arrowWriter;
+        try {
+            while (true) {
+                switch (state.queryState) {
+                    case JsonQueryProcessorState.QUERY_SETUP_FIRST_RECORD:
+                        if (state.cursor != null) {
+                            state.hasNext = state.cursor.hasNext();
+                        }
+                        header(response, state, 200);
+                        writer.of(state.metadata, state.pageFrameCursor);
+                        state.queryState = JsonQueryProcessorState.QUERY_METADATA;
+                        // fall through
+                    case JsonQueryProcessorState.QUERY_METADATA:
+                        // schema message
+                        writer.send(response);
+                        state.queryState = JsonQueryProcessorState.QUERY_RECORD_START;
+                        // fall through
+                    case JsonQueryProcessorState.QUERY_RECORD_START:
+                        if (!prepareArrowBatch(state)) {
+                            state.queryState = JsonQueryProcessorState.QUERY_SUFFIX;
+                            break;
+                        }
+                        state.queryState = JsonQueryProcessorState.QUERY_RECORD;
+                        // fall through
+                    case JsonQueryProcessorState.QUERY_RECORD:
+                        // record batch message
+                        writer.send(response);
+                        writer.clearBatch();
+                        state.queryState = JsonQueryProcessorState.QUERY_RECORD_START;
+                        break;
+                    case JsonQueryProcessorState.QUERY_SUFFIX:
+                        state.cursor = Misc.free(state.cursor);
+                        state.pageFrameCursor = Misc.free(state.pageFrameCursor);
+                        writer.prepareEndOfStream();
+                        state.queryState = JsonQueryProcessorState.QUERY_RECORD_SUFFIX;
+                        // fall through
+                    case JsonQueryProcessorState.QUERY_RECORD_SUFFIX:
+                        // end-of-stream marker
+                        writer.send(response);
+                        sendDone(response, state);
+                        return;
+                    default:
+                        return;
+                }
+            }
+        } catch (DataUnavailableException e) {
+            throw QueryPausedException.instance(e.getEvent(), sqlExecutionContext.getCircuitBreaker());
+        }
+    }
+
     private LogRecord error(TextQueryProcessorState state) {
         return LOG.error().$('[').$(state.getFd()).$("] ");
     }
@@ -545,102 +727,38 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         state.stop = stop;
         state.noMeta = Utf8s.equalsNcAscii("true", request.getUrlParam(URL_PARAM_NM));
         state.countRows = Utf8s.equalsNcAscii("true", request.getUrlParam(URL_PARAM_COUNT));
+        state.arrow = Utf8s.equalsNcAscii("arrow", request.getUrlParam(URL_PARAM_FMT));
         return true;
     }
 
-    private void putValue(HttpChunkedResponse response, int type, Record rec, int col) {
-        long l;
-        switch (ColumnType.tagOf(type)) {
-            case ColumnType.BOOLEAN:
-                response.put(rec.getBool(col));
-                break;
-            case ColumnType.BYTE:
-                response.put((int) rec.getByte(col));
-                break;
-            case ColumnType.DOUBLE:
-                double d = rec.getDouble(col);
-                if (d == d) {
-                    response.put(d, doubleScale);
-                }
-                break;
-            case ColumnType.FLOAT:
-                float f = rec.getFloat(col);
-                if (f == f) {
-                    response.put(f, floatScale);
-                }
-                break;
-            case ColumnType.INT:
-                final int i = rec.getInt(col);
-                if (i > Integer.MIN_VALUE) {
-                    response.put(i);
-                }
-                break;
-            case ColumnType.LONG:
-                l = rec.getLong(col);
-                if (l > Long.MIN_VALUE) {
-                    response.put(l);
-                }
-                break;
-            case ColumnType.DATE:
-                l = rec.getDate(col);
-                if (l > Long.MIN_VALUE) {
-                    response.putAscii('"').putISODateMillis(l).putAscii('"');
-                }
-                break;
-            case ColumnType.TIMESTAMP:
-                l = rec.getTimestamp(col);
-                if (l > Long.MIN_VALUE) {
-                    response.putAscii('"').putISODate(l).putAscii('"');
-                }
-                break;
-            case ColumnType.SHORT:
-                response.put(rec.getShort(col));
-                break;
-            case ColumnType.CHAR:
-                char c = rec.getChar(col);
-                if (c > 0) {
-                    response.put(c);
-                }
-                break;
-            case ColumnType.NULL:
-            case ColumnType.BINARY:
-            case ColumnType.RECORD:
-                break;
-            case ColumnType.STRING:
-                putStringOrNull(response, rec.getStrA(col));
-                break;
-            case ColumnType.SYMBOL:
-                putStringOrNull(response, rec.getSymA(col));
-                break;
-            case ColumnType.LONG256:
-                rec.getLong256(col, response);
-                break;
-            case ColumnType.GEOBYTE:
-                putGeoHashStringValue(response, rec.getGeoByte(col), type);
-                break;
-            case ColumnType.GEOSHORT:
-                putGeoHashStringValue(response, rec.getGeoShort(col), type);
-                break;
-            case ColumnType.GEOINT:
-                putGeoHashStringValue(response, rec.getGeoInt(col), type);
-                break;
-            case ColumnType.GEOLONG:
-                putGeoHashStringValue(response, rec.getGeoLong(col), type);
-                break;
-            case ColumnType.UUID:
-                putUuidOrNull(response, rec.getLong128Lo(col), rec.getLong128Hi(col));
-                break;
-            case ColumnType.LONG128:
-                throw new UnsupportedOperationException();
-            case ColumnType.IPv4:
-                putIPv4Value(response, rec, col);
-                break;
-            case ColumnType.VARCHAR:
-                rec.getVarchar(col, response);
+    private boolean prepareArrowBatch(TextQueryProcessorState state) {
+        final ArrowStreamWriter writer = state.arrowWriter;
+        if (state.pageFrameCursor != null) {
+            sqlExecutionContext.getCircuitBreaker().statefulThrowExceptionIfTripped();
+            final PageFrame frame = state.pageFrameCursor.next();
+            if (frame == null) {
+                return false;
+            }
+            writer.prepareFrameBatch(frame);
+            return true;
+        }
+
+        // records are batched up to the page frame size
+        final Record record = state.cursor.getRecord();
+        while (writer.getBatchRowCount() < maxArrowBatchRowCount && state.count < state.stop) {
+            if (!state.hasNext && !state.cursor.hasNext()) {
                 break;
-            default:
-                assert false;
+            }
+            state.hasNext = false;
+            if (++state.count > state.skip) {
+                writer.appendRecord(record);
+            }
         }
+        if (writer.getBatchRowCount() == 0) {
+            return false;
+        }
+        writer.prepareRecordBatch();
+        return true;
     }
 
     private void sendConfirmation(HttpChunkedResponse response) throws PeerDisconnectedException, PeerIsSlowToReadException {
@@ -687,11 +805,12 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
             TextQueryProcessorState state,
             int statusCode
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        response.status(statusCode, CONTENT_TYPE_CSV);
+        response.status(statusCode, state.arrow ? CONTENT_TYPE_ARROW : CONTENT_TYPE_CSV);
+        final String extension = state.arrow ? ".arrows\"" : ".csv\"";
         if (state.fileName != null && !state.fileName.isEmpty()) {
-            response.headers().putAscii("Content-Disposition: attachment; filename=\"").put(state.fileName).putAscii(".csv\"").putEOL();
+            response.headers().putAscii("Content-Disposition: attachment; filename=\"").put(state.fileName).putAscii(extension).putEOL();
         } else {
-            response.headers().putAscii("Content-Disposition: attachment; filename=\"questdb-query-").put(clock.getTicks()).putAscii(".csv\"").putEOL();
+            response.headers().putAscii("Content-Disposition: attachment; filename=\"questdb-query-").put(clock.getTicks()).putAscii(extension).putEOL();
         }
         response.headers().setKeepAlive(configuration.getKeepAliveHeader());
         response.sendHeader();
@@ -24,6 +24,9 @@
 
 package io.questdb.cutlass.http.processors;
 
+import io.questdb.cairo.QueryCache;
+import io.questdb.cairo.SecurityContext;
+import io.questdb.cairo.sql.PageFrameCursor;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
@@ -33,12 +36,16 @@ import io.questdb.std.Misc;
 import io.questdb.std.Mutable;
 import io.questdb.std.Rnd;
 import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 
 public class TextQueryProcessorState implements Mutable, Closeable {
     final StringSink query = new StringSink();
     private final HttpConnectionContext httpConnectionContext;
+    private final QueryCache queryCache;
+    boolean arrow = false;
+    ArrowStreamWriter arrowWriter;
     boolean hasNext;
     int columnIndex;
     long count;
@@ -48,36 +55,47 @@ public class TextQueryProcessorState implements Mutable, Closeable {
     String fileName;
     RecordMetadata metadata;
     boolean noMeta = false;
+    PageFrameCursor pageFrameCursor;
     boolean pausedQuery = false;
     int queryState;
     Record record;
     RecordCursorFactory recordCursorFactory;
     Rnd rnd;
+    SecurityContext securityContext;
     long skip;
     long stop;
     private boolean queryCacheable = false;
 
-    public TextQueryProcessorState(HttpConnectionContext httpConnectionContext) {
+    public TextQueryProcessorState(HttpConnectionContext httpConnectionContext, @Nullable QueryCache queryCache) {
         this.httpConnectionContext = httpConnectionContext;
+        this.queryCache = queryCache;
         clear();
     }
 
     @Override
     public void clear() {
+        arrow = false;
+        if (arrowWriter != null) {
+            arrowWriter.clear();
+        }
         delimiter = ',';
         fileName = null;
         metadata = null;
         rnd = null;
         record = null;
         cursor = Misc.free(cursor);
+        pageFrameCursor = Misc.free(pageFrameCursor);
         if (null != recordCursorFactory) {
-            if (queryCacheable) {
-                httpConnectionContext.getSelectCache().put(query, recordCursorFactory);
-            } else {
+            if (!queryCacheable) {
                 recordCursorFactory.close();
+            } else if (queryCache != null) {
+                queryCache.put(securityContext, query, recordCursorFactory, null);
+            } else {
+                httpConnectionContext.getSelectCache().put(query, recordCursorFactory);
             }
             recordCursorFactory = null;
         }
+        securityContext = null;
         queryCacheable = false;
         query.clear();
         queryState = JsonQueryProcessorState.QUERY_SETUP_FIRST_RECORD;
@@ -93,6 +111,8 @@ public class TextQueryProcessorState implements Mutable, Closeable {
     @Override
     public void close() {
         cursor = Misc.free(cursor);
+        pageFrameCursor = Misc.free(pageFrameCursor);
+        arrowWriter = Misc.free(arrowWriter);
         recordCursorFactory = Misc.free(recordCursorFactory);
     }
 
@@ -27,9 +27,11 @@ package io.questdb.cutlass.line;
 import io.questdb.cairo.TableUtils;
 import io.questdb.client.Sender;
 import io.questdb.cutlass.auth.AuthUtils;
+import io.questdb.cutlass.line.tcp.LineTcpParser;
 import io.questdb.std.*;
 import io.questdb.std.str.Utf8Sequence;
 import io.questdb.std.str.Utf8Sink;
+import io.questdb.std.str.Utf8StringSink;
 import io.questdb.std.str.Utf8s;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -41,8 +43,10 @@ import java.util.Base64;
 
 public abstract class AbstractLineSender implements Utf8Sink, Closeable, Sender {
     protected final int capacity;
+    private final Utf8StringSink binaryStringSink = new Utf8StringSink();
     private final long bufA;
     private final long bufB;
+    protected boolean binaryFormat;
     protected LineChannel lineChannel;
     private boolean closed;
     private boolean enableValidation;
@@ -139,7 +143,12 @@ public abstract class AbstractLineSender implements Utf8Sink, Closeable, Sender
     }
 
     public AbstractLineSender field(CharSequence name, long value) {
-        writeFieldName(name).put(value).put('i');
+        writeFieldName(name);
+        if (binaryFormat) {
+            LineBinaryFormat.putLong(this, LineTcpParser.BINARY_TYPE_LONG, value);
+        } else {
+            put(value).put('i');
+        }
         return this;
     }
 
@@ -153,7 +162,12 @@ public abstract class AbstractLineSender implements Utf8Sink, Closeable, Sender
     }
 
     public AbstractLineSender field(CharSequence name, double value) {
-        writeFieldName(name).put(value);
+        writeFieldName(name);
+        if (binaryFormat) {
+            LineBinaryFormat.putDouble(this, value);
+        } else {
+            put(value);
+        }
         return this;
     }
 
@@ -335,7 +349,13 @@ public abstract class AbstractLineSender implements Utf8Sink, Closeable, Sender
         }
         validateColumnName(tag);
         putAsciiInternal(',').put(tag);
-        putAsciiInternal('=').put(value);
+        putAsciiInternal('=');
+        if (binaryFormat) {
+            // raw bytes, they must bypass the escaping done by putAscii()
+            LineBinaryFormat.putString(this, binaryStringSink, value);
+        } else {
+            put(value);
+        }
         hasSymbols = true;
         return this;
     }
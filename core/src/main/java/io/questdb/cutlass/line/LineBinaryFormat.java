@@ -0,0 +1,72 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line;
+
+import io.questdb.std.str.Utf8Sink;
+import io.questdb.std.str.Utf8StringSink;
+
+import static io.questdb.cutlass.line.tcp.LineTcpParser.*;
+
+/**
+ * Writes ILP values in the binary form understood by {@link io.questdb.cutlass.line.tcp.LineTcpParser}.
+ * Each value goes where its text form would go, right after the '=' that follows the column name,
+ * or after the space that precedes the designated timestamp.
+ */
+public final class LineBinaryFormat {
+
+    private LineBinaryFormat() {
+    }
+
+    public static void putDouble(Utf8Sink sink, double value) {
+        putLong(sink, BINARY_TYPE_DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * @param binaryType one of BINARY_TYPE_LONG, BINARY_TYPE_TIMESTAMP_MICROS or BINARY_TYPE_TIMESTAMP_NANOS
+     */
+    public static void putLong(Utf8Sink sink, byte binaryType, long value) {
+        sink.put(BINARY_FORMAT_FLAG).put(binaryType);
+        for (int i = 0; i < Long.BYTES; i++) {
+            sink.put((byte) (value >>> (i << 3)));
+        }
+    }
+
+    /**
+     * Writes the value as length-prefixed UTF-8, the value is encoded to the scratch sink first
+     * to find out its length. No escaping is needed.
+     */
+    public static void putString(Utf8Sink sink, Utf8StringSink scratch, CharSequence value) {
+        scratch.clear();
+        scratch.put(value);
+        final int len = scratch.size();
+        sink.put(BINARY_FORMAT_FLAG).put(BINARY_TYPE_STRING);
+        for (int i = 0; i < Integer.BYTES; i++) {
+            sink.put((byte) (len >>> (i << 3)));
+        }
+        for (int i = 0; i < len; i++) {
+            sink.put(scratch.byteAt(i));
+        }
+    }
+}
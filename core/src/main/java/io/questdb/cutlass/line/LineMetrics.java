@@ -24,18 +24,66 @@
 
 package io.questdb.cutlass.line;
 
+import io.questdb.metrics.Counter;
 import io.questdb.metrics.LongGauge;
 import io.questdb.metrics.MetricsRegistry;
 
 public class LineMetrics {
 
     private final LongGauge connectionCountGauge;
+    private final Counter connectionCreditStallsCounter;
+    private final LongGauge connectionQueueWaitMaxGauge;
+    private final Counter queueWaitMicrosCounter;
+    private final LongGauge writerLoadImbalanceGauge;
+    private final Counter writerTableMigrationsCounter;
 
     public LineMetrics(MetricsRegistry metricsRegistry) {
         this.connectionCountGauge = metricsRegistry.newLongGauge("line_tcp_connections");
+        this.connectionCreditStallsCounter = metricsRegistry.newCounter("line_tcp_connection_credit_stalls");
+        this.connectionQueueWaitMaxGauge = metricsRegistry.newLongGauge("line_tcp_connection_queue_wait_max_micros");
+        this.queueWaitMicrosCounter = metricsRegistry.newCounter("line_tcp_queue_wait_micros");
+        this.writerLoadImbalanceGauge = metricsRegistry.newLongGauge("line_tcp_writer_load_imbalance_percent");
+        this.writerTableMigrationsCounter = metricsRegistry.newCounter("line_tcp_writer_table_migrations");
     }
 
     public LongGauge connectionCountGauge() {
         return connectionCountGauge;
     }
+
+    /**
+     * Number of times a connection stopped reading because it ran out of writer queue credit.
+     */
+    public Counter connectionCreditStallsCounter() {
+        return connectionCreditStallsCounter;
+    }
+
+    /**
+     * Highest average time, in microseconds, the measurements of a single connection spent
+     * in the writer queues over the last maintenance interval.
+     */
+    public LongGauge connectionQueueWaitMaxGauge() {
+        return connectionQueueWaitMaxGauge;
+    }
+
+    /**
+     * Total time, in microseconds, measurements spent in the writer queues before being applied.
+     */
+    public Counter queueWaitMicrosCounter() {
+        return queueWaitMicrosCounter;
+    }
+
+    /**
+     * Difference between the most and the least loaded writer threads as a percentage of the
+     * most loaded one, as seen by the last rebalance round.
+     */
+    public LongGauge writerLoadImbalanceGauge() {
+        return writerLoadImbalanceGauge;
+    }
+
+    /**
+     * Number of tables moved between writer threads by the rebalancer.
+     */
+    public Counter writerTableMigrationsCounter() {
+        return writerTableMigrationsCounter;
+    }
 }
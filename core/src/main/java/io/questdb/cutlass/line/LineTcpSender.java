@@ -25,6 +25,7 @@
 package io.questdb.cutlass.line;
 
 import io.questdb.client.Sender;
+import io.questdb.cutlass.line.tcp.LineTcpParser;
 import io.questdb.cutlass.line.tcp.PlainTcpLineChannel;
 import io.questdb.network.NetworkFacadeImpl;
 import io.questdb.std.datetime.microtime.Timestamps;
@@ -81,15 +82,21 @@ public class LineTcpSender extends AbstractLineSender {
     @Override
     public final void at(long timestamp, ChronoUnit unit) {
         // nanos
-        putAsciiInternal(' ').put(timestamp * unitToNanos(unit));
-        atNow();
+        putTimestamp(timestamp * unitToNanos(unit));
     }
 
     @Override
     public final void at(Instant timestamp) {
         // nanos
-        putAsciiInternal(' ').put(timestamp.getEpochSecond() * Timestamps.SECOND_NANOS + timestamp.getNano());
-        atNow();
+        putTimestamp(timestamp.getEpochSecond() * Timestamps.SECOND_NANOS + timestamp.getNano());
+    }
+
+    /**
+     * Switches longs, doubles, timestamps and symbol values to the binary form, which the server
+     * copies without parsing. The server must have line.binary.format.enabled set, which is the default.
+     */
+    public void enableBinaryFormat() {
+        binaryFormat = true;
     }
 
     @Override
@@ -101,14 +108,32 @@ public class LineTcpSender extends AbstractLineSender {
     @Override
     public final AbstractLineSender timestampColumn(CharSequence name, Instant value) {
         // micros
-        writeFieldName(name).put((value.getEpochSecond() * Timestamps.SECOND_NANOS + value.getNano()) / 1000).put('t');
-        return this;
+        return putTimestampColumn(name, (value.getEpochSecond() * Timestamps.SECOND_NANOS + value.getNano()) / 1000);
     }
 
     @Override
     public final AbstractLineSender timestampColumn(CharSequence name, long value, ChronoUnit unit) {
         // micros
-        writeFieldName(name).put(value * unitToNanos(unit) / 1000).put('t');
+        return putTimestampColumn(name, value * unitToNanos(unit) / 1000);
+    }
+
+    private void putTimestamp(long nanos) {
+        putAsciiInternal(' ');
+        if (binaryFormat) {
+            LineBinaryFormat.putLong(this, LineTcpParser.BINARY_TYPE_TIMESTAMP_NANOS, nanos);
+        } else {
+            put(nanos);
+        }
+        atNow();
+    }
+
+    private AbstractLineSender putTimestampColumn(CharSequence name, long micros) {
+        writeFieldName(name);
+        if (binaryFormat) {
+            LineBinaryFormat.putLong(this, LineTcpParser.BINARY_TYPE_TIMESTAMP_MICROS, micros);
+        } else {
+            put(micros).put('t');
+        }
         return this;
     }
 
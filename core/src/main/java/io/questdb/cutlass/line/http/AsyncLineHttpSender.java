@@ -0,0 +1,333 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line.http;
+
+import io.questdb.ClientTlsConfiguration;
+import io.questdb.HttpClientConfiguration;
+import io.questdb.client.Sender;
+import io.questdb.cutlass.line.LineSenderException;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ILP over HTTP sender that keeps up to {@code maxInFlightRequests} requests in flight. Rows are
+ * written to one buffer while the buffers flushed before it are sent by background flush threads,
+ * so a sender far away from the server is not limited to one batch per round trip.
+ * <p>
+ * Each buffer is a {@link LineHttpSender} with its own connection. A flushed buffer is retried,
+ * byte for byte, until it is accepted or the retry timeout runs out, so batches are identified by
+ * a batch id in errors. A retried batch that had in fact been committed by the server is applied
+ * twice, unless the table has deduplication enabled.
+ * <p>
+ * {@link #flush()} hands the buffer over and only blocks when all buffers are in flight. Errors are
+ * reported by the next call to {@link #table(CharSequence)}, {@link #flush()} or {@link #close()},
+ * which waits for all batches to complete. Batches in flight at the same time can be applied by the
+ * server in any order.
+ */
+public final class AsyncLineHttpSender implements Sender {
+    private final int autoFlushRows;
+    private final AtomicReference<LineSenderException> error = new AtomicReference<>();
+    private final ObjList<Thread> flushThreads = new ObjList<>();
+    private final long flushIntervalNanos;
+    private final BlockingQueue<Batch> freeBatches;
+    private final BlockingQueue<Batch> pendingBatches;
+    private final ObjList<LineHttpSender> senders = new ObjList<>();
+    private Batch batch;
+    private boolean closed;
+    private long flushAfterNanos = Long.MAX_VALUE;
+    private long lastBatchId;
+    private long pendingRows;
+    private boolean rowInProgress;
+
+    public AsyncLineHttpSender(
+            String host,
+            int port,
+            HttpClientConfiguration clientConfiguration,
+            ClientTlsConfiguration tlsConfig,
+            int autoFlushRows,
+            String authToken,
+            String username,
+            String password,
+            long maxRetriesNanos,
+            long minRequestThroughput,
+            long flushIntervalNanos,
+            int maxInFlightRequests
+    ) {
+        assert maxInFlightRequests > 0;
+        this.autoFlushRows = autoFlushRows;
+        this.flushIntervalNanos = flushIntervalNanos;
+        // one more buffer than requests in flight, the spare one takes new rows
+        final int batchCount = maxInFlightRequests + 1;
+        this.freeBatches = new ArrayBlockingQueue<>(batchCount);
+        // room for the batches and a stop signal per flush thread
+        this.pendingBatches = new ArrayBlockingQueue<>(batchCount + maxInFlightRequests);
+        try {
+            for (int i = 0; i < batchCount; i++) {
+                // flushing is driven by this class, the buffers never flush on their own
+                LineHttpSender sender = new LineHttpSender(
+                        host,
+                        port,
+                        clientConfiguration,
+                        tlsConfig,
+                        0,
+                        authToken,
+                        username,
+                        password,
+                        maxRetriesNanos,
+                        minRequestThroughput,
+                        Long.MAX_VALUE
+                );
+                senders.add(sender);
+                freeBatches.add(new Batch(sender));
+            }
+            for (int i = 0; i < maxInFlightRequests; i++) {
+                Thread thread = new Thread(this::runFlushLoop, "questdb-ilp-http-flush-" + i);
+                thread.setDaemon(true);
+                flushThreads.add(thread);
+                thread.start();
+            }
+        } catch (Throwable th) {
+            stopFlushThreads();
+            Misc.freeObjListAndClear(senders);
+            throw th;
+        }
+        this.batch = freeBatches.poll();
+    }
+
+    @Override
+    public void at(long timestamp, ChronoUnit unit) {
+        batch.sender.at(timestamp, unit);
+        rowCompleted();
+    }
+
+    @Override
+    public void at(Instant timestamp) {
+        batch.sender.at(timestamp);
+        rowCompleted();
+    }
+
+    @Override
+    public void atNow() {
+        batch.sender.atNow();
+        rowCompleted();
+    }
+
+    @Override
+    public Sender boolColumn(CharSequence name, boolean value) {
+        batch.sender.boolColumn(name, value);
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (autoFlushRows != 0 && pendingRows > 0) {
+                // autoFlushRows == 0 means that auto-flush is disabled
+                enqueue(batch);
+                batch = null;
+            }
+        } finally {
+            stopFlushThreads();
+            Misc.freeObjListAndClear(senders);
+        }
+        checkError();
+    }
+
+    @Override
+    public Sender doubleColumn(CharSequence name, double value) {
+        batch.sender.doubleColumn(name, value);
+        return this;
+    }
+
+    /**
+     * Switches longs, doubles, timestamps and symbol values to the binary form, see {@link LineHttpSender#enableBinaryFormat()}.
+     */
+    public void enableBinaryFormat() {
+        for (int i = 0, n = senders.size(); i < n; i++) {
+            senders.getQuick(i).enableBinaryFormat();
+        }
+    }
+
+    /**
+     * Hands the buffered rows over to a flush thread. Blocks only while all buffers are in flight.
+     *
+     * @throws LineSenderException when a batch flushed earlier has failed
+     */
+    @Override
+    public void flush() {
+        validateNotClosed();
+        if (rowInProgress) {
+            throw new LineSenderException("Cannot flush buffer while row is in progress. Use sender.at() or sender.atNow() to finish the current row first.");
+        }
+        checkError();
+        if (pendingRows == 0) {
+            return;
+        }
+        enqueue(batch);
+        batch = take(freeBatches);
+        pendingRows = 0;
+        flushAfterNanos = System.nanoTime() + flushIntervalNanos;
+    }
+
+    @Override
+    public Sender longColumn(CharSequence name, long value) {
+        batch.sender.longColumn(name, value);
+        return this;
+    }
+
+    @Override
+    public Sender stringColumn(CharSequence name, CharSequence value) {
+        batch.sender.stringColumn(name, value);
+        return this;
+    }
+
+    @Override
+    public Sender symbol(CharSequence name, CharSequence value) {
+        batch.sender.symbol(name, value);
+        return this;
+    }
+
+    @Override
+    public Sender table(CharSequence table) {
+        validateNotClosed();
+        checkError();
+        batch.sender.table(table);
+        rowInProgress = true;
+        return this;
+    }
+
+    @Override
+    public Sender timestampColumn(CharSequence name, long value, ChronoUnit unit) {
+        batch.sender.timestampColumn(name, value, unit);
+        return this;
+    }
+
+    @Override
+    public Sender timestampColumn(CharSequence name, Instant value) {
+        batch.sender.timestampColumn(name, value);
+        return this;
+    }
+
+    private static Batch take(BlockingQueue<Batch> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LineSenderException("interrupted while waiting for a batch to be flushed");
+        }
+    }
+
+    private void checkError() {
+        LineSenderException ex = error.getAndSet(null);
+        if (ex != null) {
+            throw ex;
+        }
+    }
+
+    private void enqueue(Batch batch) {
+        batch.id = ++lastBatchId;
+        pendingBatches.add(batch);
+    }
+
+    private void rowCompleted() {
+        rowInProgress = false;
+        pendingRows++;
+        long nowNanos = System.nanoTime();
+        if (flushAfterNanos == Long.MAX_VALUE) {
+            flushAfterNanos = nowNanos + flushIntervalNanos;
+        } else if (flushAfterNanos - nowNanos < 0) {
+            flush();
+            return;
+        }
+        if (pendingRows == autoFlushRows) {
+            flush();
+        }
+    }
+
+    private void runFlushLoop() {
+        while (true) {
+            final Batch batch;
+            try {
+                batch = pendingBatches.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (batch.sender == null) {
+                return;
+            }
+            try {
+                batch.sender.flush();
+            } catch (Throwable th) {
+                // the first error is reported, the batches failing after it most likely failed for the same reason
+                LineSenderException ex = th instanceof LineSenderException ? (LineSenderException) th : new LineSenderException(th);
+                error.compareAndSet(null, ex.put(" [batch=").put(batch.id).put(']'));
+            } finally {
+                freeBatches.add(batch);
+            }
+        }
+    }
+
+    private void stopFlushThreads() {
+        for (int i = 0, n = flushThreads.size(); i < n; i++) {
+            pendingBatches.add(Batch.STOP);
+        }
+        for (int i = 0, n = flushThreads.size(); i < n; i++) {
+            try {
+                flushThreads.getQuick(i).join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        flushThreads.clear();
+    }
+
+    private void validateNotClosed() {
+        if (closed) {
+            throw new LineSenderException("sender already closed");
+        }
+    }
+
+    private static class Batch {
+        private static final Batch STOP = new Batch(null);
+        private final LineHttpSender sender;
+        private long id;
+
+        private Batch(LineHttpSender sender) {
+            this.sender = sender;
+        }
+    }
+}
@@ -34,12 +34,15 @@ import io.questdb.cutlass.http.client.*;
 import io.questdb.cutlass.json.JsonException;
 import io.questdb.cutlass.json.JsonLexer;
 import io.questdb.cutlass.json.JsonParser;
+import io.questdb.cutlass.line.LineBinaryFormat;
 import io.questdb.cutlass.line.LineSenderException;
+import io.questdb.cutlass.line.tcp.LineTcpParser;
 import io.questdb.std.*;
 import io.questdb.std.datetime.microtime.MicrosecondClockImpl;
 import io.questdb.std.datetime.microtime.Timestamps;
 import io.questdb.std.str.DirectUtf8Sequence;
 import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8StringSink;
 import io.questdb.std.str.Utf8s;
 import org.jetbrains.annotations.TestOnly;
 
@@ -56,6 +59,7 @@ public final class LineHttpSender implements Sender {
     private final String authToken;
     private final int autoFlushRows;
     private final int baseTimeoutMillis;
+    private final Utf8StringSink binaryStringSink = new Utf8StringSink();
     private final long flushIntervalNanos;
     private final String host;
     private final long maxRetriesNanos;
@@ -67,6 +71,7 @@ public final class LineHttpSender implements Sender {
     private final StringSink sink = new StringSink();
     private final String url;
     private final String username;
+    private boolean binaryFormat;
     private HttpClient client;
     private boolean closed;
     private long flushAfterNanos = Long.MAX_VALUE;
@@ -111,15 +116,12 @@ public final class LineHttpSender implements Sender {
 
     @Override
     public void at(long timestamp, ChronoUnit unit) {
-        request.putAscii(' ').put(timestamp * unitToNanos(unit));
-        atNow();
+        putTimestamp(timestamp * unitToNanos(unit));
     }
 
     @Override
     public void at(Instant timestamp) {
-        long nanos = timestamp.getEpochSecond() * Timestamps.SECOND_NANOS + timestamp.getNano();
-        request.putAscii(' ').put(nanos);
-        atNow();
+        putTimestamp(timestamp.getEpochSecond() * Timestamps.SECOND_NANOS + timestamp.getNano());
     }
 
     @Override
@@ -167,10 +169,22 @@ public final class LineHttpSender implements Sender {
     @Override
     public Sender doubleColumn(CharSequence name, double value) {
         writeFieldName(name);
-        request.put(value);
+        if (binaryFormat) {
+            LineBinaryFormat.putDouble(request, value);
+        } else {
+            request.put(value);
+        }
         return this;
     }
 
+    /**
+     * Switches longs, doubles, timestamps and symbol values to the binary form, which the server
+     * copies without parsing. The server must have line.binary.format.enabled set, which is the default.
+     */
+    public void enableBinaryFormat() {
+        binaryFormat = true;
+    }
+
     @Override
     public void flush() {
         flush0(false);
@@ -179,8 +193,12 @@ public final class LineHttpSender implements Sender {
     @Override
     public Sender longColumn(CharSequence name, long value) {
         writeFieldName(name);
-        request.put(value);
-        request.put('i');
+        if (binaryFormat) {
+            LineBinaryFormat.putLong(request, LineTcpParser.BINARY_TYPE_LONG, value);
+        } else {
+            request.put(value);
+            request.put('i');
+        }
         return this;
     }
 
@@ -217,7 +235,11 @@ public final class LineHttpSender implements Sender {
                 request.putAscii(',');
                 escapeQuotedString(name);
                 request.putAscii('=');
-                escapeQuotedString(value);
+                if (binaryFormat) {
+                    LineBinaryFormat.putString(request, binaryStringSink, value);
+                } else {
+                    escapeQuotedString(value);
+                }
                 state = RequestState.ADDING_SYMBOLS;
                 break;
             default:
@@ -245,15 +267,13 @@ public final class LineHttpSender implements Sender {
     @Override
     public Sender timestampColumn(CharSequence name, long value, ChronoUnit unit) {
         // micros
-        writeFieldName(name).put(value * unitToNanos(unit) / 1000).put('t');
-        return this;
+        return putTimestampColumn(name, value * unitToNanos(unit) / 1000);
     }
 
     @Override
     public Sender timestampColumn(CharSequence name, Instant value) {
         // micros
-        writeFieldName(name).put((value.getEpochSecond() * Timestamps.SECOND_NANOS + value.getNano()) / 1000).put('t');
-        return this;
+        return putTimestampColumn(name, (value.getEpochSecond() * Timestamps.SECOND_NANOS + value.getNano()) / 1000);
     }
 
     private static void chunkedResponseToSink(HttpClient.ResponseHeaders response, StringSink sink) {
@@ -457,6 +477,26 @@ public final class LineHttpSender implements Sender {
         return r;
     }
 
+    private void putTimestamp(long nanos) {
+        request.putAscii(' ');
+        if (binaryFormat) {
+            LineBinaryFormat.putLong(request, LineTcpParser.BINARY_TYPE_TIMESTAMP_NANOS, nanos);
+        } else {
+            request.put(nanos);
+        }
+        atNow();
+    }
+
+    private Sender putTimestampColumn(CharSequence name, long micros) {
+        writeFieldName(name);
+        if (binaryFormat) {
+            LineBinaryFormat.putLong(request, LineTcpParser.BINARY_TYPE_TIMESTAMP_MICROS, micros);
+        } else {
+            request.put(micros).put('t');
+        }
+        return this;
+    }
+
     /**
      * @return true if flush is required
      */
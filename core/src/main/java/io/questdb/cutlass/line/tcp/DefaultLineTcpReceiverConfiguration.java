@@ -36,6 +36,7 @@ import io.questdb.network.NetworkFacade;
 import io.questdb.network.NetworkFacadeImpl;
 import io.questdb.std.FilesFacade;
 import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.Numbers;
 import io.questdb.std.datetime.microtime.MicrosecondClock;
 import io.questdb.std.datetime.microtime.MicrosecondClockImpl;
 import io.questdb.std.datetime.millitime.MillisecondClock;
@@ -88,6 +89,16 @@ public class DefaultLineTcpReceiverConfiguration implements LineTcpReceiverConfi
         return 0.5;
     }
 
+    @Override
+    public long getConnectionCreditBytes() {
+        return Numbers.SIZE_1MB;
+    }
+
+    @Override
+    public int getConnectionCreditRows() {
+        return 32;
+    }
+
     @Override
     public int getConnectionPoolInitialCapacity() {
         return 4;
@@ -188,11 +199,21 @@ public class DefaultLineTcpReceiverConfiguration implements LineTcpReceiverConfi
         return 64;
     }
 
+    @Override
+    public long getWriterRebalanceInterval() {
+        return 10_000;
+    }
+
     @Override
     public WorkerPoolConfiguration getWriterWorkerPoolConfiguration() {
         return SHARED_CONFIGURATION;
     }
 
+    @Override
+    public boolean isBinaryFormatEnabled() {
+        return true;
+    }
+
     @Override
     public boolean isEnabled() {
         return true;
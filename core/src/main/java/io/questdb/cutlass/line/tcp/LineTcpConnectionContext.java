@@ -55,6 +55,8 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
     private final long checkIdleInterval;
     private final long commitInterval;
     private final LineTcpReceiverConfiguration configuration;
+    private final long creditBytes;
+    private final long creditRows;
     private final boolean disconnectOnError;
     private final long idleTimeout;
     private final Metrics metrics;
@@ -68,8 +70,12 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
     protected long recvBufStart;
     protected long recvBufStartOfMeasurement;
     protected SecurityContext securityContext = DenyAllSecurityContext.INSTANCE;
+    private LineTcpConnectionCredit credit;
+    private boolean creditStalled;
     private boolean goodMeasurement;
     private long lastQueueFullLogMillis = 0;
+    private long lastSampledQueueWaitMicros;
+    private long lastSampledQueueWaitRows;
     private long nextCheckIdleTime;
     private long nextCommitTime;
 
@@ -81,12 +87,18 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
                 metrics.line().connectionCountGauge()
         );
         this.configuration = configuration;
+        this.creditBytes = configuration.getConnectionCreditBytes();
+        this.creditRows = configuration.getConnectionCreditRows();
         nf = configuration.getNetworkFacade();
         disconnectOnError = configuration.getDisconnectOnError();
         this.scheduler = scheduler;
         this.metrics = metrics;
         this.milliClock = configuration.getMillisecondClock();
-        parser = new LineTcpParser(configuration.isStringAsTagSupported(), configuration.isSymbolAsFieldSupported());
+        parser = new LineTcpParser(
+                configuration.isStringAsTagSupported(),
+                configuration.isSymbolAsFieldSupported(),
+                configuration.isBinaryFormatEnabled()
+        );
         this.authenticator = configuration.getFactoryProvider().getLineAuthenticatorFactory().getLineTCPAuthenticator();
         clear();
         this.checkIdleInterval = configuration.getMaintenanceInterval();
@@ -110,6 +122,17 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
 
     @Override
     public void clear() {
+        if (credit != null) {
+            if (credit.getRowsApplied() > 0) {
+                LOG.info().$('[').$(getFd()).$("] writer queue wait [rows=").$(credit.getRowsApplied())
+                        .$(", totalMicros=").$(credit.getQueueWaitMicros())
+                        .$(", avgMicros=").$(credit.getQueueWaitMicros() / credit.getRowsApplied())
+                        .I$();
+            }
+            // measurements still in the queues hand their credit back to the instance they took it from
+            credit = null;
+        }
+        creditStalled = false;
         super.clear();
         securityContext = DenyAllSecurityContext.INSTANCE;
         authenticator.clear();
@@ -172,6 +195,7 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
 
         if (now > nextCheckIdleTime) {
             checkIdle(now);
+            sampleQueueWait(now);
             nextCheckIdleTime = now + checkIdleInterval;
         }
     }
@@ -182,6 +206,17 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
 
     public IOContextResult handleIO(NetworkIOJob netIoJob) {
         if (authenticator.isAuthenticated()) {
+            if (credit.isExhausted()) {
+                // leave the data in the socket, the client will be slowed down by TCP flow control
+                credit.setHeldBack(true);
+                if (!creditStalled) {
+                    creditStalled = true;
+                    metrics.line().connectionCreditStallsCounter().inc();
+                }
+                return IOContextResult.QUEUE_FULL;
+            }
+            creditStalled = false;
+            credit.setHeldBack(false);
             read();
             try {
                 IOContextResult parseResult = parseMeasurements(netIoJob);
@@ -205,9 +240,20 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         }
     }
 
+    /**
+     * @return true when the connection is waiting for its own measurements to be applied,
+     * or for a table migration to finish, rather than for room in a writer queue
+     */
+    public boolean isHeldBack() {
+        return credit != null && credit.isHeldBack();
+    }
+
     @Override
     public LineTcpConnectionContext of(int fd, @NotNull IODispatcher<LineTcpConnectionContext> dispatcher) {
         super.of(fd, dispatcher);
+        credit = new LineTcpConnectionCredit(creditBytes, creditRows);
+        lastSampledQueueWaitMicros = 0;
+        lastSampledQueueWaitRows = 0;
         if (recvBufStart == 0) {
             recvBufStart = Unsafe.malloc(configuration.getNetMsgBufferSize(), MemoryTag.NATIVE_ILP_RSS);
             recvBufEnd = recvBufStart + configuration.getNetMsgBufferSize();
@@ -304,6 +350,24 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
                 .$();
     }
 
+    private void resetVisibleSymbolCounts(int workerId) {
+        // symbol counts are re-read once per batch of lines rather than on every shared symbol cache hit
+        for (int n = 0, sz = tableUpdateDetailsUtf8.size(); n < sz; n++) {
+            tableUpdateDetailsUtf8.get(tableUpdateDetailsUtf8.keys().get(n)).resetVisibleSymbolCounts(workerId);
+        }
+    }
+
+    private void sampleQueueWait(long now) {
+        if (credit != null) {
+            final long rows = credit.getRowsApplied();
+            final long micros = credit.getQueueWaitMicros();
+            final long avgMicros = rows > lastSampledQueueWaitRows ? (micros - lastSampledQueueWaitMicros) / (rows - lastSampledQueueWaitRows) : 0;
+            scheduler.onConnectionQueueWaitSampled(avgMicros, now);
+            lastSampledQueueWaitRows = rows;
+            lastSampledQueueWaitMicros = micros;
+        }
+    }
+
     private void startNewMeasurement() {
         parser.startNextMeasurement();
         recvBufStartOfMeasurement = parser.getBufferAddress();
@@ -348,11 +412,16 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         return false;
     }
 
+    LineTcpConnectionCredit getCredit() {
+        return credit;
+    }
+
     protected SecurityContext getSecurityContext() {
         return securityContext;
     }
 
     protected final IOContextResult parseMeasurements(NetworkIOJob netIoJob) {
+        resetVisibleSymbolCounts(netIoJob.getWorkerId());
         while (true) {
             try {
                 ParseResult rc = goodMeasurement ? parser.parseMeasurement(recvBufPos) : parser.skipMeasurement(recvBufPos);
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of measurements, and their bytes, a single connection can have in the
+ * writer queues at any time. Credit is taken by the connection's IO thread when it publishes
+ * a measurement event and handed back by the writer thread once the event is applied. A
+ * connection out of credit stops reading from its socket, which pushes back on the client
+ * through TCP instead of letting one fast producer fill the queues shared with other connections.
+ * <p>
+ * A connection with nothing in flight is always granted credit, so a single measurement
+ * larger than the byte budget cannot stall the connection forever.
+ */
+class LineTcpConnectionCredit {
+    private final AtomicLong bytesInFlight = new AtomicLong();
+    private final long bytesLimit;
+    private final AtomicLong queueWaitMicros = new AtomicLong();
+    private final AtomicLong rowsApplied = new AtomicLong();
+    private final AtomicLong rowsInFlight = new AtomicLong();
+    private final long rowsLimit;
+    // accessed by the connection's IO thread only
+    private boolean heldBack;
+
+    /**
+     * @param bytesLimit max bytes in flight, non-positive value means no limit
+     * @param rowsLimit  max measurements in flight, non-positive value means no limit
+     */
+    LineTcpConnectionCredit(long bytesLimit, long rowsLimit) {
+        this.bytesLimit = bytesLimit > 0 ? bytesLimit : Long.MAX_VALUE;
+        this.rowsLimit = rowsLimit > 0 ? rowsLimit : Long.MAX_VALUE;
+    }
+
+    long getBytesInFlight() {
+        return bytesInFlight.get();
+    }
+
+    /**
+     * @return total time, in microseconds, the measurements applied so far spent in the writer queues
+     */
+    long getQueueWaitMicros() {
+        return queueWaitMicros.get();
+    }
+
+    long getRowsApplied() {
+        return rowsApplied.get();
+    }
+
+    long getRowsInFlight() {
+        return rowsInFlight.get();
+    }
+
+    boolean isExhausted() {
+        return rowsInFlight.get() >= rowsLimit || bytesInFlight.get() >= bytesLimit;
+    }
+
+    /**
+     * @return true when the last publishing attempt was refused because of this connection's
+     * own measurements in flight or a migrating table, as opposed to a full writer queue
+     */
+    boolean isHeldBack() {
+        return heldBack;
+    }
+
+    /**
+     * Called by the writer thread once the measurement has been applied.
+     *
+     * @param bytes           size of the measurement, as passed to {@link #tryAcquire(long)}
+     * @param queueWaitMicros time the measurement spent in the writer queue
+     */
+    void release(long bytes, long queueWaitMicros) {
+        bytesInFlight.addAndGet(-bytes);
+        rowsInFlight.decrementAndGet();
+        this.queueWaitMicros.addAndGet(queueWaitMicros);
+        rowsApplied.incrementAndGet();
+    }
+
+    /**
+     * Hands back credit taken for a measurement that did not make it into the queue.
+     */
+    void refund(long bytes) {
+        bytesInFlight.addAndGet(-bytes);
+        rowsInFlight.decrementAndGet();
+    }
+
+    void setHeldBack(boolean heldBack) {
+        this.heldBack = heldBack;
+    }
+
+    /**
+     * Called by the connection's IO thread before a measurement is published. There is only
+     * one IO thread per connection at a time, so the check and the increment do not race
+     * with each other, only with writer threads handing credit back.
+     *
+     * @param bytes size of the measurement
+     * @return false when the connection must wait for the writer threads to catch up
+     */
+    boolean tryAcquire(long bytes) {
+        final long rows = rowsInFlight.get();
+        if (rows > 0 && (rows >= rowsLimit || bytesInFlight.get() + bytes > bytesLimit)) {
+            return false;
+        }
+        bytesInFlight.addAndGet(bytes);
+        rowsInFlight.incrementAndGet();
+        return true;
+    }
+}
@@ -54,6 +54,9 @@ class LineTcpMeasurementEvent implements Closeable {
     private final boolean stringToCharCastAllowed;
     private final LineTcpTimestampAdapter timestampAdapter;
     private boolean commitOnWriterClose;
+    private LineTcpConnectionCredit credit;
+    private long creditBytes;
+    private long publishedMicros;
     private TableUpdateDetails tableUpdateDetails;
     private int writerWorkerId;
 
@@ -275,11 +278,22 @@ class LineTcpMeasurementEvent implements Closeable {
         }
     }
 
+    void attachCredit(LineTcpConnectionCredit credit, long bytes) {
+        this.credit = credit;
+        this.creditBytes = bytes;
+        this.publishedMicros = clock.getTicks();
+    }
+
+    void createIncompleteEvent() {
+        writerWorkerId = LineTcpMeasurementEventType.ALL_WRITERS_INCOMPLETE_EVENT;
+    }
+
     void createMeasurementEvent(
             SecurityContext securityContext,
             TableUpdateDetails tud,
             LineTcpParser parser,
-            int workerId
+            int workerId,
+            int writerThreadId
     ) {
         writerWorkerId = LineTcpMeasurementEventType.ALL_WRITERS_INCOMPLETE_EVENT;
         final TableUpdateDetails.ThreadLocalDetails localDetails = tud.getThreadLocalDetails(workerId);
@@ -394,6 +408,9 @@ class LineTcpMeasurementEvent implements Closeable {
                             offset = buffer.addFloat(offset, entity.getLongValue());
                             break;
                         case ColumnType.SYMBOL:
+                            if (entity.isBinary()) {
+                                throw castError(tud.getTableNameUtf16(), "integer", colType, entity.getName());
+                            }
                             offset = buffer.addSymbol(
                                     offset,
                                     entity.getValue(),
@@ -415,6 +432,9 @@ class LineTcpMeasurementEvent implements Closeable {
                             offset = buffer.addFloat(offset, (float) entity.getFloatValue());
                             break;
                         case ColumnType.SYMBOL:
+                            if (entity.isBinary()) {
+                                throw castError(tud.getTableNameUtf16(), "float", colType, entity.getName());
+                            }
                             offset = buffer.addSymbol(
                                     offset,
                                     entity.getValue(),
@@ -548,6 +568,9 @@ class LineTcpMeasurementEvent implements Closeable {
                             offset = buffer.addDate(offset, dateValue / 1000);
                             break;
                         case ColumnType.SYMBOL:
+                            if (entity.isBinary()) {
+                                throw castError(tud.getTableNameUtf16(), "timestamp", colType, entity.getName());
+                            }
                             offset = buffer.addSymbol(
                                     offset,
                                     entity.getValue(),
@@ -583,7 +606,14 @@ class LineTcpMeasurementEvent implements Closeable {
         }
         buffer.addDesignatedTimestamp(buffer.getAddress() + Long.BYTES, timestamp);
         buffer.addNumOfColumns(buffer.getAddress() + 2 * Long.BYTES, entitiesWritten);
-        writerWorkerId = tud.getWriterThreadId();
+        // the scheduler has verified that the table still belongs to this writer thread
+        // after the queue slot was claimed, re-reading the id here could race with migration
+        writerWorkerId = writerThreadId;
+    }
+
+    void createTableMigrationEvent(TableUpdateDetails tableUpdateDetails) {
+        writerWorkerId = LineTcpMeasurementEventType.ALL_WRITERS_MIGRATE_TABLE;
+        this.tableUpdateDetails = tableUpdateDetails;
     }
 
     void createWriterReleaseEvent(TableUpdateDetails tableUpdateDetails, boolean commitOnWriterClose) {
@@ -592,6 +622,21 @@ class LineTcpMeasurementEvent implements Closeable {
         this.commitOnWriterClose = commitOnWriterClose;
     }
 
+    /**
+     * Hands the credit taken by the publishing connection back to it, once the event has been consumed.
+     *
+     * @return time, in microseconds, the event spent in the queue or -1 when the event carried no credit
+     */
+    long releaseCredit() {
+        if (credit != null) {
+            final long queueWaitMicros = Math.max(clock.getTicks() - publishedMicros, 0);
+            credit.release(creditBytes, queueWaitMicros);
+            credit = null;
+            return queueWaitMicros;
+        }
+        return -1;
+    }
+
     private static class PrincipalOnlySecurityContext extends DenyAllSecurityContext {
         private CharSequence principal;
 
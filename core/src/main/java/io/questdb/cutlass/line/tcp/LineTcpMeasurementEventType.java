@@ -30,4 +30,8 @@ class LineTcpMeasurementEventType {
     static final int ALL_WRITERS_INCOMPLETE_EVENT = -2;
 
     static final int ALL_WRITERS_RELEASE_WRITER = -3;
+
+    // Published to the queue of the writer thread a table is migrating away from, the table's
+    // events that precede it in the queue still belong to the old writer thread
+    static final int ALL_WRITERS_MIGRATE_TABLE = -4;
 }
@@ -30,6 +30,7 @@ import io.questdb.TelemetrySystemEvent;
 import io.questdb.cairo.*;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.cutlass.line.LineMetrics;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.log.LogRecord;
@@ -46,25 +47,39 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.Closeable;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 
 public class LineTcpMeasurementScheduler implements Closeable {
     private static final Log LOG = LogFactory.getLog(LineTcpMeasurementScheduler.class);
+    // weight of the latest interval in the smoothed per-table row and byte rates
+    private static final double REBALANCE_LOAD_ALPHA = 0.5;
+    // min load difference between the most and the least loaded writer threads, as a percentage
+    // of the most loaded one, that triggers a table migration
+    private static final int REBALANCE_THRESHOLD_PERCENT = 20;
     private final ObjList<TableUpdateDetails>[] assignedTables;
     private final boolean autoCreateNewColumns;
     private final boolean autoCreateNewTables;
     private final MillisecondClock clock;
     private final LineTcpReceiverConfiguration configuration;
+    private final AtomicLong connectionQueueWaitIntervalEnd = new AtomicLong();
+    // the highest average queue wait reported by a connection in the current interval
+    private final AtomicLong connectionQueueWaitMax = new AtomicLong();
     private final MemoryMARW ddlMem = Vm.getMARWInstance();
     private final DefaultColumnTypes defaultColumnTypes;
     private final CairoEngine engine;
     private final LowerCaseCharSequenceObjHashMap<TableUpdateDetails> idleTableUpdateDetailsUtf16;
     private final LineWalAppender lineWalAppender;
     private final long[] loadByWriterThread;
+    private final long maintenanceInterval;
+    private final LineMetrics metrics;
     private final NetworkIOJob[] netIoJobs;
     private final Path path = new Path();
     private final MPSequence[] pubSeq;
     private final RingQueue<LineTcpMeasurementEvent>[] queue;
+    private final long rebalanceInterval;
+    private final double[] rebalanceLoadByWriterThread;
+    private final int[] rebalanceTableCountByWriterThread;
     private final long spinLockTimeoutMs;
     private final StringSink[] tableNameSinks;
     private final TableStructureAdapter tableStructureAdapter;
@@ -72,6 +87,11 @@ public class LineTcpMeasurementScheduler implements Closeable {
     private final LowerCaseCharSequenceObjHashMap<TableUpdateDetails> tableUpdateDetailsUtf16;
     private final Telemetry<TelemetryTask> telemetry;
     private final long writerIdleTimeout;
+    // table being moved between writer threads, only one migration can be in flight
+    private volatile TableUpdateDetails migratingTud;
+    // set while the migration event is yet to be published to the old writer thread's queue
+    private volatile boolean migrationEventPending;
+    private volatile long nextRebalanceMillis;
 
     public LineTcpMeasurementScheduler(
             LineTcpReceiverConfiguration lineConfiguration,
@@ -87,6 +107,7 @@ public class LineTcpMeasurementScheduler implements Closeable {
         this.clock = cairoConfiguration.getMillisecondClock();
         this.spinLockTimeoutMs = cairoConfiguration.getSpinLockTimeout();
         this.defaultColumnTypes = new DefaultColumnTypes(lineConfiguration);
+        this.metrics = engine.getMetrics().line();
         final int ioWorkerPoolSize = ioWorkerPool.getWorkerCount();
         this.netIoJobs = new NetworkIOJob[ioWorkerPoolSize];
         this.tableNameSinks = new StringSink[ioWorkerPoolSize];
@@ -103,6 +124,11 @@ public class LineTcpMeasurementScheduler implements Closeable {
         tableUpdateDetailsUtf16 = new LowerCaseCharSequenceObjHashMap<>();
         idleTableUpdateDetailsUtf16 = new LowerCaseCharSequenceObjHashMap<>();
         loadByWriterThread = new long[writerWorkerPool.getWorkerCount()];
+        rebalanceLoadByWriterThread = new double[writerWorkerPool.getWorkerCount()];
+        rebalanceTableCountByWriterThread = new int[writerWorkerPool.getWorkerCount()];
+        rebalanceInterval = lineConfiguration.getWriterRebalanceInterval();
+        maintenanceInterval = lineConfiguration.getMaintenanceInterval();
+        nextRebalanceMillis = clock.getTicks() + rebalanceInterval;
         autoCreateNewTables = lineConfiguration.getAutoCreateNewTables();
         autoCreateNewColumns = lineConfiguration.getAutoCreateNewColumns();
         int maxMeasurementSize = lineConfiguration.getMaxMeasurementSize();
@@ -200,7 +226,8 @@ public class LineTcpMeasurementScheduler implements Closeable {
             final Utf8String tableNameUtf8 = tableUpdateDetailsUtf8.keys().get(n);
             final TableUpdateDetails tud = tableUpdateDetailsUtf8.get(tableNameUtf8);
 
-            if (millis - tud.getLastMeasurementMillis() >= writerIdleTimeout) {
+            // the writer of a migrating table is released once the migration is over
+            if (millis - tud.getLastMeasurementMillis() >= writerIdleTimeout && !tud.isMigrating()) {
                 tableUpdateDetailsLock.writeLock().lock();
                 try {
                     if (tud.getNetworkIOOwnerCount() == 1) {
@@ -231,6 +258,37 @@ public class LineTcpMeasurementScheduler implements Closeable {
         return false;
     }
 
+    /**
+     * Called by connections once per maintenance interval with the average time their measurements
+     * spent in the writer queues during the interval. The gauge shows the highest average reported
+     * in the previous interval, i.e. the queue wait of the worst served connection.
+     *
+     * @param avgMicros average queue wait in microseconds, 0 when no measurements were applied
+     * @param millis    current wall clock time in milliseconds
+     */
+    public void onConnectionQueueWaitSampled(long avgMicros, long millis) {
+        final long intervalEnd = connectionQueueWaitIntervalEnd.get();
+        if (millis >= intervalEnd && connectionQueueWaitIntervalEnd.compareAndSet(intervalEnd, millis + maintenanceInterval)) {
+            metrics.connectionQueueWaitMaxGauge().setValue(connectionQueueWaitMax.getAndSet(0));
+        }
+        connectionQueueWaitMax.accumulateAndGet(avgMicros, Math::max);
+    }
+
+    /**
+     * Called by the writer thread a table is migrating away from once it has processed all
+     * the table's events that were published to it. From this point on the table's events
+     * are published to the new writer thread, which owns the table writer.
+     */
+    public void onTableMigrated(TableUpdateDetails tud, int workerId) {
+        tud.finishMigration();
+        LOG.info().$("table migrated to another writer thread [tableName=").$(tud.getTableNameUtf16())
+                .$(", fromThreadId=").$(workerId)
+                .$(", toThreadId=").$(tud.getWriterThreadId())
+                .I$();
+        metrics.writerTableMigrationsCounter().inc();
+        migratingTud = null;
+    }
+
     public void processWriterReleaseEvent(LineTcpMeasurementEvent event, int workerId) {
         tableUpdateDetailsLock.readLock().lock();
         try {
@@ -253,6 +311,40 @@ public class LineTcpMeasurementScheduler implements Closeable {
         }
     }
 
+    /**
+     * Moves at most one table per interval from the most loaded writer thread to the least loaded
+     * one. Thread load is the sum of the thread's shares of all rows and all bytes received
+     * by non-WAL tables, sampled as smoothed per-interval rates.
+     * <p>
+     * A migrated table's events that are already in the old writer thread's queue are still
+     * applied by the old thread. Until the old thread reaches the migration event, connections
+     * publishing to the table are held back as if the queue was full, so that neither writer
+     * thread has to stop consuming its queue. Other tables are not affected.
+     *
+     * @param millis current wall clock time in milliseconds
+     */
+    public void rebalanceWriterThreads(long millis) {
+        if (rebalanceInterval < 1 || (millis < nextRebalanceMillis && !migrationEventPending)) {
+            return;
+        }
+        tableUpdateDetailsLock.writeLock().lock();
+        try {
+            if (migrationEventPending) {
+                publishMigrationEvent();
+                return;
+            }
+            if (millis < nextRebalanceMillis) {
+                return;
+            }
+            nextRebalanceMillis = millis + rebalanceInterval;
+            if (migratingTud == null) {
+                unsafeRebalance();
+            }
+        } finally {
+            tableUpdateDetailsLock.writeLock().unlock();
+        }
+    }
+
     public void releaseWalTableDetails(Utf8StringObjHashMap<TableUpdateDetails> tableUpdateDetailsUtf8) {
         ObjList<Utf8String> keys = tableUpdateDetailsUtf8.keys();
         for (int n = keys.size() - 1; n > -1; --n) {
@@ -321,7 +413,7 @@ public class LineTcpMeasurementScheduler implements Closeable {
             }
             return false;
         }
-        return dispatchEvent(securityContext, netIoJob, parser, tud);
+        return dispatchEvent(securityContext, netIoJob, ctx.getCredit(), parser, tud);
     }
 
     private static long getEventSlotSize(int maxMeasurementSize) {
@@ -353,24 +445,55 @@ public class LineTcpMeasurementScheduler implements Closeable {
     private boolean dispatchEvent(
             SecurityContext securityContext,
             NetworkIOJob netIoJob,
+            LineTcpConnectionCredit credit,
             LineTcpParser parser,
             TableUpdateDetails tud
     ) {
-        final int writerThreadId = tud.getWriterThreadId();
-        long seq = getNextPublisherEventSequence(writerThreadId);
-        if (seq > -1) {
+        final long measurementSize = parser.getBufferAddress() - parser.getMeasurementName().lo();
+        if (!credit.tryAcquire(measurementSize)) {
+            // the connection has too much in flight already, it will be called back
+            // until the writer threads hand some credit back
+            credit.setHeldBack(true);
+            return true;
+        }
+        while (true) {
+            final int writerThreadId = tud.getWriterThreadId();
+            if (tud.isMigrating()) {
+                // the old writer thread is yet to let go of the table, retry once it has
+                credit.refund(measurementSize);
+                credit.setHeldBack(true);
+                return true;
+            }
+            long seq = getNextPublisherEventSequence(writerThreadId);
+            if (seq < 0) {
+                credit.refund(measurementSize);
+                return true;
+            }
+            if (tud.getWriterThreadId() != writerThreadId || tud.isMigrating()) {
+                // the table has started or finished migrating after we read its writer thread id,
+                // the slot may be behind the migration event and must not carry the table's data
+                queue[writerThreadId].get(seq).createIncompleteEvent();
+                pubSeq[writerThreadId].done(seq);
+                continue;
+            }
+            boolean published = false;
             try {
                 if (tud.isWriterInError()) {
                     throw CairoException.critical(0).put("writer is in error, aborting ILP pipeline");
                 }
-                queue[writerThreadId].get(seq).createMeasurementEvent(securityContext, tud, parser, netIoJob.getWorkerId());
+                final LineTcpMeasurementEvent event = queue[writerThreadId].get(seq);
+                event.createMeasurementEvent(securityContext, tud, parser, netIoJob.getWorkerId(), writerThreadId);
+                event.attachCredit(credit, measurementSize);
+                published = true;
             } finally {
+                if (!published) {
+                    credit.refund(measurementSize);
+                }
                 pubSeq[writerThreadId].done(seq);
             }
-            tud.incrementEventsProcessedSinceReshuffle();
+            tud.incrementEventsProcessedSinceReshuffle(measurementSize);
             return false;
         }
-        return true;
     }
 
     private TableUpdateDetails getTableUpdateDetailsFromSharedArea(
@@ -484,6 +607,18 @@ public class LineTcpMeasurementScheduler implements Closeable {
         return null != pubSeq;
     }
 
+    private void publishMigrationEvent() {
+        final TableUpdateDetails tud = migratingTud;
+        final int fromThreadId = tud.getWriterThreadId();
+        final long seq = getNextPublisherEventSequence(fromThreadId);
+        if (seq > -1) {
+            queue[fromThreadId].get(seq).createTableMigrationEvent(tud);
+            migrationEventPending = false;
+            pubSeq[fromThreadId].done(seq);
+        }
+        // otherwise the queue is full, retry on the next call
+    }
+
     @NotNull
     private TableUpdateDetails unsafeAssignTableToWriterThread(
             int tudKeyIndex,
@@ -532,6 +667,79 @@ public class LineTcpMeasurementScheduler implements Closeable {
         }
     }
 
+    private void unsafeRebalance() {
+        final ObjList<CharSequence> tableNames = tableUpdateDetailsUtf16.keys();
+        double totalRowRate = 0;
+        double totalByteRate = 0;
+        for (int n = 0, sz = tableNames.size(); n < sz; n++) {
+            final TableUpdateDetails tud = tableUpdateDetailsUtf16.get(tableNames.getQuick(n));
+            tud.sampleLoad(REBALANCE_LOAD_ALPHA);
+            totalRowRate += tud.getRowRate();
+            totalByteRate += tud.getByteRate();
+        }
+        if (totalRowRate == 0 || totalByteRate == 0) {
+            metrics.writerLoadImbalanceGauge().setValue(0);
+            return;
+        }
+
+        Arrays.fill(rebalanceLoadByWriterThread, 0);
+        Arrays.fill(rebalanceTableCountByWriterThread, 0);
+        for (int n = 0, sz = tableNames.size(); n < sz; n++) {
+            final TableUpdateDetails tud = tableUpdateDetailsUtf16.get(tableNames.getQuick(n));
+            final int writerThreadId = tud.getWriterThreadId();
+            rebalanceLoadByWriterThread[writerThreadId] += tud.getRowRate() / totalRowRate + tud.getByteRate() / totalByteRate;
+            rebalanceTableCountByWriterThread[writerThreadId]++;
+        }
+
+        int maxThreadId = 0;
+        int minThreadId = 0;
+        for (int i = 1, n = rebalanceLoadByWriterThread.length; i < n; i++) {
+            if (rebalanceLoadByWriterThread[i] > rebalanceLoadByWriterThread[maxThreadId]) {
+                maxThreadId = i;
+            }
+            if (rebalanceLoadByWriterThread[i] < rebalanceLoadByWriterThread[minThreadId]) {
+                minThreadId = i;
+            }
+        }
+        final double maxLoad = rebalanceLoadByWriterThread[maxThreadId];
+        final double imbalance = maxLoad - rebalanceLoadByWriterThread[minThreadId];
+        metrics.writerLoadImbalanceGauge().setValue((long) (imbalance * 100 / maxLoad));
+        if (imbalance * 100 < REBALANCE_THRESHOLD_PERCENT * maxLoad || rebalanceTableCountByWriterThread[maxThreadId] < 2) {
+            // moving the only table of a thread cannot help
+            return;
+        }
+
+        // the table that brings the two threads closest to each other; a move must at least
+        // halve the imbalance, so that tables do not bounce between threads on noise
+        TableUpdateDetails candidate = null;
+        double candidateDistance = Double.MAX_VALUE;
+        for (int n = 0, sz = tableNames.size(); n < sz; n++) {
+            final TableUpdateDetails tud = tableUpdateDetailsUtf16.get(tableNames.getQuick(n));
+            if (tud.getWriterThreadId() != maxThreadId || tud.isWriterInError()) {
+                continue;
+            }
+            final double load = tud.getRowRate() / totalRowRate + tud.getByteRate() / totalByteRate;
+            final double distance = Math.abs(imbalance - 2 * load);
+            if (distance * 2 <= imbalance && distance < candidateDistance) {
+                candidateDistance = distance;
+                candidate = tud;
+            }
+        }
+        if (candidate != null) {
+            LOG.info().$("migrating table to less loaded writer thread [tableName=").$(candidate.getTableNameUtf16())
+                    .$(", fromThreadId=").$(maxThreadId)
+                    .$(", toThreadId=").$(minThreadId)
+                    .$(", imbalance=").$(imbalance)
+                    .I$();
+            // events for the table already published to the old thread precede the migration
+            // event, the ones published after it are held back until the old thread reaches it
+            candidate.startMigration(minThreadId);
+            migratingTud = candidate;
+            migrationEventPending = true;
+            publishMigrationEvent();
+        }
+    }
+
     protected NetworkIOJob createNetworkIOJob(IODispatcher<LineTcpConnectionContext> dispatcher, int workerId) {
         return new LineTcpNetworkIOJob(configuration, this, dispatcher, workerId);
     }
@@ -39,6 +39,9 @@ import static io.questdb.network.IODispatcher.DISCONNECT_REASON_UNKNOWN_OPERATIO
 class LineTcpNetworkIOJob implements NetworkIOJob {
     private final static Log LOG = LogFactory.getLog(LineTcpNetworkIOJob.class);
     private final IODispatcher<LineTcpConnectionContext> dispatcher;
+    // Contexts waiting for their own measurements to be applied or for a table migration to finish.
+    // Unlike the busy context, they do not keep the job from serving other connections.
+    private final ObjList<LineTcpConnectionContext> heldBackContexts = new ObjList<>();
     private final long maintenanceInterval;
     private final MillisecondClock millisecondClock;
     private final LineTcpMeasurementScheduler scheduler;
@@ -77,6 +80,10 @@ class LineTcpNetworkIOJob implements NetworkIOJob {
             dispatcher.disconnect(busyContext, DISCONNECT_REASON_RETRY_FAILED);
             busyContext = null;
         }
+        for (int i = 0, n = heldBackContexts.size(); i < n; i++) {
+            dispatcher.disconnect(heldBackContexts.getQuick(i), DISCONNECT_REASON_RETRY_FAILED);
+        }
+        heldBackContexts.clear();
         Misc.free(unusedSymbolCaches);
     }
 
@@ -103,7 +110,10 @@ class LineTcpNetworkIOJob implements NetworkIOJob {
     @Override
     public boolean run(int workerId, @NotNull RunStatus runStatus) {
         assert this.workerId == workerId;
-        boolean busy = false;
+        // ahead of the busy context check, a pending table migration event can be what
+        // the writer thread of the full queue is waiting for
+        scheduler.rebalanceWriterThreads(millisecondClock.getTicks());
+        boolean busy = retryHeldBackContexts();
         if (busyContext != null) {
             if (handleIO(busyContext, dispatcher)) {
                 // queue is still full
@@ -155,10 +165,34 @@ class LineTcpNetworkIOJob implements NetworkIOJob {
             return false;
         }
         if (handleIO(context, dispatcher)) {
+            if (context.isHeldBack()) {
+                heldBackContexts.add(context);
+                LOG.debug().$("context is held back [fd=").$(context.getFd()).$(']').$();
+                return false;
+            }
             busyContext = context;
             LOG.debug().$("context is waiting on a full queue [fd=").$(context.getFd()).$(']').$();
             return false;
         }
         return true;
     }
+
+    private boolean retryHeldBackContexts() {
+        boolean busy = false;
+        for (int i = heldBackContexts.size() - 1; i > -1; i--) {
+            final LineTcpConnectionContext context = heldBackContexts.getQuick(i);
+            if (handleIO(context, dispatcher)) {
+                if (context.isHeldBack() || busyContext != null) {
+                    continue;
+                }
+                // the context is no longer held back, but has run into a full queue
+                busyContext = context;
+            } else {
+                LOG.debug().$("context is no longer held back [fd=").$(context.getFd()).$(']').$();
+                busy = true;
+            }
+            heldBackContexts.remove(i);
+        }
+        return busy;
+    }
 }
@@ -33,9 +33,27 @@ import io.questdb.std.ObjList;
 import io.questdb.std.Unsafe;
 import io.questdb.std.str.DirectUtf8Sequence;
 import io.questdb.std.str.DirectUtf8String;
-
+import io.questdb.std.str.Utf8s;
+
+/**
+ * Parses ILP measurements in place, resuming from where the previous call stopped when a measurement
+ * is split across receive buffers.
+ * <p>
+ * Besides the text dialect, a field or tag value, as well as the designated timestamp, can be sent in
+ * binary form: a {@link #BINARY_FORMAT_FLAG} byte where the text value would start, a binary type byte
+ * and the raw value. Doubles, longs and timestamps are 8 little-endian bytes, tag and string values are
+ * a 4-byte little-endian length followed by that many bytes of UTF-8. Binary values are copied as they
+ * are, without number parsing and without escaping, and can be mixed with text values on the same line.
+ * The byte that follows a binary value must be a separator.
+ */
 public class LineTcpParser {
 
+    public static final byte BINARY_FORMAT_FLAG = '=';
+    public static final byte BINARY_TYPE_DOUBLE = 16;
+    public static final byte BINARY_TYPE_LONG = 17;
+    public static final byte BINARY_TYPE_STRING = 20;
+    public static final byte BINARY_TYPE_TIMESTAMP_MICROS = 18;
+    public static final byte BINARY_TYPE_TIMESTAMP_NANOS = 19;
     public static final byte ENTITY_TYPE_BOOLEAN = 6;
     public static final byte ENTITY_TYPE_BYTE = 17;
     public static final byte ENTITY_TYPE_CACHED_TAG = 8;
@@ -75,14 +93,18 @@ public class LineTcpParser {
     private static final byte ENTITY_HANDLER_TIMESTAMP = 3;
     private static final byte ENTITY_HANDLER_VALUE = 2;
 
+    private static final long HIGH_BITS = 0x8080808080808080L;
     private static final Log LOG = LogFactory.getLog(LineTcpParser.class);
+    private static final long ONES = 0x0101010101010101L;
 
     private static final boolean[] controlChars;
+    private final boolean binaryFormatEnabled;
     private final DirectUtf8String charSeq = new DirectUtf8String();
     private final ObjList<ProtoEntity> entityCache = new ObjList<>();
     private final DirectUtf8String measurementName = new DirectUtf8String();
     private final boolean stringAsTagSupported;
     private final boolean symbolAsFieldSupported;
+    private boolean binaryValue;
     private long bufAt;
     private ProtoEntity currentEntity;
     private byte entityHandler = -1;
@@ -101,8 +123,43 @@ public class LineTcpParser {
     private byte timestampUnit;
 
     public LineTcpParser(boolean stringAsTagSupported, boolean symbolAsFieldSupported) {
+        this(stringAsTagSupported, symbolAsFieldSupported, true);
+    }
+
+    public LineTcpParser(boolean stringAsTagSupported, boolean symbolAsFieldSupported, boolean binaryFormatEnabled) {
         this.stringAsTagSupported = stringAsTagSupported;
         this.symbolAsFieldSupported = symbolAsFieldSupported;
+        this.binaryFormatEnabled = binaryFormatEnabled;
+    }
+
+    /**
+     * Skips bytes that can be consumed by the parser without any processing, i.e. ASCII bytes
+     * which are not control characters. The buffer is scanned a word at a time: a candidate mask
+     * is computed for all 8 bytes of the word using SWAR arithmetic and the scan stops at the
+     * lowest flagged byte. The mask may flag regular bytes too, so the returned byte is a control
+     * character candidate, which has to be checked by the caller.
+     *
+     * @param lo address to start the scan from
+     * @param hi scan limit, not inclusive
+     * @return address of the first byte that may need processing or hi when there is none
+     */
+    public static long skipRegularBytes(long lo, long hi) {
+        while (lo + Long.BYTES <= hi) {
+            final long word = Unsafe.getUnsafe().getLong(lo);
+            final long mask = controlByteMask(word);
+            if (mask != 0) {
+                return lo + (Long.numberOfTrailingZeros(mask) >>> 3);
+            }
+            lo += Long.BYTES;
+        }
+        while (lo < hi) {
+            final byte b = Unsafe.getUnsafe().getByte(lo);
+            if (b < 0 || controlChars[b]) {
+                return lo;
+            }
+            lo++;
+        }
+        return hi;
     }
 
     public long getBufferAddress() {
@@ -193,13 +250,23 @@ public class LineTcpParser {
             byte b = Unsafe.getUnsafe().getByte(bufAt);
 
             if (nEscapedChars == 0 && b >= 0 && !controlChars[b]) {
-                // hot path
+                // hot path, jump to the next byte that may be a control character
                 nextValueCanBeOpenQuote = false;
-                bufAt++;
+                bufAt = skipRegularBytes(bufAt + 1, bufHi);
                 continue;
             }
 
             // slow path
+            if (b == BINARY_FORMAT_FLAG && bufAt == entityLo && isBinaryValueAllowed()) {
+                if (!parseBinaryValue(bufHi)) {
+                    if (errorCode == ErrorCode.INVALID_FIELD_VALUE_STR_UNDERFLOW) {
+                        // the value will be parsed again once the rest of it is received
+                        return ParseResult.BUFFER_UNDERFLOW;
+                    }
+                    return ParseResult.ERROR;
+                }
+                continue;
+            }
             hasNonAscii |= b < 0;
             boolean endOfLine = false;
             boolean appendByte = false;
@@ -334,6 +401,15 @@ public class LineTcpParser {
             if (b == (byte) '\n' || b == (byte) '\r') {
                 return ParseResult.MEASUREMENT_COMPLETE;
             }
+            if (binaryFormatEnabled && (b == (byte) '=' || b == (byte) ' ')) {
+                // binary values may contain line breaks, they are skipped as a whole
+                final long next = skipBinaryValue(bufAt + 1, bufHi);
+                if (next == -1) {
+                    return ParseResult.BUFFER_UNDERFLOW;
+                }
+                bufAt = next;
+                continue;
+            }
             bufAt++;
         }
         return ParseResult.BUFFER_UNDERFLOW;
@@ -356,6 +432,74 @@ public class LineTcpParser {
         scape = false;
         nextValueCanBeOpenQuote = false;
         hasNonAscii = false;
+        binaryValue = false;
+    }
+
+    // Flags bytes that are below '#', which covers '\0', '\n', '\r', ' ' and '"', bytes equal to
+    // ',', '/', '=' and '\\' as well as non-ASCII bytes. Borrows may flag extra bytes above a flagged
+    // one, but the lowest flagged byte is always exact.
+    private static long controlByteMask(long word) {
+        return ((word - ONES * '#') & ~word & HIGH_BITS)
+                | zeroByteMask(word ^ (ONES * ','))
+                | zeroByteMask(word ^ (ONES * '/'))
+                | zeroByteMask(word ^ (ONES * '='))
+                | zeroByteMask(word ^ (ONES * '\\'))
+                | (word & HIGH_BITS);
+    }
+
+    /**
+     * Returns the address of the separator that follows the binary value starting at lo, or lo when no
+     * well-formed binary value starts there, or -1 when the buffer ends before it can be told.
+     */
+    private static long skipBinaryValue(long lo, long bufHi) {
+        if (lo >= bufHi) {
+            return -1;
+        }
+        if (Unsafe.getUnsafe().getByte(lo) != BINARY_FORMAT_FLAG) {
+            return lo;
+        }
+        if (lo + 1 >= bufHi) {
+            return -1;
+        }
+        long valueHi = lo + 2;
+        switch (Unsafe.getUnsafe().getByte(lo + 1)) {
+            case BINARY_TYPE_DOUBLE:
+            case BINARY_TYPE_LONG:
+            case BINARY_TYPE_TIMESTAMP_MICROS:
+            case BINARY_TYPE_TIMESTAMP_NANOS:
+                valueHi += Long.BYTES;
+                break;
+            case BINARY_TYPE_STRING:
+                if (valueHi + Integer.BYTES > bufHi) {
+                    return -1;
+                }
+                final int len = Unsafe.getUnsafe().getInt(valueHi);
+                if (len < 0) {
+                    return lo;
+                }
+                valueHi += Integer.BYTES + len;
+                break;
+            default:
+                return lo;
+        }
+        if (valueHi >= bufHi) {
+            return -1;
+        }
+        final byte separator = Unsafe.getUnsafe().getByte(valueHi);
+        return separator == ',' || separator == ' ' || separator == '\n' || separator == '\r' ? valueHi : lo;
+    }
+
+    private static long zeroByteMask(long word) {
+        return (word - ONES) & ~word & HIGH_BITS;
+    }
+
+    private boolean binaryValueError() {
+        if (entityHandler == ENTITY_HANDLER_TIMESTAMP) {
+            errorCode = ErrorCode.INVALID_TIMESTAMP;
+        } else {
+            errorCode = tagsComplete ? ErrorCode.INVALID_FIELD_VALUE : ErrorCode.INVALID_TAG_VALUE;
+        }
+        return false;
     }
 
     private boolean completeEntity(byte endOfEntityByte, long bufHi) {
@@ -448,7 +592,8 @@ public class LineTcpParser {
     private boolean expectEntityValue(byte endOfEntityByte) {
         boolean endOfSet = endOfEntityByte == (byte) ' ';
         if (endOfSet || endOfEntityByte == (byte) ',' || endOfEntityByte == (byte) '\n') {
-            if (currentEntity.setValueAndUnit()) {
+            if (binaryValue || currentEntity.setValueAndUnit()) {
+                binaryValue = false;
                 if (endOfSet) {
                     if (tagsComplete) {
                         entityHandler = ENTITY_HANDLER_TIMESTAMP;
@@ -491,7 +636,9 @@ public class LineTcpParser {
         try {
             if (endOfEntityByte == '\n') {
                 final long entityHi = bufAt - nEscapedChars;
-                if (entityLo < entityHi) {
+                if (binaryValue) {
+                    binaryValue = false;
+                } else if (entityLo < entityHi) {
                     charSeq.of(entityLo, entityHi, !hasNonAscii);
                     final int charSeqLen = charSeq.size();
                     final byte last = charSeq.byteAt(charSeqLen - 1);
@@ -546,6 +693,79 @@ public class LineTcpParser {
         return ParseResult.ERROR;
     }
 
+    private boolean isBinaryValueAllowed() {
+        return binaryFormatEnabled
+                && nEscapedChars == 0
+                && (entityHandler == ENTITY_HANDLER_VALUE || entityHandler == ENTITY_HANDLER_TIMESTAMP);
+    }
+
+    private boolean parseBinaryValue(long bufHi) {
+        // bufAt is at the binary format flag, the type byte follows it
+        final long typeAt = bufAt + 1;
+        if (typeAt >= bufHi) {
+            errorCode = ErrorCode.INVALID_FIELD_VALUE_STR_UNDERFLOW;
+            return false;
+        }
+        final byte binaryType = Unsafe.getUnsafe().getByte(typeAt);
+        long valueLo = typeAt + 1;
+        final long valueHi;
+        switch (binaryType) {
+            case BINARY_TYPE_DOUBLE:
+            case BINARY_TYPE_LONG:
+            case BINARY_TYPE_TIMESTAMP_MICROS:
+            case BINARY_TYPE_TIMESTAMP_NANOS:
+                valueHi = valueLo + Long.BYTES;
+                break;
+            case BINARY_TYPE_STRING:
+                if (valueLo + Integer.BYTES > bufHi) {
+                    errorCode = ErrorCode.INVALID_FIELD_VALUE_STR_UNDERFLOW;
+                    return false;
+                }
+                final int len = Unsafe.getUnsafe().getInt(valueLo);
+                if (len < 0) {
+                    return binaryValueError();
+                }
+                valueLo += Integer.BYTES;
+                valueHi = valueLo + len;
+                break;
+            default:
+                return binaryValueError();
+        }
+        // the separator after the value has to be in the buffer too
+        if (valueHi >= bufHi) {
+            errorCode = ErrorCode.INVALID_FIELD_VALUE_STR_UNDERFLOW;
+            return false;
+        }
+        // the value is skipped even when it is rejected, so that skipping the rest of the line
+        // does not stop at a line break inside the value
+        bufAt = valueHi;
+        final byte separator = Unsafe.getUnsafe().getByte(valueHi);
+        if (separator != ',' && separator != ' ' && separator != '\n' && separator != '\r') {
+            return binaryValueError();
+        }
+
+        if (entityHandler == ENTITY_HANDLER_TIMESTAMP) {
+            switch (binaryType) {
+                case BINARY_TYPE_TIMESTAMP_NANOS:
+                    timestampUnit = ENTITY_UNIT_NANO;
+                    break;
+                case BINARY_TYPE_TIMESTAMP_MICROS:
+                    timestampUnit = ENTITY_UNIT_MICRO;
+                    break;
+                case BINARY_TYPE_LONG:
+                    timestampUnit = ENTITY_UNIT_NONE;
+                    break;
+                default:
+                    return binaryValueError();
+            }
+            timestamp = Unsafe.getUnsafe().getLong(valueLo);
+        } else if (!currentEntity.setBinaryValue(binaryType, valueLo, valueHi)) {
+            return binaryValueError();
+        }
+        binaryValue = true;
+        return true;
+    }
+
     private ProtoEntity popEntity() {
         ProtoEntity currentEntity;
         if (entityCache.size() <= nEntities) {
@@ -632,6 +852,7 @@ public class LineTcpParser {
     public class ProtoEntity {
         private final DirectUtf8String name = new DirectUtf8String();
         private final DirectUtf8String value = new DirectUtf8String();
+        private boolean binary;
         private boolean booleanValue;
         private double floatValue;
         private long longValue;
@@ -666,6 +887,14 @@ public class LineTcpParser {
             return value;
         }
 
+        /**
+         * Numeric values received in binary form have no text representation, they cannot
+         * be written to symbol columns.
+         */
+        public boolean isBinary() {
+            return binary;
+        }
+
         public void shl(long shl) {
             name.shl(shl);
             value.shl(shl);
@@ -674,6 +903,7 @@ public class LineTcpParser {
         private void clear() {
             type = ENTITY_TYPE_NONE;
             unit = ENTITY_UNIT_NONE;
+            binary = false;
         }
 
         private boolean parse(byte last, int valueLen) {
@@ -774,6 +1004,44 @@ public class LineTcpParser {
             return true;
         }
 
+        private boolean setBinaryValue(byte binaryType, long lo, long hi) {
+            if (binaryType == BINARY_TYPE_STRING) {
+                final boolean ascii = Utf8s.isAscii(lo, hi);
+                hasNonAscii |= !ascii;
+                value.of(lo, hi, ascii);
+                type = tagsComplete ? ENTITY_TYPE_STRING : ENTITY_TYPE_TAG;
+                return true;
+            }
+            if (!tagsComplete) {
+                // tag values are always strings
+                return false;
+            }
+            value.of(lo, hi, false);
+            binary = true;
+            switch (binaryType) {
+                case BINARY_TYPE_DOUBLE:
+                    floatValue = Unsafe.getUnsafe().getDouble(lo);
+                    type = ENTITY_TYPE_FLOAT;
+                    return true;
+                case BINARY_TYPE_LONG:
+                    longValue = Unsafe.getUnsafe().getLong(lo);
+                    type = ENTITY_TYPE_INTEGER;
+                    return true;
+                case BINARY_TYPE_TIMESTAMP_MICROS:
+                    longValue = Unsafe.getUnsafe().getLong(lo);
+                    unit = ENTITY_UNIT_MICRO;
+                    type = ENTITY_TYPE_TIMESTAMP;
+                    return true;
+                case BINARY_TYPE_TIMESTAMP_NANOS:
+                    longValue = Unsafe.getUnsafe().getLong(lo);
+                    unit = ENTITY_UNIT_NANO;
+                    type = ENTITY_TYPE_TIMESTAMP;
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
         private void setName() {
             name.of(entityLo, bufAt - nEscapedChars, !hasNonAscii);
         }
@@ -47,6 +47,21 @@ public interface LineTcpReceiverConfiguration {
 
     double getCommitIntervalFraction();
 
+    /**
+     * Max number of bytes of measurements a single connection can have waiting in the writer
+     * queues, the connection stops reading from its socket while over the limit.
+     *
+     * @return number of bytes, 0 means no limit
+     */
+    long getConnectionCreditBytes();
+
+    /**
+     * Max number of measurements a single connection can have waiting in the writer queues.
+     *
+     * @return number of measurements, 0 means no limit
+     */
+    int getConnectionCreditRows();
+
     int getConnectionPoolInitialCapacity();
 
     short getDefaultColumnTypeForFloat();
@@ -93,8 +108,22 @@ public interface LineTcpReceiverConfiguration {
 
     int getWriterQueueCapacity();
 
+    /**
+     * Interval in milliseconds between rounds of moving tables from the most loaded writer
+     * thread to the least loaded one, based on the rows and bytes each table receives.
+     *
+     * @return interval in milliseconds, 0 disables rebalancing
+     */
+    long getWriterRebalanceInterval();
+
     WorkerPoolConfiguration getWriterWorkerPoolConfiguration();
 
+    /**
+     * When enabled, doubles, longs and timestamps can be sent as raw little-endian values and
+     * tag values as length-prefixed UTF-8 instead of text, see {@link LineTcpParser}.
+     */
+    boolean isBinaryFormatEnabled();
+
     boolean isEnabled();
 
     boolean isStringAsTagSupported();
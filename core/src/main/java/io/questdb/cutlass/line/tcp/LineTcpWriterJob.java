@@ -143,7 +143,6 @@ class LineTcpWriterJob implements Job, Closeable {
             }
             busy = true;
             final LineTcpMeasurementEvent event = queue.get(cursor);
-
             try {
                 // we check the event's writer thread ID to avoid consuming
                 // incomplete events
@@ -177,10 +176,17 @@ class LineTcpWriterJob implements Job, Closeable {
                         event.createWriterReleaseEvent(tud, false);
                         // This is a critical error, so we treat it as an unhandled one.
                     }
-                } else {
-                    if (event.getWriterWorkerId() == LineTcpMeasurementEventType.ALL_WRITERS_RELEASE_WRITER) {
-                        closeWriter = true;
+                } else if (event.getWriterWorkerId() == LineTcpMeasurementEventType.ALL_WRITERS_RELEASE_WRITER) {
+                    closeWriter = true;
+                } else if (event.getWriterWorkerId() == LineTcpMeasurementEventType.ALL_WRITERS_MIGRATE_TABLE) {
+                    // all the table's events published to this thread have been applied, the
+                    // writer can be handed over with its uncommitted rows intact
+                    if (tud.isAssignedToJob()) {
+                        assignedTables.remove(tud);
+                        tud.setAssignedToJob(false);
+                        nextCommitTime = millisecondClock.getTicks();
                     }
+                    scheduler.onTableMigrated(tud, workerId);
                 }
 
                 if (closeWriter && tud.getWriter() != null) {
@@ -193,6 +199,10 @@ class LineTcpWriterJob implements Job, Closeable {
                 LOG.error().$("failed to process ILP event because of exception [ex=").$(ex).I$();
             }
 
+            final long queueWaitMicros = event.releaseCredit();
+            if (queueWaitMicros > -1) {
+                metrics.line().queueWaitMicrosCounter().add(queueWaitMicros);
+            }
             sequence.done(cursor);
         }
     }
@@ -251,6 +251,9 @@ public class LineWalAppender {
                                 r.putFloat(columnIndex, ent.getLongValue());
                                 break;
                             case ColumnType.SYMBOL:
+                                if (ent.isBinary()) {
+                                    throw castError(tud.getTableNameUtf16(), "INTEGER", colType, ent.getName());
+                                }
                                 r.putSymUtf8(columnIndex, ent.getValue(), parser.hasNonAsciiChars());
                                 break;
                             default:
@@ -267,6 +270,9 @@ public class LineWalAppender {
                                 r.putFloat(columnIndex, (float) ent.getFloatValue());
                                 break;
                             case ColumnType.SYMBOL:
+                                if (ent.isBinary()) {
+                                    throw castError(tud.getTableNameUtf16(), "FLOAT", colType, ent.getName());
+                                }
                                 r.putSymUtf8(columnIndex, ent.getValue(), parser.hasNonAsciiChars());
                                 break;
                             default:
@@ -383,6 +389,9 @@ public class LineWalAppender {
                                 r.putTimestamp(columnIndex, dateValue / 1000);
                                 break;
                             case ColumnType.SYMBOL:
+                                if (ent.isBinary()) {
+                                    throw castError(tud.getTableNameUtf16(), "TIMESTAMP", colType, ent.getName());
+                                }
                                 r.putSymUtf8(columnIndex, ent.getValue(), parser.hasNonAsciiChars());
                                 break;
                             default:
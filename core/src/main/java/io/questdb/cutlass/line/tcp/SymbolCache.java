@@ -25,6 +25,7 @@
 package io.questdb.cutlass.line.tcp;
 
 import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.SharedSymbolCache;
 import io.questdb.cairo.SymbolMapReaderImpl;
 import io.questdb.cairo.TableWriterAPI;
 import io.questdb.cairo.TxReader;
@@ -33,6 +34,7 @@ import io.questdb.std.Unsafe;
 import io.questdb.std.Utf8StringIntHashMap;
 import io.questdb.std.datetime.microtime.MicrosecondClock;
 import io.questdb.std.str.*;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 
@@ -48,8 +50,11 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
     private final long waitUsBeforeReload;
     private int columnIndex;
     private long lastSymbolReaderReloadTimestamp;
+    private SharedSymbolCache sharedCache;
     private int symbolIndexInTxFile;
     private TxReader txReader;
+    // symbol count visible to the writer, read once per batch of lines, -1 when it is yet to be read
+    private int visibleSymbolCount = -1;
     private TableWriterAPI writerAPI;
 
     public SymbolCache(LineTcpReceiverConfiguration configuration) {
@@ -65,6 +70,8 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
     public void close() {
         txReader = null;
         writerAPI = null;
+        sharedCache = null;
+        visibleSymbolCount = -1;
         symbolMapReader.close();
         symbolValueToKeyMap.reset();
     }
@@ -84,6 +91,19 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
             return symbolValueToKeyMap.valueAt(index);
         }
 
+        if (sharedCache != null) {
+            final int sharedKey = sharedCache.keyOf(value);
+            // the key may have been cached by a writer that sees more symbols than this one, e.g.
+            // a WAL writer opened later, so it can be used only when it is within this writer's view
+            if (
+                    sharedKey != SymbolTable.VALUE_NOT_FOUND
+                            && (sharedKey < symbolMapReader.getSymbolCount() || sharedKey < getVisibleSymbolCount())
+            ) {
+                symbolValueToKeyMap.putAt(index, Utf8String.newInstance(value), sharedKey);
+                return sharedKey;
+            }
+        }
+
         final long ticks = clock.getTicks();
         int symbolValueCount;
 
@@ -92,6 +112,7 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
                         (symbolValueCount = readSymbolCount(symbolIndexInTxFile, true)) > symbolMapReader.getSymbolCount()
         ) {
             symbolMapReader.updateSymbolCount(symbolValueCount);
+            visibleSymbolCount = symbolValueCount;
             lastSymbolReaderReloadTimestamp = ticks;
         }
 
@@ -99,7 +120,11 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
         final int symbolKey = symbolMapReader.keyOf(tempSink);
 
         if (symbolKey != SymbolTable.VALUE_NOT_FOUND) {
-            symbolValueToKeyMap.putAt(index, Utf8String.newInstance(value), symbolKey);
+            final Utf8String symbolValue = Utf8String.newInstance(value);
+            symbolValueToKeyMap.putAt(index, symbolValue, symbolKey);
+            if (sharedCache != null) {
+                sharedCache.put(symbolValue, symbolKey);
+            }
         }
 
         return symbolKey;
@@ -114,8 +139,28 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
             int symbolIndexInTxFile,
             TxReader txReader,
             long columnNameTxn
+    ) {
+        of(configuration, writerAPI, columnIndex, path, columnName, symbolIndexInTxFile, txReader, columnNameTxn, null);
+    }
+
+    /**
+     * Same as {@link #of(CairoConfiguration, TableWriterAPI, int, Path, CharSequence, int, TxReader, long)}, but
+     * with a cache shared with other connections, which is consulted before the symbol map and is populated
+     * with the symbol keys found in the symbol map.
+     */
+    public void of(
+            CairoConfiguration configuration,
+            TableWriterAPI writerAPI,
+            int columnIndex,
+            Path path,
+            CharSequence columnName,
+            int symbolIndexInTxFile,
+            TxReader txReader,
+            long columnNameTxn,
+            @Nullable SharedSymbolCache sharedCache
     ) {
         this.writerAPI = writerAPI;
+        this.sharedCache = sharedCache;
         this.columnIndex = columnIndex;
         this.symbolIndexInTxFile = symbolIndexInTxFile;
         final int plen = path.size();
@@ -124,6 +169,22 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
         path.trimTo(plen);
         symbolMapReader.of(configuration, path, columnName, columnNameTxn, symCount);
         symbolValueToKeyMap.clear();
+        visibleSymbolCount = -1;
+    }
+
+    /**
+     * Makes the next shared cache lookup re-read the symbol count visible to the writer. Called once
+     * per batch of lines, so that the count is not re-read on every shared cache hit.
+     */
+    public void resetVisibleSymbolCount() {
+        visibleSymbolCount = -1;
+    }
+
+    private int getVisibleSymbolCount() {
+        if (visibleSymbolCount == -1) {
+            visibleSymbolCount = readSymbolCount(symbolIndexInTxFile, true);
+        }
+        return visibleSymbolCount;
     }
 
     private int readSymbolCount(int symbolIndexInTxFile, boolean initialStateOk) {
@@ -60,16 +60,27 @@ public class TableUpdateDetails implements Closeable {
     private final long writerTickRowsCountMod;
     protected TableWriterAPI writerAPI;
     private boolean assignedToJob = false;
+    // Number of bytes of line protocol processed since the last reshuffle, an estimate for the same
+    // reasons as eventsProcessedSinceReshuffle
+    private long bytesProcessedSinceReshuffle = 0;
+    // Smoothed per rebalance interval byte and row rates, maintained by the scheduler under its write lock
+    private double byteRate;
     // Number of rows processed since the last reshuffle, this is an estimate because it is incremented by
     // multiple threads without synchronisation
     private long eventsProcessedSinceReshuffle = 0;
     private boolean isDropped;
     private long lastMeasurementMillis = Long.MAX_VALUE;
+    private long lastSampledBytes;
+    private long lastSampledEvents;
     private MetadataService metadataService;
+    // Writer thread the table is being migrated to, -1 when no migration is in flight.
+    // The table's events are held back by publishers until the old owner has processed the migration event.
+    private volatile int migratingToThreadId = -1;
     private int networkIOOwnerCount = 0;
     private long nextCommitTime;
+    private double rowRate;
     private volatile boolean writerInError;
-    private int writerThreadId;
+    private volatile int writerThreadId;
 
     public TableUpdateDetails(
             LineTcpReceiverConfiguration configuration,
@@ -220,6 +231,10 @@ public class TableUpdateDetails implements Closeable {
         }
     }
 
+    public double getByteRate() {
+        return byteRate;
+    }
+
     public long getEventsProcessedSinceReshuffle() {
         return eventsProcessedSinceReshuffle;
     }
@@ -232,10 +247,18 @@ public class TableUpdateDetails implements Closeable {
         return millisecondClock;
     }
 
+    public int getMigratingToThreadId() {
+        return migratingToThreadId;
+    }
+
     public int getNetworkIOOwnerCount() {
         return networkIOOwnerCount;
     }
 
+    public double getRowRate() {
+        return rowRate;
+    }
+
     public String getTableNameUtf16() {
         return tableToken.getTableName();
     }
@@ -252,8 +275,9 @@ public class TableUpdateDetails implements Closeable {
         return writerThreadId;
     }
 
-    public void incrementEventsProcessedSinceReshuffle() {
+    public void incrementEventsProcessedSinceReshuffle(long eventBytes) {
         ++eventsProcessedSinceReshuffle;
+        bytesProcessedSinceReshuffle += eventBytes;
     }
 
     public boolean isAssignedToJob() {
@@ -288,6 +312,20 @@ public class TableUpdateDetails implements Closeable {
         writerAPI.rollback();
     }
 
+    /**
+     * Folds the rows and bytes processed since the previous call into the smoothed rates.
+     *
+     * @param alpha weight of the latest sample, 1.0 disables smoothing
+     */
+    public void sampleLoad(double alpha) {
+        final long events = eventsProcessedSinceReshuffle;
+        final long bytes = bytesProcessedSinceReshuffle;
+        rowRate += alpha * ((events - lastSampledEvents) - rowRate);
+        byteRate += alpha * ((bytes - lastSampledBytes) - byteRate);
+        lastSampledEvents = events;
+        lastSampledBytes = bytes;
+    }
+
     public void setAssignedToJob(boolean assignedToJob) {
         this.assignedToJob = assignedToJob;
     }
@@ -300,6 +338,19 @@ public class TableUpdateDetails implements Closeable {
         writerInError = true;
     }
 
+    public boolean isMigrating() {
+        return migratingToThreadId != -1;
+    }
+
+    /**
+     * Starts moving the table to another writer thread. The caller must publish a migration
+     * event to the current writer thread's queue after this call. The table stays with the
+     * current writer thread until that thread processes the migration event.
+     */
+    public void startMigration(int toWriterThreadId) {
+        migratingToThreadId = toWriterThreadId;
+    }
+
     public void tick() {
         if (metadataService != null) {
             metadataService.tick();
@@ -378,6 +429,11 @@ public class TableUpdateDetails implements Closeable {
         tick();
     }
 
+    void finishMigration() {
+        writerThreadId = migratingToThreadId;
+        migratingToThreadId = -1;
+    }
+
     ThreadLocalDetails getThreadLocalDetails(int workerId) {
         lastMeasurementMillis = millisecondClock.getTicks();
         return localDetailsArray[workerId];
@@ -410,6 +466,11 @@ public class TableUpdateDetails implements Closeable {
         }
     }
 
+    void resetVisibleSymbolCounts(int workerId) {
+        // WAL tables have a single set of thread local details, owned by the connection
+        localDetailsArray[isWal() ? 0 : workerId].resetVisibleSymbolCounts();
+    }
+
     public class ThreadLocalDetails implements Closeable {
         static final int COLUMN_NOT_FOUND = -1;
         static final int DUPLICATED_COLUMN = -2;
@@ -484,6 +545,9 @@ public class TableUpdateDetails implements Closeable {
 
                 long columnNameTxn = reader.getColumnVersionReader().getDefaultColumnNameTxn(colWriterIndex);
                 assert symIndex <= colWriterIndex;
+                final SharedSymbolCache sharedCache = cairoConfiguration.isSharedSymbolCacheEnabled()
+                        ? engine.getSharedSymbolCacheRegistry().getCache(tableToken, colWriterIndex, columnNameTxn, reader.getTxFile().getTruncateVersion())
+                        : null;
                 symCache.of(
                         cairoConfiguration,
                         writerAPI,
@@ -492,7 +556,8 @@ public class TableUpdateDetails implements Closeable {
                         symbolNameTemp,
                         symIndex,
                         txReader,
-                        columnNameTxn
+                        columnNameTxn,
+                        sharedCache
                 );
                 symbolCacheByColumnIndex.extendAndSet(colWriterIndex, symCache);
                 return symCache;
@@ -745,6 +810,15 @@ public class TableUpdateDetails implements Closeable {
             }
         }
 
+        void resetVisibleSymbolCounts() {
+            for (int n = 0, sz = symbolCacheByColumnIndex.size(); n < sz; n++) {
+                SymbolCache symCache = symbolCacheByColumnIndex.getQuick(n);
+                if (symCache != null) {
+                    symCache.resetVisibleSymbolCount();
+                }
+            }
+        }
+
         CharSequence utf8ToUtf16(DirectUtf8Sequence colNameUtf8, boolean hasNonAsciiChars) {
             return Utf8s.utf8ToUtf16(colNameUtf8, tempSink, hasNonAsciiChars);
         }
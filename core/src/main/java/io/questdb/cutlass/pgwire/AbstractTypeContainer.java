@@ -54,9 +54,17 @@ public abstract class AbstractTypeContainer<T extends AbstractTypeContainer<?>>
         }
     }
 
+    public IntList getTypes() {
+        return types;
+    }
+
     void copyTypesFrom(BindVariableService bindVariableService) {
         for (int i = 0, n = bindVariableService.getIndexedVariableCount(); i < n; i++) {
             types.add(bindVariableService.getFunction(i).getType());
         }
     }
+
+    void copyTypesFrom(IntList types) {
+        this.types.addAll(types);
+    }
 }
@@ -82,6 +82,8 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
     public static final String TAG_UPDATE = "UPDATE";
     private static final int COMMIT_TRANSACTION = 2;
     private static final int ERROR_TRANSACTION = 3;
+    // pipelined inserts outside of BEGIN/COMMIT block, rows are committed at Sync
+    private static final int IMPLICIT_TRANSACTION = 5;
     private static final int INT_BYTES_X = Numbers.bswap(Integer.BYTES);
     private static final int INT_NULL_X = Numbers.bswap(-1);
     private static final int IN_TRANSACTION = 1;
@@ -133,12 +135,15 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
     private final WeakMutableObjectPool<NamedStatementWrapper> namedStatementWrapperPool;
     private final Path path = new Path();
     private final ObjObjHashMap<TableToken, TableWriterAPI> pendingWriters;
+    private final QueryCache queryCache;
+    private final ResultCache resultCache;
     private final QueryLogger queryLogger;
     private final int recvBufferSize;
     private final ResponseUtf8Sink responseUtf8Sink = new ResponseUtf8Sink();
     private final SecurityContextFactory securityContextFactory;
     private final IntList selectColumnTypes = new IntList();
     private final int sendBufferSize;
+    private final IntList sharedBindVariableTypes = new IntList();
     private final IntList syncActions = new IntList(4);
     private final SCSequence tempSequence = new SCSequence();
     // insert 'statements' are cached only for the duration of user session
@@ -223,6 +228,8 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
                 engine.getMetrics().pgWire().connectionCountGauge()
         );
         this.engine = engine;
+        this.queryCache = engine.getQueryCache();
+        this.resultCache = engine.getResultCache();
         queryLogger = engine.getConfiguration().getQueryLogger();
         this.utf8Sink = new DirectUtf16Sink(engine.getConfiguration().getTextConfiguration().getUtf8SinkSize());
         this.maxRecompileAttempts = engine.getConfiguration().getMaxSqlRecompileAttempts();
@@ -1264,7 +1271,11 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         // we do not want to overwrite cache entries and potentially
         // leak memory
         if (typesAndSelect != null) {
-            if (typesAndSelectIsCached) {
+            if (typesAndSelectIsCached && queryCache != null) {
+                // the shared cache takes the factory, the type container goes back to the pool
+                queryCache.put(sqlExecutionContext.getSecurityContext(), queryText, typesAndSelect.releaseFactory(), typesAndSelect.getTypes());
+                this.typesAndSelect = Misc.free(this.typesAndSelect);
+            } else if (typesAndSelectIsCached) {
                 typesAndSelectCache.put(queryText, typesAndSelect);
                 // clear selectAndTypes so that context doesn't accidentally
                 // free the factory when context finishes abnormally
@@ -1303,6 +1314,17 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         recvBufferReadOffset = 0;
     }
 
+    private void closeImplicitTransaction(boolean commit) {
+        if (transactionState == IMPLICIT_TRANSACTION) {
+            try {
+                closePendingWriters(commit);
+            } finally {
+                pendingWriters.clear();
+                transactionState = NO_TRANSACTION;
+            }
+        }
+    }
+
     private void closePendingWriters(boolean commit) {
         for (ObjObjHashMap.Entry<TableToken, TableWriterAPI> pendingWriter : pendingWriters) {
             final TableWriterAPI m = pendingWriter.value;
@@ -1341,7 +1363,15 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
                 return false;
             }
 
-            typesAndSelect = typesAndSelectCache.poll(queryText);
+            if (queryCache != null) {
+                final RecordCursorFactory factory = queryCache.poll(sqlExecutionContext.getSecurityContext(), queryText, sharedBindVariableTypes);
+                if (factory != null) {
+                    typesAndSelect = typesAndSelectPool.pop();
+                    typesAndSelect.of(factory, sharedBindVariableTypes);
+                }
+            } else {
+                typesAndSelect = typesAndSelectCache.poll(queryText);
+            }
 
             if (typesAndSelect != null) {
                 queryLogger.logExecQuery(LOG, doLog, getFd(), queryText, sqlExecutionContext.getSecurityContext());
@@ -1353,7 +1383,9 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
                 return false;
             }
 
-            // not cached - compile to see what it is
+            // not cached - compile to see what it is, statements such as DDL
+            // can execute during compilation, they must not find table writers held
+            closeImplicitTransaction(true);
             try (SqlCompiler compiler = engine.getSqlCompiler()) {
                 final CompiledQuery cc = compiler.compile(queryText, sqlExecutionContext);
                 processCompiledQuery(cc);
@@ -1504,6 +1536,18 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
                             throw e;
                         }
                         break;
+                    case IMPLICIT_TRANSACTION:
+                        // keep the writer until Sync to commit the whole pipeline at once
+                        final InsertMethod m3 = typesAndInsert.getInsert().createMethod(sqlExecutionContext, this);
+                        recompileStale = false;
+                        try {
+                            rowCount = m3.execute();
+                        } finally {
+                            // on error the writer is rolled back together with the rest of the pipeline
+                            writer = m3.popWriter();
+                            pendingWriters.put(writer.getTableToken(), writer);
+                        }
+                        break;
                     case ERROR_TRANSACTION:
                         // when transaction is in error state, skip execution
                         break;
@@ -1776,6 +1820,8 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
     private void handleException(int position, CharSequence message, boolean critical, int errno, boolean interruption) throws PeerDisconnectedException, PeerIsSlowToReadException {
         metrics.pgWire().getErrorCounter().inc();
         clearCursorAndFactory();
+        // error aborts the implicit transaction, same as it would on Sync
+        closeImplicitTransaction(false);
         if (interruption) {
             prepareErrorResponse(position, message);
         } else {
@@ -1920,6 +1966,7 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
                 // the backend issues ErrorResponse, then reads and discards messages until a Sync is reached, then issues ReadyForQuery and returns to normal message processing.
                 // (But note that no skipping occurs if an error is detected while processing Sync — this ensures that there is one and only one ReadyForQuery sent for each Sync.)
                 processSyncActions();
+                closeImplicitTransaction(true);
                 prepareReadyForQuery();
                 prepareForNewQuery();
                 sendRNQ = true;
@@ -1934,6 +1981,8 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
                 if (syncActions.size() > 0) {
                     processSyncActions();
                 }
+                // clients that flush instead of syncing still get their pipelined rows committed
+                closeImplicitTransaction(true);
                 sendAndReset();
                 break;
             case 'D': // describe
@@ -2424,12 +2473,19 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
     }
 
     private void processExecute() throws Exception {
+        if (typesAndInsert == null) {
+            // statements other than insert see rows of the preceding inserts
+            closeImplicitTransaction(true);
+        }
         if (typesAndSelect != null) {
             LOG.debug().$("executing query").$();
             setupFactoryAndCursor();
             sendCursor(resumeCursorExecuteRef, resumeExecuteCompleteRef, setResumeComputeCursorSizeExecuteRef);
         } else if (typesAndInsert != null) {
             LOG.debug().$("executing insert").$();
+            if (transactionState == NO_TRANSACTION) {
+                transactionState = IMPLICIT_TRANSACTION;
+            }
             executeInsert();
         } else if (typesAndUpdate != null) {
             LOG.debug().$("executing update").$();
@@ -2516,6 +2572,7 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
             long lo,
             long limit
     ) throws Exception {
+        closeImplicitTransaction(true);
         prepareForNewQuery();
         isEmptyQuery = true; // assume SQL text contains no query until we find out otherwise
         CharacterStoreEntry e = characterStore.newEntry();
@@ -2817,7 +2874,9 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
             for (int retries = 0; recompileStale; retries++) {
                 currentFactory = typesAndSelect.getFactory();
                 try {
-                    currentCursor = currentFactory.getCursor(sqlExecutionContext);
+                    currentCursor = typesAndSelectIsCached && resultCache != null
+                            ? resultCache.getCursor(queryText, currentFactory, sqlExecutionContext)
+                            : currentFactory.getCursor(sqlExecutionContext);
                     recompileStale = false;
                     // cache random if it was replaced
                     rnd = sqlExecutionContext.getRandom();
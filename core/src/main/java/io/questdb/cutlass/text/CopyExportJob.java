@@ -0,0 +1,84 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.text;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.mp.AbstractQueueConsumerJob;
+import io.questdb.mp.Job;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.Misc;
+import io.questdb.std.str.DirectUtf8Sink;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+public class CopyExportJob extends AbstractQueueConsumerJob<CopyExportTask> implements Closeable {
+    private final long bufferSize;
+    private final CairoConfiguration configuration;
+    private PageAddressCacheRecord frameRecord;
+    private DirectUtf8Sink sink;
+    private Path tmpPath1;
+    private Path tmpPath2;
+
+    public CopyExportJob(CairoEngine engine) {
+        super(engine.getMessageBus().getTextExportQueue(), engine.getMessageBus().getTextExportSubSeq());
+        this.configuration = engine.getConfiguration();
+        this.bufferSize = configuration.getSqlCopyBufferSize();
+        // leave some headroom so that the last row rarely makes the sink grow
+        this.sink = new DirectUtf8Sink(2 * bufferSize);
+        this.frameRecord = new PageAddressCacheRecord();
+        this.tmpPath1 = new Path();
+        this.tmpPath2 = new Path();
+    }
+
+    public static void assignToPool(CairoEngine engine, WorkerPool pool) {
+        for (int i = 0, n = pool.getWorkerCount(); i < n; i++) {
+            Job job = new CopyExportJob(engine);
+            pool.assign(i, job);
+            pool.freeOnExit((Closeable) job);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.sink = Misc.free(sink);
+        this.frameRecord = Misc.free(frameRecord);
+        this.tmpPath1 = Misc.free(tmpPath1);
+        this.tmpPath2 = Misc.free(tmpPath2);
+    }
+
+    @Override
+    protected boolean doRun(int workerId, long cursor, RunStatus runStatus) {
+        final boolean result = export(queue.get(cursor));
+        subSeq.done(cursor);
+        return result;
+    }
+
+    boolean export(CopyExportTask task) {
+        return task.run(configuration, frameRecord, sink, bufferSize, tmpPath1, tmpPath2);
+    }
+}
@@ -0,0 +1,227 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.text;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.TableWriter;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.Sequence;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+import static io.questdb.cutlass.text.CopyTask.getPhaseName;
+import static io.questdb.cutlass.text.CopyTask.getStatusName;
+
+/**
+ * Picks up COPY ... TO requests one at a time and runs them via {@link ParallelCsvFileExporter}.
+ * Progress of every export is logged into the export status table, in the same way
+ * {@link CopyRequestJob} does for imports.
+ */
+public class CopyExportRequestJob extends SynchronizedJob implements Closeable {
+    public static final String STATUS_TABLE_NAME = "text_export_log";
+    private static final Log LOG = LogFactory.getLog(CopyExportRequestJob.class);
+    private final MicrosecondClock clock;
+    private final CopyContext copyContext;
+    private final CairoEngine engine;
+    private final int logRetentionDays;
+    private final LongList partitionsToRemove = new LongList();
+    private final RingQueue<CopyExportRequestTask> requestQueue;
+    private final Sequence requestSubSeq;
+    private final TableToken statusTableToken;
+    private final StringSink utf16StringSink = new StringSink();
+    private ParallelCsvFileExporter exporter;
+    private SqlExecutionContextImpl sqlExecutionContext;
+    private CopyExportRequestTask task;
+    private TableWriter writer;
+    private final ParallelCsvFileExporter.PhaseStatusReporter updateStatusRef = this::updateStatus;
+
+    public CopyExportRequestJob(final CairoEngine engine) throws SqlException {
+        this.requestQueue = engine.getMessageBus().getCopyExportRequestQueue();
+        this.requestSubSeq = engine.getMessageBus().getCopyExportRequestSubSeq();
+        this.exporter = new ParallelCsvFileExporter(engine);
+
+        CairoConfiguration configuration = engine.getConfiguration();
+        this.clock = configuration.getMicrosecondClock();
+
+        this.sqlExecutionContext = new SqlExecutionContextImpl(engine, 1);
+        this.sqlExecutionContext.with(configuration.getFactoryProvider().getSecurityContextFactory().getRootContext(), null, null);
+        final String statusTableName = configuration.getSystemTableNamePrefix() + STATUS_TABLE_NAME;
+        try (SqlCompiler compiler = engine.getSqlCompiler()) {
+            this.statusTableToken = compiler.query()
+                    .$("CREATE TABLE IF NOT EXISTS \"")
+                    .$(statusTableName)
+                    .$("\" (" +
+                            "ts timestamp, " + // 0
+                            "id string, " + // 1
+                            "dir symbol, " + // 2
+                            "partition_name symbol, " + // 3
+                            "phase symbol, " + // 4
+                            "status symbol, " + // 5
+                            "message string," + // 6
+                            "rows_exported long," + // 7
+                            "files_exported long" + // 8
+                            ") timestamp(ts) partition by DAY BYPASS WAL"
+                    )
+                    .compile(sqlExecutionContext)
+                    .getTableToken();
+        }
+
+        this.writer = engine.getWriter(statusTableToken, "QuestDB system");
+        this.logRetentionDays = configuration.getSqlCopyLogRetentionDays();
+        this.copyContext = engine.getCopyExportContext();
+        this.engine = engine;
+        enforceLogRetention();
+    }
+
+    @Override
+    public void close() {
+        this.exporter = Misc.free(exporter);
+        this.writer = Misc.free(writer);
+        this.sqlExecutionContext = Misc.free(sqlExecutionContext);
+    }
+
+    private void updateStatus(
+            byte phase,
+            byte status,
+            @Nullable final CharSequence partition,
+            @Nullable final CharSequence msg,
+            long rowsExported,
+            long filesExported
+    ) {
+        if (writer != null) {
+            try {
+                TableWriter.Row row = writer.newRow(clock.getTicks());
+                utf16StringSink.clear();
+                Numbers.appendHex(utf16StringSink, task.getCopyID(), true);
+                row.putStr(1, utf16StringSink);
+                row.putSym(2, task.getDirName());
+                row.putSym(3, partition);
+                row.putSym(4, getPhaseName(phase));
+                row.putSym(5, getStatusName(status));
+                row.putStr(6, msg);
+                row.putLong(7, rowsExported);
+                row.putLong(8, filesExported);
+                row.append();
+                writer.commit();
+            } catch (Throwable th) {
+                LOG.error()
+                        .$("could not update status table [exportId=").$hexPadded(task.getCopyID())
+                        .$(", statusTableName=").$(statusTableToken)
+                        .$(", dir=").$(task.getDirName())
+                        .$(", partition=").$(partition)
+                        .$(", phase=").$(getPhaseName(phase))
+                        .$(", status=").$(getStatusName(status))
+                        .$(", msg=").$(msg)
+                        .$(", rowsExported=").$(rowsExported)
+                        .$(", filesExported=").$(filesExported)
+                        .$(", error=`").$(th).$('`')
+                        .I$();
+                writer = Misc.free(writer);
+            }
+
+            // if we closed the writer, we need to reopen it again
+            if (writer == null) {
+                try {
+                    writer = engine.getWriter(statusTableToken, "QuestDB system");
+                } catch (Throwable e) {
+                    LOG.error()
+                            .$("could not re-open writer [table=").$(statusTableToken)
+                            .$(", error=`").$(e).$('`')
+                            .I$();
+                }
+            }
+        }
+    }
+
+    void enforceLogRetention() {
+        if (writer != null) {
+            if (logRetentionDays < 1) {
+                writer.truncate();
+                return;
+            }
+            if (writer.getPartitionCount() > 0) {
+                partitionsToRemove.clear();
+                for (int i = writer.getPartitionCount() - logRetentionDays - 1; i > -1; i--) {
+                    partitionsToRemove.add(writer.getPartitionTimestamp(i));
+                }
+
+                for (int i = 0, sz = partitionsToRemove.size(); i < sz; i++) {
+                    writer.removePartition(partitionsToRemove.getQuick(i));
+                }
+            }
+        }
+    }
+
+    @Override
+    protected boolean runSerially() {
+        long cursor = requestSubSeq.next();
+        if (cursor > -1) {
+            task = requestQueue.get(cursor);
+            try {
+                exporter.of(
+                        task.getQuery(),
+                        task.getDirName(),
+                        task.getCopyID(),
+                        task.getPartitionBy(),
+                        task.getDelimiter(),
+                        task.isHeaderFlag(),
+                        copyContext.getCircuitBreaker()
+                );
+                exporter.setStatusReporter(updateStatusRef);
+                exporter.process(task.getSecurityContext());
+            } catch (TextImportException e) {
+                updateStatus(
+                        CopyTask.NO_PHASE,
+                        e.isCancelled() ? CopyTask.STATUS_CANCELLED : CopyTask.STATUS_FAILED,
+                        null,
+                        e.getMessage(),
+                        0,
+                        0
+                );
+            } finally {
+                exporter.clear();
+                requestSubSeq.done(cursor);
+                copyContext.clear();
+            }
+            enforceLogRetention();
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.text;
+
+import io.questdb.cairo.SecurityContext;
+import io.questdb.std.Mutable;
+
+public class CopyExportRequestTask implements Mutable {
+    private long copyID;
+    private byte delimiter;
+    private String dirName;
+    private boolean headerFlag;
+    private int partitionBy;
+    private String query;
+    private SecurityContext securityContext;
+
+    @Override
+    public void clear() {
+        this.copyID = -1;
+        this.query = null;
+        this.dirName = null;
+        this.headerFlag = false;
+        this.delimiter = 0;
+        this.partitionBy = -1;
+        this.securityContext = null;
+    }
+
+    public long getCopyID() {
+        return copyID;
+    }
+
+    public byte getDelimiter() {
+        return delimiter;
+    }
+
+    public String getDirName() {
+        return dirName;
+    }
+
+    public int getPartitionBy() {
+        return partitionBy;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public SecurityContext getSecurityContext() {
+        return securityContext;
+    }
+
+    public boolean isHeaderFlag() {
+        return headerFlag;
+    }
+
+    public void of(
+            SecurityContext securityContext,
+            long copyID,
+            String query,
+            String dirName,
+            boolean headerFlag,
+            byte delimiter,
+            int partitionBy
+    ) {
+        this.clear();
+        this.securityContext = securityContext;
+        this.copyID = copyID;
+        this.query = query;
+        this.dirName = dirName;
+        this.headerFlag = headerFlag;
+        this.delimiter = delimiter;
+        this.partitionBy = partitionBy;
+    }
+}
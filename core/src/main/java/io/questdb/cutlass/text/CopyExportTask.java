@@ -0,0 +1,333 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.text;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.sql.PageAddressCache;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cutlass.http.processors.TextQueryProcessor;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.LongList;
+import io.questdb.std.str.DirectUtf8Sink;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Exports a single partition-aligned slice of a query result into a CSV file. The slice is
+ * either a list of page frame row ranges, which a worker reads through the page address cache
+ * shared by all tasks of the export, or a run of records of the query cursor. The file is
+ * written into a temporary file first and renamed once complete, so that readers of the
+ * export directory never observe a partially written partition.
+ */
+public class CopyExportTask {
+    public static final String FILE_EXTENSION = ".csv";
+    private static final Log LOG = LogFactory.getLog(CopyExportTask.class);
+    private static final String TMP_FILE_EXTENSION = ".csv.tmp";
+    private final StringSink fileName = new StringSink();
+    private @Nullable SqlExecutionCircuitBreaker circuitBreaker;
+    private @Nullable RecordCursor cursor;
+    private byte delimiter;
+    private int doubleScale;
+    private @Nullable CharSequence errorMessage;
+    private CharSequence exportDir;
+    private int floatScale;
+    // frame index, row lo and row hi triplets
+    private LongList frameSlices;
+    private boolean hasPendingRecord;
+    private boolean headerFlag;
+    private int index;
+    private RecordMetadata metadata;
+    private PageAddressCache pageAddressCache;
+    private long rowCount;
+    private int sliceHi;
+    private int sliceLo;
+    private byte status;
+    private SymbolTableSource symbolTableSource;
+    private long timestampHi;
+    private int timestampIndex;
+    private long timestampLo;
+
+    public void clear() {
+        this.metadata = null;
+        this.circuitBreaker = null;
+        this.exportDir = null;
+        this.cursor = null;
+        this.symbolTableSource = null;
+        this.pageAddressCache = null;
+        this.frameSlices = null;
+        this.fileName.clear();
+        this.errorMessage = null;
+        this.rowCount = 0;
+        this.index = -1;
+    }
+
+    public @Nullable CharSequence getErrorMessage() {
+        return errorMessage;
+    }
+
+    public StringSink getFileName() {
+        return fileName;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public byte getStatus() {
+        return status;
+    }
+
+    /**
+     * @return true when the cursor stopped at a record of the next partition
+     */
+    public boolean hasPendingRecord() {
+        return hasPendingRecord;
+    }
+
+    public boolean isCancelled() {
+        return status == CopyTask.STATUS_CANCELLED;
+    }
+
+    public boolean isFailed() {
+        return status == CopyTask.STATUS_FAILED;
+    }
+
+    public void of(
+            int index,
+            RecordMetadata metadata,
+            @Nullable SqlExecutionCircuitBreaker circuitBreaker,
+            CharSequence exportDir,
+            byte delimiter,
+            boolean headerFlag,
+            int doubleScale,
+            int floatScale
+    ) {
+        this.index = index;
+        this.metadata = metadata;
+        this.circuitBreaker = circuitBreaker;
+        this.exportDir = exportDir;
+        this.delimiter = delimiter;
+        this.headerFlag = headerFlag;
+        this.doubleScale = doubleScale;
+        this.floatScale = floatScale;
+        this.rowCount = 0;
+        this.hasPendingRecord = false;
+        this.cursor = null;
+        this.frameSlices = null;
+        this.fileName.clear();
+    }
+
+    /**
+     * Exports records of the cursor, starting from the current one, until the designated timestamp
+     * leaves the partition. Both bounds are checked, so descending results are split too.
+     *
+     * @param cursor         cursor positioned at the first record of the partition
+     * @param timestampIndex index of the designated timestamp or -1 to export all remaining records
+     * @param timestampLo    inclusive lower bound of the partition
+     * @param timestampHi    exclusive upper bound of the partition
+     */
+    public void ofCursor(RecordCursor cursor, int timestampIndex, long timestampLo, long timestampHi) {
+        this.cursor = cursor;
+        this.timestampIndex = timestampIndex;
+        this.timestampLo = timestampLo;
+        this.timestampHi = timestampHi;
+    }
+
+    /**
+     * Exports rows of the page frames. The frames must stay open until the task is collected.
+     *
+     * @param sliceLo first element of the partition slices in frameSlices
+     * @param sliceHi end of the partition slices in frameSlices
+     */
+    public void ofFrames(SymbolTableSource symbolTableSource, PageAddressCache pageAddressCache, LongList frameSlices, int sliceLo, int sliceHi) {
+        this.symbolTableSource = symbolTableSource;
+        this.pageAddressCache = pageAddressCache;
+        this.frameSlices = frameSlices;
+        this.sliceLo = sliceLo;
+        this.sliceHi = sliceHi;
+    }
+
+    public boolean run(
+            CairoConfiguration configuration,
+            PageAddressCacheRecord frameRecord,
+            DirectUtf8Sink sink,
+            long bufferSize,
+            Path tmpPath,
+            Path dstPath
+    ) {
+        try {
+            LOG.debug().$("starting [phase=").$(CopyTask.getPhaseName(CopyTask.PHASE_PARTITION_EXPORT)).$(",index=").$(index).I$();
+
+            this.status = CopyTask.STATUS_STARTED;
+            this.errorMessage = null;
+
+            throwIfCancelled();
+            export(configuration, frameRecord, sink, bufferSize, tmpPath, dstPath);
+
+            LOG.debug().$("finished [phase=").$(CopyTask.getPhaseName(CopyTask.PHASE_PARTITION_EXPORT)).$(",index=").$(index).I$();
+        } catch (TextImportException e) {
+            this.status = CopyTask.STATUS_CANCELLED;
+            this.errorMessage = e.getMessage();
+            LOG.error().$("Export cancelled [phase=").$(CopyTask.getPhaseName(e.getPhase())).I$();
+            return false;
+        } catch (Throwable t) {
+            LOG.error()
+                    .$("could not export [phase=").$(CopyTask.getPhaseName(CopyTask.PHASE_PARTITION_EXPORT))
+                    .$(", file=").$(fileName)
+                    .$(", ex=").$(t)
+                    .I$();
+            this.status = circuitBreaker != null && circuitBreaker.checkIfTripped() ? CopyTask.STATUS_CANCELLED : CopyTask.STATUS_FAILED;
+            this.errorMessage = t.getMessage();
+            return false;
+        }
+        return true;
+    }
+
+    private void export(
+            CairoConfiguration configuration,
+            PageAddressCacheRecord frameRecord,
+            DirectUtf8Sink sink,
+            long bufferSize,
+            Path tmpPath,
+            Path dstPath
+    ) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        tmpPath.of(exportDir).concat(fileName).put(TMP_FILE_EXTENSION).$();
+        dstPath.of(exportDir).concat(fileName).put(FILE_EXTENSION).$();
+
+        final int fd = TableUtils.openRW(ff, tmpPath, LOG, configuration.getWriterFileOpenOpts());
+        boolean success = false;
+        try {
+            if (!ff.truncate(fd, 0)) {
+                throw CairoException.critical(ff.errno()).put("could not truncate export file [file=").put(tmpPath).put(']');
+            }
+            long offset = 0;
+            sink.clear();
+            if (headerFlag) {
+                for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                    if (i > 0) {
+                        sink.put(delimiter);
+                    }
+                    sink.putQuote().escapeJsonStr(metadata.getColumnName(i)).putQuote();
+                }
+                sink.putAscii('\n');
+            }
+
+            if (cursor != null) {
+                final Record record = cursor.getRecord();
+                do {
+                    if (timestampIndex > -1) {
+                        final long timestamp = record.getTimestamp(timestampIndex);
+                        if (timestamp < timestampLo || timestamp >= timestampHi) {
+                            hasPendingRecord = true;
+                            break;
+                        }
+                    }
+                    offset = putRecord(ff, fd, record, sink, bufferSize, offset, tmpPath);
+                } while (cursor.hasNext());
+            } else {
+                frameRecord.of(symbolTableSource, pageAddressCache);
+                try {
+                    for (int i = sliceLo; i < sliceHi; i += 3) {
+                        frameRecord.setFrameIndex((int) frameSlices.getQuick(i));
+                        for (long r = frameSlices.getQuick(i + 1), hi = frameSlices.getQuick(i + 2); r < hi; r++) {
+                            frameRecord.setRowIndex(r);
+                            offset = putRecord(ff, fd, frameRecord, sink, bufferSize, offset, tmpPath);
+                        }
+                    }
+                } finally {
+                    // symbol tables belong to the reader of the export
+                    frameRecord.of(null, null);
+                }
+            }
+            flush(ff, fd, sink, offset, tmpPath);
+            success = true;
+        } finally {
+            ff.close(fd);
+            if (!success || rowCount == 0) {
+                // slices without rows do not produce files
+                ff.removeQuiet(tmpPath);
+            }
+        }
+
+        if (rowCount > 0) {
+            ff.removeQuiet(dstPath);
+            if (ff.rename(tmpPath, dstPath) != Files.FILES_RENAME_OK) {
+                throw CairoException.critical(ff.errno()).put("could not rename export file [from=").put(tmpPath).put(", to=").put(dstPath).put(']');
+            }
+        }
+    }
+
+    private long flush(FilesFacade ff, int fd, DirectUtf8Sink sink, long offset, Path path) {
+        final long size = sink.size();
+        if (size > 0) {
+            if (ff.write(fd, sink.ptr(), size, offset) != size) {
+                throw CairoException.critical(ff.errno()).put("could not write export file [file=").put(path).put(", offset=").put(offset).put(']');
+            }
+            sink.clear();
+        }
+        return offset + size;
+    }
+
+    private long putRecord(FilesFacade ff, int fd, Record record, DirectUtf8Sink sink, long bufferSize, long offset, Path path) {
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (i > 0) {
+                sink.put(delimiter);
+            }
+            TextQueryProcessor.putValue(sink, metadata.getColumnType(i), record, i, doubleScale, floatScale);
+        }
+        sink.putAscii('\n');
+        rowCount++;
+
+        if (sink.size() >= bufferSize) {
+            offset = flush(ff, fd, sink, offset, path);
+            throwIfCancelled();
+        }
+        return offset;
+    }
+
+    private void throwIfCancelled() throws TextImportException {
+        if (circuitBreaker != null && circuitBreaker.checkIfTripped()) {
+            TextImportException ex = TextImportException.instance(CopyTask.PHASE_PARTITION_EXPORT, "Cancelled");
+            ex.setCancelled(true);
+            throw ex;
+        }
+    }
+}
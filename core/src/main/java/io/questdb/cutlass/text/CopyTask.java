@@ -52,6 +52,7 @@ public class CopyTask {
     public static final byte PHASE_CLEANUP = 10;
     public static final byte PHASE_INDEXING = 2;
     public static final byte PHASE_MOVE_PARTITIONS = 7;
+    public static final byte PHASE_PARTITION_EXPORT = 11;
     public static final byte PHASE_PARTITION_IMPORT = 3;
     public static final byte PHASE_SETUP = 0;
     public static final byte PHASE_SYMBOL_TABLE_MERGE = 4;
@@ -490,6 +491,7 @@ public class CopyTask {
                             DefaultLifecycleManager.INSTANCE,
                             root,
                             cairoEngine.getDdlListener(tableToken),
+                            cairoEngine.getSharedSymbolCacheRegistry(),
                             cairoEngine.getSnapshotAgent(),
                             cairoEngine.getMetrics()
                     )
@@ -873,6 +875,7 @@ public class CopyTask {
                             DefaultLifecycleManager.INSTANCE,
                             importRoot,
                             engine.getDdlListener(tableToken),
+                            engine.getSharedSymbolCacheRegistry(),
                             engine.getSnapshotAgent(),
                             engine.getMetrics()
                     )
@@ -1439,6 +1442,7 @@ public class CopyTask {
         PHASE_NAME_MAP.put(PHASE_ATTACH_PARTITIONS, "attach_partitions");
         PHASE_NAME_MAP.put(PHASE_ANALYZE_FILE_STRUCTURE, "analyze_file_structure");
         PHASE_NAME_MAP.put(PHASE_CLEANUP, "cleanup");
+        PHASE_NAME_MAP.put(PHASE_PARTITION_EXPORT, "partition_export");
 
         STATUS_NAME_MAP.put(STATUS_STARTED, "started");
         STATUS_NAME_MAP.put(STATUS_FINISHED, "finished");
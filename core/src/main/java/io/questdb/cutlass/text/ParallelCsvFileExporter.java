@@ -0,0 +1,483 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.text;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.BinarySearch;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.PartitionBy;
+import io.questdb.cairo.SecurityContext;
+import io.questdb.cairo.security.DenyAllSecurityContext;
+import io.questdb.cairo.sql.DataFrameCursorFactory;
+import io.questdb.cairo.sql.PageAddressCache;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.Job;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.Sequence;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+import io.questdb.std.Os;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import io.questdb.std.datetime.DateFormat;
+import io.questdb.std.datetime.millitime.DateFormatUtils;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.util.function.Consumer;
+
+/**
+ * Exports result of a query into a directory of CSV files, one file per partition-aligned
+ * timestamp interval. The query runs once, so all files are written from the same snapshot.
+ * <p>
+ * When the query can be scanned as page frames, the frames are split along the export
+ * partitions and each partition is written by a separate task published to the shared worker
+ * pool, so that large tables are exported by all workers at once. The tasks read the frames
+ * through a page address cache, the frame cursor keeps the reader open until all of them are
+ * collected. Results of other queries are written partition by partition as the cursor
+ * returns them.
+ */
+public class ParallelCsvFileExporter implements Closeable, Mutable {
+    private static final Log LOG = LogFactory.getLog(ParallelCsvFileExporter.class);
+    private final Sequence collectSeq;
+    private final CairoConfiguration configuration;
+    private final CopyExportTask cursorExportTask = new CopyExportTask();
+    private final int doubleScale;
+    private final CharSequence exportRoot;
+    private final FilesFacade ff;
+    private final int floatScale;
+    // frame index, row lo and row hi triplets
+    private final LongList frameSlices = new LongList();
+    private final PageAddressCache pageAddressCache;
+    private final StringSink partitionNameSink = new StringSink();
+    private final ObjList<String> partitionNames = new ObjList<>();
+    // offset of the first frame slice of each partition followed by the end offset
+    private final IntList partitionSlices = new IntList();
+    private final Sequence pubSeq;
+    private final RingQueue<CopyExportTask> queue;
+    private @Nullable SqlExecutionCircuitBreaker circuitBreaker;
+    private long copyId;
+    private byte delimiter;
+    private String dirName;
+    private @Nullable CharSequence errorMessage;
+    private String exportDir;
+    private RecordCursorFactory factory;
+    private long filesExported;
+    private boolean headerFlag;
+    private CopyExportJob localExportJob;
+    private PageFrameCursor pageFrameCursor;
+    private int partitionBy;
+    private byte phase;
+    private String query;
+    private long rowsExported;
+    private SqlExecutionContextImpl sqlExecutionContext;
+    private byte status;
+    private PhaseStatusReporter statusReporter;
+    private final Consumer<CopyExportTask> collectPartitionStatsRef = this::collectPartitionStats;
+    private Path tmpPath;
+
+    public ParallelCsvFileExporter(CairoEngine engine) {
+        MessageBus bus = engine.getMessageBus();
+        RingQueue<CopyExportTask> queue = bus.getTextExportQueue();
+        if (queue.getCycle() < 1) {
+            throw TextImportException.instance(CopyTask.PHASE_SETUP, "Parallel export queue size cannot be zero!");
+        }
+
+        this.queue = queue;
+        this.pubSeq = bus.getTextExportPubSeq();
+        this.collectSeq = bus.getTextExportColSeq();
+        this.localExportJob = new CopyExportJob(engine);
+        this.configuration = engine.getConfiguration();
+        this.ff = configuration.getFilesFacade();
+        this.exportRoot = configuration.getSqlCopyExportRoot();
+        this.doubleScale = configuration.getDoubleToStrCastScale();
+        this.floatScale = configuration.getFloatToStrCastScale();
+        this.pageAddressCache = new PageAddressCache(configuration);
+        this.sqlExecutionContext = new SqlExecutionContextImpl(engine, 1);
+        this.tmpPath = new Path();
+    }
+
+    @Override
+    public void clear() {
+        pageFrameCursor = Misc.free(pageFrameCursor);
+        factory = Misc.free(factory);
+        securityContextReset();
+        pageAddressCache.clear();
+        frameSlices.clear();
+        partitionSlices.clear();
+        partitionNames.clear();
+        cursorExportTask.clear();
+        circuitBreaker = null;
+        copyId = -1;
+        query = null;
+        dirName = null;
+        exportDir = null;
+        errorMessage = null;
+        rowsExported = 0;
+        filesExported = 0;
+        phase = CopyTask.PHASE_SETUP;
+        status = CopyTask.STATUS_STARTED;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        this.localExportJob = Misc.free(localExportJob);
+        this.sqlExecutionContext = Misc.free(sqlExecutionContext);
+        this.tmpPath = Misc.free(tmpPath);
+    }
+
+    public CharSequence getDirName() {
+        return dirName;
+    }
+
+    public void of(
+            String query,
+            String dirName,
+            long copyId,
+            int partitionBy,
+            byte delimiter,
+            boolean headerFlag,
+            @Nullable SqlExecutionCircuitBreaker circuitBreaker
+    ) {
+        clear();
+        this.query = query;
+        this.dirName = dirName;
+        this.copyId = copyId;
+        this.partitionBy = partitionBy < 0 ? PartitionBy.NONE : partitionBy;
+        this.delimiter = delimiter;
+        this.headerFlag = headerFlag;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public void process(SecurityContext securityContext) throws TextImportException {
+        final long startMs = getCurrentTimeMs();
+        try {
+            updateExportStatus(CopyTask.STATUS_STARTED);
+            sqlExecutionContext.with(securityContext, null, null, -1, null);
+            try {
+                phaseSetup();
+                phasePartitionExport();
+                updateExportStatus(CopyTask.STATUS_FINISHED);
+            } catch (CairoException e) {
+                throw TextImportException.instance(phase, e.getFlyweightMessage(), e.getErrno());
+            } catch (SqlException e) {
+                throw TextImportException.instance(phase, e.getFlyweightMessage());
+            } finally {
+                pageFrameCursor = Misc.free(pageFrameCursor);
+                factory = Misc.free(factory);
+                securityContextReset();
+            }
+        } catch (TextImportException e) {
+            LOG.error()
+                    .$("could not export [phase=").$(CopyTask.getPhaseName(e.getPhase()))
+                    .$(", ex=").$(e.getFlyweightMessage())
+                    .I$();
+            throw e;
+        }
+
+        LOG.info()
+                .$("export complete [exportId=").$hexPadded(copyId)
+                .$(", dir=`").$(exportDir).$('`')
+                .$(", files=").$(filesExported)
+                .$(", rows=").$(rowsExported)
+                .$(", time=").$((getCurrentTimeMs() - startMs) / 1000).$("s").I$();
+    }
+
+    public void setStatusReporter(PhaseStatusReporter statusReporter) {
+        this.statusReporter = statusReporter;
+    }
+
+    private int collect(int queuedCount, Consumer<CopyExportTask> consumer) {
+        int collectedCount = 0;
+        while (collectedCount < queuedCount) {
+            final long seq = collectSeq.next();
+            if (seq > -1) {
+                CopyExportTask task = queue.get(seq);
+                consumer.accept(task);
+                task.clear();
+                collectSeq.done(seq);
+                collectedCount += 1;
+            } else {
+                stealWork();
+            }
+        }
+        return collectedCount;
+    }
+
+    private void collectPartitionStats(CopyExportTask task) {
+        final boolean cancelledOrFailed = status == CopyTask.STATUS_FAILED || status == CopyTask.STATUS_CANCELLED;
+        if (!cancelledOrFailed && (task.isFailed() || task.isCancelled())) {
+            status = task.getStatus();
+            errorMessage = task.getErrorMessage();
+        }
+        final long rowCount = task.getRowCount();
+        if (rowCount > 0 && !task.isFailed() && !task.isCancelled()) {
+            rowsExported += rowCount;
+            filesExported++;
+            if (statusReporter != null) {
+                statusReporter.report(CopyTask.PHASE_PARTITION_EXPORT, CopyTask.STATUS_FINISHED, partitionNames.getQuick(task.getIndex()), null, rowCount, 1);
+            }
+        }
+    }
+
+    private void exportCursor() throws SqlException {
+        final RecordMetadata metadata = factory.getMetadata();
+        final int timestampIndex = partitionBy != PartitionBy.NONE ? metadata.getTimestampIndex() : -1;
+        final PartitionBy.PartitionFloorMethod floorMethod = PartitionBy.getPartitionFloorMethod(partitionBy);
+        final PartitionBy.PartitionCeilMethod ceilMethod = PartitionBy.getPartitionCeilMethod(partitionBy);
+        final DateFormat dirFormat = PartitionBy.getPartitionDirFormatMethod(partitionBy);
+        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+            final Record record = cursor.getRecord();
+            boolean hasRecord = cursor.hasNext();
+            while (hasRecord && status == CopyTask.STATUS_STARTED) {
+                long partitionLo = 0;
+                long partitionHi = Long.MAX_VALUE;
+                if (timestampIndex > -1) {
+                    assert floorMethod != null && ceilMethod != null;
+                    partitionLo = floorMethod.floor(record.getTimestamp(timestampIndex));
+                    partitionHi = ceilMethod.ceil(partitionLo);
+                }
+                final int index = partitionNames.size();
+                partitionNames.add(formatPartitionName(dirFormat, partitionLo));
+
+                cursorExportTask.of(index, metadata, circuitBreaker, exportDir, delimiter, headerFlag, doubleScale, floatScale);
+                cursorExportTask.ofCursor(cursor, timestampIndex, partitionLo, partitionHi);
+                cursorExportTask.getFileName().put(partitionNames.getQuick(index));
+                localExportJob.export(cursorExportTask);
+                hasRecord = cursorExportTask.hasPendingRecord();
+                collectPartitionStats(cursorExportTask);
+                cursorExportTask.clear();
+            }
+        }
+    }
+
+    private void exportFrames() {
+        final RecordMetadata metadata = factory.getMetadata();
+        int queuedCount = 0;
+        int collectedCount = 0;
+        for (int i = 0, n = partitionNames.size(); i < n; i++) {
+            while (true) {
+                final long seq = pubSeq.next();
+                if (seq > -1) {
+                    final CopyExportTask task = queue.get(seq);
+                    task.of(i, metadata, circuitBreaker, exportDir, delimiter, headerFlag, doubleScale, floatScale);
+                    task.ofFrames(pageFrameCursor, pageAddressCache, frameSlices, partitionSlices.getQuick(i), partitionSlices.getQuick(i + 1));
+                    task.getFileName().put(partitionNames.getQuick(i));
+                    pubSeq.done(seq);
+                    queuedCount++;
+                    break;
+                } else {
+                    collectedCount += collect(queuedCount - collectedCount, collectPartitionStatsRef);
+                }
+            }
+        }
+
+        collectedCount += collect(queuedCount - collectedCount, collectPartitionStatsRef);
+        assert collectedCount == queuedCount;
+    }
+
+    private void findFrameSlices() {
+        final RecordMetadata metadata = factory.getMetadata();
+        final int timestampIndex = metadata.getTimestampIndex();
+        final PartitionBy.PartitionFloorMethod floorMethod = PartitionBy.getPartitionFloorMethod(partitionBy);
+        final PartitionBy.PartitionCeilMethod ceilMethod = PartitionBy.getPartitionCeilMethod(partitionBy);
+        final DateFormat dirFormat = PartitionBy.getPartitionDirFormatMethod(partitionBy);
+        pageAddressCache.of(metadata);
+
+        long partitionHi = Long.MIN_VALUE;
+        int frameIndex = 0;
+        PageFrame frame;
+        while ((frame = pageFrameCursor.next()) != null) {
+            pageAddressCache.add(frameIndex, frame);
+            final long rowCount = frame.getPartitionHi() - frame.getPartitionLo();
+            if (partitionBy == PartitionBy.NONE) {
+                if (partitionNames.size() == 0) {
+                    startPartition(dirFormat, 0);
+                }
+                frameSlices.add(frameIndex);
+                frameSlices.add(0L, rowCount);
+            } else {
+                assert floorMethod != null && ceilMethod != null;
+                // frames follow table partitions, which may be coarser than the export partitions
+                final long timestampAddress = frame.getPageAddress(timestampIndex);
+                for (long rowLo = 0; rowLo < rowCount; ) {
+                    final long timestamp = Unsafe.getUnsafe().getLong(timestampAddress + (rowLo << 3));
+                    if (timestamp >= partitionHi) {
+                        final long partitionLo = floorMethod.floor(timestamp);
+                        partitionHi = ceilMethod.ceil(partitionLo);
+                        startPartition(dirFormat, partitionLo);
+                    }
+                    final long rowHi = Vect.boundedBinarySearch64Bit(timestampAddress, partitionHi - 1, rowLo, rowCount - 1, BinarySearch.SCAN_DOWN) + 1;
+                    frameSlices.add(frameIndex);
+                    frameSlices.add(rowLo, rowHi);
+                    rowLo = rowHi;
+                }
+            }
+            frameIndex++;
+        }
+        partitionSlices.add(frameSlices.size());
+    }
+
+    private String formatPartitionName(DateFormat dirFormat, long timestamp) {
+        partitionNameSink.clear();
+        dirFormat.format(timestamp, DateFormatUtils.EN_LOCALE, null, partitionNameSink);
+        return partitionNameSink.toString();
+    }
+
+    private long getCurrentTimeMs() {
+        return configuration.getMillisecondClock().getTicks();
+    }
+
+    private void phaseEpilogue(byte phase, long startMs) {
+        throwErrorIfNotOk();
+        LOG.info()
+                .$("finished [exportId=").$hexPadded(copyId)
+                .$(", phase=").$(CopyTask.getPhaseName(phase))
+                .$(", dir=`").$(exportDir)
+                .$("`, duration=").$((getCurrentTimeMs() - startMs) / 1000).$('s')
+                .I$();
+        updatePhaseStatus(phase, CopyTask.STATUS_FINISHED, null);
+    }
+
+    private void phasePartitionExport() throws SqlException {
+        final long startMs = phasePrologue(CopyTask.PHASE_PARTITION_EXPORT);
+        if (pageFrameCursor != null) {
+            exportFrames();
+        } else {
+            exportCursor();
+        }
+        phaseEpilogue(CopyTask.PHASE_PARTITION_EXPORT, startMs);
+    }
+
+    private long phasePrologue(byte phase) {
+        this.phase = phase;
+        LOG.info()
+                .$("started [exportId=").$hexPadded(copyId)
+                .$(", phase=").$(CopyTask.getPhaseName(phase))
+                .$(", dir=`").$(exportDir).$('`')
+                .$(", partitions=").$(partitionNames.size())
+                .I$();
+        updatePhaseStatus(phase, CopyTask.STATUS_STARTED, null);
+        return getCurrentTimeMs();
+    }
+
+    private void phaseSetup() throws SqlException {
+        if (exportRoot == null) {
+            throw TextImportException.instance(CopyTask.PHASE_SETUP, "export root is not set ['cairo.sql.copy.export.root' is not set?]");
+        }
+        exportDir = tmpPath.of(exportRoot).concat(dirName).toString();
+        final long startMs = phasePrologue(CopyTask.PHASE_SETUP);
+
+        tmpPath.slash$();
+        if (!ff.exists(tmpPath) && ff.mkdirs(tmpPath, configuration.getMkDirMode()) != 0) {
+            throw TextImportException.instance(CopyTask.PHASE_SETUP, "could not create export directory [path='").put(tmpPath).put("', errno=").put(ff.errno()).put(']');
+        }
+
+        try (SqlCompiler compiler = sqlExecutionContext.getCairoEngine().getSqlCompiler()) {
+            factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory();
+        }
+        if (factory == null) {
+            throw TextImportException.instance(CopyTask.PHASE_SETUP, "select query expected");
+        }
+        if (partitionBy != PartitionBy.NONE && factory.getMetadata().getTimestampIndex() < 0) {
+            throw TextImportException.instance(CopyTask.PHASE_SETUP, "partitioned export requires the query to have a designated timestamp");
+        }
+        if (factory.supportsPageFrameCursor() && factory.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD) {
+            // page frames carry every row of the result in the timestamp order
+            pageFrameCursor = factory.getPageFrameCursor(sqlExecutionContext, DataFrameCursorFactory.ORDER_ASC);
+            findFrameSlices();
+        }
+        phaseEpilogue(CopyTask.PHASE_SETUP, startMs);
+    }
+
+    private void securityContextReset() {
+        if (sqlExecutionContext != null) {
+            sqlExecutionContext.with(DenyAllSecurityContext.INSTANCE, null, null, -1, null);
+        }
+    }
+
+    private void startPartition(DateFormat dirFormat, long timestamp) {
+        partitionSlices.add(frameSlices.size());
+        partitionNames.add(formatPartitionName(dirFormat, timestamp));
+    }
+
+    private void stealWork() {
+        if (localExportJob.run(0, Job.RUNNING_STATUS)) {
+            return;
+        }
+        Os.pause();
+    }
+
+    private void throwErrorIfNotOk() {
+        if (status == CopyTask.STATUS_FAILED) {
+            throw TextImportException.instance(phase, "export failed [phase=")
+                    .put(CopyTask.getPhaseName(phase))
+                    .put(", msg=`").put(errorMessage).put("`]");
+        } else if (status == CopyTask.STATUS_CANCELLED) {
+            TextImportException ex = TextImportException.instance(phase, "export cancelled [phase=")
+                    .put(CopyTask.getPhaseName(phase))
+                    .put(", msg=`").put(errorMessage).put("`]");
+            ex.setCancelled(true);
+            throw ex;
+        }
+    }
+
+    private void updateExportStatus(byte status) {
+        if (statusReporter != null) {
+            statusReporter.report(CopyTask.NO_PHASE, status, null, null, rowsExported, filesExported);
+        }
+    }
+
+    private void updatePhaseStatus(byte phase, byte status, @Nullable CharSequence msg) {
+        if (statusReporter != null) {
+            statusReporter.report(phase, status, null, msg, rowsExported, filesExported);
+        }
+    }
+
+    @FunctionalInterface
+    public interface PhaseStatusReporter {
+        void report(byte phase, byte status, @Nullable CharSequence partition, @Nullable CharSequence msg, long rowsExported, long filesExported);
+    }
+}
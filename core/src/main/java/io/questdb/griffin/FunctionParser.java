@@ -523,7 +523,8 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
         // Make sure to override timestamp required flag from base query.
         sqlExecutionContext.pushTimestampRequiredFlag(false);
         try {
-            return new CursorFunction(sqlCodeGenerator.generate(node.queryModel, sqlExecutionContext));
+            // tables of the sub-query are tracked by its readers
+            return new CursorFunction(sqlCodeGenerator.generate(node.queryModel, sqlExecutionContext), false);
         } finally {
             sqlExecutionContext.setParallelFilterEnabled(currentFilterEnabled);
             sqlExecutionContext.popTimestampRequiredFlag();
@@ -45,6 +45,8 @@ import io.questdb.griffin.engine.groupby.*;
 import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.vect.*;
 import io.questdb.griffin.engine.join.*;
+import io.questdb.griffin.engine.orderby.AsyncSortAtom;
+import io.questdb.griffin.engine.orderby.AsyncSortRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.LimitedSizeSortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
 import io.questdb.griffin.engine.orderby.SortedLightRecordCursorFactory;
@@ -52,8 +54,10 @@ import io.questdb.griffin.engine.orderby.SortedRecordCursorFactory;
 import io.questdb.griffin.engine.table.*;
 import io.questdb.griffin.engine.union.*;
 import io.questdb.griffin.engine.window.CachedWindowRecordCursorFactory;
+import io.questdb.griffin.engine.window.ParallelCachedWindowRecordCursorFactory;
 import io.questdb.griffin.engine.window.WindowFunction;
 import io.questdb.griffin.engine.window.WindowRecordCursorFactory;
+import io.questdb.griffin.engine.window.WindowShard;
 import io.questdb.griffin.model.*;
 import io.questdb.jit.CompiledFilter;
 import io.questdb.jit.CompiledFilterIRSerializer;
@@ -326,6 +330,77 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return true;
     }
 
+    private static void collectPruningPredicate(
+            ExpressionNode node,
+            RecordMetadata metadata,
+            IntList columnIndexes,
+            IntList ops,
+            LongList values
+    ) {
+        if (node.type != OPERATION || node.paramCount != 2) {
+            return;
+        }
+
+        final boolean flip;
+        final ExpressionNode column;
+        final ExpressionNode constant;
+        if (node.lhs.type == LITERAL && node.rhs.type == CONSTANT) {
+            column = node.lhs;
+            constant = node.rhs;
+            flip = false;
+        } else if (node.lhs.type == CONSTANT && node.rhs.type == LITERAL) {
+            column = node.rhs;
+            constant = node.lhs;
+            flip = true;
+        } else {
+            return;
+        }
+
+        final int op;
+        if (Chars.equals(node.token, '=')) {
+            op = PartitionPruningDataFrameCursorFactory.OP_EQ;
+        } else if (Chars.equals(node.token, '>')) {
+            op = flip ? PartitionPruningDataFrameCursorFactory.OP_LT : PartitionPruningDataFrameCursorFactory.OP_GT;
+        } else if (Chars.equals(node.token, ">=")) {
+            op = flip ? PartitionPruningDataFrameCursorFactory.OP_LE : PartitionPruningDataFrameCursorFactory.OP_GE;
+        } else if (Chars.equals(node.token, '<')) {
+            op = flip ? PartitionPruningDataFrameCursorFactory.OP_GT : PartitionPruningDataFrameCursorFactory.OP_LT;
+        } else if (Chars.equals(node.token, "<=")) {
+            op = flip ? PartitionPruningDataFrameCursorFactory.OP_GE : PartitionPruningDataFrameCursorFactory.OP_LE;
+        } else {
+            return;
+        }
+
+        final int columnIndex = metadata.getColumnIndexQuiet(column.token);
+        if (columnIndex < 0) {
+            return;
+        }
+        final int columnType = metadata.getColumnType(columnIndex);
+        if (!PartitionColumnStats.isSupported(columnType)) {
+            return;
+        }
+
+        final long value;
+        try {
+            if (ColumnType.tagOf(columnType) == ColumnType.DOUBLE) {
+                final double d = Numbers.parseDouble(constant.token);
+                if (Double.isNaN(d)) {
+                    return;
+                }
+                value = Double.doubleToRawLongBits(d);
+            } else {
+                value = Numbers.parseLong(constant.token);
+            }
+        } catch (NumericException e) {
+            // not a numeric constant, e.g. null or a string
+            return;
+        }
+
+        columnIndexes.add(columnIndex);
+        ops.add(op);
+        values.add(value);
+    }
+
     private static RecordCursorFactory createFullFatAsOfJoin(
             CairoConfiguration configuration,
             RecordMetadata metadata,
@@ -493,7 +568,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     // Checks if lo, hi is set and lo >= 0 while hi < 0 (meaning - return whole result set except some rows at start and some at the end)
     // because such case can't really be optimized by topN/bottomN
     private boolean canSortAndLimitBeOptimized(QueryModel model, SqlExecutionContext context, Function loFunc, Function hiFunc) {
-        if (model.getLimitLo() == null && model.getLimitHi() == null) {
+        // fill adds rows after the sort, the limit must count those
+        if ((model.getLimitLo() == null && model.getLimitHi() == null) || model.getFillStride() != null) {
             return false;
         }
 
@@ -652,6 +728,48 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         );
     }
 
+    private RecordCursorFactory createAsyncAsOfJoin(
+            RecordMetadata metadata,
+            RecordCursorFactory master,
+            RecordCursorFactory slave,
+            int columnSplit,
+            JoinContext joinContext,
+            SqlExecutionContext executionContext
+    ) {
+        final RecordMetadata masterMetadata = master.getMetadata();
+        final RecordMetadata slaveMetadata = slave.getMetadata();
+        if (isKeyedTemporalJoin(masterMetadata, slaveMetadata)) {
+            return new AsyncAsOfJoinRecordCursorFactory(
+                    configuration,
+                    executionContext.getMessageBus(),
+                    metadata,
+                    master,
+                    slave,
+                    keyTypes,
+                    RecordSinkFactory.getInstance(asm, masterMetadata, listColumnFilterB, true, writeStringAsVarcharB),
+                    RecordSinkFactory.getInstance(asm, slaveMetadata, listColumnFilterA, true, writeStringAsVarcharA),
+                    columnSplit,
+                    joinContext,
+                    reduceTaskFactory,
+                    executionContext.getSharedWorkerCount()
+            );
+        }
+        return new AsyncAsOfJoinRecordCursorFactory(
+                configuration,
+                executionContext.getMessageBus(),
+                metadata,
+                master,
+                slave,
+                null,
+                null,
+                null,
+                columnSplit,
+                null,
+                reduceTaskFactory,
+                executionContext.getSharedWorkerCount()
+        );
+    }
+
     @NotNull
     private RecordCursorFactory createFullFatJoin(
             RecordCursorFactory master,
@@ -789,7 +907,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             RecordCursorFactory slave,
             int joinType,
             Function filter,
-            JoinContext context
+            JoinContext context,
+            SqlExecutionContext executionContext
     ) {
         /*
          * JoinContext provides the following information:
@@ -826,6 +945,30 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         valueTypes.add(ColumnType.LONG); // record count for the key
 
         if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
+            if (
+                    joinType == JOIN_INNER
+                            && configuration.isSqlParallelHashJoinEnabled()
+                            && executionContext.getSharedWorkerCount() > 1
+                            && master.supportsPageFrameCursor()
+                            && slave.supportsPageFrameCursor()
+            ) {
+                return new AsyncHashJoinRecordCursorFactory(
+                        configuration,
+                        executionContext.getMessageBus(),
+                        metadata,
+                        master,
+                        slave,
+                        keyTypes,
+                        valueTypes,
+                        masterKeySink,
+                        slaveKeySink,
+                        masterMetadata.getColumnCount(),
+                        context,
+                        reduceTaskFactory,
+                        executionContext.getSharedWorkerCount()
+                );
+            }
+
             if (joinType == JOIN_INNER) {
                 return new HashJoinLightRecordCursorFactory(
                         configuration,
@@ -1650,6 +1793,53 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return castFunctions;
     }
 
+    private RecordCursorFactory generateFill(RecordCursorFactory factory, QueryModel model) throws SqlException {
+        final ExpressionNode fillStride = model.getFillStride();
+        if (fillStride == null) {
+            return factory;
+        }
+
+        try {
+            final RecordMetadata metadata = factory.getMetadata();
+            final int timestampIndex = metadata.getTimestampIndex();
+            if (timestampIndex == -1 || !factory.recordCursorSupportsRandomAccess()) {
+                throw SqlException.$(fillStride.position, "fill requires ordered by timestamp base query with random access");
+            }
+
+            final ObjList<QueryColumn> columns = model.getColumns();
+            final CharSequence fillKeyOrder = model.getFillKeyOrder();
+            recordFunctionPositions.clear();
+            listColumnFilterA.clear();
+            keyTypes.clear();
+            for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                final ExpressionNode ast = i < columns.size() ? columns.getQuick(i).getAst() : null;
+                recordFunctionPositions.add(ast != null ? ast.position : 0);
+                // columns of keyed fill, other than the timestamp, are either keys or aggregates
+                if (fillKeyOrder != null && ast != null && ast.type == ExpressionNode.LITERAL && i != timestampIndex) {
+                    listColumnFilterA.add(i + 1);
+                    keyTypes.add(metadata.getColumnType(i));
+                }
+            }
+
+            return new GroupByFillRecordCursorFactory(
+                    configuration,
+                    asm,
+                    factory,
+                    TimestampSamplerFactory.getInstance(fillStride.token, fillStride.position),
+                    fillStride.token,
+                    timestampIndex,
+                    listColumnFilterA,
+                    keyTypes,
+                    fillKeyOrder != null ? metadata.getColumnIndexQuiet(fillKeyOrder) : -1,
+                    model.getFillValues(),
+                    recordFunctionPositions
+            );
+        } catch (Throwable e) {
+            Misc.free(factory);
+            throw e;
+        }
+    }
+
     private RecordCursorFactory generateFilter(RecordCursorFactory factory, QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         return model.getWhereClause() == null ? factory : generateFilter0(factory, model, executionContext);
     }
@@ -1791,7 +1981,10 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             return tableFactory;
         } else {
             // when tableFactory is null we have to recompile it from scratch, including creating new factory
-            return TableUtils.createCursorFunction(functionParser, model, executionContext).getRecordCursorFactory();
+            final Function function = TableUtils.createCursorFunction(functionParser, model, executionContext);
+            return function.isVolatile()
+                    ? new VolatileRecordCursorFactory(function.getRecordCursorFactory())
+                    : function.getRecordCursorFactory();
         }
     }
 
@@ -1919,7 +2112,21 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                 validateOuterJoinExpressions(slaveModel, "ASOF");
                                 processJoinContext(index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
                                 if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
-                                    if (isKeyedTemporalJoin(masterMetadata, slaveMetadata)) {
+                                    if (
+                                            configuration.isSqlParallelAsOfJoinEnabled()
+                                                    && executionContext.getSharedWorkerCount() > 1
+                                                    && master.supportsPageFrameCursor()
+                                                    && slave.supportsPageFrameCursor()
+                                    ) {
+                                        master = createAsyncAsOfJoin(
+                                                createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
+                                                master,
+                                                slave,
+                                                masterMetadata.getColumnCount(),
+                                                slaveModel.getContext(),
+                                                executionContext
+                                        );
+                                    } else if (isKeyedTemporalJoin(masterMetadata, slaveMetadata)) {
                                         master = createAsOfJoin(
                                                 createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                                 master,
@@ -2104,7 +2311,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                         slave,
                                         joinType,
                                         filter,
-                                        slaveModel.getContext()
+                                        slaveModel.getContext(),
+                                        executionContext
                                 );
                                 masterAlias = null;
                                 break;
@@ -2672,6 +2880,28 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                 listColumnFilterA.copy(),
                                 baseCursorTimestampIndex
                         );
+                    } else if (
+                            configuration.isSqlParallelSortEnabled()
+                                    && executionContext.getSharedWorkerCount() > 1
+                                    && recordCursorFactory.supportsPageFrameCursor()
+                                    && AsyncSortAtom.isSupported(metadata, listColumnFilterA)
+                    ) {
+                        final int workerCount = executionContext.getSharedWorkerCount();
+                        // comparators are single-threaded, workers and the owner thread get their own
+                        final ObjList<RecordComparator> comparators = new ObjList<>(workerCount + 1);
+                        for (int i = 0; i <= workerCount; i++) {
+                            comparators.add(recordComparatorCompiler.compile(metadata, listColumnFilterA));
+                        }
+                        return new AsyncSortRecordCursorFactory(
+                                configuration,
+                                executionContext.getMessageBus(),
+                                orderedMetadata,
+                                recordCursorFactory,
+                                comparators,
+                                listColumnFilterA.copy(),
+                                reduceTaskFactory,
+                                workerCount
+                        );
                     } else {
                         return new SortedLightRecordCursorFactory(
                                 configuration,
@@ -2709,6 +2939,148 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         }
     }
 
+    private RecordCursorFactory generateParallelWindow(
+            QueryModel model,
+            RecordCursorFactory base,
+            RecordSink recordSink,
+            GenericRecordMetadata factoryMetadata,
+            GenericRecordMetadata chainMetadata,
+            ArrayColumnTypes chainTypes,
+            ObjList<RecordComparator> windowComparators,
+            ObjList<ObjList<WindowFunction>> functionGroups,
+            @Nullable ObjList<WindowFunction> naturalOrderFunctions,
+            IntList columnIndexes,
+            ObjList<IntList> keys,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final ObjList<QueryColumn> columns = model.getColumns();
+        final int workerCount = executionContext.getSharedWorkerCount();
+        final int shardCount = Math.min(Numbers.ceilPow2(2 * workerCount), ParallelCachedWindowRecordCursorFactory.MAX_SHARDS);
+        final ObjList<WindowShard> shards = new ObjList<>(shardCount);
+        ObjList<Function> partitionByFunctions = null;
+        ObjList<ObjList<WindowFunction>> orderedFunctions = null;
+        ObjList<WindowFunction> unorderedFunctions = null;
+        try {
+            // the first shard takes the functions we already have
+            shards.add(new WindowShard(configuration, chainTypes, recordSink, columnIndexes, windowComparators, functionGroups, naturalOrderFunctions));
+            for (int s = 1; s < shardCount; s++) {
+                orderedFunctions = new ObjList<>(keys.size());
+                for (int i = 0, n = keys.size(); i < n; i++) {
+                    orderedFunctions.add(new ObjList<>());
+                }
+                unorderedFunctions = null;
+                for (int i = 0, n = columns.size(); i < n; i++) {
+                    final QueryColumn qc = columns.getQuick(i);
+                    if (qc.isWindowColumn()) {
+                        final WindowColumn ac = (WindowColumn) qc;
+                        // the function has been parsed once, so it is known to be a window function
+                        final WindowFunction windowFunction = (WindowFunction) generateWindowFunction(model, base, ac, chainMetadata, executionContext);
+                        if (ac.getOrderBy().size() > 0 && !isWindowOrderDismissed(model, base, ac)) {
+                            final IntList order = toOrderIndices(chainMetadata, ac.getOrderBy(), ac.getOrderByDirection());
+                            orderedFunctions.getQuick(keys.indexOf(order)).add(windowFunction);
+                            windowFunction.initRecordComparator(recordComparatorCompiler, chainTypes, order);
+                        } else {
+                            if (unorderedFunctions == null) {
+                                unorderedFunctions = new ObjList<>();
+                            }
+                            unorderedFunctions.add(windowFunction);
+                        }
+                        windowFunction.setColumnIndex(i);
+                    }
+                }
+
+                // comparators keep the left record, so each shard needs own instances
+                final ObjList<RecordComparator> comparators = new ObjList<>(keys.size());
+                for (int i = 0, n = keys.size(); i < n; i++) {
+                    comparators.add(recordComparatorCompiler.compile(chainTypes, keys.getQuick(i)));
+                }
+                shards.add(new WindowShard(configuration, chainTypes, recordSink, columnIndexes, comparators, orderedFunctions, unorderedFunctions));
+                orderedFunctions = null;
+                unorderedFunctions = null;
+            }
+
+            // rows are distributed between shards by the hash code of the partition key
+            final RecordMetadata baseMetadata = base.getMetadata();
+            // all window columns share the same PARTITION BY, so any of them will do
+            ObjList<ExpressionNode> partitionBy = null;
+            for (int i = 0, n = columns.size(); i < n && partitionBy == null; i++) {
+                final QueryColumn qc = columns.getQuick(i);
+                if (qc.isWindowColumn()) {
+                    partitionBy = ((WindowColumn) qc).getPartitionBy();
+                }
+            }
+            assert partitionBy != null;
+            final int partitionByCount = partitionBy.size();
+            partitionByFunctions = new ObjList<>(partitionByCount);
+            keyTypes.clear();
+            for (int i = 0; i < partitionByCount; i++) {
+                final Function function = functionParser.parseFunction(partitionBy.getQuick(i), baseMetadata, executionContext);
+                partitionByFunctions.add(function);
+                keyTypes.add(function.getType());
+            }
+            entityColumnFilter.of(partitionByCount);
+            final RecordSink partitionBySink = RecordSinkFactory.getInstance(asm, keyTypes, entityColumnFilter, false);
+
+            return new ParallelCachedWindowRecordCursorFactory(
+                    configuration,
+                    executionContext.getMessageBus(),
+                    base,
+                    factoryMetadata,
+                    chainMetadata,
+                    columnIndexes,
+                    keys,
+                    shards,
+                    partitionByFunctions,
+                    keyTypes,
+                    partitionBySink
+            );
+        } catch (Throwable th) {
+            Misc.freeObjList(shards);
+            if (orderedFunctions != null) {
+                for (int i = 0, n = orderedFunctions.size(); i < n; i++) {
+                    Misc.freeObjList(orderedFunctions.getQuick(i));
+                }
+            }
+            Misc.freeObjList(unorderedFunctions);
+            Misc.freeObjList(partitionByFunctions);
+            Misc.free(base);
+            throw th;
+        }
+    }
+
+    private DataFrameCursorFactory generatePartitionPruning(
+            DataFrameCursorFactory dfcFactory,
+            @Nullable ExpressionNode filter,
+            RecordMetadata metadata
+    ) {
+        if (filter == null || !configuration.isSqlPartitionPruningEnabled()) {
+            return dfcFactory;
+        }
+
+        final IntList columnIndexes = new IntList();
+        final IntList ops = new IntList();
+        final LongList values = new LongList();
+        sqlNodeStack.clear();
+        ExpressionNode node = filter;
+        while (node != null || !sqlNodeStack.isEmpty()) {
+            if (node == null) {
+                node = sqlNodeStack.pop();
+            }
+            if (node.type == OPERATION && isAndKeyword(node.token)) {
+                sqlNodeStack.push(node.rhs);
+                node = node.lhs;
+                continue;
+            }
+            collectPruningPredicate(node, metadata, columnIndexes, ops, values);
+            node = null;
+        }
+
+        if (columnIndexes.size() == 0) {
+            return dfcFactory;
+        }
+        return new PartitionPruningDataFrameCursorFactory(dfcFactory, columnIndexes, ops, values);
+    }
+
     private RecordCursorFactory generateQuery(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
         RecordCursorFactory factory = generateQuery0(model, executionContext, processJoins);
         if (model.getUnionModel() != null) {
@@ -2719,21 +3091,24 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
     private RecordCursorFactory generateQuery0(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
         return generateLimit(
-                generateOrderBy(
-                        generateLatestBy(
-                                generateFilter(
-                                        generateSelect(
+                generateFill(
+                        generateOrderBy(
+                                generateLatestBy(
+                                        generateFilter(
+                                                generateSelect(
+                                                        model,
+                                                        executionContext,
+                                                        processJoins
+                                                ),
                                                 model,
-                                                executionContext,
-                                                processJoins
+                                                executionContext
                                         ),
-                                        model,
-                                        executionContext
+                                        model
                                 ),
-                                model
+                                model,
+                                executionContext
                         ),
-                        model,
-                        executionContext
+                        model
                 ),
                 model,
                 executionContext
@@ -4228,105 +4603,16 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     throw SqlException.$(ast.position, "too many arguments");
                 }
 
-                ObjList<Function> partitionBy = null;
-                int psz = ac.getPartitionBy().size();
-                if (psz > 0) {
-                    partitionBy = new ObjList<>(psz);
-                    for (int j = 0; j < psz; j++) {
-                        partitionBy.add(
-                                functionParser.parseFunction(ac.getPartitionBy().getQuick(j), chainMetadata, executionContext)
-                        );
-                    }
-                }
-
-                final VirtualRecord partitionByRecord;
-                final RecordSink partitionBySink;
-
-                if (partitionBy != null) {
-                    partitionByRecord = new VirtualRecord(partitionBy);
-                    keyTypes.clear();
-                    final int partitionByCount = partitionBy.size();
-
-                    for (int j = 0; j < partitionByCount; j++) {
-                        keyTypes.add(partitionBy.getQuick(j).getType());
-                    }
-                    entityColumnFilter.of(partitionByCount);
-                    // create sink
-                    partitionBySink = RecordSinkFactory.getInstance(
-                            asm,
-                            keyTypes,
-                            entityColumnFilter,
-                            false
-                    );
-                } else {
-                    partitionByRecord = null;
-                    partitionBySink = null;
-                }
-
-                final int osz = ac.getOrderBy().size();
-
-                // analyze order by clause on the current model and optimise out
-                // order by on window function if it matches the one on the model
-                final LowerCaseCharSequenceIntHashMap orderHash = model.getOrderHash();
-                boolean dismissOrder = false;
-                int timestampIdx = base.getMetadata().getTimestampIndex();
-                int orderByPos = osz > 0 ? ac.getOrderBy().getQuick(0).position : -1;
-
-                if (base.followedOrderByAdvice() && osz > 0 && orderHash.size() > 0) {
-                    dismissOrder = true;
-                    for (int j = 0; j < osz; j++) {
-                        ExpressionNode node = ac.getOrderBy().getQuick(j);
-                        int direction = ac.getOrderByDirection().getQuick(j);
-                        if (!Chars.equalsIgnoreCase(node.token, orderHash.keys().get(j)) ||
-                                orderHash.get(node.token) != direction) {
-                            dismissOrder = false;
-                            break;
-                        }
-                    }
-                }
-                if (osz == 1 && timestampIdx != -1 && orderHash.size() < 2) {
-                    ExpressionNode orderByNode = ac.getOrderBy().getQuick(0);
-                    int orderByDirection = ac.getOrderByDirection().getQuick(0);
-
-                    if (baseMetadata.getColumnIndexQuiet(orderByNode.token) == timestampIdx &&
-                            ((orderByDirection == ORDER_ASC && base.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD) ||
-                                    (orderByDirection == ORDER_DESC && base.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_BACKWARD))) {
-                        dismissOrder = true;
-                    }
-                }
-
-                executionContext.configureWindowContext(
-                        partitionByRecord,
-                        partitionBySink,
-                        keyTypes,
-                        osz > 0,
-                        dismissOrder ? base.getScanDirection() : RecordCursorFactory.SCAN_DIRECTION_OTHER,
-                        orderByPos,
-                        base.recordCursorSupportsRandomAccess(),
-                        ac.getFramingMode(),
-                        ac.getRowsLo(),
-                        ac.getRowsLoKindPos(),
-                        ac.getRowsHi(),
-                        ac.getRowsHiKindPos(),
-                        ac.getExclusionKind(),
-                        ac.getExclusionKindPos(),
-                        chainMetadata.getTimestampIndex()
-                );
-                final Function f;
-                try {
-                    // function needs to resolve args against chain metadata
-                    f = functionParser.parseFunction(ast, chainMetadata, executionContext);
-                    if (!(f instanceof WindowFunction)) {
-                        Misc.free(base);
-                        throw SqlException.$(ast.position, "non-window function called in window context");
-                    }
-                } finally {
-                    executionContext.clearWindowContext();
+                final Function f = generateWindowFunction(model, base, ac, chainMetadata, executionContext);
+                if (!(f instanceof WindowFunction)) {
+                    Misc.free(base);
+                    Misc.free(f);
+                    throw SqlException.$(ast.position, "non-window function called in window context");
                 }
 
                 WindowFunction windowFunction = (WindowFunction) f;
 
-                if (osz > 0 && !dismissOrder) {
+                if (ac.getOrderBy().size() > 0 && !isWindowOrderDismissed(model, base, ac)) {
                     IntList order = toOrderIndices(chainMetadata, ac.getOrderBy(), ac.getOrderByDirection());
                     // init comparator if we need
                     windowFunction.initRecordComparator(recordComparatorCompiler, chainTypes, order);
@@ -4383,6 +4669,23 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 listColumnFilterB
         );
 
+        if (isParallelWindowSupported(columns, chainMetadata, functionGroups, naturalOrderFunctions, executionContext)) {
+            return generateParallelWindow(
+                    model,
+                    base,
+                    recordSink,
+                    factoryMetadata,
+                    chainMetadata,
+                    chainTypes,
+                    windowComparators,
+                    functionGroups,
+                    naturalOrderFunctions,
+                    columnIndexes,
+                    keys,
+                    executionContext
+            );
+        }
+
         return new CachedWindowRecordCursorFactory(
                 configuration,
                 base,
@@ -5091,7 +5394,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             return new DataFrameRecordCursorFactory(
                     configuration,
                     myMeta,
-                    dfcFactory,
+                    generatePartitionPruning(dfcFactory, intrinsicModel.filter, metadata),
                     rowFactory,
                     false,
                     null,
@@ -5266,6 +5569,81 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return unionFactory;
     }
 
+    /**
+     * Parses window function of the given column against the chain metadata. The returned function
+     * is not necessarily a window function, it's up to the caller to check that.
+     */
+    private Function generateWindowFunction(
+            QueryModel model,
+            RecordCursorFactory base,
+            WindowColumn ac,
+            GenericRecordMetadata chainMetadata,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        ObjList<Function> partitionBy = null;
+        int psz = ac.getPartitionBy().size();
+        if (psz > 0) {
+            partitionBy = new ObjList<>(psz);
+            for (int j = 0; j < psz; j++) {
+                partitionBy.add(
+                        functionParser.parseFunction(ac.getPartitionBy().getQuick(j), chainMetadata, executionContext)
+                );
+            }
+        }
+
+        final VirtualRecord partitionByRecord;
+        final RecordSink partitionBySink;
+
+        if (partitionBy != null) {
+            partitionByRecord = new VirtualRecord(partitionBy);
+            keyTypes.clear();
+            final int partitionByCount = partitionBy.size();
+
+            for (int j = 0; j < partitionByCount; j++) {
+                keyTypes.add(partitionBy.getQuick(j).getType());
+            }
+            entityColumnFilter.of(partitionByCount);
+            // create sink
+            partitionBySink = RecordSinkFactory.getInstance(
+                    asm,
+                    keyTypes,
+                    entityColumnFilter,
+                    false
+            );
+        } else {
+            partitionByRecord = null;
+            partitionBySink = null;
+        }
+
+        final int osz = ac.getOrderBy().size();
+        final int orderByPos = osz > 0 ? ac.getOrderBy().getQuick(0).position : -1;
+        final boolean dismissOrder = isWindowOrderDismissed(model, base, ac);
+
+        executionContext.configureWindowContext(
+                partitionByRecord,
+                partitionBySink,
+                keyTypes,
+                osz > 0,
+                dismissOrder ? base.getScanDirection() : RecordCursorFactory.SCAN_DIRECTION_OTHER,
+                orderByPos,
+                base.recordCursorSupportsRandomAccess(),
+                ac.getFramingMode(),
+                ac.getRowsLo(),
+                ac.getRowsLoKindPos(),
+                ac.getRowsHi(),
+                ac.getRowsHiKindPos(),
+                ac.getExclusionKind(),
+                ac.getExclusionKindPos(),
+                chainMetadata.getTimestampIndex()
+        );
+        try {
+            // function needs to resolve args against chain metadata
+            return functionParser.parseFunction(ac.getAst(), chainMetadata, executionContext);
+        } finally {
+            executionContext.clearWindowContext();
+        }
+    }
+
     @Nullable
     private Function getHiFunction(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         return toLimitFunction(executionContext, model.getLimitHi(), null);
@@ -5352,6 +5730,113 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 getOrderByDirectionOrDefault(model, 0) == ORDER_DIRECTION_DESCENDING;
     }
 
+    /**
+     * Window functions can be computed in parallel when all of them are partitioned by the same keys.
+     * In this case base rows can be sharded by the partition key hash code, so that each window
+     * partition belongs to a single shard.
+     */
+    private boolean isParallelWindowSupported(
+            ObjList<QueryColumn> columns,
+            GenericRecordMetadata chainMetadata,
+            ObjList<ObjList<WindowFunction>> functionGroups,
+            @Nullable ObjList<WindowFunction> naturalOrderFunctions,
+            SqlExecutionContext executionContext
+    ) {
+        if (!configuration.isSqlParallelWindowEnabled() || executionContext.getSharedWorkerCount() < 2) {
+            return false;
+        }
+
+        ObjList<ExpressionNode> partitionBy = null;
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final QueryColumn qc = columns.getQuick(i);
+            if (qc.isWindowColumn()) {
+                final ObjList<ExpressionNode> columnPartitionBy = ((WindowColumn) qc).getPartitionBy();
+                if (columnPartitionBy.size() == 0) {
+                    return false;
+                }
+                if (partitionBy == null) {
+                    partitionBy = columnPartitionBy;
+                } else {
+                    if (partitionBy.size() != columnPartitionBy.size()) {
+                        return false;
+                    }
+                    for (int j = 0, k = partitionBy.size(); j < k; j++) {
+                        if (!ExpressionNode.compareNodesExact(partitionBy.getQuick(j), columnPartitionBy.getQuick(j))) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int i = 0, n = functionGroups.size(); i < n; i++) {
+            final ObjList<WindowFunction> functions = functionGroups.getQuick(i);
+            for (int j = 0, k = functions.size(); j < k; j++) {
+                if (!functions.getQuick(j).supportsParallelism()) {
+                    return false;
+                }
+            }
+        }
+        if (naturalOrderFunctions != null) {
+            for (int j = 0, k = naturalOrderFunctions.size(); j < k; j++) {
+                if (!naturalOrderFunctions.getQuick(j).supportsParallelism()) {
+                    return false;
+                }
+            }
+        }
+
+        // each shard resolves symbols with its own symbol tables, this requires static symbol tables
+        for (int i = 0, n = chainMetadata.getColumnCount(); i < n; i++) {
+            final TableColumnMetadata m = chainMetadata.getColumnMetadata(i);
+            if (m != null && ColumnType.isSymbol(m.getType()) && !m.isSymbolTableStatic()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true when the window function's ORDER BY matches the order of the base factory,
+     * so that the function can rely on the base order instead of sorting the rows.
+     */
+    private boolean isWindowOrderDismissed(QueryModel model, RecordCursorFactory base, WindowColumn ac) {
+        final int osz = ac.getOrderBy().size();
+        if (osz == 0) {
+            return false;
+        }
+
+        // analyze order by clause on the current model and optimise out
+        // order by on window function if it matches the one on the model
+        final LowerCaseCharSequenceIntHashMap orderHash = model.getOrderHash();
+        final RecordMetadata baseMetadata = base.getMetadata();
+        final int timestampIdx = baseMetadata.getTimestampIndex();
+
+        if (base.followedOrderByAdvice() && orderHash.size() > 0) {
+            boolean dismissOrder = true;
+            for (int j = 0; j < osz; j++) {
+                ExpressionNode node = ac.getOrderBy().getQuick(j);
+                int direction = ac.getOrderByDirection().getQuick(j);
+                if (!Chars.equalsIgnoreCase(node.token, orderHash.keys().get(j)) ||
+                        orderHash.get(node.token) != direction) {
+                    dismissOrder = false;
+                    break;
+                }
+            }
+            if (dismissOrder) {
+                return true;
+            }
+        }
+        if (osz == 1 && timestampIdx != -1 && orderHash.size() < 2) {
+            ExpressionNode orderByNode = ac.getOrderBy().getQuick(0);
+            int orderByDirection = ac.getOrderByDirection().getQuick(0);
+
+            return baseMetadata.getColumnIndexQuiet(orderByNode.token) == timestampIdx &&
+                    ((orderByDirection == ORDER_ASC && base.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD) ||
+                            (orderByDirection == ORDER_DESC && base.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_BACKWARD));
+        }
+        return false;
+    }
+
     private void lookupColumnIndexes(
             ListColumnFilter filter,
             ObjList<ExpressionNode> columnNames,
@@ -26,12 +26,15 @@ package io.questdb.griffin;
 
 import io.questdb.*;
 import io.questdb.cairo.*;
+import io.questdb.cairo.mv.MatViewDefinition;
+import io.questdb.cairo.mv.MatViewGraph;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMARW;
 import io.questdb.cairo.wal.WalUtils;
 import io.questdb.cairo.wal.WalWriterMetadata;
+import io.questdb.cutlass.text.CopyExportRequestJob;
 import io.questdb.griffin.engine.RegisteredRecordCursorFactory;
 import io.questdb.griffin.engine.ops.*;
 import io.questdb.griffin.model.*;
@@ -1343,6 +1346,54 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
         );
     }
 
+    private RecordCursorFactory compileCopyExport(SqlExecutionContext executionContext, CopyModel model) throws SqlException {
+        assert model.isExport();
+
+        executionContext.getSecurityContext().authorizeCopyExport();
+
+        final ExpressionNode dirNameNode = model.getFileName();
+        final int dirNamePosition = dirNameNode.position;
+        final String dirName = Chars.toString(GenericLexer.assertNoDots(GenericLexer.unquote(dirNameNode.token), dirNamePosition));
+        if (dirName.isEmpty()) {
+            throw SqlException.$(dirNamePosition, "directory name expected");
+        }
+
+        final String query;
+        final ExpressionNode target = model.getTarget();
+        if (target != null) {
+            query = "select * from \"" + GenericLexer.unquote(target.token) + '"';
+        } else {
+            query = Chars.toString(model.getQuery());
+        }
+        final int partitionBy = model.getPartitionBy();
+        final byte delimiter = model.getDelimiter() < 0 ? (byte) ',' : model.getDelimiter();
+        final boolean headerFlag = model.isHeader();
+
+        // compile the query upfront to report syntax and permission errors to the caller
+        // rather than into the status table, the model is not valid past this point
+        final int timestampIndex;
+        try (RecordCursorFactory factory = query().$(query).compile(executionContext).getRecordCursorFactory()) {
+            if (factory == null) {
+                throw SqlException.$(dirNamePosition, "select query expected");
+            }
+            timestampIndex = factory.getMetadata().getTimestampIndex();
+        }
+
+        if (timestampIndex < 0 && partitionBy != -1 && partitionBy != PartitionBy.NONE) {
+            throw SqlException.$(dirNamePosition, "partitioned export requires the query to have a designated timestamp");
+        }
+
+        return new CopyExportFactory(
+                messageBus,
+                engine.getCopyExportContext(),
+                query,
+                dirName,
+                partitionBy,
+                delimiter,
+                headerFlag
+        );
+    }
+
     private RecordCursorFactory compileCopyCancel(SqlExecutionContext executionContext, CopyModel model) throws SqlException {
         assert model.isCancel();
 
@@ -1354,14 +1405,17 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
         } catch (NumericException e) {
             throw SqlException.$(0, "copy cancel ID format is invalid: '").put(cancelCopyIDStr).put('\'');
         }
+        // the id may belong to either an import or an export, both have the status in the same column
+        final boolean export = engine.getCopyExportContext().getActiveCopyID() == cancelCopyID;
         return new CopyCancelFactory(
-                engine.getCopyContext(),
+                export ? engine.getCopyExportContext() : engine.getCopyContext(),
                 cancelCopyID,
                 cancelCopyIDStr,
                 query()
                         .$("select * from '")
                         .$(engine.getConfiguration().getSystemTableNamePrefix())
-                        .$("text_import_log' where id = '")
+                        .$(export ? CopyExportRequestJob.STATUS_TABLE_NAME : "text_import_log")
+                        .$("' where id = '")
                         .$(cancelCopyIDStr)
                         .$("' limit -1")
                         .compile(executionContext).getRecordCursorFactory()
@@ -1547,7 +1601,9 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
     }
 
     private void copy(SqlExecutionContext executionContext, CopyModel copyModel) throws SqlException {
-        if (!copyModel.isCancel() && Chars.equalsLowerCaseAscii(copyModel.getFileName().token, "stdin")) {
+        if (copyModel.isExport()) {
+            compiledQuery.ofPseudoSelect(compileCopyExport(executionContext, copyModel));
+        } else if (!copyModel.isCancel() && Chars.equalsLowerCaseAscii(copyModel.getFileName().token, "stdin")) {
             // no-op implementation
             authorizeInsertForCopy(executionContext.getSecurityContext(), copyModel);
             compiledQuery.ofCopyRemote();
@@ -1753,6 +1809,7 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
                         DefaultLifecycleManager.INSTANCE,
                         configuration.getRoot(),
                         engine.getDdlListener(tableToken),
+                        engine.getSharedSymbolCacheRegistry(),
                         getEngine().getSnapshotAgent(),
                         engine.getMetrics()
                 );
@@ -1851,6 +1908,49 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
         return rowCount;
     }
 
+    private TableToken createMatView(
+            CreateTableModel model,
+            SqlExecutionContext executionContext,
+            int position
+    ) throws SqlException {
+        final MatViewDefinition viewDefinition = model.getMatViewDefinition();
+        final TableToken baseTableToken = executionContext.getTableTokenIfExists(viewDefinition.getBaseTableName());
+        if (baseTableToken == null) {
+            throw SqlException.$(position, "base table does not exist [table=").put(viewDefinition.getBaseTableName()).put(']');
+        }
+        if (!baseTableToken.isWal()) {
+            throw SqlException.$(position, "base table must be a WAL table [table=").put(viewDefinition.getBaseTableName()).put(']');
+        }
+
+        // register the view before the initial query runs, so that base table commits
+        // applied in the meantime are picked up by the refresh
+        final MatViewGraph matViewGraph = engine.getMatViewGraph();
+        matViewGraph.addView(viewDefinition);
+        try {
+            final TableToken viewToken = createTableFromCursorExecutor(model, executionContext, position, null);
+            try {
+                path.of(configuration.getRoot()).concat(viewToken).concat(MatViewDefinition.MAT_VIEW_FILE_NAME).$();
+                mem.smallFile(ff, path, MemoryTag.MMAP_DEFAULT);
+                viewDefinition.write(mem);
+                mem.sync(false);
+                mem.close(true, Vm.TRUNCATE_TO_POINTER);
+            } catch (CairoException e) {
+                mem.close(false);
+                LOG.error().$("could not write materialized view definition [view=").$(viewToken)
+                        .$(", error=").$(e.getFlyweightMessage())
+                        .$(", errno=").$(e.getErrno())
+                        .I$();
+                engine.drop(path, viewToken);
+                throw e;
+            }
+            viewDefinition.setViewToken(viewToken);
+            return viewToken;
+        } catch (Throwable th) {
+            matViewGraph.removeView(viewDefinition);
+            throw th;
+        }
+    }
+
     private void createTable(final ExecutionModel model, SqlExecutionContext executionContext) throws SqlException {
         final CreateTableModel createTableModel = (CreateTableModel) model;
         final ExpressionNode name = createTableModel.getName();
@@ -1915,6 +2015,8 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
                     }
                     throw SqlException.$(name.position, "Could not create table, ").put(e.getFlyweightMessage());
                 }
+            } else if (createTableModel.getMatViewDefinition() != null) {
+                tableToken = createMatView(createTableModel, executionContext, name.position);
             } else {
                 tableToken = createTableFromCursorExecutor(createTableModel, executionContext, name.position, volumeAlias);
             }
@@ -1940,6 +2042,9 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
         ) {
             typeCast.clear();
             final RecordMetadata metadata = factory.getMetadata();
+            if (model.getMatViewDefinition() != null) {
+                validateMatViewMetadata(model, metadata, position);
+            }
             validateTableModelAndCreateTypeCast(model, metadata, typeCast);
             boolean keepLock = !model.isWalEnabled();
 
@@ -2760,6 +2865,20 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
         model.setQueryModel(queryModel);
     }
 
+    private void validateMatViewMetadata(CreateTableModel model, RecordMetadata metadata, int position) throws SqlException {
+        final int timestampIndex = model.getTimestampIndex();
+        if (timestampIndex == -1) {
+            throw SqlException.$(position, "materialized view query must select the sampled timestamp");
+        }
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (model.isDedupKey(i) && ColumnType.isVarSize(columnType)) {
+                throw SqlException.$(position, "materialized view key column must be fixed size [column=").put(metadata.getColumnName(i))
+                        .put(", type=").put(ColumnType.nameOf(columnType)).put(']');
+            }
+        }
+    }
+
     private void validateTableModelAndCreateTypeCast(
             @Transient CreateTableModel model,
             @Transient RecordMetadata metadata,
@@ -137,6 +137,15 @@ public interface SqlExecutionContext extends Closeable {
 
     SqlExecutionCircuitBreaker getSimpleCircuitBreaker();
 
+    /**
+     * Returns the set that records tables read by the current query, or null when reads
+     * are not recorded.
+     */
+    @Nullable
+    default TableReadSet getTableReadSet() {
+        return null;
+    }
+
     default int getTableStatus(Path path, CharSequence tableName) {
         return getCairoEngine().getTableStatus(path, tableName);
     }
@@ -67,6 +67,7 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
     private Rnd random;
     private int requestFd = -1;
     private SecurityContext securityContext;
+    private TableReadSet tableReadSet;
     private boolean useSimpleCircuitBreaker;
 
     public SqlExecutionContextImpl(CairoEngine cairoEngine, int workerCount, int sharedWorkerCount) {
@@ -174,6 +175,9 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
 
     @Override
     public long getMicrosecondTimestamp() {
+        if (tableReadSet != null) {
+            tableReadSet.onVolatileValue();
+        }
         return clock.getTicks();
     }
 
@@ -189,9 +193,30 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
 
     @Override
     public Rnd getRandom() {
+        if (tableReadSet != null) {
+            tableReadSet.onVolatileValue();
+        }
         return random != null ? random : SharedRandom.getRandom(cairoConfiguration);
     }
 
+    @Override
+    public TableReader getReader(TableToken tableName, long version) {
+        final TableReader reader = cairoEngine.getReader(tableName, version);
+        if (tableReadSet != null) {
+            tableReadSet.onReader(reader);
+        }
+        return reader;
+    }
+
+    @Override
+    public TableReader getReader(TableToken tableName) {
+        final TableReader reader = cairoEngine.getReader(tableName);
+        if (tableReadSet != null) {
+            tableReadSet.onReader(reader);
+        }
+        return reader;
+    }
+
     @Override
     public int getRequestFd() {
         return requestFd;
@@ -212,6 +237,11 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
         return simpleCircuitBreaker;
     }
 
+    @Override
+    public @Nullable TableReadSet getTableReadSet() {
+        return tableReadSet;
+    }
+
     @Override
     public WindowContext getWindowContext() {
         return windowContext;
@@ -224,6 +254,9 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
 
     @Override
     public void initNow() {
+        if (tableReadSet != null) {
+            tableReadSet.onVolatileValue();
+        }
         now = clock.getTicks();
     }
 
@@ -294,6 +327,15 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
         this.random = rnd;
     }
 
+    /**
+     * Sets the read set that records tables read by the query, see {@link ResultCache}.
+     *
+     * @param tableReadSet read set or null to stop recording
+     */
+    public void setTableReadSet(@Nullable TableReadSet tableReadSet) {
+        this.tableReadSet = tableReadSet;
+    }
+
     @Override
     public void setUseSimpleCircuitBreaker(boolean value) {
         this.useSimpleCircuitBreaker = value;
@@ -27,6 +27,7 @@ package io.questdb.griffin;
 import io.questdb.cairo.*;
 import io.questdb.cairo.pool.ex.EntryLockedException;
 import io.questdb.cairo.sql.*;
+import io.questdb.griffin.engine.VolatileRecordCursorFactory;
 import io.questdb.griffin.engine.functions.catalogue.*;
 import io.questdb.griffin.engine.functions.constants.CharConstant;
 import io.questdb.griffin.engine.functions.table.AllTablesFunctionFactory;
@@ -110,6 +111,7 @@ public class SqlOptimiser implements Mutable {
     private final ObjList<RecordCursorFactory> tableFactoriesInFlight = new ObjList<>();
     private final FlyweightCharSequence tableLookupSequence = new FlyweightCharSequence();
     private final IntHashSet tablesSoFar = new IntHashSet();
+    private final ObjList<QueryColumn> tempColumns = new ObjList<>();
     private final IntList tempCrossIndexes = new IntList();
     private final IntList tempCrosses = new IntList();
     private final IntList tempList = new IntList();
@@ -219,6 +221,10 @@ public class SqlOptimiser implements Mutable {
         return -1;
     }
 
+    private static boolean isFillNone(ObjList<ExpressionNode> fill) {
+        return fill.size() == 0 || (fill.size() == 1 && SqlKeywords.isNoneKeyword(fill.getQuick(0).token));
+    }
+
     private static boolean isOrderedByDesignatedTimestamp(QueryModel model) {
         return model.getTimestamp() != null && model.getOrderBy().size() == 1
                 && Chars.equals(model.getOrderBy().getQuick(0).token, model.getTimestamp().token);
@@ -1230,6 +1236,17 @@ public class SqlOptimiser implements Mutable {
         return SqlUtil.createColumnAlias(characterStore, node.token, Chars.indexOf(node.token, '.'), model.getAliasToColumnMap());
     }
 
+    // alias of a keyed fill column that clashes with neither the selected columns nor the table columns
+    private CharSequence createFillAlias(CharSequence base, QueryModel model, QueryModel nested) {
+        CharSequence alias = base;
+        for (int i = 1; model.getAliasToColumnMap().contains(alias) || nested.getAliasToColumnMap().contains(alias); i++) {
+            final CharacterStoreEntry entry = characterStore.newEntry();
+            entry.put(base).put(i);
+            alias = entry.toImmutable();
+        }
+        return alias;
+    }
+
     // use only if input is a column literal!
     private QueryColumn createGroupByColumn(
             CharSequence columnName,
@@ -2322,6 +2339,65 @@ public class SqlOptimiser implements Mutable {
         return true;
     }
 
+    /**
+     * "sample by" with null, prev, constant and linear fills can be rewritten to "group by",
+     * gaps are then filled on top of the group by output ordered by timestamp. Keys must be
+     * plain columns and the order is left to the rewrite, so that keys come out in the order
+     * of their first appearance. Linear fill replaces all values and interpolates only numeric
+     * columns, other aggregates and mixed fill lists are left to "sample by" factories.
+     */
+    private boolean isFillRewritable(QueryModel model, QueryModel nested, ObjList<ExpressionNode> fill) {
+        if (nested.getGroupBy().size() > 0) {
+            return false;
+        }
+
+        for (int i = 0, n = fill.size(); i < n; i++) {
+            final CharSequence token = fill.getQuick(i).token;
+            if (SqlKeywords.isNoneKeyword(token) || (SqlKeywords.isLinearKeyword(token) && n > 1)) {
+                return false;
+            }
+        }
+        final boolean linear = SqlKeywords.isLinearKeyword(fill.getQuick(0).token);
+
+        final CharSequence timestamp = nested.getTimestamp().token;
+        int valueCount = 0;
+        for (int i = 0, n = model.getBottomUpColumns().size(); i < n; i++) {
+            final ExpressionNode ast = model.getBottomUpColumns().getQuick(i).getAst();
+            if (ast.type == LITERAL) {
+                // the timestamp, possibly prefixed with table name or alias, anything else is a key
+                final int dot = Chars.indexOf(ast.token, '.');
+                if (
+                        !Chars.equalsIgnoreCase(timestamp, ast.token, dot + 1, ast.token.length())
+                                && nested.getOrderBy().size() > 0
+                ) {
+                    return false;
+                }
+            } else if (ast.type == FUNCTION && functionParser.getFunctionFactoryCache().isGroupBy(ast.token)) {
+                // aggregates of the timestamp shadow the bucket key in the rewritten query
+                if (searchExpressionNodeForAlias(ast, timestamp, sqlNodeStack)) {
+                    return false;
+                }
+                if (linear && !isNumericColumnArgs(ast, nested)) {
+                    return false;
+                }
+                valueCount++;
+            } else {
+                return false;
+            }
+        }
+
+        if (valueCount == 0) {
+            return false;
+        }
+
+        // a single null, prev or linear applies to all values, otherwise there must be a value per column
+        if (fill.size() == 1) {
+            final CharSequence token = fill.getQuick(0).token;
+            return linear || SqlKeywords.isNullKeyword(token) || SqlKeywords.isPrevKeyword(token) || valueCount == 1;
+        }
+        return fill.size() >= valueCount;
+    }
+
     private boolean isIntegerConstant(ExpressionNode n) {
         if (n.type != CONSTANT) {
             return false;
@@ -2335,6 +2411,47 @@ public class SqlOptimiser implements Mutable {
         }
     }
 
+    private boolean isNumericColumn(ExpressionNode column, QueryModel model) {
+        if (column == null || column.type != LITERAL) {
+            return false;
+        }
+
+        final QueryColumn qc = getQueryColumn(model, column.token, Chars.indexOf(column.token, '.'));
+        if (qc == null) {
+            return false;
+        }
+        switch (ColumnType.tagOf(qc.getColumnType())) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // arguments of the aggregate are numeric columns, so that its value can be interpolated
+    private boolean isNumericColumnArgs(ExpressionNode function, QueryModel model) {
+        switch (function.paramCount) {
+            case 0:
+                return true;
+            case 1:
+                return isNumericColumn(function.rhs, model);
+            case 2:
+                return isNumericColumn(function.lhs, model) && isNumericColumn(function.rhs, model);
+            default:
+                for (int i = 0, n = function.args.size(); i < n; i++) {
+                    if (!isNumericColumn(function.args.getQuick(i), model)) {
+                        return false;
+                    }
+                }
+                return true;
+        }
+    }
+
     private boolean isSimpleIntegerColumn(ExpressionNode column, QueryModel model) {
         return checkSimpleIntegerColumn(column, model) != null;
     }
@@ -2645,6 +2762,7 @@ public class SqlOptimiser implements Mutable {
                             || nested.getLimitHi() != null
                             || nested.getUnionModel() != null
                             || (nested.getSampleBy() != null && !canPushToSampleBy(nested, literalCollectorANames))
+                            || nested.getFillStride() != null
                     ) {
                         // there is no nested model for this table, keep where clause element with this model
                         addWhereNode(parent, node);
@@ -2980,6 +3098,10 @@ public class SqlOptimiser implements Mutable {
         if (model.getTimestamp() != null) {
             topLevelOrderByMnemonic = OrderByMnemonic.ORDER_BY_REQUIRED;
         }
+        //fill of rewritten "sample by" walks group by output in timestamp order
+        if (model.getFillStride() != null) {
+            topLevelOrderByMnemonic = OrderByMnemonic.ORDER_BY_REQUIRED;
+        }
 
         // keep order by on model with window functions to speed up query (especially when it matches window order by)
         if (model.getSelectModelType() == QueryModel.SELECT_MODEL_WINDOW && model.getOrderBy().size() > 0) {
@@ -3121,10 +3243,14 @@ public class SqlOptimiser implements Mutable {
                     tableFactory = sqlParserCallback.generateShowSqlFactory(model);
                     break;
             }
-            model.setTableFactory(tableFactory);
+            // SHOW statements report engine and session state
+            model.setTableFactory(new VolatileRecordCursorFactory(tableFactory));
         } else {
             assert model.getTableNameFunction() == null;
-            tableFactory = TableUtils.createCursorFunction(functionParser, model, executionContext).getRecordCursorFactory();
+            final Function function = TableUtils.createCursorFunction(functionParser, model, executionContext);
+            tableFactory = function.isVolatile()
+                    ? new VolatileRecordCursorFactory(function.getRecordCursorFactory())
+                    : function.getRecordCursorFactory();
             model.setTableFactory(tableFactory);
             tableFactoriesInFlight.add(tableFactory);
         }
@@ -4399,7 +4525,7 @@ public class SqlOptimiser implements Mutable {
                     sampleBy != null
                             && timestamp != null
                             && (sampleByOffset != null && SqlKeywords.isZeroOffset(sampleByOffset.token) && (sampleByTimezoneName == null || SqlKeywords.isUTC(sampleByTimezoneName.token)))
-                            && (sampleByFill.size() == 0 || (sampleByFill.size() == 1 && SqlKeywords.isNoneKeyword(sampleByFill.getQuick(0).token)))
+                            && (isFillNone(sampleByFill) || isFillRewritable(model, nested, sampleByFill))
                             && sampleByUnit == null
             ) {
                 // Validate that the model does not have wildcard column names.
@@ -4458,7 +4584,7 @@ public class SqlOptimiser implements Mutable {
                     // still nothing? Let's try table prefix very last time.
                     if (timestampAlias == null && nested.getTableName() != null) {
                         CharacterStoreEntry e = characterStore.newEntry();
-                        e.put(nested.getTimestamp()).putAscii('.').put(timestamp.token);
+                        e.put(nested.getTableName()).putAscii('.').put(timestamp.token);
                         CharSequence tableNamePrefixedTimestampColumn = e.toImmutable();
                         timestampAlias = model.getColumnNameToAliasMap().get(tableNamePrefixedTimestampColumn);
 
@@ -4554,10 +4680,33 @@ public class SqlOptimiser implements Mutable {
                 top.lhs = lhs;
                 top.rhs = rhs;
 
+                // keyed fill is ordered by the first timestamp of each bucket row as well,
+                // the bucket must not shadow the timestamp column that it is aggregated from
+                boolean keyedFill = false;
+                if (!isFillNone(sampleByFill)) {
+                    for (int i = 0, n = model.getBottomUpColumns().size(); i < n; i++) {
+                        if (i != timestampPos && model.getBottomUpColumns().getQuick(i).getAst().type == LITERAL) {
+                            keyedFill = true;
+                            break;
+                        }
+                    }
+                }
+                final CharSequence bucketAlias = keyedFill ? createFillAlias(timestampAlias, model, nested) : timestampAlias;
+
                 model.getBottomUpColumns().setQuick(
                         timestampPos,
-                        queryColumnPool.next().of(timestampAlias, top)
+                        queryColumnPool.next().of(bucketAlias, top)
                 );
+                if (keyedFill) {
+                    tempColumns.clear();
+                    tempColumns.addAll(model.getBottomUpColumns());
+                    model.clearColumnMapStructs();
+                    model.getColumnNameToAliasMap().clear();
+                    for (int i = 0, n = tempColumns.size(); i < n; i++) {
+                        model.addBottomUpColumnIfNotExists(tempColumns.getQuick(i));
+                    }
+                    model.updateColumnAliasIndexes();
+                }
 
                 if (timestampOnly || nested.getGroupBy().size() > 0) {
                     nested.addGroupBy(top);
@@ -4575,26 +4724,74 @@ public class SqlOptimiser implements Mutable {
                     nested.setTimestamp(nextLiteral(timestamp.token));
                 }
 
+                if (!isFillNone(sampleByFill)) {
+                    // gaps are filled on top of the ordered group by output
+                    nested.setFillStride(sampleBy);
+                    nested.getFillValues().addAll(sampleByFill);
+                    nested.getSampleByFill().clear();
+
+                    if (keyedFill) {
+                        // keys are filled in the order of their first appearance, so the bucket
+                        // rows are also ordered by their first timestamp, which the wrapper drops;
+                        // group by tells aggregates from key functions by position, hence the
+                        // position of the stride rather than that of the timestamp
+                        final ExpressionNode first = expressionNodePool.next().of(FUNCTION, "min", 0, sampleBy.position);
+                        first.paramCount = 1;
+                        first.rhs = nextLiteral(timestampColumn, timestamp.position);
+                        final CharSequence firstAlias = createFillAlias(first.token, model, nested);
+                        model.addBottomUpColumnIfNotExists(queryColumnPool.next().of(firstAlias, first));
+
+                        characterStoreEntry = characterStore.newEntry();
+                        characterStoreEntry.put(model.getBottomUpColumns().size());
+                        ExpressionNode orderBy = expressionNodePool.next();
+                        orderBy.token = characterStoreEntry.toImmutable();
+                        orderBy.type = CONSTANT;
+                        nested.getOrderBy().add(orderBy);
+                        nested.getOrderByDirection().add(0);
+                        nested.setFillKeyOrder(firstAlias);
+                    }
+                }
+
                 // clear sample by
                 nested.setSampleBy(null);
                 nested.setSampleByOffset(null);
 
-                switch (wrapAction) {
-                    case SAMPLE_BY_REWRITE_WRAP_REMOVE_TIMESTAMP:
-                        // we added artificial timestamp, which has to be removed
-                        // in the outer query. Single query consists of two
-                        // nested QueryModel instances. The outer of the two is
-                        // SELECT model and the inner of the two is the model providing
-                        // all available columns.
-
-                        // copy columns from the "sample by" SELECT model
-                        model = wrapWithSelectModel(model, model.getBottomUpColumns().size() - 1);
-                        break;
-                    case SAMPLE_BY_REWRITE_WRAP_ADD_TIMESTAMP_COPIES:
-                        model = wrapWithSelectModel2(model, tempList, insetColumnAliases, timestampAlias);
-                        break;
-                    default:
-                        break;
+                if (keyedFill) {
+                    // the wrapper removes the first timestamp, as well as the artificial timestamp,
+                    // and restores the timestamp alias of the bucket
+                    model = wrapWithSelectModel2(
+                            model,
+                            model.getBottomUpColumns().size() - (wrapAction == SAMPLE_BY_REWRITE_WRAP_REMOVE_TIMESTAMP ? 2 : 1),
+                            tempList,
+                            insetColumnAliases,
+                            timestampAlias,
+                            bucketAlias
+                    );
+                } else {
+                    switch (wrapAction) {
+                        case SAMPLE_BY_REWRITE_WRAP_REMOVE_TIMESTAMP:
+                            // we added artificial timestamp, which has to be removed
+                            // in the outer query. Single query consists of two
+                            // nested QueryModel instances. The outer of the two is
+                            // SELECT model and the inner of the two is the model providing
+                            // all available columns.
+
+                            // copy columns from the "sample by" SELECT model
+                            model = wrapWithSelectModel(model, model.getBottomUpColumns().size() - 1);
+                            break;
+                        case SAMPLE_BY_REWRITE_WRAP_ADD_TIMESTAMP_COPIES:
+                            model = wrapWithSelectModel2(
+                                    model,
+                                    model.getBottomUpColumns().size(),
+                                    tempList,
+                                    insetColumnAliases,
+                                    timestampAlias,
+                                    timestampAlias
+                            );
+                            break;
+                        default:
+                            break;
+                    }
                 }
             }
 
@@ -4704,6 +4901,10 @@ public class SqlOptimiser implements Mutable {
             groupByModel.moveSampleByFrom(baseModel);
         }
 
+        if (baseModel.getFillStride() != null) {
+            groupByModel.moveFillFrom(baseModel);
+        }
+
         if (baseModel.getGroupBy().size() > 0) {
             groupByModel.moveGroupByFrom(baseModel);
             useGroupByModel = true; // group by should be implemented even if there are no aggregate functions
@@ -4732,7 +4933,7 @@ public class SqlOptimiser implements Mutable {
                     } else if (functionParser.getFunctionFactoryCache().isGroupBy(qc.getAst().token)) {
                         useGroupByModel = true;
 
-                        if (groupByModel.getSampleByFill().size() > 0) { // fill breaks if column is de-duplicated
+                        if (groupByModel.getSampleByFill().size() > 0 || groupByModel.getFillStride() != null) { // fill breaks if column is de-duplicated
                             continue;
                         }
 
@@ -5601,23 +5802,34 @@ public class SqlOptimiser implements Mutable {
     }
 
     @NotNull
-    private QueryModel wrapWithSelectModel2(QueryModel model, IntList insetColumnIndexes, ObjList<CharSequence> insertColumnAliases, CharSequence timestampAlias) {
+    private QueryModel wrapWithSelectModel2(
+            QueryModel model,
+            int columnCount,
+            IntList insetColumnIndexes,
+            ObjList<CharSequence> insertColumnAliases,
+            CharSequence timestampAlias,
+            CharSequence bucketAlias
+    ) {
         QueryModel _model = createdWrapperModel(model);
 
         // These are merged columns, the assumption is that the insetColumnIndexes are ordered.
         // This loop will fail miserably in indexes are unordered.
-        int src1ColumnCount = model.getBottomUpColumns().size();
+        int src1ColumnCount = columnCount;
         int src2ColumnCount = insetColumnIndexes.size();
         for (int i = 0, k = 0, m = 0; i < src1ColumnCount || k < src2ColumnCount; m++) {
 
             if (k < src2ColumnCount && insetColumnIndexes.getQuick(k) == m) {
                 // insert column at this position, this column must reference our timestamp, that
                 // comes out of the group-by result set, but with user-provided aliases.
-                _model.addBottomUpColumnIfNotExists(nextColumn(insertColumnAliases.getQuick(k), timestampAlias));
+                _model.addBottomUpColumnIfNotExists(nextColumn(insertColumnAliases.getQuick(k), bucketAlias));
                 k++;
             } else {
                 QueryColumn qcFrom = model.getBottomUpColumns().getQuick(i);
-                _model.addBottomUpColumnIfNotExists(nextColumn(qcFrom.getAlias()));
+                if (Chars.equals(qcFrom.getAlias(), bucketAlias)) {
+                    _model.addBottomUpColumnIfNotExists(nextColumn(timestampAlias, bucketAlias));
+                } else {
+                    _model.addBottomUpColumnIfNotExists(nextColumn(qcFrom.getAlias()));
+                }
                 i++;
             }
         }
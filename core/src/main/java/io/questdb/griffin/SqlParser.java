@@ -27,7 +27,10 @@ package io.questdb.griffin;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.PartitionBy;
+import io.questdb.cairo.TableToken;
 import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.mv.MatViewDefinition;
+import io.questdb.cairo.sql.TableMetadata;
 import io.questdb.cutlass.text.Atomicity;
 import io.questdb.griffin.model.*;
 import io.questdb.std.*;
@@ -60,7 +63,9 @@ public class SqlParser {
     private final ObjectPool<ExpressionNode> expressionNodePool;
     private final ExpressionParser expressionParser;
     private final ExpressionTreeBuilder expressionTreeBuilder;
+    private final PostOrderTreeTraversalAlgo.Visitor findAggregate0Ref = this::findAggregate0;
     private final ObjectPool<InsertModel> insertModelPool;
+    private final IntList matViewKeyColumns = new IntList();
     private final SqlOptimiser optimiser;
     private final ObjectPool<QueryColumn> queryColumnPool;
     private final ObjectPool<QueryModel> queryModelPool;
@@ -74,7 +79,9 @@ public class SqlParser {
     private final PostOrderTreeTraversalAlgo traversalAlgo;
     private final ObjectPool<WindowColumn> windowColumnPool;
     private final ObjectPool<WithClauseModel> withClauseModelPool;
+    private boolean aggregateFound;
     private int digit;
+    private FunctionFactoryCache functionFactoryCache;
     private boolean overClauseMode = false;
     private boolean subQueryMode = false;
 
@@ -348,6 +355,12 @@ public class SqlParser {
         throw SqlException.$((lexer.lastTokenPosition()), "'zone' expected");
     }
 
+    private void findAggregate0(ExpressionNode node) {
+        if (node.type == ExpressionNode.FUNCTION && functionFactoryCache.isGroupBy(node.token)) {
+            aggregateFound = true;
+        }
+    }
+
     private int getCreateTableColumnIndex(CreateTableModel model, CharSequence columnName, int position) throws SqlException {
         int index = model.getColumnIndex(columnName);
         if (index == -1) {
@@ -356,6 +369,13 @@ public class SqlParser {
         return index;
     }
 
+    private boolean hasAggregates(ExpressionNode node, FunctionFactoryCache functionFactoryCache) throws SqlException {
+        this.functionFactoryCache = functionFactoryCache;
+        aggregateFound = false;
+        traversalAlgo.traverse(node, findAggregate0Ref);
+        return aggregateFound;
+    }
+
     private boolean isCurrentRow(GenericLexer lexer, CharSequence tok) throws SqlException {
         if (SqlKeywords.isCurrentKeyword(tok)) {
             tok = tok(lexer, "'row'");
@@ -425,11 +445,24 @@ public class SqlParser {
     }
 
     private ExecutionModel parseCopy(GenericLexer lexer, SqlParserCallback sqlParserCallback) throws SqlException {
-        if (Chars.isBlank(configuration.getSqlCopyInputRoot())) {
+        if (Chars.isBlank(configuration.getSqlCopyInputRoot()) && Chars.isBlank(configuration.getSqlCopyExportRoot())) {
             throw SqlException.$(lexer.lastTokenPosition(), "COPY is disabled ['cairo.sql.copy.root' is not set?]");
         }
+        CharSequence tok = tok(lexer, "table name or query");
+        if (Chars.equals(tok, '(')) {
+            // COPY (query) TO 'dir'
+            final CharSequence query = parseCopyQuery(lexer);
+            expectTok(lexer, "to");
+            return parseCopyTo(lexer, null, query, sqlParserCallback);
+        }
+        lexer.unparseLast();
+
         ExpressionNode target = expectExpr(lexer, sqlParserCallback);
-        CharSequence tok = tok(lexer, "'from' or 'to' or 'cancel'");
+        tok = tok(lexer, "'from' or 'to' or 'cancel'");
+
+        if (isToKeyword(tok)) {
+            return parseCopyTo(lexer, target, target.token, sqlParserCallback);
+        }
 
         if (isCancelKeyword(tok)) {
             CopyModel model = copyModelPool.next();
@@ -439,6 +472,9 @@ public class SqlParser {
         }
 
         if (isFromKeyword(tok)) {
+            if (Chars.isBlank(configuration.getSqlCopyInputRoot())) {
+                throw SqlException.$(lexer.lastTokenPosition(), "COPY is disabled ['cairo.sql.copy.root' is not set?]");
+            }
             final ExpressionNode fileName = expectExpr(lexer, sqlParserCallback);
             if (fileName.token.length() < 3 && Chars.startsWith(fileName.token, '\'')) {
                 throw SqlException.$(fileName.position, "file name expected");
@@ -514,6 +550,238 @@ public class SqlParser {
         throw SqlException.$(lexer.lastTokenPosition(), "'from' expected");
     }
 
+    // returns text of the query enclosed in parentheses, the opening parenthesis is already consumed
+    private CharSequence parseCopyQuery(GenericLexer lexer) throws SqlException {
+        final int lo = lexer.getPosition();
+        int depth = 1;
+        CharSequence tok;
+        while ((tok = optTok(lexer)) != null) {
+            if (Chars.equals(tok, '(')) {
+                depth++;
+            } else if (Chars.equals(tok, ')') && --depth == 0) {
+                final CharSequence query = lexer.immutableBetween(lo, lexer.lastTokenPosition());
+                if (Chars.isBlank(query)) {
+                    throw SqlException.$(lexer.lastTokenPosition(), "query expected");
+                }
+                return query;
+            }
+        }
+        throw SqlException.$(lexer.getPosition(), "')' expected");
+    }
+
+    private ExecutionModel parseCopyTo(
+            GenericLexer lexer,
+            @Nullable ExpressionNode target,
+            CharSequence query,
+            SqlParserCallback sqlParserCallback
+    ) throws SqlException {
+        if (Chars.isBlank(configuration.getSqlCopyExportRoot())) {
+            throw SqlException.$(lexer.lastTokenPosition(), "COPY TO is disabled ['cairo.sql.copy.export.root' is not set?]");
+        }
+        final ExpressionNode dirName = expectExpr(lexer, sqlParserCallback);
+        if (dirName.token.length() < 3 && Chars.startsWith(dirName.token, '\'')) {
+            throw SqlException.$(dirName.position, "directory name expected");
+        }
+
+        CopyModel model = copyModelPool.next();
+        model.setTarget(target);
+        model.setQuery(query);
+        model.setFileName(dirName);
+
+        CharSequence tok = optTok(lexer);
+        if (tok != null && isWithKeyword(tok)) {
+            tok = tok(lexer, "copy option");
+            while (tok != null && !isSemicolon(tok)) {
+                if (isHeaderKeyword(tok)) {
+                    model.setHeader(isTrueKeyword(tok(lexer, "'true' or 'false'")));
+                    tok = optTok(lexer);
+                } else if (isPartitionKeyword(tok)) {
+                    expectTok(lexer, "by");
+                    tok = tok(lexer, "none year month week day hour");
+                    int partitionBy = PartitionBy.fromString(tok);
+                    if (partitionBy == -1) {
+                        throw SqlException.$(lexer.lastTokenPosition(), "'NONE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected");
+                    }
+                    model.setPartitionBy(partitionBy);
+                    tok = optTok(lexer);
+                } else if (isFormatKeyword(tok)) {
+                    tok = tok(lexer, "'csv' or 'parquet'");
+                    if (isParquetKeyword(tok)) {
+                        throw SqlException.$(lexer.lastTokenPosition(), "parquet export is not supported, use 'csv'");
+                    }
+                    if (!isCsvKeyword(tok)) {
+                        throw SqlException.$(lexer.lastTokenPosition(), "'csv' expected");
+                    }
+                    tok = optTok(lexer);
+                } else if (isDelimiterKeyword(tok)) {
+                    tok = tok(lexer, "delimiter character expected");
+                    CharSequence delimiter = GenericLexer.immutableOf(GenericLexer.unquote(tok));
+                    if (delimiter == null || delimiter.length() != 1) {
+                        throw SqlException.$(lexer.lastTokenPosition(), "delimiter is empty or contains more than 1 character");
+                    }
+                    char delimiterChar = delimiter.charAt(0);
+                    if (delimiterChar > 127) {
+                        throw SqlException.$(lexer.lastTokenPosition(), "delimiter is not an ascii character");
+                    }
+                    model.setDelimiter((byte) delimiterChar);
+                    tok = optTok(lexer);
+                } else {
+                    throw SqlException.$(lexer.lastTokenPosition(), "unexpected option");
+                }
+            }
+        } else if (tok != null && !SqlKeywords.isSemicolon(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'with' expected");
+        }
+        return model;
+    }
+
+    private ExecutionModel parseCreateMatView(
+            GenericLexer lexer,
+            CreateTableModel model,
+            SqlExecutionContext executionContext,
+            SqlParserCallback sqlParserCallback
+    ) throws SqlException {
+        expectTok(lexer, "view");
+        if (!configuration.isWalSupported()) {
+            throw SqlException.$(lexer.lastTokenPosition(), "materialized views require WAL support");
+        }
+        model.setBatchSize(-1);
+        model.setBatchO3MaxLag(-1);
+
+        final CharSequence viewName;
+        CharSequence tok = tok(lexer, "view name or 'if'");
+        if (SqlKeywords.isIfKeyword(tok)) {
+            if (SqlKeywords.isNotKeyword(tok(lexer, "'not'")) && SqlKeywords.isExistsKeyword(tok(lexer, "'exists'"))) {
+                model.setIgnoreIfExists(true);
+                viewName = tok(lexer, "view name");
+            } else {
+                throw SqlException.$(lexer.lastTokenPosition(), "'if not exists' expected");
+            }
+        } else {
+            viewName = tok;
+        }
+        assertTableNameIsQuotedOrNotAKeyword(viewName, lexer.lastTokenPosition());
+        model.setName(nextLiteral(GenericLexer.assertNoDotsAndSlashes(GenericLexer.unquote(viewName), lexer.lastTokenPosition()), lexer.lastTokenPosition()));
+
+        expectTok(lexer, "as");
+        expectTok(lexer, '(');
+        final int queryLo = lexer.getPosition();
+        final QueryModel queryModel = parseDml(lexer, null, queryLo, true, sqlParserCallback);
+        expectTok(lexer, ')');
+        final int queryHi = lexer.lastTokenPosition();
+
+        // the view definition is taken from the query as written, before optimiser rewrites it;
+        // select clause is on the outer model, the nested one holds the rest of the query
+        final QueryModel fromModel = queryModel.getNestedModel();
+        final ExpressionNode tableNameExpr = fromModel != null ? fromModel.getTableNameExpr() : null;
+        if (tableNameExpr == null || tableNameExpr.type != ExpressionNode.LITERAL || fromModel.getNestedModel() != null
+                || fromModel.getJoinModels().size() > 1 || queryModel.getUnionModel() != null) {
+            throw SqlException.$(queryLo, "materialized view query must select from a single table");
+        }
+        final ExpressionNode sampleBy = fromModel.getSampleBy();
+        if (sampleBy == null) {
+            throw SqlException.$(queryLo, "materialized view query must use SAMPLE BY");
+        }
+        if (fromModel.getSampleByOffset() == null) {
+            throw SqlException.$(sampleBy.position, "materialized view query must be aligned to calendar");
+        }
+        if (fromModel.getSampleByTimezoneName() != null || !Chars.equals(fromModel.getSampleByOffset().token, ZERO_OFFSET.token)) {
+            throw SqlException.$(sampleBy.position, "materialized view query does not support time zone or offset");
+        }
+        final ObjList<ExpressionNode> fill = fromModel.getSampleByFill();
+        if (fill.size() > 0 && !(fill.size() == 1 && isNoneKeyword(fill.getQuick(0).token))) {
+            throw SqlException.$(fill.getQuick(0).position, "materialized view query does not support FILL");
+        }
+        if (queryModel.getLimitLo() != null) {
+            throw SqlException.$(queryModel.getLimitLo().position, "materialized view query does not support LIMIT");
+        }
+
+        // sampled timestamp becomes designated timestamp of the view,
+        // missing base table is reported by the optimiser
+        CharSequence baseTimestamp = null;
+        final TableToken baseTableToken = executionContext.getTableTokenIfExists(tableNameExpr.token);
+        if (baseTableToken != null) {
+            try (TableMetadata metadata = executionContext.getMetadataForRead(baseTableToken)) {
+                if (metadata.getTimestampIndex() != -1) {
+                    baseTimestamp = Chars.toString(metadata.getColumnName(metadata.getTimestampIndex()));
+                }
+            }
+        }
+
+        int timestampColumnIndex = -1;
+        matViewKeyColumns.clear();
+        final ObjList<QueryColumn> columns = queryModel.getBottomUpColumns();
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final QueryColumn column = columns.getQuick(i);
+            final ExpressionNode ast = column.getAst();
+            if (ast.type == ExpressionNode.LITERAL) {
+                if (Chars.endsWith(ast.token, '*')) {
+                    throw SqlException.$(ast.position, "materialized view query must list its columns");
+                }
+                // group by keys, including the timestamp, identify the rows of the view
+                matViewKeyColumns.add(i);
+                final int dot = Chars.indexOf(ast.token, '.');
+                if (baseTimestamp != null && Chars.equalsIgnoreCase(baseTimestamp, ast.token, dot + 1, ast.token.length())) {
+                    timestampColumnIndex = i;
+                }
+            } else if (column.isWindowColumn() || !hasAggregates(ast, executionContext.getCairoEngine().getFunctionFactoryCache())) {
+                throw SqlException.$(ast.position, "materialized view column must be either a column reference or an aggregate");
+            }
+        }
+
+        final String query = Chars.toString(lexer.getContent(), queryLo, queryHi);
+        final int tableLo = tableNameExpr.position;
+        int tableHi = tableLo + tableNameExpr.token.length();
+        final char c = lexer.getContent().charAt(tableLo);
+        if (c == '"' || c == '\'') {
+            // quoted table name
+            tableHi += 2;
+        }
+        final CharSequence interval = fromModel.getSampleByUnit() != null
+                ? Chars.toString(sampleBy.token) + fromModel.getSampleByUnit().token
+                : sampleBy.token;
+        final MatViewDefinition viewDefinition = new MatViewDefinition(
+                Chars.toString(tableNameExpr.token),
+                fromModel.getAlias() != null,
+                Chars.toString(interval),
+                query,
+                tableLo - queryLo,
+                tableHi - queryLo
+        );
+
+        final QueryModel optimisedModel = optimiser.optimise(queryModel, executionContext, sqlParserCallback);
+        final ObjList<QueryColumn> optimisedColumns = optimisedModel.getBottomUpColumns();
+        for (int i = 0, n = optimisedColumns.size(); i < n; i++) {
+            model.addColumn(optimisedColumns.getQuick(i).getName(), -1, configuration.getDefaultSymbolCapacity());
+        }
+        for (int i = 0, n = matViewKeyColumns.size(); i < n; i++) {
+            model.setDedupKeyFlag(matViewKeyColumns.getQuick(i));
+        }
+        if (timestampColumnIndex != -1) {
+            model.setTimestamp(nextLiteral(optimisedColumns.getQuick(timestampColumnIndex).getName(), queryLo));
+        }
+        model.setQueryModel(optimisedModel);
+        model.setMatViewDefinition(viewDefinition);
+
+        tok = optTok(lexer);
+        final ExpressionNode partitionBy = parseCreateTablePartition(lexer, tok);
+        if (partitionBy != null) {
+            if (!PartitionBy.isPartitioned(PartitionBy.fromString(partitionBy.token))) {
+                throw SqlException.$(partitionBy.position, "'HOUR', 'DAY', 'MONTH' or 'YEAR' expected");
+            }
+            model.setPartitionBy(partitionBy);
+            tok = optTok(lexer);
+        } else {
+            model.setPartitionBy(SqlUtil.nextLiteral(expressionNodePool, "DAY", lexer.lastTokenPosition()));
+        }
+        model.setWalEnabled(true);
+        model.setMaxUncommittedRows(configuration.getMaxUncommittedRows());
+        model.setO3MaxLag(configuration.getO3MaxLag());
+
+        boolean expectedTok = tok == null || Chars.equals(tok, ';');
+        return sqlParserCallback.createTableSuffix(lexer, executionContext.getSecurityContext(), model, expectedTok ? null : tok);
+    }
+
     private ExecutionModel parseCreateTable(
             GenericLexer lexer,
             SqlExecutionContext executionContext,
@@ -528,6 +796,10 @@ public class SqlParser {
         boolean batchSpecified = false;
         boolean isCreateAsSelect = false;
 
+        if (SqlKeywords.isMaterializedKeyword(tok)) {
+            return parseCreateMatView(lexer, model, executionContext, sqlParserCallback);
+        }
+
         // if it's a CREATE ATOMIC, we don't accept BATCH
         if (SqlKeywords.isAtomicKeyword(tok)) {
             atomicSpecified = true;
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.TableReadSet;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+
+/**
+ * Marks the result of the query as volatile every time the cursor is opened, see
+ * {@link TableReadSet#onVolatileValue()}. Wraps factories of table functions and SHOW
+ * statements, such as <code>tables()</code> or <code>pg_class</code>, which read engine state
+ * directly rather than through the readers of the execution context, so that
+ * {@link io.questdb.cairo.ResultCache} can't tell when their output changes.
+ */
+public class VolatileRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+
+    public VolatileRecordCursorFactory(RecordCursorFactory base) {
+        super(base.getMetadata());
+        this.base = base;
+    }
+
+    @Override
+    public String getBaseColumnName(int idx) {
+        return base.getBaseColumnName(idx);
+    }
+
+    @Override
+    public String getBaseColumnNameNoRemap(int idx) {
+        return base.getBaseColumnNameNoRemap(idx);
+    }
+
+    @Override
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final TableReadSet readSet = executionContext.getTableReadSet();
+        if (readSet != null) {
+            readSet.onVolatileValue();
+        }
+        return base.getCursor(executionContext);
+    }
+
+    @Override
+    public int getScanDirection() {
+        return base.getScanDirection();
+    }
+
+    @Override
+    public TableToken getTableToken() {
+        return base.getTableToken();
+    }
+
+    @Override
+    public boolean implementsLimit() {
+        return base.implementsLimit();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return base.recordCursorSupportsRandomAccess();
+    }
+
+    @Override
+    public boolean supportsUpdateRowId(TableToken tableName) {
+        return base.supportsUpdateRowId(tableName);
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        base.toPlan(sink);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    @Override
+    public boolean usesIndex() {
+        return base.usesIndex();
+    }
+
+    @Override
+    protected void _close() {
+        base.close();
+    }
+}
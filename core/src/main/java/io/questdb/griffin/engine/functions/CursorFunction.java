@@ -36,11 +36,27 @@ import io.questdb.std.str.Utf16Sink;
 import io.questdb.std.str.Utf8Sequence;
 import io.questdb.std.str.Utf8Sink;
 
+/**
+ * Function that returns a cursor, e.g. a table function. Unless told otherwise, the cursor is
+ * assumed to read engine state, such as the table list, which {@link io.questdb.cairo.TableReadSet}
+ * does not track, so the function is volatile.
+ */
 public class CursorFunction implements ScalarFunction {
     private final RecordCursorFactory factory;
+    private final boolean isVolatile;
 
     public CursorFunction(RecordCursorFactory factory) {
+        this(factory, true);
+    }
+
+    /**
+     * @param factory    factory of the cursor
+     * @param isVolatile false when the cursor reads tables through the execution context only,
+     *                   or does not read any engine state at all
+     */
+    public CursorFunction(RecordCursorFactory factory, boolean isVolatile) {
         this.factory = factory;
+        this.isVolatile = isVolatile;
     }
 
     @Override
@@ -213,6 +229,11 @@ public class CursorFunction implements ScalarFunction {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public boolean isVolatile() {
+        return isVolatile;
+    }
+
     @Override
     public void toPlan(PlanSink sink) {
         sink.val("cursor ").child(factory);
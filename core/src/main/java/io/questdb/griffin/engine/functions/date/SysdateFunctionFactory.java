@@ -66,6 +66,11 @@ public class SysdateFunctionFactory implements FunctionFactory {
             return true;
         }
 
+        @Override
+        public boolean isVolatile() {
+            return true;
+        }
+
         @Override
         public void toPlan(PlanSink sink) {
             sink.val(SIGNATURE);
@@ -27,8 +27,10 @@ package io.questdb.griffin.engine.functions.date;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SymbolTableSource;
 import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.functions.TimestampFunction;
 import io.questdb.std.IntList;
@@ -48,7 +50,7 @@ public class SystimestampFunctionFactory implements FunctionFactory {
     }
 
     private static class Func extends TimestampFunction implements Function {
-        private final SqlExecutionContext context;
+        private SqlExecutionContext context;
 
         public Func(SqlExecutionContext context) {
             this.context = context;
@@ -59,11 +61,23 @@ public class SystimestampFunctionFactory implements FunctionFactory {
             return context.getMicrosecondTimestamp();
         }
 
+        @Override
+        public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+            super.init(symbolTableSource, executionContext);
+            // the function may have been compiled by another connection, see QueryCache
+            context = executionContext;
+        }
+
         @Override
         public boolean isReadThreadSafe() {
             return true;
         }
 
+        @Override
+        public boolean isVolatile() {
+            return true;
+        }
+
         @Override
         public void toPlan(PlanSink sink) {
             sink.val(SIGNATURE);
@@ -55,7 +55,8 @@ public class LongSequenceFunctionFactory implements FunctionFactory {
             final int argCount = args.size();
             if (argCount == 1 && ColumnType.isAssignableFrom((countFunc = args.getQuick(0)).getType(), ColumnType.LONG)) {
                 return new CursorFunction(
-                        new LongSequenceCursorFactory(METADATA, countFunc.getLong(null))
+                        new LongSequenceCursorFactory(METADATA, countFunc.getLong(null)),
+                        false
                 );
             }
 
@@ -71,7 +72,8 @@ public class LongSequenceFunctionFactory implements FunctionFactory {
                                 countFunc.getLong(null),
                                 seedLoFunc.getLong(null),
                                 seedHiFunc.getLong(null)
-                        )
+                        ),
+                        false
                 );
             }
         }
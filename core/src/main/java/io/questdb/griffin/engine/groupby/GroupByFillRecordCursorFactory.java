@@ -0,0 +1,982 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.FunctionParser;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.constants.Constants;
+import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.Utf8Sequence;
+import org.jetbrains.annotations.NotNull;
+
+import static io.questdb.griffin.SqlKeywords.isLinearKeyword;
+import static io.questdb.griffin.SqlKeywords.isNullKeyword;
+import static io.questdb.griffin.SqlKeywords.isPrevKeyword;
+
+/**
+ * Fills gaps between buckets of a "sample by" that was rewritten to a parallel "group by".
+ * The base factory must return rows ordered by timestamp, with one row per bucket and key.
+ * Fill rows are produced for every missing bucket between the first and the last row
+ * of the base cursor, values are either nulls, constants, values of the previous row
+ * or values interpolated between the neighbouring rows.
+ * <p>
+ * Keyed fill produces every key in every bucket, keys come out in the order of their
+ * first appearance, which is why the base rows of a bucket must also be ordered by
+ * their first timestamp. Linear fill needs rows ahead of the gap, so its result
+ * is materialised and supports random access.
+ */
+public class GroupByFillRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final GroupByFillRecordCursor cursor;
+    // per column: constant for null and value fills, column function for prev fill and keys, null for timestamp
+    private final ObjList<Function> fillFunctions;
+    private final ObjList<String> fillValues;
+    private final DoubleList interpolatedValues;
+    // per column: type of the interpolated value for linear fill, -1 for other columns
+    private final IntList interpolationTypes;
+    private final ListColumnFilter keyColumns;
+    private final KeyedFillRecordCursor keyedCursor;
+    private final LinearFillRecordCursor linearCursor;
+    // per column: null constant for prev fill of keys that have no previous row
+    private final ObjList<Function> nullFunctions;
+    private final String stride;
+    private final TimestampSampler timestampSampler;
+
+    public GroupByFillRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull BytecodeAssembler asm,
+            RecordCursorFactory base,
+            @NotNull TimestampSampler timestampSampler,
+            @Transient @NotNull CharSequence stride,
+            int timestampIndex,
+            @Transient @NotNull ListColumnFilter keyColumns,
+            @Transient @NotNull ArrayColumnTypes keyTypes,
+            int keyOrderIndex,
+            @Transient @NotNull ObjList<ExpressionNode> fillValues,
+            @Transient @NotNull IntList recordFunctionPositions
+    ) throws SqlException {
+        super(base.getMetadata());
+        this.base = base;
+        this.timestampSampler = timestampSampler;
+        this.stride = Chars.toString(stride);
+        this.fillValues = new ObjList<>(fillValues.size());
+        for (int i = 0, n = fillValues.size(); i < n; i++) {
+            this.fillValues.add(Chars.toString(fillValues.getQuick(i).token));
+        }
+        this.keyColumns = keyColumns.copy();
+
+        final RecordMetadata metadata = base.getMetadata();
+        final int columnCount = metadata.getColumnCount();
+        final boolean keyed = keyColumns.getColumnCount() > 0;
+        final boolean linear = isLinearKeyword(fillValues.getQuick(0).token);
+        this.fillFunctions = new ObjList<>(columnCount);
+        this.nullFunctions = new ObjList<>(columnCount);
+        this.interpolatedValues = new DoubleList(columnCount);
+        this.interpolationTypes = new IntList(columnCount);
+        boolean hasPrev = false;
+        int fillIndex = 0;
+        for (int i = 0; i < columnCount; i++) {
+            final int type = metadata.getColumnType(i);
+            nullFunctions.add(null);
+            interpolatedValues.add(Double.NaN);
+            interpolationTypes.add(-1);
+            if (i == timestampIndex) {
+                fillFunctions.add(null);
+                continue;
+            }
+            if (keyColumns.contains(i + 1)) {
+                // keys of the fill row are those of the previous row with the same key
+                fillFunctions.add(FunctionParser.createColumn(recordFunctionPositions.getQuick(i), metadata.getColumnName(i), metadata));
+                continue;
+            }
+            if (i == keyOrderIndex) {
+                fillFunctions.add(SampleByFillNullRecordCursorFactory.createPlaceHolderFunction(recordFunctionPositions, i, type));
+                continue;
+            }
+
+            if (fillIndex == fillValues.size()) {
+                throw SqlException.position(fillValues.getLast().position).put("not enough values");
+            }
+            // single null, prev or linear applies to all values
+            final ExpressionNode fillNode = fillValues.getQuick(fillValues.size() == 1 ? 0 : fillIndex++);
+            if (isNullKeyword(fillNode.token)) {
+                fillFunctions.add(SampleByFillNullRecordCursorFactory.createPlaceHolderFunction(recordFunctionPositions, i, type));
+            } else if (isPrevKeyword(fillNode.token)) {
+                fillFunctions.add(FunctionParser.createColumn(recordFunctionPositions.getQuick(i), metadata.getColumnName(i), metadata));
+                if (keyed) {
+                    // keys that have not appeared yet have nothing to carry forward
+                    nullFunctions.setQuick(i, Constants.getNullConstant(type));
+                }
+                hasPrev = true;
+            } else if (isLinearKeyword(fillNode.token)) {
+                switch (ColumnType.tagOf(type)) {
+                    case ColumnType.BYTE:
+                    case ColumnType.SHORT:
+                    case ColumnType.INT:
+                    case ColumnType.LONG:
+                    case ColumnType.FLOAT:
+                    case ColumnType.DOUBLE:
+                        interpolationTypes.setQuick(i, ColumnType.tagOf(type));
+                        break;
+                    default:
+                        throw SqlException.$(recordFunctionPositions.getQuick(i), "Unsupported interpolation type: ").put(ColumnType.nameOf(type));
+                }
+                // keys with a single row cannot be interpolated
+                fillFunctions.add(SampleByFillNullRecordCursorFactory.createPlaceHolderFunction(recordFunctionPositions, i, type));
+            } else {
+                fillFunctions.add(SampleByFillValueRecordCursorFactory.createPlaceHolderFunction(recordFunctionPositions, i, type, fillNode));
+            }
+        }
+
+        if (keyed || linear) {
+            final Map keyMap;
+            final RecordSink keySink;
+            if (keyed) {
+                final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+                valueTypes.add(ColumnType.INT);
+                keyMap = MapFactory.createUnorderedMap(configuration, keyTypes, valueTypes);
+                keySink = RecordSinkFactory.getInstance(asm, metadata, keyColumns, false);
+            } else {
+                keyMap = null;
+                keySink = null;
+            }
+            this.cursor = null;
+            this.keyedCursor = new KeyedFillRecordCursor(keyMap, keySink, timestampIndex, linear);
+            if (linear) {
+                final EntityColumnFilter columnFilter = new EntityColumnFilter();
+                columnFilter.of(columnCount);
+                final RecordChain chain = new RecordChain(
+                        metadata,
+                        RecordSinkFactory.getInstance(asm, metadata, columnFilter, false),
+                        configuration.getSqlSortValuePageSize(),
+                        configuration.getSqlSortValueMaxPages()
+                );
+                this.linearCursor = new LinearFillRecordCursor(chain, keyedCursor);
+            } else {
+                this.linearCursor = null;
+            }
+        } else {
+            this.cursor = new GroupByFillRecordCursor(timestampIndex, hasPrev);
+            this.keyedCursor = null;
+            this.linearCursor = null;
+        }
+    }
+
+    @Override
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final RecordCursor baseCursor = base.getCursor(executionContext);
+        try {
+            if (linearCursor != null) {
+                linearCursor.of(baseCursor, executionContext);
+                return linearCursor;
+            }
+            if (keyedCursor != null) {
+                keyedCursor.of(baseCursor, executionContext);
+                return keyedCursor;
+            }
+            cursor.of(baseCursor, executionContext);
+            return cursor;
+        } catch (Throwable e) {
+            Misc.free(baseCursor);
+            throw e;
+        }
+    }
+
+    @Override
+    public int getScanDirection() {
+        return base.getScanDirection();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return linearCursor != null;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Fill");
+        if (keyColumns.getColumnCount() > 0) {
+            sink.attr("keys").val('[');
+            keyColumns.toPlan(sink);
+            sink.val(']');
+        }
+        sink.attr("stride").val('\'').val(stride).val('\'');
+        sink.attr("values").val(fillValues);
+        sink.child(base);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(base);
+        Misc.free(linearCursor);
+        Misc.free(keyedCursor);
+        Misc.freeObjList(fillFunctions);
+        Misc.freeObjList(nullFunctions);
+    }
+
+    private static double narrow(int type, double value) {
+        switch (type) {
+            case ColumnType.BYTE:
+                return (byte) value;
+            case ColumnType.SHORT:
+                return (short) value;
+            case ColumnType.INT:
+                return (int) value;
+            case ColumnType.LONG:
+                return (long) value;
+            case ColumnType.FLOAT:
+                return (float) value;
+            default:
+                return value;
+        }
+    }
+
+    private static double valueOf(Record record, int col, int type) {
+        switch (type) {
+            case ColumnType.BYTE:
+                return record.getByte(col);
+            case ColumnType.SHORT:
+                return record.getShort(col);
+            case ColumnType.INT:
+                return record.getInt(col);
+            case ColumnType.LONG:
+                return record.getLong(col);
+            case ColumnType.FLOAT:
+                return record.getFloat(col);
+            default:
+                return record.getDouble(col);
+        }
+    }
+
+    private void initFunctions(RecordCursor baseCursor, SqlExecutionContext executionContext) throws SqlException {
+        for (int i = 0, n = fillFunctions.size(); i < n; i++) {
+            final Function function = fillFunctions.getQuick(i);
+            if (function != null) {
+                function.init(baseCursor, executionContext);
+            }
+            final Function nullFunction = nullFunctions.getQuick(i);
+            if (nullFunction != null) {
+                nullFunction.init(baseCursor, executionContext);
+            }
+        }
+    }
+
+    private class FillRecord implements Record {
+        private final int timestampIndex;
+        private Record baseRecord;
+        private long fillTimestamp;
+        private boolean gapFilling;
+        private boolean interpolating;
+        private boolean prevMissing;
+        private Record prevRecord;
+
+        private FillRecord(int timestampIndex) {
+            this.timestampIndex = timestampIndex;
+        }
+
+        @Override
+        public BinarySequence getBin(int col) {
+            return gapFilling ? fill(col).getBin(prevRecord) : baseRecord.getBin(col);
+        }
+
+        @Override
+        public long getBinLen(int col) {
+            return gapFilling ? fill(col).getBinLen(prevRecord) : baseRecord.getBinLen(col);
+        }
+
+        @Override
+        public boolean getBool(int col) {
+            return gapFilling ? fill(col).getBool(prevRecord) : baseRecord.getBool(col);
+        }
+
+        @Override
+        public byte getByte(int col) {
+            if (gapFilling) {
+                return interpolated(col) ? (byte) interpolatedValues.getQuick(col) : fill(col).getByte(prevRecord);
+            }
+            return baseRecord.getByte(col);
+        }
+
+        @Override
+        public char getChar(int col) {
+            return gapFilling ? fill(col).getChar(prevRecord) : baseRecord.getChar(col);
+        }
+
+        @Override
+        public long getDate(int col) {
+            return gapFilling ? fill(col).getDate(prevRecord) : baseRecord.getDate(col);
+        }
+
+        @Override
+        public double getDouble(int col) {
+            if (gapFilling) {
+                return interpolated(col) ? interpolatedValues.getQuick(col) : fill(col).getDouble(prevRecord);
+            }
+            return baseRecord.getDouble(col);
+        }
+
+        @Override
+        public float getFloat(int col) {
+            if (gapFilling) {
+                return interpolated(col) ? (float) interpolatedValues.getQuick(col) : fill(col).getFloat(prevRecord);
+            }
+            return baseRecord.getFloat(col);
+        }
+
+        @Override
+        public byte getGeoByte(int col) {
+            return gapFilling ? fill(col).getGeoByte(prevRecord) : baseRecord.getGeoByte(col);
+        }
+
+        @Override
+        public int getGeoInt(int col) {
+            return gapFilling ? fill(col).getGeoInt(prevRecord) : baseRecord.getGeoInt(col);
+        }
+
+        @Override
+        public long getGeoLong(int col) {
+            return gapFilling ? fill(col).getGeoLong(prevRecord) : baseRecord.getGeoLong(col);
+        }
+
+        @Override
+        public short getGeoShort(int col) {
+            return gapFilling ? fill(col).getGeoShort(prevRecord) : baseRecord.getGeoShort(col);
+        }
+
+        @Override
+        public int getIPv4(int col) {
+            return gapFilling ? fill(col).getIPv4(prevRecord) : baseRecord.getIPv4(col);
+        }
+
+        @Override
+        public int getInt(int col) {
+            if (gapFilling) {
+                return interpolated(col) ? (int) interpolatedValues.getQuick(col) : fill(col).getInt(prevRecord);
+            }
+            return baseRecord.getInt(col);
+        }
+
+        @Override
+        public long getLong(int col) {
+            if (gapFilling) {
+                return interpolated(col) ? (long) interpolatedValues.getQuick(col) : fill(col).getLong(prevRecord);
+            }
+            return baseRecord.getLong(col);
+        }
+
+        @Override
+        public long getLong128Hi(int col) {
+            return gapFilling ? fill(col).getLong128Hi(prevRecord) : baseRecord.getLong128Hi(col);
+        }
+
+        @Override
+        public long getLong128Lo(int col) {
+            return gapFilling ? fill(col).getLong128Lo(prevRecord) : baseRecord.getLong128Lo(col);
+        }
+
+        @Override
+        public void getLong256(int col, CharSink<?> sink) {
+            if (gapFilling) {
+                fill(col).getLong256(prevRecord, sink);
+            } else {
+                baseRecord.getLong256(col, sink);
+            }
+        }
+
+        @Override
+        public Long256 getLong256A(int col) {
+            return gapFilling ? fill(col).getLong256A(prevRecord) : baseRecord.getLong256A(col);
+        }
+
+        @Override
+        public Long256 getLong256B(int col) {
+            return gapFilling ? fill(col).getLong256B(prevRecord) : baseRecord.getLong256B(col);
+        }
+
+        @Override
+        public short getShort(int col) {
+            if (gapFilling) {
+                return interpolated(col) ? (short) interpolatedValues.getQuick(col) : fill(col).getShort(prevRecord);
+            }
+            return baseRecord.getShort(col);
+        }
+
+        @Override
+        public CharSequence getStrA(int col) {
+            return gapFilling ? fill(col).getStrA(prevRecord) : baseRecord.getStrA(col);
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            return gapFilling ? fill(col).getStrB(prevRecord) : baseRecord.getStrB(col);
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            return gapFilling ? fill(col).getStrLen(prevRecord) : baseRecord.getStrLen(col);
+        }
+
+        @Override
+        public CharSequence getSymA(int col) {
+            return gapFilling ? fill(col).getSymbol(prevRecord) : baseRecord.getSymA(col);
+        }
+
+        @Override
+        public CharSequence getSymB(int col) {
+            return gapFilling ? fill(col).getSymbolB(prevRecord) : baseRecord.getSymB(col);
+        }
+
+        @Override
+        public long getTimestamp(int col) {
+            if (gapFilling) {
+                return col == timestampIndex ? fillTimestamp : fill(col).getTimestamp(prevRecord);
+            }
+            return baseRecord.getTimestamp(col);
+        }
+
+        @Override
+        public Utf8Sequence getVarcharA(int col) {
+            return gapFilling ? fill(col).getVarcharA(prevRecord) : baseRecord.getVarcharA(col);
+        }
+
+        @Override
+        public Utf8Sequence getVarcharB(int col) {
+            return gapFilling ? fill(col).getVarcharB(prevRecord) : baseRecord.getVarcharB(col);
+        }
+
+        private Function fill(int col) {
+            if (prevMissing) {
+                final Function function = nullFunctions.getQuick(col);
+                if (function != null) {
+                    return function;
+                }
+            }
+            return fillFunctions.getQuick(col);
+        }
+
+        private boolean interpolated(int col) {
+            return interpolating && interpolationTypes.getQuick(col) != -1;
+        }
+
+        private void of(Record baseRecord, Record prevRecord) {
+            this.baseRecord = baseRecord;
+            this.prevRecord = prevRecord;
+            gapFilling = false;
+            interpolating = false;
+            prevMissing = false;
+        }
+    }
+
+    private class GroupByFillRecordCursor implements NoRandomAccessRecordCursor {
+        private final boolean hasPrev;
+        private final FillRecord record;
+        private final int timestampIndex;
+        private RecordCursor baseCursor;
+        private Record baseRecord;
+        private boolean baseRecordPending;
+        private long nextTimestamp;
+        private long prevRowId;
+        private boolean prevRowPositioned;
+
+        private GroupByFillRecordCursor(int timestampIndex, boolean hasPrev) {
+            this.timestampIndex = timestampIndex;
+            this.hasPrev = hasPrev;
+            this.record = new FillRecord(timestampIndex);
+        }
+
+        @Override
+        public void close() {
+            baseCursor = Misc.free(baseCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return baseCursor.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!baseRecordPending) {
+                if (!baseCursor.hasNext()) {
+                    // buckets after the last row are not filled
+                    return false;
+                }
+                baseRecordPending = true;
+            }
+
+            final long timestamp = baseRecord.getTimestamp(timestampIndex);
+            if (nextTimestamp != Numbers.LONG_NaN && timestamp > nextTimestamp) {
+                record.gapFilling = true;
+                record.fillTimestamp = nextTimestamp;
+                nextTimestamp = timestampSampler.nextTimestamp(nextTimestamp);
+                if (hasPrev && !prevRowPositioned) {
+                    baseCursor.recordAt(record.prevRecord, prevRowId);
+                    prevRowPositioned = true;
+                }
+                return true;
+            }
+
+            record.gapFilling = false;
+            baseRecordPending = false;
+            nextTimestamp = timestampSampler.nextTimestamp(timestamp);
+            if (hasPrev) {
+                prevRowId = baseRecord.getRowId();
+                prevRowPositioned = false;
+            }
+            return true;
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return baseCursor.newSymbolTable(columnIndex);
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            baseCursor.toTop();
+            resetState();
+        }
+
+        private void of(RecordCursor baseCursor, SqlExecutionContext executionContext) throws SqlException {
+            this.baseCursor = baseCursor;
+            baseRecord = baseCursor.getRecord();
+            record.of(baseRecord, hasPrev ? baseCursor.getRecordB() : null);
+            initFunctions(baseCursor, executionContext);
+            resetState();
+        }
+
+        private void resetState() {
+            baseRecordPending = false;
+            record.gapFilling = false;
+            nextTimestamp = Numbers.LONG_NaN;
+            prevRowId = -1;
+            prevRowPositioned = false;
+        }
+    }
+
+    /**
+     * Reads the base cursor once to link rows of the same key, then produces every key
+     * for every bucket. Keyed and linear fills look up the rows of a key by their index
+     * in the base cursor, non-keyed linear fill treats all rows as a single key.
+     */
+    private class KeyedFillRecordCursor implements NoRandomAccessRecordCursor {
+        // per key: index of its first row
+        private final IntList keyFirstIndexes = new IntList();
+        // per row: ordinal of its key
+        private final IntList keyIndexes = new IntList();
+        // per key: index of its last row, up to the current bucket while producing rows
+        private final IntList keyLastIndexes = new IntList();
+        private final Map keyMap;
+        private final RecordSink keySink;
+        private final boolean linear;
+        // per row: index of the next and the previous row of the same key, -1 if none
+        private final IntList nextIndexes = new IntList();
+        private final IntList prevIndexes = new IntList();
+        private final FillRecord record;
+        private final LongList rowIds = new LongList();
+        private final int timestampIndex;
+        private final LongList timestamps = new LongList();
+        private RecordCursor baseCursor;
+        private Record baseRecord;
+        private long bucket;
+        private int bucketHi;
+        private SqlExecutionCircuitBreaker circuitBreaker;
+        private int dataIndex;
+        private boolean isBuilt;
+        private boolean isOpen;
+        private int keyCount;
+        private int keyIndex;
+        private Record prevRecord;
+        private int rowCount;
+        private int rowIndex;
+
+        private KeyedFillRecordCursor(Map keyMap, RecordSink keySink, int timestampIndex, boolean linear) {
+            this.keyMap = keyMap;
+            this.keySink = keySink;
+            this.timestampIndex = timestampIndex;
+            this.linear = linear;
+            this.record = new FillRecord(timestampIndex);
+            this.isOpen = true;
+        }
+
+        @Override
+        public void close() {
+            if (isOpen) {
+                Misc.free(keyMap);
+                baseCursor = Misc.free(baseCursor);
+                isOpen = false;
+            }
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return baseCursor.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!isBuilt) {
+                build();
+                isBuilt = true;
+            }
+
+            while (true) {
+                // linear fill puts rows of the bucket first, in the order of the base cursor
+                if (linear && dataIndex < bucketHi) {
+                    nextData(dataIndex++);
+                    return true;
+                }
+
+                if (keyIndex < keyCount) {
+                    final int key = keyIndex++;
+                    final int lastIndex = keyLastIndexes.getQuick(key);
+                    if (lastIndex != -1 && timestamps.getQuick(lastIndex) == bucket) {
+                        if (linear) {
+                            continue;
+                        }
+                        nextData(lastIndex);
+                    } else {
+                        nextFill(key, lastIndex);
+                    }
+                    return true;
+                }
+
+                if (rowIndex == rowCount) {
+                    // buckets after the last row are not filled
+                    return false;
+                }
+                nextBucket();
+            }
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return baseCursor.newSymbolTable(columnIndex);
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            if (isBuilt) {
+                resetState();
+            } else {
+                baseCursor.toTop();
+            }
+        }
+
+        private void build() {
+            while (baseCursor.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+
+                final int key;
+                if (keyMap != null) {
+                    final MapKey mapKey = keyMap.withKey();
+                    keySink.copy(baseRecord, mapKey);
+                    final MapValue value = mapKey.createValue();
+                    if (value.isNew()) {
+                        value.putInt(0, keyCount);
+                        newKey();
+                    }
+                    key = value.getInt(0);
+                } else {
+                    if (keyCount == 0) {
+                        newKey();
+                    }
+                    key = 0;
+                }
+
+                final int lastIndex = keyLastIndexes.getQuick(key);
+                if (lastIndex == -1) {
+                    keyFirstIndexes.setQuick(key, rowCount);
+                } else {
+                    nextIndexes.setQuick(lastIndex, rowCount);
+                }
+                keyLastIndexes.setQuick(key, rowCount);
+                rowIds.add(baseRecord.getRowId());
+                timestamps.add(baseRecord.getTimestamp(timestampIndex));
+                keyIndexes.add(key);
+                prevIndexes.add(lastIndex);
+                nextIndexes.add(-1);
+                rowCount++;
+            }
+            resetState();
+        }
+
+        private void interpolate(int key, int lastIndex) {
+            record.interpolating = false;
+            if (lastIndex == -1) {
+                // leading gap, extrapolate from the first two rows
+                final int firstIndex = keyFirstIndexes.getQuick(key);
+                final int secondIndex = nextIndexes.getQuick(firstIndex);
+                if (secondIndex != -1) {
+                    interpolateRows(firstIndex, secondIndex);
+                }
+            } else if (nextIndexes.getQuick(lastIndex) != -1) {
+                interpolateRows(lastIndex, nextIndexes.getQuick(lastIndex));
+            } else if (prevIndexes.getQuick(lastIndex) != -1) {
+                // trailing gap, extrapolate from the last row and the bucket before it,
+                // the latter is interpolated when it is a gap
+                final int prevIndex = prevIndexes.getQuick(lastIndex);
+                final long x1 = timestampSampler.previousTimestamp(timestamps.getQuick(lastIndex));
+                final long x2 = timestamps.getQuick(lastIndex);
+                final long prevTimestamp = timestamps.getQuick(prevIndex);
+                baseCursor.recordAt(baseRecord, rowIds.getQuick(prevIndex));
+                baseCursor.recordAt(prevRecord, rowIds.getQuick(lastIndex));
+                for (int i = 0, n = interpolationTypes.size(); i < n; i++) {
+                    final int type = interpolationTypes.getQuick(i);
+                    if (type != -1) {
+                        final double y2 = valueOf(prevRecord, i, type);
+                        double y1 = valueOf(baseRecord, i, type);
+                        if (prevTimestamp != x1) {
+                            y1 = narrow(type, InterpolationUtil.interpolate(x1, prevTimestamp, y1, x2, y2));
+                        }
+                        interpolatedValues.setQuick(i, narrow(type, InterpolationUtil.interpolate(bucket, x1, y1, x2, y2)));
+                    }
+                }
+                record.interpolating = true;
+            }
+        }
+
+        private void interpolateRows(int index1, int index2) {
+            final long x1 = timestamps.getQuick(index1);
+            final long x2 = timestamps.getQuick(index2);
+            baseCursor.recordAt(baseRecord, rowIds.getQuick(index1));
+            baseCursor.recordAt(prevRecord, rowIds.getQuick(index2));
+            for (int i = 0, n = interpolationTypes.size(); i < n; i++) {
+                final int type = interpolationTypes.getQuick(i);
+                if (type != -1) {
+                    interpolatedValues.setQuick(
+                            i,
+                            narrow(type, InterpolationUtil.interpolate(bucket, x1, valueOf(baseRecord, i, type), x2, valueOf(prevRecord, i, type)))
+                    );
+                }
+            }
+            record.interpolating = true;
+        }
+
+        private void newKey() {
+            keyFirstIndexes.add(-1);
+            keyLastIndexes.add(-1);
+            keyCount++;
+        }
+
+        private void nextBucket() {
+            final long timestamp = timestamps.getQuick(rowIndex);
+            bucket = bucket == Numbers.LONG_NaN ? timestamp : Math.min(timestampSampler.nextTimestamp(bucket), timestamp);
+            dataIndex = rowIndex;
+            while (rowIndex < rowCount && timestamps.getQuick(rowIndex) == bucket) {
+                keyLastIndexes.setQuick(keyIndexes.getQuick(rowIndex), rowIndex);
+                rowIndex++;
+            }
+            bucketHi = rowIndex;
+            keyIndex = 0;
+        }
+
+        private void nextData(int index) {
+            baseCursor.recordAt(baseRecord, rowIds.getQuick(index));
+            record.gapFilling = false;
+        }
+
+        private void nextFill(int key, int lastIndex) {
+            if (linear) {
+                interpolate(key, lastIndex);
+            }
+            // keys of the fill row come from the last row of the key, or from
+            // its first row when the key is yet to appear
+            record.prevMissing = lastIndex == -1;
+            baseCursor.recordAt(prevRecord, rowIds.getQuick(record.prevMissing ? keyFirstIndexes.getQuick(key) : lastIndex));
+            record.gapFilling = true;
+            record.fillTimestamp = bucket;
+        }
+
+        private void of(RecordCursor baseCursor, SqlExecutionContext executionContext) throws SqlException {
+            if (!isOpen) {
+                if (keyMap != null) {
+                    keyMap.reopen();
+                }
+                isOpen = true;
+            }
+            this.baseCursor = baseCursor;
+            baseRecord = baseCursor.getRecord();
+            prevRecord = baseCursor.getRecordB();
+            record.of(baseRecord, prevRecord);
+            circuitBreaker = executionContext.getCircuitBreaker();
+            initFunctions(baseCursor, executionContext);
+            if (keyMap != null) {
+                keyMap.clear();
+            }
+            keyFirstIndexes.clear();
+            keyIndexes.clear();
+            keyLastIndexes.clear();
+            nextIndexes.clear();
+            prevIndexes.clear();
+            rowIds.clear();
+            timestamps.clear();
+            keyCount = 0;
+            rowCount = 0;
+            isBuilt = false;
+        }
+
+        private void resetState() {
+            keyLastIndexes.setAll(keyCount, -1);
+            bucket = Numbers.LONG_NaN;
+            bucketHi = 0;
+            dataIndex = 0;
+            keyIndex = keyCount;
+            rowIndex = 0;
+            record.gapFilling = false;
+        }
+    }
+
+    /**
+     * Linear fill rows are stored in a record chain on the first pass, so that the result
+     * can be iterated again and accessed by row id.
+     */
+    private class LinearFillRecordCursor implements RecordCursor {
+        private final RecordChain chain;
+        private final KeyedFillRecordCursor fillCursor;
+        private boolean isBuilt;
+        private boolean isOpen;
+        private long rowCount;
+
+        private LinearFillRecordCursor(RecordChain chain, KeyedFillRecordCursor fillCursor) {
+            this.chain = chain;
+            this.fillCursor = fillCursor;
+            this.isOpen = true;
+        }
+
+        @Override
+        public void close() {
+            if (isOpen) {
+                chain.close();
+                fillCursor.close();
+                isOpen = false;
+            }
+        }
+
+        @Override
+        public Record getRecord() {
+            return chain.getRecord();
+        }
+
+        @Override
+        public Record getRecordB() {
+            return chain.getRecordB();
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return fillCursor.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!isBuilt) {
+                final Record record = fillCursor.getRecord();
+                long offset = -1;
+                while (fillCursor.hasNext()) {
+                    offset = chain.put(record, offset);
+                    rowCount++;
+                }
+                chain.toTop();
+                isBuilt = true;
+            }
+            return chain.hasNext();
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return fillCursor.newSymbolTable(columnIndex);
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            chain.recordAt(record, atRowId);
+        }
+
+        @Override
+        public long size() {
+            return isBuilt ? rowCount : -1;
+        }
+
+        @Override
+        public void toTop() {
+            if (isBuilt) {
+                chain.toTop();
+            }
+        }
+
+        private void of(RecordCursor baseCursor, SqlExecutionContext executionContext) throws SqlException {
+            if (!isOpen) {
+                chain.reopen();
+                isOpen = true;
+            }
+            fillCursor.of(baseCursor, executionContext);
+            chain.setSymbolTableResolver(baseCursor);
+            rowCount = 0;
+            isBuilt = false;
+        }
+    }
+}
@@ -35,14 +35,23 @@ import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.functions.GroupByFunction;
-import io.questdb.std.BytecodeAssembler;
-import io.questdb.std.Misc;
-import io.questdb.std.ObjList;
-import io.questdb.std.Transient;
+import io.questdb.std.*;
 import org.jetbrains.annotations.NotNull;
 
+/**
+ * Single-threaded GROUP BY. When spilling is enabled and the map outgrows the configured
+ * threshold, the map stops accepting new keys: rows of keys already in the map are still
+ * aggregated in place, while rows of new keys are written to on-disk hash partitions.
+ * Once the base cursor is exhausted, the map is returned first, then every partition is
+ * aggregated in turn into the emptied map. Partitions hold disjoint key sets, so no merge
+ * of aggregate values is needed.
+ * <p>
+ * Partitioning is a single level: a partition is not split again, so the keys of each
+ * partition must fit in memory, regardless of the threshold. The parallel GROUP BY
+ * factories don't spill at all.
+ */
 public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
-
+    private static final int SPILL_PARTITION_COUNT = 16;
     protected final RecordCursorFactory base;
     private final GroupByRecordCursor cursor;
     private final ObjList<GroupByFunction> groupByFunctions;
@@ -50,6 +59,8 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
     // this sink is used to copy recordKeyMap keys to dataMap
     private final RecordSink mapSink;
     private final ObjList<Function> recordFunctions;
+    // copies base records to spill partitions, null when spilling is disabled
+    private final RecordSink spillSink;
 
     public GroupByRecordCursorFactory(
             @Transient @NotNull BytecodeAssembler asm,
@@ -71,6 +82,13 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             this.recordFunctions = recordFunctions;
             // sink will be storing record columns to map key
             this.mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, keyFunctions, false);
+            if (configuration.isSqlSpillEnabled()) {
+                final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
+                entityColumnFilter.of(base.getMetadata().getColumnCount());
+                this.spillSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), entityColumnFilter, false);
+            } else {
+                this.spillSink = null;
+            }
             final GroupByFunctionsUpdater updater = GroupByFunctionsUpdaterFactory.getInstance(asm, groupByFunctions);
             this.cursor = new GroupByRecordCursor(configuration, recordFunctions, groupByFunctions, updater, keyTypes, valueTypes);
         } catch (Throwable e) {
@@ -113,7 +131,8 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
 
     @Override
     public boolean recordCursorSupportsRandomAccess() {
-        return true;
+        // once spilled, the map holds a single partition at a time
+        return spillSink == null;
     }
 
     @Override
@@ -147,10 +166,16 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
         private final GroupByAllocator allocator;
         private final Map dataMap;
         private final GroupByFunctionsUpdater groupByFunctionsUpdater;
+        private final ObjList<SpillFile> spillFiles;
+        private final ObjList<RecordChain> spillPartitions;
+        private final LongList spillTails;
+        private final long spillThreshold;
         private SqlExecutionCircuitBreaker circuitBreaker;
         private boolean isDataMapBuilt;
         private boolean isOpen;
+        private boolean isSpilled;
         private long rowId;
+        private int spillPartitionIndex;
 
         public GroupByRecordCursor(
                 CairoConfiguration configuration,
@@ -165,6 +190,28 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             this.groupByFunctionsUpdater = groupByFunctionsUpdater;
             this.allocator = GroupByAllocatorFactory.createThreadUnsafeAllocator(configuration);
             GroupByUtils.setAllocator(groupByFunctions, allocator);
+            if (spillSink != null) {
+                this.spillThreshold = configuration.getSqlSpillThreshold();
+                this.spillFiles = new ObjList<>(SPILL_PARTITION_COUNT);
+                this.spillPartitions = new ObjList<>(SPILL_PARTITION_COUNT);
+                this.spillTails = new LongList(SPILL_PARTITION_COUNT);
+                spillTails.setAll(SPILL_PARTITION_COUNT, -1);
+                final RecordMetadata baseMetadata = base.getMetadata();
+                for (int i = 0; i < SPILL_PARTITION_COUNT; i++) {
+                    spillFiles.add(new SpillFile(configuration));
+                    spillPartitions.add(new RecordChain(
+                            baseMetadata,
+                            spillSink,
+                            configuration.getSqlSortValuePageSize(),
+                            configuration.getSqlSortValueMaxPages()
+                    ));
+                }
+            } else {
+                this.spillThreshold = Long.MAX_VALUE;
+                this.spillFiles = null;
+                this.spillPartitions = null;
+                this.spillTails = null;
+            }
             this.isOpen = true;
         }
 
@@ -173,7 +220,11 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             if (!isDataMapBuilt) {
                 buildDataMap();
             }
-            baseCursor.calculateSize(circuitBreaker, counter);
+            if (isSpilled) {
+                super.calculateSize(circuitBreaker, counter);
+            } else {
+                baseCursor.calculateSize(circuitBreaker, counter);
+            }
         }
 
         @Override
@@ -182,6 +233,8 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
                 isOpen = false;
                 Misc.free(dataMap);
                 Misc.free(allocator);
+                clearSpill();
+                Misc.freeObjListAndKeepObjects(spillFiles);
                 Misc.clearObjList(groupByFunctions);
                 super.close();
             }
@@ -192,7 +245,13 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             if (!isDataMapBuilt) {
                 buildDataMap();
             }
-            return super.hasNext();
+            while (!super.hasNext()) {
+                if (!isSpilled || spillPartitionIndex == SPILL_PARTITION_COUNT) {
+                    return false;
+                }
+                buildSpillPartition(spillPartitionIndex++);
+            }
+            return true;
         }
 
         public void of(RecordCursor managedCursor, SqlExecutionContext executionContext) throws SqlException {
@@ -207,9 +266,21 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             rowId = 0;
         }
 
+        @Override
+        public long size() {
+            return isSpilled ? -1 : super.size();
+        }
+
         @Override
         public void toTop() {
             super.toTop();
+            if (isSpilled) {
+                // the map holds the last partition only, aggregate everything again
+                managedCursor.toTop();
+                dataMap.clear();
+                allocator.close();
+                clearSpill();
+            }
             isDataMapBuilt = false;
             rowId = 0;
         }
@@ -220,9 +291,22 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
                 circuitBreaker.statefulThrowExceptionIfTripped();
                 final MapKey key = dataMap.withKey();
                 mapSink.copy(baseRecord, key);
+                if (isSpilled) {
+                    final MapValue value = key.findValue();
+                    if (value != null) {
+                        groupByFunctionsUpdater.updateExisting(value, baseRecord, rowId++);
+                    } else {
+                        spill(key.hash(), baseRecord);
+                    }
+                    continue;
+                }
                 MapValue value = key.createValue();
                 if (value.isNew()) {
                     groupByFunctionsUpdater.updateNew(value, baseRecord, rowId++);
+                    if (spillPartitions != null && dataMap.getMemoryUsed() + allocator.allocated() > spillThreshold) {
+                        isSpilled = true;
+                        spillPartitionIndex = 0;
+                    }
                 } else {
                     groupByFunctionsUpdater.updateExisting(value, baseRecord, rowId++);
                 }
@@ -230,5 +314,47 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             super.of(dataMap.getCursor());
             isDataMapBuilt = true;
         }
+
+        private void buildSpillPartition(int partitionIndex) {
+            dataMap.clear();
+            allocator.close();
+            final RecordChain partition = spillPartitions.getQuick(partitionIndex);
+            final Record partitionRecord = partition.getRecord();
+            partition.toTop();
+            while (partition.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                final MapKey key = dataMap.withKey();
+                mapSink.copy(partitionRecord, key);
+                MapValue value = key.createValue();
+                if (value.isNew()) {
+                    groupByFunctionsUpdater.updateNew(value, partitionRecord, rowId++);
+                } else {
+                    groupByFunctionsUpdater.updateExisting(value, partitionRecord, rowId++);
+                }
+            }
+            // release disk space as soon as the partition is aggregated
+            partition.clear();
+            super.of(dataMap.getCursor());
+        }
+
+        private void clearSpill() {
+            if (spillPartitions != null) {
+                for (int i = 0; i < SPILL_PARTITION_COUNT; i++) {
+                    spillPartitions.getQuick(i).clear();
+                }
+                spillTails.setAll(SPILL_PARTITION_COUNT, -1);
+            }
+            isSpilled = false;
+        }
+
+        private void spill(long hashCode, Record baseRecord) {
+            final int partitionIndex = (int) (hashCode >>> 32) & (SPILL_PARTITION_COUNT - 1);
+            final RecordChain partition = spillPartitions.getQuick(partitionIndex);
+            if (!partition.isSpilled()) {
+                partition.setSymbolTableResolver(managedCursor);
+                partition.spill(spillFiles.getQuick(partitionIndex));
+            }
+            spillTails.setQuick(partitionIndex, partition.put(baseRecord, spillTails.getQuick(partitionIndex)));
+        }
     }
 }
@@ -0,0 +1,371 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.engine.PerWorkerLocks;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Shared state of the parallel ASOF join. Slave page frames are cached once by the query
+ * owner, along with the first timestamp of each frame. Master page frames are then joined
+ * independently: each task seeks the slave to the first master timestamp of its frame with
+ * a binary search over frames and rows, then merges both sides forward.
+ * <p>
+ * Keyed joins also need the latest slave row of each key preceding the seek position.
+ * These are found by scanning the slave backwards from the seek position on demand,
+ * remembering every key met on the way, so that each frame scans back only as far as
+ * its keys require. A scanner keeps its keys, along with the lowest row scanned back,
+ * while its master frames go forward in time, which is the common case. Hence, each
+ * slave row is visited at most once per scanner and keys missing from the slave
+ * are rejected without rescanning it for every frame.
+ */
+public class AsyncAsOfJoinAtom implements StatefulAtom {
+    private final RecordSink masterKeySink;
+    private final int masterTimestampIndex;
+    private final SlaveScanner ownerScanner;
+    private final PerWorkerLocks perWorkerLocks;
+    private final ObjList<SlaveScanner> perWorkerScanners;
+    private final IntList slaveFrameIndexes = new IntList();
+    private final LongList slaveFrameRowCounts = new LongList();
+    private final LongList slaveFrameTimestampLos = new LongList();
+    private final RecordSink slaveKeySink;
+    private final PageAddressCache slavePageAddressCache;
+    private final int slaveTimestampIndex;
+    private PageFrameCursor slavePageFrameCursor;
+
+    public AsyncAsOfJoinAtom(
+            @NotNull CairoConfiguration configuration,
+            @Transient @Nullable ColumnTypes keyTypes,
+            @Nullable RecordSink masterKeySink,
+            @Nullable RecordSink slaveKeySink,
+            int masterTimestampIndex,
+            int slaveTimestampIndex,
+            int workerCount
+    ) {
+        this.masterKeySink = masterKeySink;
+        this.slaveKeySink = slaveKeySink;
+        this.masterTimestampIndex = masterTimestampIndex;
+        this.slaveTimestampIndex = slaveTimestampIndex;
+        this.slavePageAddressCache = new PageAddressCache(configuration);
+        final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+        valueTypes.add(ColumnType.LONG);
+        this.ownerScanner = new SlaveScanner(configuration, keyTypes, valueTypes);
+        this.perWorkerScanners = new ObjList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            perWorkerScanners.add(new SlaveScanner(configuration, keyTypes, valueTypes));
+        }
+        this.perWorkerLocks = new PerWorkerLocks(configuration, workerCount);
+    }
+
+    public int acquire(int workerId, boolean owner, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (workerId == -1 && owner) {
+            // Owner thread is free to use its own scanner anytime.
+            return -1;
+        }
+        return perWorkerLocks.acquireSlot(workerId, circuitBreaker);
+    }
+
+    @Override
+    public void clear() {
+        ownerScanner.clear();
+        Misc.clearObjList(perWorkerScanners);
+        slavePageFrameCursor = Misc.free(slavePageFrameCursor);
+        slavePageAddressCache.clear();
+        slaveFrameIndexes.clear();
+        slaveFrameRowCounts.clear();
+        slaveFrameTimestampLos.clear();
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(ownerScanner);
+        Misc.freeObjList(perWorkerScanners);
+    }
+
+    public int getMasterTimestampIndex() {
+        return masterTimestampIndex;
+    }
+
+    public SlaveScanner getScanner(int slotId) {
+        if (slotId == -1) {
+            return ownerScanner;
+        }
+        return perWorkerScanners.getQuick(slotId);
+    }
+
+    public PageAddressCache getSlavePageAddressCache() {
+        return slavePageAddressCache;
+    }
+
+    public SymbolTableSource getSlaveSymbolTableSource() {
+        return slavePageFrameCursor;
+    }
+
+    @Override
+    public void initCursor() {
+        // runs on the query owner thread before master frames are dispatched
+        PageFrame frame;
+        int frameIndex = 0;
+        while ((frame = slavePageFrameCursor.next()) != null) {
+            slavePageAddressCache.add(frameIndex, frame);
+            final long rowCount = frame.getPartitionHi() - frame.getPartitionLo();
+            if (rowCount > 0) {
+                slaveFrameIndexes.add(frameIndex);
+                slaveFrameRowCounts.add(rowCount);
+                slaveFrameTimestampLos.add(Unsafe.getUnsafe().getLong(frame.getPageAddress(slaveTimestampIndex)));
+            }
+            frameIndex++;
+        }
+        ownerScanner.of();
+        for (int i = 0, n = perWorkerScanners.size(); i < n; i++) {
+            perWorkerScanners.getQuick(i).of();
+        }
+    }
+
+    public boolean isKeyed() {
+        return masterKeySink != null;
+    }
+
+    public void ofSlave(PageFrameCursor slavePageFrameCursor, RecordMetadata slaveMetadata) {
+        this.slavePageFrameCursor = slavePageFrameCursor;
+        slavePageAddressCache.of(slaveMetadata);
+    }
+
+    public void release(int slotId) {
+        perWorkerLocks.releaseSlot(slotId);
+    }
+
+    /**
+     * Walks slave rows on behalf of a single thread. Slave positions are pairs of
+     * an index into the non-empty frame lists and a row within that frame.
+     */
+    public class SlaveScanner implements QuietCloseable, Mutable {
+        private final Map keyMap;
+        private final PageAddressCacheRecord record = new PageAddressCacheRecord();
+        private int backwardFrame;
+        private long backwardRow;
+        private int forwardFrame;
+        private long forwardRow;
+        private long forwardRowCount;
+        private long forwardTimestampAddress;
+        // true when keyMap holds the latest rows of the keys met in [backward, forward) slave rows
+        private boolean hasKeyState;
+        // the greatest master timestamp merged into keyMap so far
+        private long keyStateTimestamp;
+        private long lastRowId;
+
+        private SlaveScanner(CairoConfiguration configuration, ColumnTypes keyTypes, ColumnTypes valueTypes) {
+            keyMap = keyTypes != null ? MapFactory.createOrderedMap(configuration, keyTypes, valueTypes) : null;
+        }
+
+        @Override
+        public void clear() {
+            Misc.free(keyMap);
+            Misc.free(record);
+        }
+
+        @Override
+        public void close() {
+            clear();
+        }
+
+        /**
+         * Returns row id of the last slave row with the same key as the master record and
+         * timestamp not greater than the given one, or -1 if there is no such row. Timestamps
+         * must not decrease between calls.
+         */
+        public long nextKeyed(Record masterRecord, long masterTimestamp) {
+            keyStateTimestamp = masterTimestamp;
+            MapKey key;
+            while (forwardFrame < slaveFrameIndexes.size() && getForwardTimestamp() <= masterTimestamp) {
+                final long rowId = toForwardRecord();
+                key = keyMap.withKey();
+                key.put(record, slaveKeySink);
+                key.createValue().putLong(0, rowId);
+                nextForward();
+            }
+
+            key = keyMap.withKey();
+            key.put(masterRecord, masterKeySink);
+            MapValue value = key.findValue();
+            if (value != null) {
+                return value.getLong(0);
+            }
+
+            // the key wasn't met yet, scan back beyond the seek position
+            while (backwardFrame > -1) {
+                final int frameIndex = slaveFrameIndexes.getQuick(backwardFrame);
+                record.setFrameIndex(frameIndex);
+                record.setRowIndex(backwardRow);
+                final long rowId = Rows.toRowID(frameIndex, backwardRow);
+                nextBackward();
+
+                key = keyMap.withKey();
+                key.put(record, slaveKeySink);
+                value = key.createValue();
+                if (value.isNew()) {
+                    value.putLong(0, rowId);
+                    key = keyMap.withKey();
+                    key.put(masterRecord, masterKeySink);
+                    value = key.findValue();
+                    if (value != null) {
+                        return value.getLong(0);
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns row id of the last slave row with timestamp not greater than the given one,
+         * or -1 if there is no such row. Timestamps must not decrease between calls.
+         */
+        public long nextNotKeyed(long masterTimestamp) {
+            while (forwardFrame < slaveFrameIndexes.size() && getForwardTimestamp() <= masterTimestamp) {
+                lastRowId = Rows.toRowID(slaveFrameIndexes.getQuick(forwardFrame), forwardRow);
+                nextForward();
+            }
+            return lastRowId;
+        }
+
+        /**
+         * Positions the scanner at the first slave row with timestamp greater than the given one.
+         * Keyed scanners stay where they are if the timestamp is not less than the last one they
+         * merged, as the forward merge catches up and the remembered keys remain valid.
+         */
+        public void seek(long timestamp) {
+            if (keyMap != null) {
+                if (hasKeyState && timestamp >= keyStateTimestamp) {
+                    return;
+                }
+                keyMap.clear();
+                hasKeyState = true;
+                keyStateTimestamp = timestamp;
+            }
+
+            final int frameCount = slaveFrameIndexes.size();
+            // first frame starting after the timestamp
+            int lo = 0;
+            int hi = frameCount;
+            while (lo < hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (slaveFrameTimestampLos.getQuick(mid) > timestamp) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+
+            if (lo == 0) {
+                setForward(0, 0);
+            } else {
+                final int frame = lo - 1;
+                final long address = slavePageAddressCache.getPageAddress(slaveFrameIndexes.getQuick(frame), slaveTimestampIndex);
+                final long rowCount = slaveFrameRowCounts.getQuick(frame);
+                long rowLo = 0;
+                long rowHi = rowCount;
+                while (rowLo < rowHi) {
+                    final long mid = (rowLo + rowHi) >>> 1;
+                    if (Unsafe.getUnsafe().getLong(address + (mid << 3)) > timestamp) {
+                        rowHi = mid;
+                    } else {
+                        rowLo = mid + 1;
+                    }
+                }
+                if (rowLo < rowCount) {
+                    setForward(frame, rowLo);
+                } else {
+                    setForward(lo, 0);
+                }
+            }
+
+            // backward position is the row right before the forward one
+            if (forwardRow > 0) {
+                backwardFrame = forwardFrame;
+                backwardRow = forwardRow - 1;
+            } else if (forwardFrame > 0) {
+                backwardFrame = forwardFrame - 1;
+                backwardRow = slaveFrameRowCounts.getQuick(backwardFrame) - 1;
+            } else {
+                backwardFrame = -1;
+            }
+            lastRowId = backwardFrame > -1 ? Rows.toRowID(slaveFrameIndexes.getQuick(backwardFrame), backwardRow) : -1;
+        }
+
+        private long getForwardTimestamp() {
+            return Unsafe.getUnsafe().getLong(forwardTimestampAddress + (forwardRow << 3));
+        }
+
+        private void nextBackward() {
+            if (--backwardRow < 0 && --backwardFrame > -1) {
+                backwardRow = slaveFrameRowCounts.getQuick(backwardFrame) - 1;
+            }
+        }
+
+        private void nextForward() {
+            if (++forwardRow == forwardRowCount) {
+                setForward(forwardFrame + 1, 0);
+            }
+        }
+
+        private void of() {
+            hasKeyState = false;
+            if (keyMap != null) {
+                keyMap.reopen();
+            }
+            record.of(slavePageFrameCursor, slavePageAddressCache);
+        }
+
+        private void setForward(int frame, long row) {
+            forwardFrame = frame;
+            forwardRow = row;
+            if (frame < slaveFrameIndexes.size()) {
+                forwardRowCount = slaveFrameRowCounts.getQuick(frame);
+                forwardTimestampAddress = slavePageAddressCache.getPageAddress(slaveFrameIndexes.getQuick(frame), slaveTimestampIndex);
+            }
+        }
+
+        private long toForwardRecord() {
+            final int frameIndex = slaveFrameIndexes.getQuick(forwardFrame);
+            record.setFrameIndex(frameIndex);
+            record.setRowIndex(forwardRow);
+            return Rows.toRowID(frameIndex, forwardRow);
+        }
+    }
+}
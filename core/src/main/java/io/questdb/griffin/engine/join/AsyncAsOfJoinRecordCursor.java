@@ -0,0 +1,258 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Os;
+import io.questdb.std.Rows;
+
+class AsyncAsOfJoinRecordCursor implements NoRandomAccessRecordCursor {
+    private static final Log LOG = LogFactory.getLog(AsyncAsOfJoinRecordCursor.class);
+    private final int columnSplit;
+    private final PageAddressCacheRecord masterRecord;
+    private final OuterJoinRecord record;
+    private final PageAddressCacheRecord slaveRecord;
+    private boolean allFramesActive;
+    private AsyncAsOfJoinAtom atom;
+    private long cursor = -1;
+    private int frameIndex;
+    private int frameLimit;
+    private long frameRowCount;
+    private long frameRowIndex;
+    private PageFrameSequence<AsyncAsOfJoinAtom> frameSequence;
+    private boolean isOpen;
+    private DirectLongList rows;
+
+    public AsyncAsOfJoinRecordCursor(int columnSplit, Record nullRecord) {
+        this.columnSplit = columnSplit;
+        masterRecord = new PageAddressCacheRecord();
+        slaveRecord = new PageAddressCacheRecord();
+        record = new OuterJoinRecord(columnSplit, nullRecord);
+        record.of(masterRecord, slaveRecord);
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            isOpen = false;
+            LOG.debug()
+                    .$("closing [shard=").$(frameSequence.getShard())
+                    .$(", frameIndex=").$(frameIndex)
+                    .$(", frameCount=").$(frameLimit)
+                    .$(", frameId=").$(frameSequence.getId())
+                    .$(", cursor=").$(cursor)
+                    .I$();
+
+            collectCursor(true);
+            if (frameLimit > -1) {
+                frameSequence.await();
+            }
+            frameSequence.clear();
+        }
+    }
+
+    public void freeRecords() {
+        Misc.free(masterRecord);
+        Misc.free(slaveRecord);
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        if (columnIndex < columnSplit) {
+            return frameSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+        }
+        return atom.getSlaveSymbolTableSource().getSymbolTable(columnIndex - columnSplit);
+    }
+
+    @Override
+    public boolean hasNext() {
+        // Check for the first hasNext call.
+        if (frameIndex == -1) {
+            fetchNextFrame();
+        }
+
+        // We have rows in the current frame we still need to dispatch
+        if (frameRowIndex < frameRowCount) {
+            nextRow();
+            return true;
+        }
+
+        // Release the previous queue item.
+        collectCursor(false);
+
+        // Do we have more frames?
+        if (frameIndex < frameLimit) {
+            fetchNextFrame();
+            if (frameRowIndex < frameRowCount) {
+                nextRow();
+                return true;
+            }
+        }
+
+        if (!allFramesActive) {
+            throwTimeoutException();
+        }
+        return false;
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        if (columnIndex < columnSplit) {
+            return frameSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+        }
+        return atom.getSlaveSymbolTableSource().newSymbolTable(columnIndex - columnSplit);
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public void toTop() {
+        collectCursor(false);
+        frameSequence.toTop();
+        frameIndex = -1;
+        frameRowCount = 0;
+        frameRowIndex = 0;
+        allFramesActive = true;
+    }
+
+    private void collectCursor(boolean forceCollect) {
+        if (cursor > -1) {
+            frameSequence.collect(cursor, forceCollect);
+            // It is necessary to clear 'cursor' value
+            // because we updated frameIndex and loop can exit due to lack of frames.
+            // Non-update of 'cursor' could cause double-free.
+            cursor = -1;
+        }
+    }
+
+    private void fetchNextFrame() {
+        if (frameLimit == -1) {
+            frameSequence.prepareForDispatch();
+            frameLimit = frameSequence.getFrameCount() - 1;
+        }
+
+        try {
+            do {
+                cursor = frameSequence.next();
+                if (cursor > -1) {
+                    PageFrameReduceTask task = frameSequence.getTask(cursor);
+                    LOG.debug()
+                            .$("collected [shard=").$(frameSequence.getShard())
+                            .$(", frameIndex=").$(task.getFrameIndex())
+                            .$(", frameCount=").$(frameSequence.getFrameCount())
+                            .$(", frameId=").$(frameSequence.getId())
+                            .$(", active=").$(frameSequence.isActive())
+                            .$(", cursor=").$(cursor)
+                            .I$();
+
+                    if (task.hasError()) {
+                        throw CairoException.nonCritical().put(task.getErrorMsg())
+                                .setCancellation(task.isCancelled()).setInterruption(task.isCancelled());
+                    }
+
+                    allFramesActive &= frameSequence.isActive();
+                    rows = task.getFilteredRows();
+                    frameRowCount = rows.size();
+                    frameIndex = task.getFrameIndex();
+                    frameRowIndex = 0;
+                    if (frameRowCount > 0 && frameSequence.isActive()) {
+                        masterRecord.setFrameIndex(task.getFrameIndex());
+                        break;
+                    } else {
+                        // Force reset frame size if frameSequence was canceled or failed.
+                        frameRowCount = 0;
+                        collectCursor(false);
+                    }
+                } else if (cursor == -2) {
+                    break; // No frames to join.
+                } else {
+                    Os.pause();
+                }
+            } while (frameIndex < frameLimit);
+        } catch (Throwable e) {
+            if (e instanceof CairoException) {
+                CairoException ce = (CairoException) e;
+                if (ce.isInterruption() || ce.isCancellation()) {
+                    LOG.error().$("asof join error [ex=").$(ce.getFlyweightMessage()).I$();
+                    throwTimeoutException();
+                } else {
+                    LOG.error().$("asof join error [ex=").$(e).I$();
+                    throw ce;
+                }
+            }
+            LOG.error().$("asof join error [ex=").$(e).I$();
+            throw CairoException.nonCritical().put(e.getMessage());
+        }
+    }
+
+    private void nextRow() {
+        masterRecord.setRowIndex(frameRowIndex);
+        final long slaveRowId = rows.get(frameRowIndex++);
+        if (slaveRowId != -1) {
+            slaveRecord.setFrameIndex(Rows.toPartitionIndex(slaveRowId));
+            slaveRecord.setRowIndex(Rows.toLocalRowID(slaveRowId));
+            record.hasSlave(true);
+        } else {
+            record.hasSlave(false);
+        }
+    }
+
+    private void throwTimeoutException() {
+        if (frameSequence.getCancelReason() == SqlExecutionCircuitBreaker.STATE_CANCELLED) {
+            throw CairoException.queryCancelled();
+        } else {
+            throw CairoException.queryTimedOut();
+        }
+    }
+
+    void of(PageFrameSequence<AsyncAsOfJoinAtom> frameSequence) {
+        isOpen = true;
+        this.frameSequence = frameSequence;
+        this.atom = frameSequence.getAtom();
+        frameIndex = -1;
+        frameLimit = -1;
+        frameRowCount = 0;
+        frameRowIndex = 0;
+        allFramesActive = true;
+        masterRecord.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+        slaveRecord.of(atom.getSlaveSymbolTableSource(), atom.getSlavePageAddressCache());
+    }
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReduceTaskFactory;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.model.JoinContext;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Transient;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+
+/**
+ * ASOF join of two page frame backed factories, both in ascending timestamp order.
+ * Master page frames are joined on the shared workers, each task producing the matching
+ * slave row id, or -1, for every row of its frame. The cursor returns rows in master
+ * frame order, so the result is the same as the one of the serial ASOF join.
+ */
+public class AsyncAsOfJoinRecordCursorFactory extends AbstractJoinRecordCursorFactory {
+    private static final PageFrameReducer REDUCER = AsyncAsOfJoinRecordCursorFactory::join;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final AsyncAsOfJoinRecordCursor cursor;
+    private final PageFrameSequence<AsyncAsOfJoinAtom> frameSequence;
+    private final int workerCount;
+
+    public AsyncAsOfJoinRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull RecordMetadata metadata,
+            @NotNull RecordCursorFactory masterFactory,
+            @NotNull RecordCursorFactory slaveFactory,
+            @Transient @Nullable ColumnTypes joinColumnTypes,
+            @Nullable RecordSink masterKeySink,
+            @Nullable RecordSink slaveKeySink,
+            int columnSplit,
+            @Nullable JoinContext joinContext,
+            @NotNull PageFrameReduceTaskFactory reduceTaskFactory,
+            int workerCount
+    ) {
+        super(metadata, joinContext, masterFactory, slaveFactory);
+        final AsyncAsOfJoinAtom atom = new AsyncAsOfJoinAtom(
+                configuration,
+                joinColumnTypes,
+                masterKeySink,
+                slaveKeySink,
+                masterFactory.getMetadata().getTimestampIndex(),
+                slaveFactory.getMetadata().getTimestampIndex(),
+                workerCount
+        );
+        this.frameSequence = new PageFrameSequence<>(configuration, messageBus, atom, REDUCER, reduceTaskFactory, PageFrameReduceTask.TYPE_FILTER);
+        this.cursor = new AsyncAsOfJoinRecordCursor(columnSplit, NullRecordFactory.getInstance(slaveFactory.getMetadata()));
+        this.workerCount = workerCount;
+    }
+
+    @Override
+    public boolean followedOrderByAdvice() {
+        return masterFactory.followedOrderByAdvice();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final PageFrameCursor slaveCursor = slaveFactory.getPageFrameCursor(executionContext, ORDER_ASC);
+        frameSequence.getAtom().ofSlave(slaveCursor, slaveFactory.getMetadata());
+        try {
+            cursor.of(frameSequence.of(masterFactory, executionContext, collectSubSeq, ORDER_ASC));
+        } catch (Throwable th) {
+            frameSequence.clear();
+            throw th;
+        }
+        return cursor;
+    }
+
+    @Override
+    public int getScanDirection() {
+        return masterFactory.getScanDirection();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Async AsOf Join");
+        sink.meta("workers").val(workerCount);
+        if (frameSequence.getAtom().isKeyed()) {
+            sink.attr("condition").val(joinContext);
+        }
+        sink.child(masterFactory);
+        sink.child(slaveFactory);
+    }
+
+    private static void join(
+            int workerId,
+            @NotNull PageAddressCacheRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final DirectLongList rows = task.getFilteredRows();
+        final long frameRowCount = task.getFrameRowCount();
+        final AsyncAsOfJoinAtom atom = task.getFrameSequence(AsyncAsOfJoinAtom.class).getAtom();
+
+        rows.clear();
+        if (frameRowCount == 0) {
+            return;
+        }
+
+        final boolean owner = stealingFrameSequence != null && stealingFrameSequence == task.getFrameSequence();
+        final int slotId = atom.acquire(workerId, owner, circuitBreaker);
+        try {
+            final AsyncAsOfJoinAtom.SlaveScanner scanner = atom.getScanner(slotId);
+            final int timestampIndex = atom.getMasterTimestampIndex();
+            record.setRowIndex(0);
+            scanner.seek(record.getTimestamp(timestampIndex));
+            if (atom.isKeyed()) {
+                for (long r = 0; r < frameRowCount; r++) {
+                    record.setRowIndex(r);
+                    rows.add(scanner.nextKeyed(record, record.getTimestamp(timestampIndex)));
+                }
+            } else {
+                for (long r = 0; r < frameRowCount; r++) {
+                    record.setRowIndex(r);
+                    rows.add(scanner.nextNotKeyed(record.getTimestamp(timestampIndex)));
+                }
+            }
+        } finally {
+            atom.release(slotId);
+        }
+    }
+
+    @Override
+    protected void _close() {
+        ((JoinRecordMetadata) getMetadata()).close();
+        Misc.free(cursor);
+        cursor.freeRecords();
+        Misc.free(frameSequence);
+        masterFactory.close();
+        slaveFactory.close();
+    }
+}
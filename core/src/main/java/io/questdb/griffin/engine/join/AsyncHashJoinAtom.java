@@ -0,0 +1,239 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.map.OrderedMap;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.StatefulAtom;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.PerWorkerLocks;
+import io.questdb.mp.SimpleSpinLock;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+import io.questdb.std.Unsafe;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Shared state of the parallel hash join. The join key hash table is split into shards
+ * by the high bits of the key hash, so that worker threads building the table from
+ * slave page frames contend only when they hit the same shard. Each shard holds its own
+ * map of the first/last/count row id chain references and its own row id chain.
+ * <p>
+ * Map keys are single-threaded flyweights, so workers serialize the key into their
+ * own scratch map first and then copy it into the shard map under the shard lock.
+ * Once the build phase is over, shard maps and chains are read-only, so probes look
+ * the scratch key up without locking and walk the chain with a per-worker cursor.
+ * The same atom is used by both build (slave) and probe (master) frame sequences,
+ * hence its lifecycle methods tolerate repeated calls.
+ */
+public class AsyncHashJoinAtom implements StatefulAtom {
+    private static final int MAX_SHARDS = 256;
+    private final ObjList<LongChain> chains;
+    private final RecordSink masterKeySink;
+    private final int maxFramePairs;
+    private final LongChain.DetachedCursor ownerChainCursor = new LongChain.DetachedCursor();
+    private final Map ownerScratchMap;
+    private final ObjList<LongChain.DetachedCursor> perWorkerChainCursors;
+    private final ObjList<Map> perWorkerScratchMaps;
+    private final PerWorkerLocks perWorkerLocks;
+    private final int shardCount;
+    private final int shardCountShr;
+    private final ObjList<SimpleSpinLock> shardLocks;
+    private final ObjList<OrderedMap> shardMaps;
+    private final RecordSink slaveKeySink;
+    private boolean isOpen;
+
+    public AsyncHashJoinAtom(
+            @NotNull CairoConfiguration configuration,
+            @Transient @NotNull ColumnTypes keyTypes,
+            @Transient @NotNull ColumnTypes valueTypes,
+            @NotNull RecordSink masterKeySink,
+            @NotNull RecordSink slaveKeySink,
+            int workerCount
+    ) {
+        try {
+            this.masterKeySink = masterKeySink;
+            this.slaveKeySink = slaveKeySink;
+            this.maxFramePairs = configuration.getSqlPageFrameMaxRows();
+            shardCount = Math.min(Numbers.ceilPow2(2 * workerCount), MAX_SHARDS);
+            shardCountShr = Long.numberOfLeadingZeros(shardCount) + 1;
+            shardMaps = new ObjList<>(shardCount);
+            chains = new ObjList<>(shardCount);
+            shardLocks = new ObjList<>(shardCount);
+            for (int i = 0; i < shardCount; i++) {
+                shardMaps.add((OrderedMap) MapFactory.createOrderedMap(configuration, keyTypes, valueTypes));
+                chains.add(new LongChain(configuration.getSqlHashJoinLightValuePageSize(), configuration.getSqlHashJoinLightValueMaxPages()));
+                shardLocks.add(new SimpleSpinLock());
+            }
+            ownerScratchMap = MapFactory.createOrderedMap(configuration, keyTypes);
+            perWorkerScratchMaps = new ObjList<>(workerCount);
+            perWorkerChainCursors = new ObjList<>(workerCount);
+            for (int i = 0; i < workerCount; i++) {
+                perWorkerScratchMaps.add(MapFactory.createOrderedMap(configuration, keyTypes));
+                perWorkerChainCursors.add(new LongChain.DetachedCursor());
+            }
+            perWorkerLocks = new PerWorkerLocks(configuration, workerCount);
+            isOpen = true;
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    public int acquire(int workerId, boolean owner, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (workerId == -1 && owner) {
+            // Owner thread is free to use its own scratch map anytime.
+            return -1;
+        }
+        return perWorkerLocks.acquireSlot(workerId, circuitBreaker);
+    }
+
+    /**
+     * Adds row id of the given slave record to the chain of its join key.
+     */
+    public void build(int slotId, PageAddressCacheRecord record) {
+        final MapKey scratchKey = getScratchMap(slotId).withKey();
+        scratchKey.put(record, slaveKeySink);
+        scratchKey.commit();
+        final long hashCode = scratchKey.hash();
+        final int shardIndex = (int) (hashCode >>> shardCountShr);
+        final SimpleSpinLock lock = shardLocks.getQuick(shardIndex);
+        lock.lock();
+        try {
+            final LongChain chain = chains.getQuick(shardIndex);
+            final MapKey key = shardMaps.getQuick(shardIndex).withKey();
+            key.copyFrom(scratchKey);
+            final MapValue value = key.createValue(hashCode);
+            if (value.isNew()) {
+                final long offset = chain.put(record.getRowId(), -1);
+                value.putLong(0, offset);
+                value.putLong(1, offset);
+                value.putLong(2, 1);
+            } else {
+                value.putLong(1, chain.put(record.getRowId(), value.getLong(1)));
+                value.addLong(2, 1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (isOpen) {
+            Misc.freeObjListAndKeepObjects(shardMaps);
+            Misc.freeObjListAndKeepObjects(chains);
+            Misc.free(ownerScratchMap);
+            Misc.freeObjListAndKeepObjects(perWorkerScratchMaps);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            isOpen = false;
+            Misc.freeObjList(shardMaps);
+            Misc.freeObjList(chains);
+            Misc.free(ownerScratchMap);
+            Misc.freeObjList(perWorkerScratchMaps);
+        }
+    }
+
+    /**
+     * Positions the cursor at the chain of slave row ids matching the join key of the given
+     * master record. Takes no locks, so it must not be called before the build phase is over.
+     *
+     * @return number of matching slave rows
+     */
+    public long findChain(int slotId, Record record, LongChain.DetachedCursor chainCursor) {
+        final MapKey scratchKey = getScratchMap(slotId).withKey();
+        scratchKey.put(record, masterKeySink);
+        scratchKey.commit();
+        final long hashCode = scratchKey.hash();
+        final int shardIndex = (int) (hashCode >>> shardCountShr);
+        final long valueAddress = shardMaps.getQuick(shardIndex).findValueAddress(scratchKey, hashCode);
+        if (valueAddress == 0) {
+            chainCursor.toEnd();
+            return 0;
+        }
+        chainCursor.of(chains.getQuick(shardIndex), Unsafe.getUnsafe().getLong(valueAddress));
+        return Unsafe.getUnsafe().getLong(valueAddress + 2 * Long.BYTES);
+    }
+
+    public LongChain.DetachedCursor getChainCursor(int slotId) {
+        if (slotId == -1) {
+            return ownerChainCursor;
+        }
+        return perWorkerChainCursors.getQuick(slotId);
+    }
+
+    /**
+     * Maximum number of (master row index, slave row id) pairs a probe task may produce
+     * for a single master frame. The rest of the frame is probed lazily by the cursor.
+     */
+    public int getMaxFramePairs() {
+        return maxFramePairs;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) {
+        // called by both frame sequences, reopen is a no-op for already open maps
+        for (int i = 0; i < shardCount; i++) {
+            shardMaps.getQuick(i).reopen();
+            chains.getQuick(i).reopen();
+        }
+        ownerScratchMap.reopen();
+        for (int i = 0, n = perWorkerScratchMaps.size(); i < n; i++) {
+            perWorkerScratchMaps.getQuick(i).reopen();
+        }
+    }
+
+    public void release(int slotId) {
+        perWorkerLocks.releaseSlot(slotId);
+    }
+
+    private Map getScratchMap(int slotId) {
+        if (slotId == -1) {
+            return ownerScratchMap;
+        }
+        return perWorkerScratchMaps.getQuick(slotId);
+    }
+}
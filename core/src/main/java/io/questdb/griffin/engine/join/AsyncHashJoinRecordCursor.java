@@ -0,0 +1,380 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Os;
+import io.questdb.std.Rows;
+
+class AsyncHashJoinRecordCursor implements NoRandomAccessRecordCursor {
+    private static final Log LOG = LogFactory.getLog(AsyncHashJoinRecordCursor.class);
+    private final LongChain.DetachedCursor chainCursor = new LongChain.DetachedCursor();
+    private final int columnSplit;
+    private final boolean hasDescendingOrder;
+    private final PageAddressCacheRecord masterRecord;
+    private final JoinRecord record;
+    private final PageAddressCacheRecord slaveRecord;
+    private boolean allFramesActive;
+    private AsyncHashJoinAtom atom;
+    private long cursor = -1;
+    private int frameIndex;
+    private int frameLimit;
+    private long framePairCount;
+    private long framePairIndex;
+    private boolean isMapBuilt;
+    private boolean isOpen;
+    private PageFrameSequence<?> masterFrameSequence;
+    private DirectLongList rows;
+    private int slaveFrameLimit;
+    private PageFrameSequence<?> slaveFrameSequence;
+    // [streamRowLo, streamRowHi) master rows of the current frame left for the cursor to probe
+    private long streamRowHi;
+    private long streamRowLo;
+    private long streamedRowIndex;
+
+    public AsyncHashJoinRecordCursor(int columnSplit, int scanDirection) {
+        this.columnSplit = columnSplit;
+        this.hasDescendingOrder = scanDirection == RecordCursorFactory.SCAN_DIRECTION_BACKWARD;
+        masterRecord = new PageAddressCacheRecord();
+        slaveRecord = new PageAddressCacheRecord();
+        record = new JoinRecord(columnSplit);
+        record.of(masterRecord, slaveRecord);
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            isOpen = false;
+            LOG.debug()
+                    .$("closing [shard=").$(masterFrameSequence.getShard())
+                    .$(", frameIndex=").$(frameIndex)
+                    .$(", frameCount=").$(frameLimit)
+                    .$(", frameId=").$(masterFrameSequence.getId())
+                    .$(", cursor=").$(cursor)
+                    .I$();
+
+            collectCursor(true);
+            if (frameLimit > -1) {
+                masterFrameSequence.await();
+            }
+            masterFrameSequence.clear();
+
+            if (slaveFrameLimit > -1) {
+                slaveFrameSequence.await();
+            }
+            slaveFrameSequence.clear();
+        }
+    }
+
+    public void freeRecords() {
+        Misc.free(masterRecord);
+        Misc.free(slaveRecord);
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        if (columnIndex < columnSplit) {
+            return masterFrameSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+        }
+        return slaveFrameSequence.getSymbolTableSource().getSymbolTable(columnIndex - columnSplit);
+    }
+
+    @Override
+    public boolean hasNext() {
+        buildMapOfSlaveRecords();
+
+        // Check for the first hasNext call.
+        if (frameIndex == -1) {
+            fetchNextFrame();
+        }
+
+        // We have pairs in the current frame we still need to dispatch
+        if (nextFramePair()) {
+            return true;
+        }
+
+        // Release the previous queue item.
+        collectCursor(false);
+
+        // Do we have more frames?
+        if (frameIndex < frameLimit) {
+            fetchNextFrame();
+            if (nextFramePair()) {
+                return true;
+            }
+        }
+
+        if (!allFramesActive) {
+            throwTimeoutException(masterFrameSequence);
+        }
+        return false;
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        if (columnIndex < columnSplit) {
+            return masterFrameSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+        }
+        return slaveFrameSequence.getSymbolTableSource().newSymbolTable(columnIndex - columnSplit);
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public void toTop() {
+        collectCursor(false);
+        masterFrameSequence.toTop();
+        frameIndex = -1;
+        framePairCount = 0;
+        framePairIndex = 0;
+        resetStream();
+        allFramesActive = true;
+    }
+
+    private static void throwTimeoutException(PageFrameSequence<?> frameSequence) {
+        if (frameSequence.getCancelReason() == SqlExecutionCircuitBreaker.STATE_CANCELLED) {
+            throw CairoException.queryCancelled();
+        } else {
+            throw CairoException.queryTimedOut();
+        }
+    }
+
+    private void buildMapOfSlaveRecords() {
+        if (isMapBuilt) {
+            return;
+        }
+
+        if (slaveFrameLimit == -1) {
+            slaveFrameSequence.prepareForDispatch();
+            slaveFrameLimit = slaveFrameSequence.getFrameCount() - 1;
+        }
+
+        int slaveFrameIndex = -1;
+        boolean allSlaveFramesActive = true;
+        try {
+            do {
+                final long cursor = slaveFrameSequence.next();
+                if (cursor > -1) {
+                    PageFrameReduceTask task = slaveFrameSequence.getTask(cursor);
+                    LOG.debug()
+                            .$("collected [shard=").$(slaveFrameSequence.getShard())
+                            .$(", frameIndex=").$(task.getFrameIndex())
+                            .$(", frameCount=").$(slaveFrameSequence.getFrameCount())
+                            .$(", active=").$(slaveFrameSequence.isActive())
+                            .$(", cursor=").$(cursor)
+                            .I$();
+                    if (task.hasError()) {
+                        throw CairoException.nonCritical().put(task.getErrorMsg());
+                    }
+
+                    allSlaveFramesActive &= slaveFrameSequence.isActive();
+                    slaveFrameIndex = task.getFrameIndex();
+
+                    slaveFrameSequence.collect(cursor, false);
+                } else if (cursor == -2) {
+                    break; // No frames to build from.
+                } else {
+                    Os.pause();
+                }
+            } while (slaveFrameIndex < slaveFrameLimit);
+        } catch (Throwable e) {
+            LOG.error().$("hash join build error [ex=").$(e).I$();
+            if (e instanceof CairoException) {
+                CairoException ce = (CairoException) e;
+                if (ce.isInterruption()) {
+                    throwTimeoutException(slaveFrameSequence);
+                } else {
+                    throw ce;
+                }
+            }
+            throw CairoException.nonCritical().put(e.getMessage());
+        }
+
+        if (!allSlaveFramesActive) {
+            throwTimeoutException(slaveFrameSequence);
+        }
+        isMapBuilt = true;
+    }
+
+    private void collectCursor(boolean forceCollect) {
+        if (cursor > -1) {
+            masterFrameSequence.collect(cursor, forceCollect);
+            // It is necessary to clear 'cursor' value
+            // because we updated frameIndex and loop can exit due to lack of frames.
+            // Non-update of 'cursor' could cause double-free.
+            cursor = -1;
+        }
+    }
+
+    private void fetchNextFrame() {
+        if (frameLimit == -1) {
+            masterFrameSequence.prepareForDispatch();
+            frameLimit = masterFrameSequence.getFrameCount() - 1;
+        }
+
+        try {
+            do {
+                cursor = masterFrameSequence.next();
+                if (cursor > -1) {
+                    PageFrameReduceTask task = masterFrameSequence.getTask(cursor);
+                    LOG.debug()
+                            .$("collected [shard=").$(masterFrameSequence.getShard())
+                            .$(", frameIndex=").$(task.getFrameIndex())
+                            .$(", frameCount=").$(masterFrameSequence.getFrameCount())
+                            .$(", frameId=").$(masterFrameSequence.getId())
+                            .$(", active=").$(masterFrameSequence.isActive())
+                            .$(", cursor=").$(cursor)
+                            .I$();
+
+                    if (task.hasError()) {
+                        throw CairoException.nonCritical().put(task.getErrorMsg())
+                                .setCancellation(task.isCancelled()).setInterruption(task.isCancelled());
+                    }
+
+                    allFramesActive &= masterFrameSequence.isActive();
+                    rows = task.getFilteredRows();
+                    framePairCount = rows.size() / 2;
+                    frameIndex = task.getFrameIndex();
+                    framePairIndex = 0;
+                    resetStream();
+                    if ((rows.size() & 1) == 1) {
+                        // The probe task hit the pair limit, the rest of the frame is on us.
+                        streamRowLo = rows.get(rows.size() - 1);
+                        streamRowHi = task.getFrameRowCount();
+                    }
+                    if ((framePairCount > 0 || streamRowLo < streamRowHi) && masterFrameSequence.isActive()) {
+                        masterRecord.setFrameIndex(task.getFrameIndex());
+                        break;
+                    } else {
+                        // Force reset frame size if frameSequence was canceled or failed.
+                        framePairCount = 0;
+                        resetStream();
+                        collectCursor(false);
+                    }
+                } else if (cursor == -2) {
+                    break; // No frames to probe.
+                } else {
+                    Os.pause();
+                }
+            } while (frameIndex < frameLimit);
+        } catch (Throwable e) {
+            if (e instanceof CairoException) {
+                CairoException ce = (CairoException) e;
+                if (ce.isInterruption() || ce.isCancellation()) {
+                    LOG.error().$("hash join probe error [ex=").$(ce.getFlyweightMessage()).I$();
+                    throwTimeoutException(masterFrameSequence);
+                } else {
+                    LOG.error().$("hash join probe error [ex=").$(e).I$();
+                    throw ce;
+                }
+            }
+            LOG.error().$("hash join probe error [ex=").$(e).I$();
+            throw CairoException.nonCritical().put(e.getMessage());
+        }
+    }
+
+    private boolean nextFramePair() {
+        // Streamed rows follow the listed ones in the frame, so they go first in descending order.
+        if (hasDescendingOrder) {
+            return nextStreamedPair() || nextListedPair();
+        }
+        return nextListedPair() || nextStreamedPair();
+    }
+
+    private boolean nextListedPair() {
+        if (framePairIndex < framePairCount) {
+            nextPair();
+            return true;
+        }
+        return false;
+    }
+
+    private void nextPair() {
+        final long pairIndex = hasDescendingOrder ? (framePairCount - framePairIndex - 1) : framePairIndex;
+        masterRecord.setRowIndex(rows.get(2 * pairIndex));
+        setSlaveRowId(rows.get(2 * pairIndex + 1));
+        framePairIndex++;
+    }
+
+    private boolean nextStreamedPair() {
+        while (true) {
+            if (chainCursor.hasNext()) {
+                masterRecord.setRowIndex(streamedRowIndex);
+                setSlaveRowId(chainCursor.next());
+                return true;
+            }
+            if (streamRowLo >= streamRowHi) {
+                return false;
+            }
+            streamedRowIndex = hasDescendingOrder ? --streamRowHi : streamRowLo++;
+            masterRecord.setRowIndex(streamedRowIndex);
+            // the map is built at this point, so the owner's slot can be used for the lookup
+            atom.findChain(-1, masterRecord, chainCursor);
+        }
+    }
+
+    private void resetStream() {
+        streamRowLo = streamRowHi = 0;
+        chainCursor.toEnd();
+    }
+
+    private void setSlaveRowId(long slaveRowId) {
+        slaveRecord.setFrameIndex(Rows.toPartitionIndex(slaveRowId));
+        slaveRecord.setRowIndex(Rows.toLocalRowID(slaveRowId));
+    }
+
+    void of(PageFrameSequence<?> masterFrameSequence, PageFrameSequence<?> slaveFrameSequence, AsyncHashJoinAtom atom) {
+        isOpen = true;
+        this.atom = atom;
+        this.masterFrameSequence = masterFrameSequence;
+        this.slaveFrameSequence = slaveFrameSequence;
+        frameIndex = -1;
+        frameLimit = -1;
+        framePairCount = 0;
+        framePairIndex = 0;
+        slaveFrameLimit = -1;
+        resetStream();
+        isMapBuilt = false;
+        allFramesActive = true;
+        masterRecord.of(masterFrameSequence.getSymbolTableSource(), masterFrameSequence.getPageAddressCache());
+        slaveRecord.of(slaveFrameSequence.getSymbolTableSource(), slaveFrameSequence.getPageAddressCache());
+    }
+}
@@ -0,0 +1,215 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReduceTaskFactory;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.model.JoinContext;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Transient;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_DESC;
+
+/**
+ * Inner hash join of two page frame backed factories. Slave page frames are reduced into
+ * the sharded join key hash table held by {@link AsyncHashJoinAtom}, then master page frames
+ * are probed against it in parallel. Each probe task produces (master row index, slave row id)
+ * pairs, which the cursor returns in master frame order. The number of pairs per frame is capped
+ * by the page frame size; if a frame has more matches, the cursor probes the remaining master
+ * rows itself, streaming the matches instead of materializing them.
+ */
+public class AsyncHashJoinRecordCursorFactory extends AbstractJoinRecordCursorFactory {
+    private static final PageFrameReducer BUILD_REDUCER = AsyncHashJoinRecordCursorFactory::build;
+    private static final PageFrameReducer PROBE_REDUCER = AsyncHashJoinRecordCursorFactory::probe;
+    private final AsyncHashJoinRecordCursor cursor;
+    private final SCSequence masterCollectSubSeq = new SCSequence();
+    private final PageFrameSequence<AsyncHashJoinAtom> masterFrameSequence;
+    private final SCSequence slaveCollectSubSeq = new SCSequence();
+    private final PageFrameSequence<AsyncHashJoinAtom> slaveFrameSequence;
+    private final int workerCount;
+
+    public AsyncHashJoinRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull RecordMetadata metadata,
+            @NotNull RecordCursorFactory masterFactory,
+            @NotNull RecordCursorFactory slaveFactory,
+            @Transient @NotNull ColumnTypes joinColumnTypes,
+            @Transient @NotNull ColumnTypes valueTypes, // first/last chain offsets and row count
+            @NotNull RecordSink masterKeySink,
+            @NotNull RecordSink slaveKeySink,
+            int columnSplit,
+            @NotNull JoinContext joinContext,
+            @NotNull PageFrameReduceTaskFactory reduceTaskFactory,
+            int workerCount
+    ) {
+        super(metadata, joinContext, masterFactory, slaveFactory);
+        final AsyncHashJoinAtom atom = new AsyncHashJoinAtom(configuration, joinColumnTypes, valueTypes, masterKeySink, slaveKeySink, workerCount);
+        // both sequences share the atom, it tolerates repeated clear() and close() calls
+        this.slaveFrameSequence = new PageFrameSequence<>(configuration, messageBus, atom, BUILD_REDUCER, reduceTaskFactory, PageFrameReduceTask.TYPE_FILTER);
+        this.masterFrameSequence = new PageFrameSequence<>(configuration, messageBus, atom, PROBE_REDUCER, reduceTaskFactory, PageFrameReduceTask.TYPE_FILTER);
+        this.cursor = new AsyncHashJoinRecordCursor(columnSplit, masterFactory.getScanDirection());
+        this.workerCount = workerCount;
+    }
+
+    @Override
+    public boolean followedOrderByAdvice() {
+        return masterFactory.followedOrderByAdvice();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final PageFrameSequence<AsyncHashJoinAtom> slaveSequence = slaveFrameSequence.of(
+                slaveFactory,
+                executionContext,
+                slaveCollectSubSeq,
+                toOrder(slaveFactory)
+        );
+        final PageFrameSequence<AsyncHashJoinAtom> masterSequence;
+        try {
+            masterSequence = masterFrameSequence.of(masterFactory, executionContext, masterCollectSubSeq, toOrder(masterFactory));
+        } catch (Throwable th) {
+            slaveFrameSequence.clear();
+            throw th;
+        }
+        cursor.of(masterSequence, slaveSequence, masterSequence.getAtom());
+        return cursor;
+    }
+
+    @Override
+    public int getScanDirection() {
+        return masterFactory.getScanDirection();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsUpdateRowId(TableToken tableToken) {
+        return masterFactory.supportsUpdateRowId(tableToken);
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Async Hash Join");
+        sink.meta("workers").val(workerCount);
+        sink.attr("condition").val(joinContext);
+        sink.child(masterFactory);
+        sink.child("Hash", slaveFactory);
+    }
+
+    private static void build(
+            int workerId,
+            @NotNull PageAddressCacheRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final long frameRowCount = task.getFrameRowCount();
+        final AsyncHashJoinAtom atom = task.getFrameSequence(AsyncHashJoinAtom.class).getAtom();
+
+        final boolean owner = stealingFrameSequence != null && stealingFrameSequence == task.getFrameSequence();
+        final int slotId = atom.acquire(workerId, owner, circuitBreaker);
+        try {
+            for (long r = 0; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                atom.build(slotId, record);
+            }
+        } finally {
+            atom.release(slotId);
+        }
+    }
+
+    private static void probe(
+            int workerId,
+            @NotNull PageAddressCacheRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final DirectLongList rows = task.getFilteredRows();
+        final long frameRowCount = task.getFrameRowCount();
+        final AsyncHashJoinAtom atom = task.getFrameSequence(AsyncHashJoinAtom.class).getAtom();
+
+        rows.clear();
+
+        final boolean owner = stealingFrameSequence != null && stealingFrameSequence == task.getFrameSequence();
+        final int slotId = atom.acquire(workerId, owner, circuitBreaker);
+        try {
+            final LongChain.DetachedCursor chainCursor = atom.getChainCursor(slotId);
+            final long maxPairs = atom.getMaxFramePairs();
+            for (long r = 0; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                final long count = atom.findChain(slotId, record, chainCursor);
+                if (count > 0) {
+                    if (rows.size() / 2 + count > maxPairs) {
+                        // Odd list size tells the cursor to probe the rest of the frame, starting with this row.
+                        rows.add(r);
+                        break;
+                    }
+                    while (chainCursor.hasNext()) {
+                        rows.add(r);
+                        rows.add(chainCursor.next());
+                    }
+                }
+            }
+        } finally {
+            atom.release(slotId);
+        }
+    }
+
+    private static int toOrder(RecordCursorFactory factory) {
+        return factory.getScanDirection() == SCAN_DIRECTION_BACKWARD ? ORDER_DESC : ORDER_ASC;
+    }
+
+    @Override
+    protected void _close() {
+        ((JoinRecordMetadata) getMetadata()).close();
+        Misc.free(cursor);
+        cursor.freeRecords();
+        Misc.free(masterFrameSequence);
+        Misc.free(slaveFrameSequence);
+        masterFactory.close();
+        slaveFactory.close();
+    }
+}
@@ -71,6 +71,36 @@ public class LongChain implements Closeable, Mutable, Reopenable {
         //nothing to do here
     }
 
+    /**
+     * Cursor, which isn't bound to a particular chain. Unlike {@link TreeCursor}, it is owned
+     * by the caller, so multiple threads may iterate the same chain concurrently, each with
+     * its own cursor, as long as nothing is appended to the chain meanwhile.
+     */
+    public static class DetachedCursor {
+        private long nextOffset = -1;
+        private MemoryARW valueChain;
+
+        public boolean hasNext() {
+            return nextOffset != -1;
+        }
+
+        public long next() {
+            long next = valueChain.getLong(nextOffset);
+            long value = valueChain.getLong(nextOffset + 8);
+            this.nextOffset = next;
+            return value;
+        }
+
+        public void of(LongChain chain, long startOffset) {
+            this.valueChain = chain.valueChain;
+            this.nextOffset = startOffset;
+        }
+
+        public void toEnd() {
+            this.nextOffset = -1;
+        }
+    }
+
     public class TreeCursor {
         private long nextOffset;
 
@@ -0,0 +1,346 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ListColumnFilter;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.StatefulAtom;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.PerWorkerLocks;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Shared state of the parallel sort. Each page frame is sorted into a run of local row
+ * indexes by a worker thread. When the first sort key is a fixed-width integer column,
+ * rows are radix sorted by the key prefix first and only the ranges of equal prefixes
+ * are sorted further with the compiled comparator, provided there are more sort keys.
+ * <p>
+ * Comparators and records are single-threaded, so every worker slot owns an instance
+ * of them along with the scratch memory used by the radix and merge sorts.
+ */
+public class AsyncSortAtom implements StatefulAtom {
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    private final boolean hasMoreKeys;
+    private final RecordComparator ownerComparator;
+    private final PageAddressCacheRecord ownerRecordB = new PageAddressCacheRecord();
+    private final DirectLongList ownerScratch;
+    private final ObjList<RecordComparator> perWorkerComparators;
+    private final PerWorkerLocks perWorkerLocks;
+    private final ObjList<PageAddressCacheRecord> perWorkerRecordsB;
+    private final ObjList<DirectLongList> perWorkerScratches;
+    private final int prefixColumnIndex;
+    private final int prefixColumnType;
+    private final boolean prefixDescending;
+
+    public AsyncSortAtom(
+            @NotNull CairoConfiguration configuration,
+            @NotNull RecordMetadata metadata,
+            @NotNull ListColumnFilter sortColumnFilter,
+            @NotNull ObjList<RecordComparator> comparators, // one per worker plus one for the owner
+            int workerCount
+    ) {
+        assert comparators.size() == workerCount + 1;
+        final int firstKey = sortColumnFilter.getQuick(0);
+        final int firstKeyIndex = (firstKey > 0 ? firstKey : -firstKey) - 1;
+        if (isPrefixType(metadata.getColumnType(firstKeyIndex))) {
+            prefixColumnIndex = firstKeyIndex;
+            prefixColumnType = ColumnType.tagOf(metadata.getColumnType(firstKeyIndex));
+            prefixDescending = firstKey < 0;
+        } else {
+            prefixColumnIndex = -1;
+            prefixColumnType = ColumnType.UNDEFINED;
+            prefixDescending = false;
+        }
+        hasMoreKeys = prefixColumnIndex == -1 || sortColumnFilter.size() > 1;
+
+        final long initialCapacity = configuration.getSqlSortLightValuePageSize() / Long.BYTES;
+        ownerComparator = comparators.getQuick(workerCount);
+        ownerScratch = new DirectLongList(initialCapacity, MemoryTag.NATIVE_DEFAULT);
+        perWorkerComparators = new ObjList<>(workerCount);
+        perWorkerRecordsB = new ObjList<>(workerCount);
+        perWorkerScratches = new ObjList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            perWorkerComparators.add(comparators.getQuick(i));
+            perWorkerRecordsB.add(new PageAddressCacheRecord());
+            perWorkerScratches.add(new DirectLongList(initialCapacity, MemoryTag.NATIVE_DEFAULT));
+        }
+        perWorkerLocks = new PerWorkerLocks(configuration, workerCount);
+    }
+
+    /**
+     * Returns true when sort keys can be compared by worker threads concurrently.
+     * Symbol tables are shared between workers, so symbol keys are not supported.
+     */
+    public static boolean isSupported(RecordMetadata metadata, ListColumnFilter sortColumnFilter) {
+        for (int i = 0, n = sortColumnFilter.size(); i < n; i++) {
+            final int key = sortColumnFilter.getQuick(i);
+            final int columnIndex = (key > 0 ? key : -key) - 1;
+            if (ColumnType.isSymbol(metadata.getColumnType(columnIndex))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int acquire(int workerId, boolean owner, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (workerId == -1 && owner) {
+            // Owner thread is free to use its own comparator anytime.
+            return -1;
+        }
+        return perWorkerLocks.acquireSlot(workerId, circuitBreaker);
+    }
+
+    @Override
+    public void clear() {
+        ownerScratch.resetCapacity();
+        for (int i = 0, n = perWorkerScratches.size(); i < n; i++) {
+            perWorkerScratches.getQuick(i).resetCapacity();
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.free(ownerScratch);
+        Misc.freeObjList(perWorkerScratches);
+        Misc.free(ownerRecordB);
+        Misc.freeObjList(perWorkerRecordsB);
+    }
+
+    /**
+     * Comparator of the owner thread, used to merge sorted runs once all frames are reduced.
+     */
+    public RecordComparator getOwnerComparator() {
+        return ownerComparator;
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) {
+        ownerScratch.reopen();
+        for (int i = 0, n = perWorkerScratches.size(); i < n; i++) {
+            perWorkerScratches.getQuick(i).reopen();
+        }
+    }
+
+    public void release(int slotId) {
+        perWorkerLocks.releaseSlot(slotId);
+    }
+
+    /**
+     * Sorts rows of the task's page frame. Sorted local row indexes are left in the
+     * task's filtered rows list.
+     */
+    public void sortFrame(int slotId, PageAddressCacheRecord record, PageFrameReduceTask task) {
+        final DirectLongList rows = task.getFilteredRows();
+        final long frameRowCount = task.getFrameRowCount();
+        rows.clear();
+        if (frameRowCount == 0) {
+            return;
+        }
+
+        final RecordComparator comparator = slotId == -1 ? ownerComparator : perWorkerComparators.getQuick(slotId);
+        final PageAddressCacheRecord recordB = slotId == -1 ? ownerRecordB : perWorkerRecordsB.getQuick(slotId);
+        final DirectLongList scratch = slotId == -1 ? ownerScratch : perWorkerScratches.getQuick(slotId);
+        final PageFrameSequence<?> frameSequence = task.getFrameSequence();
+        recordB.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+        recordB.setFrameIndex(task.getFrameIndex());
+        ensureCapacity(rows, 2 * frameRowCount);
+        ensureCapacity(scratch, 2 * frameRowCount);
+
+        if (prefixColumnIndex == -1) {
+            for (long r = 0; r < frameRowCount; r++) {
+                rows.add(r);
+            }
+            sort(rows.getAddress(), 0, frameRowCount, scratch.getAddress(), comparator, record, recordB);
+            return;
+        }
+
+        // (key prefix, row index) pairs
+        for (long r = 0; r < frameRowCount; r++) {
+            record.setRowIndex(r);
+            rows.add(prefixOf(record));
+            rows.add(r);
+        }
+        final long address = rows.getAddress();
+        Vect.radixSortLongIndexAscInPlace(address, frameRowCount, scratch.getAddress());
+
+        // Compact pairs into row indexes. Index i is written to slot i, which never
+        // overlaps pairs that are yet to be read, and sorted ranges precede slot i.
+        long lo = 0;
+        long prefix = Unsafe.getUnsafe().getLong(address);
+        for (long i = 0; i < frameRowCount; i++) {
+            final long p = Unsafe.getUnsafe().getLong(address + 16 * i);
+            final long r = Unsafe.getUnsafe().getLong(address + 16 * i + 8);
+            if (p != prefix) {
+                if (hasMoreKeys && i - lo > 1) {
+                    sort(address, lo, i, scratch.getAddress(), comparator, record, recordB);
+                }
+                lo = i;
+                prefix = p;
+            }
+            Unsafe.getUnsafe().putLong(address + 8 * i, r);
+        }
+        if (hasMoreKeys && frameRowCount - lo > 1) {
+            sort(address, lo, frameRowCount, scratch.getAddress(), comparator, record, recordB);
+        }
+        rows.setPos(frameRowCount);
+    }
+
+    private static int compare(
+            RecordComparator comparator,
+            PageAddressCacheRecord recordA,
+            long rowA,
+            PageAddressCacheRecord recordB,
+            long rowB
+    ) {
+        recordA.setRowIndex(rowA);
+        comparator.setLeft(recordA);
+        recordB.setRowIndex(rowB);
+        return comparator.compare(recordB);
+    }
+
+    private static void ensureCapacity(DirectLongList list, long capacity) {
+        if (list.getCapacity() < capacity) {
+            list.setCapacity(capacity);
+        }
+    }
+
+    private static boolean isPrefixType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Stable merge sort of row indexes in [lo, hi) range of the given memory.
+     */
+    private static void sort(
+            long address,
+            long lo,
+            long hi,
+            long tmpAddress,
+            RecordComparator comparator,
+            PageAddressCacheRecord recordA,
+            PageAddressCacheRecord recordB
+    ) {
+        if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+            for (long i = lo + 1; i < hi; i++) {
+                final long row = Unsafe.getUnsafe().getLong(address + 8 * i);
+                recordA.setRowIndex(row);
+                comparator.setLeft(recordA);
+                long j = i - 1;
+                while (j >= lo) {
+                    final long other = Unsafe.getUnsafe().getLong(address + 8 * j);
+                    recordB.setRowIndex(other);
+                    if (comparator.compare(recordB) >= 0) {
+                        break;
+                    }
+                    Unsafe.getUnsafe().putLong(address + 8 * (j + 1), other);
+                    j--;
+                }
+                Unsafe.getUnsafe().putLong(address + 8 * (j + 1), row);
+            }
+            return;
+        }
+
+        final long mid = (lo + hi) >>> 1;
+        sort(address, lo, mid, tmpAddress, comparator, recordA, recordB);
+        sort(address, mid, hi, tmpAddress, comparator, recordA, recordB);
+        final long leftLast = Unsafe.getUnsafe().getLong(address + 8 * (mid - 1));
+        final long rightFirst = Unsafe.getUnsafe().getLong(address + 8 * mid);
+        if (compare(comparator, recordA, leftLast, recordB, rightFirst) <= 0) {
+            // halves are already in order
+            return;
+        }
+
+        Vect.memcpy(tmpAddress, address + 8 * lo, 8 * (mid - lo));
+        long i = 0;
+        final long leftCount = mid - lo;
+        long j = mid;
+        long k = lo;
+        while (i < leftCount && j < hi) {
+            final long left = Unsafe.getUnsafe().getLong(tmpAddress + 8 * i);
+            final long right = Unsafe.getUnsafe().getLong(address + 8 * j);
+            // take the right row only when it is strictly less, this keeps the sort stable
+            if (compare(comparator, recordA, right, recordB, left) < 0) {
+                Unsafe.getUnsafe().putLong(address + 8 * k++, right);
+                j++;
+            } else {
+                Unsafe.getUnsafe().putLong(address + 8 * k++, left);
+                i++;
+            }
+        }
+        if (i < leftCount) {
+            Vect.memcpy(address + 8 * k, tmpAddress + 8 * i, 8 * (leftCount - i));
+        }
+    }
+
+    private long prefixOf(PageAddressCacheRecord record) {
+        final long value;
+        switch (prefixColumnType) {
+            case ColumnType.BYTE:
+                value = record.getByte(prefixColumnIndex);
+                break;
+            case ColumnType.SHORT:
+                value = record.getShort(prefixColumnIndex);
+                break;
+            case ColumnType.INT:
+                value = record.getInt(prefixColumnIndex);
+                break;
+            case ColumnType.DATE:
+                value = record.getDate(prefixColumnIndex);
+                break;
+            case ColumnType.TIMESTAMP:
+                value = record.getTimestamp(prefixColumnIndex);
+                break;
+            default:
+                value = record.getLong(prefixColumnIndex);
+                break;
+        }
+        // flip the sign bit for unsigned radix order, flip the rest for descending order
+        return prefixDescending ? value ^ Long.MAX_VALUE : value ^ Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,334 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.SpillFile;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Collects sorted runs, one per page frame, and k-way merges them with a binary heap
+ * of run heads. Runs hold row ids, so the cursor supports random access. Once the runs
+ * exceed the spill threshold, they are moved to a spill file and further runs are
+ * appended there.
+ */
+class AsyncSortRecordCursor implements RecordCursor {
+    private static final Log LOG = LogFactory.getLog(AsyncSortRecordCursor.class);
+    private final IntList heap = new IntList();
+    private final PageAddressCacheRecord mergeRecordA = new PageAddressCacheRecord();
+    private final PageAddressCacheRecord mergeRecordB = new PageAddressCacheRecord();
+    private final PageAddressCacheRecord record = new PageAddressCacheRecord();
+    private final PageAddressCacheRecord recordB = new PageAddressCacheRecord();
+    private final LongList runLimits = new LongList();
+    private final LongList runPositions = new LongList();
+    private final DirectLongList runRows;
+    private final SpillFile spillFile;
+    private final long spillThreshold;
+    private boolean allFramesActive;
+    private SqlExecutionCircuitBreaker circuitBreaker;
+    private RecordComparator comparator;
+    private int frameLimit;
+    private PageFrameSequence<AsyncSortAtom> frameSequence;
+    private int heapSize;
+    private boolean isOpen;
+    private boolean isSorted;
+    private long rowCount;
+    private long rowsAddress;
+    private MemoryCMARW spillMem;
+
+    public AsyncSortRecordCursor(long initialCapacity, @Nullable SpillFile spillFile, long spillThreshold) {
+        this.runRows = new DirectLongList(initialCapacity, MemoryTag.NATIVE_DEFAULT);
+        this.spillFile = spillFile;
+        this.spillThreshold = spillThreshold;
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            isOpen = false;
+            if (frameLimit > -1) {
+                frameSequence.await();
+            }
+            frameSequence.clear();
+            runRows.close();
+            Misc.free(spillFile);
+            spillMem = null;
+        }
+    }
+
+    public void freeRecords() {
+        Misc.free(record);
+        Misc.free(recordB);
+        Misc.free(mergeRecordA);
+        Misc.free(mergeRecordB);
+        Misc.free(runRows);
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return recordB;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return frameSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!isSorted) {
+            collectRuns();
+            isSorted = true;
+            toTop();
+        }
+
+        if (heapSize == 0) {
+            return false;
+        }
+
+        final int run = heap.getQuick(0);
+        final long position = runPositions.getQuick(run);
+        final long rowId = getRowId(position);
+        record.setFrameIndex(Rows.toPartitionIndex(rowId));
+        record.setRowIndex(Rows.toLocalRowID(rowId));
+
+        if (position + 1 < runLimits.getQuick(run)) {
+            runPositions.setQuick(run, position + 1);
+        } else {
+            heap.setQuick(0, heap.getQuick(--heapSize));
+        }
+        siftDown(0);
+        return true;
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        return frameSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        final PageAddressCacheRecord frameRecord = (PageAddressCacheRecord) record;
+        frameRecord.setFrameIndex(Rows.toPartitionIndex(atRowId));
+        frameRecord.setRowIndex(Rows.toLocalRowID(atRowId));
+    }
+
+    @Override
+    public long size() {
+        return isSorted ? rowCount : -1;
+    }
+
+    @Override
+    public void toTop() {
+        if (!isSorted) {
+            return;
+        }
+        heap.clear();
+        heapSize = 0;
+        for (int i = 0, n = runLimits.size(); i < n; i++) {
+            runPositions.setQuick(i, i == 0 ? 0 : runLimits.getQuick(i - 1));
+            heap.add(i);
+            heapSize++;
+        }
+        // heapify
+        for (int i = heapSize / 2 - 1; i > -1; i--) {
+            siftDown(i);
+        }
+    }
+
+    private static void throwTimeoutException(PageFrameSequence<?> frameSequence) {
+        if (frameSequence.getCancelReason() == SqlExecutionCircuitBreaker.STATE_CANCELLED) {
+            throw CairoException.queryCancelled();
+        } else {
+            throw CairoException.queryTimedOut();
+        }
+    }
+
+    private void appendRun(int frameIndex, DirectLongList rows) {
+        for (long i = 0, n = rows.size(); i < n; i++) {
+            final long rowId = Rows.toRowID(frameIndex, rows.get(i));
+            if (spillMem != null) {
+                spillMem.putLong(rowId);
+            } else {
+                runRows.add(rowId);
+            }
+        }
+        rowCount += rows.size();
+        runLimits.add(rowCount);
+        runPositions.add(0);
+
+        if (spillFile != null && spillMem == null && rowCount * Long.BYTES > spillThreshold) {
+            spill();
+        }
+    }
+
+    private void collectRuns() {
+        if (frameLimit == -1) {
+            frameSequence.prepareForDispatch();
+            frameLimit = frameSequence.getFrameCount() - 1;
+        }
+
+        int frameIndex = -1;
+        try {
+            do {
+                final long cursor = frameSequence.next();
+                if (cursor > -1) {
+                    PageFrameReduceTask task = frameSequence.getTask(cursor);
+                    LOG.debug()
+                            .$("collected [shard=").$(frameSequence.getShard())
+                            .$(", frameIndex=").$(task.getFrameIndex())
+                            .$(", frameCount=").$(frameSequence.getFrameCount())
+                            .$(", frameId=").$(frameSequence.getId())
+                            .$(", active=").$(frameSequence.isActive())
+                            .$(", cursor=").$(cursor)
+                            .I$();
+                    if (task.hasError()) {
+                        throw CairoException.nonCritical().put(task.getErrorMsg())
+                                .setCancellation(task.isCancelled()).setInterruption(task.isCancelled());
+                    }
+
+                    allFramesActive &= frameSequence.isActive();
+                    frameIndex = task.getFrameIndex();
+                    final DirectLongList rows = task.getFilteredRows();
+                    if (rows.size() > 0 && frameSequence.isActive()) {
+                        appendRun(frameIndex, rows);
+                    }
+                    frameSequence.collect(cursor, false);
+                } else if (cursor == -2) {
+                    break; // No frames to sort.
+                } else {
+                    Os.pause();
+                }
+                circuitBreaker.statefulThrowExceptionIfTripped();
+            } while (frameIndex < frameLimit);
+        } catch (Throwable e) {
+            if (e instanceof CairoException) {
+                CairoException ce = (CairoException) e;
+                if (ce.isInterruption() || ce.isCancellation()) {
+                    LOG.error().$("sort error [ex=").$(ce.getFlyweightMessage()).I$();
+                    throwTimeoutException(frameSequence);
+                } else {
+                    LOG.error().$("sort error [ex=").$(e).I$();
+                    throw ce;
+                }
+            }
+            LOG.error().$("sort error [ex=").$(e).I$();
+            throw CairoException.nonCritical().put(e.getMessage());
+        }
+
+        if (!allFramesActive) {
+            throwTimeoutException(frameSequence);
+        }
+        // spill memory may be remapped on append, so take the address once runs are complete
+        rowsAddress = spillMem != null ? spillMem.addressOf(0) : runRows.getAddress();
+    }
+
+    private long getRowId(long position) {
+        return Unsafe.getUnsafe().getLong(rowsAddress + position * Long.BYTES);
+    }
+
+    /**
+     * Returns true when head row of run a goes before head row of run b. Equal rows
+     * are ordered by run index, i.e. in the page frame order, same as in serial sort.
+     */
+    private boolean less(int a, int b) {
+        final long rowIdA = getRowId(runPositions.getQuick(a));
+        final long rowIdB = getRowId(runPositions.getQuick(b));
+        mergeRecordA.setFrameIndex(Rows.toPartitionIndex(rowIdA));
+        mergeRecordA.setRowIndex(Rows.toLocalRowID(rowIdA));
+        mergeRecordB.setFrameIndex(Rows.toPartitionIndex(rowIdB));
+        mergeRecordB.setRowIndex(Rows.toLocalRowID(rowIdB));
+        comparator.setLeft(mergeRecordA);
+        final int cmp = comparator.compare(mergeRecordB);
+        return cmp < 0 || (cmp == 0 && a < b);
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            final int left = 2 * i + 1;
+            if (left >= heapSize) {
+                return;
+            }
+            final int right = left + 1;
+            int smallest = left;
+            if (right < heapSize && less(heap.getQuick(right), heap.getQuick(left))) {
+                smallest = right;
+            }
+            if (!less(heap.getQuick(smallest), heap.getQuick(i))) {
+                return;
+            }
+            final int tmp = heap.getQuick(i);
+            heap.setQuick(i, heap.getQuick(smallest));
+            heap.setQuick(smallest, tmp);
+            i = smallest;
+        }
+    }
+
+    private void spill() {
+        final long size = rowCount * Long.BYTES;
+        spillMem = spillFile.open();
+        Vect.memcpy(spillMem.appendAddressFor(0, size), runRows.getAddress(), size);
+        spillMem.jumpTo(size);
+        // release native memory, the list is reopened for the next query
+        runRows.close();
+    }
+
+    void of(PageFrameSequence<AsyncSortAtom> frameSequence, SqlExecutionContext executionContext) {
+        isOpen = true;
+        this.frameSequence = frameSequence;
+        this.comparator = frameSequence.getAtom().getOwnerComparator();
+        this.circuitBreaker = executionContext.getCircuitBreaker();
+        frameLimit = -1;
+        allFramesActive = true;
+        isSorted = false;
+        rowCount = 0;
+        heapSize = 0;
+        heap.clear();
+        runLimits.clear();
+        runPositions.clear();
+        runRows.reopen();
+        runRows.clear();
+        spillMem = null;
+        record.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+        recordB.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+        mergeRecordA.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+        mergeRecordB.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+    }
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ListColumnFilter;
+import io.questdb.cairo.SpillFile;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReduceTaskFactory;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_DESC;
+
+/**
+ * External merge sort over page frames. Workers sort every page frame into a run,
+ * see {@link AsyncSortAtom}, and the cursor k-way merges the runs. Runs hold row ids
+ * only, they are moved to a spill file when they exceed the spill threshold.
+ */
+public class AsyncSortRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final PageFrameReducer REDUCER = AsyncSortRecordCursorFactory::sort;
+    private final RecordCursorFactory base;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final AsyncSortRecordCursor cursor;
+    private final PageFrameSequence<AsyncSortAtom> frameSequence;
+    private final ListColumnFilter sortColumnFilter;
+    private final int workerCount;
+
+    public AsyncSortRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull RecordMetadata metadata,
+            @NotNull RecordCursorFactory base,
+            @NotNull ObjList<RecordComparator> comparators,
+            @NotNull ListColumnFilter sortColumnFilter,
+            @NotNull PageFrameReduceTaskFactory reduceTaskFactory,
+            int workerCount
+    ) {
+        super(metadata);
+        this.base = base;
+        final AsyncSortAtom atom = new AsyncSortAtom(configuration, base.getMetadata(), sortColumnFilter, comparators, workerCount);
+        this.frameSequence = new PageFrameSequence<>(configuration, messageBus, atom, REDUCER, reduceTaskFactory, PageFrameReduceTask.TYPE_FILTER);
+        this.cursor = new AsyncSortRecordCursor(
+                configuration.getSqlSortLightValuePageSize() / Long.BYTES,
+                configuration.isSqlSpillEnabled() ? new SpillFile(configuration) : null,
+                configuration.getSqlSpillThreshold()
+        );
+        this.sortColumnFilter = sortColumnFilter;
+        this.workerCount = workerCount;
+    }
+
+    @Override
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final int order = base.getScanDirection() == SCAN_DIRECTION_BACKWARD ? ORDER_DESC : ORDER_ASC;
+        cursor.of(frameSequence.of(base, executionContext, collectSubSeq, order), executionContext);
+        return cursor;
+    }
+
+    @Override
+    public int getScanDirection() {
+        return SortedRecordCursorFactory.getScanDirection(sortColumnFilter);
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Async Sort");
+        sink.meta("workers").val(workerCount);
+        SortedLightRecordCursorFactory.addSortKeys(sink, sortColumnFilter);
+        sink.child(base);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    @Override
+    public boolean usesIndex() {
+        return base.usesIndex();
+    }
+
+    private static void sort(
+            int workerId,
+            @NotNull PageAddressCacheRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final AsyncSortAtom atom = task.getFrameSequence(AsyncSortAtom.class).getAtom();
+        final boolean owner = stealingFrameSequence != null && stealingFrameSequence == task.getFrameSequence();
+        final int slotId = atom.acquire(workerId, owner, circuitBreaker);
+        try {
+            atom.sortFrame(slotId, record, task);
+        } finally {
+            atom.release(slotId);
+        }
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(cursor);
+        cursor.freeRecords();
+        Misc.free(frameSequence);
+        base.close();
+    }
+}
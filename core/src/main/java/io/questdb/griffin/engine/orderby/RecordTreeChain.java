@@ -28,6 +28,7 @@ import io.questdb.cairo.ColumnTypes;
 import io.questdb.cairo.RecordChain;
 import io.questdb.cairo.RecordSink;
 import io.questdb.cairo.Reopenable;
+import io.questdb.cairo.SpillFile;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.SymbolTable;
@@ -92,6 +93,17 @@ public class RecordTreeChain implements Closeable, Mutable, Reopenable {
         return cursor;
     }
 
+    /**
+     * Returns size of the record data held in native memory. Tree nodes are not included.
+     */
+    public long getNativeDataSize() {
+        return recordChain.getNativeDataSize();
+    }
+
+    public boolean isSpilled() {
+        return recordChain.isSpilled();
+    }
+
     public void put(Record record) {
         if (root == -1) {
             putParent(record);
@@ -138,6 +150,14 @@ public class RecordTreeChain implements Closeable, Mutable, Reopenable {
         mem.reopen();
     }
 
+    /**
+     * Moves record data to the spill file. The tree stays in memory and keeps referencing
+     * records by their offsets, which remain valid after the spill.
+     */
+    public void spill(SpillFile spillFile) {
+        recordChain.spill(spillFile);
+    }
+
     private static byte colorOf(long blockAddress) {
         return blockAddress == -1 ? BLACK : Unsafe.getUnsafe().getByte(blockAddress + O_COLOUR);
     }
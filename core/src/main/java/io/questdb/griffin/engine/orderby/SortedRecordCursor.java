@@ -26,19 +26,25 @@ package io.questdb.griffin.engine.orderby;
 
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
+import io.questdb.cairo.SpillFile;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.Misc;
+import org.jetbrains.annotations.Nullable;
 
 class SortedRecordCursor implements DelegatingRecordCursor {
     private final RecordTreeChain chain;
+    private final SpillFile spillFile;
+    private final long spillThreshold;
     private RecordCursor base;
     private RecordTreeChain.TreeCursor chainCursor;
     private SqlExecutionCircuitBreaker circuitBreaker;
     private boolean isChainBuilt;
     private boolean isOpen;
 
-    public SortedRecordCursor(RecordTreeChain chain) {
+    public SortedRecordCursor(RecordTreeChain chain, @Nullable SpillFile spillFile, long spillThreshold) {
         this.chain = chain;
+        this.spillFile = spillFile;
+        this.spillThreshold = spillThreshold;
         this.isOpen = true;
     }
 
@@ -48,6 +54,7 @@ class SortedRecordCursor implements DelegatingRecordCursor {
             isOpen = false;
             Misc.free(chainCursor); // this call also closes base
             Misc.free(chain);
+            Misc.free(spillFile);
             base = null;
         }
     }
@@ -118,6 +125,9 @@ class SortedRecordCursor implements DelegatingRecordCursor {
             // own record instance in case base cursor keeps
             // state in the record it returns.
             chain.put(record);
+            if (spillFile != null && !chain.isSpilled() && chain.getNativeDataSize() > spillThreshold) {
+                chain.spill(spillFile);
+            }
         }
         toTop();
     }
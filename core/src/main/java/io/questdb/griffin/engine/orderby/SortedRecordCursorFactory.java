@@ -28,6 +28,7 @@ import io.questdb.cairo.AbstractRecordCursorFactory;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ListColumnFilter;
 import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.SpillFile;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
@@ -62,7 +63,11 @@ public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
                 configuration.getSqlSortValueMaxPages()
         );
         this.base = base;
-        this.cursor = new SortedRecordCursor(chain);
+        this.cursor = new SortedRecordCursor(
+                chain,
+                configuration.isSqlSpillEnabled() ? new SpillFile(configuration) : null,
+                configuration.getSqlSpillThreshold()
+        );
         this.sortColumnFilter = sortColumnFilter;
     }
 
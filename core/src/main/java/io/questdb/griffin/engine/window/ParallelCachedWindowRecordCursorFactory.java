@@ -0,0 +1,445 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.window;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.MCSequence;
+import io.questdb.mp.MPSequence;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.std.*;
+import io.questdb.tasks.WindowShardTask;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Parallel flavour of {@link CachedWindowRecordCursorFactory} used when all window functions
+ * share the same PARTITION BY clause. Base rows are distributed between shards by the hash of
+ * the partition key, so that every window partition is contained in a single shard. Shards are
+ * then computed by the shared worker pool, the query thread steals shard tasks while it waits.
+ * <p>
+ * The cursor returns rows in the base cursor order. Row ids encode the shard index in the lowest
+ * byte and the offset in the shard's record chain in the remaining bits.
+ */
+public class ParallelCachedWindowRecordCursorFactory extends AbstractRecordCursorFactory {
+    // The first 8 bits of the partition key hash code determine the shard, hence 256 as the max number of shards.
+    public static final int MAX_SHARDS = 256;
+    private static final Log LOG = LogFactory.getLog(ParallelCachedWindowRecordCursorFactory.class);
+    private static final int SHARD_INDEX_BITS = 8;
+    private static final long SHARD_INDEX_MASK = (1 << SHARD_INDEX_BITS) - 1;
+    private final RecordCursorFactory base;
+    private final GenericRecordMetadata chainMetadata;
+    private final ParallelCachedWindowRecordCursor cursor;
+    private final ObjList<Function> partitionByFunctions;
+    private final int shardCountShr;
+    private final ObjList<WindowShard> shards;
+    private final ObjList<IntList> sortKeys;
+
+    public ParallelCachedWindowRecordCursorFactory(
+            CairoConfiguration configuration,
+            MessageBus messageBus,
+            RecordCursorFactory base,
+            GenericRecordMetadata metadata,
+            @NotNull GenericRecordMetadata chainMetadata,
+            @NotNull IntList columnIndexes,
+            @NotNull ObjList<IntList> sortKeys,
+            @NotNull ObjList<WindowShard> shards,
+            @NotNull ObjList<Function> partitionByFunctions,
+            @Transient @NotNull ColumnTypes partitionByTypes,
+            @NotNull RecordSink partitionBySink
+    ) {
+        super(metadata);
+        assert Numbers.isPow2(shards.size()) && shards.size() <= MAX_SHARDS;
+        this.base = base;
+        this.chainMetadata = chainMetadata;
+        this.sortKeys = sortKeys;
+        this.shards = shards;
+        this.shardCountShr = Long.numberOfLeadingZeros(shards.size()) + 1;
+        this.partitionByFunctions = partitionByFunctions;
+        this.cursor = new ParallelCachedWindowRecordCursor(
+                configuration,
+                messageBus,
+                columnIndexes,
+                MapFactory.createOrderedMap(configuration, partitionByTypes),
+                partitionBySink
+        );
+    }
+
+    @Override
+    public boolean followedOrderByAdvice() {
+        return base.followedOrderByAdvice();
+    }
+
+    @Override
+    public String getBaseColumnName(int idx) {
+        return chainMetadata.getColumnName(idx);
+    }
+
+    @Override
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final RecordCursor baseCursor = base.getCursor(executionContext);
+        try {
+            cursor.of(baseCursor, executionContext);
+            return cursor;
+        } catch (Throwable th) {
+            cursor.close();
+            throw th;
+        }
+    }
+
+    @Override
+    public int getScanDirection() {
+        return base.getScanDirection();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("CachedWindow");
+        sink.meta("shards").val(shards.size());
+
+        // all shards have the same functions, so the first one stands for the rest
+        final WindowShard shard = shards.getQuick(0);
+        final ObjList<ObjList<WindowFunction>> orderedFunctions = shard.getOrderedFunctions();
+        boolean oldVal = sink.getUseBaseMetadata();
+        try {
+            if (orderedFunctions.size() > 0) {
+                sink.attr("orderedFunctions");
+                sink.val("[");
+
+                sink.useBaseMetadata(true);
+
+                for (int i = 0, n = orderedFunctions.size(); i < n; i++) {
+                    if (i > 0) {
+                        sink.val(',');
+                    }
+                    sink.val('[');
+
+                    addSortKeys(sink, sortKeys.getQuick(i));
+
+                    sink.val("] => [");
+                    ObjList<WindowFunction> functions = orderedFunctions.getQuick(i);
+                    for (int j = 0, k = functions.size(); j < k; j++) {
+                        if (j > 0) {
+                            sink.val(',');
+                        }
+                        sink.val(functions.getQuick(j));
+                    }
+
+                    sink.val("]");
+                }
+                sink.val(']');
+            }
+
+            sink.optAttr("unorderedFunctions", shard.getUnorderedFunctions(), true);
+        } finally {
+            sink.useBaseMetadata(oldVal);
+        }
+
+        sink.child(base);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    @Override
+    public boolean usesIndex() {
+        return base.usesIndex();
+    }
+
+    private void addSortKeys(PlanSink sink, IntList list) {
+        for (int i = 0, n = list.size(); i < n; i++) {
+            int colIdx = list.get(i);
+            int col = (colIdx > 0 ? colIdx : -colIdx) - 1;
+            if (i > 0) {
+                sink.val(", ");
+            }
+            sink.val(chainMetadata.getColumnName(col));
+            if (colIdx < 0) {
+                sink.val(" ").val("desc");
+            }
+        }
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(base);
+        Misc.free(cursor);
+        Misc.freeObjList(shards);
+        Misc.freeObjList(partitionByFunctions);
+    }
+
+    private class ParallelCachedWindowRecordCursor implements RecordCursor {
+        private final IntList columnIndexes; // Used for symbol table lookups.
+        private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+        private final MessageBus messageBus;
+        private final Map partitionByMap;
+        private final VirtualRecord partitionByRecord;
+        private final RecordSink partitionBySink;
+        private final ShardRecord recordA;
+        private final ShardRecord recordB;
+        private final DirectLongList rowIds;
+        private final AtomicBooleanCircuitBreaker sharedCircuitBreaker = new AtomicBooleanCircuitBreaker();
+        private RecordCursor baseCursor;
+        private SqlExecutionCircuitBreaker circuitBreaker;
+        private boolean isOpen;
+        private boolean isShardsBuilt;
+        private long rowIndex;
+
+        private ParallelCachedWindowRecordCursor(
+                CairoConfiguration configuration,
+                MessageBus messageBus,
+                IntList columnIndexes,
+                Map partitionByMap,
+                RecordSink partitionBySink
+        ) {
+            this.messageBus = messageBus;
+            this.columnIndexes = columnIndexes;
+            this.partitionByMap = partitionByMap;
+            this.partitionBySink = partitionBySink;
+            this.partitionByRecord = new VirtualRecord(partitionByFunctions);
+            this.rowIds = new DirectLongList(configuration.getSqlWindowRowIdPageSize() / Long.BYTES, MemoryTag.NATIVE_RECORD_CHAIN);
+            this.recordA = new ShardRecord(true);
+            this.recordB = new ShardRecord(false);
+            this.isOpen = true;
+        }
+
+        @Override
+        public void calculateSize(SqlExecutionCircuitBreaker circuitBreaker, Counter counter) {
+            if (!isShardsBuilt) {
+                buildShards();
+            }
+            counter.add(rowIds.size() - rowIndex);
+            rowIndex = rowIds.size();
+        }
+
+        @Override
+        public void close() {
+            if (isOpen) {
+                Misc.free(baseCursor);
+                Misc.free(rowIds);
+                Misc.free(partitionByMap);
+                Misc.clearObjList(shards);
+                isOpen = false;
+            }
+        }
+
+        @Override
+        public Record getRecord() {
+            return recordA;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return recordB;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return baseCursor.getSymbolTable(columnIndexes.getQuick(columnIndex));
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!isShardsBuilt) {
+                buildShards();
+            }
+            if (rowIndex < rowIds.size()) {
+                recordA.setRowId(rowIds.get(rowIndex++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return baseCursor.newSymbolTable(columnIndexes.getQuick(columnIndex));
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            ((ShardRecord) record).setRowId(atRowId);
+        }
+
+        @Override
+        public long size() {
+            return isShardsBuilt ? rowIds.size() : -1;
+        }
+
+        @Override
+        public void toTop() {
+            rowIndex = 0;
+        }
+
+        private void buildShards() {
+            // step #1: distribute base rows between shards by partition key hash code
+            final Record record = baseCursor.getRecord();
+            partitionByRecord.of(record);
+            while (baseCursor.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                final MapKey key = partitionByMap.withKey();
+                key.put(partitionByRecord, partitionBySink);
+                key.commit();
+                final int shardIndex = (int) (key.hash() >>> shardCountShr);
+                final long offset = shards.getQuick(shardIndex).put(record);
+                rowIds.add((offset << SHARD_INDEX_BITS) | shardIndex);
+            }
+
+            // step #2: compute window functions shard by shard, in parallel
+            computeShards();
+            isShardsBuilt = true;
+        }
+
+        private void computeShards() {
+            sharedCircuitBreaker.reset();
+            doneLatch.reset();
+
+            final RingQueue<WindowShardTask> queue = messageBus.getWindowShardQueue();
+            final MPSequence pubSeq = messageBus.getWindowShardPubSeq();
+            final MCSequence subSeq = messageBus.getWindowShardSubSeq();
+
+            int queuedCount = 0;
+            int ownCount = 0;
+            int reclaimed = 0;
+
+            try {
+                for (int i = 0, n = shards.size(); i < n; i++) {
+                    final WindowShard shard = shards.getQuick(i);
+                    if (shard.getRowCount() == 0) {
+                        continue;
+                    }
+                    long cursor = pubSeq.next();
+                    if (cursor < 0) {
+                        circuitBreaker.statefulThrowExceptionIfTrippedNoThrottle();
+                        shard.run(sharedCircuitBreaker);
+                        ownCount++;
+                    } else {
+                        queue.get(cursor).of(sharedCircuitBreaker, doneLatch, shard);
+                        pubSeq.done(cursor);
+                        queuedCount++;
+                    }
+                }
+            } catch (Throwable th) {
+                sharedCircuitBreaker.cancel();
+                throw th;
+            } finally {
+                // Consume the queue while waiting for our tasks. The queue may also contain tasks of
+                // other queries, so the latch is what tells us that all of our shards are done.
+                while (!doneLatch.done(queuedCount)) {
+                    if (circuitBreaker.checkIfTripped()) {
+                        sharedCircuitBreaker.cancel();
+                    }
+
+                    long cursor = subSeq.next();
+                    if (cursor > -1) {
+                        WindowShardJob.run(queue.get(cursor), subSeq, cursor);
+                        reclaimed++;
+                    } else {
+                        Os.pause();
+                    }
+                }
+            }
+
+            // shard failures take precedence over the cancellation they caused
+            for (int i = 0, n = shards.size(); i < n; i++) {
+                shards.getQuick(i).throwIfFailed();
+            }
+            if (sharedCircuitBreaker.checkIfTripped()) {
+                circuitBreaker.statefulThrowExceptionIfTrippedNoThrottle();
+                throw CairoException.queryCancelled();
+            }
+
+            LOG.debug().$("window shards done [rows=").$(rowIds.size())
+                    .$(", ownCount=").$(ownCount)
+                    .$(", reclaimed=").$(reclaimed)
+                    .$(", queuedCount=").$(queuedCount).I$();
+        }
+
+        private void of(RecordCursor baseCursor, SqlExecutionContext executionContext) throws SqlException {
+            this.baseCursor = baseCursor;
+            if (!isOpen) {
+                rowIds.reopen();
+                partitionByMap.reopen();
+                isOpen = true;
+            }
+            rowIds.clear();
+            rowIndex = 0;
+            isShardsBuilt = false;
+            circuitBreaker = executionContext.getCircuitBreaker();
+            Function.init(partitionByFunctions, baseCursor, executionContext);
+            for (int i = 0, n = shards.size(); i < n; i++) {
+                shards.getQuick(i).of(baseCursor, executionContext);
+            }
+        }
+
+        private class ShardRecord extends DelegatingRecord {
+            private final ObjList<Record> shardRecords;
+            private long rowId;
+
+            private ShardRecord(boolean isRecordA) {
+                final int shardCount = shards.size();
+                this.shardRecords = new ObjList<>(shardCount);
+                for (int i = 0; i < shardCount; i++) {
+                    final WindowShard shard = shards.getQuick(i);
+                    shardRecords.add(isRecordA ? shard.getRecord() : shard.getRecordB());
+                }
+            }
+
+            @Override
+            public long getRowId() {
+                return rowId;
+            }
+
+            private void setRowId(long rowId) {
+                final int shardIndex = (int) (rowId & SHARD_INDEX_MASK);
+                final Record shardRecord = shardRecords.getQuick(shardIndex);
+                shards.getQuick(shardIndex).recordAt(shardRecord, rowId >>> SHARD_INDEX_BITS);
+                of(shardRecord);
+                this.rowId = rowId;
+            }
+        }
+    }
+}
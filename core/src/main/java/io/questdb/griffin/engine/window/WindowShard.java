@@ -0,0 +1,341 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.window;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.griffin.engine.orderby.LongTreeChain;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Rows of a single hash partition of the window function input along with own copies of
+ * the window functions, comparators and ordering trees. All rows of a PARTITION BY key land
+ * in the same shard and shards share no mutable state, so shards are computed concurrently.
+ * Window function results are written into the shard's record chain.
+ */
+public class WindowShard implements QuietCloseable, Mutable, Reopenable, SymbolTableSource {
+    private static final Log LOG = LogFactory.getLog(WindowShard.class);
+    private final ObjList<WindowFunction> allFunctions = new ObjList<>();
+    private final IntList columnIndexes;
+    private final ObjList<RecordComparator> comparators;
+    private final ObjList<ObjList<WindowFunction>> ordered2PassFunctions = new ObjList<>();
+    private final ObjList<ObjList<WindowFunction>> orderedFunctions;
+    private final int orderedGroupCount;
+    private final ObjList<LongTreeChain> orderedSources;
+    private final RecordChain recordChain;
+    private final IntList symbolColumns = new IntList();
+    private final ObjList<SymbolTable> symbolTables = new ObjList<>();
+    private final ObjList<WindowFunction> unordered2PassFunctions = new ObjList<>();
+    @Nullable
+    private final ObjList<WindowFunction> unorderedFunctions;
+    private RecordCursor baseCursor;
+    private volatile Throwable error;
+    private boolean isOpen;
+    private long lastOffset = -1;
+    private long rowCount;
+
+    public WindowShard(
+            CairoConfiguration configuration,
+            @Transient ColumnTypes chainTypes,
+            RecordSink recordSink,
+            @NotNull IntList columnIndexes,
+            ObjList<RecordComparator> comparators,
+            ObjList<ObjList<WindowFunction>> orderedFunctions,
+            @Nullable ObjList<WindowFunction> unorderedFunctions
+    ) {
+        this.columnIndexes = columnIndexes;
+        this.comparators = comparators;
+        this.orderedGroupCount = comparators.size();
+        assert orderedGroupCount == orderedFunctions.size();
+        this.orderedFunctions = orderedFunctions;
+        this.unorderedFunctions = unorderedFunctions;
+        this.recordChain = new RecordChain(
+                chainTypes,
+                recordSink,
+                configuration.getSqlWindowStorePageSize(),
+                configuration.getSqlWindowStoreMaxPages()
+        );
+        this.orderedSources = new ObjList<>(orderedGroupCount);
+        for (int i = 0; i < orderedGroupCount; i++) {
+            orderedSources.add(
+                    new LongTreeChain(
+                            configuration.getSqlWindowTreeKeyPageSize(),
+                            configuration.getSqlWindowTreeKeyMaxPages(),
+                            configuration.getSqlWindowRowIdPageSize(),
+                            configuration.getSqlWindowRowIdMaxPages()
+                    )
+            );
+        }
+
+        for (int i = 0; i < orderedGroupCount; i++) {
+            final ObjList<WindowFunction> functions = orderedFunctions.getQuick(i);
+            allFunctions.addAll(functions);
+            final ObjList<WindowFunction> twoPassFunctions = new ObjList<>();
+            for (int j = 0, k = functions.size(); j < k; j++) {
+                final WindowFunction function = functions.getQuick(j);
+                if (function.getPassCount() > WindowFunction.ONE_PASS) {
+                    twoPassFunctions.add(function);
+                }
+            }
+            ordered2PassFunctions.add(twoPassFunctions);
+        }
+        if (unorderedFunctions != null) {
+            allFunctions.addAll(unorderedFunctions);
+            for (int i = 0, n = unorderedFunctions.size(); i < n; i++) {
+                final WindowFunction function = unorderedFunctions.getQuick(i);
+                if (function.getPassCount() > WindowFunction.ONE_PASS) {
+                    unordered2PassFunctions.add(function);
+                }
+            }
+        }
+
+        // symbol columns get own symbol tables, so that shards can resolve symbols concurrently
+        for (int i = 0, n = chainTypes.getColumnCount(); i < n; i++) {
+            if (ColumnType.isSymbol(chainTypes.getColumnType(i))) {
+                symbolColumns.add(i);
+            }
+        }
+        this.isOpen = true;
+    }
+
+    /**
+     * Releases native memory held by the shard, the shard can be reused after {@link #reopen()}.
+     */
+    @Override
+    public void clear() {
+        if (isOpen) {
+            Misc.free(recordChain);
+            Misc.freeObjListAndKeepObjects(orderedSources);
+            for (int i = 0, n = allFunctions.size(); i < n; i++) {
+                allFunctions.getQuick(i).reset();
+            }
+            Misc.freeObjListIfCloseable(symbolTables);
+            symbolTables.clear();
+            baseCursor = null;
+            error = null;
+            isOpen = false;
+        }
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.freeObjList(allFunctions);
+    }
+
+    public ObjList<ObjList<WindowFunction>> getOrderedFunctions() {
+        return orderedFunctions;
+    }
+
+    public Record getRecord() {
+        return recordChain.getRecord();
+    }
+
+    public Record getRecordB() {
+        return recordChain.getRecordB();
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return symbolTables.getQuick(columnIndex);
+    }
+
+    public @Nullable ObjList<WindowFunction> getUnorderedFunctions() {
+        return unorderedFunctions;
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        return baseCursor.newSymbolTable(columnIndexes.getQuick(columnIndex));
+    }
+
+    /**
+     * Prepares the shard for the next cursor, must be called on the query thread.
+     */
+    public void of(RecordCursor baseCursor, SqlExecutionContext executionContext) throws SqlException {
+        reopen();
+        this.baseCursor = baseCursor;
+        for (int i = 0, n = symbolColumns.size(); i < n; i++) {
+            final int columnIndex = symbolColumns.getQuick(i);
+            symbolTables.extendAndSet(columnIndex, baseCursor.newSymbolTable(columnIndexes.getQuick(columnIndex)));
+        }
+        recordChain.setSymbolTableResolver(this);
+        Function.init(allFunctions, this, executionContext);
+        lastOffset = -1;
+        rowCount = 0;
+        error = null;
+    }
+
+    /**
+     * Appends base record to the shard, must be called on the query thread.
+     *
+     * @return offset of the record in the shard's record chain
+     */
+    public long put(Record record) {
+        lastOffset = recordChain.put(record, lastOffset);
+        rowCount++;
+        return lastOffset;
+    }
+
+    public void recordAt(Record record, long offset) {
+        recordChain.recordAt(record, offset);
+    }
+
+    @Override
+    public void reopen() {
+        if (!isOpen) {
+            recordChain.reopen();
+            for (int i = 0; i < orderedGroupCount; i++) {
+                orderedSources.getQuick(i).reopen();
+            }
+            for (int i = 0, n = allFunctions.size(); i < n; i++) {
+                if (allFunctions.getQuick(i) instanceof Reopenable) {
+                    ((Reopenable) allFunctions.getQuick(i)).reopen();
+                }
+            }
+            isOpen = true;
+        }
+    }
+
+    /**
+     * Computes window functions over the shard rows. Failures are kept and reported
+     * by {@link #throwIfFailed()} on the query thread.
+     */
+    public void run(AtomicBooleanCircuitBreaker circuitBreaker) {
+        try {
+            if (!circuitBreaker.checkIfTripped()) {
+                compute(circuitBreaker);
+            }
+        } catch (Throwable th) {
+            if (!(th instanceof CairoException) || !((CairoException) th).isCancellation()) {
+                LOG.error().$("window shard failed [ex=").$(th).I$();
+            }
+            error = th;
+            circuitBreaker.cancel();
+        }
+    }
+
+    public void throwIfFailed() {
+        final Throwable th = error;
+        if (th != null) {
+            error = null;
+            if (th instanceof RuntimeException) {
+                throw (RuntimeException) th;
+            }
+            if (th instanceof Error) {
+                throw (Error) th;
+            }
+            throw CairoException.nonCritical().put(th.getMessage());
+        }
+    }
+
+    private void compute(AtomicBooleanCircuitBreaker circuitBreaker) {
+        final Record chainRecord = recordChain.getRecord();
+        final Record chainRightRecord = recordChain.getRecordB();
+
+        // step #1: put row ids into the trees, which orders them as window functions need
+        if (orderedGroupCount > 0) {
+            recordChain.toTop();
+            while (recordChain.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                for (int i = 0; i < orderedGroupCount; i++) {
+                    orderedSources.getQuick(i).put(chainRecord, recordChain, chainRightRecord, comparators.getQuick(i));
+                }
+            }
+        }
+
+        // step #2: run pass1 for ordered and then unordered functions
+        for (int i = 0; i < orderedGroupCount; i++) {
+            final ObjList<WindowFunction> functions = orderedFunctions.getQuick(i);
+            final LongTreeChain.TreeCursor cursor = orderedSources.getQuick(i).getCursor();
+            final int functionCount = functions.size();
+            while (cursor.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                final long offset = cursor.next();
+                recordChain.recordAt(chainRecord, offset);
+                for (int j = 0; j < functionCount; j++) {
+                    functions.getQuick(j).pass1(chainRecord, offset, recordChain);
+                }
+            }
+        }
+        if (unorderedFunctions != null) {
+            for (int j = 0, n = unorderedFunctions.size(); j < n; j++) {
+                final WindowFunction function = unorderedFunctions.getQuick(j);
+                recordChain.toTop();
+                while (recordChain.hasNext()) {
+                    circuitBreaker.statefulThrowExceptionIfTripped();
+                    function.pass1(chainRecord, chainRecord.getRowId(), recordChain);
+                }
+            }
+        }
+
+        // step #3: run pass2 for functions that need it
+        for (int i = 0; i < orderedGroupCount; i++) {
+            final ObjList<WindowFunction> functions = ordered2PassFunctions.getQuick(i);
+            for (int j = 0, k = functions.size(); j < k; j++) {
+                functions.getQuick(j).preparePass2();
+            }
+        }
+        for (int j = 0, n = unordered2PassFunctions.size(); j < n; j++) {
+            unordered2PassFunctions.getQuick(j).preparePass2();
+        }
+        for (int i = 0; i < orderedGroupCount; i++) {
+            final ObjList<WindowFunction> functions = ordered2PassFunctions.getQuick(i);
+            final int functionCount = functions.size();
+            if (functionCount == 0) {
+                continue;
+            }
+            final LongTreeChain.TreeCursor cursor = orderedSources.getQuick(i).getCursor();
+            while (cursor.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                final long offset = cursor.next();
+                recordChain.recordAt(chainRecord, offset);
+                for (int j = 0; j < functionCount; j++) {
+                    functions.getQuick(j).pass2(chainRecord, offset, recordChain);
+                }
+            }
+        }
+        for (int j = 0, n = unordered2PassFunctions.size(); j < n; j++) {
+            final WindowFunction function = unordered2PassFunctions.getQuick(j);
+            recordChain.toTop();
+            while (recordChain.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                function.pass2(chainRecord, chainRecord.getRowId(), recordChain);
+            }
+        }
+    }
+}
@@ -38,6 +38,7 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
     private ExpressionNode fileName;
     private boolean header;
     private int partitionBy;
+    private CharSequence query; // holds query text of COPY ... TO export, null for imports
     private ExpressionNode target; // holds table name (new import) or import id (cancel model)
     private CharSequence timestampColumnName;
     private CharSequence timestampFormat;
@@ -54,6 +55,7 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         timestampFormat = null;
         timestampColumnName = null;
         partitionBy = -1;
+        query = null;
         delimiter = -1;
         atomicity = -1;
     }
@@ -79,9 +81,13 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return partitionBy;
     }
 
+    public CharSequence getQuery() {
+        return query;
+    }
+
     @Override
     public CharSequence getTableName() {
-        return target.token;
+        return target != null ? target.token : null;
     }
 
     public ExpressionNode getTarget() {
@@ -100,6 +106,10 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return cancel;
     }
 
+    public boolean isExport() {
+        return query != null;
+    }
+
     public boolean isHeader() {
         return header;
     }
@@ -128,6 +138,10 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         this.partitionBy = partitionBy;
     }
 
+    public void setQuery(CharSequence query) {
+        this.query = query;
+    }
+
     public void setTarget(ExpressionNode tableName) {
         this.target = tableName;
     }
@@ -27,6 +27,7 @@ package io.questdb.griffin.model;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.TableStructure;
+import io.questdb.cairo.mv.MatViewDefinition;
 import io.questdb.griffin.SqlException;
 import io.questdb.std.*;
 import io.questdb.std.str.CharSink;
@@ -46,6 +47,7 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
     private long batchSize = -1;
     private boolean ignoreIfExists = false;
     private ExpressionNode likeTableName;
+    private MatViewDefinition matViewDefinition;
     private int maxUncommittedRows;
     private ExpressionNode name;
     private long o3MaxLag;
@@ -97,6 +99,7 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         timestamp = null;
         partitionBy = null;
         likeTableName = null;
+        matViewDefinition = null;
         name = null;
         volumeAlias = null;
         columnBits.clear();
@@ -148,6 +151,10 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         return likeTableName;
     }
 
+    public MatViewDefinition getMatViewDefinition() {
+        return matViewDefinition;
+    }
+
     @Override
     public int getMaxUncommittedRows() {
         return maxUncommittedRows;
@@ -265,6 +272,10 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         this.likeTableName = tableName;
     }
 
+    public void setMatViewDefinition(MatViewDefinition matViewDefinition) {
+        this.matViewDefinition = matViewDefinition;
+    }
+
     public void setMaxUncommittedRows(int maxUncommittedRows) {
         this.maxUncommittedRows = maxUncommittedRows;
     }
@@ -310,17 +321,21 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
     @Override
     public void toSink(@NotNull CharSink<?> sink) {
         sink.putAscii("create");
-        if (!isAtomic()) {
-            sink.putAscii(" batch ");
-            sink.put(batchSize);
-            if (batchO3MaxLag != -1) {
-                sink.putAscii(" o3MaxLag ");
-                sink.put(batchO3MaxLag);
-            }
+        if (matViewDefinition != null) {
+            sink.putAscii(" materialized view ");
         } else {
-            sink.putAscii(" atomic");
+            if (!isAtomic()) {
+                sink.putAscii(" batch ");
+                sink.put(batchSize);
+                if (batchO3MaxLag != -1) {
+                    sink.putAscii(" o3MaxLag ");
+                    sink.put(batchO3MaxLag);
+                }
+            } else {
+                sink.putAscii(" atomic");
+            }
+            sink.putAscii(" table ");
         }
-        sink.putAscii(" table ");
         sink.put(getName().token);
         if (getQueryModel() != null) {
             sink.putAscii(" as (");
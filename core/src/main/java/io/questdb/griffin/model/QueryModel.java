@@ -101,6 +101,8 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
     private final LowerCaseCharSequenceObjHashMap<CharSequence> columnNameToAliasMap = new LowerCaseCharSequenceObjHashMap<>();
     private final IntHashSet dependencies = new IntHashSet();
     private final ObjList<ExpressionNode> expressionModels = new ObjList<>();
+    // fill values of "sample by" rewritten to "group by", applied on top of ordered group by output
+    private final ObjList<ExpressionNode> fillValues = new ObjList<>();
     private final ObjList<ExpressionNode> groupBy = new ObjList<>();
     private final ObjList<ExpressionNode> joinColumns = new ObjList<>(4);
     private final ObjList<QueryModel> joinModels = new ObjList<>();
@@ -139,6 +141,9 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
     private JoinContext context;
     private boolean distinct = false;
     private boolean explicitTimestamp;
+    // alias of the hidden first timestamp column that orders keys within a bucket of keyed fill
+    private CharSequence fillKeyOrder;
+    private ExpressionNode fillStride;
     //simple flag to mark when limit x,y in current model (part of query) is already taken care of by existing factories e.g. LimitedSizeSortedLightRecordCursorFactory
     //and doesn't need to be enforced by LimitRecordCursor. We need it to detect whether current factory implements limit from this or inner query .
     private boolean isLimitImplemented;
@@ -433,6 +438,9 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         explicitTimestamp = false;
         showKind = -1;
         sampleByOffset = ZERO_OFFSET;
+        fillKeyOrder = null;
+        fillStride = null;
+        fillValues.clear();
     }
 
     public void clearColumnMapStructs() {
@@ -642,6 +650,7 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
                 && Objects.equals(orderHash, that.orderHash)
                 && Objects.equals(joinColumns, that.joinColumns)
                 && Objects.equals(sampleByFill, that.sampleByFill)
+                && Objects.equals(fillValues, that.fillValues)
                 && Objects.equals(latestBy, that.latestBy)
                 && Objects.equals(orderByAdvice, that.orderByAdvice)
                 && Objects.equals(orderByDirectionAdvice, that.orderByDirectionAdvice)
@@ -663,6 +672,8 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
                 && Objects.equals(timestamp, that.timestamp)
                 && Objects.equals(sampleBy, that.sampleBy)
                 && Objects.equals(sampleByUnit, that.sampleByUnit)
+                && Objects.equals(fillKeyOrder, that.fillKeyOrder)
+                && Objects.equals(fillStride, that.fillStride)
                 && Objects.equals(context, that.context)
                 && Objects.equals(joinCriteria, that.joinCriteria)
                 && Objects.equals(orderedJoinModels, that.orderedJoinModels)
@@ -733,6 +744,18 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         return expressionModels;
     }
 
+    public CharSequence getFillKeyOrder() {
+        return fillKeyOrder;
+    }
+
+    public ExpressionNode getFillStride() {
+        return fillStride;
+    }
+
+    public ObjList<ExpressionNode> getFillValues() {
+        return fillValues;
+    }
+
     public ObjList<ExpressionNode> getGroupBy() {
         return groupBy;
     }
@@ -983,7 +1006,7 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
                 dependencies, orderedJoinModels1, orderedJoinModels2,
                 columnAliasIndexes, modelAliasIndexes, expressionModels,
                 parsedWhere, parsedWhereConstants,
-                orderHash, joinColumns, sampleByFill,
+                orderHash, joinColumns, sampleByFill, fillValues,
                 latestBy, orderByAdvice, orderByDirectionAdvice,
                 withClauseModel, updateSetColumns, updateTableColumnTypes,
                 updateTableColumnNames, sampleByTimezoneName, sampleByOffset,
@@ -991,7 +1014,7 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
                 postJoinWhereClause, outerJoinExpressionClause, constWhereClause, nestedModel,
                 tableNameExpr, metadataVersion, tableNameFunction,
                 alias, timestamp, sampleBy,
-                sampleByUnit, context, joinCriteria,
+                sampleByUnit, fillKeyOrder, fillStride, context, joinCriteria,
                 joinType, joinKeywordPosition, orderedJoinModels,
                 limitLo, limitHi, limitPosition,
                 limitAdviceLo, limitAdviceHi, isLimitImplemented,
@@ -1056,6 +1079,18 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         return isUpdateModel;
     }
 
+    public void moveFillFrom(QueryModel model) {
+        this.fillKeyOrder = model.fillKeyOrder;
+        this.fillStride = model.fillStride;
+        this.fillValues.clear();
+        this.fillValues.addAll(model.fillValues);
+
+        // clear the source
+        model.fillKeyOrder = null;
+        model.fillStride = null;
+        model.fillValues.clear();
+    }
+
     public void moveGroupByFrom(QueryModel model) {
         groupBy.addAll(model.groupBy);
         // clear the source
@@ -1180,6 +1215,14 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         this.explicitTimestamp = explicitTimestamp;
     }
 
+    public void setFillKeyOrder(CharSequence fillKeyOrder) {
+        this.fillKeyOrder = fillKeyOrder;
+    }
+
+    public void setFillStride(ExpressionNode fillStride) {
+        this.fillStride = fillStride;
+    }
+
     public void setIsUpdate(boolean isUpdate) {
         this.isUpdateModel = isUpdate;
     }
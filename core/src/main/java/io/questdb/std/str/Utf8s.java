@@ -580,6 +580,22 @@ public final class Utf8s {
         return -1;
     }
 
+    public static boolean isAscii(long lo, long hi) {
+        long p = lo;
+        // check 8 bytes at a time, any byte with the high bit set is not ASCII
+        for (; p + Long.BYTES <= hi; p += Long.BYTES) {
+            if ((Unsafe.getUnsafe().getLong(p) & 0x8080808080808080L) != 0) {
+                return false;
+            }
+        }
+        for (; p < hi; p++) {
+            if (Unsafe.getUnsafe().getByte(p) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static int lastIndexOfAscii(@NotNull Utf8Sequence seq, char asciiTerm) {
         for (int i = seq.size() - 1; i > -1; i--) {
             if (seq.byteAt(i) == asciiTerm) {
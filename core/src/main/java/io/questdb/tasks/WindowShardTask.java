@@ -0,0 +1,61 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.tasks;
+
+import io.questdb.cairo.sql.AtomicBooleanCircuitBreaker;
+import io.questdb.griffin.engine.window.WindowShard;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.Mutable;
+
+public class WindowShardTask implements Mutable {
+    private AtomicBooleanCircuitBreaker circuitBreaker;
+    private CountDownLatchSPI doneLatch;
+    private WindowShard shard;
+
+    @Override
+    public void clear() {
+        circuitBreaker = null;
+        doneLatch = null;
+        shard = null;
+    }
+
+    public AtomicBooleanCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public CountDownLatchSPI getDoneLatch() {
+        return doneLatch;
+    }
+
+    public WindowShard getShard() {
+        return shard;
+    }
+
+    public void of(AtomicBooleanCircuitBreaker circuitBreaker, CountDownLatchSPI doneLatch, WindowShard shard) {
+        this.circuitBreaker = circuitBreaker;
+        this.doneLatch = doneLatch;
+        this.shard = shard;
+    }
+}
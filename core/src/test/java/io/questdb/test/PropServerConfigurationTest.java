@@ -164,6 +164,7 @@ public class PropServerConfigurationTest {
         Assert.assertTrue(configuration.getCairoConfiguration().getDefaultSymbolCacheFlag());
         Assert.assertEquals(256, configuration.getCairoConfiguration().getDefaultSymbolCapacity());
         Assert.assertEquals(30, configuration.getCairoConfiguration().getFileOperationRetryCount());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSharedSymbolCacheEnabled());
         Assert.assertEquals(300000, configuration.getCairoConfiguration().getIdleCheckInterval());
         Assert.assertEquals(128, configuration.getCairoConfiguration().getInactiveReaderMaxOpenPartitions());
         Assert.assertEquals(120_000, configuration.getCairoConfiguration().getInactiveReaderTTL());
@@ -188,6 +189,12 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(64, configuration.getCairoConfiguration().getSqlJoinContextPoolCapacity());
         Assert.assertEquals(2048, configuration.getCairoConfiguration().getSqlLexerPoolCapacity());
         Assert.assertEquals(32, configuration.getCairoConfiguration().getSqlSmallMapKeyCapacity());
+        Assert.assertFalse(configuration.getCairoConfiguration().isSqlResultCacheEnabled());
+        Assert.assertEquals(64 * 1024 * 1024, configuration.getCairoConfiguration().getSqlResultCacheMaxBytes());
+        Assert.assertEquals(16 * 1024, configuration.getCairoConfiguration().getSqlResultCachePageSize());
+        Assert.assertFalse(configuration.getCairoConfiguration().isSqlSharedQueryCacheEnabled());
+        Assert.assertEquals(8, configuration.getCairoConfiguration().getSqlSharedQueryCacheBlockCount());
+        Assert.assertEquals(128, configuration.getCairoConfiguration().getSqlSharedQueryCacheRowCount());
         Assert.assertEquals(32 * 1024, configuration.getCairoConfiguration().getSqlSmallMapPageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlMapMaxPages());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlMapMaxResizes());
@@ -206,6 +213,8 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(100, configuration.getCairoConfiguration().getSqlAsOfJoinLookAhead());
         Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortValuePageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
+        Assert.assertFalse(configuration.getCairoConfiguration().isSqlSpillEnabled());
+        Assert.assertEquals(512 * Numbers.SIZE_1MB, configuration.getCairoConfiguration().getSqlSpillThreshold());
         Assert.assertEquals(10000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
         Assert.assertTrue(configuration.getCairoConfiguration().isParallelIndexingEnabled());
         Assert.assertEquals(16 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
@@ -246,6 +255,7 @@ public class PropServerConfigurationTest {
         Assert.assertFalse(configuration.getLineUdpReceiverConfiguration().ownThread());
 
         Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelFilterPreTouchEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlPartitionPruningEnabled());
         Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getSqlPageFrameMaxRows());
         Assert.assertEquals(100_000, configuration.getCairoConfiguration().getSqlPageFrameMinRows());
         Assert.assertEquals(256, configuration.getCairoConfiguration().getPageFrameReduceRowIdListCapacity());
@@ -309,6 +319,8 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(-1, configuration.getLineTcpReceiverConfiguration().getDispatcherConfiguration().getRcvBufSize());
         Assert.assertEquals(-1, configuration.getLineTcpReceiverConfiguration().getDispatcherConfiguration().getSndBufSize());
         Assert.assertEquals(64, configuration.getLineTcpReceiverConfiguration().getDispatcherConfiguration().getTestConnectionBufferSize());
+        Assert.assertEquals(Numbers.SIZE_1MB, configuration.getLineTcpReceiverConfiguration().getConnectionCreditBytes());
+        Assert.assertEquals(64, configuration.getLineTcpReceiverConfiguration().getConnectionCreditRows());
         Assert.assertEquals(8, configuration.getLineTcpReceiverConfiguration().getConnectionPoolInitialCapacity());
         Assert.assertEquals(LineNanoTimestampAdapter.INSTANCE, configuration.getLineTcpReceiverConfiguration().getTimestampAdapter().getDefaultAdapter());
         Assert.assertEquals(32768, configuration.getLineTcpReceiverConfiguration().getNetMsgBufferSize());
@@ -326,6 +338,7 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(PropServerConfiguration.COMMIT_INTERVAL_DEFAULT, configuration.getLineTcpReceiverConfiguration().getCommitIntervalDefault());
         Assert.assertEquals(PartitionBy.DAY, configuration.getLineTcpReceiverConfiguration().getDefaultPartitionBy());
         Assert.assertEquals(500, configuration.getLineTcpReceiverConfiguration().getWriterIdleTimeout());
+        Assert.assertEquals(10_000, configuration.getLineTcpReceiverConfiguration().getWriterRebalanceInterval());
         Assert.assertEquals(0, configuration.getCairoConfiguration().getSampleByIndexSearchPageSize());
         Assert.assertTrue(configuration.getCairoConfiguration().getSampleByDefaultAlignmentCalendar());
         Assert.assertEquals(32, configuration.getCairoConfiguration().getWriterCommandQueueCapacity());
@@ -336,6 +349,7 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(ColumnType.DOUBLE, configuration.getLineTcpReceiverConfiguration().getDefaultColumnTypeForFloat());
         Assert.assertEquals(ColumnType.LONG, configuration.getLineTcpReceiverConfiguration().getDefaultColumnTypeForInteger());
         Assert.assertTrue(configuration.getLineTcpReceiverConfiguration().isUseLegacyStringDefault());
+        Assert.assertTrue(configuration.getLineTcpReceiverConfiguration().isBinaryFormatEnabled());
         Assert.assertTrue(configuration.getLineTcpReceiverConfiguration().getDisconnectOnError());
 
         Assert.assertTrue(configuration.getHttpServerConfiguration().getHttpContextConfiguration().getServerKeepAlive());
@@ -407,6 +421,9 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(10_000, configuration.getWalApplyPoolConfiguration().getSleepThreshold());
         Assert.assertEquals(1000, configuration.getWalApplyPoolConfiguration().getYieldThreshold());
         Assert.assertEquals(20, configuration.getCairoConfiguration().getWalApplyLookAheadTransactionCount());
+        Assert.assertTrue(configuration.getCairoConfiguration().isWalApplyParallelPartitionsEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isWalDedupTailProbeEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isWalWriterSortTxnEnabled());
         Assert.assertEquals(4, configuration.getCairoConfiguration().getO3LagCalculationWindowsSize());
         Assert.assertEquals(200_000, configuration.getCairoConfiguration().getWalSegmentRolloverRowCount());
         Assert.assertEquals(20.0d, configuration.getCairoConfiguration().getWalSquashUncommittedRowsMultiplier(), 0.00001);
@@ -620,6 +637,30 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(60_000, configuration.getCairoConfiguration().getO3MaxLag());
     }
 
+    @Test
+    public void testExportRootCantBeTheSameAsOtherInstanceDirectories() throws Exception {
+        Properties properties = new Properties();
+
+        PropServerConfiguration configuration = newPropServerConfiguration(root, properties, null, new BuildInformationHolder());
+        Assert.assertNull(configuration.getCairoConfiguration().getSqlCopyExportRoot());
+
+        assertExportRootCantBeSetTo(properties, root);
+        assertExportRootCantBeSetTo(properties, configuration.getCairoConfiguration().getRoot());
+        assertExportRootCantBeSetTo(properties, configuration.getCairoConfiguration().getSnapshotRoot().toString());
+        assertExportRootCantBeSetTo(properties, configuration.getCairoConfiguration().getConfRoot().toString());
+        assertExportRootCantBeSetTo(properties, getRelativePath(configuration.getCairoConfiguration().getRoot()));
+    }
+
+    @Test
+    public void testExportRootDefaultsToCopyRoot() throws Exception {
+        Properties properties = new Properties();
+        String copyRoot = temp.newFolder("copy_root").getAbsolutePath();
+        properties.setProperty(PropertyKey.CAIRO_SQL_COPY_ROOT.getPropertyPath(), copyRoot);
+
+        PropServerConfiguration configuration = newPropServerConfiguration(root, properties, null, new BuildInformationHolder());
+        Assert.assertEquals(new File(copyRoot).getCanonicalPath(), configuration.getCairoConfiguration().getSqlCopyExportRoot());
+    }
+
     @Test
     public void testHttpDisabled() throws Exception {
         try (InputStream is = PropServerConfigurationTest.class.getResourceAsStream("/server-http-disabled.conf")) {
@@ -1019,6 +1060,8 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(2049, configuration.getLineTcpReceiverConfiguration().getNetMsgBufferSize());
             Assert.assertEquals(128, configuration.getLineTcpReceiverConfiguration().getMaxMeasurementSize());
             Assert.assertEquals(256, configuration.getLineTcpReceiverConfiguration().getWriterQueueCapacity());
+            // credit follows the writer queue capacity unless set explicitly
+            Assert.assertEquals(128, configuration.getLineTcpReceiverConfiguration().getConnectionCreditRows());
             Assert.assertEquals(2, configuration.getLineTcpReceiverConfiguration().getWriterWorkerPoolConfiguration().getWorkerCount());
             Assert.assertArrayEquals(new int[]{1, 2}, configuration.getLineTcpReceiverConfiguration().getWriterWorkerPoolConfiguration().getWorkerAffinity());
             Assert.assertEquals(20, configuration.getLineTcpReceiverConfiguration().getWriterWorkerPoolConfiguration().getYieldThreshold());
@@ -1032,6 +1075,7 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(1000, configuration.getLineTcpReceiverConfiguration().getMaintenanceInterval());
             Assert.assertEquals(PartitionBy.MONTH, configuration.getLineTcpReceiverConfiguration().getDefaultPartitionBy());
             Assert.assertEquals(5_000, configuration.getLineTcpReceiverConfiguration().getWriterIdleTimeout());
+            Assert.assertEquals(5_000, configuration.getLineTcpReceiverConfiguration().getWriterRebalanceInterval());
             Assert.assertEquals(ColumnType.FLOAT, configuration.getLineTcpReceiverConfiguration().getDefaultColumnTypeForFloat());
             Assert.assertEquals(ColumnType.INT, configuration.getLineTcpReceiverConfiguration().getDefaultColumnTypeForInteger());
             Assert.assertFalse(configuration.getLineTcpReceiverConfiguration().getDisconnectOnError());
@@ -1230,6 +1274,16 @@ public class PropServerConfigurationTest {
         newPropServerConfiguration(root, properties, null, new BuildInformationHolder());
     }
 
+    private void assertExportRootCantBeSetTo(Properties properties, String value) throws JsonException {
+        try {
+            properties.setProperty(PropertyKey.CAIRO_SQL_COPY_EXPORT_ROOT.getPropertyPath(), value);
+            newPropServerConfiguration(root, properties, null, new BuildInformationHolder());
+            Assert.fail("Should fail for " + value);
+        } catch (ServerConfigurationException e) {
+            TestUtils.assertContains(e.getMessage(), "cairo.sql.copy.export.root can't point to root, data, conf or snapshot dirs");
+        }
+    }
+
     private void assertInputWorkRootCantBeSetTo(Properties properties, String value) throws JsonException {
         try {
             properties.setProperty(PropertyKey.CAIRO_SQL_COPY_ROOT.getPropertyPath(), value);
@@ -1292,6 +1346,7 @@ public class PropServerConfigurationTest {
         Assert.assertTrue(configuration.getDefaultSymbolCacheFlag());
         Assert.assertEquals(512, configuration.getDefaultSymbolCapacity());
         Assert.assertEquals(10, configuration.getFileOperationRetryCount());
+        Assert.assertFalse(configuration.isSharedSymbolCacheEnabled());
         Assert.assertEquals(20_000, configuration.getIdleCheckInterval());
         Assert.assertEquals(42, configuration.getInactiveReaderMaxOpenPartitions());
         Assert.assertEquals(600_000, configuration.getInactiveReaderTTL());
@@ -1311,6 +1366,12 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(32, configuration.getSqlJoinContextPoolCapacity());
         Assert.assertEquals(1024, configuration.getSqlLexerPoolCapacity());
         Assert.assertEquals(16, configuration.getSqlSmallMapKeyCapacity());
+        Assert.assertTrue(configuration.isSqlResultCacheEnabled());
+        Assert.assertEquals(32 * 1024 * 1024, configuration.getSqlResultCacheMaxBytes());
+        Assert.assertEquals(8 * 1024, configuration.getSqlResultCachePageSize());
+        Assert.assertTrue(configuration.isSqlSharedQueryCacheEnabled());
+        Assert.assertEquals(4, configuration.getSqlSharedQueryCacheBlockCount());
+        Assert.assertEquals(32, configuration.getSqlSharedQueryCacheRowCount());
         Assert.assertEquals(42 * 1024, configuration.getSqlSmallMapPageSize());
         Assert.assertEquals(1026, configuration.getSqlMapMaxPages());
         Assert.assertEquals(128, configuration.getSqlMapMaxResizes());
@@ -1329,6 +1390,8 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(42, configuration.getSqlAsOfJoinLookAhead());
         Assert.assertEquals(4 * 1024 * 1024, configuration.getSqlSortValuePageSize());
         Assert.assertEquals(1028, configuration.getSqlSortValueMaxPages());
+        Assert.assertTrue(configuration.isSqlSpillEnabled());
+        Assert.assertEquals(64 * Numbers.SIZE_1MB, configuration.getSqlSpillThreshold());
         Assert.assertEquals(1000000, configuration.getWorkStealTimeoutNanos());
         Assert.assertFalse(configuration.isParallelIndexingEnabled());
         Assert.assertEquals(8 * 1024, configuration.getSqlJoinMetadataPageSize());
@@ -1371,9 +1434,13 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(256, configuration.getSqlDistinctTimestampKeyCapacity());
         Assert.assertEquals(0.4, configuration.getSqlDistinctTimestampLoadFactor(), 0.001);
 
+        Assert.assertFalse(configuration.isSqlParallelAsOfJoinEnabled());
         Assert.assertFalse(configuration.isSqlParallelFilterEnabled());
         Assert.assertFalse(configuration.isSqlParallelFilterPreTouchEnabled());
         Assert.assertFalse(configuration.isSqlParallelGroupByEnabled());
+        Assert.assertFalse(configuration.isSqlParallelHashJoinEnabled());
+        Assert.assertFalse(configuration.isSqlParallelSortEnabled());
+        Assert.assertFalse(configuration.isSqlParallelWindowEnabled());
         Assert.assertEquals(1000, configuration.getSqlPageFrameMaxRows());
         Assert.assertEquals(100, configuration.getSqlPageFrameMinRows());
         Assert.assertEquals(128, configuration.getPageFrameReduceShardCount());
@@ -1382,6 +1449,7 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(4, configuration.getPageFrameReduceColumnListCapacity());
         Assert.assertEquals(2048, configuration.getGroupByMergeShardQueueCapacity());
         Assert.assertEquals(100, configuration.getGroupByShardingThreshold());
+        Assert.assertEquals(512, configuration.getWindowShardQueueCapacity());
         Assert.assertEquals(4096, configuration.getGroupByAllocatorDefaultChunkSize());
 
         Assert.assertEquals(SqlJitMode.JIT_MODE_FORCE_SCALAR, configuration.getSqlJitMode());
@@ -1423,6 +1491,9 @@ public class PropServerConfigurationTest {
         Assert.assertTrue(configuration.getWalEnabledDefault());
         Assert.assertFalse(configuration.isWalApplyEnabled());
         Assert.assertEquals(23, configuration.getWalApplyLookAheadTransactionCount());
+        Assert.assertFalse(configuration.isWalApplyParallelPartitionsEnabled());
+        Assert.assertFalse(configuration.isWalDedupTailProbeEnabled());
+        Assert.assertFalse(configuration.isWalWriterSortTxnEnabled());
         Assert.assertFalse(configuration.isTableTypeConversionEnabled());
         Assert.assertEquals(100, configuration.getWalWriterPoolMaxSegments());
         Assert.assertEquals(120, configuration.getO3LagCalculationWindowsSize());
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cairo;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.cutlass.text.SqlExecutionContextStub;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+
+public class PartitionColumnStatsTest extends AbstractCairoTest {
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        try {
+            // 5 daily partitions, 4 rows each: x = 4k+1 .. 4k+4 in partition k
+            ddl(
+                    "create table x as (" +
+                            "select x, x::int i, x::double d, x::short s, timestamp_sequence('2024-01-01', 21600000000L) ts from long_sequence(20)" +
+                            ") timestamp(ts) partition by DAY"
+            );
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("alter table x add column n long");
+            ddl("alter table x add column s2 short");
+            insert("insert into x (x, n, s2, ts) values (21, 42, 7, '2024-01-03T23:00:00.000000Z')");
+
+            try (TableReader reader = getReader("x")) {
+                final PartitionColumnStats stats = reader.getPartitionColumnStats();
+                final int n = reader.getMetadata().getColumnIndex("n");
+                final int s2 = reader.getMetadata().getColumnIndex("s2");
+
+                reader.openPartition(0);
+                Assert.assertTrue(stats.of(reader, 0, n));
+                Assert.assertTrue(stats.isAllNull());
+
+                // short has no null, rows above column top are zeros
+                Assert.assertTrue(stats.of(reader, 0, s2));
+                Assert.assertFalse(stats.isAllNull());
+                Assert.assertEquals(0, stats.getMinLong());
+                Assert.assertEquals(0, stats.getMaxLong());
+
+                reader.openPartition(2);
+                Assert.assertTrue(stats.of(reader, 2, n));
+                Assert.assertFalse(stats.isAllNull());
+                Assert.assertEquals(42, stats.getMinLong());
+                Assert.assertEquals(42, stats.getMaxLong());
+
+                Assert.assertTrue(stats.of(reader, 2, s2));
+                Assert.assertEquals(0, stats.getMinLong());
+                Assert.assertEquals(7, stats.getMaxLong());
+            }
+        });
+    }
+
+    @Test
+    public void testMinMax() throws Exception {
+        assertMemoryLeak(() -> {
+            try (TableReader reader = getReader("x")) {
+                final PartitionColumnStats stats = reader.getPartitionColumnStats();
+                final TableReaderMetadata metadata = reader.getMetadata();
+                reader.openPartition(1);
+
+                Assert.assertTrue(stats.of(reader, 1, metadata.getColumnIndex("x")));
+                Assert.assertEquals(5, stats.getMinLong());
+                Assert.assertEquals(8, stats.getMaxLong());
+
+                Assert.assertTrue(stats.of(reader, 1, metadata.getColumnIndex("i")));
+                Assert.assertEquals(5, stats.getMinLong());
+                Assert.assertEquals(8, stats.getMaxLong());
+
+                Assert.assertTrue(stats.of(reader, 1, metadata.getColumnIndex("s")));
+                Assert.assertEquals(5, stats.getMinLong());
+                Assert.assertEquals(8, stats.getMaxLong());
+
+                Assert.assertTrue(stats.of(reader, 1, metadata.getColumnIndex("d")));
+                Assert.assertEquals(5.0, stats.getMinDouble(), 0.0);
+                Assert.assertEquals(8.0, stats.getMaxDouble(), 0.0);
+
+                Assert.assertTrue(stats.of(reader, 1, metadata.getColumnIndex("ts")));
+                Assert.assertEquals(reader.getPartitionTimestampByIndex(1), stats.getMinLong());
+            }
+        });
+    }
+
+    @Test
+    public void testPruneFrames() throws Exception {
+        assertMemoryLeak(() -> {
+            final int x;
+            final GenericRecordMetadata metadata;
+            final TableToken tableToken;
+            try (TableReader reader = getReader("x")) {
+                x = reader.getMetadata().getColumnIndex("x");
+                metadata = GenericRecordMetadata.copyOf(reader.getMetadata());
+                tableToken = reader.getTableToken();
+            }
+
+            // partitions 0-2 are pruned, 3 and 4 are kept
+            assertPruned(tableToken, metadata, x, PartitionPruningDataFrameCursorFactory.OP_GT, 12, 3, 8);
+            assertPruned(tableToken, metadata, x, PartitionPruningDataFrameCursorFactory.OP_GE, 13, 3, 8);
+            // partitions 1-3 are pruned, the last partition is never pruned
+            assertPruned(tableToken, metadata, x, PartitionPruningDataFrameCursorFactory.OP_LT, 3, 3, 8);
+            assertPruned(tableToken, metadata, x, PartitionPruningDataFrameCursorFactory.OP_EQ, 10, 3, 8);
+            assertPruned(tableToken, metadata, x, PartitionPruningDataFrameCursorFactory.OP_LE, 100, 0, 20);
+        });
+    }
+
+    @Test
+    public void testRecomputeAfterWrite() throws Exception {
+        assertMemoryLeak(() -> {
+            try (TableReader reader = getReader("x")) {
+                final PartitionColumnStats stats = reader.getPartitionColumnStats();
+                final int x = reader.getMetadata().getColumnIndex("x");
+                reader.openPartition(1);
+                Assert.assertTrue(stats.of(reader, 1, x));
+                Assert.assertEquals(8, stats.getMaxLong());
+
+                // out-of-order insert rewrites the partition
+                insert("insert into x (x, ts) values (100, '2024-01-02T01:00:00.000000Z')");
+                Assert.assertTrue(reader.reload());
+                reader.openPartition(1);
+                Assert.assertTrue(stats.of(reader, 1, x));
+                Assert.assertEquals(5, stats.getMinLong());
+                Assert.assertEquals(100, stats.getMaxLong());
+            }
+        });
+    }
+
+    @Test
+    public void testUnsupportedType() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("alter table x add column str string");
+            try (TableReader reader = getReader("x")) {
+                reader.openPartition(0);
+                Assert.assertFalse(PartitionColumnStats.isSupported(ColumnType.STRING));
+                Assert.assertFalse(reader.getPartitionColumnStats().of(reader, 0, reader.getMetadata().getColumnIndex("str")));
+            }
+        });
+    }
+
+    private static void assertPruned(
+            TableToken tableToken,
+            GenericRecordMetadata metadata,
+            int columnIndex,
+            int op,
+            long value,
+            long expectedPrunedFrames,
+            long expectedRows
+    ) throws Exception {
+        final IntList columnIndexes = new IntList();
+        columnIndexes.add(columnIndex);
+        final IntList ops = new IntList();
+        ops.add(op);
+        final LongList values = new LongList();
+        values.add(value);
+
+        try (
+                PartitionPruningDataFrameCursorFactory factory = new PartitionPruningDataFrameCursorFactory(
+                        new FullFwdDataFrameCursorFactory(tableToken, 0, metadata),
+                        columnIndexes,
+                        ops,
+                        values
+                );
+                DataFrameCursor cursor = factory.getCursor(new SqlExecutionContextStub(engine), ORDER_ASC)
+        ) {
+            long rows = 0;
+            DataFrame frame;
+            while ((frame = cursor.next()) != null) {
+                rows += frame.getRowHi() - frame.getRowLo();
+            }
+            Assert.assertEquals(expectedRows, rows);
+            Assert.assertEquals(expectedPrunedFrames, factory.getPrunedFrameCount());
+        }
+    }
+}
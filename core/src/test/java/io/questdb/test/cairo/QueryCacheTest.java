@@ -0,0 +1,109 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cairo;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.QueryCache;
+import io.questdb.cairo.security.AllowAllSecurityContext;
+import io.questdb.cairo.security.ReadOnlySecurityContext;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.IntList;
+import io.questdb.test.AbstractCairoTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryCacheTest extends AbstractCairoTest {
+
+    @Test
+    public void testBindVariableTypes() throws Exception {
+        assertMemoryLeak(() -> {
+            try (QueryCache cache = new QueryCache(2, 4)) {
+                final IntList types = new IntList();
+                types.add(ColumnType.LONG);
+                types.add(ColumnType.STRING);
+                cache.put(AllowAllSecurityContext.INSTANCE, "select x from long_sequence(1)", select("select x from long_sequence(1)"), types);
+
+                final IntList polledTypes = new IntList();
+                polledTypes.add(ColumnType.INT);
+                final RecordCursorFactory factory = cache.poll(AllowAllSecurityContext.INSTANCE, "select x from long_sequence(1)", polledTypes);
+                Assert.assertNotNull(factory);
+                Assert.assertEquals(types, polledTypes);
+                cache.put(AllowAllSecurityContext.INSTANCE, "select x from long_sequence(1)", factory, null);
+            }
+        });
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        assertMemoryLeak(() -> {
+            try (QueryCache cache = new QueryCache(1, 1)) {
+                cache.put(AllowAllSecurityContext.INSTANCE, "select x from long_sequence(1)", select("select x from long_sequence(1)"), null);
+                cache.put(AllowAllSecurityContext.INSTANCE, "select x from long_sequence(2)", select("select x from long_sequence(2)"), null);
+
+                Assert.assertNull(cache.poll(AllowAllSecurityContext.INSTANCE, "select x from long_sequence(1)", null));
+                final RecordCursorFactory factory = cache.poll(AllowAllSecurityContext.INSTANCE, "select x from long_sequence(2)", null);
+                Assert.assertNotNull(factory);
+                factory.close();
+            }
+        });
+    }
+
+    @Test
+    public void testFactoryLentExclusively() throws Exception {
+        assertMemoryLeak(() -> {
+            try (QueryCache cache = new QueryCache(2, 4)) {
+                final RecordCursorFactory factory = select("select x from long_sequence(1)");
+                cache.put(AllowAllSecurityContext.INSTANCE, "select x from long_sequence(1)", factory, null);
+
+                Assert.assertSame(factory, cache.poll(AllowAllSecurityContext.INSTANCE, "select x from long_sequence(1)", null));
+                Assert.assertNull(cache.poll(AllowAllSecurityContext.INSTANCE, "select x from long_sequence(1)", null));
+
+                // another connection compiled the same query while the factory was lent out,
+                // the cache keeps the factory returned first and frees the other one
+                cache.put(AllowAllSecurityContext.INSTANCE, "select x from long_sequence(1)", factory, null);
+                cache.put(AllowAllSecurityContext.INSTANCE, "select x from long_sequence(1)", select("select x from long_sequence(1)"), null);
+                Assert.assertSame(factory, cache.poll(AllowAllSecurityContext.INSTANCE, "select x from long_sequence(1)", null));
+                cache.put(AllowAllSecurityContext.INSTANCE, "select x from long_sequence(1)", factory, null);
+            }
+        });
+    }
+
+    @Test
+    public void testKey() throws Exception {
+        assertMemoryLeak(() -> {
+            try (QueryCache cache = new QueryCache(2, 4)) {
+                final RecordCursorFactory factory = select("select x from long_sequence(1)");
+                cache.put(AllowAllSecurityContext.INSTANCE, "select x from long_sequence(1)", factory, null);
+
+                // the same principal with a different security context does not share factories
+                Assert.assertNull(cache.poll(ReadOnlySecurityContext.INSTANCE, "select x from long_sequence(1)", null));
+                Assert.assertNull(cache.poll(AllowAllSecurityContext.INSTANCE, "select x from long_sequence(10)", null));
+                // surrounding whitespace and semicolons are ignored
+                Assert.assertSame(factory, cache.poll(AllowAllSecurityContext.INSTANCE, "\n  select x from long_sequence(1);; ", null));
+                cache.put(AllowAllSecurityContext.INSTANCE, "select x from long_sequence(1)", factory, null);
+            }
+        });
+    }
+}
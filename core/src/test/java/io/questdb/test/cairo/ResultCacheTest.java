@@ -0,0 +1,268 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cairo;
+
+import io.questdb.cairo.ResultCache;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.std.Misc;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ResultCacheTest extends AbstractCairoTest {
+
+    @Test
+    public void testBindVariables() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (ts timestamp, sym symbol, v long) timestamp(ts) partition by DAY");
+            insert("insert into x values ('1970-01-01T00:00:00.000000Z', 'a', 1), ('1970-01-01T00:00:01.000000Z', 'b', 2)");
+            try (
+                    ResultCache cache = new ResultCache(engine);
+                    RecordCursorFactory factory = select("select * from x where sym = $1")
+            ) {
+                bindVariableService.setStr(0, "a");
+                final RecordCursor cursor = assertCursor(
+                        cache,
+                        factory,
+                        "select * from x where sym = $1",
+                        "ts\tsym\tv\n" +
+                                "1970-01-01T00:00:00.000000Z\ta\t1\n"
+                );
+
+                bindVariableService.setStr(0, "b");
+                Assert.assertNotSame(
+                        cursor,
+                        assertCursor(
+                                cache,
+                                factory,
+                                "select * from x where sym = $1",
+                                "ts\tsym\tv\n" +
+                                        "1970-01-01T00:00:01.000000Z\tb\t2\n"
+                        )
+                );
+                Assert.assertEquals(2, cache.size());
+
+                bindVariableService.setStr(0, "a");
+                Assert.assertSame(
+                        cursor,
+                        assertCursor(
+                                cache,
+                                factory,
+                                "select * from x where sym = $1",
+                                "ts\tsym\tv\n" +
+                                        "1970-01-01T00:00:00.000000Z\ta\t1\n"
+                        )
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testCatalogueResultNotCached() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (ts timestamp, v long) timestamp(ts) partition by DAY");
+            insert("insert into x values ('1970-01-01T00:00:00.000000Z', 1)");
+            final String tablesQuery = "select table_name from tables() where table_name in ('x', 'y') order by table_name";
+            // the join reads a table, so the result would be cacheable without tables()
+            final String joinQuery = "select v, table_name from x cross join tables() where table_name in ('x', 'y') order by table_name";
+            try (ResultCache cache = new ResultCache(engine)) {
+                try (RecordCursorFactory factory = select(tablesQuery)) {
+                    assertCursor(cache, factory, tablesQuery, "table_name\nx\n");
+                }
+                try (RecordCursorFactory factory = select(joinQuery)) {
+                    assertCursor(cache, factory, joinQuery, "v\ttable_name\n1\tx\n");
+                }
+
+                ddl("create table y (ts timestamp, v long) timestamp(ts) partition by DAY");
+                try (RecordCursorFactory factory = select(tablesQuery)) {
+                    assertCursor(cache, factory, tablesQuery, "table_name\nx\ny\n");
+                }
+                try (RecordCursorFactory factory = select(joinQuery)) {
+                    assertCursor(cache, factory, joinQuery, "v\ttable_name\n1\tx\n1\ty\n");
+                }
+                Assert.assertEquals(0, cache.size());
+            }
+        });
+    }
+
+    @Test
+    public void testCommitInvalidatesResult() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (ts timestamp, sym symbol, v long) timestamp(ts) partition by DAY");
+            insert("insert into x values ('1970-01-01T00:00:00.000000Z', 'a', 1), ('1970-01-02T00:00:00.000000Z', 'b', 2)");
+            try (
+                    ResultCache cache = new ResultCache(engine);
+                    RecordCursorFactory factory = select("select * from x")
+            ) {
+                final String expected = "ts\tsym\tv\n" +
+                        "1970-01-01T00:00:00.000000Z\ta\t1\n" +
+                        "1970-01-02T00:00:00.000000Z\tb\t2\n";
+                final RecordCursor cursor = assertCursor(cache, factory, "select * from x", expected);
+                Assert.assertEquals(1, cache.size());
+                Assert.assertTrue(cache.getMemoryUsed() > 0);
+                Assert.assertSame(cursor, assertCursor(cache, factory, "select * from x;", expected));
+
+                insert("insert into x values ('1970-01-03T00:00:00.000000Z', 'c', 3)");
+                Assert.assertNotSame(
+                        cursor,
+                        assertCursor(
+                                cache,
+                                factory,
+                                "select * from x",
+                                expected + "1970-01-03T00:00:00.000000Z\tc\t3\n"
+                        )
+                );
+                Assert.assertEquals(1, cache.size());
+            }
+        });
+    }
+
+    @Test
+    public void testCommitOutsideOfIntervalKeepsResult() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (ts timestamp, sym symbol, v long) timestamp(ts) partition by DAY");
+            insert("insert into x values ('1970-01-01T00:00:00.000000Z', 'a', 1), ('1970-01-02T00:00:00.000000Z', 'b', 2)");
+            final String query = "select * from x where ts in '1970-01-01'";
+            try (
+                    ResultCache cache = new ResultCache(engine);
+                    RecordCursorFactory factory = select(query)
+            ) {
+                final String expected = "ts\tsym\tv\n" +
+                        "1970-01-01T00:00:00.000000Z\ta\t1\n";
+                final RecordCursor cursor = assertCursor(cache, factory, query, expected);
+
+                // new partition and new rows in a partition that does not overlap the interval
+                insert("insert into x values ('1970-01-02T00:00:01.000000Z', 'c', 3), ('1970-01-03T00:00:00.000000Z', 'd', 4)");
+                Assert.assertSame(cursor, assertCursor(cache, factory, query, expected));
+
+                insert("insert into x values ('1970-01-01T00:00:01.000000Z', 'e', 5)");
+                Assert.assertNotSame(
+                        cursor,
+                        assertCursor(
+                                cache,
+                                factory,
+                                query,
+                                expected + "1970-01-01T00:00:01.000000Z\te\t5\n"
+                        )
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testDroppedTableInvalidatesResult() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (ts timestamp, v long) timestamp(ts) partition by DAY");
+            insert("insert into x values ('1970-01-01T00:00:00.000000Z', 1)");
+            try (ResultCache cache = new ResultCache(engine)) {
+                try (RecordCursorFactory factory = select("select * from x")) {
+                    assertCursor(cache, factory, "select * from x", "ts\tv\n1970-01-01T00:00:00.000000Z\t1\n");
+                }
+                drop("drop table x");
+                ddl("create table x (ts timestamp, v long) timestamp(ts) partition by DAY");
+                try (RecordCursorFactory factory = select("select * from x")) {
+                    assertCursor(cache, factory, "select * from x", "ts\tv\n");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testVolatileFunctionResultNotCached() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (ts timestamp, v long) timestamp(ts) partition by DAY");
+            insert("insert into x values ('1970-01-01T00:00:00.000000Z', 1)");
+            final String[] queries = {
+                    "select sysdate(), * from x",
+                    "select systimestamp(), * from x",
+                    "select * from x where sysdate() > 0"
+            };
+            try (
+                    ResultCache cache = new ResultCache(engine);
+                    // the query runs in a context other than the one it is compiled in, as with the shared query cache
+                    SqlExecutionContextImpl context = TestUtils.createSqlExecutionCtx(engine, 1)
+            ) {
+                for (String query : queries) {
+                    try (RecordCursorFactory factory = select(query)) {
+                        drainCursor(cache, factory, query, context);
+                        drainCursor(cache, factory, query, context);
+                    }
+                }
+                Assert.assertEquals(0, cache.size());
+            }
+        });
+    }
+
+    @Test
+    public void testVolatileResultNotCached() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (ts timestamp, v long) timestamp(ts) partition by DAY");
+            insert("insert into x values ('1970-01-01T00:00:00.000000Z', 1)");
+            try (ResultCache cache = new ResultCache(engine)) {
+                try (RecordCursorFactory factory = select("select * from x where ts < now()")) {
+                    assertCursor(cache, factory, "select * from x where ts < now()", "ts\tv\n1970-01-01T00:00:00.000000Z\t1\n");
+                    assertCursor(cache, factory, "select * from x where ts < now()", "ts\tv\n1970-01-01T00:00:00.000000Z\t1\n");
+                }
+                try (RecordCursorFactory factory = select("select x from long_sequence(2)")) {
+                    assertCursor(cache, factory, "select x from long_sequence(2)", "x\n1\n2\n");
+                }
+                Assert.assertEquals(0, cache.size());
+            }
+        });
+    }
+
+    private static RecordCursor assertCursor(ResultCache cache, RecordCursorFactory factory, String query, String expected) throws Exception {
+        final RecordCursor cursor = cache.getCursor(query, factory, (SqlExecutionContextImpl) sqlExecutionContext);
+        try {
+            println(factory.getMetadata(), cursor);
+            TestUtils.assertEquals(expected, sink);
+        } finally {
+            cursor.close();
+        }
+        return cursor;
+    }
+
+    private static void drainCursor(
+            ResultCache cache,
+            RecordCursorFactory factory,
+            String query,
+            SqlExecutionContextImpl context
+    ) throws Exception {
+        final RecordCursor cursor = cache.getCursor(query, factory, context);
+        try {
+            long rowCount = 0;
+            while (cursor.hasNext()) {
+                rowCount++;
+            }
+            Assert.assertEquals(1, rowCount);
+        } finally {
+            Misc.free(cursor);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cairo;
+
+import io.questdb.cairo.SharedSymbolCache;
+import io.questdb.cairo.SharedSymbolCacheRegistry;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.str.DirectUtf8Sink;
+import io.questdb.std.str.Utf8String;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SharedSymbolCacheTest extends AbstractCairoTest {
+
+    @Test
+    public void testConcurrentPut() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final SharedSymbolCache cache = new SharedSymbolCache(-1, 0);
+            final int threadCount = 4;
+            final int symbolCount = 10_000;
+            final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+            final ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+            final AtomicInteger mismatches = new AtomicInteger();
+            final Thread[] threads = new Thread[threadCount];
+            for (int t = 0; t < threadCount; t++) {
+                threads[t] = new Thread(() -> {
+                    try (DirectUtf8Sink sink = new DirectUtf8Sink(16)) {
+                        barrier.await();
+                        for (int i = 0; i < symbolCount; i++) {
+                            cache.put(new Utf8String("sym" + i), i);
+                            sink.clear();
+                            sink.put("sym").put(i);
+                            final int key = cache.keyOf(sink);
+                            // a value may be lost when added during a resize, but never mapped to a wrong key
+                            if (key != i && key != SymbolTable.VALUE_NOT_FOUND) {
+                                mismatches.incrementAndGet();
+                            }
+                        }
+                    } catch (Throwable th) {
+                        errors.add(th);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            final Throwable error = errors.poll();
+            if (error != null) {
+                throw new AssertionError(error);
+            }
+            Assert.assertEquals(0, mismatches.get());
+            Assert.assertTrue(cache.size() <= symbolCount);
+        });
+    }
+
+    @Test
+    public void testEvictOnDdl() throws Exception {
+        assertMemoryLeak(() -> {
+            final SharedSymbolCacheRegistry registry = engine.getSharedSymbolCacheRegistry();
+            for (String wal : new String[]{"BYPASS WAL", "WAL"}) {
+                ddl("create table x (s1 symbol, s2 symbol, ts timestamp) timestamp(ts) partition by DAY " + wal);
+                final TableToken x = engine.verifyTableName("x");
+                Assert.assertNotNull(registry.getCache(x, 0, -1, 0));
+                final SharedSymbolCache cache = registry.getCache(x, 1, -1, 0);
+                Assert.assertEquals(2, registry.size());
+
+                ddl("alter table x drop column s1");
+                drainWalQueue();
+                Assert.assertEquals(1, registry.size());
+                Assert.assertSame(cache, registry.getCache(x, 1, -1, 0));
+
+                ddl("rename table x to y");
+                drainWalQueue();
+                Assert.assertEquals(0, registry.size());
+
+                final TableToken y = engine.verifyTableName("y");
+                Assert.assertNotNull(registry.getCache(y, 1, -1, 0));
+                drop("drop table y");
+                drainWalQueue();
+                Assert.assertEquals(0, registry.size());
+            }
+        });
+    }
+
+    @Test
+    public void testPutAndLookup() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final SharedSymbolCache cache = new SharedSymbolCache(-1, 0);
+            try (DirectUtf8Sink sink = new DirectUtf8Sink(16)) {
+                sink.put("abc");
+                Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, cache.keyOf(sink));
+
+                // enough values to resize the cache a few times
+                for (int i = 0; i < 2000; i++) {
+                    cache.put(new Utf8String("sym" + i), i);
+                }
+                cache.put(new Utf8String("sym42"), 4242);
+                Assert.assertEquals(2000, cache.size());
+
+                for (int i = 0; i < 2000; i++) {
+                    sink.clear();
+                    sink.put("sym").put(i);
+                    Assert.assertEquals(i, cache.keyOf(sink));
+                }
+                sink.clear();
+                sink.put("ы");
+                Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, cache.keyOf(sink));
+            }
+        });
+    }
+
+    @Test
+    public void testRegistry() {
+        final SharedSymbolCacheRegistry registry = new SharedSymbolCacheRegistry();
+        final TableToken x = new TableToken("x", "x~1", 1, true, false, false);
+        final TableToken y = new TableToken("y", "y~2", 2, true, false, false);
+
+        final SharedSymbolCache cache = registry.getCache(x, 1, -1, 0);
+        Assert.assertNotNull(cache);
+        Assert.assertSame(cache, registry.getCache(x, 1, -1, 0));
+        Assert.assertNotSame(cache, registry.getCache(x, 2, -1, 0));
+        Assert.assertNotSame(cache, registry.getCache(y, 1, -1, 0));
+
+        // table truncated
+        final SharedSymbolCache truncated = registry.getCache(x, 1, -1, 1);
+        Assert.assertNotNull(truncated);
+        Assert.assertNotSame(cache, truncated);
+        // stale view of the table
+        Assert.assertNull(registry.getCache(x, 1, -1, 0));
+
+        // column re-created
+        final SharedSymbolCache recreated = registry.getCache(x, 1, 5, 1);
+        Assert.assertNotNull(recreated);
+        Assert.assertNotSame(truncated, recreated);
+        Assert.assertSame(recreated, registry.getCache(x, 1, 5, 1));
+
+        registry.remove(x);
+        Assert.assertNotSame(recreated, registry.getCache(x, 1, 5, 1));
+        Assert.assertNotNull(registry.getCache(y, 1, -1, 0));
+    }
+}
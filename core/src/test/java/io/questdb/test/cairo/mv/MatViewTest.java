@@ -0,0 +1,394 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cairo.mv;
+
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.mv.MatViewDefinition;
+import io.questdb.cairo.mv.MatViewGraph;
+import io.questdb.cairo.mv.MatViewRefreshJob;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.ObjHashSet;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8s;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.std.TestFilesFacadeImpl;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class MatViewTest extends AbstractCairoTest {
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        engine.getMatViewGraph().clear();
+        try {
+            ddl("create table trades (sym symbol, price double, amount double, ts timestamp) timestamp(ts) partition by day wal");
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void testAppendRefreshQuery() throws Exception {
+        final MatViewDefinition viewDefinition = new MatViewDefinition(
+                "trades",
+                true,
+                "15m",
+                "select ts, max(price) from trades t sample by 15m",
+                27,
+                33
+        );
+        final StringSink sink = new StringSink();
+        final long lo = viewDefinition.floor(1704067500000000L);
+        final long hi = viewDefinition.nextBucket(1704071100000000L);
+        viewDefinition.appendRefreshQuery(sink, "ts", lo, hi);
+        TestUtils.assertEquals(
+                "select ts, max(price) from (select * from \"trades\" where \"ts\" >= '2024-01-01T00:00:00.000000Z' and \"ts\" < '2024-01-01T01:15:00.000000Z') t sample by 15m",
+                sink
+        );
+    }
+
+    @Test
+    public void testCreateRejectsUnsupportedQueries() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table plain (price double, ts timestamp) timestamp(ts) partition by day bypass wal");
+            assertException(
+                    "create materialized view v as (select ts, max(price) from plain sample by 1h)",
+                    25,
+                    "base table must be a WAL table"
+            );
+            assertException(
+                    "create materialized view v as (select ts, max(price) from trades where price > 1)",
+                    31,
+                    "materialized view query must use SAMPLE BY"
+            );
+            assertException(
+                    "create materialized view v as (select ts, max(price) from trades sample by 1h align to first observation)",
+                    75,
+                    "materialized view query must be aligned to calendar"
+            );
+            assertException(
+                    "create materialized view v as (select ts, max(price) from trades sample by 1h fill(prev))",
+                    83,
+                    "materialized view query does not support FILL"
+            );
+            assertException(
+                    "create materialized view v as (select ts, max(price) from trades sample by 1h align to calendar with offset '00:30')",
+                    75,
+                    "does not support time zone or offset"
+            );
+            assertException(
+                    "create materialized view v as (select * from trades sample by 1h)",
+                    38,
+                    "materialized view query must list its columns"
+            );
+            assertException(
+                    "create materialized view v as (select ts, price + 1, max(price) from trades sample by 1h)",
+                    48,
+                    "column must be either a column reference or an aggregate"
+            );
+            assertException(
+                    "create materialized view v as (select max(price) from trades sample by 1h)",
+                    25,
+                    "must select the sampled timestamp"
+            );
+            assertException(
+                    "create materialized view v as (select t1.ts, max(t1.price) from trades t1 join trades t2 on sym sample by 1h)",
+                    31,
+                    "must select from a single table"
+            );
+            assertException(
+                    "create materialized view v as (select ts, max(price) from trades sample by 1h) partition by none",
+                    92,
+                    "'HOUR', 'DAY', 'MONTH' or 'YEAR' expected"
+            );
+            Assert.assertEquals(0, getViews().size());
+        });
+    }
+
+    @Test
+    public void testDropView() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create materialized view v as (select ts, max(price) from trades sample by 1h)");
+            Assert.assertEquals(1, getViews().size());
+            drop("drop table v");
+            Assert.assertEquals(0, getViews().size());
+        });
+    }
+
+    @Test
+    public void testFailedFullRefreshKeepsViewData() throws Exception {
+        final AtomicBoolean failOpen = new AtomicBoolean();
+        final FilesFacade ff = new TestFilesFacadeImpl() {
+            @Override
+            public int openRO(LPSZ name) {
+                if (failOpen.get() && Utf8s.containsAscii(name, "2024-01-03") && Utf8s.endsWithAscii(name, "amount.d")) {
+                    return -1;
+                }
+                return super.openRO(name);
+            }
+        };
+
+        assertMemoryLeak(ff, () -> {
+            try {
+                currentMicros = 1_000_000_000_000L;
+                insert("insert into trades values ('a', 1, 1, '2024-01-01T10:00:00.000000Z')");
+                drainWalQueue();
+                ddl("create materialized view v as (select ts, sum(amount) amount from trades sample by 1d)");
+                drainWalQueue();
+                refresh();
+
+                // truncate refreshes the view fully, the query fails
+                failOpen.set(true);
+                ddl("truncate table trades");
+                insert("insert into trades values ('a', 1, 7, '2024-01-03T10:00:00.000000Z')");
+                drainWalQueue();
+                refresh();
+                drainWalQueue();
+                Assert.assertTrue(getViews().getQuick(0).hasPendingRefresh());
+                assertSql(
+                        "ts\tamount\n" +
+                                "2024-01-01T00:00:00.000000Z\t1.0\n",
+                        "v"
+                );
+
+                failOpen.set(false);
+                currentMicros += 2_000_000L;
+                refresh();
+                drainWalQueue();
+                assertSql(
+                        "ts\tamount\n" +
+                                "2024-01-03T00:00:00.000000Z\t7.0\n",
+                        "v"
+                );
+            } finally {
+                currentMicros = -1;
+            }
+        });
+    }
+
+    @Test
+    public void testIncrementalRefresh() throws Exception {
+        assertMemoryLeak(() -> {
+            insert(
+                    "insert into trades values " +
+                            "('a', 10, 1, '2024-01-01T00:10:00.000000Z'), " +
+                            "('a', 12, 2, '2024-01-01T00:50:00.000000Z'), " +
+                            "('a', 11, 1, '2024-01-01T01:20:00.000000Z')"
+            );
+            drainWalQueue();
+
+            ddl("create materialized view ohlc as (" +
+                    "select ts, first(price) open, max(price) high, min(price) low, last(price) close, sum(amount) volume " +
+                    "from trades sample by 1h" +
+                    ") partition by day");
+            drainWalQueue();
+            refresh();
+
+            final String query = "ohlc";
+            assertSql(
+                    "ts\topen\thigh\tlow\tclose\tvolume\n" +
+                            "2024-01-01T00:00:00.000000Z\t10.0\t12.0\t10.0\t12.0\t3.0\n" +
+                            "2024-01-01T01:00:00.000000Z\t11.0\t11.0\t11.0\t11.0\t1.0\n",
+                    query
+            );
+
+            // appended bucket and out-of-order row into an existing bucket
+            insert(
+                    "insert into trades values " +
+                            "('a', 9, 5, '2024-01-01T02:05:00.000000Z'), " +
+                            "('a', 20, 1, '2024-01-01T00:30:00.000000Z')"
+            );
+            drainWalQueue();
+            refresh();
+            assertSql(
+                    "ts\topen\thigh\tlow\tclose\tvolume\n" +
+                            "2024-01-01T00:00:00.000000Z\t10.0\t20.0\t10.0\t12.0\t4.0\n" +
+                            "2024-01-01T01:00:00.000000Z\t11.0\t11.0\t11.0\t11.0\t1.0\n" +
+                            "2024-01-01T02:00:00.000000Z\t9.0\t9.0\t9.0\t9.0\t5.0\n",
+                    query
+            );
+            assertSql(
+                    "ts\topen\thigh\tlow\tclose\tvolume\n" +
+                            "2024-01-01T00:00:00.000000Z\t10.0\t20.0\t10.0\t12.0\t4.0\n" +
+                            "2024-01-01T01:00:00.000000Z\t11.0\t11.0\t11.0\t11.0\t1.0\n" +
+                            "2024-01-01T02:00:00.000000Z\t9.0\t9.0\t9.0\t9.0\t5.0\n",
+                    "select ts, first(price) open, max(price) high, min(price) low, last(price) close, sum(amount) volume " +
+                            "from trades sample by 1h align to calendar"
+            );
+        });
+    }
+
+    @Test
+    public void testKeyedView() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create materialized view v as (select t.ts, t.sym, sum(t.amount) amount from trades t sample by 1d)");
+            drainWalQueue();
+
+            insert(
+                    "insert into trades values " +
+                            "('a', 1, 1, '2024-01-01T10:00:00.000000Z'), " +
+                            "('b', 1, 2, '2024-01-01T11:00:00.000000Z'), " +
+                            "('a', 1, 3, '2024-01-02T10:00:00.000000Z')"
+            );
+            drainWalQueue();
+            refresh();
+            insert("insert into trades values ('b', 1, 4, '2024-01-01T23:00:00.000000Z')");
+            drainWalQueue();
+            refresh();
+
+            assertSql(
+                    "ts\tsym\tamount\n" +
+                            "2024-01-01T00:00:00.000000Z\ta\t1.0\n" +
+                            "2024-01-01T00:00:00.000000Z\tb\t6.0\n" +
+                            "2024-01-02T00:00:00.000000Z\ta\t3.0\n",
+                    "v order by ts, sym"
+            );
+        });
+    }
+
+    @Test
+    public void testLoadAndFullRefresh() throws Exception {
+        assertMemoryLeak(() -> {
+            insert("insert into trades values ('a', 1, 1, '2024-01-01T10:00:00.000000Z')");
+            drainWalQueue();
+            ddl("create materialized view v as (select ts, sum(amount) amount from trades sample by 1d)");
+            drainWalQueue();
+
+            // definition is persisted in the view directory
+            final ObjHashSet<TableToken> tableTokens = new ObjHashSet<>();
+            engine.getTableTokens(tableTokens, false);
+            final MatViewGraph graph = new MatViewGraph();
+            graph.load(configuration, tableTokens);
+            final ObjList<MatViewDefinition> views = new ObjList<>();
+            graph.getViews(views);
+            Assert.assertEquals(1, views.size());
+            Assert.assertEquals("trades", views.getQuick(0).getBaseTableName());
+            Assert.assertEquals("1d", views.getQuick(0).getSamplingInterval());
+            Assert.assertEquals("select ts, sum(amount) amount from trades sample by 1d", views.getQuick(0).getQuery());
+            Assert.assertTrue(views.getQuick(0).hasPendingRefresh());
+
+            // truncate refreshes the view fully
+            ddl("truncate table trades");
+            insert("insert into trades values ('a', 1, 7, '2024-01-03T10:00:00.000000Z')");
+            drainWalQueue();
+            refresh();
+            assertSql(
+                    "ts\tamount\n" +
+                            "2024-01-03T00:00:00.000000Z\t7.0\n",
+                    "v"
+            );
+        });
+    }
+
+    @Test
+    public void testRefreshFailureIsRetried() throws Exception {
+        final AtomicBoolean failOpen = new AtomicBoolean();
+        final FilesFacade ff = new TestFilesFacadeImpl() {
+            @Override
+            public int openRO(LPSZ name) {
+                if (failOpen.get() && Utf8s.containsAscii(name, "2024-01-02") && Utf8s.endsWithAscii(name, "amount.d")) {
+                    return -1;
+                }
+                return super.openRO(name);
+            }
+        };
+
+        assertMemoryLeak(ff, () -> {
+            try {
+                currentMicros = 1_000_000_000_000L;
+                insert("insert into trades values ('a', 1, 1, '2024-01-01T10:00:00.000000Z')");
+                drainWalQueue();
+                ddl("create materialized view v as (select ts, sum(amount) amount from trades sample by 1d)");
+                drainWalQueue();
+                refresh();
+
+                // the new partition can't be read, refresh fails without invalidating the view
+                failOpen.set(true);
+                insert("insert into trades values ('a', 1, 2, '2024-01-02T10:00:00.000000Z')");
+                drainWalQueue();
+                refresh();
+                Assert.assertFalse(getViews().getQuick(0).isInvalid());
+                Assert.assertTrue(getViews().getQuick(0).hasPendingRefresh());
+
+                // retry waits for the back-off delay
+                failOpen.set(false);
+                refresh();
+                assertSql(
+                        "ts\tamount\n" +
+                                "2024-01-01T00:00:00.000000Z\t1.0\n",
+                        "v"
+                );
+
+                currentMicros += 2_000_000L;
+                refresh();
+                assertSql(
+                        "ts\tamount\n" +
+                                "2024-01-01T00:00:00.000000Z\t1.0\n" +
+                                "2024-01-02T00:00:00.000000Z\t2.0\n",
+                        "v"
+                );
+                Assert.assertFalse(getViews().getQuick(0).isInvalid());
+                Assert.assertEquals(0, getViews().getQuick(0).getRefreshRetryTime());
+            } finally {
+                currentMicros = -1;
+            }
+        });
+    }
+
+    @Test
+    public void testSchemaChangeInvalidatesView() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create materialized view v as (select ts, sum(amount) amount from trades sample by 1d)");
+            drainWalQueue();
+            ddl("alter table trades drop column amount");
+            drainWalQueue();
+            insert("insert into trades values ('a', 1, '2024-01-01T10:00:00.000000Z')");
+            drainWalQueue();
+            refresh();
+            Assert.assertTrue(getViews().getQuick(0).isInvalid());
+        });
+    }
+
+    private static ObjList<MatViewDefinition> getViews() {
+        final ObjList<MatViewDefinition> views = new ObjList<>();
+        engine.getMatViewGraph().getViews(views);
+        return views;
+    }
+
+    private static void refresh() {
+        try (MatViewRefreshJob refreshJob = new MatViewRefreshJob(engine)) {
+            //noinspection StatementWithEmptyBody
+            while (refreshJob.run(0)) ;
+        }
+        drainWalQueue();
+    }
+}
@@ -659,6 +659,7 @@ public class WriterPoolTest extends AbstractCairoTest {
                     DefaultLifecycleManager.INSTANCE,
                     configuration.getRoot(),
                     engine.getDdlListener(tableToken),
+                    engine.getSharedSymbolCacheRegistry(),
                     () -> false,
                     metrics
             );
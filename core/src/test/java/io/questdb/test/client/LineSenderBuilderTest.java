@@ -274,6 +274,8 @@ public class LineSenderBuilderTest extends AbstractLineTcpReceiverTest {
             assertConfStrError("http::addr=localhost:8080;auto_flush=invalid;", "invalid auto_flush [value=invalid, allowed-values=[on, off]]");
             assertConfStrError("http::addr=localhost:8080;auto_flush=off;auto_flush_rows=100;", "cannot set auto flush rows when auto-flush is disabled");
             assertConfStrError("http::addr=localhost:8080;auto_flush_rows=100;auto_flush=off;", "auto flush rows was already configured [autoFlushRows=100]");
+            assertConfStrError("http::addr=localhost:8080;max_in_flight=0;", "max in-flight requests must be positive [maxInFlightRequests=0]");
+            assertConfStrError("tcp::addr=localhost;max_in_flight=2;", "max in-flight requests is not supported for TCP protocol");
             assertConfStrError("HTTP::addr=localhost;", "invalid schema [schema=HTTP, supported-schemas=[http, https, tcp, tcps]]");
             assertConfStrError("HTTPS::addr=localhost;", "invalid schema [schema=HTTPS, supported-schemas=[http, https, tcp, tcps]]");
             assertConfStrError("TCP::addr=localhost;", "invalid schema [schema=TCP, supported-schemas=[http, https, tcp, tcps]]");
@@ -293,6 +295,7 @@ public class LineSenderBuilderTest extends AbstractLineTcpReceiverTest {
             assertConfStrOk("http::addr=localhost:8080;token=foo;max_buf_size=1000000;retry_timeout=1000;");
             assertConfStrOk("https::addr=localhost:8080;tls_verify=unsafe_off;auto_flush_rows=100;");
             assertConfStrOk("https::addr=localhost:8080;tls_verify=on;");
+            assertConfStrOk("http::addr=localhost:8080;max_in_flight=4;");
             assertConfStrError("https::addr=2001:0db8:85a3:0000:0000:8a2e:0370:7334;tls_verify=on;", "cannot parse a port from the address, use IPv4 address or a domain name [address=2001:0db8:85a3:0000:0000:8a2e:0370:7334]");
             assertConfStrError("https::addr=[2001:0db8:85a3:0000:0000:8a2e:0370:7334]:9000;tls_verify=on;", "cannot parse a port from the address, use IPv4 address or a domain name [address=[2001:0db8:85a3:0000:0000:8a2e:0370:7334]:9000]");
         });
@@ -692,6 +695,18 @@ public class LineSenderBuilderTest extends AbstractLineTcpReceiverTest {
         });
     }
 
+    @Test
+    public void testMaxInFlightRequestsDoubleSet() throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                Sender.builder(Sender.Transport.HTTP).address(LOCALHOST).maxInFlightRequests(2).maxInFlightRequests(4);
+                fail("should not allow double max in-flight requests set");
+            } catch (LineSenderException e) {
+                TestUtils.assertContains(e.getMessage(), "max in-flight requests was already configured [maxInFlightRequests=2]");
+            }
+        });
+    }
+
     @Test
     public void testMaxRequestBufferSizeCannotBeLessThanDefault() throws Exception {
         assertMemoryLeak(() -> {
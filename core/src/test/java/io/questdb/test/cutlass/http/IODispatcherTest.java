@@ -651,6 +651,87 @@ public class IODispatcherTest extends AbstractTest {
         );
     }
 
+    @Test
+    public void testExpArrowFormat() throws Exception {
+        getSimpleTester().run(engine -> {
+            testHttpClient.assertGet(
+                    "{\"ddl\":\"OK\"}",
+                    "create table x as (" +
+                            "select x l, rnd_str('a','bc',null) s, timestamp_sequence(0, 60000000) ts from long_sequence(200)" +
+                            ") timestamp(ts) partition by hour"
+            );
+
+            final CharSequenceObjHashMap<String> params = new CharSequenceObjHashMap<>();
+            params.put("fmt", "arrow");
+            final Utf8StringSink sink = new Utf8StringSink();
+
+            // full scan is sent as one record batch per partition
+            testHttpClient.toSink("/exp", "x", params, sink);
+            assertArrowStream(sink, 200, 4);
+
+            // limited result set is sent record by record
+            testHttpClient.toSink("/exp", "x where l > 10 limit 150", params, sink);
+            assertArrowStream(sink, 150, 1);
+
+            try (SqlExecutionContext executionContext = TestUtils.createSqlExecutionCtx(engine)) {
+                engine.ddl("create table y (l long, c char, ip ipv4, s string, sym symbol, ts timestamp) timestamp(ts) partition by day", executionContext);
+                engine.insert(
+                        "insert into y values " +
+                                "(1, 'A', '255.255.255.1', 'a', 'x', '1970-01-01T00:00:00.000000Z'), " +
+                                "(null, null, null, null, null, '1970-01-01T01:00:00.000000Z'), " +
+                                "(3, '豈', '1.2.3.4', 'bcd', 'y', '1970-01-01T02:00:00.000000Z')",
+                        executionContext
+                );
+                // the first partition has a column top for d
+                engine.ddl("alter table y add column d double", executionContext);
+                engine.insert(
+                        "insert into y values " +
+                                "(4, 'B', '0.0.0.1', 'é', 'x', '1970-01-02T00:00:00.000000Z', 1.5), " +
+                                "(5, 'C', null, '', 'y', '1970-01-02T01:00:00.000000Z', null)",
+                        executionContext
+                );
+            }
+
+            testHttpClient.toSink("/exp", "y", params, sink);
+            assertArrowStream(sink, 5, 2);
+            TestUtils.assertEquals(
+                    "l:int64 c:uint16 ip:uint32 s:utf8 sym:utf8 ts:timestamp d:float64\n" +
+                            "rows:3\n" +
+                            "l=1,null,3\n" +
+                            "c=65,null,35912\n" +
+                            "ip=4294967041,null,16909060\n" +
+                            "s=\"a\",null,\"bcd\"\n" +
+                            "sym=\"x\",null,\"y\"\n" +
+                            "ts=0,3600000000,7200000000\n" +
+                            "d=null,null,null\n" +
+                            "rows:2\n" +
+                            "l=4,5\n" +
+                            "c=66,67\n" +
+                            "ip=1,null\n" +
+                            "s=\"é\",\"\"\n" +
+                            "sym=\"x\",\"y\"\n" +
+                            "ts=86400000000,90000000000\n" +
+                            "d=1.5,null\n",
+                    arrowStreamToText(sink)
+            );
+
+            testHttpClient.toSink("/exp", "y limit 5", params, sink);
+            assertArrowStream(sink, 5, 1);
+            TestUtils.assertEquals(
+                    "l:int64 c:uint16 ip:uint32 s:utf8 sym:utf8 ts:timestamp d:float64\n" +
+                            "rows:5\n" +
+                            "l=1,null,3,4,5\n" +
+                            "c=65,null,35912,66,67\n" +
+                            "ip=4294967041,null,16909060,1,null\n" +
+                            "s=\"a\",null,\"bcd\",\"é\",\"\"\n" +
+                            "sym=\"x\",null,\"y\",\"x\",\"y\"\n" +
+                            "ts=0,3600000000,7200000000,86400000000,90000000000\n" +
+                            "d=null,null,null,1.5,null\n",
+                    arrowStreamToText(sink)
+            );
+        });
+    }
+
     @Test
     public void testExpCustomDelimiter() throws Exception {
         testJsonQuery(
@@ -8045,6 +8126,202 @@ public class IODispatcherTest extends AbstractTest {
         );
     }
 
+    private static int arrowFieldOffset(Utf8Sequence stream, int table, int slot) {
+        final int vtable = table - arrowInt(stream, table);
+        return table + ((stream.byteAt(vtable + 4 + 2 * slot) & 0xff) | (stream.byteAt(vtable + 5 + 2 * slot) & 0xff) << 8);
+    }
+
+    private static int arrowInt(Utf8Sequence stream, int offset) {
+        return (stream.byteAt(offset) & 0xff)
+                | (stream.byteAt(offset + 1) & 0xff) << 8
+                | (stream.byteAt(offset + 2) & 0xff) << 16
+                | (stream.byteAt(offset + 3) & 0xff) << 24;
+    }
+
+    private static String arrowStreamToText(Utf8Sequence stream) {
+        // prints the schema and the values of every record batch, null values are taken from validity bitmaps
+        final Utf8StringSink text = new Utf8StringSink();
+        final ObjList<String> names = new ObjList<>();
+        final IntList types = new IntList();
+        final IntList typeTables = new IntList();
+        int offset = 0;
+        while (true) {
+            final int metadataLength = arrowInt(stream, offset + 4);
+            offset += 8;
+            if (metadataLength == 0) {
+                break;
+            }
+            final int message = offset + arrowInt(stream, offset);
+            final byte headerType = stream.byteAt(arrowFieldOffset(stream, message, 1));
+            final int header = arrowTable(stream, arrowFieldOffset(stream, message, 2));
+            final long bodyLength = stream.longAt(arrowFieldOffset(stream, message, 3));
+            final int body = offset + metadataLength;
+            if (headerType == 1) {
+                final int fields = arrowTable(stream, arrowFieldOffset(stream, header, 1));
+                for (int i = 0, n = arrowInt(stream, fields); i < n; i++) {
+                    final int field = arrowTable(stream, fields + 4 + 4 * i);
+                    final int name = arrowTable(stream, arrowFieldOffset(stream, field, 0));
+                    final int type = stream.byteAt(arrowFieldOffset(stream, field, 2));
+                    final int typeTable = arrowTable(stream, arrowFieldOffset(stream, field, 3));
+                    final Utf8StringSink nameSink = new Utf8StringSink();
+                    for (int b = 0, len = arrowInt(stream, name); b < len; b++) {
+                        nameSink.put(stream.byteAt(name + 4 + b));
+                    }
+                    names.add(nameSink.toString());
+                    types.add(type);
+                    typeTables.add(typeTable);
+                    if (i > 0) {
+                        text.putAscii(' ');
+                    }
+                    text.put(names.getLast()).putAscii(':');
+                    switch (type) {
+                        case 2:
+                            final boolean signed = stream.byteAt(arrowFieldOffset(stream, typeTable, 1)) != 0;
+                            text.putAscii(signed ? "int" : "uint").put(arrowInt(stream, arrowFieldOffset(stream, typeTable, 0)));
+                            break;
+                        case 3:
+                            text.putAscii(stream.byteAt(arrowFieldOffset(stream, typeTable, 0)) == 1 ? "float32" : "float64");
+                            break;
+                        case 5:
+                            text.putAscii("utf8");
+                            break;
+                        case 10:
+                            text.putAscii("timestamp");
+                            break;
+                        default:
+                            Assert.fail("unexpected type " + type);
+                    }
+                }
+                text.putAscii('\n');
+            } else {
+                final long rowCount = stream.longAt(arrowFieldOffset(stream, header, 0));
+                final int nodes = arrowTable(stream, arrowFieldOffset(stream, header, 1));
+                final int buffers = arrowTable(stream, arrowFieldOffset(stream, header, 2));
+                Assert.assertEquals(names.size(), arrowInt(stream, nodes));
+                text.putAscii("rows:").put(rowCount).putAscii('\n');
+                int buffer = buffers + 4;
+                for (int i = 0, n = names.size(); i < n; i++) {
+                    Assert.assertEquals(rowCount, stream.longAt(nodes + 4 + 16 * i));
+                    final long nullCount = stream.longAt(nodes + 12 + 16 * i);
+                    final int validity = body + (int) stream.longAt(buffer);
+                    final long validityLength = stream.longAt(buffer + 8);
+                    final int values = body + (int) stream.longAt(buffer + 16);
+                    final int type = types.getQuick(i);
+                    final int typeTable = typeTables.getQuick(i);
+                    // utf8 columns have a data buffer after the offsets
+                    final int data = type == 5 ? body + (int) stream.longAt(buffer + 32) : 0;
+                    buffer += type == 5 ? 48 : 32;
+                    Assert.assertTrue(validityLength == 0 || validityLength >= (rowCount + 7) / 8);
+
+                    text.put(names.getQuick(i)).putAscii('=');
+                    long actualNullCount = 0;
+                    for (int r = 0; r < rowCount; r++) {
+                        if (r > 0) {
+                            text.putAscii(',');
+                        }
+                        final boolean valid = validityLength == 0 || (stream.byteAt(validity + (r >>> 3)) & (1 << (r & 7))) != 0;
+                        if (type == 5) {
+                            final int lo = arrowInt(stream, values + 4 * r);
+                            final int hi = arrowInt(stream, values + 4 * r + 4);
+                            if (valid) {
+                                text.putAscii('"');
+                                for (int b = lo; b < hi; b++) {
+                                    text.put(stream.byteAt(data + b));
+                                }
+                                text.putAscii('"');
+                            } else {
+                                // null strings take no space in the data buffer
+                                Assert.assertEquals(lo, hi);
+                            }
+                        } else if (valid) {
+                            switch (type) {
+                                case 2:
+                                    final boolean signed = stream.byteAt(arrowFieldOffset(stream, typeTable, 1)) != 0;
+                                    switch (arrowInt(stream, arrowFieldOffset(stream, typeTable, 0))) {
+                                        case 8:
+                                            final byte b = stream.byteAt(values + r);
+                                            text.put(signed ? b : b & 0xff);
+                                            break;
+                                        case 16:
+                                            final int s = (stream.byteAt(values + 2 * r) & 0xff) | (stream.byteAt(values + 2 * r + 1) & 0xff) << 8;
+                                            text.put(signed ? (short) s : s);
+                                            break;
+                                        case 32:
+                                            final int v = arrowInt(stream, values + 4 * r);
+                                            text.put(signed ? v : Integer.toUnsignedLong(v));
+                                            break;
+                                        default:
+                                            text.put(stream.longAt(values + 8 * r));
+                                            break;
+                                    }
+                                    break;
+                                case 3:
+                                    if (stream.byteAt(arrowFieldOffset(stream, typeTable, 0)) == 1) {
+                                        text.put(Float.intBitsToFloat(arrowInt(stream, values + 4 * r)));
+                                    } else {
+                                        text.put(Double.longBitsToDouble(stream.longAt(values + 8 * r)));
+                                    }
+                                    break;
+                                default:
+                                    text.put(stream.longAt(values + 8 * r));
+                                    break;
+                            }
+                        }
+                        if (!valid) {
+                            text.putAscii("null");
+                            actualNullCount++;
+                        }
+                    }
+                    text.putAscii('\n');
+                    Assert.assertEquals(nullCount, actualNullCount);
+                }
+                Assert.assertEquals(buffers + 4 + 16 * arrowInt(stream, buffers), buffer);
+            }
+            offset += metadataLength + (int) bodyLength;
+        }
+        return text.toString();
+    }
+
+    private static int arrowTable(Utf8Sequence stream, int field) {
+        return field + arrowInt(stream, field);
+    }
+
+    private static void assertArrowStream(Utf8Sequence stream, long expectedRowCount, int expectedBatchCount) {
+        // walk the messages, Message and RecordBatch flatbuffer tables are read through their vtables
+        int offset = 0;
+        int batchCount = 0;
+        long rowCount = 0;
+        boolean schema = false;
+        while (true) {
+            Assert.assertEquals(-1, arrowInt(stream, offset));
+            final int metadataLength = arrowInt(stream, offset + 4);
+            offset += 8;
+            if (metadataLength == 0) {
+                break;
+            }
+            Assert.assertEquals(0, (offset + metadataLength) % 8);
+            final int message = offset + arrowInt(stream, offset);
+            final byte headerType = stream.byteAt(arrowFieldOffset(stream, message, 1));
+            final int headerField = arrowFieldOffset(stream, message, 2);
+            final int header = headerField + arrowInt(stream, headerField);
+            final long bodyLength = stream.longAt(arrowFieldOffset(stream, message, 3));
+            if (headerType == 1) {
+                Assert.assertFalse(schema);
+                Assert.assertEquals(0, bodyLength);
+                schema = true;
+            } else {
+                Assert.assertEquals(3, headerType);
+                Assert.assertTrue(schema);
+                rowCount += stream.longAt(arrowFieldOffset(stream, header, 0));
+                batchCount++;
+            }
+            offset += metadataLength + (int) bodyLength;
+        }
+        Assert.assertEquals(stream.size(), offset);
+        Assert.assertEquals(expectedRowCount, rowCount);
+        Assert.assertEquals(expectedBatchCount, batchCount);
+    }
+
     private static void assertDownloadResponse(
             int fd,
             Rnd rnd,
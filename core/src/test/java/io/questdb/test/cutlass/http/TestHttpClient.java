@@ -198,6 +198,16 @@ public class TestHttpClient implements QuietCloseable {
         }
     }
 
+    public void toSink(CharSequence url, CharSequence sql, CharSequenceObjHashMap<String> queryParams, Utf8StringSink sink) {
+        try {
+            toSink0(url, sql, sink, null, null, null, queryParams, null);
+        } finally {
+            if (!keepConnection) {
+                httpClient.disconnect();
+            }
+        }
+    }
+
     private void reqToSink(
             HttpClient.Request req,
             Utf8StringSink sink,
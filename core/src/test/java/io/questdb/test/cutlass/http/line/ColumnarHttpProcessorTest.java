@@ -0,0 +1,282 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cutlass.http.line;
+
+import io.questdb.DefaultHttpClientConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cutlass.http.client.HttpClient;
+import io.questdb.cutlass.http.client.HttpClientFactory;
+import io.questdb.test.AbstractBootstrapTest;
+import io.questdb.test.TestServerMain;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class ColumnarHttpProcessorTest extends AbstractBootstrapTest {
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        TestUtils.unchecked(() -> createDummyConfiguration());
+        dbPath.parent().$();
+    }
+
+    @Test
+    public void testBadTimestampBlockFollowedByGoodBlock() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                serverMain.start();
+                serverMain.compile("create table x (i int, ts timestamp) timestamp(ts) partition by DAY WAL");
+
+                try (HttpClient httpClient = HttpClientFactory.newPlainTextInstance(new DefaultHttpClientConfiguration())) {
+                    // the int column goes in first, then the second timestamp fails validation
+                    HttpClient.Request request = httpClient.newRequest("localhost", serverMain.getHttpServerPort());
+                    request.POST().url("/write/columnar?table=x ").withContent();
+                    putLong(request, 2);
+                    putInt(request, 2);
+                    putColumnHeader(request, "i", ColumnType.INT);
+                    putInt(request, 1);
+                    putInt(request, 2);
+                    putColumnHeader(request, "ts", ColumnType.TIMESTAMP);
+                    putLong(request, 1_000_000);
+                    putLong(request, -1);
+                    try (HttpClient.ResponseHeaders resp = request.send()) {
+                        resp.await();
+                        TestUtils.assertEquals("400", resp.getStatusCode());
+                    }
+
+                    // the same pooled writer must accept a valid block afterwards
+                    request = httpClient.newRequest("localhost", serverMain.getHttpServerPort());
+                    request.POST().url("/write/columnar?table=x ").withContent();
+                    putLong(request, 2);
+                    putInt(request, 2);
+                    putColumnHeader(request, "i", ColumnType.INT);
+                    putInt(request, 3);
+                    putInt(request, 4);
+                    putColumnHeader(request, "ts", ColumnType.TIMESTAMP);
+                    putLong(request, 3_000_000);
+                    putLong(request, 4_000_000);
+                    try (HttpClient.ResponseHeaders resp = request.send()) {
+                        resp.await();
+                        TestUtils.assertEquals("204", resp.getStatusCode());
+                    }
+                }
+
+                serverMain.awaitTable("x");
+                serverMain.assertSql(
+                        "x",
+                        "i\tts\n" +
+                                "3\t1970-01-01T00:00:03.000000Z\n" +
+                                "4\t1970-01-01T00:00:04.000000Z\n"
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testColumnTypeMismatch() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                serverMain.start();
+                serverMain.compile("create table x (v double, ts timestamp) timestamp(ts) partition by DAY WAL");
+
+                try (HttpClient httpClient = HttpClientFactory.newPlainTextInstance(new DefaultHttpClientConfiguration())) {
+                    HttpClient.Request request = httpClient.newRequest("localhost", serverMain.getHttpServerPort());
+                    request.POST().url("/write/columnar?table=x ").withContent();
+                    putLong(request, 1);
+                    putInt(request, 1);
+                    putColumnHeader(request, "v", ColumnType.LONG);
+                    putLong(request, 42);
+                    try (HttpClient.ResponseHeaders resp = request.send()) {
+                        resp.await();
+                        TestUtils.assertEquals("400", resp.getStatusCode());
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testColumnarBatches() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                serverMain.start();
+                serverMain.compile("create table x (i int, v double, s symbol, ts timestamp) timestamp(ts) partition by DAY WAL");
+
+                try (HttpClient httpClient = HttpClientFactory.newPlainTextInstance(new DefaultHttpClientConfiguration())) {
+                    HttpClient.Request request = httpClient.newRequest("localhost", serverMain.getHttpServerPort());
+                    request.POST().url("/write/columnar?table=x ").withContent();
+
+                    // first batch, out of order timestamps, symbol column omitted
+                    putLong(request, 3);
+                    putInt(request, 3);
+                    putColumnHeader(request, "ts", ColumnType.TIMESTAMP);
+                    putLong(request, 2_000_000);
+                    putLong(request, 1_000_000);
+                    putLong(request, 3_000_000);
+                    putColumnHeader(request, "i", ColumnType.INT);
+                    putInt(request, 2);
+                    putInt(request, 1);
+                    putInt(request, 3);
+                    putColumnHeader(request, "v", ColumnType.DOUBLE);
+                    putLong(request, Double.doubleToLongBits(2.5));
+                    putLong(request, Double.doubleToLongBits(1.5));
+                    putLong(request, Double.doubleToLongBits(3.5));
+
+                    // second batch, double column omitted
+                    putLong(request, 1);
+                    putInt(request, 2);
+                    putColumnHeader(request, "i", ColumnType.INT);
+                    putInt(request, 4);
+                    putColumnHeader(request, "ts", ColumnType.TIMESTAMP);
+                    putLong(request, 4_000_000);
+
+                    try (HttpClient.ResponseHeaders resp = request.send()) {
+                        resp.await();
+                        TestUtils.assertEquals("204", resp.getStatusCode());
+                    }
+                }
+
+                serverMain.awaitTable("x");
+                serverMain.assertSql(
+                        "x",
+                        "i\tv\ts\tts\n" +
+                                "1\t1.5\t\t1970-01-01T00:00:01.000000Z\n" +
+                                "2\t2.5\t\t1970-01-01T00:00:02.000000Z\n" +
+                                "3\t3.5\t\t1970-01-01T00:00:03.000000Z\n" +
+                                "4\tNaN\t\t1970-01-01T00:00:04.000000Z\n"
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testEmptyBatch() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                serverMain.start();
+                serverMain.compile("create table x (i int, ts timestamp) timestamp(ts) partition by DAY WAL");
+
+                try (HttpClient httpClient = HttpClientFactory.newPlainTextInstance(new DefaultHttpClientConfiguration())) {
+                    HttpClient.Request request = httpClient.newRequest("localhost", serverMain.getHttpServerPort());
+                    request.POST().url("/write/columnar?table=x ").withContent();
+
+                    // empty batch without the designated timestamp is a no-op
+                    putLong(request, 0);
+                    putInt(request, 1);
+                    putColumnHeader(request, "i", ColumnType.INT);
+
+                    putLong(request, 1);
+                    putInt(request, 2);
+                    putColumnHeader(request, "i", ColumnType.INT);
+                    putInt(request, 42);
+                    putColumnHeader(request, "ts", ColumnType.TIMESTAMP);
+                    putLong(request, 1_000_000);
+
+                    try (HttpClient.ResponseHeaders resp = request.send()) {
+                        resp.await();
+                        TestUtils.assertEquals("204", resp.getStatusCode());
+                    }
+                }
+
+                serverMain.awaitTable("x");
+                serverMain.assertSql(
+                        "x",
+                        "i\tts\n" +
+                                "42\t1970-01-01T00:00:01.000000Z\n"
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testMissingDesignatedTimestamp() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                serverMain.start();
+                serverMain.compile("create table x (i int, ts timestamp) timestamp(ts) partition by DAY WAL");
+
+                try (HttpClient httpClient = HttpClientFactory.newPlainTextInstance(new DefaultHttpClientConfiguration())) {
+                    HttpClient.Request request = httpClient.newRequest("localhost", serverMain.getHttpServerPort());
+                    request.POST().url("/write/columnar?table=x ").withContent();
+                    putLong(request, 1);
+                    putInt(request, 1);
+                    putColumnHeader(request, "i", ColumnType.INT);
+                    putInt(request, 42);
+                    try (HttpClient.ResponseHeaders resp = request.send()) {
+                        resp.await();
+                        TestUtils.assertEquals("400", resp.getStatusCode());
+                    }
+                }
+
+                serverMain.awaitTable("x");
+                serverMain.assertSql("select count() from x", "count\n0\n");
+            }
+        });
+    }
+
+    @Test
+    public void testTableDoesNotExist() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                serverMain.start();
+
+                try (HttpClient httpClient = HttpClientFactory.newPlainTextInstance(new DefaultHttpClientConfiguration())) {
+                    HttpClient.Request request = httpClient.newRequest("localhost", serverMain.getHttpServerPort());
+                    request.POST().url("/write/columnar?table=y ").withContent();
+                    putLong(request, 0);
+                    try (HttpClient.ResponseHeaders resp = request.send()) {
+                        resp.await();
+                        TestUtils.assertEquals("400", resp.getStatusCode());
+                    }
+                }
+            }
+        });
+    }
+
+    private static void putColumnHeader(HttpClient.Request request, String name, int columnType) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        putInt(request, bytes.length);
+        for (byte b : bytes) {
+            request.put(b);
+        }
+        putInt(request, columnType);
+    }
+
+    private static void putInt(HttpClient.Request request, int value) {
+        for (int i = 0; i < Integer.BYTES; i++) {
+            request.put((byte) (value >> (i * 8)));
+        }
+    }
+
+    private static void putLong(HttpClient.Request request, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            request.put((byte) (value >> (i * 8)));
+        }
+    }
+}
@@ -303,6 +303,63 @@ public class LineHttpSenderTest extends AbstractBootstrapTest {
         });
     }
 
+    @Test
+    public void testPipelined() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                int httpPort = serverMain.getHttpServerPort();
+
+                int totalCount = 100_000;
+                try (Sender sender = Sender.builder(Sender.Transport.HTTP)
+                        .address("localhost:" + httpPort)
+                        .autoFlushRows(1000)
+                        .maxInFlightRequests(4)
+                        .build()
+                ) {
+                    for (int i = 0; i < totalCount; i++) {
+                        sender.table("pipelined")
+                                .symbol("tag1", "value" + i % 10)
+                                .longColumn("lcol", i)
+                                .atNow();
+                    }
+                }
+                // close() waits for all batches in flight
+                serverMain.awaitTable("pipelined");
+                serverMain.assertSql("select count(), sum(lcol) from pipelined", "count\tsum\n" +
+                        totalCount + "\t" + ((long) totalCount * (totalCount - 1) / 2) + "\n");
+            }
+        });
+    }
+
+    @Test
+    public void testPipelinedError() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                serverMain.compile("create table ex_tbl(b byte, ts timestamp) timestamp(ts) partition by DAY WAL");
+
+                int port = serverMain.getHttpServerPort();
+                Sender sender = Sender.builder(Sender.Transport.HTTP)
+                        .address("localhost:" + port)
+                        .maxInFlightRequests(2)
+                        .build();
+                try {
+                    sender.table("ex_tbl")
+                            .doubleColumn("b", 1234)
+                            .at(1233456, ChronoUnit.NANOS);
+                    // the batch is handed over to a flush thread, the error comes later
+                    sender.flush();
+                    sender.close();
+                    Assert.fail("Expected exception");
+                } catch (LineSenderException e) {
+                    TestUtils.assertContains(e.getMessage(), "cast error from protocol type: FLOAT to column type: BYTE");
+                    TestUtils.assertContains(e.getMessage(), "[batch=1]");
+                } finally {
+                    sender.close();
+                }
+            }
+        });
+    }
+
     @Test
     public void testRestrictedCreateColumnsError() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
@@ -116,6 +116,7 @@ public class AbstractLineTcpReceiverTest extends AbstractCairoTest {
     protected int partitionByDefault = PartitionBy.DAY;
     protected boolean symbolAsFieldSupported;
     protected boolean useLegacyStringDefault = true;
+    protected long writerRebalanceInterval = 0;
 
     protected final LineTcpReceiverConfiguration lineConfiguration = new DefaultLineTcpReceiverConfiguration() {
         @Override
@@ -197,6 +198,11 @@ public class AbstractLineTcpReceiverTest extends AbstractCairoTest {
             return 4;
         }
 
+        @Override
+        public long getWriterRebalanceInterval() {
+            return writerRebalanceInterval;
+        }
+
         @Override
         public boolean isSymbolAsFieldSupported() {
             return symbolAsFieldSupported;
@@ -252,6 +258,7 @@ public class AbstractLineTcpReceiverTest extends AbstractCairoTest {
         partitionByDefault = PartitionBy.DAY;
         disconnectOnError = false;
         symbolAsFieldSupported = false;
+        writerRebalanceInterval = 0;
         nf = NetworkFacadeImpl.INSTANCE;
     }
 
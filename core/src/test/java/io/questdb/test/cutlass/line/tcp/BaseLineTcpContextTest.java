@@ -61,6 +61,8 @@ abstract class BaseLineTcpContextTest extends AbstractCairoTest {
     protected final AtomicInteger netMsgBufferSize = new AtomicInteger();
     protected boolean autoCreateNewColumns = true;
     protected boolean autoCreateNewTables = true;
+    protected long connectionCreditBytes;
+    protected int connectionCreditRows;
     protected LineTcpConnectionContext context;
     protected boolean disconnectOnError;
     protected boolean disconnected;
@@ -93,6 +95,8 @@ abstract class BaseLineTcpContextTest extends AbstractCairoTest {
         useLegacyString = true;
         autoCreateNewColumns = true;
         autoCreateNewTables = true;
+        connectionCreditBytes = Numbers.SIZE_1MB;
+        connectionCreditRows = 32;
         lineTcpConfiguration = createNoAuthReceiverConfiguration(provideLineTcpNetworkFacade());
         noNetworkIOJob = new NoNetworkIOJob(lineTcpConfiguration);
     }
@@ -164,6 +168,16 @@ abstract class BaseLineTcpContextTest extends AbstractCairoTest {
                 return autoCreateNewTables;
             }
 
+            @Override
+            public long getConnectionCreditBytes() {
+                return connectionCreditBytes;
+            }
+
+            @Override
+            public int getConnectionCreditRows() {
+                return connectionCreditRows;
+            }
+
             @Override
             public short getDefaultColumnTypeForFloat() {
                 return floatDefaultColumnType;
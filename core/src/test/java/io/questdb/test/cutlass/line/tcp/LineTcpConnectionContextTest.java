@@ -676,6 +676,30 @@ public class LineTcpConnectionContextTest extends BaseLineTcpContextTest {
         });
     }
 
+    @Test
+    public void testConnectionCredit() throws Exception {
+        String table = "connectionCredit";
+        addTable(table);
+        // a single measurement in flight and a byte budget smaller than any of the measurements,
+        // each one has to wait for the previous one to be applied but none is lost
+        connectionCreditRows = 1;
+        connectionCreditBytes = 16;
+        runInContext(() -> {
+            recvBuffer = makeMessages(table);
+            handleIO();
+            closeContext();
+            String expected = "location\ttemperature\ttimestamp\n" +
+                    "us-midwest\t82.0\t2016-06-13T17:43:50.100400Z\n" +
+                    "us-midwest\t83.0\t2016-06-13T17:43:50.100500Z\n" +
+                    "us-eastcoast\t81.0\t2016-06-13T17:43:50.101400Z\n" +
+                    "us-midwest\t85.0\t2016-06-13T17:43:50.102300Z\n" +
+                    "us-eastcoast\t89.0\t2016-06-13T17:43:50.102400Z\n" +
+                    "us-eastcoast\t80.0\t2016-06-13T17:43:50.102400Z\n" +
+                    "us-westcost\t82.0\t2016-06-13T17:43:50.102500Z\n";
+            assertTable(expected, table);
+        });
+    }
+
     @Test
     public void testDesignatedTimestampAsField() throws Exception {
         String table = "duplicateTimestamp";
@@ -24,16 +24,135 @@
 
 package io.questdb.test.cutlass.line.tcp;
 
+import io.questdb.cutlass.line.LineBinaryFormat;
 import io.questdb.cutlass.line.tcp.LineTcpParser;
 import io.questdb.std.Files;
 import io.questdb.std.MemoryTag;
 import io.questdb.std.Unsafe;
+import io.questdb.std.str.Utf8StringSink;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
 public class LineTcpParserTest extends BaseLineTcpContextTest {
 
+    @Test
+    public void testBinaryFormatDisabled() throws Exception {
+        final Utf8StringSink line = new Utf8StringSink();
+        line.put("t v=");
+        LineBinaryFormat.putLong(line, LineTcpParser.BINARY_TYPE_LONG, 42);
+        line.put('\n');
+        // without the binary format, the flag is an unexpected key separator
+        final LineTcpParser parser = new LineTcpParser(false, false, false);
+        assertParse(
+                parser,
+                line,
+                LineTcpParser.ParseResult.ERROR,
+                false,
+                () -> Assert.assertEquals(LineTcpParser.ErrorCode.INVALID_FIELD_SEPARATOR, parser.getErrorCode())
+        );
+    }
+
+    @Test
+    public void testBinaryValueInTagPosition() throws Exception {
+        final Utf8StringSink scratch = new Utf8StringSink();
+        final Utf8StringSink line = new Utf8StringSink();
+        line.put("t,s=");
+        LineBinaryFormat.putString(line, scratch, "a,b c");
+        line.put(" v=1i\n");
+        final LineTcpParser parser = new LineTcpParser(false, false);
+        assertParse(parser, line, LineTcpParser.ParseResult.MEASUREMENT_COMPLETE, false, () -> {
+            Assert.assertEquals(2, parser.getEntityCount());
+            Assert.assertEquals(LineTcpParser.ENTITY_TYPE_TAG, parser.getEntity(0).getType());
+            Assert.assertEquals("a,b c", parser.getEntity(0).getValue().toString());
+            Assert.assertEquals(LineTcpParser.ENTITY_TYPE_INTEGER, parser.getEntity(1).getType());
+        });
+
+        // numeric values have no text form, they cannot be tag values
+        line.clear();
+        line.put("t,s=");
+        LineBinaryFormat.putDouble(line, 1.5);
+        line.put(" v=1i\n");
+        assertParse(
+                parser,
+                line,
+                LineTcpParser.ParseResult.ERROR,
+                false,
+                () -> Assert.assertEquals(LineTcpParser.ErrorCode.INVALID_TAG_VALUE, parser.getErrorCode())
+        );
+    }
+
+    @Test
+    public void testBinaryValueInvalidType() throws Exception {
+        final Utf8StringSink line = new Utf8StringSink();
+        line.put("t v=");
+        LineBinaryFormat.putLong(line, (byte) 7, 42);
+        line.put('\n');
+        final LineTcpParser parser = new LineTcpParser(false, false);
+        assertParse(
+                parser,
+                line,
+                LineTcpParser.ParseResult.ERROR,
+                false,
+                () -> Assert.assertEquals(LineTcpParser.ErrorCode.INVALID_FIELD_VALUE, parser.getErrorCode())
+        );
+
+        // timestamps cannot be sent as doubles
+        line.clear();
+        line.put("t v=1i ");
+        LineBinaryFormat.putDouble(line, 1.5);
+        line.put('\n');
+        assertParse(
+                parser,
+                line,
+                LineTcpParser.ParseResult.ERROR,
+                false,
+                () -> Assert.assertEquals(LineTcpParser.ErrorCode.INVALID_TIMESTAMP, parser.getErrorCode())
+        );
+    }
+
+    @Test
+    public void testBinaryValueSplitAcrossBuffers() throws Exception {
+        final Utf8StringSink scratch = new Utf8StringSink();
+        final Utf8StringSink line = new Utf8StringSink();
+        // the values contain line breaks and separators
+        line.put("t,s=");
+        LineBinaryFormat.putString(line, scratch, "x\ny");
+        line.put(" l=");
+        LineBinaryFormat.putLong(line, LineTcpParser.BINARY_TYPE_LONG, 0x0a0a2c2c20200d0dL);
+        line.put(",d=");
+        LineBinaryFormat.putDouble(line, -2.5);
+        line.put(",str=");
+        LineBinaryFormat.putString(line, scratch, "ы\"z");
+        line.put(",ts=");
+        LineBinaryFormat.putLong(line, LineTcpParser.BINARY_TYPE_TIMESTAMP_MICROS, 10);
+        line.put(' ');
+        LineBinaryFormat.putLong(line, LineTcpParser.BINARY_TYPE_TIMESTAMP_NANOS, 1_000_000_007L);
+        line.put('\n');
+
+        final LineTcpParser parser = new LineTcpParser(false, false);
+        // the line is received a byte at a time, parsing resumes from where it stopped
+        assertParse(parser, line, LineTcpParser.ParseResult.MEASUREMENT_COMPLETE, true, () -> {
+            Assert.assertEquals("t", parser.getMeasurementName().toString());
+            Assert.assertEquals(5, parser.getEntityCount());
+            Assert.assertEquals(LineTcpParser.ENTITY_TYPE_TAG, parser.getEntity(0).getType());
+            Assert.assertEquals("x\ny", parser.getEntity(0).getValue().toString());
+            Assert.assertEquals(LineTcpParser.ENTITY_TYPE_INTEGER, parser.getEntity(1).getType());
+            Assert.assertEquals(0x0a0a2c2c20200d0dL, parser.getEntity(1).getLongValue());
+            Assert.assertTrue(parser.getEntity(1).isBinary());
+            Assert.assertEquals(LineTcpParser.ENTITY_TYPE_FLOAT, parser.getEntity(2).getType());
+            Assert.assertEquals(-2.5, parser.getEntity(2).getFloatValue(), 0);
+            Assert.assertEquals(LineTcpParser.ENTITY_TYPE_STRING, parser.getEntity(3).getType());
+            Assert.assertEquals("ы\"z", parser.getEntity(3).getValue().toString());
+            Assert.assertTrue(parser.hasNonAsciiChars());
+            Assert.assertEquals(LineTcpParser.ENTITY_TYPE_TIMESTAMP, parser.getEntity(4).getType());
+            Assert.assertEquals(LineTcpParser.ENTITY_UNIT_MICRO, parser.getEntity(4).getUnit());
+            Assert.assertEquals(10, parser.getEntity(4).getLongValue());
+            Assert.assertEquals(1_000_000_007L, parser.getTimestamp());
+            Assert.assertEquals(LineTcpParser.ENTITY_UNIT_NANO, parser.getTimestampUnit());
+        });
+    }
+
     @Test
     public void testGetValueType() throws Exception {
         assertType(LineTcpParser.ENTITY_TYPE_TAG, "null");
@@ -119,6 +238,110 @@ public class LineTcpParserTest extends BaseLineTcpContextTest {
         assertType(type, LineTcpParser.ENTITY_UNIT_NONE, value, value, LineTcpParser.ParseResult.ERROR, false, false);
     }
 
+    @Test
+    public void testSkipMeasurementOverBinaryValues() throws Exception {
+        final Utf8StringSink scratch = new Utf8StringSink();
+        final Utf8StringSink line = new Utf8StringSink();
+        // the line fails before its binary values, which contain line breaks
+        line.put("t v=1x,s=");
+        LineBinaryFormat.putString(line, scratch, "\nu v=2i\n");
+        line.put(",l=");
+        LineBinaryFormat.putLong(line, LineTcpParser.BINARY_TYPE_LONG, 0x0a0a0a0a0a0a0a0aL);
+        line.put(' ');
+        LineBinaryFormat.putLong(line, LineTcpParser.BINARY_TYPE_TIMESTAMP_NANOS, 0x0a0a0a0a0a0a0a0aL);
+        line.put("\nw v=3i\n");
+
+        TestUtils.assertMemoryLeak(() -> {
+            final int len = line.size();
+            final long mem = Unsafe.malloc(len, MemoryTag.NATIVE_DEFAULT);
+            try {
+                for (int i = 0; i < len; i++) {
+                    Unsafe.getUnsafe().putByte(mem + i, line.byteAt(i));
+                }
+                final LineTcpParser parser = new LineTcpParser(false, false);
+                parser.of(mem);
+                Assert.assertEquals(LineTcpParser.ParseResult.ERROR, parser.parseMeasurement(mem + len));
+
+                // the rest of the line is received a byte at a time
+                final long errorAt = parser.getBufferAddress();
+                LineTcpParser.ParseResult rc = LineTcpParser.ParseResult.BUFFER_UNDERFLOW;
+                for (long hi = errorAt + 1; hi <= mem + len && rc == LineTcpParser.ParseResult.BUFFER_UNDERFLOW; hi++) {
+                    rc = parser.skipMeasurement(hi);
+                }
+                Assert.assertEquals(LineTcpParser.ParseResult.MEASUREMENT_COMPLETE, rc);
+
+                // the next measurement is the one after the line with binary values
+                parser.startNextMeasurement();
+                Assert.assertEquals(LineTcpParser.ParseResult.MEASUREMENT_COMPLETE, parser.parseMeasurement(mem + len));
+                Assert.assertEquals("w", parser.getMeasurementName().toString());
+                Assert.assertEquals(3, parser.getEntity(0).getLongValue());
+            } finally {
+                Unsafe.free(mem, len, MemoryTag.NATIVE_DEFAULT);
+            }
+        });
+    }
+
+    @Test
+    public void testSkipRegularBytes() throws Exception {
+        assertSkipRegularBytes("", 0);
+        assertSkipRegularBytes("abc", 3);
+        assertSkipRegularBytes("abcdefghijklmnopq", 17);
+        assertSkipRegularBytes("abcdefgh,ijk", 8);
+        assertSkipRegularBytes("abcdefghijk lmn", 11);
+        assertSkipRegularBytes("abcdefghijklmn=", 14);
+        assertSkipRegularBytes("abcdefgh\\ijk", 8);
+        assertSkipRegularBytes("abcdefghijklm\"", 13);
+        assertSkipRegularBytes("abcd/efgh", 4);
+        assertSkipRegularBytes("abcdefghi\njk", 9);
+        assertSkipRegularBytes("abcdefghij\r", 10);
+        assertSkipRegularBytes("abcdefgëhij", 7);
+        assertSkipRegularBytes("0123456789.-+_:;", 16);
+    }
+
+    private static void assertParse(
+            LineTcpParser parser,
+            Utf8StringSink line,
+            LineTcpParser.ParseResult expectedParseResult,
+            boolean byteAtATime,
+            Runnable assertion
+    ) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int len = line.size();
+            final long mem = Unsafe.malloc(len, MemoryTag.NATIVE_DEFAULT);
+            try {
+                for (int i = 0; i < len; i++) {
+                    Unsafe.getUnsafe().putByte(mem + i, line.byteAt(i));
+                }
+                parser.of(mem);
+                LineTcpParser.ParseResult rc = LineTcpParser.ParseResult.BUFFER_UNDERFLOW;
+                for (int hi = byteAtATime ? 1 : len; hi <= len && rc == LineTcpParser.ParseResult.BUFFER_UNDERFLOW; hi++) {
+                    rc = parser.parseMeasurement(mem + hi);
+                }
+                Assert.assertEquals(expectedParseResult, rc);
+                // entities point to the buffer
+                assertion.run();
+            } finally {
+                Unsafe.free(mem, len, MemoryTag.NATIVE_DEFAULT);
+            }
+        });
+    }
+
+    private static void assertSkipRegularBytes(String value, int expectedOffset) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            byte[] bytes = value.getBytes(Files.UTF_8);
+            final int len = bytes.length;
+            long mem = Unsafe.malloc(len + 1, MemoryTag.NATIVE_DEFAULT);
+            try {
+                for (int i = 0; i < len; i++) {
+                    Unsafe.getUnsafe().putByte(mem + i, bytes[i]);
+                }
+                Assert.assertEquals(expectedOffset, LineTcpParser.skipRegularBytes(mem, mem + len) - mem);
+            } finally {
+                Unsafe.free(mem, len + 1, MemoryTag.NATIVE_DEFAULT);
+            }
+        });
+    }
+
     private static void assertType(byte type, String value) throws Exception {
         assertType(type, LineTcpParser.ENTITY_UNIT_NONE, value);
     }
@@ -106,6 +106,13 @@ public class LineTcpReceiverFuzzTest extends AbstractLineTcpReceiverFuzzTest {
         runTest();
     }
 
+    @Test
+    public void testLoadRebalanceWriterThreads() throws Exception {
+        writerRebalanceInterval = 1;
+        initLoadParameters(100, Os.isWindows() ? 3 : 5, 7, 12, 20);
+        runTest();
+    }
+
     @Test
     public void testLoadSendSymbolsWithSpace() throws Exception {
         initLoadParameters(100, Os.isWindows() ? 3 : 5, 4, 8, 20);
@@ -101,6 +101,41 @@ public class LineTcpSenderTest extends AbstractLineTcpReceiverTest {
         });
     }
 
+    @Test
+    public void testBinaryFormat() throws Exception {
+        runInContext(r -> {
+            try (Sender sender = Sender.fromConfig("tcp::addr=127.0.0.1:" + bindPort + ";binary_format=on;")) {
+                long tsMicros = IntervalUtils.parseFloorPartialTimestamp("2022-02-25");
+                sender.table("mytable")
+                        .symbol("sym", "a b,c=d\"ё")
+                        .longColumn("int_field", -42)
+                        .boolColumn("bool_field", true)
+                        .stringColumn("string_field", "foo")
+                        .doubleColumn("double_field", 42.5)
+                        .doubleColumn("nan_field", Double.NaN)
+                        .timestampColumn("ts_field", tsMicros, ChronoUnit.MICROS)
+                        .at(tsMicros + 1, ChronoUnit.MICROS);
+                sender.table("mytable")
+                        .symbol("sym", "x")
+                        .longColumn("int_field", Long.MAX_VALUE)
+                        .boolColumn("bool_field", false)
+                        .stringColumn("string_field", "bar")
+                        .doubleColumn("double_field", Double.NEGATIVE_INFINITY)
+                        .doubleColumn("nan_field", 0.25)
+                        .timestampColumn("ts_field", tsMicros + 5, ChronoUnit.MICROS)
+                        .at(tsMicros + 2, ChronoUnit.MICROS);
+                sender.flush();
+            }
+
+            assertTableSizeEventually(engine, "mytable", 2);
+            try (TableReader reader = getReader("mytable")) {
+                TestUtils.assertReader("sym\tint_field\tbool_field\tstring_field\tdouble_field\tnan_field\tts_field\ttimestamp\n" +
+                        "a b,c=d\"ё\t-42\ttrue\tfoo\t42.5\tNaN\t2022-02-25T00:00:00.000000Z\t2022-02-25T00:00:00.000001Z\n" +
+                        "x\t9223372036854775807\tfalse\tbar\t-Infinity\t0.25\t2022-02-25T00:00:00.000005Z\t2022-02-25T00:00:00.000002Z\n", reader, new StringSink());
+            }
+        });
+    }
+
     @Test
     public void testBuilderAuthSuccess() throws Exception {
         authKeyId = AUTH_KEY_ID1;
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cutlass.line.tcp;
+
+import io.questdb.metrics.Counter;
+import io.questdb.std.str.StringSink;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static io.questdb.test.tools.TestUtils.assertEventually;
+
+public class LineTcpWriterRebalanceTest extends AbstractLineTcpReceiverTest {
+
+    @Test
+    public void testHotTableMigratesToIdleWriterThread() throws Exception {
+        writerRebalanceInterval = 10;
+        final Counter migrations = engine.getMetrics().line().writerTableMigrationsCounter();
+        final long migrationsBefore = migrations.getValue();
+        final int rowCount = 2_000;
+        runInContext((receiver) -> {
+            final StringSink sink = new StringSink();
+            // tables are assigned to the least loaded writer thread as they show up,
+            // a and c end up on the first writer thread, b on the second one
+            sink.put("a x=0i 1000\n");
+            sink.put("b x=0i 1000\n");
+            sink.put("c x=0i 1000\n");
+            for (int i = 1; i < rowCount; i++) {
+                sink.put("a x=").put(i).put("i ").put(1000 + i * 1000L).put('\n');
+                sink.put("c x=").put(i).put("i ").put(1000 + i * 1000L).put('\n');
+            }
+            send(WAIT_NO_WAIT, () -> sendToSocket(sink.toString()));
+
+            assertEventually(() -> Assert.assertTrue(migrations.getValue() > migrationsBefore));
+            assertTableSizeEventually(engine, "a", rowCount);
+            assertTableSizeEventually(engine, "b", 1);
+            assertTableSizeEventually(engine, "c", rowCount);
+
+            final String expected = "count\tsum\n" +
+                    rowCount + "\t" + ((long) rowCount * (rowCount - 1) / 2) + "\n";
+            assertSql(expected, "select count(), sum(x) from a");
+            assertSql(expected, "select count(), sum(x) from c");
+        });
+    }
+
+    @Override
+    protected int getWorkerCount() {
+        return 2;
+    }
+}
@@ -42,6 +42,7 @@ import io.questdb.std.datetime.microtime.TimestampFormatUtils;
 import io.questdb.std.datetime.microtime.Timestamps;
 import io.questdb.std.str.DirectUtf8String;
 import io.questdb.std.str.Path;
+import io.questdb.std.str.Utf8String;
 import io.questdb.test.AbstractCairoTest;
 import io.questdb.test.cairo.TableModel;
 import io.questdb.test.std.TestFilesFacadeImpl;
@@ -423,6 +424,82 @@ public class SymbolCacheTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testSharedCacheHitReadsSymbolCountOncePerBatch() throws Exception {
+        String tableName = "tb1";
+        FilesFacade ff = new TestFilesFacadeImpl();
+        TestUtils.assertMemoryLeak(() -> {
+            try (Path path = new Path();
+                 SymbolCache cache = new SymbolCache(new DefaultLineTcpReceiverConfiguration() {
+                     @Override
+                     public long getSymbolCacheWaitUsBeforeReload() {
+                         // the symbol map reader is never reloaded, only the shared cache can resolve new symbols
+                         return Long.MAX_VALUE;
+                     }
+                 })
+            ) {
+                TableModel model = new TableModel(configuration, tableName, PartitionBy.DAY)
+                        .col("symCol", ColumnType.SYMBOL);
+                AbstractCairoTest.create(model);
+                long mem = Unsafe.malloc(DBCS_MAX_SIZE, MemoryTag.NATIVE_DEFAULT);
+                DirectUtf8String dus = new DirectUtf8String();
+                TableToken tableToken = engine.verifyTableName(tableName);
+                try (
+                        TableWriter writer = newOffPoolWriter(configuration, tableName, metrics);
+                        TxReader txReader = new TxReader(ff).ofRO(
+                                path.of(configuration.getRoot()).concat(tableToken).concat(TXN_FILE_NAME).$(),
+                                PartitionBy.DAY
+                        )
+                ) {
+                    int symColIndex = writer.getColumnIndex("symCol");
+                    TableWriter.Row r = writer.newRow();
+                    r.putSym(symColIndex, "sym1");
+                    r.append();
+                    writer.commit();
+                    txReader.unsafeLoadAll();
+
+                    // keys cached by writers that see more symbols than the symbol map reader
+                    final SharedSymbolCache sharedCache = new SharedSymbolCache(-1, 0);
+                    sharedCache.put(new Utf8String("sym2"), 1);
+                    sharedCache.put(new Utf8String("sym3"), 2);
+                    sharedCache.put(new Utf8String("sym4"), 3);
+
+                    final TestTableWriterAPI writerAPI = new TestTableWriterAPI(1);
+                    cache.of(
+                            configuration,
+                            writerAPI,
+                            symColIndex,
+                            path.of(configuration.getRoot()).concat(tableToken),
+                            "symCol",
+                            symColIndex,
+                            txReader,
+                            -1,
+                            sharedCache
+                    );
+                    Assert.assertEquals(1, writerAPI.watermarkReadCount);
+
+                    // the writer has seen more symbols since the symbol map reader was opened
+                    writerAPI.watermark = 3;
+                    Assert.assertEquals(1, cache.keyOf(copyUtf8StringChars("sym2", mem, dus)));
+                    Assert.assertEquals(2, cache.keyOf(copyUtf8StringChars("sym3", mem, dus)));
+                    // the writer does not see the key yet
+                    Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, cache.keyOf(copyUtf8StringChars("sym4", mem, dus)));
+                    // the count is read once for all shared cache hits within the batch
+                    Assert.assertEquals(2, writerAPI.watermarkReadCount);
+
+                    // the writer sees the key in the next batch
+                    writerAPI.watermark = 4;
+                    Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, cache.keyOf(copyUtf8StringChars("sym4", mem, dus)));
+                    cache.resetVisibleSymbolCount();
+                    Assert.assertEquals(3, cache.keyOf(copyUtf8StringChars("sym4", mem, dus)));
+                    Assert.assertEquals(3, writerAPI.watermarkReadCount);
+                } finally {
+                    Unsafe.free(mem, DBCS_MAX_SIZE, MemoryTag.NATIVE_DEFAULT);
+                }
+            }
+        });
+    }
+
     @Test
     public void testSimpleInteraction() throws Exception {
         String tableName = "tb1";
@@ -761,7 +838,8 @@ public class SymbolCacheTest extends AbstractCairoTest {
 
     private static class TestTableWriterAPI implements TableWriterAPI {
 
-        private final int watermark;
+        private int watermark;
+        private int watermarkReadCount;
 
         public TestTableWriterAPI() {
             this(-1);
@@ -810,6 +888,7 @@ public class SymbolCacheTest extends AbstractCairoTest {
 
         @Override
         public int getSymbolCountWatermark(int columnIndex) {
+            watermarkReadCount++;
             return watermark;
         }
 
@@ -6068,6 +6068,50 @@ nodejs code:
         );
     }
 
+    @Test
+    public void testPipelinedBatchInsertRolledBackOnError() throws Exception {
+        // autocommit batch is committed once per Sync, a failed row must roll back the whole pipeline
+        skipOnWalRun(); // non-partitioned table
+        assertWithPgServer(CONN_AWARE_ALL & ~(CONN_AWARE_SIMPLE_TEXT | CONN_AWARE_SIMPLE_BINARY), (connection, binary, mode, port) -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("create table test_batch(id long, ts timestamp) timestamp(ts)");
+            }
+            try (PreparedStatement batchInsert = connection.prepareStatement("insert into test_batch(id,ts) values(?,?)")) {
+                for (int i = 0; i < 3; i++) {
+                    batchInsert.setLong(1, i);
+                    batchInsert.setTimestamp(2, new Timestamp(i == 2 ? -1000 : i * 1000L));
+                    batchInsert.addBatch();
+                }
+                try {
+                    batchInsert.executeBatch();
+                    Assert.fail();
+                } catch (SQLException e) {
+                    TestUtils.assertContains(e.getMessage(), "timestamp before 1970-01-01 is not allowed");
+                }
+            }
+
+            final StringSink sink = new StringSink();
+            try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery("select count(*) from test_batch")) {
+                assertResultSet("count[BIGINT]\n0\n", sink, rs);
+            }
+
+            try (PreparedStatement batchInsert = connection.prepareStatement("insert into test_batch(id,ts) values(?,?)")) {
+                for (int i = 0; i < 10; i++) {
+                    batchInsert.setLong(1, i);
+                    batchInsert.setTimestamp(2, new Timestamp(i * 1000L));
+                    batchInsert.addBatch();
+                }
+                int[] a = batchInsert.executeBatch();
+                Assert.assertEquals(10, a.length);
+            }
+
+            sink.clear();
+            try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery("select count(*) from test_batch")) {
+                assertResultSet("count[BIGINT]\n10\n", sink, rs);
+            }
+        });
+    }
+
     @Test
     public void testPreparedStatement() throws Exception {
         skipOnWalRun(); // non-partitioned table
@@ -27,15 +27,22 @@ package io.questdb.test.griffin;
 import io.questdb.PropServerConfiguration;
 import io.questdb.PropertyKey;
 import io.questdb.cairo.PartitionBy;
+import io.questdb.cairo.SecurityContext;
+import io.questdb.cairo.security.DenyAllSecurityContext;
+import io.questdb.cairo.security.ReadOnlySecurityContext;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cutlass.text.Atomicity;
+import io.questdb.cutlass.text.CopyContext;
+import io.questdb.cutlass.text.CopyExportRequestJob;
 import io.questdb.cutlass.text.CopyRequestJob;
 import io.questdb.griffin.SqlCompiler;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
 import io.questdb.griffin.model.CopyModel;
 import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.Files;
 import io.questdb.std.Os;
 import io.questdb.std.str.Path;
 import io.questdb.test.AbstractCairoTest;
@@ -48,6 +55,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.concurrent.CountDownLatch;
@@ -180,6 +188,140 @@ public class CopyTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testCopyToDeniedOnNoWriteAccess() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (l long)");
+            final SecurityContext[] securityContexts = {ReadOnlySecurityContext.INSTANCE, DenyAllSecurityContext.INSTANCE};
+            for (SecurityContext securityContext : securityContexts) {
+                final SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 1)
+                        .with(securityContext, bindVariableService, null, -1, null);
+                assertException("copy x to 'out'", -1, "Write permission denied", executionContext);
+                assertException("copy (select * from x) to 'out'", -1, "Write permission denied", executionContext);
+            }
+            Assert.assertEquals(CopyContext.INACTIVE_COPY_ID, engine.getCopyExportContext().getActiveCopyID());
+        });
+    }
+
+    @Test
+    public void testCopyToParquetIsNotSupported() throws Exception {
+        assertMemoryLeak(() -> assertException(
+                "copy x to 'out' with format parquet",
+                28,
+                "parquet export is not supported, use 'csv'"
+        ));
+    }
+
+    @Test
+    public void testCopyToPartitioned() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x as (select x l, timestamp_sequence(0, 3600000000) ts from long_sequence(30)) timestamp(ts) partition by DAY");
+            if (walEnabled) {
+                drainWalQueue();
+            }
+
+            final String dirName = "export" + System.nanoTime();
+            drop("drop table if exists \"" + configuration.getSystemTableNamePrefix() + "text_export_log\"");
+            try (
+                    CopyExportRequestJob copyExportRequestJob = new CopyExportRequestJob(engine);
+                    Path path = new Path()
+            ) {
+                runAndFetchCopyID("copy (select l, ts from x where l < 5 or l = 30) to '" + dirName + "' with header true partition by DAY", sqlExecutionContext);
+                copyExportRequestJob.drain(0);
+
+                try {
+                    path.of(configuration.getSqlCopyExportRoot()).concat(dirName);
+                    final int plen = path.size();
+                    assertExportedFile(
+                            path.concat("1970-01-01.csv").$(),
+                            "\"l\",\"ts\"\n" +
+                                    "1,\"1970-01-01T00:00:00.000000Z\"\n" +
+                                    "2,\"1970-01-01T01:00:00.000000Z\"\n" +
+                                    "3,\"1970-01-01T02:00:00.000000Z\"\n" +
+                                    "4,\"1970-01-01T03:00:00.000000Z\"\n"
+                    );
+                    assertExportedFile(
+                            path.trimTo(plen).concat("1970-01-02.csv").$(),
+                            "\"l\",\"ts\"\n" +
+                                    "30,\"1970-01-02T05:00:00.000000Z\"\n"
+                    );
+
+                    assertSql(
+                            "partition_name\tphase\tstatus\trows_exported\tfiles_exported\n" +
+                                    "\t\tstarted\t0\t0\n" +
+                                    "\tsetup\tstarted\t0\t0\n" +
+                                    "\tsetup\tfinished\t0\t0\n" +
+                                    "\tpartition_export\tstarted\t0\t0\n" +
+                                    "1970-01-01\tpartition_export\tfinished\t4\t1\n" +
+                                    "1970-01-02\tpartition_export\tfinished\t1\t1\n" +
+                                    "\tpartition_export\tfinished\t5\t2\n" +
+                                    "\t\tfinished\t5\t2\n",
+                            "select partition_name, phase, status, rows_exported, files_exported from " + configuration.getSystemTableNamePrefix() + "text_export_log"
+                    );
+                } finally {
+                    Files.rmdir(path.of(configuration.getSqlCopyExportRoot()).concat(dirName), true);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testCopyToPartitionedTableFrames() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table m (s symbol, v varchar, d double, ts timestamp) timestamp(ts) partition by MONTH");
+            insert("insert into m values ('a', 'q\"q', 1.5, '1970-01-01T00:00:00.000000Z'), (null, null, null, '1970-01-01T10:00:00.000000Z'), " +
+                    "('b', 'z', 2.0, '1970-01-02T06:00:00.000000Z'), ('c', 'w', 4.0, '1970-02-01T00:00:00.000000Z')");
+            ddl("alter table m add column i int");
+            insert("insert into m values ('b', 'y', 5.0, '1970-02-01T01:00:00.000000Z', 7)");
+            if (walEnabled) {
+                drainWalQueue();
+            }
+
+            final String dirName = "export" + System.nanoTime();
+            try (
+                    CopyExportRequestJob copyExportRequestJob = new CopyExportRequestJob(engine);
+                    Path path = new Path()
+            ) {
+                // export partitions are finer than the table ones, so frames are split
+                runAndFetchCopyID("copy m to '" + dirName + "' with header true partition by DAY", sqlExecutionContext);
+                copyExportRequestJob.drain(0);
+
+                try {
+                    path.of(configuration.getSqlCopyExportRoot()).concat(dirName);
+                    final int plen = path.size();
+                    assertExportedFile(
+                            path.concat("1970-01-01.csv").$(),
+                            "\"s\",\"v\",\"d\",\"ts\",\"i\"\n" +
+                                    "\"a\",q\"q,1.5,\"1970-01-01T00:00:00.000000Z\",\n" +
+                                    ",,,\"1970-01-01T10:00:00.000000Z\",\n"
+                    );
+                    assertExportedFile(
+                            path.trimTo(plen).concat("1970-01-02.csv").$(),
+                            "\"s\",\"v\",\"d\",\"ts\",\"i\"\n" +
+                                    "\"b\",z,2.0,\"1970-01-02T06:00:00.000000Z\",\n"
+                    );
+                    assertExportedFile(
+                            path.trimTo(plen).concat("1970-02-01.csv").$(),
+                            "\"s\",\"v\",\"d\",\"ts\",\"i\"\n" +
+                                    "\"c\",w,4.0,\"1970-02-01T00:00:00.000000Z\",\n" +
+                                    "\"b\",y,5.0,\"1970-02-01T01:00:00.000000Z\",7\n"
+                    );
+                } finally {
+                    Files.rmdir(path.of(configuration.getSqlCopyExportRoot()).concat(dirName), true);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testCopyToRequiresDesignatedTimestampForPartitioning() throws Exception {
+        assertMemoryLeak(() -> assertException(
+                "copy (select x from long_sequence(10)) to 'out' with partition by DAY",
+                42,
+                "partitioned export requires the query to have a designated timestamp"
+        ));
+    }
+
     @Test
     public void testDefaultCopyOptions() throws SqlException {
         try (SqlCompiler compiler = engine.getSqlCompiler()) {
@@ -1120,6 +1262,11 @@ public class CopyTest extends AbstractCairoTest {
         });
     }
 
+    private static void assertExportedFile(Path path, String expected) throws Exception {
+        Assert.assertTrue(Files.exists(path));
+        TestUtils.assertEquals(expected, new String(java.nio.file.Files.readAllBytes(java.nio.file.Paths.get(path.toString())), StandardCharsets.UTF_8));
+    }
+
     private void assertQuotesTableContent() throws SqlException {
         assertQuotesTableContent0(false);
     }
@@ -6312,12 +6312,19 @@ public class ExplainPlanTest extends AbstractCairoTest {
 
         assertPlan(
                 "select first(i) from a sample by 1h fill(linear) align to calendar",
-                "SampleBy\n" +
-                        "  fill: linear\n" +
-                        "  values: [first(i)]\n" +
-                        "    DataFrame\n" +
-                        "        Row forward scan\n" +
-                        "        Frame forward scan on: a\n"
+                "SelectedRecord\n" +
+                        "    Fill\n" +
+                        "      stride: '1h'\n" +
+                        "      values: [linear]\n" +
+                        "        Sort light\n" +
+                        "          keys: [ts]\n" +
+                        "            Async Group By workers: 1\n" +
+                        "              keys: [ts]\n" +
+                        "              values: [first(i)]\n" +
+                        "              filter: null\n" +
+                        "                DataFrame\n" +
+                        "                    Row forward scan\n" +
+                        "                    Frame forward scan on: a\n"
         );
     }
 
@@ -6336,12 +6343,19 @@ public class ExplainPlanTest extends AbstractCairoTest {
 
         assertPlan(
                 "select first(i) from a sample by 1h fill(null) align to calendar",
-                "SampleBy\n" +
-                        "  fill: null\n" +
-                        "  values: [first(i)]\n" +
-                        "    DataFrame\n" +
-                        "        Row forward scan\n" +
-                        "        Frame forward scan on: a\n"
+                "SelectedRecord\n" +
+                        "    Fill\n" +
+                        "      stride: '1h'\n" +
+                        "      values: [null]\n" +
+                        "        Sort light\n" +
+                        "          keys: [ts]\n" +
+                        "            Async Group By workers: 1\n" +
+                        "              keys: [ts]\n" +
+                        "              values: [first(i)]\n" +
+                        "              filter: null\n" +
+                        "                DataFrame\n" +
+                        "                    Row forward scan\n" +
+                        "                    Frame forward scan on: a\n"
         );
     }
 
@@ -6361,13 +6375,20 @@ public class ExplainPlanTest extends AbstractCairoTest {
 
         assertPlan(
                 "select s, first(i) from a sample by 1h fill(prev) align to calendar",
-                "SampleBy\n" +
-                        "  fill: prev\n" +
-                        "  keys: [s]\n" +
-                        "  values: [first(i)]\n" +
-                        "    DataFrame\n" +
-                        "        Row forward scan\n" +
-                        "        Frame forward scan on: a\n"
+                "SelectedRecord\n" +
+                        "    Fill\n" +
+                        "      keys: [s]\n" +
+                        "      stride: '1h'\n" +
+                        "      values: [prev]\n" +
+                        "        Sort light\n" +
+                        "          keys: [ts1, min]\n" +
+                        "            Async Group By workers: 1\n" +
+                        "              keys: [s,ts1]\n" +
+                        "              values: [first(i),min(ts)]\n" +
+                        "              filter: null\n" +
+                        "                DataFrame\n" +
+                        "                    Row forward scan\n" +
+                        "                    Frame forward scan on: a\n"
         );
     }
 
@@ -6385,11 +6406,19 @@ public class ExplainPlanTest extends AbstractCairoTest {
 
         assertPlan(
                 "select first(i) from a sample by 1h fill(prev) align to calendar",
-                "SampleByFillPrev\n" +
-                        "  values: [first(i)]\n" +
-                        "    DataFrame\n" +
-                        "        Row forward scan\n" +
-                        "        Frame forward scan on: a\n"
+                "SelectedRecord\n" +
+                        "    Fill\n" +
+                        "      stride: '1h'\n" +
+                        "      values: [prev]\n" +
+                        "        Sort light\n" +
+                        "          keys: [ts]\n" +
+                        "            Async Group By workers: 1\n" +
+                        "              keys: [ts]\n" +
+                        "              values: [first(i)]\n" +
+                        "              filter: null\n" +
+                        "                DataFrame\n" +
+                        "                    Row forward scan\n" +
+                        "                    Frame forward scan on: a\n"
         );
     }
 
@@ -6409,13 +6438,20 @@ public class ExplainPlanTest extends AbstractCairoTest {
 
         assertPlan(
                 "select s, first(i) from a sample by 1h fill(1) align to calendar",
-                "SampleBy\n" +
-                        "  fill: value\n" +
-                        "  keys: [s]\n" +
-                        "  values: [first(i)]\n" +
-                        "    DataFrame\n" +
-                        "        Row forward scan\n" +
-                        "        Frame forward scan on: a\n"
+                "SelectedRecord\n" +
+                        "    Fill\n" +
+                        "      keys: [s]\n" +
+                        "      stride: '1h'\n" +
+                        "      values: [1]\n" +
+                        "        Sort light\n" +
+                        "          keys: [ts1, min]\n" +
+                        "            Async Group By workers: 1\n" +
+                        "              keys: [s,ts1]\n" +
+                        "              values: [first(i),min(ts)]\n" +
+                        "              filter: null\n" +
+                        "                DataFrame\n" +
+                        "                    Row forward scan\n" +
+                        "                    Frame forward scan on: a\n"
         );
     }
 
@@ -6434,12 +6470,19 @@ public class ExplainPlanTest extends AbstractCairoTest {
 
         assertPlan(
                 "select first(i) from a sample by 1h fill(1) align to calendar",
-                "SampleBy\n" +
-                        "  fill: value\n" +
-                        "  values: [first(i)]\n" +
-                        "    DataFrame\n" +
-                        "        Row forward scan\n" +
-                        "        Frame forward scan on: a\n"
+                "SelectedRecord\n" +
+                        "    Fill\n" +
+                        "      stride: '1h'\n" +
+                        "      values: [1]\n" +
+                        "        Sort light\n" +
+                        "          keys: [ts]\n" +
+                        "            Async Group By workers: 1\n" +
+                        "              keys: [ts]\n" +
+                        "              values: [first(i)]\n" +
+                        "              filter: null\n" +
+                        "                DataFrame\n" +
+                        "                    Row forward scan\n" +
+                        "                    Frame forward scan on: a\n"
         );
     }
 
@@ -6554,13 +6597,20 @@ public class ExplainPlanTest extends AbstractCairoTest {
 
         assertPlan(
                 "select l, first(i) from a sample by 1h fill(null) align to calendar",
-                "SampleBy\n" +
-                        "  fill: null\n" +
-                        "  keys: [l]\n" +
-                        "  values: [first(i)]\n" +
-                        "    DataFrame\n" +
-                        "        Row forward scan\n" +
-                        "        Frame forward scan on: a\n"
+                "SelectedRecord\n" +
+                        "    Fill\n" +
+                        "      keys: [l]\n" +
+                        "      stride: '1h'\n" +
+                        "      values: [null]\n" +
+                        "        Sort light\n" +
+                        "          keys: [ts1, min]\n" +
+                        "            Async Group By workers: 1\n" +
+                        "              keys: [l,ts1]\n" +
+                        "              values: [first(i),min(ts)]\n" +
+                        "              filter: null\n" +
+                        "                DataFrame\n" +
+                        "                    Row forward scan\n" +
+                        "                    Frame forward scan on: a\n"
         );
     }
 
@@ -6580,13 +6630,20 @@ public class ExplainPlanTest extends AbstractCairoTest {
 
         assertPlan(
                 "select l, first(i) from a sample by 1d fill(linear) align to calendar",
-                "SampleBy\n" +
-                        "  fill: linear\n" +
-                        "  keys: [l]\n" +
-                        "  values: [first(i)]\n" +
-                        "    DataFrame\n" +
-                        "        Row forward scan\n" +
-                        "        Frame forward scan on: a\n"
+                "SelectedRecord\n" +
+                        "    Fill\n" +
+                        "      keys: [l]\n" +
+                        "      stride: '1d'\n" +
+                        "      values: [linear]\n" +
+                        "        Sort light\n" +
+                        "          keys: [ts1, min]\n" +
+                        "            Async Group By workers: 1\n" +
+                        "              keys: [l,ts1]\n" +
+                        "              values: [first(i),min(ts)]\n" +
+                        "              filter: null\n" +
+                        "                DataFrame\n" +
+                        "                    Row forward scan\n" +
+                        "                    Frame forward scan on: a\n"
         );
     }
 
@@ -6606,13 +6663,20 @@ public class ExplainPlanTest extends AbstractCairoTest {
 
         assertPlan(
                 "select l, first(i), last(i) from a sample by 1d fill(1,2) align to calendar",
-                "SampleBy\n" +
-                        "  fill: value\n" +
-                        "  keys: [l]\n" +
-                        "  values: [first(i),last(i)]\n" +
-                        "    DataFrame\n" +
-                        "        Row forward scan\n" +
-                        "        Frame forward scan on: a\n"
+                "SelectedRecord\n" +
+                        "    Fill\n" +
+                        "      keys: [l]\n" +
+                        "      stride: '1d'\n" +
+                        "      values: [1,2]\n" +
+                        "        Sort light\n" +
+                        "          keys: [ts1, min]\n" +
+                        "            Async Group By workers: 1\n" +
+                        "              keys: [l,ts1]\n" +
+                        "              values: [first(i),last(i),min(ts)]\n" +
+                        "              filter: null\n" +
+                        "                DataFrame\n" +
+                        "                    Row forward scan\n" +
+                        "                    Frame forward scan on: a\n"
         );
     }
 
@@ -6632,13 +6696,20 @@ public class ExplainPlanTest extends AbstractCairoTest {
 
         assertPlan(
                 "select l, first(i), last(i) from a sample by 1d fill(prev,prev) align to calendar",
-                "SampleBy\n" +
-                        "  fill: value\n" +
-                        "  keys: [l]\n" +
-                        "  values: [first(i),last(i)]\n" +
-                        "    DataFrame\n" +
-                        "        Row forward scan\n" +
-                        "        Frame forward scan on: a\n"
+                "SelectedRecord\n" +
+                        "    Fill\n" +
+                        "      keys: [l]\n" +
+                        "      stride: '1d'\n" +
+                        "      values: [prev,prev]\n" +
+                        "        Sort light\n" +
+                        "          keys: [ts1, min]\n" +
+                        "            Async Group By workers: 1\n" +
+                        "              keys: [l,ts1]\n" +
+                        "              values: [first(i),last(i),min(ts)]\n" +
+                        "              filter: null\n" +
+                        "                DataFrame\n" +
+                        "                    Row forward scan\n" +
+                        "                    Frame forward scan on: a\n"
         );
     }
 
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin;
+
+import io.questdb.PropertyKey;
+import io.questdb.test.AbstractCairoTest;
+import org.junit.Test;
+
+public class PartitionPruningTest extends AbstractCairoTest {
+
+    @Test
+    public void testColumnAddedLater() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            ddl("alter table x add column n long");
+            insert("insert into x (x, n, ts) values (21, 5, '2024-01-03T23:00:00.000000Z')");
+            assertSql(
+                    "x\tn\n" +
+                            "21\t5\n",
+                    "select x, n from x where n < 10"
+            );
+            assertSql(
+                    "count\n" +
+                            "0\n",
+                    "select count() from x where n > 5"
+            );
+        });
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        node1.setProperty(PropertyKey.CAIRO_SQL_PARTITION_PRUNING_ENABLED, false);
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "x\n" +
+                            "13\n" +
+                            "14\n",
+                    "select x from x where x > 12 and x < 15"
+            );
+        });
+    }
+
+    @Test
+    public void testDouble() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "d\n" +
+                            "7.0\n" +
+                            "8.0\n",
+                    "select d from x where d >= 6.5 and 9 > d"
+            );
+            assertSql(
+                    "d\n" +
+                            "10.0\n",
+                    "select d from x where d = 10"
+            );
+        });
+    }
+
+    @Test
+    public void testFlippedOperands() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "i\n" +
+                            "1\n" +
+                            "2\n",
+                    "select i from x where 3 > i"
+            );
+            assertSql(
+                    "i\n" +
+                            "19\n" +
+                            "20\n",
+                    "select i from x where 19 <= i"
+            );
+        });
+    }
+
+    @Test
+    public void testNonConjunctiveFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "x\n" +
+                            "1\n" +
+                            "20\n",
+                    "select x from x where x < 2 or x > 19"
+            );
+        });
+    }
+
+    @Test
+    public void testNullValues() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl(
+                    "create table y as (" +
+                            "select case when x <= 8 then null else x end x, timestamp_sequence('2024-01-01', 21600000000L) ts from long_sequence(20)" +
+                            ") timestamp(ts) partition by DAY"
+            );
+            assertSql(
+                    "count\n" +
+                            "0\n",
+                    "select count() from y where x < 9"
+            );
+            assertSql(
+                    "count\n" +
+                            "8\n",
+                    "select count() from y where x = null"
+            );
+        });
+    }
+
+    @Test
+    public void testOutOfOrderInsert() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "count\n" +
+                            "0\n",
+                    "select count() from x where x > 100"
+            );
+            insert("insert into x (x, ts) values (101, '2024-01-01T01:00:00.000000Z')");
+            assertSql(
+                    "x\tts\n" +
+                            "101\t2024-01-01T01:00:00.000000Z\n",
+                    "select x, ts from x where x > 100"
+            );
+        });
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "x\ti\tts\n" +
+                            "13\t13\t2024-01-04T00:00:00.000000Z\n" +
+                            "14\t14\t2024-01-04T06:00:00.000000Z\n",
+                    "select x, i, ts from x where x > 12 and i < 15"
+            );
+            assertSql(
+                    "x\tts\n" +
+                            "20\t2024-01-05T18:00:00.000000Z\n" +
+                            "19\t2024-01-05T12:00:00.000000Z\n",
+                    "select x, ts from x where x >= 19 order by ts desc"
+            );
+        });
+    }
+
+    private static void createTable() throws Exception {
+        // 5 daily partitions, 4 rows each
+        ddl(
+                "create table x as (" +
+                        "select x, x::int i, x::double d, timestamp_sequence('2024-01-01', 21600000000L) ts from long_sequence(20)" +
+                        ") timestamp(ts) partition by DAY"
+        );
+    }
+}
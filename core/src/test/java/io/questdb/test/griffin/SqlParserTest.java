@@ -7700,7 +7700,7 @@ public class SqlParserTest extends AbstractSqlParserTest {
         );
 
         assertQuery(
-                "select-group-by a, sum(b) b from (select [a, b] from tab timestamp (t)) sample by 10m fill(21.1,22,null,98) align to calendar with offset '00:00'",
+                "select-choose a, b from (select-group-by [a, sum(b) b, timestamp_floor('10m',t) t1, min(t) min] a, sum(b) b, timestamp_floor('10m',t) t1, min(t) min from (select [a, b, t] from tab timestamp (t)) order by t1, min)",
                 "select a,sum(b) b from tab timestamp(t) sample by 10m fill(21.1,22,null,98)",
                 modelOf("tab")
                         .col("a", ColumnType.INT)
@@ -7709,7 +7709,7 @@ public class SqlParserTest extends AbstractSqlParserTest {
         );
 
         assertQuery(
-                "select-group-by a, sum(b) b from (select [a, b] from tab timestamp (t)) sample by 10m fill(21.1,22,null,98) align to calendar with offset '00:00'",
+                "select-choose a, b from (select-group-by [a, sum(b) b, timestamp_floor('10m',t) t1, min(t) min] a, sum(b) b, timestamp_floor('10m',t) t1, min(t) min from (select [a, b, t] from tab timestamp (t)) order by t1, min)",
                 "select a,sum(b) b from tab timestamp(t) sample by 10m fill(21.1,22,null,98) align to calendar",
                 modelOf("tab")
                         .col("a", ColumnType.INT)
@@ -7730,7 +7730,7 @@ public class SqlParserTest extends AbstractSqlParserTest {
         );
 
         assertQuery(
-                "select-group-by a, sum(b) b from (select [a, b] from tab timestamp (t)) sample by 10m fill(mid) align to calendar with offset '00:00'",
+                "select-choose a, b from (select-group-by [a, sum(b) b, timestamp_floor('10m',t) t1, min(t) min] a, sum(b) b, timestamp_floor('10m',t) t1, min(t) min from (select [a, b, t] from tab timestamp (t)) order by t1, min)",
                 "select a,sum(b) b from tab timestamp(t) sample by 10m fill(mid)",
                 modelOf("tab")
                         .col("a", ColumnType.INT)
@@ -7739,7 +7739,7 @@ public class SqlParserTest extends AbstractSqlParserTest {
         );
 
         assertQuery(
-                "select-group-by a, sum(b) b from (select [a, b] from tab timestamp (t)) sample by 10m fill(mid) align to calendar with offset '00:00'",
+                "select-choose a, b from (select-group-by [a, sum(b) b, timestamp_floor('10m',t) t1, min(t) min] a, sum(b) b, timestamp_floor('10m',t) t1, min(t) min from (select [a, b, t] from tab timestamp (t)) order by t1, min)",
                 "select a,sum(b) b from tab timestamp(t) sample by 10m fill(mid) align to calendar",
                 modelOf("tab")
                         .col("a", ColumnType.INT)
@@ -7760,7 +7760,7 @@ public class SqlParserTest extends AbstractSqlParserTest {
         );
 
         assertQuery(
-                "select-choose a, b from (select-group-by [a, sum(b) b] a, sum(b) b from (select [a, b] from tab timestamp (t)) sample by 10m fill(mid) align to calendar with offset '00:00')",
+                "select-choose a, b from (select-choose [a, b] a, b from (select-group-by [a, sum(b) b, timestamp_floor('10m',t) t1, min(t) min] a, sum(b) b, timestamp_floor('10m',t) t1, min(t) min from (select [a, b, t] from tab timestamp (t)) order by t1, min))",
                 "select * from (select a,sum(b) b from tab timestamp(t) sample by 10m fill(mid))",
                 modelOf("tab")
                         .col("a", ColumnType.INT)
@@ -7770,7 +7770,7 @@ public class SqlParserTest extends AbstractSqlParserTest {
 
 
         assertQuery(
-                "select-choose a, b from (select-group-by [a, sum(b) b] a, sum(b) b from (select [a, b] from tab timestamp (t)) sample by 10m fill(mid) align to calendar with offset '00:00')",
+                "select-choose a, b from (select-choose [a, b] a, b from (select-group-by [a, sum(b) b, timestamp_floor('10m',t) t1, min(t) min] a, sum(b) b, timestamp_floor('10m',t) t1, min(t) min from (select [a, b, t] from tab timestamp (t)) order by t1, min))",
                 "select * from (select a,sum(b) b from tab timestamp(t) sample by 10m fill(mid) align to calendar)",
                 modelOf("tab")
                         .col("a", ColumnType.INT)
@@ -7851,7 +7851,7 @@ public class SqlParserTest extends AbstractSqlParserTest {
         );
 
         assertQuery(
-                "select-group-by a, sum(b) b from (select [a, b] from tab timestamp (t)) sample by 10m fill(21231.2344) align to calendar with offset '00:00'",
+                "select-choose a, b from (select-group-by [a, sum(b) b, timestamp_floor('10m',t) t1, min(t) min] a, sum(b) b, timestamp_floor('10m',t) t1, min(t) min from (select [a, b, t] from tab timestamp (t)) order by t1, min)",
                 "select a,sum(b) b from tab timestamp(t) sample by 10m fill(21231.2344)",
                 modelOf("tab")
                         .col("a", ColumnType.INT)
@@ -7860,7 +7860,7 @@ public class SqlParserTest extends AbstractSqlParserTest {
         );
 
         assertQuery(
-                "select-group-by a, sum(b) b from (select [a, b] from tab timestamp (t)) sample by 10m fill(21231.2344) align to calendar with offset '00:00'",
+                "select-choose a, b from (select-group-by [a, sum(b) b, timestamp_floor('10m',t) t1, min(t) min] a, sum(b) b, timestamp_floor('10m',t) t1, min(t) min from (select [a, b, t] from tab timestamp (t)) order by t1, min)",
                 "select a,sum(b) b from tab timestamp(t) sample by 10m fill(21231.2344) align to calendar",
                 modelOf("tab")
                         .col("a", ColumnType.INT)
@@ -0,0 +1,314 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin.engine.groupby;
+
+import io.questdb.test.AbstractCairoTest;
+import org.junit.Test;
+
+public class GroupByFillTest extends AbstractCairoTest {
+    // rows are 90 minutes apart, every third hourly bucket is empty
+    private static final String DDL = "create table x as (" +
+            "select x, x::double d, rnd_symbol('a','b') s, timestamp_sequence('2024-01-01', 5400000000L) ts from long_sequence(5)" +
+            ") timestamp(ts) partition by day";
+    // rows are 45 minutes apart, key 'a' has no rows after the first hour
+    private static final String KEYED_DDL = "create table x as (" +
+            "select x, x::double d, (case when x <= 2 then 'a' when x % 2 = 1 then 'b' else 'c' end)::symbol s, " +
+            "timestamp_sequence('2024-01-01', 2700000000L) ts from long_sequence(8)" +
+            ") timestamp(ts) partition by day";
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        assertQuery(
+                "ts\tsum\n",
+                "select ts, sum(x) from x sample by 1h fill(null) align to calendar",
+                "create table x (x long, ts timestamp) timestamp(ts) partition by day",
+                "ts",
+                false
+        );
+    }
+
+    @Test
+    public void testFillLinear() throws Exception {
+        assertQuery(
+                "ts\tsum\tavg\n" +
+                        "2024-01-01T00:00:00.000000Z\t1\t1.0\n" +
+                        "2024-01-01T01:00:00.000000Z\t2\t2.0\n" +
+                        "2024-01-01T02:00:00.000000Z\t2\t2.5\n" +
+                        "2024-01-01T03:00:00.000000Z\t3\t3.0\n" +
+                        "2024-01-01T04:00:00.000000Z\t4\t4.0\n" +
+                        "2024-01-01T05:00:00.000000Z\t4\t4.5\n" +
+                        "2024-01-01T06:00:00.000000Z\t5\t5.0\n",
+                "select ts, sum(x), avg(d) from x sample by 1h fill(linear) align to calendar",
+                DDL,
+                "ts",
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testFillNull() throws Exception {
+        assertQuery(
+                "ts\tsum\tavg\n" +
+                        "2024-01-01T00:00:00.000000Z\t1\t1.0\n" +
+                        "2024-01-01T01:00:00.000000Z\t2\t2.0\n" +
+                        "2024-01-01T02:00:00.000000Z\tNaN\tNaN\n" +
+                        "2024-01-01T03:00:00.000000Z\t3\t3.0\n" +
+                        "2024-01-01T04:00:00.000000Z\t4\t4.0\n" +
+                        "2024-01-01T05:00:00.000000Z\tNaN\tNaN\n" +
+                        "2024-01-01T06:00:00.000000Z\t5\t5.0\n",
+                "select ts, sum(x), avg(d) from x sample by 1h fill(null) align to calendar",
+                DDL,
+                "ts",
+                false
+        );
+    }
+
+    @Test
+    public void testFillPrev() throws Exception {
+        assertQuery(
+                "ts\tsum\tlast\n" +
+                        "2024-01-01T00:00:00.000000Z\t1\ta\n" +
+                        "2024-01-01T01:00:00.000000Z\t2\ta\n" +
+                        "2024-01-01T02:00:00.000000Z\t2\ta\n" +
+                        "2024-01-01T03:00:00.000000Z\t3\tb\n" +
+                        "2024-01-01T04:00:00.000000Z\t4\tb\n" +
+                        "2024-01-01T05:00:00.000000Z\t4\tb\n" +
+                        "2024-01-01T06:00:00.000000Z\t5\tb\n",
+                "select ts, sum(x), last(s) from x sample by 1h fill(prev) align to calendar",
+                DDL,
+                "ts",
+                false
+        );
+    }
+
+    @Test
+    public void testFillValues() throws Exception {
+        assertQuery(
+                "sum\tavg\tts\n" +
+                        "1\t1.0\t2024-01-01T00:00:00.000000Z\n" +
+                        "2\t2.0\t2024-01-01T01:00:00.000000Z\n" +
+                        "0\t2.5\t2024-01-01T02:00:00.000000Z\n" +
+                        "3\t3.0\t2024-01-01T03:00:00.000000Z\n" +
+                        "4\t4.0\t2024-01-01T04:00:00.000000Z\n" +
+                        "0\t2.5\t2024-01-01T05:00:00.000000Z\n" +
+                        "5\t5.0\t2024-01-01T06:00:00.000000Z\n",
+                "select sum(x), avg(d), ts from x sample by 1h fill(0, 2.5) align to calendar",
+                DDL,
+                "ts",
+                false
+        );
+    }
+
+    @Test
+    public void testKeyedFillLimit() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl(KEYED_DDL);
+            // the limit counts filled rows, it cannot be pushed down to the sort of group by rows
+            assertSqlCursors(
+                    "select ts, s, sum(x) from x sample by 1h fill(null) align to first observation limit 4",
+                    "select ts, s, sum(x) from x sample by 1h fill(null) align to calendar limit 4"
+            );
+            assertSqlCursors(
+                    "select ts, s, sum(x) from x sample by 1h fill(null) align to first observation limit -4",
+                    "select ts, s, sum(x) from x sample by 1h fill(null) align to calendar limit -4"
+            );
+        });
+    }
+
+    @Test
+    public void testKeyedFillMatchesSampleByFactories() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl(KEYED_DDL);
+            assertSqlCursors(
+                    "select ts, s, sum(x), avg(d) from x sample by 1h fill(null) align to first observation",
+                    "select ts, s, sum(x), avg(d) from x sample by 1h fill(null) align to calendar"
+            );
+            assertSqlCursors(
+                    "select s, max(x), last(s) l, ts from x sample by 30m fill(prev) align to first observation",
+                    "select s, max(x), last(s) l, ts from x sample by 30m fill(prev) align to calendar"
+            );
+            assertSqlCursors(
+                    "select ts, s, count(), min(d) from x sample by 1h fill(0, 2.5) align to first observation",
+                    "select ts, s, count(), min(d) from x sample by 1h fill(0, 2.5) align to calendar"
+            );
+            assertSqlCursors(
+                    "select ts, s, sum(x), avg(d) from x sample by 30m fill(linear) align to first observation",
+                    "select ts, s, sum(x), avg(d) from x sample by 30m fill(linear) align to calendar"
+            );
+            // filter on the key is applied to the filled result rather than to the table
+            assertSqlCursors(
+                    "select * from (select ts, s, sum(x) from x sample by 1h fill(prev) align to first observation) where s = 'c'",
+                    "select * from (select ts, s, sum(x) from x sample by 1h fill(prev) align to calendar) where s = 'c'"
+            );
+        });
+    }
+
+    @Test
+    public void testKeyedFillTrailingBuckets() throws Exception {
+        assertQuery(
+                "ts\ts\tsum\tlast\n" +
+                        "2024-01-01T00:00:00.000000Z\ta\t3\t2.0\n" +
+                        "2024-01-01T00:00:00.000000Z\tb\tNaN\tNaN\n" +
+                        "2024-01-01T00:00:00.000000Z\tc\tNaN\tNaN\n" +
+                        "2024-01-01T01:00:00.000000Z\ta\t3\t2.0\n" +
+                        "2024-01-01T01:00:00.000000Z\tb\t3\t3.0\n" +
+                        "2024-01-01T01:00:00.000000Z\tc\tNaN\tNaN\n" +
+                        "2024-01-01T02:00:00.000000Z\ta\t3\t2.0\n" +
+                        "2024-01-01T02:00:00.000000Z\tb\t3\t3.0\n" +
+                        "2024-01-01T02:00:00.000000Z\tc\t4\t4.0\n" +
+                        "2024-01-01T03:00:00.000000Z\ta\t3\t2.0\n" +
+                        "2024-01-01T03:00:00.000000Z\tb\t5\t5.0\n" +
+                        "2024-01-01T03:00:00.000000Z\tc\t6\t6.0\n" +
+                        "2024-01-01T04:00:00.000000Z\ta\t3\t2.0\n" +
+                        "2024-01-01T04:00:00.000000Z\tb\t7\t7.0\n" +
+                        "2024-01-01T04:00:00.000000Z\tc\t6\t6.0\n" +
+                        "2024-01-01T05:00:00.000000Z\ta\t3\t2.0\n" +
+                        "2024-01-01T05:00:00.000000Z\tb\t7\t7.0\n" +
+                        "2024-01-01T05:00:00.000000Z\tc\t8\t8.0\n",
+                "select ts, s, sum(x), last(d) from x sample by 1h fill(prev) align to calendar",
+                KEYED_DDL,
+                "ts",
+                false
+        );
+
+        assertMemoryLeak(() -> {
+            // the rewritten fill and sample by factories fill the buckets after the last row of a key the same way
+            assertSqlCursors(
+                    "select ts, s, sum(x), last(d) from x sample by 1h fill(null) align to first observation",
+                    "select ts, s, sum(x), last(d) from x sample by 1h fill(null) align to calendar"
+            );
+            assertSqlCursors(
+                    "select ts, s, sum(x), last(d) from x sample by 1h fill(prev) align to first observation",
+                    "select ts, s, sum(x), last(d) from x sample by 1h fill(prev) align to calendar"
+            );
+            assertSqlCursors(
+                    "select ts, s, sum(x), last(d) from x sample by 1h fill(linear) align to first observation",
+                    "select ts, s, sum(x), last(d) from x sample by 1h fill(linear) align to calendar"
+            );
+        });
+    }
+
+    @Test
+    public void testMatchesSampleByFactories() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl(DDL);
+            // the first row is on an hour boundary, so both alignments produce the same buckets
+            assertSqlCursors(
+                    "select ts, sum(x), avg(d) from x sample by 1h fill(null) align to first observation",
+                    "select ts, sum(x), avg(d) from x sample by 1h fill(null) align to calendar"
+            );
+            assertSqlCursors(
+                    "select ts, max(x), min(d) from x sample by 30m fill(prev) align to first observation",
+                    "select ts, max(x), min(d) from x sample by 30m fill(prev) align to calendar"
+            );
+            assertSqlCursors(
+                    "select count(), ts from x sample by 45m fill(0) align to first observation",
+                    "select count(), ts from x sample by 45m fill(0) align to calendar"
+            );
+        });
+    }
+
+    @Test
+    public void testOrderByDescWithLimit() throws Exception {
+        assertQuery(
+                "ts\tsum\n" +
+                        "2024-01-01T06:00:00.000000Z\t5\n" +
+                        "2024-01-01T05:00:00.000000Z\tNaN\n",
+                "select * from (select ts, sum(x) from x sample by 1h fill(null) align to calendar) order by ts desc limit 2",
+                DDL,
+                "ts###DESC",
+                true,
+                false
+        );
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl(DDL);
+            assertPlan(
+                    "select ts, sum(x) from x sample by 1h fill(null) align to calendar",
+                    "Fill\n" +
+                            "  stride: '1h'\n" +
+                            "  values: [null]\n" +
+                            "    Sort light\n" +
+                            "      keys: [ts]\n" +
+                            "        Async Group By workers: 1\n" +
+                            "          keys: [ts]\n" +
+                            "          values: [sum(x)]\n" +
+                            "          filter: null\n" +
+                            "            DataFrame\n" +
+                            "                Row forward scan\n" +
+                            "                Frame forward scan on: x\n"
+            );
+            assertPlan(
+                    "select ts, s, sum(x) from x sample by 1h fill(null) align to calendar",
+                    "SelectedRecord\n" +
+                            "    Fill\n" +
+                            "      keys: [s]\n" +
+                            "      stride: '1h'\n" +
+                            "      values: [null]\n" +
+                            "        Sort light\n" +
+                            "          keys: [ts1, min]\n" +
+                            "            Async Group By workers: 1\n" +
+                            "              keys: [ts1,s]\n" +
+                            "              values: [sum(x),min(ts)]\n" +
+                            "              filter: null\n" +
+                            "                DataFrame\n" +
+                            "                    Row forward scan\n" +
+                            "                    Frame forward scan on: x\n"
+            );
+            assertPlan(
+                    "select ts, sum(x) from x sample by 1h fill(linear) align to calendar",
+                    "Fill\n" +
+                            "  stride: '1h'\n" +
+                            "  values: [linear]\n" +
+                            "    Sort light\n" +
+                            "      keys: [ts]\n" +
+                            "        Async Group By workers: 1\n" +
+                            "          keys: [ts]\n" +
+                            "          values: [sum(x)]\n" +
+                            "          filter: null\n" +
+                            "            DataFrame\n" +
+                            "                Row forward scan\n" +
+                            "                Frame forward scan on: x\n"
+            );
+            // keys must come out in the order of their first appearance, an explicit order is left to sample by factories
+            assertPlan(
+                    "select ts, s, sum(x) from x sample by 1h fill(null) align to calendar order by s",
+                    "Sort\n" +
+                            "  keys: [s]\n" +
+                            "    SampleBy\n" +
+                            "      fill: null\n" +
+                            "      keys: [ts,s]\n" +
+                            "      values: [sum(x)]\n" +
+                            "        DataFrame\n" +
+                            "            Row forward scan\n" +
+                            "            Frame forward scan on: x\n"
+            );
+        });
+    }
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin.engine.groupby;
+
+import io.questdb.PropertyKey;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8s;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.std.TestFilesFacadeImpl;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GroupBySpillTest extends AbstractCairoTest {
+    private final AtomicInteger spillFileCount = new AtomicInteger();
+    private final FilesFacade ff = new TestFilesFacadeImpl() {
+        @Override
+        public int openRW(LPSZ name, long opts) {
+            if (Utf8s.containsAscii(name, "spill-")) {
+                spillFileCount.incrementAndGet();
+            }
+            return super.openRW(name, opts);
+        }
+    };
+
+    @Override
+    @Before
+    public void setUp() {
+        node1.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_ENABLED, false);
+        super.setUp();
+    }
+
+    @Test
+    public void testFixedSizeKeySpillsToDisk() throws Exception {
+        assertSpill(
+                "select k, count() c, first(s) fs, last(vc) lvc, count_distinct(sym) cd, sum(v) sv from x group by k order by k",
+                32 * 1024
+        );
+    }
+
+    @Test
+    public void testNoSpillUnderThreshold() throws Exception {
+        node1.setProperty(PropertyKey.CAIRO_SQL_SPILL_ENABLED, true);
+        assertMemoryLeak(ff, () -> {
+            ddl("create table x as (select rnd_long(0, 10, 0) k, x v from long_sequence(100))");
+            assertSql(
+                    "count\n11\n",
+                    "select count() from (select k, sum(v) from x group by k)"
+            );
+            Assert.assertEquals(0, spillFileCount.get());
+        });
+    }
+
+    @Test
+    public void testSpillWithToTop() throws Exception {
+        assertSpill(
+                "select * from (select k, count() c from x group by k) a cross join (select 1 n from long_sequence(2)) b order by k, n",
+                8 * 1024
+        );
+    }
+
+    @Test
+    public void testVarSizeKeySpillsToDisk() throws Exception {
+        assertSpill(
+                "select s, count() c, first(v) fv, last(v) lv, max(vc) mvc, string_agg(sym, ',') sa from x group by s order by s",
+                64 * 1024
+        );
+    }
+
+    private void assertSpill(String query, long threshold) throws Exception {
+        assertMemoryLeak(ff, () -> {
+            ddl(
+                    "create table x as (" +
+                            "select rnd_symbol('a','b','c') sym, rnd_long(0, 5000, 0) k, rnd_str(3,6,1) s, rnd_varchar(1,20,1) vc, x v " +
+                            "from long_sequence(20000)" +
+                            ")"
+            );
+
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(engine, sqlExecutionContext, query, expected);
+            Assert.assertEquals(0, spillFileCount.get());
+
+            node1.setProperty(PropertyKey.CAIRO_SQL_SPILL_ENABLED, true);
+            node1.setProperty(PropertyKey.CAIRO_SQL_SPILL_THRESHOLD, threshold);
+            final StringSink actual = new StringSink();
+            TestUtils.printSql(engine, sqlExecutionContext, query, actual);
+            TestUtils.assertEquals(expected, actual);
+            // group by spills to several hash partitions
+            Assert.assertTrue(spillFileCount.get() > 1);
+        });
+    }
+}
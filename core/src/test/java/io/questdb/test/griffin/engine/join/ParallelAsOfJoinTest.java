@@ -0,0 +1,130 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin.engine.join;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelAsOfJoinTest extends AbstractCairoTest {
+    private static final Log LOG = LogFactory.getLog(ParallelAsOfJoinTest.class);
+    // trades start before the first quote and outlive the last one
+    private static final String DDL_QUOTES = "create table quotes as (" +
+            "select rnd_symbol('a','b','c','d') sym, rnd_varchar('x','y',null) venue, rnd_double() bid, timestamp_sequence(600000000L, rnd_long(0, 3000000, 0)) ts " +
+            "from long_sequence(4000)" +
+            ") timestamp(ts) partition by hour";
+    private static final String DDL_TRADES = "create table trades as (" +
+            "select rnd_symbol('a','b','c','e') sym, rnd_varchar('x','y','z') venue, rnd_double() price, timestamp_sequence(0, rnd_long(0, 2000000, 0)) ts " +
+            "from long_sequence(6000)" +
+            ") timestamp(ts) partition by hour";
+
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, 100);
+        super.setUp();
+    }
+
+    @Test
+    public void testMatchesSerialExecution() throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new WorkerPool(() -> 4);
+            TestUtils.execute(
+                    pool,
+                    (engine, compiler, sqlExecutionContext) -> {
+                        ddl(compiler, DDL_QUOTES, sqlExecutionContext);
+                        ddl(compiler, DDL_TRADES, sqlExecutionContext);
+                        assertParallelAsOfJoin(engine, sqlExecutionContext, "select t.ts, t.sym, q.ts, q.sym, q.bid from trades t asof join quotes q");
+                        assertParallelAsOfJoin(engine, sqlExecutionContext, "select t.ts, t.sym, q.ts, q.bid from trades t asof join quotes q on (sym)");
+                        assertParallelAsOfJoin(engine, sqlExecutionContext, "select t.ts, t.sym, t.venue, q.ts, q.bid from trades t asof join quotes q on (sym, venue)");
+                        assertParallelAsOfJoin(engine, sqlExecutionContext, "select t.ts, q.ts, q.venue from trades t asof join quotes q on (venue)");
+                        assertParallelAsOfJoin(engine, sqlExecutionContext, "select count(), count(q.ts), sum(q.bid) from trades t asof join quotes q on (sym)");
+                        // self join hits equal timestamps
+                        assertParallelAsOfJoin(engine, sqlExecutionContext, "select a.ts, a.sym, b.ts, b.price from trades a asof join trades b on (sym)");
+                        // interval scans on both sides
+                        assertParallelAsOfJoin(
+                                engine,
+                                sqlExecutionContext,
+                                "select t.ts, q.ts, q.bid from (trades where ts > '1970-01-01T01:00') t " +
+                                        "asof join (quotes where ts < '1970-01-01T02:00') q on (sym)"
+                        );
+                        assertParallelAsOfJoin(engine, sqlExecutionContext, "select t.ts, q.ts from trades t asof join quotes q on (sym) limit 50");
+                    },
+                    configuration,
+                    LOG
+            );
+        });
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new WorkerPool(() -> 4);
+            TestUtils.execute(
+                    pool,
+                    (engine, compiler, sqlExecutionContext) -> {
+                        ddl(compiler, DDL_QUOTES, sqlExecutionContext);
+                        ddl(compiler, DDL_TRADES, sqlExecutionContext);
+                        TestUtils.assertSql(
+                                engine,
+                                sqlExecutionContext,
+                                "explain select t.ts, q.bid from trades t asof join quotes q on (sym)",
+                                new StringSink(),
+                                "QUERY PLAN\n" +
+                                        "SelectedRecord\n" +
+                                        "    Async AsOf Join workers: 4\n" +
+                                        "      condition: q.sym=t.sym\n" +
+                                        "        DataFrame\n" +
+                                        "            Row forward scan\n" +
+                                        "            Frame forward scan on: trades\n" +
+                                        "        DataFrame\n" +
+                                        "            Row forward scan\n" +
+                                        "            Frame forward scan on: quotes\n"
+                        );
+                    },
+                    configuration,
+                    LOG
+            );
+        });
+    }
+
+    private static void assertParallelAsOfJoin(CairoEngine engine, SqlExecutionContext sqlExecutionContext, String query) throws Exception {
+        final StringSink expected = new StringSink();
+        node1.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_ASOF_JOIN_ENABLED, "false");
+        TestUtils.printSql(engine, sqlExecutionContext, query, expected);
+
+        final StringSink actual = new StringSink();
+        node1.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_ASOF_JOIN_ENABLED, "true");
+        TestUtils.printSql(engine, sqlExecutionContext, query, actual);
+        TestUtils.assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin.engine.join;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Test;
+
+public class ParallelHashJoinTest extends AbstractCairoTest {
+    private static final Log LOG = LogFactory.getLog(ParallelHashJoinTest.class);
+    private static final String DDL_X = "create table x as (" +
+            "select x id, rnd_symbol('a','b','c','d','e') s, rnd_varchar('aa','bb','cc',null) v, rnd_int(0, 500, 0) k, timestamp_sequence(0, 1000000) ts " +
+            "from long_sequence(5000)" +
+            ") timestamp(ts) partition by hour";
+    private static final String DDL_Y = "create table y as (" +
+            "select x id, rnd_symbol('a','b','c','f') s, rnd_varchar('aa','bb','dd') v, rnd_int(0, 700, 0) k, timestamp_sequence(0, 2000000) ts " +
+            "from long_sequence(3000)" +
+            ") timestamp(ts) partition by hour";
+
+    @Test
+    public void testMatchesSerialExecution() throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new WorkerPool(() -> 4);
+            TestUtils.execute(
+                    pool,
+                    (engine, compiler, sqlExecutionContext) -> {
+                        ddl(compiler, DDL_X, sqlExecutionContext);
+                        ddl(compiler, DDL_Y, sqlExecutionContext);
+                        assertParallelHashJoin(engine, sqlExecutionContext, "select x.id, y.id, x.k from x join y on (k) order by x.id, y.id");
+                        assertParallelHashJoin(engine, sqlExecutionContext, "select x.id, y.id, x.s, y.v from x join y on (s, k) order by x.id, y.id");
+                        assertParallelHashJoin(engine, sqlExecutionContext, "select x.id, y.id, x.v from x join y on (v, k) order by x.id, y.id");
+                        assertParallelHashJoin(engine, sqlExecutionContext, "select count(), sum(x.id), sum(y.id) from x join y on (s)");
+                        // self join and descending master scan
+                        assertParallelHashJoin(engine, sqlExecutionContext, "select a.id, b.id from x a join x b on (k) order by a.id, b.id limit 1000");
+                        assertParallelHashJoin(engine, sqlExecutionContext, "select a.ts, b.id from (x order by ts desc) a join y b on (k) order by a.ts desc, b.id limit 100");
+                        // no matches
+                        assertParallelHashJoin(engine, sqlExecutionContext, "select x.id, y.id from x join y on (id) where x.id < 0");
+                    },
+                    configuration,
+                    LOG
+            );
+        });
+    }
+
+    @Test
+    public void testMatchesSerialExecutionWhenFramePairsExceedLimit() throws Exception {
+        // small page frames make probe tasks hit the per-frame pair limit, so the cursor streams the rest
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, 100);
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new WorkerPool(() -> 4);
+            TestUtils.execute(
+                    pool,
+                    (engine, compiler, sqlExecutionContext) -> {
+                        ddl(compiler, DDL_X, sqlExecutionContext);
+                        ddl(compiler, DDL_Y, sqlExecutionContext);
+                        assertParallelHashJoin(engine, sqlExecutionContext, "select x.id, y.id, x.k from x join y on (k) order by x.id, y.id");
+                        assertParallelHashJoin(engine, sqlExecutionContext, "select count(), sum(x.id), sum(y.id) from x join y on (s)");
+                        assertParallelHashJoin(engine, sqlExecutionContext, "select a.ts, b.id from (x order by ts desc) a join y b on (k) order by a.ts desc, b.id limit 100");
+                    },
+                    configuration,
+                    LOG
+            );
+        });
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new WorkerPool(() -> 4);
+            TestUtils.execute(
+                    pool,
+                    (engine, compiler, sqlExecutionContext) -> {
+                        ddl(compiler, DDL_X, sqlExecutionContext);
+                        ddl(compiler, DDL_Y, sqlExecutionContext);
+                        TestUtils.assertSql(
+                                engine,
+                                sqlExecutionContext,
+                                "explain select x.id, y.id from x join y on (k)",
+                                new StringSink(),
+                                "QUERY PLAN\n" +
+                                        "SelectedRecord\n" +
+                                        "    Async Hash Join workers: 4\n" +
+                                        "      condition: y.k=x.k\n" +
+                                        "        DataFrame\n" +
+                                        "            Row forward scan\n" +
+                                        "            Frame forward scan on: x\n" +
+                                        "        Hash\n" +
+                                        "            DataFrame\n" +
+                                        "                Row forward scan\n" +
+                                        "                Frame forward scan on: y\n"
+                        );
+                    },
+                    configuration,
+                    LOG
+            );
+        });
+    }
+
+    private static void assertParallelHashJoin(CairoEngine engine, SqlExecutionContext sqlExecutionContext, String query) throws Exception {
+        final StringSink expected = new StringSink();
+        node1.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_HASH_JOIN_ENABLED, "false");
+        TestUtils.printSql(engine, sqlExecutionContext, query, expected);
+
+        final StringSink actual = new StringSink();
+        node1.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_HASH_JOIN_ENABLED, "true");
+        TestUtils.printSql(engine, sqlExecutionContext, query, actual);
+        TestUtils.assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin.engine.orderby;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8s;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.std.TestFilesFacadeImpl;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelSortTest extends AbstractCairoTest {
+    private static final Log LOG = LogFactory.getLog(ParallelSortTest.class);
+    private static final String DDL = "create table x as (" +
+            "select x id, rnd_symbol('a','b','c') s, rnd_varchar('aa','bb','cc',null) v, rnd_int(0, 500, 2) k, " +
+            "rnd_long(-100, 100, 2) l, rnd_short() sh, rnd_double(2) d, timestamp_sequence(0, rnd_long(0, 2000000, 0)) ts " +
+            "from long_sequence(5000)" +
+            ") timestamp(ts) partition by hour";
+
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, 100);
+        super.setUp();
+    }
+
+    @Test
+    public void testMatchesSerialExecution() throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new WorkerPool(() -> 4);
+            TestUtils.execute(
+                    pool,
+                    (engine, compiler, sqlExecutionContext) -> {
+                        ddl(compiler, DDL, sqlExecutionContext);
+                        // radix sorted prefix, ties keep the scan order
+                        assertParallelSort(engine, sqlExecutionContext, "select id, k from x order by k");
+                        assertParallelSort(engine, sqlExecutionContext, "select id, k from x order by k desc");
+                        assertParallelSort(engine, sqlExecutionContext, "select id, l, v from x order by l desc, v, id desc");
+                        assertParallelSort(engine, sqlExecutionContext, "select id, sh, ts from x order by sh, ts desc");
+                        assertParallelSort(engine, sqlExecutionContext, "select * from x order by ts desc, k");
+                        // keys compared with the comparator only
+                        assertParallelSort(engine, sqlExecutionContext, "select id, v, d from x order by v desc, d");
+                        assertParallelSort(engine, sqlExecutionContext, "select id, d from x order by d desc");
+                        // symbol keys and filters fall back to serial sort
+                        assertParallelSort(engine, sqlExecutionContext, "select id, s from x order by s, id desc");
+                        assertParallelSort(engine, sqlExecutionContext, "select id, k from x where k > 100 order by k");
+                        assertParallelSort(engine, sqlExecutionContext, "select id, k from x where id < 0 order by k");
+                    },
+                    configuration,
+                    LOG
+            );
+        });
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new WorkerPool(() -> 4);
+            TestUtils.execute(
+                    pool,
+                    (engine, compiler, sqlExecutionContext) -> {
+                        ddl(compiler, DDL, sqlExecutionContext);
+                        TestUtils.assertSql(
+                                engine,
+                                sqlExecutionContext,
+                                "explain select id, k from x order by k, id desc",
+                                new StringSink(),
+                                "QUERY PLAN\n" +
+                                        "Async Sort workers: 4\n" +
+                                        "  keys: [k, id desc]\n" +
+                                        "    DataFrame\n" +
+                                        "        Row forward scan\n" +
+                                        "        Frame forward scan on: x\n"
+                        );
+                    },
+                    configuration,
+                    LOG
+            );
+        });
+    }
+
+    @Test
+    public void testRandomAccess() throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new WorkerPool(() -> 4);
+            TestUtils.execute(
+                    pool,
+                    (engine, compiler, sqlExecutionContext) -> {
+                        ddl(compiler, DDL, sqlExecutionContext);
+                        // the outer sort reads rows of the inner one by row id
+                        assertParallelSort(engine, sqlExecutionContext, "select * from (select id, k, l from x order by k) order by l, id");
+                        assertParallelSort(engine, sqlExecutionContext, "select id, k from x order by k limit 10, 20");
+                    },
+                    configuration,
+                    LOG
+            );
+        });
+    }
+
+    @Test
+    public void testSpill() throws Exception {
+        final AtomicInteger spillFileCount = new AtomicInteger();
+        final FilesFacade ff = new TestFilesFacadeImpl() {
+            @Override
+            public int openRW(LPSZ name, long opts) {
+                if (Utf8s.containsAscii(name, "spill-")) {
+                    spillFileCount.incrementAndGet();
+                }
+                return super.openRW(name, opts);
+            }
+        };
+        assertMemoryLeak(ff, () -> {
+            final WorkerPool pool = new WorkerPool(() -> 4);
+            TestUtils.execute(
+                    pool,
+                    (engine, compiler, sqlExecutionContext) -> {
+                        ddl(compiler, DDL, sqlExecutionContext);
+                        node1.setProperty(PropertyKey.CAIRO_SQL_SPILL_ENABLED, true);
+                        node1.setProperty(PropertyKey.CAIRO_SQL_SPILL_THRESHOLD, 1024);
+                        assertParallelSort(engine, sqlExecutionContext, "select id, l, v from x order by l, v desc");
+                        Assert.assertEquals(1, spillFileCount.get());
+                    },
+                    configuration,
+                    LOG
+            );
+        });
+    }
+
+    private static void assertParallelSort(CairoEngine engine, SqlExecutionContext sqlExecutionContext, String query) throws Exception {
+        final StringSink expected = new StringSink();
+        node1.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_SORT_ENABLED, "false");
+        TestUtils.printSql(engine, sqlExecutionContext, query, expected);
+
+        final StringSink actual = new StringSink();
+        node1.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_SORT_ENABLED, "true");
+        TestUtils.printSql(engine, sqlExecutionContext, query, actual);
+        TestUtils.assertEquals(expected, actual);
+    }
+}
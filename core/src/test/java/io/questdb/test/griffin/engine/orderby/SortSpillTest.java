@@ -0,0 +1,89 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin.engine.orderby;
+
+import io.questdb.PropertyKey;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8s;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.std.TestFilesFacadeImpl;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SortSpillTest extends AbstractCairoTest {
+
+    @Test
+    public void testNoSpillUnderThreshold() throws Exception {
+        node1.setProperty(PropertyKey.CAIRO_SQL_SPILL_ENABLED, true);
+        assertMemoryLeak(() -> {
+            ddl("create table x as (select x v from long_sequence(10))");
+            // union all doesn't support random access, so that the sort copies whole records
+            assertSql(
+                    "v\n10\n9\n8\n7\n6\n5\n4\n3\n2\n1\n",
+                    "select * from (x union all (x where v < 0)) order by v desc"
+            );
+        });
+    }
+
+    @Test
+    public void testSortSpillsToDisk() throws Exception {
+        final AtomicInteger spillFileCount = new AtomicInteger();
+        final FilesFacade ff = new TestFilesFacadeImpl() {
+            @Override
+            public int openRW(LPSZ name, long opts) {
+                if (Utf8s.containsAscii(name, "spill-")) {
+                    spillFileCount.incrementAndGet();
+                }
+                return super.openRW(name, opts);
+            }
+        };
+        assertMemoryLeak(ff, () -> {
+            ddl(
+                    "create table x as (" +
+                            "select rnd_symbol('a','b','c') sym, rnd_str(3,10,1) s, rnd_varchar(1,20,1) vc, rnd_bin(1,8,1) b, x v " +
+                            "from long_sequence(20000)" +
+                            ")"
+            );
+            // union all doesn't support random access, so that the sort copies whole records
+            final String query = "select * from (x union all x) order by s, vc, v desc";
+
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(engine, sqlExecutionContext, query, expected);
+            Assert.assertEquals(0, spillFileCount.get());
+
+            node1.setProperty(PropertyKey.CAIRO_SQL_SPILL_ENABLED, true);
+            node1.setProperty(PropertyKey.CAIRO_SQL_SPILL_THRESHOLD, 64 * 1024);
+            final StringSink actual = new StringSink();
+            TestUtils.printSql(engine, sqlExecutionContext, query, actual);
+            TestUtils.assertEquals(expected, actual);
+            Assert.assertEquals(1, spillFileCount.get());
+        });
+    }
+}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin.engine.window;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.window.WindowShardJob;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.Chars;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelWindowTest extends AbstractCairoTest {
+    private static final Log LOG = LogFactory.getLog(ParallelWindowTest.class);
+    private static final String DDL = "create table x as (" +
+            "select rnd_symbol('a','b','c','d','e','f','g') s, rnd_int(0, 10, 0) k, rnd_double(0) d, timestamp_sequence(0, 1000000) ts " +
+            "from long_sequence(10000)" +
+            ") timestamp(ts) partition by hour";
+
+    @Test
+    public void testMatchesSerialExecution() throws Exception {
+        assertParallelWindow(
+                "select s, ts, row_number() over (partition by s order by ts) from x",
+                "select s, ts, row_number() over (partition by s order by d desc, ts) from x",
+                "select s, ts, rank() over (partition by s order by k) from x",
+                "select s, ts, d, sum(d) over (partition by s order by ts), avg(d) over (partition by s order by ts) from x",
+                "select s, k, ts, first_value(d) over (partition by s, k order by ts rows between 3 preceding and current row) from x",
+                "select s, ts, sum(d) over (partition by s), avg(d) over (partition by s) from x",
+                "select k, ts, avg(d) over (partition by k order by ts range between 10 seconds preceding and current row) from x",
+                // random access into the window cursor
+                "select * from (select s, ts, row_number() over (partition by s order by d) rn from x) order by rn, ts",
+                "select * from (select s, ts, rank() over (partition by s order by k) r from x where d > 0.5) limit 10, 20"
+        );
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new WorkerPool(() -> 4);
+            TestUtils.execute(
+                    pool,
+                    (engine) -> pool.assign(new WindowShardJob(engine.getMessageBus())),
+                    (engine, compiler, sqlExecutionContext) -> {
+                        ddl(compiler, DDL, sqlExecutionContext);
+                        final StringSink planSink = new StringSink();
+                        TestUtils.printSql(
+                                engine,
+                                sqlExecutionContext,
+                                "explain select s, ts, row_number() over (partition by s order by d), sum(d) over (partition by s) from x",
+                                planSink
+                        );
+                        TestUtils.assertContains(planSink, "CachedWindow shards: 8");
+
+                        // different partition keys keep serial execution
+                        planSink.clear();
+                        TestUtils.printSql(
+                                engine,
+                                sqlExecutionContext,
+                                "explain select s, ts, row_number() over (partition by s order by d), sum(d) over (partition by k) from x",
+                                planSink
+                        );
+                        Assert.assertFalse(Chars.contains(planSink, "shards"));
+                    },
+                    configuration,
+                    LOG
+            );
+        });
+    }
+
+    private static void assertParallelWindow(CairoEngine engine, SqlExecutionContext sqlExecutionContext, String query) throws Exception {
+        final StringSink expected = new StringSink();
+        node1.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_WINDOW_ENABLED, "false");
+        TestUtils.printSql(engine, sqlExecutionContext, query, expected);
+
+        final StringSink actual = new StringSink();
+        node1.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_WINDOW_ENABLED, "true");
+        TestUtils.printSql(engine, sqlExecutionContext, query, actual);
+        TestUtils.assertEquals(expected, actual);
+    }
+
+    private void assertParallelWindow(String... queries) throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new WorkerPool(() -> 4);
+            TestUtils.execute(
+                    pool,
+                    (engine) -> pool.assign(new WindowShardJob(engine.getMessageBus())),
+                    (engine, compiler, sqlExecutionContext) -> {
+                        ddl(compiler, DDL, sqlExecutionContext);
+                        for (String query : queries) {
+                            assertParallelWindow(engine, sqlExecutionContext, query);
+                        }
+                    },
+                    configuration,
+                    LOG
+            );
+        });
+    }
+}
@@ -28,6 +28,8 @@ import io.questdb.PropertyKey;
 import io.questdb.cairo.*;
 import io.questdb.cairo.sql.InsertMethod;
 import io.questdb.cairo.sql.InsertOperation;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.wal.*;
 import io.questdb.griffin.CompiledQuery;
 import io.questdb.griffin.SqlCompiler;
@@ -37,6 +39,7 @@ import io.questdb.griffin.engine.ops.AlterOperation;
 import io.questdb.griffin.engine.ops.AlterOperationBuilder;
 import io.questdb.griffin.model.IntervalUtils;
 import io.questdb.mp.Job;
+import io.questdb.mp.WorkerPool;
 import io.questdb.std.*;
 import io.questdb.std.datetime.microtime.Timestamps;
 import io.questdb.std.str.LPSZ;
@@ -44,6 +47,7 @@ import io.questdb.std.str.Path;
 import io.questdb.std.str.Utf8s;
 import io.questdb.test.AbstractCairoTest;
 import io.questdb.test.cairo.Overrides;
+import io.questdb.test.mp.TestWorkerPool;
 import io.questdb.test.std.TestFilesFacadeImpl;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
@@ -323,6 +327,34 @@ public class WalTableSqlTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testApplyO3PartitionsOnApplyPool() throws Exception {
+        assertMemoryLeak(() -> {
+            // helper workers as in the dedicated WAL apply pool, they write partitions of the O3 commit
+            final WorkerPool pool = new TestWorkerPool("wal-apply", 3, metrics);
+            O3Utils.setupO3Jobs(pool, engine.getMessageBus());
+            pool.start(LOG);
+            try {
+                ddl("create table x (id long, s symbol, v varchar, ts timestamp) timestamp(ts) partition by hour wal");
+                ddl("create table y (id long, s symbol, v varchar, ts timestamp) timestamp(ts) partition by hour bypass wal");
+                final String[] batches = {
+                        "select x, rnd_symbol('a','b'), rnd_varchar(1, 10, 1), timestamp_sequence('2024-01-01', 60000000) from long_sequence(1000)",
+                        // out-of-order rows spread over all existing partitions
+                        "select x + 1000, rnd_symbol('b','c'), rnd_varchar(1, 10, 1), timestamp_sequence('2024-01-01T00:00:30', 59000000) from long_sequence(1000)",
+                        "select x + 2000, rnd_symbol('c','d'), rnd_varchar(1, 10, 1), timestamp_sequence('2023-12-31T20:00:15', 90000000) from long_sequence(500)"
+                };
+                for (int i = 0; i < batches.length; i++) {
+                    insert("insert into y " + batches[i]);
+                    insert("insert into x select * from y where id > " + i * 1000 + " and id <= " + (i + 1) * 1000);
+                }
+                drainWalQueue();
+                TestUtils.assertSqlCursors(engine, sqlExecutionContext, "y", "x", LOG);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
     @Test
     public void testCanApplyTransactionWhenWritingAnotherOne() throws Exception {
         assertMemoryLeak(() -> {
@@ -773,6 +805,46 @@ public class WalTableSqlTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testDedupReplayOfPartitionTail() throws Exception {
+        assertMemoryLeak(() -> {
+            String tableName = testName.getMethodName();
+            ddl("create table " + tableName + " (ts timestamp, sym symbol, x long, d double)" +
+                    " timestamp(ts) partition by DAY WAL DEDUP UPSERT KEYS(ts, sym)");
+
+            insert("insert into " + tableName + " values ('2022-02-24T01', 'AB', 1, 1.5), ('2022-02-24T02', 'BC', 2, 2.5), ('2022-02-24T03', 'AB', 3, 3.5)");
+            drainWalQueue();
+
+            long partitionNameTxn;
+            try (TableReader reader = getReader(tableName)) {
+                partitionNameTxn = reader.getTxFile().getPartitionNameTxn(0);
+            }
+
+            // replay of rows already in the table leaves the partition as is
+            insert("insert into " + tableName + " values ('2022-02-24T02', 'BC', 2, 2.5), ('2022-02-24T03', 'AB', 3, 3.5)");
+            drainWalQueue();
+
+            try (TableReader reader = getReader(tableName)) {
+                Assert.assertEquals(partitionNameTxn, reader.getTxFile().getPartitionNameTxn(0));
+            }
+            String expected = "ts\tsym\tx\td\n" +
+                    "2022-02-24T01:00:00.000000Z\tAB\t1\t1.5\n" +
+                    "2022-02-24T02:00:00.000000Z\tBC\t2\t2.5\n" +
+                    "2022-02-24T03:00:00.000000Z\tAB\t3\t3.5\n";
+            assertSql(expected, tableName);
+
+            // replayed rows mixed with an upsert and a new row
+            insert("insert into " + tableName + " values ('2022-02-24T01', 'AB', 1, 1.5), ('2022-02-24T02', 'BC', 20, 2.5), ('2022-02-24T03', 'AB', 3, 3.5), ('2022-02-24T04', 'CD', 4, 4.5)");
+            drainWalQueue();
+
+            assertSql("ts\tsym\tx\td\n" +
+                    "2022-02-24T01:00:00.000000Z\tAB\t1\t1.5\n" +
+                    "2022-02-24T02:00:00.000000Z\tBC\t20\t2.5\n" +
+                    "2022-02-24T03:00:00.000000Z\tAB\t3\t3.5\n" +
+                    "2022-02-24T04:00:00.000000Z\tCD\t4\t4.5\n", tableName);
+        });
+    }
+
     @Test
     public void testDropFailedWhileDataFileLocked() throws Exception {
         testDropFailedWhileDataFileLocked("x.d");
@@ -1321,6 +1393,52 @@ public class WalTableSqlTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testOutOfOrderTxnSortedOnCommit() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl(
+                    "create table y as (" +
+                            "select x id, rnd_symbol('a','b',null) sym, rnd_str(1,10,3) s, rnd_varchar(1,40,3) v, rnd_bin(1,20,3) b," +
+                            " rnd_long256() l256, rnd_uuid4() u, rnd_geohash(30) g, rnd_boolean() bo, rnd_byte() by, rnd_short() sh," +
+                            " rnd_double() d, dateadd('s', ((x * 7919) % 1000)::int, '2024-01-01T00:00:00.000000Z') ts" +
+                            " from long_sequence(1000)" +
+                            ") timestamp(ts) partition by hour bypass wal"
+            );
+            ddl("create table x as (select * from y where 1 = 0) timestamp(ts) partition by hour wal");
+            // rows ordered by id are out of order by timestamp, the second transaction overlaps the first one
+            insert("insert into x select * from y where id <= 500 order by id");
+            insert("insert into x select * from y where id > 500 order by id");
+
+            final TableToken tableToken = engine.verifyTableName("x");
+            try (WalReader reader = engine.getWalReader(sqlExecutionContext.getSecurityContext(), tableToken, "wal1", 0, 1000)) {
+                final RecordCursor cursor = reader.getDataCursor();
+                final Record record = cursor.getRecord();
+                final int timestampIndex = reader.getTimestampIndex();
+                long prevTimestamp = Long.MIN_VALUE;
+                for (int i = 0; i < 1000; i++) {
+                    Assert.assertTrue(cursor.hasNext());
+                    if (i == 500) {
+                        prevTimestamp = Long.MIN_VALUE;
+                    }
+                    Assert.assertTrue(record.getTimestamp(timestampIndex) > prevTimestamp);
+                    Assert.assertEquals(i, ((WalDataRecord) record).getDesignatedTimestampRowId(timestampIndex));
+                    prevTimestamp = record.getTimestamp(timestampIndex);
+                }
+                Assert.assertFalse(cursor.hasNext());
+
+                final WalEventCursor eventCursor = reader.getEventCursor();
+                for (int i = 0; i < 2; i++) {
+                    Assert.assertTrue(eventCursor.hasNext());
+                    Assert.assertFalse(eventCursor.getDataInfo().isOutOfOrder());
+                }
+            }
+
+            drainWalQueue();
+            TestUtils.assertSqlCursors(engine, sqlExecutionContext, "y", "x", LOG);
+            TestUtils.assertSqlCursors(engine, sqlExecutionContext, "y where id % 7 = 0", "x where id % 7 = 0", LOG);
+        });
+    }
+
     @Test
     public void testQueryNullSymbols() throws Exception {
         assertMemoryLeak(() -> {
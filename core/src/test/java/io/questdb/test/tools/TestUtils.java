@@ -1432,6 +1432,7 @@ public final class TestUtils {
                 DefaultLifecycleManager.INSTANCE,
                 configuration.getRoot(),
                 DefaultDdlListener.INSTANCE,
+                new SharedSymbolCacheRegistry(),
                 () -> false,
                 metrics
         );